@@ -0,0 +1,139 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+
+import io.netty.channel.Channel;
+
+/**
+ * Flow control for one direction of a proxied call: stops reading from the producer {@link Channel} (by turning off
+ * its auto-read) while the consumer {@link Channel} is not writable, and starts reading again once the consumer is
+ * writable. A {@link Channel} goes unwritable when its outbound buffer goes over its {@link
+ * io.netty.channel.WriteBufferWaterMark#high()} mark, and writable again once the buffer drains below the {@link
+ * io.netty.channel.WriteBufferWaterMark#low()} mark, so this keeps a fast producer from piling up an unbounded amount
+ * of direct memory in a slow consumer's outbound buffer.
+ *
+ * <p>{@link #pauseProducerIfConsumerUnwritable()} should be called after each write to the consumer, and {@link
+ * #resumeProducerIfConsumerWritable()} should be called whenever the consumer's writability changes. Call {@link
+ * #close()} when the call is done - it resumes the producer if necessary and turns this into a no-op from then on, so a
+ * late write can't leave the producer paused after it has moved on to something else.
+ *
+ * <p>This also keeps track of how long the producer has been paused, and how many times, for metrics purposes. This
+ * class is thread safe - the producer and consumer are usually on different event loops.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ChannelBackpressure {
+
+    protected final @NotNull Channel producer;
+    protected final @NotNull Channel consumer;
+
+    protected boolean paused = false;
+    protected boolean closed = false;
+    protected long pauseStartTimeNanos;
+    protected long totalPausedTimeNanos = 0;
+    protected int numPauses = 0;
+
+    /**
+     * @param producer The channel that is read from - this is the channel that gets paused. Cannot be null.
+     * @param consumer The channel that is written to - its writability controls whether the producer is paused. Cannot
+     * be null.
+     */
+    public ChannelBackpressure(@NotNull Channel producer, @NotNull Channel consumer) {
+        //noinspection ConstantConditions
+        if (producer == null)
+            throw new IllegalArgumentException("producer cannot be null");
+
+        //noinspection ConstantConditions
+        if (consumer == null)
+            throw new IllegalArgumentException("consumer cannot be null");
+
+        this.producer = producer;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Stops reading from the producer if the consumer is not writable (and the producer isn't already paused).
+     *
+     * @return true if this call paused the producer, false otherwise.
+     */
+    public synchronized boolean pauseProducerIfConsumerUnwritable() {
+        if (closed || paused || consumer.isWritable()) {
+            return false;
+        }
+
+        paused = true;
+        numPauses++;
+        pauseStartTimeNanos = System.nanoTime();
+        producer.config().setAutoRead(false);
+        return true;
+    }
+
+    /**
+     * Starts reading from the producer again if it was paused by this instance and the consumer is writable again.
+     *
+     * @return true if this call resumed the producer, false otherwise.
+     */
+    public synchronized boolean resumeProducerIfConsumerWritable() {
+        if (!paused || !consumer.isWritable()) {
+            return false;
+        }
+
+        resumeProducer();
+        return true;
+    }
+
+    /**
+     * Resumes the producer if it was paused by this instance, and makes any further calls to {@link
+     * #pauseProducerIfConsumerUnwritable()} do nothing. Safe to call more than once.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (paused) {
+            resumeProducer();
+        }
+    }
+
+    protected void resumeProducer() {
+        paused = false;
+        totalPausedTimeNanos += System.nanoTime() - pauseStartTimeNanos;
+        producer.config().setAutoRead(true);
+    }
+
+    /**
+     * @return true if the producer is currently paused by this instance.
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @return true if {@link #close()} has been called.
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return The total amount of time in nanoseconds that the producer has been paused by this instance, including
+     * the current pause if it's paused right now.
+     */
+    public synchronized long getTotalPausedTimeNanos() {
+        return (paused)
+               ? totalPausedTimeNanos + (System.nanoTime() - pauseStartTimeNanos)
+               : totalPausedTimeNanos;
+    }
+
+    /**
+     * @return The number of times the producer has been paused by this instance.
+     */
+    public synchronized int getNumPauses() {
+        return numPauses;
+    }
+
+    public @NotNull Channel getProducer() {
+        return producer;
+    }
+
+    public @NotNull Channel getConsumer() {
+        return consumer;
+    }
+}
@@ -0,0 +1,311 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig.AddressSelectionStrategy;
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DefaultDnsCnameCache;
+import io.netty.resolver.dns.DnsAddressResolverGroup;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * Resolves downstream hostnames into IP addresses for {@link StreamingAsyncHttpClient} based on a {@link
+ * ProxyRouterDnsConfig}. When {@link ProxyRouterDnsConfig#isEnabled()} is true, {@link #resolve(String, int)} does the
+ * lookup asynchronously via Netty's non-blocking {@link DnsAddressResolverGroup} (with a TTL-respecting cache and
+ * negative caching), or via {@link ProxyRouterDnsConfig#customAddressResolverGroup()} if one was given. The resolvers
+ * run on a dedicated single-threaded NIO event loop, so they never compete with (or block) the server's worker threads
+ * or the proxy/router event loops.
+ *
+ * <p>{@link #selectAddress(String, int, List)} picks the address to use when a hostname resolves to multiple IPs
+ * based on {@link ProxyRouterDnsConfig#addressSelectionStrategy()}, and is used for both async and blocking lookups.
+ *
+ * <p>Call {@link #close()} when the resolver is no longer needed so its event loop thread and resolvers are released.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamAddressResolver {
+
+    protected final @NotNull ProxyRouterDnsConfig dnsConfig;
+    protected final @Nullable EventLoopGroup resolverEventLoopGroup;
+    protected final @Nullable AddressResolverGroup<InetSocketAddress> addressResolverGroup;
+    // False if the addressResolverGroup came from ProxyRouterDnsConfig.customAddressResolverGroup(), in which case
+    //      it belongs to whoever supplied it and close() leaves it alone.
+    protected final boolean addressResolverGroupIsOwned;
+    protected final @NotNull Map<String, AtomicInteger> roundRobinCounters = new ConcurrentHashMap<>();
+
+    /**
+     * @param dnsConfig The DNS config to use - may be null, in which case {@link ProxyRouterDnsConfig#DEFAULT_IMPL} is
+     * used (async resolution disabled, random address selection).
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    public DownstreamAddressResolver(@Nullable ProxyRouterDnsConfig dnsConfig) {
+        this.dnsConfig = validate(dnsConfig);
+
+        if (this.dnsConfig.isEnabled()) {
+            this.resolverEventLoopGroup = new NioEventLoopGroup(
+                1, new DefaultThreadFactory("proxyRouterDnsResolver", true, Thread.NORM_PRIORITY)
+            );
+            AddressResolverGroup<InetSocketAddress> customGroup = this.dnsConfig.customAddressResolverGroup();
+            this.addressResolverGroup = (customGroup == null)
+                                        ? createDnsAddressResolverGroup(this.dnsConfig)
+                                        : customGroup;
+            this.addressResolverGroupIsOwned = (customGroup == null);
+        }
+        else {
+            this.resolverEventLoopGroup = null;
+            this.addressResolverGroup = null;
+            this.addressResolverGroupIsOwned = false;
+        }
+    }
+
+    /**
+     * Closes the DNS resolvers created by this instance (along with their caches and sockets) and shuts down the
+     * resolver event loop thread. A {@link ProxyRouterDnsConfig#customAddressResolverGroup()} is not closed, since it
+     * belongs to whoever supplied it. Lookups must not be done after this is called. Safe to call more than once.
+     */
+    public void close() {
+        if (addressResolverGroup != null && addressResolverGroupIsOwned) {
+            addressResolverGroup.close();
+        }
+
+        if (resolverEventLoopGroup != null) {
+            resolverEventLoopGroup.shutdownGracefully();
+        }
+    }
+
+    /**
+     * @param config The config to check - may be null, in which case {@link ProxyRouterDnsConfig#DEFAULT_IMPL} is
+     * used.
+     * @return The given config (or {@link ProxyRouterDnsConfig#DEFAULT_IMPL} if it was null), after verifying that all
+     * of its values are valid.
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    public static @NotNull ProxyRouterDnsConfig validate(@Nullable ProxyRouterDnsConfig config) {
+        if (config == null) {
+            return ProxyRouterDnsConfig.DEFAULT_IMPL;
+        }
+
+        //noinspection ConstantConditions
+        if (config.addressSelectionStrategy() == null) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.proxyRouterDnsConfig().addressSelectionStrategy() cannot be null."
+            );
+        }
+
+        if (!config.isEnabled() || config.customAddressResolverGroup() != null) {
+            // The rest of the options are ignored.
+            return config;
+        }
+
+        if (config.minTtlSeconds() < 0 || config.minTtlSeconds() > config.maxTtlSeconds()) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.proxyRouterDnsConfig().minTtlSeconds() must be greater than or equal to 0, and "
+                + "less than or equal to maxTtlSeconds(). min_ttl_seconds=" + config.minTtlSeconds()
+                + ", max_ttl_seconds=" + config.maxTtlSeconds()
+            );
+        }
+
+        if (config.negativeTtlSeconds() < 0) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.proxyRouterDnsConfig().negativeTtlSeconds() must be greater than or equal to 0. "
+                + "negative_ttl_seconds=" + config.negativeTtlSeconds()
+            );
+        }
+
+        if (config.queryTimeoutMillis() <= 0) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.proxyRouterDnsConfig().queryTimeoutMillis() must be greater than 0. "
+                + "query_timeout_millis=" + config.queryTimeoutMillis()
+            );
+        }
+
+        return config;
+    }
+
+    /**
+     * @param dnsConfig The DNS config to use.
+     * @return A Netty {@link DnsAddressResolverGroup} that caches lookups according to the given config's TTL
+     * options, and queries the config's {@link ProxyRouterDnsConfig#nameServers()} (or the platform default name
+     * servers if that's null).
+     */
+    protected @NotNull AddressResolverGroup<InetSocketAddress> createDnsAddressResolverGroup(
+        @NotNull ProxyRouterDnsConfig dnsConfig
+    ) {
+        List<InetSocketAddress> nameServers = dnsConfig.nameServers();
+        DnsNameResolverBuilder builder = new DnsNameResolverBuilder()
+            .channelType(NioDatagramChannel.class)
+            .resolveCache(new DefaultDnsCache(
+                dnsConfig.minTtlSeconds(), dnsConfig.maxTtlSeconds(), dnsConfig.negativeTtlSeconds()
+            ))
+            .cnameCache(new DefaultDnsCnameCache(dnsConfig.minTtlSeconds(), dnsConfig.maxTtlSeconds()))
+            .queryTimeoutMillis(dnsConfig.queryTimeoutMillis())
+            .nameServerProvider(
+                (nameServers == null || nameServers.isEmpty())
+                ? DnsServerAddressStreamProviders.platformDefault()
+                : new SequentialDnsServerAddressStreamProvider(nameServers)
+            );
+
+        return new DnsAddressResolverGroup(builder);
+    }
+
+    /**
+     * @return true if {@link #resolve(String, int)} can be used (i.e. {@link ProxyRouterDnsConfig#isEnabled()} is
+     * true), false if the caller needs to do a blocking lookup instead.
+     */
+    public boolean isAsyncResolutionEnabled() {
+        return addressResolverGroup != null;
+    }
+
+    /**
+     * Asynchronously resolves the given hostname. The returned future will be failed with a {@link
+     * HostnameResolutionException} if the hostname can't be resolved.
+     *
+     * @param hostname The hostname to resolve.
+     * @param port The port the returned address should have.
+     * @return A future that will be completed with the resolved address - if the hostname resolves to multiple IP
+     * addresses then the one returned is chosen by {@link #selectAddress(String, int, List)}.
+     * @throws IllegalStateException if {@link #isAsyncResolutionEnabled()} is false.
+     */
+    public @NotNull Future<InetSocketAddress> resolve(@NotNull String hostname, int port) {
+        if (addressResolverGroup == null || resolverEventLoopGroup == null) {
+            throw new IllegalStateException(
+                "Async hostname resolution is not enabled. See ServerConfig.proxyRouterDnsConfig()."
+            );
+        }
+
+        Future<List<InetSocketAddress>> allAddresses = resolveAll(hostname, port);
+        Promise<InetSocketAddress> result = ImmediateEventExecutor.INSTANCE.newPromise();
+        allAddresses.addListener(future -> {
+            if (future.isSuccess()) {
+                result.trySuccess(selectAddress(hostname, port, allAddresses.getNow()));
+            }
+            else {
+                result.tryFailure(future.cause());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Resolves all of the given hostname's IP addresses. If {@link #isAsyncResolutionEnabled()} is true this is done
+     * asynchronously, otherwise this does a blocking {@link InetAddress#getAllByName(String)} lookup on the calling
+     * thread and the returned future will already be complete. Either way the returned future will be failed with a
+     * {@link HostnameResolutionException} if the hostname can't be resolved.
+     *
+     * @param hostname The hostname to resolve.
+     * @param port The port the returned addresses should have.
+     * @return A future that will be completed with all the resolved addresses - never empty.
+     */
+    public @NotNull Future<List<InetSocketAddress>> resolveAll(@NotNull String hostname, int port) {
+        if (addressResolverGroup == null || resolverEventLoopGroup == null) {
+            try {
+                List<InetSocketAddress> addresses = new ArrayList<>();
+                for (InetAddress ipAddress : InetAddress.getAllByName(hostname)) {
+                    addresses.add(new InetSocketAddress(ipAddress, port));
+                }
+                return ImmediateEventExecutor.INSTANCE.newSucceededFuture(addresses);
+            }
+            catch (Throwable t) {
+                return ImmediateEventExecutor.INSTANCE.newFailedFuture(resolutionFailure(hostname, t));
+            }
+        }
+
+        EventLoop eventLoop = resolverEventLoopGroup.next();
+        Promise<List<InetSocketAddress>> result = eventLoop.newPromise();
+        AddressResolverGroup<InetSocketAddress> resolverGroup = addressResolverGroup;
+
+        Runnable doResolve = () -> {
+            try {
+                resolverGroup.getResolver(eventLoop)
+                             .resolveAll(InetSocketAddress.createUnresolved(hostname, port))
+                             .addListener(future -> {
+                                 if (!future.isSuccess()) {
+                                     result.tryFailure(resolutionFailure(hostname, future.cause()));
+                                     return;
+                                 }
+
+                                 @SuppressWarnings("unchecked")
+                                 List<InetSocketAddress> addresses = (List<InetSocketAddress>) future.getNow();
+                                 if (addresses == null || addresses.isEmpty()) {
+                                     result.tryFailure(resolutionFailure(
+                                         hostname, new UnknownHostException("No addresses found for " + hostname)
+                                     ));
+                                     return;
+                                 }
+
+                                 result.trySuccess(addresses);
+                             });
+            }
+            catch (Throwable t) {
+                result.tryFailure(resolutionFailure(hostname, t));
+            }
+        };
+
+        // Kick off the lookup from the resolver's own event loop, since that's where Netty's resolvers expect to be
+        //      used.
+        if (eventLoop.inEventLoop()) {
+            doResolve.run();
+        }
+        else {
+            eventLoop.execute(doResolve);
+        }
+
+        return result;
+    }
+
+    protected @NotNull HostnameResolutionException resolutionFailure(@NotNull String hostname, Throwable cause) {
+        return new HostnameResolutionException(
+            "Unable to resolve hostname into IP address(es). hostname=" + hostname, cause
+        );
+    }
+
+    /**
+     * Picks the address to use for a downstream call based on {@link ProxyRouterDnsConfig#addressSelectionStrategy()}.
+     * Spreading calls across all the addresses rather than firehosing a single one is important for things like
+     * Amazon ELBs - see {@link ProxyRouterDnsConfig} for details.
+     *
+     * @param hostname The hostname that was resolved.
+     * @param port The downstream port.
+     * @param addresses The addresses the hostname resolved to - must not be empty.
+     * @return The address that should be used for the next downstream call to the given hostname and port.
+     */
+    public <T> @NotNull T selectAddress(@NotNull String hostname, int port, @NotNull List<T> addresses) {
+        int numAddresses = addresses.size();
+        if (numAddresses == 1) {
+            return addresses.get(0);
+        }
+
+        if (dnsConfig.addressSelectionStrategy() == AddressSelectionStrategy.ROUND_ROBIN) {
+            AtomicInteger counter = roundRobinCounters.computeIfAbsent(
+                hostname + ":" + port, key -> new AtomicInteger()
+            );
+            return addresses.get(Math.floorMod(counter.getAndIncrement(), numAddresses));
+        }
+
+        return addresses.get(ThreadLocalRandom.current().nextInt(numAddresses));
+    }
+}
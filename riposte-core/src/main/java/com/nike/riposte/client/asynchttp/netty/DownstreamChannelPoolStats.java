@@ -0,0 +1,144 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.metrics.ProxyRouterChannelPoolStats;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * The {@link ProxyRouterChannelPoolStats} for one of {@link StreamingAsyncHttpClient}'s downstream connection pools.
+ * The pool calls the {@code track*} methods as connections are created, acquired, released, and closed. Everything is
+ * backed by atomics since a pool is used from many event loops at once.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamChannelPoolStats implements ProxyRouterChannelPoolStats {
+
+    protected final @NotNull String poolName;
+    protected final int maxConnections;
+
+    protected final AtomicInteger numActiveChannels = new AtomicInteger();
+    protected final AtomicInteger numIdleChannels = new AtomicInteger();
+    protected final AtomicInteger numPendingAcquires = new AtomicInteger();
+    protected final AtomicLong numChannelsCreated = new AtomicLong();
+    protected final AtomicLong numChannelsClosed = new AtomicLong();
+    protected final AtomicLong numAcquiresRejected = new AtomicLong();
+
+    /**
+     * @param downstreamAddress The downstream address the pool connects to.
+     * @param maxConnections The max number of connections the pool can have open, or -1 if it's unbounded.
+     */
+    public DownstreamChannelPoolStats(@NotNull InetSocketAddress downstreamAddress, int maxConnections) {
+        this(poolNameFor(downstreamAddress), maxConnections);
+    }
+
+    /**
+     * @param poolName The name of the pool, e.g. for a pool that isn't tied to a single downstream address.
+     * @param maxConnections The max number of connections the pool can have open, or -1 if it's unbounded.
+     */
+    public DownstreamChannelPoolStats(@NotNull String poolName, int maxConnections) {
+        this.poolName = poolName;
+        this.maxConnections = maxConnections;
+    }
+
+    protected static @NotNull String poolNameFor(@NotNull InetSocketAddress downstreamAddress) {
+        String ip = (downstreamAddress.getAddress() == null)
+                    ? downstreamAddress.getHostString()
+                    : downstreamAddress.getAddress().getHostAddress();
+        return ip + ":" + downstreamAddress.getPort();
+    }
+
+    /**
+     * Tracks a new connection - it's counted as closed once its close future completes.
+     */
+    public void trackChannelCreated(@NotNull Channel ch) {
+        numChannelsCreated.incrementAndGet();
+        ch.closeFuture().addListener(future -> numChannelsClosed.incrementAndGet());
+    }
+
+    /**
+     * Tracks an acquire attempt - it's counted as pending until the given promise completes, and as active afterward
+     * if it succeeded (until {@link #trackChannelReleased()} is called).
+     *
+     * @return The given promise, for chaining.
+     */
+    public @NotNull Promise<Channel> trackAcquire(@NotNull Promise<Channel> acquirePromise) {
+        numPendingAcquires.incrementAndGet();
+        acquirePromise.addListener(future -> {
+            numPendingAcquires.decrementAndGet();
+            if (future.isSuccess()) {
+                numActiveChannels.incrementAndGet();
+            }
+        });
+        return acquirePromise;
+    }
+
+    public void trackChannelReleased() {
+        numActiveChannels.decrementAndGet();
+    }
+
+    public void trackChannelOffered() {
+        numIdleChannels.incrementAndGet();
+    }
+
+    public void trackChannelPolled() {
+        numIdleChannels.decrementAndGet();
+    }
+
+    public void trackAcquireRejected() {
+        numAcquiresRejected.incrementAndGet();
+    }
+
+    @Override
+    public @NotNull String getPoolName() {
+        return poolName;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public int getNumActiveChannels() {
+        return numActiveChannels.get();
+    }
+
+    @Override
+    public int getNumIdleChannels() {
+        return numIdleChannels.get();
+    }
+
+    @Override
+    public int getNumPendingAcquires() {
+        return numPendingAcquires.get();
+    }
+
+    @Override
+    public long getNumChannelsCreated() {
+        return numChannelsCreated.get();
+    }
+
+    @Override
+    public long getNumChannelsClosed() {
+        return numChannelsClosed.get();
+    }
+
+    @Override
+    public long getNumAcquiresRejected() {
+        return numAcquiresRejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DownstreamChannelPoolStats{pool_name=" + poolName + ", max_connections=" + maxConnections
+               + ", active=" + getNumActiveChannels() + ", idle=" + getNumIdleChannels()
+               + ", pending=" + getNumPendingAcquires() + ", created=" + getNumChannelsCreated()
+               + ", closed=" + getNumChannelsClosed() + ", rejected=" + getNumAcquiresRejected() + "}";
+    }
+}
@@ -0,0 +1,211 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+/**
+ * The current set of IP addresses for a logical downstream host (hostname and port), used by {@link
+ * StreamingAsyncHttpClient}'s per-logical-host connection pools (see {@code
+ * ServerConfig.ProxyRouterConnectionPoolConfig.isPoolPerLogicalHostEnabled()}). The addresses are resolved by a
+ * {@link DownstreamAddressResolver} the first time they're needed, and then kept up to date by calling {@link
+ * #refresh()} periodically in the background. If a refresh fails the previous addresses are kept, so a DNS blip
+ * doesn't take down calls to a host whose IPs haven't changed. The background refresh task is handed over via {@link
+ * #setRefreshTask(ScheduledFuture)} and cancelled by {@link #close()} once the host's pool goes away.
+ *
+ * <p>If a {@link DownstreamOutlierDetector} is given then addresses it has ejected are skipped when picking the address
+ * for a new connection, and pooled connections to them are treated as stale (see {@link #isStale(Channel)}).
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamHostAddresses {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamHostAddresses.class);
+
+    protected final @NotNull String hostname;
+    protected final int port;
+    protected final @NotNull DownstreamAddressResolver addressResolver;
+    protected final @Nullable DownstreamOutlierDetector outlierDetector;
+
+    protected volatile @NotNull List<InetSocketAddress> addresses = Collections.emptyList();
+    // Guarded by this.
+    protected @Nullable Future<List<InetSocketAddress>> inFlightResolution;
+    // Guarded by this.
+    protected @Nullable ScheduledFuture<?> refreshTask;
+    // Guarded by this.
+    protected boolean closed = false;
+
+    public DownstreamHostAddresses(@NotNull String hostname,
+                                   int port,
+                                   @NotNull DownstreamAddressResolver addressResolver) {
+        this(hostname, port, addressResolver, null);
+    }
+
+    public DownstreamHostAddresses(@NotNull String hostname,
+                                   int port,
+                                   @NotNull DownstreamAddressResolver addressResolver,
+                                   @Nullable DownstreamOutlierDetector outlierDetector) {
+        this.hostname = hostname;
+        this.port = port;
+        this.addressResolver = addressResolver;
+        this.outlierDetector = outlierDetector;
+    }
+
+    /**
+     * @return A future that completes once the host has been resolved at least once - it will already be complete
+     * unless this is the first time the host is being used (or every resolution so far has failed). The future will
+     * be failed with a {@link HostnameResolutionException} if the host can't be resolved.
+     */
+    public @NotNull Future<?> ready() {
+        if (!addresses.isEmpty()) {
+            return ImmediateEventExecutor.INSTANCE.newSucceededFuture(null);
+        }
+
+        return refresh();
+    }
+
+    /**
+     * Re-resolves the host's IP addresses. If a resolution is already in progress then that one is returned rather
+     * than starting a new one.
+     *
+     * @return A future that will be completed with the newly resolved addresses, or failed with a {@link
+     * HostnameResolutionException} if the host can't be resolved.
+     */
+    public synchronized @NotNull Future<List<InetSocketAddress>> refresh() {
+        Future<List<InetSocketAddress>> existing = inFlightResolution;
+        if (existing != null && !existing.isDone()) {
+            return existing;
+        }
+
+        Future<List<InetSocketAddress>> resolution = addressResolver.resolveAll(hostname, port);
+        inFlightResolution = resolution;
+        resolution.addListener(future -> {
+            if (future.isSuccess()) {
+                updateAddresses(resolution.getNow());
+            }
+            else if (!addresses.isEmpty()) {
+                logger.warn(
+                    "Unable to refresh the IP addresses for a downstream host. The previous addresses will be kept. "
+                    + "hostname={}, port={}, previous_addresses={}", hostname, port, addresses, future.cause()
+                );
+            }
+        });
+        return resolution;
+    }
+
+    protected void updateAddresses(@NotNull List<InetSocketAddress> newAddresses) {
+        List<InetSocketAddress> oldAddresses = addresses;
+        if (newAddresses.isEmpty() || new HashSet<>(newAddresses).equals(new HashSet<>(oldAddresses))) {
+            return;
+        }
+
+        addresses = Collections.unmodifiableList(new ArrayList<>(newAddresses));
+        if (outlierDetector != null) {
+            outlierDetector.retainAddresses(newAddresses);
+        }
+        if (!oldAddresses.isEmpty()) {
+            logger.info(
+                "The IP addresses for a downstream host have changed. Connections to addresses that are no longer "
+                + "valid will be drained. hostname={}, port={}, old_addresses={}, new_addresses={}",
+                hostname, port, oldAddresses, newAddresses
+            );
+        }
+    }
+
+    /**
+     * @return The address the next new connection to this host should use, picked from the current addresses (minus
+     * any that the {@link DownstreamOutlierDetector} has ejected) by {@link
+     * DownstreamAddressResolver#selectAddress(String, int, List)}.
+     * @throws HostnameResolutionException if the host hasn't been resolved yet (see {@link #ready()}).
+     */
+    public @NotNull InetSocketAddress nextAddress() {
+        List<InetSocketAddress> currentAddresses = addresses;
+        if (currentAddresses.isEmpty()) {
+            throw new HostnameResolutionException(
+                "The downstream host has not been resolved into IP address(es) yet. hostname=" + hostname, null
+            );
+        }
+
+        List<InetSocketAddress> candidates = (outlierDetector == null)
+                                             ? currentAddresses
+                                             : outlierDetector.filterAvailable(currentAddresses);
+        return addressResolver.selectAddress(hostname, port, candidates);
+    }
+
+    /**
+     * @return true if the given channel is connected to an IP address that's no longer one of this host's addresses,
+     * or that the {@link DownstreamOutlierDetector} has ejected, which means it should be closed rather than reused.
+     */
+    public boolean isStale(@NotNull Channel channel) {
+        SocketAddress remoteAddress = channel.remoteAddress();
+        if (!(remoteAddress instanceof InetSocketAddress)) {
+            return false;
+        }
+
+        List<InetSocketAddress> currentAddresses = addresses;
+        if (!currentAddresses.isEmpty() && !currentAddresses.contains(remoteAddress)) {
+            return true;
+        }
+
+        return outlierDetector != null && outlierDetector.isEjected(remoteAddress);
+    }
+
+    /**
+     * Sets the task that periodically calls {@link #refresh()} so it can be cancelled by {@link #close()}. If this has
+     * already been closed then the task is cancelled immediately.
+     */
+    public synchronized void setRefreshTask(@NotNull ScheduledFuture<?> refreshTask) {
+        if (closed) {
+            refreshTask.cancel(false);
+            return;
+        }
+
+        this.refreshTask = refreshTask;
+    }
+
+    /**
+     * Cancels the background refresh task (if any). Meant to be called once this host's pool is no longer used. Safe
+     * to call more than once.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public @NotNull List<InetSocketAddress> getAddresses() {
+        return addresses;
+    }
+
+    public @Nullable DownstreamOutlierDetector getOutlierDetector() {
+        return outlierDetector;
+    }
+
+    public @NotNull String getHostname() {
+        return hostname;
+    }
+
+    public int getPort() {
+        return port;
+    }
+}
@@ -0,0 +1,272 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passive outlier detection for the IP addresses of one logical downstream host, used by {@link
+ * DownstreamHostAddresses} when {@code ServerConfig.ProxyRouterConnectionPoolConfig.outlierDetectionConfig()} is
+ * enabled. {@link StreamingAsyncHttpClient} reports the result of each call to one of the host's addresses via {@link
+ * #recordResponse(SocketAddress, int, long)} or {@link #recordFailure(SocketAddress)}, and an address is ejected when
+ * it has too many 5xx responses or connection failures in a row, or when its average response latency is too far above
+ * the average of the host's other addresses. See {@link ProxyRouterOutlierDetectionConfig} for how ejection and
+ * reinstatement work.
+ *
+ * <p>This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamOutlierDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamOutlierDetector.class);
+
+    /**
+     * The weight given to each new response latency when updating an address's average latency.
+     */
+    public static final double LATENCY_EWMA_WEIGHT = 0.1;
+
+    protected final @NotNull String hostname;
+    protected final @NotNull ProxyRouterOutlierDetectionConfig config;
+    protected final long baseEjectionTimeNanos;
+    protected final long maxEjectionTimeNanos;
+    protected final long reinstatementRampUpNanos;
+
+    // Guarded by this.
+    protected final Map<InetSocketAddress, AddressStats> statsByAddress = new HashMap<>();
+
+    public DownstreamOutlierDetector(@NotNull String hostname, @NotNull ProxyRouterOutlierDetectionConfig config) {
+        this.hostname = hostname;
+        this.config = config;
+        this.baseEjectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(config.baseEjectionTimeMillis());
+        this.maxEjectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(config.maxEjectionTimeMillis());
+        this.reinstatementRampUpNanos = TimeUnit.MILLISECONDS.toNanos(config.reinstatementRampUpMillis());
+    }
+
+    /**
+     * Records a response from the given address. A 5xx response counts as a failure, anything else resets the
+     * address's consecutive failure count. The latency is fed into the address's average latency either way.
+     *
+     * @param address The address the response came from. Ignored if it's not an {@link InetSocketAddress}.
+     * @param statusCode The HTTP status code of the response.
+     * @param latencyNanos The time in nanoseconds between sending the request and receiving the response headers.
+     */
+    public synchronized void recordResponse(SocketAddress address, int statusCode, long latencyNanos) {
+        if (!(address instanceof InetSocketAddress)) {
+            return;
+        }
+
+        InetSocketAddress inetAddress = (InetSocketAddress) address;
+        AddressStats stats = getOrCreateStats(inetAddress);
+        stats.recordLatency(latencyNanos);
+
+        if (statusCode >= 500) {
+            recordFailure(inetAddress, stats, "consecutive 5xx responses or connection failures");
+            return;
+        }
+
+        stats.consecutiveFailures = 0;
+        if (isLatencyOutlier(stats)) {
+            ejectIfAllowed(inetAddress, stats, "response latency outlier");
+        }
+    }
+
+    /**
+     * Records a failed call to the given address - a connection failure, or an error before any response was
+     * received.
+     *
+     * @param address The address the call was made to. Ignored if it's not an {@link InetSocketAddress}.
+     */
+    public synchronized void recordFailure(SocketAddress address) {
+        if (!(address instanceof InetSocketAddress)) {
+            return;
+        }
+
+        InetSocketAddress inetAddress = (InetSocketAddress) address;
+        recordFailure(inetAddress, getOrCreateStats(inetAddress), "consecutive 5xx responses or connection failures");
+    }
+
+    protected void recordFailure(InetSocketAddress address, AddressStats stats, String reason) {
+        stats.consecutiveFailures++;
+        if (stats.consecutiveFailures >= config.consecutiveFailuresToEject()) {
+            ejectIfAllowed(address, stats, reason);
+        }
+    }
+
+    protected boolean isLatencyOutlier(AddressStats stats) {
+        double multiplier = config.latencyOutlierMultiplier();
+        int minResponses = config.minResponsesForLatencyOutlierDetection();
+        if (multiplier <= 0 || stats.numLatencySamples < minResponses) {
+            return false;
+        }
+
+        double otherLatencyTotal = 0;
+        int numOthers = 0;
+        long now = currentTimeNanos();
+        for (AddressStats other : statsByAddress.values()) {
+            if (other != stats && !other.isEjected(now) && other.numLatencySamples >= minResponses) {
+                otherLatencyTotal += other.ewmaLatencyNanos;
+                numOthers++;
+            }
+        }
+
+        return numOthers > 0 && stats.ewmaLatencyNanos > multiplier * (otherLatencyTotal / numOthers);
+    }
+
+    protected void ejectIfAllowed(InetSocketAddress address, AddressStats stats, String reason) {
+        long now = currentTimeNanos();
+        if (stats.isEjected(now) || config.maxEjectionPercent() <= 0) {
+            return;
+        }
+
+        int numAddresses = statsByAddress.size();
+        if (numAddresses < 2) {
+            // Ejecting the only address we know about wouldn't take it out of rotation anyway.
+            return;
+        }
+
+        int numEjected = 0;
+        for (AddressStats other : statsByAddress.values()) {
+            if (other.isEjected(now)) {
+                numEjected++;
+            }
+        }
+
+        // Always leave at least one address in rotation.
+        int maxEjected = Math.min(Math.max(1, (numAddresses * config.maxEjectionPercent()) / 100), numAddresses - 1);
+        if (numEjected >= maxEjected) {
+            return;
+        }
+
+        // An address that stayed healthy for a while after its last reinstatement starts over at the base time.
+        if (stats.numEjections > 0 && now - stats.ejectedUntilNanos > maxEjectionTimeNanos) {
+            stats.numEjections = 0;
+        }
+
+        long ejectionTimeNanos = baseEjectionTimeNanos << Math.min(stats.numEjections, 30);
+        if (ejectionTimeNanos <= 0 || ejectionTimeNanos > maxEjectionTimeNanos) {
+            ejectionTimeNanos = maxEjectionTimeNanos;
+        }
+
+        stats.numEjections++;
+        stats.ejectedUntilNanos = now + ejectionTimeNanos;
+        stats.ejected = true;
+        stats.consecutiveFailures = 0;
+        // The address's stats from before the ejection shouldn't count against it once it's back.
+        stats.ewmaLatencyNanos = 0;
+        stats.numLatencySamples = 0;
+
+        logger.warn(
+            "Ejecting a downstream IP address from its host's connection pool. hostname={}, address={}, reason={}, "
+            + "ejection_time_millis={}, num_ejections={}",
+            hostname, address, reason, TimeUnit.NANOSECONDS.toMillis(ejectionTimeNanos), stats.numEjections
+        );
+    }
+
+    /**
+     * @return The given addresses minus the ones that are currently ejected. Addresses that were recently reinstated
+     * are included with a probability that ramps up from 0 to 1 over {@link
+     * ProxyRouterOutlierDetectionConfig#reinstatementRampUpMillis()}. If that would leave nothing then all the given
+     * addresses are returned, since a host with every address ejected is still better than no host at all.
+     */
+    public synchronized @NotNull List<InetSocketAddress> filterAvailable(@NotNull List<InetSocketAddress> addresses) {
+        long now = currentTimeNanos();
+        List<InetSocketAddress> available = new ArrayList<>(addresses.size());
+        for (InetSocketAddress address : addresses) {
+            AddressStats stats = statsByAddress.get(address);
+            if (stats == null || isAvailable(address, stats, now)) {
+                available.add(address);
+            }
+        }
+
+        return (available.isEmpty()) ? addresses : available;
+    }
+
+    protected boolean isAvailable(InetSocketAddress address, AddressStats stats, long now) {
+        if (stats.isEjected(now)) {
+            return false;
+        }
+
+        if (stats.ejected) {
+            stats.ejected = false;
+            logger.info(
+                "Reinstating a previously ejected downstream IP address. hostname={}, address={}, num_ejections={}",
+                hostname, address, stats.numEjections
+            );
+        }
+
+        long timeSinceReinstatedNanos = now - stats.ejectedUntilNanos;
+        if (stats.numEjections == 0 || timeSinceReinstatedNanos >= reinstatementRampUpNanos) {
+            return true;
+        }
+
+        double share = (double) timeSinceReinstatedNanos / reinstatementRampUpNanos;
+        return ThreadLocalRandom.current().nextDouble() < share;
+    }
+
+    /**
+     * @return true if the given address is currently ejected.
+     */
+    public synchronized boolean isEjected(SocketAddress address) {
+        AddressStats stats = statsByAddress.get(address);
+        return stats != null && stats.isEjected(currentTimeNanos());
+    }
+
+    /**
+     * Forgets the stats for any address that isn't in the given collection - called when the host's addresses change
+     * so addresses that have dropped out of DNS don't count towards the host's averages or ejection limits.
+     */
+    public synchronized void retainAddresses(@NotNull Collection<InetSocketAddress> currentAddresses) {
+        statsByAddress.keySet().retainAll(currentAddresses);
+        for (InetSocketAddress address : currentAddresses) {
+            getOrCreateStats(address);
+        }
+    }
+
+    protected AddressStats getOrCreateStats(InetSocketAddress address) {
+        return statsByAddress.computeIfAbsent(address, a -> new AddressStats());
+    }
+
+    protected long currentTimeNanos() {
+        return System.nanoTime();
+    }
+
+    public @NotNull String getHostname() {
+        return hostname;
+    }
+
+    /**
+     * The outlier detection state for one address. Guarded by the owning {@link DownstreamOutlierDetector}.
+     */
+    protected static class AddressStats {
+
+        protected int consecutiveFailures = 0;
+        protected double ewmaLatencyNanos = 0;
+        protected int numLatencySamples = 0;
+        protected int numEjections = 0;
+        protected long ejectedUntilNanos = 0;
+        protected boolean ejected = false;
+
+        protected void recordLatency(long latencyNanos) {
+            ewmaLatencyNanos = (numLatencySamples == 0)
+                               ? latencyNanos
+                               : ewmaLatencyNanos + (LATENCY_EWMA_WEIGHT * (latencyNanos - ewmaLatencyNanos));
+            numLatencySamples++;
+        }
+
+        protected boolean isEjected(long now) {
+            return ejected && now - ejectedUntilNanos < 0;
+        }
+    }
+}
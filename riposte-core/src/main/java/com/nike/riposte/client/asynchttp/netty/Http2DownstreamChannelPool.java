@@ -0,0 +1,674 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.ProxyRouterPool;
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.handler.codec.http2.Http2GoAwayFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SettingsFrame;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * A {@link ChannelPool} that multiplexes the downstream calls to a single downstream host over a small number of
+ * HTTP/2 connections, used by {@link StreamingAsyncHttpClient} when {@code ServerConfig.ProxyRouterHttp2Config} is
+ * enabled. Each acquire opens a new HTTP/2 stream on the least busy connection and hands back its {@link
+ * Http2StreamChannel}, which carries exactly one request and response. Releasing the stream channel closes it (which
+ * resets the stream if the call didn't finish cleanly) and frees up its slot on the connection.
+ *
+ * <p>New connections are opened via the given connection factory whenever the open connections don't have enough free
+ * streams for the calls that are waiting, up to {@code maxConnections}. After that acquires wait in a queue for a
+ * stream to free up, and fail with a {@link DownstreamConnectionPoolExhaustedException} if the queue is full or they
+ * wait longer than {@code acquireTimeoutMillis}. A connection stops getting new streams once the downstream host sends
+ * a GOAWAY, and its streams are capped by the host's {@code SETTINGS_MAX_CONCURRENT_STREAMS} if that's lower than
+ * {@code maxConcurrentStreamsPerConnection}. A connection that has had no streams for {@code
+ * idleConnectionTimeoutMillis} is closed and dropped from the pool, the same way idle HTTP/1.1 connections are.
+ *
+ * <p>The connection factory's futures complete once the connection's protocol is known. If the returned connection's
+ * pipeline doesn't have an {@link Http2MultiplexHandler} the downstream host didn't agree to HTTP/2 - the connection is
+ * closed and {@link #http2Supported()} reports false from then on, so the caller can fall back to HTTP/1.1.
+ */
+@SuppressWarnings("WeakerAccess")
+public class Http2DownstreamChannelPool implements ChannelPool, ProxyRouterPool {
+
+    public static final String HTTP2_CONNECTION_STATE_HANDLER_NAME = "http2ConnectionStateHandler";
+
+    private static final Logger logger = LoggerFactory.getLogger(Http2DownstreamChannelPool.class);
+
+    protected static final AttributeKey<MultiplexedConnection> STREAM_CONNECTION_ATTR =
+        AttributeKey.newInstance("http2DownstreamStreamConnection");
+
+    protected final @NotNull DownstreamChannelPoolStats poolStats;
+    protected final @NotNull Supplier<Future<Channel>> connectionFactory;
+    protected final @NotNull EventExecutorGroup timeoutExecutorGroup;
+    protected final int maxConnections;
+    protected final int maxConcurrentStreamsPerConnection;
+    protected final int maxPendingAcquires;
+    protected final long acquireTimeoutMillis;
+    protected final long idleConnectionTimeoutMillis;
+    protected final @Nullable MetricsListener metricsListener;
+
+    // Everything below is guarded by this.
+    protected final List<MultiplexedConnection> connections = new ArrayList<>();
+    protected final Deque<PendingAcquire> pendingAcquires = new ArrayDeque<>();
+    protected int numConnectionsInProgress = 0;
+    protected @Nullable Boolean http2Supported;
+    protected @Nullable Promise<Boolean> http2SupportedPromise;
+    protected boolean closed = false;
+
+    /**
+     * Creates a pool that never closes idle connections. See {@link #Http2DownstreamChannelPool(
+     * DownstreamChannelPoolStats, Supplier, EventExecutorGroup, int, int, int, long, long, boolean, MetricsListener)}
+     * for the details.
+     */
+    public Http2DownstreamChannelPool(@NotNull DownstreamChannelPoolStats poolStats,
+                                      @NotNull Supplier<Future<Channel>> connectionFactory,
+                                      @NotNull EventExecutorGroup timeoutExecutorGroup,
+                                      int maxConnections,
+                                      int maxConcurrentStreamsPerConnection,
+                                      int maxPendingAcquires,
+                                      long acquireTimeoutMillis,
+                                      boolean http2KnownToBeSupported,
+                                      @Nullable MetricsListener metricsListener) {
+        this(
+            poolStats, connectionFactory, timeoutExecutorGroup, maxConnections, maxConcurrentStreamsPerConnection,
+            maxPendingAcquires, acquireTimeoutMillis, 0, http2KnownToBeSupported, metricsListener
+        );
+    }
+
+    /**
+     * @param poolStats The stats for this pool. Active channels are streams, created/closed channels are connections.
+     * @param connectionFactory Opens a new connection to the downstream host. See the class javadocs for what the
+     * returned futures need to do.
+     * @param timeoutExecutorGroup Used to time out acquires that wait too long and connections that are idle too long.
+     * @param maxConnections The max number of connections this pool can have open at the same time.
+     * @param maxConcurrentStreamsPerConnection The max number of streams that can be in use on a single connection.
+     * @param maxPendingAcquires The max number of acquires that can be waiting for a stream at the same time.
+     * @param acquireTimeoutMillis How long an acquire can wait for a stream before failing.
+     * @param idleConnectionTimeoutMillis How long a connection can go without any streams before it's closed, or 0 to
+     * keep idle connections open.
+     * @param http2KnownToBeSupported Pass in true if the downstream host is known to speak HTTP/2, false if the first
+     * connection needs to find out (see {@link #http2Supported()}).
+     * @param metricsListener Notified of rejected acquires - may be null.
+     */
+    public Http2DownstreamChannelPool(@NotNull DownstreamChannelPoolStats poolStats,
+                                      @NotNull Supplier<Future<Channel>> connectionFactory,
+                                      @NotNull EventExecutorGroup timeoutExecutorGroup,
+                                      int maxConnections,
+                                      int maxConcurrentStreamsPerConnection,
+                                      int maxPendingAcquires,
+                                      long acquireTimeoutMillis,
+                                      long idleConnectionTimeoutMillis,
+                                      boolean http2KnownToBeSupported,
+                                      @Nullable MetricsListener metricsListener) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be greater than 0");
+        }
+        if (maxConcurrentStreamsPerConnection < 1) {
+            throw new IllegalArgumentException("maxConcurrentStreamsPerConnection must be greater than 0");
+        }
+
+        this.poolStats = poolStats;
+        this.connectionFactory = connectionFactory;
+        this.timeoutExecutorGroup = timeoutExecutorGroup;
+        this.maxConnections = maxConnections;
+        this.maxConcurrentStreamsPerConnection = maxConcurrentStreamsPerConnection;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+        this.http2Supported = (http2KnownToBeSupported) ? Boolean.TRUE : null;
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public @NotNull DownstreamChannelPoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    @Override
+    public @Nullable DownstreamHostAddresses getHostAddresses() {
+        return null;
+    }
+
+    /**
+     * @return A future that completes with true if the downstream host speaks HTTP/2, or false if it negotiated
+     * HTTP/1.1 instead. This will already be complete unless nothing has been negotiated with the host yet, in which
+     * case a connection is opened to find out (and kept for use by this pool if it's HTTP/2). The future is failed if
+     * that connection can't be made, and the next call to this method will try again.
+     */
+    public @NotNull Future<Boolean> http2Supported() {
+        Promise<Boolean> result;
+        boolean shouldConnect = false;
+        synchronized (this) {
+            if (http2Supported != null) {
+                return ImmediateEventExecutor.INSTANCE.newSucceededFuture(http2Supported);
+            }
+
+            if (http2SupportedPromise == null) {
+                http2SupportedPromise = ImmediateEventExecutor.INSTANCE.newPromise();
+                if (numConnectionsInProgress == 0) {
+                    numConnectionsInProgress++;
+                    shouldConnect = true;
+                }
+            }
+            result = http2SupportedPromise;
+        }
+
+        if (shouldConnect) {
+            openConnection();
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of connections this pool currently has open (not counting ones that are still connecting).
+     */
+    public synchronized int getNumConnections() {
+        return connections.size();
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(ImmediateEventExecutor.INSTANCE.newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        poolStats.trackAcquire(promise);
+
+        MultiplexedConnection connection;
+        boolean rejected = false;
+        synchronized (this) {
+            if (closed) {
+                promise.tryFailure(new IllegalStateException("Http2DownstreamChannelPool was closed"));
+                return promise;
+            }
+
+            connection = reserveStream();
+            if (connection == null) {
+                if (pendingAcquires.size() >= maxPendingAcquires) {
+                    rejected = true;
+                }
+                else {
+                    PendingAcquire pendingAcquire = new PendingAcquire(promise);
+                    pendingAcquire.timeoutFuture = timeoutExecutorGroup.schedule(
+                        () -> timeOutPendingAcquire(pendingAcquire), acquireTimeoutMillis, TimeUnit.MILLISECONDS
+                    );
+                    pendingAcquires.add(pendingAcquire);
+                }
+            }
+        }
+
+        if (connection != null) {
+            openStream(connection, promise);
+        }
+        else if (rejected) {
+            rejectAcquire(promise, new IllegalStateException("Too many outstanding acquire operations"));
+        }
+        else {
+            openConnectionsIfNeeded();
+        }
+
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        return release(channel, ImmediateEventExecutor.INSTANCE.newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        MultiplexedConnection connection = channel.attr(STREAM_CONNECTION_ATTR).getAndSet(null);
+        if (connection == null) {
+            promise.tryFailure(new IllegalArgumentException(
+                "Channel " + channel + " was not acquired from this Http2DownstreamChannelPool or was already released"
+            ));
+            return promise;
+        }
+
+        poolStats.trackChannelReleased();
+        // A stream only ever carries one call, so releasing it means closing it.
+        channel.close();
+        streamFinished(connection);
+        promise.trySuccess(null);
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        List<MultiplexedConnection> connectionsToClose;
+        List<PendingAcquire> acquiresToFail;
+        synchronized (this) {
+            closed = true;
+            for (MultiplexedConnection connection : connections) {
+                connection.cancelIdleTimeout();
+            }
+            connectionsToClose = new ArrayList<>(connections);
+            connections.clear();
+            acquiresToFail = new ArrayList<>(pendingAcquires);
+            pendingAcquires.clear();
+        }
+
+        for (PendingAcquire pendingAcquire : acquiresToFail) {
+            pendingAcquire.fail(new IllegalStateException("Http2DownstreamChannelPool was closed"));
+        }
+        for (MultiplexedConnection connection : connectionsToClose) {
+            connection.channel.close();
+        }
+    }
+
+    /**
+     * Must be called while holding this pool's lock.
+     *
+     * @return The least busy connection that can take a new stream (after reserving a stream slot on it), or null if
+     * none of the connections can take a new stream.
+     */
+    protected @Nullable MultiplexedConnection reserveStream() {
+        MultiplexedConnection leastBusy = null;
+        for (MultiplexedConnection connection : connections) {
+            if (connection.canOpenStream(maxConcurrentStreamsPerConnection)
+                && (leastBusy == null || connection.numActiveStreams < leastBusy.numActiveStreams)
+            ) {
+                leastBusy = connection;
+            }
+        }
+
+        if (leastBusy != null) {
+            leastBusy.cancelIdleTimeout();
+            leastBusy.numActiveStreams++;
+        }
+        return leastBusy;
+    }
+
+    protected void openStream(@NotNull MultiplexedConnection connection, @NotNull Promise<Channel> promise) {
+        Future<Http2StreamChannel> streamFuture;
+        try {
+            streamFuture = new Http2StreamChannelBootstrap(connection.channel)
+                .attr(STREAM_CONNECTION_ATTR, connection)
+                .handler(new ChannelInboundHandlerAdapter())
+                .open();
+        }
+        catch (Throwable t) {
+            streamFinished(connection);
+            promise.tryFailure(t);
+            return;
+        }
+
+        streamFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                streamFinished(connection);
+                promise.tryFailure(future.cause());
+                return;
+            }
+
+            Http2StreamChannel stream = streamFuture.getNow();
+            if (!promise.trySuccess(stream)) {
+                // The caller gave up on the acquire (e.g. cancelled it), so give the stream back.
+                release(stream);
+            }
+        });
+    }
+
+    protected void streamFinished(@NotNull MultiplexedConnection connection) {
+        synchronized (this) {
+            connection.numActiveStreams--;
+            if (connection.numActiveStreams == 0) {
+                scheduleIdleTimeout(connection);
+            }
+        }
+        servePendingAcquires();
+    }
+
+    /**
+     * Must be called while holding this pool's lock. Schedules the given connection to be closed if it still has no
+     * streams after {@link #idleConnectionTimeoutMillis}.
+     */
+    protected void scheduleIdleTimeout(@NotNull MultiplexedConnection connection) {
+        if (idleConnectionTimeoutMillis <= 0 || closed) {
+            return;
+        }
+
+        connection.cancelIdleTimeout();
+        connection.idleTimeoutFuture = timeoutExecutorGroup.schedule(
+            () -> closeIfIdle(connection), idleConnectionTimeoutMillis, TimeUnit.MILLISECONDS
+        );
+    }
+
+    protected void closeIfIdle(@NotNull MultiplexedConnection connection) {
+        synchronized (this) {
+            // A stream may have been opened on the connection right as the timeout fired.
+            if (connection.numActiveStreams > 0 || !connections.remove(connection)) {
+                return;
+            }
+            connection.idleTimeoutFuture = null;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                "Closing a downstream HTTP/2 connection because it was idle too long. pool_name={}, channel_id={}, "
+                + "idle_connection_timeout_millis={}", poolStats.getPoolName(), connection.channel.toString(),
+                idleConnectionTimeoutMillis
+            );
+        }
+        connection.channel.close();
+    }
+
+    /**
+     * Hands out free streams to the acquires that are waiting for one, and opens new connections if there still
+     * aren't enough streams to go around.
+     */
+    protected void servePendingAcquires() {
+        while (true) {
+            MultiplexedConnection connection;
+            PendingAcquire pendingAcquire;
+            synchronized (this) {
+                // Drop acquires that timed out or were cancelled while they were waiting.
+                while (!pendingAcquires.isEmpty() && pendingAcquires.peek().promise.isDone()) {
+                    pendingAcquires.poll();
+                }
+                if (pendingAcquires.isEmpty()) {
+                    return;
+                }
+
+                connection = reserveStream();
+                if (connection == null) {
+                    break;
+                }
+                pendingAcquire = pendingAcquires.poll();
+            }
+
+            pendingAcquire.timeoutFuture.cancel(false);
+            openStream(connection, pendingAcquire.promise);
+        }
+
+        openConnectionsIfNeeded();
+    }
+
+    /**
+     * Opens new connections if the waiting acquires need more streams than the connections that are already being
+     * opened will provide, as long as that doesn't take the pool past {@link #maxConnections}.
+     */
+    protected void openConnectionsIfNeeded() {
+        int numToOpen = 0;
+        synchronized (this) {
+            if (closed || Boolean.FALSE.equals(http2Supported)) {
+                return;
+            }
+
+            // Connections that got a GOAWAY are on their way out, so they don't count against the limit.
+            int numUsableConnections = 0;
+            for (MultiplexedConnection connection : connections) {
+                if (!connection.goAwayReceived) {
+                    numUsableConnections++;
+                }
+            }
+
+            int numStreamsNeeded = pendingAcquires.size();
+            int numStreamsComing = numConnectionsInProgress * maxConcurrentStreamsPerConnection;
+            while (numStreamsNeeded > numStreamsComing
+                   && numUsableConnections + numConnectionsInProgress < maxConnections
+            ) {
+                numConnectionsInProgress++;
+                numStreamsComing += maxConcurrentStreamsPerConnection;
+                numToOpen++;
+            }
+        }
+
+        for (int i = 0; i < numToOpen; i++) {
+            openConnection();
+        }
+    }
+
+    /**
+     * Opens a new connection. The caller must have already counted it in {@link #numConnectionsInProgress}.
+     */
+    protected void openConnection() {
+        Future<Channel> connectFuture;
+        try {
+            connectFuture = connectionFactory.get();
+        }
+        catch (Throwable t) {
+            connectFuture = ImmediateEventExecutor.INSTANCE.newFailedFuture(t);
+        }
+
+        Future<Channel> finalConnectFuture = connectFuture;
+        connectFuture.addListener(future -> connectionAttemptFinished(finalConnectFuture));
+    }
+
+    protected void connectionAttemptFinished(@NotNull Future<Channel> connectFuture) {
+        Promise<Boolean> supportedPromiseToComplete;
+        List<PendingAcquire> acquiresToFail = new ArrayList<>();
+        Throwable failureCause = null;
+        Channel channelToClose = null;
+        synchronized (this) {
+            numConnectionsInProgress--;
+            supportedPromiseToComplete = http2SupportedPromise;
+            http2SupportedPromise = null;
+
+            if (!connectFuture.isSuccess()) {
+                failureCause = connectFuture.cause();
+                if (connections.isEmpty() && numConnectionsInProgress == 0) {
+                    // Nothing else is going to be able to serve the waiting acquires.
+                    acquiresToFail.addAll(pendingAcquires);
+                    pendingAcquires.clear();
+                }
+            }
+            else {
+                Channel channel = connectFuture.getNow();
+                poolStats.trackChannelCreated(channel);
+
+                if (channel.pipeline().get(Http2MultiplexHandler.class) == null) {
+                    // The downstream host didn't agree to HTTP/2.
+                    http2Supported = Boolean.FALSE;
+                    channelToClose = channel;
+                    failureCause = new IllegalStateException(
+                        "The downstream host did not negotiate HTTP/2. pool_name=" + poolStats.getPoolName()
+                    );
+                    acquiresToFail.addAll(pendingAcquires);
+                    pendingAcquires.clear();
+                }
+                else if (closed) {
+                    channelToClose = channel;
+                }
+                else {
+                    http2Supported = Boolean.TRUE;
+                    MultiplexedConnection connection = new MultiplexedConnection(channel);
+                    connections.add(connection);
+                    // The connection stays idle if no acquires are waiting for it.
+                    scheduleIdleTimeout(connection);
+                    channel.pipeline().addLast(
+                        HTTP2_CONNECTION_STATE_HANDLER_NAME, new ConnectionStateHandler(connection)
+                    );
+                    channel.closeFuture().addListener(closeFuture -> connectionClosed(connection));
+                }
+            }
+        }
+
+        if (channelToClose != null) {
+            channelToClose.close();
+        }
+
+        if (supportedPromiseToComplete != null) {
+            if (connectFuture.isSuccess()) {
+                supportedPromiseToComplete.trySuccess(http2SupportedNow());
+            }
+            else {
+                supportedPromiseToComplete.tryFailure(failureCause);
+            }
+        }
+
+        if (failureCause != null && !acquiresToFail.isEmpty()) {
+            for (PendingAcquire pendingAcquire : acquiresToFail) {
+                pendingAcquire.fail(failureCause);
+            }
+        }
+
+        servePendingAcquires();
+    }
+
+    protected synchronized boolean http2SupportedNow() {
+        return Boolean.TRUE.equals(http2Supported);
+    }
+
+    protected void connectionClosed(@NotNull MultiplexedConnection connection) {
+        synchronized (this) {
+            connections.remove(connection);
+            connection.cancelIdleTimeout();
+        }
+        // The waiting acquires might need a replacement connection.
+        servePendingAcquires();
+    }
+
+    protected void timeOutPendingAcquire(@NotNull PendingAcquire pendingAcquire) {
+        synchronized (this) {
+            if (!pendingAcquires.remove(pendingAcquire)) {
+                // It was already served.
+                return;
+            }
+        }
+
+        rejectAcquire(
+            pendingAcquire.promise,
+            new TimeoutException("Acquire operation took longer than " + acquireTimeoutMillis + " milliseconds.")
+        );
+    }
+
+    protected void rejectAcquire(@NotNull Promise<Channel> promise, @NotNull Throwable cause) {
+        poolStats.trackAcquireRejected();
+        if (metricsListener != null) {
+            metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_ACQUIRE_REJECTED, poolStats);
+        }
+        promise.tryFailure(new DownstreamConnectionPoolExhaustedException(
+            poolStats.getPoolName(), maxConnections, maxPendingAcquires, cause
+        ));
+    }
+
+    /**
+     * One of the pool's HTTP/2 connections.
+     */
+    protected static class MultiplexedConnection {
+
+        protected final @NotNull Channel channel;
+        // Guarded by the pool.
+        protected int numActiveStreams = 0;
+        // Updated by the ConnectionStateHandler on the connection's event loop.
+        protected volatile long remoteMaxConcurrentStreams = Long.MAX_VALUE;
+        protected volatile boolean goAwayReceived = false;
+        // Guarded by the pool.
+        protected @Nullable ScheduledFuture<?> idleTimeoutFuture;
+
+        public MultiplexedConnection(@NotNull Channel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Must be called while holding the pool's lock.
+         */
+        public void cancelIdleTimeout() {
+            if (idleTimeoutFuture != null) {
+                idleTimeoutFuture.cancel(false);
+                idleTimeoutFuture = null;
+            }
+        }
+
+        public boolean canOpenStream(int maxConcurrentStreams) {
+            return channel.isActive()
+                   && !goAwayReceived
+                   && numActiveStreams < Math.min(maxConcurrentStreams, remoteMaxConcurrentStreams);
+        }
+    }
+
+    /**
+     * Sits at the end of each HTTP/2 connection's pipeline and keeps track of the connection-level frames that affect
+     * how many streams the connection can take.
+     */
+    protected class ConnectionStateHandler extends ChannelInboundHandlerAdapter {
+
+        protected final @NotNull MultiplexedConnection connection;
+
+        public ConnectionStateHandler(@NotNull MultiplexedConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof Http2SettingsFrame) {
+                    Long maxConcurrentStreams = ((Http2SettingsFrame) msg).settings().maxConcurrentStreams();
+                    if (maxConcurrentStreams != null) {
+                        connection.remoteMaxConcurrentStreams = maxConcurrentStreams;
+                        // The limit may have gone up.
+                        servePendingAcquires();
+                    }
+                }
+                else if (msg instanceof Http2GoAwayFrame) {
+                    // The streams already in flight can finish, but this connection can't take any new ones.
+                    connection.goAwayReceived = true;
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(
+                            "Received GOAWAY on a downstream HTTP/2 connection. It won't be given any new streams. "
+                            + "pool_name={}, channel_id={}", poolStats.getPoolName(), ctx.channel().toString()
+                        );
+                    }
+                    servePendingAcquires();
+                }
+            }
+            finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.warn(
+                "Closing downstream HTTP/2 connection due to an unexpected error. pool_name={}, channel_id={}",
+                poolStats.getPoolName(), ctx.channel().toString(), cause
+            );
+            ctx.close();
+        }
+    }
+
+    protected static class PendingAcquire {
+
+        protected final @NotNull Promise<Channel> promise;
+        protected ScheduledFuture<?> timeoutFuture;
+
+        public PendingAcquire(@NotNull Promise<Channel> promise) {
+            this.promise = promise;
+        }
+
+        public void fail(@NotNull Throwable cause) {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            promise.tryFailure(cause);
+        }
+    }
+}
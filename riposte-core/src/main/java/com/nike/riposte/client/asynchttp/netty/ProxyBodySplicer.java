@@ -0,0 +1,276 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.nio.channels.ClosedChannelException;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.CombinedChannelDuplexHandler;
+import io.netty.channel.epoll.AbstractEpollStreamChannel;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.handler.codec.http.FullHttpMessage;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpObjectDecoder;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * Moves proxied request and response bodies from one connection to another with the kernel's {@code splice} call (see
+ * {@link AbstractEpollStreamChannel#spliceTo(AbstractEpollStreamChannel, int, ChannelPromise)}), so the bytes never get
+ * copied into the JVM. This only works between native epoll connections that use {@link EpollMode#LEVEL_TRIGGERED},
+ * that have no {@link SslHandler} (the bytes on the wire have to be the bytes that get forwarded), and that share the
+ * same event loop. Use {@link #canSpliceBetween(Channel, Channel)} to find out if that's the case.
+ *
+ * <p>Spliced bytes bypass both channels' pipelines entirely - no handler sees them, including any HTTP codecs, so the
+ * caller is responsible for only splicing bodies whose framing is known up front (see {@link
+ * #spliceableContentLength(HttpMessage)}), and for getting the codecs back in sync afterward (see {@link
+ * #resetDecoder(HttpServerCodec)}).
+ */
+@SuppressWarnings("WeakerAccess")
+public class ProxyBodySplicer {
+
+    /**
+     * The max number of bytes that are spliced per {@link AbstractEpollStreamChannel#spliceTo(AbstractEpollStreamChannel,
+     * int, ChannelPromise)} call. Each finished segment is reported as progress (see {@link #splice(Channel, Channel,
+     * long, Runnable)}), so this also controls how often timeouts hear about spliced data.
+     */
+    public static final int SPLICE_SEGMENT_SIZE_BYTES = 64 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyBodySplicer.class);
+
+    /**
+     * The name of the private {@link CombinedChannelDuplexHandler} field that holds an {@link HttpServerCodec}'s
+     * decoder. Netty has no public way to reset that decoder (and {@link HttpServerCodec} is final), so it has to be
+     * reached via reflection. See {@link #canResetDecoder()}.
+     */
+    protected static final String HTTP_CODEC_INBOUND_HANDLER_FIELD_NAME = "inboundHandler";
+
+    private static final @Nullable Field httpCodecInboundHandlerField =
+        findHttpCodecDecoderField(HTTP_CODEC_INBOUND_HANDLER_FIELD_NAME);
+
+    // Intentionally protected - use the static methods.
+    protected ProxyBodySplicer() { /* do nothing */ }
+
+    /**
+     * @return true if the given channel is an open native epoll connection that's in {@link EpollMode#LEVEL_TRIGGERED}
+     * mode and has no {@link SslHandler} in its pipeline, false otherwise.
+     */
+    public static boolean isSpliceCapable(@Nullable Channel ch) {
+        if (!(ch instanceof AbstractEpollStreamChannel) || !ch.isActive()) {
+            return false;
+        }
+
+        if (ch.pipeline().get(SslHandler.class) != null) {
+            return false;
+        }
+
+        return ((AbstractEpollStreamChannel) ch).config().getEpollMode() == EpollMode.LEVEL_TRIGGERED;
+    }
+
+    /**
+     * @return true if bytes can be spliced from the given source to the given target - both must be {@link
+     * #isSpliceCapable(Channel)}, and they must share the same event loop.
+     */
+    public static boolean canSpliceBetween(@Nullable Channel source, @Nullable Channel target) {
+        return isSpliceCapable(source)
+               && isSpliceCapable(target)
+               && source.eventLoop() == target.eventLoop();
+    }
+
+    /**
+     * @return The length of the given message's body if it can be spliced, or -1 if it can't. A body can only be
+     * spliced if it's delimited by a valid {@code Content-Length} header - chunked bodies have their framing mixed in
+     * with the data, which would have to be decoded.
+     */
+    public static long spliceableContentLength(@NotNull HttpMessage message) {
+        if (message instanceof FullHttpMessage || message.headers().contains(HttpHeaderNames.TRANSFER_ENCODING)) {
+            return -1;
+        }
+
+        try {
+            long contentLength = HttpUtil.getContentLength(message, -1L);
+            return (contentLength < 0) ? -1 : contentLength;
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Splices the next {@code numBytes} bytes that arrive on the given source channel to the given target channel, in
+     * segments of at most {@link #SPLICE_SEGMENT_SIZE_BYTES}. The source channel is left reading when this is done, and
+     * anything that arrives after the spliced bytes goes through its pipeline as usual. This must be called on the
+     * channels' event loop, and both channels must pass {@link #canSpliceBetween(Channel, Channel)}.
+     *
+     * <p>Splicing paces itself - it won't read more from the source until the target has taken everything read so far
+     * - so any {@link ChannelBackpressure} between the two channels should be closed first. Nothing in either pipeline
+     * sees the spliced bytes, so idle timeouts need to be told about them via {@code onProgress}.
+     *
+     * @param source The channel to read from.
+     * @param target The channel to write to.
+     * @param numBytes The number of bytes to splice.
+     * @param onProgress Run on the event loop after each segment has been fully written to the target - may be null.
+     * @return A future that completes once all the bytes have been written to the target, or fails if either channel
+     * closes (or the splice fails for some other reason) before then.
+     */
+    public static @NotNull Future<Void> splice(
+        @NotNull Channel source, @NotNull Channel target, long numBytes, @Nullable Runnable onProgress
+    ) {
+        Promise<Void> result = source.eventLoop().newPromise();
+        if (!source.eventLoop().inEventLoop()) {
+            return result.setFailure(new IllegalStateException("splice() must be called on the channels' event loop"));
+        }
+
+        if (!canSpliceBetween(source, target)) {
+            return result.setFailure(new IllegalStateException(
+                "Unable to splice between these channels. source=" + source + ", target=" + target
+            ));
+        }
+
+        if (numBytes <= 0) {
+            return result.setSuccess(null);
+        }
+
+        ChannelFutureListener failIfClosed = closeFuture -> result.tryFailure(new ClosedChannelException());
+        source.closeFuture().addListener(failIfClosed);
+        target.closeFuture().addListener(failIfClosed);
+        result.addListener(done -> {
+            source.closeFuture().removeListener(failIfClosed);
+            target.closeFuture().removeListener(failIfClosed);
+        });
+
+        spliceNextSegment(
+            (AbstractEpollStreamChannel) source, (AbstractEpollStreamChannel) target, numBytes, onProgress, result
+        );
+        return result;
+    }
+
+    protected static void spliceNextSegment(
+        @NotNull AbstractEpollStreamChannel source,
+        @NotNull AbstractEpollStreamChannel target,
+        long remainingBytes,
+        @Nullable Runnable onProgress,
+        @NotNull Promise<Void> result
+    ) {
+        if (result.isDone()) {
+            return;
+        }
+
+        int segmentBytes = (int) Math.min(remainingBytes, SPLICE_SEGMENT_SIZE_BYTES);
+        ChannelPromise segmentPromise = source.newPromise();
+        // This runs on the event loop as soon as the segment has been written, before the source's next read. So the
+        //      next segment is always queued up before any of the bytes after this segment could be read normally.
+        segmentPromise.addListener(segmentFuture -> {
+            if (!segmentFuture.isSuccess()) {
+                result.tryFailure(segmentFuture.cause());
+                return;
+            }
+
+            try {
+                if (onProgress != null) {
+                    onProgress.run();
+                }
+            }
+            catch (Throwable t) {
+                result.tryFailure(t);
+                return;
+            }
+
+            long bytesLeft = remainingBytes - segmentBytes;
+            if (bytesLeft == 0) {
+                result.trySuccess(null);
+            }
+            else {
+                spliceNextSegment(source, target, bytesLeft, onProgress, result);
+            }
+        });
+
+        try {
+            source.spliceTo(target, segmentBytes, segmentPromise);
+        }
+        catch (Throwable t) {
+            result.tryFailure(t);
+            return;
+        }
+
+        // The splice only makes progress while the source is reading. Queued splices are always serviced before normal
+        //      reads, so this can't let anything else through first.
+        source.config().setAutoRead(true);
+    }
+
+    /**
+     * @return The accessible {@link CombinedChannelDuplexHandler} field with the given name, or null (after logging a
+     * warning) if it doesn't exist or can't be made accessible - e.g. because a Netty upgrade changed it. Request
+     * bodies are never spliced if this returns null for {@link #HTTP_CODEC_INBOUND_HANDLER_FIELD_NAME}.
+     */
+    protected static @Nullable Field findHttpCodecDecoderField(@NotNull String fieldName) {
+        try {
+            Field field = CombinedChannelDuplexHandler.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return field;
+        }
+        catch (Exception e) {
+            logger.warn(
+                "Unable to access the HTTP server codec's decoder, so request bodies will never be spliced. This "
+                + "probably means the Netty version in use isn't compatible with request body splicing. field_name={}",
+                fieldName, e
+            );
+            return null;
+        }
+    }
+
+    /**
+     * @return true if {@link #resetDecoder(HttpServerCodec)} is able to reset codecs with the Netty version in use,
+     * false otherwise. Request bodies must only be spliced past the server codec if this returns true, since
+     * otherwise there's no way to get the codec back in sync afterward.
+     */
+    public static boolean canResetDecoder() {
+        return httpCodecInboundHandlerField != null;
+    }
+
+    /**
+     * Tells the given HTTP codec's decoder to start over with a new message the next time it decodes anything. Call
+     * this after splicing a body past the codec, since the decoder still thinks it's waiting for that body.
+     *
+     * @param httpCodec The codec to reset.
+     * @return true if the decoder was reset, false if it couldn't be (see {@link #canResetDecoder()}), in which case
+     * a warning is logged and the connection's request framing can't be trusted anymore, so it should be closed.
+     */
+    public static boolean resetDecoder(@NotNull HttpServerCodec httpCodec) {
+        return resetDecoder(httpCodec, httpCodecInboundHandlerField);
+    }
+
+    protected static boolean resetDecoder(@NotNull HttpServerCodec httpCodec, @Nullable Field decoderField) {
+        if (decoderField == null) {
+            logger.warn("Unable to reset the HTTP server codec's decoder after splicing a request body.");
+            return false;
+        }
+
+        try {
+            Object decoder = decoderField.get(httpCodec);
+            if (decoder instanceof HttpObjectDecoder) {
+                ((HttpObjectDecoder) decoder).reset();
+                return true;
+            }
+
+            logger.warn(
+                "Unable to reset the HTTP server codec's decoder after splicing a request body - it isn't an "
+                + "HttpObjectDecoder. decoder_class={}", (decoder == null) ? null : decoder.getClass().getName()
+            );
+        }
+        catch (Exception e) {
+            logger.warn("Unable to reset the HTTP server codec's decoder after splicing a request body.", e);
+        }
+        return false;
+    }
+}
@@ -4,14 +4,28 @@ import com.nike.backstopper.exception.WrapperException;
 import com.nike.internal.util.Pair;
 import com.nike.internal.util.StringUtils;
 import com.nike.riposte.client.asynchttp.netty.downstreampipeline.DownstreamIdleChannelTimeoutHandler;
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterHttp2Config;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig;
+import com.nike.riposte.server.config.ServerConfig.TransportType;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
 import com.nike.riposte.server.error.exception.NativeIoExceptionWrapper;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.util.ChannelOptionsHelper;
+import com.nike.riposte.util.NettyTransport;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.TimestampedAnnotation;
 import com.nike.wingtips.Tracer;
@@ -24,20 +38,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.io.Closeable;
 import java.lang.reflect.Field;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.URI;
 import java.net.UnknownHostException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -52,24 +76,26 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.CombinedChannelDuplexHandler;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.AbstractChannelPoolHandler;
 import io.netty.channel.pool.AbstractChannelPoolMap;
 import io.netty.channel.pool.ChannelHealthChecker;
 import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
 import io.netty.channel.pool.ChannelPoolMap;
+import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.pool.SimpleChannelPool;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.channel.unix.Errors;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
@@ -85,16 +111,29 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestEncoder;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.Promise;
 
 import static com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler.DOWNSTREAM_CALL_CONNECTION_SETUP_TIME_NANOS_REQUEST_ATTR_KEY;
@@ -125,11 +164,23 @@ public class StreamingAsyncHttpClient {
     public static final String DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME = "idleDownstreamChannelTimeoutHandler";
     public static final String DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME = "downstreamCallTimeoutHandler";
     public static final String DEBUG_LOGGER_HANDLER_NAME = "debugLoggerHandler";
+    public static final String ALPN_HANDLER_NAME = "alpnHandler";
+    public static final String HTTP2_FRAME_CODEC_HANDLER_NAME = "http2FrameCodec";
+    public static final String HTTP2_MULTIPLEX_HANDLER_NAME = "http2MultiplexHandler";
+    public static final String HTTP2_STREAM_CODEC_HANDLER_NAME = "http2StreamCodec";
     private static final Logger logger = LoggerFactory.getLogger(StreamingAsyncHttpClient.class);
     public static final String HTTPS = "HTTPS";
     private volatile ChannelPoolMap<InetSocketAddress, SimpleChannelPool> poolMap;
+    private volatile ChannelPoolMap<LogicalHostPoolKey, SimpleChannelPool> logicalHostPoolMap;
+    private volatile ChannelPoolMap<Http2PoolKey, Http2DownstreamChannelPool> http2PoolMap;
+    private volatile ChannelPoolMap<EventLoopPoolKey, SimpleChannelPool> eventLoopPoolMap;
+    private EventLoopGroup poolEventLoopGroup;
+    private Class<? extends SocketChannel> poolChannelClass;
+    private ScheduledExecutorService addressRefreshScheduler;
     private SslContext clientSslCtx;
     private SslContext insecureSslCtx;
+    private SslContext http2ClientSslCtx;
+    private SslContext http2InsecureSslCtx;
     private final boolean debugChannelLifecycleLoggingEnabled;
     private final long idleChannelTimeoutMillis;
     private final int downstreamConnectionTimeoutMillis;
@@ -142,19 +193,286 @@ public class StreamingAsyncHttpClient {
     );
 
     private final @NotNull ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategy;
+    private final @NotNull TransportType transportType;
+    private final @NotNull ChannelOptionsConfig channelOptionsConfig;
 
-    private final Random randomGenerator = new Random();
+    private final @NotNull DownstreamAddressResolver downstreamAddressResolver;
+    private final @NotNull ProxyRouterConnectionPoolConfig connectionPoolConfig;
+    private final @NotNull ProxyRouterHttp2Config http2Config;
+    private final @NotNull Set<LogicalHostPoolKey> http2PriorKnowledgeTargets;
+    private final @Nullable MetricsListener metricsListener;
 
     public StreamingAsyncHttpClient(
         long idleChannelTimeoutMillis,
         long downstreamConnectionTimeoutMillis,
         boolean debugChannelLifecycleLoggingEnabled,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled,
+            distributedTracingConfig, null, null
+        );
+    }
+
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable TransportType transportType
+    ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled,
+            distributedTracingConfig, transportType, null
+        );
+    }
+
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable TransportType transportType,
+        @Nullable ChannelOptionsConfig channelOptionsConfig
+    ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled,
+            distributedTracingConfig, transportType, channelOptionsConfig, null
+        );
+    }
+
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable TransportType transportType,
+        @Nullable ChannelOptionsConfig channelOptionsConfig,
+        @Nullable ProxyRouterDnsConfig dnsConfig
+    ) {
+        this(
+            idleChannelTimeoutMillis, downstreamConnectionTimeoutMillis, debugChannelLifecycleLoggingEnabled,
+            distributedTracingConfig, transportType, channelOptionsConfig, dnsConfig, null, null
+        );
+    }
+
+    public StreamingAsyncHttpClient(
+        long idleChannelTimeoutMillis,
+        long downstreamConnectionTimeoutMillis,
+        boolean debugChannelLifecycleLoggingEnabled,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable TransportType transportType,
+        @Nullable ChannelOptionsConfig channelOptionsConfig,
+        @Nullable ProxyRouterDnsConfig dnsConfig,
+        @Nullable ProxyRouterConnectionPoolConfig connectionPoolConfig,
+        @Nullable MetricsListener metricsListener
     ) {
         this.idleChannelTimeoutMillis = idleChannelTimeoutMillis;
         this.downstreamConnectionTimeoutMillis = Math.toIntExact(downstreamConnectionTimeoutMillis);
         this.debugChannelLifecycleLoggingEnabled = debugChannelLifecycleLoggingEnabled;
         this.proxySpanTaggingStrategy = distributedTracingConfig.getProxyRouterSpanNamingAndTaggingStrategy();
+        this.transportType = (transportType == null) ? TransportType.AUTO : transportType;
+        this.channelOptionsConfig = ChannelOptionsHelper.validate(channelOptionsConfig);
+        this.downstreamAddressResolver = new DownstreamAddressResolver(dnsConfig);
+        this.connectionPoolConfig = validateConnectionPoolConfig(connectionPoolConfig);
+        ProxyRouterHttp2Config http2Config = this.connectionPoolConfig.http2Config();
+        this.http2Config = (http2Config == null) ? ProxyRouterHttp2Config.DEFAULT_IMPL : http2Config;
+        this.http2PriorKnowledgeTargets = new HashSet<>();
+        List<URI> priorKnowledgeTargets = this.http2Config.priorKnowledgeTargets();
+        if (this.http2Config.isEnabled() && priorKnowledgeTargets != null) {
+            for (URI target : priorKnowledgeTargets) {
+                http2PriorKnowledgeTargets.add(logicalHostPoolKeyFor(target));
+            }
+        }
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * @param config The config to check - may be null, in which case {@link
+     * ProxyRouterConnectionPoolConfig#DEFAULT_IMPL} is used.
+     * @return The given config (or {@link ProxyRouterConnectionPoolConfig#DEFAULT_IMPL} if it was null), after
+     * verifying that all of its values are valid.
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    public static @NotNull ProxyRouterConnectionPoolConfig validateConnectionPoolConfig(
+        @Nullable ProxyRouterConnectionPoolConfig config
+    ) {
+        if (config == null) {
+            return ProxyRouterConnectionPoolConfig.DEFAULT_IMPL;
+        }
+
+        int maxConnections = config.maxConnectionsPerHost();
+        // The pending acquire and acquire timeout options are ignored when the pools are unbounded.
+        if (maxConnections != -1) {
+            if (maxConnections < 1) {
+                throw new IllegalArgumentException(
+                    "Your ServerConfig.proxyRouterConnectionPoolConfig().maxConnectionsPerHost() must be -1 or greater "
+                    + "than 0. max_connections_per_host=" + maxConnections
+                );
+            }
+
+            if (config.maxPendingAcquiresPerHost() < 1) {
+                throw new IllegalArgumentException(
+                    "Your ServerConfig.proxyRouterConnectionPoolConfig().maxPendingAcquiresPerHost() must be greater "
+                    + "than 0. max_pending_acquires_per_host=" + config.maxPendingAcquiresPerHost()
+                );
+            }
+
+            if (config.acquireTimeoutMillis() <= 0) {
+                throw new IllegalArgumentException(
+                    "Your ServerConfig.proxyRouterConnectionPoolConfig().acquireTimeoutMillis() must be greater than "
+                    + "0. acquire_timeout_millis=" + config.acquireTimeoutMillis()
+                );
+            }
+        }
+
+        if (config.isPoolPerLogicalHostEnabled() && config.addressRefreshIntervalMillis() <= 0) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.proxyRouterConnectionPoolConfig().addressRefreshIntervalMillis() must be greater "
+                + "than 0. address_refresh_interval_millis=" + config.addressRefreshIntervalMillis()
+            );
+        }
+
+        validateOutlierDetectionConfig(config.outlierDetectionConfig());
+        validateHttp2Config(config.http2Config());
+
+        List<URI> prewarmTargets = config.prewarmTargets();
+        if (prewarmTargets != null && !prewarmTargets.isEmpty()) {
+            if (config.prewarmConnectionsPerTarget() < 1) {
+                throw new IllegalArgumentException(
+                    "Your ServerConfig.proxyRouterConnectionPoolConfig().prewarmConnectionsPerTarget() must be greater "
+                    + "than 0. prewarm_connections_per_target=" + config.prewarmConnectionsPerTarget()
+                );
+            }
+
+            for (URI target : prewarmTargets) {
+                if (!isValidDownstreamTarget(target)) {
+                    throw new IllegalArgumentException(
+                        "Your ServerConfig.proxyRouterConnectionPoolConfig().prewarmTargets() must only contain "
+                        + "absolute http or https URIs with a host. invalid_prewarm_target=" + target
+                    );
+                }
+            }
+        }
+
+        return config;
+    }
+
+    /**
+     * @return true if the given URI is an absolute {@code http} or {@code https} URI with a host, false otherwise.
+     */
+    protected static boolean isValidDownstreamTarget(@Nullable URI target) {
+        String scheme = (target == null) ? null : target.getScheme();
+        return target != null
+               && target.getHost() != null
+               && ("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme));
+    }
+
+    /**
+     * @return The {@link LogicalHostPoolKey} for the host, port, and scheme of the given downstream target (which
+     * must pass {@link #isValidDownstreamTarget(URI)}), using the scheme's default port if the URI doesn't have one.
+     */
+    protected static @NotNull LogicalHostPoolKey logicalHostPoolKeyFor(@NotNull URI target) {
+        boolean isSecureHttpsCall = "https".equalsIgnoreCase(target.getScheme());
+        int port = (target.getPort() == -1) ? ((isSecureHttpsCall) ? 443 : 80) : target.getPort();
+        return new LogicalHostPoolKey(target.getHost(), port, isSecureHttpsCall);
+    }
+
+    protected static void validateHttp2Config(@Nullable ProxyRouterHttp2Config config) {
+        if (config == null || !config.isEnabled()) {
+            return;
+        }
+
+        String prefix = "Your ServerConfig.proxyRouterConnectionPoolConfig().http2Config().";
+        if (config.maxConnectionsPerHost() < 1) {
+            throw new IllegalArgumentException(
+                prefix + "maxConnectionsPerHost() must be greater than 0. max_connections_per_host="
+                + config.maxConnectionsPerHost()
+            );
+        }
+
+        if (config.maxConcurrentStreamsPerConnection() < 1) {
+            throw new IllegalArgumentException(
+                prefix + "maxConcurrentStreamsPerConnection() must be greater than 0. "
+                + "max_concurrent_streams_per_connection=" + config.maxConcurrentStreamsPerConnection()
+            );
+        }
+
+        if (config.initialWindowSize() < 0) {
+            throw new IllegalArgumentException(
+                prefix + "initialWindowSize() cannot be negative. initial_window_size=" + config.initialWindowSize()
+            );
+        }
+
+        List<URI> priorKnowledgeTargets = config.priorKnowledgeTargets();
+        if (priorKnowledgeTargets != null) {
+            for (URI target : priorKnowledgeTargets) {
+                if (!isValidDownstreamTarget(target)) {
+                    throw new IllegalArgumentException(
+                        prefix + "priorKnowledgeTargets() must only contain absolute http or https URIs with a host. "
+                        + "invalid_prior_knowledge_target=" + target
+                    );
+                }
+            }
+        }
+    }
+
+    protected static void validateOutlierDetectionConfig(@Nullable ProxyRouterOutlierDetectionConfig config) {
+        if (config == null || !config.isEnabled()) {
+            return;
+        }
+
+        String prefix = "Your ServerConfig.proxyRouterConnectionPoolConfig().outlierDetectionConfig().";
+        if (config.consecutiveFailuresToEject() < 1) {
+            throw new IllegalArgumentException(
+                prefix + "consecutiveFailuresToEject() must be greater than 0. consecutive_failures_to_eject="
+                + config.consecutiveFailuresToEject()
+            );
+        }
+
+        double latencyOutlierMultiplier = config.latencyOutlierMultiplier();
+        if (latencyOutlierMultiplier != 0 && !(latencyOutlierMultiplier > 1)) {
+            throw new IllegalArgumentException(
+                prefix + "latencyOutlierMultiplier() must be 0 or greater than 1. latency_outlier_multiplier="
+                + latencyOutlierMultiplier
+            );
+        }
+
+        if (config.minResponsesForLatencyOutlierDetection() < 1) {
+            throw new IllegalArgumentException(
+                prefix + "minResponsesForLatencyOutlierDetection() must be greater than 0. "
+                + "min_responses_for_latency_outlier_detection=" + config.minResponsesForLatencyOutlierDetection()
+            );
+        }
+
+        if (config.baseEjectionTimeMillis() <= 0) {
+            throw new IllegalArgumentException(
+                prefix + "baseEjectionTimeMillis() must be greater than 0. base_ejection_time_millis="
+                + config.baseEjectionTimeMillis()
+            );
+        }
+
+        if (config.maxEjectionTimeMillis() < config.baseEjectionTimeMillis()) {
+            throw new IllegalArgumentException(
+                prefix + "maxEjectionTimeMillis() must be greater than or equal to baseEjectionTimeMillis(). "
+                + "max_ejection_time_millis=" + config.maxEjectionTimeMillis()
+                + ", base_ejection_time_millis=" + config.baseEjectionTimeMillis()
+            );
+        }
+
+        if (config.reinstatementRampUpMillis() < 0) {
+            throw new IllegalArgumentException(
+                prefix + "reinstatementRampUpMillis() must be greater than or equal to 0. "
+                + "reinstatement_ramp_up_millis=" + config.reinstatementRampUpMillis()
+            );
+        }
+
+        if (config.maxEjectionPercent() < 0 || config.maxEjectionPercent() > 100) {
+            throw new IllegalArgumentException(
+                prefix + "maxEjectionPercent() must be between 0 and 100. max_ejection_percent="
+                + config.maxEjectionPercent()
+            );
+        }
     }
 
     public static class StreamingChannel {
@@ -167,6 +485,7 @@ public class StreamingAsyncHttpClient {
         protected final Map<String, String> distributedTracingMdcInfo;
         protected final Span spanForDownstreamCall;
         protected final ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategy;
+        protected final @Nullable ChannelBackpressure requestBodyBackpressure;
         protected boolean channelClosedDueToUnrecoverableError = false;
         private boolean alreadyLoggedMessageAboutIgnoringCloseDueToError = false;
         private boolean alreadyHandledWireSendFinishAnnotation = false;
@@ -180,6 +499,21 @@ public class StreamingAsyncHttpClient {
             Map<String, String> distributedTracingMdcInfo,
             Span spanForDownstreamCall,
             ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategy
+        ) {
+            this(channel, pool, callActiveHolder, downstreamLastChunkSentHolder, distributedTracingSpanStack,
+                 distributedTracingMdcInfo, spanForDownstreamCall, proxySpanTaggingStrategy, null);
+        }
+
+        StreamingChannel(
+            Channel channel,
+            ChannelPool pool,
+            ObjectHolder<Boolean> callActiveHolder,
+            ObjectHolder<Boolean> downstreamLastChunkSentHolder,
+            Deque<Span> distributedTracingSpanStack,
+            Map<String, String> distributedTracingMdcInfo,
+            Span spanForDownstreamCall,
+            ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategy,
+            @Nullable ChannelBackpressure requestBodyBackpressure
         ) {
             this.channel = channel;
             this.pool = pool;
@@ -189,6 +523,7 @@ public class StreamingAsyncHttpClient {
             this.distributedTracingMdcInfo = distributedTracingMdcInfo;
             this.spanForDownstreamCall = spanForDownstreamCall;
             this.proxySpanTaggingStrategy = proxySpanTaggingStrategy;
+            this.requestBodyBackpressure = requestBodyBackpressure;
         }
 
         /**
@@ -298,7 +633,15 @@ public class StreamingAsyncHttpClient {
                     handleWireSendFinishAnnotationIfNecessary();
                 }
 
-                return channel.writeAndFlush(chunkToWrite);
+                ChannelFuture writeFuture = channel.writeAndFlush(chunkToWrite);
+
+                // Stop reading the request body from the caller if the downstream service isn't keeping up. It'll be
+                //      resumed when the downstream channel's outbound buffer drains.
+                if (requestBodyBackpressure != null && !chunkIsLastHttpContent) {
+                    requestBodyBackpressure.pauseProducerIfConsumerUnwritable();
+                }
+
+                return writeFuture;
             }
             catch(Throwable t) {
                 String errorMsg =
@@ -329,6 +672,34 @@ public class StreamingAsyncHttpClient {
             }
         }
 
+        /**
+         * Splices the next {@code numBytes} of the request body from the given caller's channel straight to the
+         * downstream channel (see {@link ProxyBodySplicer#splice(Channel, Channel, long, Runnable)}), bypassing both
+         * pipelines. This must be called on the downstream channel's event loop, after any chunks that were already
+         * passed to {@link #streamChunk(HttpContent)} have been written, and the caller is responsible for sending the
+         * (empty) {@link LastHttpContent} through {@link #streamChunk(HttpContent)} once the returned future succeeds
+         * so the downstream pipeline knows the request is finished.
+         *
+         * @param source The channel the caller's request body is arriving on.
+         * @param numBytes The number of request body bytes left to arrive on the source channel.
+         * @return A future that completes once all the bytes have been spliced, or fails if the splice could not be
+         * done or failed partway through.
+         */
+        public Future<Void> spliceRequestBodyFrom(Channel source, long numBytes) {
+            if (!callActiveHolder.heldObject || channelClosedDueToUnrecoverableError) {
+                return channel.eventLoop().newFailedFuture(
+                    new RuntimeException("Unable to splice request body - downstream call is no longer active.")
+                );
+            }
+
+            // The splice paces itself, so the usual backpressure would only get in the way.
+            if (requestBodyBackpressure != null) {
+                requestBodyBackpressure.close();
+            }
+
+            return ProxyBodySplicer.splice(source, channel, numBytes, spliceProgressRecorder(channel));
+        }
+
         private static final Logger logger = LoggerFactory.getLogger(StreamingChannel.class);
 
         public Channel getChannel() {
@@ -340,13 +711,28 @@ public class StreamingAsyncHttpClient {
         }
 
         public void closeChannelDueToUnrecoverableError(Throwable cause) {
+            scheduleCloseIfCallActive(() -> doCloseChannelDueToUnrecoverableError(cause));
+        }
+
+        /**
+         * Closes the channel the same way {@link #closeChannelDueToUnrecoverableError(Throwable)} does, but for a
+         * call that is being thrown away on purpose rather than because something went wrong - e.g. a hedged attempt
+         * that lost to another attempt. The close is only logged at debug level.
+         *
+         * @param reason Why the call was abandoned.
+         */
+        public void closeChannelForAbandonedCall(Throwable reason) {
+            scheduleCloseIfCallActive(() -> doCloseChannel(reason, false));
+        }
+
+        protected void scheduleCloseIfCallActive(Runnable closeTask) {
             try {
                 // Ignore subsequent calls to this method, and only try to do something if the call is still active.
                 //      If the call is *not* active, then everything has already been cleaned up and we shouldn't
                 //      do anything because the channel might have already been handed out for a different call.
                 if (!channelClosedDueToUnrecoverableError && callActiveHolder.heldObject) {
                     // Schedule the close on the channel's event loop.
-                    channel.eventLoop().execute(() -> doCloseChannelDueToUnrecoverableError(cause));
+                    channel.eventLoop().execute(closeTask);
                     return;
                 }
 
@@ -370,16 +756,31 @@ public class StreamingAsyncHttpClient {
         }
 
         protected void doCloseChannelDueToUnrecoverableError(Throwable cause) {
+            doCloseChannel(cause, true);
+        }
+
+        protected void doCloseChannel(Throwable cause, boolean isUnrecoverableError) {
             // We should now be in the channel's event loop. Do a final check to make sure the call is still active
             //      since it could have closed while we were waiting to run on the event loop.
             if (callActiveHolder.heldObject) {
-                runnableWithTracingAndMdc(
-                    () -> logger.error("Closing StreamingChannel due to unrecoverable error. "
-                                       + "channel_id={}, unrecoverable_error={}",
-                                       channel.toString(), String.valueOf(cause)
-                    ),
-                    distributedTracingSpanStack, distributedTracingMdcInfo
-                ).run();
+                if (isUnrecoverableError) {
+                    runnableWithTracingAndMdc(
+                        () -> logger.error("Closing StreamingChannel due to unrecoverable error. "
+                                           + "channel_id={}, unrecoverable_error={}",
+                                           channel.toString(), String.valueOf(cause)
+                        ),
+                        distributedTracingSpanStack, distributedTracingMdcInfo
+                    ).run();
+                }
+                else if (logger.isDebugEnabled()) {
+                    runnableWithTracingAndMdc(
+                        () -> logger.debug("Closing StreamingChannel because its call was abandoned. "
+                                           + "channel_id={}, abandon_reason={}",
+                                           channel.toString(), String.valueOf(cause)
+                        ),
+                        distributedTracingSpanStack, distributedTracingMdcInfo
+                    ).run();
+                }
 
                 // Mark the channel as broken so it will be closed and removed from the pool when it is returned.
                 markChannelAsBroken(channel);
@@ -387,7 +788,9 @@ public class StreamingAsyncHttpClient {
                 // Release it back to the pool if possible/necessary so the pool can do its usual cleanup.
                 releaseChannelBackToPoolIfCallIsActive(
                     channel, pool, callActiveHolder,
-                    "closing StreamingChannel due to unrecoverable error: " + cause,
+                    (isUnrecoverableError)
+                    ? "closing StreamingChannel due to unrecoverable error: " + cause
+                    : "closing StreamingChannel because its call was abandoned: " + cause,
                     distributedTracingSpanStack, distributedTracingMdcInfo
                 );
 
@@ -396,8 +799,8 @@ public class StreamingAsyncHttpClient {
             }
             else {
                 logger.debug("The call deactivated before we could close the StreamingChannel. Therefore there's "
-                             + "nothing to do for this unrecoverable error as any necessary cleanup has already been "
-                             + "done. ignored_unrecoverable_error={}", cause.toString());
+                             + "nothing to do for this close request as any necessary cleanup has already been "
+                             + "done. ignored_close_reason={}", cause.toString());
             }
         }
     }
@@ -409,24 +812,53 @@ public class StreamingAsyncHttpClient {
         void unrecoverableErrorOccurred(Throwable error, boolean guaranteesBrokenDownstreamResponse);
 
         void cancelStreamingToOriginalCaller();
+
+        /**
+         * Called right before the downstream call records its response (or error) in the request's shared state -
+         * the {@link ProxyRouterProcessingState}'s proxy response and error, and the final tagging of the span around
+         * the downstream call via {@link
+         * ProxyRouterProcessingState#handleTracingResponseTaggingAndFinalSpanNameIfNotAlreadyDone(Span)}. If this
+         * returns true then none of that is recorded, and the downstream call's span is tagged with its own response
+         * or error instead. This is for callbacks that receive one of several downstream calls made for the same
+         * request, where the shared state must only reflect the call whose response the caller actually gets (see
+         * {@link com.nike.riposte.client.retry.RetryingDownstreamCall}).
+         *
+         * @param responseReceived true if this is being called because the downstream response arrived, false if it's
+         * because the downstream call failed.
+         * @return true if this downstream call's outcome should be kept out of the request's shared state, false
+         * otherwise. Defaults to false.
+         */
+        default boolean isOutcomeIgnored(boolean responseReceived) {
+            return false;
+        }
+
+        /**
+         * @return true if this downstream call has been deliberately abandoned (e.g. a hedged attempt that lost to
+         * another attempt), in which case any failure it runs into is a side effect of being abandoned and is not
+         * held against the downstream host's outlier detection. Defaults to false.
+         */
+        default boolean isCallAbandoned() {
+            return false;
+        }
     }
 
     /**
      * Returns an {@link InetSocketAddress} for the given hostname and port - if the DNS for the hostname has multiple
-     * IP addresses associated with it then the returned IP address will be randomly chosen from the available IPs.
+     * IP addresses associated with it then the returned IP address will be chosen from the available IPs based on
+     * {@link ProxyRouterDnsConfig#addressSelectionStrategy()} (randomly by default).
      * <p/>
      * This is necessary to properly distribute traffic among all the IPs rather than firehosing a single one. For
      * example, Amazon ELBs function by associating multiple IPs with the ELB's DNS. Without this method all traffic
      * would pipe to only one of an ELB's IPs, and since ELBs scale up based on aggregate traffic over all IPs,
      * firehosing one IP means the ELB would never scale up even though it's being overloaded.
+     * <p/>
+     * NOTE: This does a blocking DNS lookup, and is only used when {@link ProxyRouterDnsConfig#isEnabled()} is false.
+     * See {@link #resolveDownstreamAddress(String, int)}.
      */
     protected InetSocketAddress resolveHostnameToInetSocketAddressWithMultiIpSupport(String hostname, int port) {
         try {
             InetAddress[] ipAddresses = InetAddress.getAllByName(hostname);
-            int numAddresses = ipAddresses.length;
-            InetAddress address = (numAddresses == 1)
-                                  ? ipAddresses[0]
-                                  : ipAddresses[randomGenerator.nextInt(numAddresses)];
+            InetAddress address = downstreamAddressResolver.selectAddress(hostname, port, Arrays.asList(ipAddresses));
             return new InetSocketAddress(address, port);
         }
         catch (UnknownHostException e) {
@@ -441,6 +873,7 @@ public class StreamingAsyncHttpClient {
         Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(eventLoopGroup).channel(channelClass);
         bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, downstreamConnectionTimeoutMillis);
+        ChannelOptionsHelper.applyToClientBootstrap(bootstrap, channelOptionsConfig);
         return bootstrap;
     }
 
@@ -462,97 +895,21 @@ public class StreamingAsyncHttpClient {
             synchronized (this) {
                 result = poolMap;
                 if (result == null) {
-                    EventLoopGroup eventLoopGroup;
-                    Class<? extends SocketChannel> channelClass;
-                    if (Epoll.isAvailable()) {
-                        logger.info(
-                            "Creating channel pool. The epoll native transport is available. Using epoll instead of "
-                            + "NIO. proxy_router_using_native_epoll_transport=true"
-                        );
-                        eventLoopGroup = new EpollEventLoopGroup(0, createProxyRouterThreadFactory());
-                        channelClass = EpollSocketChannel.class;
-                    }
-                    else {
-                        logger.info(
-                            "Creating channel pool. The epoll native transport is NOT available or you are not running "
-                            + "on a compatible OS/architecture. Using NIO. "
-                            + "proxy_router_using_native_epoll_transport=false"
-                        );
-                        eventLoopGroup = new NioEventLoopGroup(0, createProxyRouterThreadFactory());
-                        channelClass = NioSocketChannel.class;
-                    }
+                    NettyTransport transport = NettyTransport.resolve(transportType);
+                    logger.info(
+                        "Creating channel pool. Using the {} transport. requested_transport={}, "
+                        + "proxy_router_transport={}, proxy_router_using_native_epoll_transport={}",
+                        transport, transportType, transport, transport.getTransportType() == TransportType.EPOLL
+                    );
+                    EventLoopGroup eventLoopGroup = transport.newEventLoopGroup(0, createProxyRouterThreadFactory());
+                    Class<? extends SocketChannel> channelClass = transport.getSocketChannelClass();
+                    poolEventLoopGroup = eventLoopGroup;
+                    poolChannelClass = channelClass;
 
                     result = new AbstractChannelPoolMap<InetSocketAddress, SimpleChannelPool>() {
                         @Override
                         protected SimpleChannelPool newPool(InetSocketAddress key) {
-                            return new SimpleChannelPool(
-                                generateClientBootstrap(eventLoopGroup, channelClass).remoteAddress(key),
-                                new ChannelPoolHandlerImpl(),
-                                CHANNEL_HEALTH_CHECK_INSTANCE
-                            ) {
-                                @Override
-                                public Future<Void> release(Channel channel, Promise<Void> promise) {
-                                    markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(
-                                        channel, "Releasing channel back to pool"
-                                    );
-                                    return super.release(channel, promise);
-                                }
-
-                                @Override
-                                protected Channel pollChannel() {
-                                    Channel channel = super.pollChannel();
-
-                                    if (channel != null) {
-                                        markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(
-                                            channel, "Polling channel to be reused before healthcheck"
-                                        );
-
-                                        if (idleChannelTimeoutMillis > 0) {
-                                            /*
-                                             We have a channel that is about to be re-used, so disable the idle channel
-                                             timeout detector if it exists. By disabling it here we make sure that it is
-                                             effectively "gone" before the healthcheck happens, preventing race
-                                             conditions. Note that we can't call pipeline.remove() here because we may
-                                             not be in the pipeline's event loop, so calling pipeline.remove() could
-                                             lead to thread deadlock, but we can't call channel.eventLoop().execute()
-                                             because we need it disabled *now* before the healthcheck happens. The
-                                             pipeline preparation phase will remove it safely soon, and in the meantime
-                                             it will be disabled.
-                                             */
-                                            ChannelPipeline pipeline = channel.pipeline();
-                                            ChannelHandler idleHandler =
-                                                pipeline.get(DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME);
-                                            if (idleHandler != null) {
-                                                ((DownstreamIdleChannelTimeoutHandler) idleHandler)
-                                                    .disableTimeoutHandling();
-                                            }
-                                        }
-                                    }
-
-                                    return channel;
-                                }
-
-                                @Override
-                                protected boolean offerChannel(Channel channel) {
-                                    if (idleChannelTimeoutMillis > 0) {
-                                        // Add an idle channel timeout detector. This will be removed before the
-                                        //      channel's reacquisition healthcheck runs (in pollChannel()), so we won't
-                                        //      have a race condition where this channel is handed over for use but gets
-                                        //      squashed right before it's about to be used.
-                                        // NOTE: Due to the semantics of pool.release() we're guaranteed to be in the
-                                        //      channel's event loop, so there's no chance of a thread deadlock when
-                                        //      messing with the pipeline.
-                                        channel.pipeline().addFirst(
-                                            DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME,
-                                            new DownstreamIdleChannelTimeoutHandler(
-                                                idleChannelTimeoutMillis, () -> true, false,
-                                                "StreamingAsyncHttpClientChannel-idle", null, null)
-                                        );
-                                    }
-
-                                    return super.offerChannel(channel);
-                                }
-                            };
+                            return createChannelPool(key, eventLoopGroup, channelClass);
                         }
                     };
                     poolMap = result;
@@ -562,60 +919,964 @@ public class StreamingAsyncHttpClient {
         return result;
     }
 
-    protected ChannelPool getPooledChannelFuture(String downstreamHost, int downstreamPort) {
-        return getPoolMap().get(
-            resolveHostnameToInetSocketAddressWithMultiIpSupport(downstreamHost, downstreamPort)
-        );
-    }
+    /**
+     * @return The map of per-logical-host pools used when {@link
+     * ProxyRouterConnectionPoolConfig#isPoolPerLogicalHostEnabled()} is true. Shares its event loop group with {@link
+     * #getPoolMap()}.
+     */
+    protected ChannelPoolMap<LogicalHostPoolKey, SimpleChannelPool> getLogicalHostPoolMap() {
+        ChannelPoolMap<LogicalHostPoolKey, SimpleChannelPool> result = logicalHostPoolMap;
+        if (result == null) {
+            // Same double-checked locking as getPoolMap(), which also creates the event loop group we need.
+            getPoolMap();
+            synchronized (this) {
+                result = logicalHostPoolMap;
+                if (result == null) {
+                    EventLoopGroup eventLoopGroup = poolEventLoopGroup;
+                    Class<? extends SocketChannel> channelClass = poolChannelClass;
 
-    protected static class ChannelPoolHandlerImpl extends AbstractChannelPoolHandler {
-        @Override
-        public void channelCreated(Channel ch) {
-            // NOOP
+                    result = new AbstractChannelPoolMap<LogicalHostPoolKey, SimpleChannelPool>() {
+                        @Override
+                        protected SimpleChannelPool newPool(LogicalHostPoolKey key) {
+                            return createLogicalHostChannelPool(key, eventLoopGroup, channelClass);
+                        }
+                    };
+                    logicalHostPoolMap = result;
+                }
+            }
         }
+        return result;
     }
 
-    protected static class ProxyRouterChannelHealthChecker implements ChannelHealthChecker {
-        @Override
-        public Future<Boolean> isHealthy(Channel channel) {
-            // See if we've marked the channel as being non-usable first.
-            if (channelIsMarkedAsBeingBroken(channel))
-                return channel.eventLoop().newSucceededFuture(Boolean.FALSE);
+    /**
+     * @return The map of per-host HTTP/2 pools used when {@link ProxyRouterHttp2Config#isEnabled()} is true. Shares its
+     * event loop group with {@link #getPoolMap()}.
+     */
+    protected ChannelPoolMap<Http2PoolKey, Http2DownstreamChannelPool> getHttp2PoolMap() {
+        ChannelPoolMap<Http2PoolKey, Http2DownstreamChannelPool> result = http2PoolMap;
+        if (result == null) {
+            // Same double-checked locking as getPoolMap(), which also creates the event loop group we need.
+            getPoolMap();
+            synchronized (this) {
+                result = http2PoolMap;
+                if (result == null) {
+                    EventLoopGroup eventLoopGroup = poolEventLoopGroup;
+                    Class<? extends SocketChannel> channelClass = poolChannelClass;
 
-            // We haven't marked it broken, so fallback to the default channel health checker.
-            return ChannelHealthChecker.ACTIVE.isHealthy(channel);
+                    result = new AbstractChannelPoolMap<Http2PoolKey, Http2DownstreamChannelPool>() {
+                        @Override
+                        protected Http2DownstreamChannelPool newPool(Http2PoolKey key) {
+                            return createHttp2ChannelPool(key, eventLoopGroup, channelClass);
+                        }
+                    };
+                    http2PoolMap = result;
+                }
+            }
         }
+        return result;
     }
 
-    protected static void markChannelAsBroken(Channel ch) {
-        ch.attr(CHANNEL_IS_BROKEN_ATTR).set(true);
-    }
-
-    protected static boolean channelIsMarkedAsBeingBroken(Channel ch) {
-        Attribute<Boolean> brokenAttr = ch.attr(CHANNEL_IS_BROKEN_ATTR);
-        return Boolean.TRUE.equals(brokenAttr.get());
-    }
-
-    protected void logInitialRequestChunk(HttpRequest initialRequestChunk, String downstreamHost, int downstreamPort) {
-        if (logger.isDebugEnabled()) {
-            StringBuilder sb = new StringBuilder();
-            for (String headerName : initialRequestChunk.headers().names()) {
-                if (sb.length() > 0)
-                    sb.append(", ");
-                sb.append(headerName).append("=\"")
-                  .append(String.join(",", initialRequestChunk.headers().getAll(headerName))).append("\"");
+    /**
+     * @return The map of per-event-loop pools used for calls that run on the event loop of the incoming connection
+     * that triggered them - calls that splice their bodies (see {@link
+     * ProxyRouterConnectionPoolConfig#isSplicePassthroughEnabled()}), and all per-IP-address calls when {@link
+     * ProxyRouterConnectionPoolConfig#isEventLoopAffinityEnabled()} is true. Unlike the other pools these don't use the
+     * proxy router's own event loop group - each pool's connections live on the server worker event loop they're used
+     * from.
+     */
+    protected ChannelPoolMap<EventLoopPoolKey, SimpleChannelPool> getEventLoopPoolMap() {
+        ChannelPoolMap<EventLoopPoolKey, SimpleChannelPool> result = eventLoopPoolMap;
+        if (result == null) {
+            // Same double-checked locking as getPoolMap().
+            synchronized (this) {
+                result = eventLoopPoolMap;
+                if (result == null) {
+                    result = new AbstractChannelPoolMap<EventLoopPoolKey, SimpleChannelPool>() {
+                        @Override
+                        protected SimpleChannelPool newPool(EventLoopPoolKey key) {
+                            return createEventLoopChannelPool(key);
+                        }
+                    };
+                    eventLoopPoolMap = result;
+                }
             }
+        }
+        return result;
+    }
 
-            logger.debug("STREAMING REQUEST HEADERS: " + sb.toString());
-            logger.debug("STREAMING REQUEST HOST:PORT/PATH: " + downstreamHost + ":" + downstreamPort
-                         + initialRequestChunk.uri());
-            logger.debug("STREAMING REQUEST METHOD: " + initialRequestChunk.method().name());
-            logger.debug("STREAMING REQUEST PROTOCOL: " + initialRequestChunk.protocolVersion().protocolName());
+    /**
+     * Creates the connection pool for the given downstream address. If {@link
+     * ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} is -1 (the default) this is an unbounded {@link
+     * SimpleChannelPool}, otherwise it's a {@link FixedChannelPool} that caps the number of connections, queues
+     * acquires that arrive while the pool is at its limit, and fails them with a {@link
+     * DownstreamConnectionPoolExhaustedException} if the queue is full or they time out. Either way the pool's {@link
+     * DownstreamChannelPoolStats} are sent to the {@link MetricsListener} (if any) via a {@link
+     * ServerMetricsEvent#PROXY_ROUTER_POOL_CREATED} event.
+     */
+    protected SimpleChannelPool createChannelPool(InetSocketAddress downstreamAddress,
+                                                  EventLoopGroup eventLoopGroup,
+                                                  Class<? extends SocketChannel> channelClass) {
+        int maxConnections = connectionPoolConfig.maxConnectionsPerHost();
+        DownstreamChannelPoolStats poolStats = new DownstreamChannelPoolStats(downstreamAddress, maxConnections);
+        Bootstrap bootstrap = generateClientBootstrap(eventLoopGroup, channelClass).remoteAddress(downstreamAddress);
+        ChannelPoolHandler poolHandler = new ChannelPoolHandlerImpl(poolStats);
+
+        SimpleChannelPool pool = (maxConnections == -1)
+                                 ? new ProxyRouterChannelPool(bootstrap, poolHandler, poolStats)
+                                 : new BoundedProxyRouterChannelPool(bootstrap, poolHandler, poolStats);
+
+        if (metricsListener != null) {
+            metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED, poolStats);
         }
+
+        return pool;
     }
 
     /**
-     * TODO: Fully document me.
+     * Creates the connection pool for the given downstream address and event loop. This is the same kind of pool as
+     * {@link #createChannelPool(InetSocketAddress, EventLoopGroup, Class)} creates, except its connections are
+     * registered with the key's event loop (using the key's channel class, which must match that event loop's
+     * transport). If {@link ProxyRouterConnectionPoolConfig#isSplicePassthroughEnabled()} is true then native epoll
+     * connections use {@link EpollMode#LEVEL_TRIGGERED} mode, so they can be used for calls that splice their bodies.
+     * Note that {@link ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} applies to each of these pools
+     * separately, so a host can end up with that many connections per event loop.
+     */
+    protected SimpleChannelPool createEventLoopChannelPool(EventLoopPoolKey key) {
+        int maxConnections = connectionPoolConfig.maxConnectionsPerHost();
+        DownstreamChannelPoolStats poolStats = new DownstreamChannelPoolStats(key.toString(), maxConnections);
+        Bootstrap bootstrap = generateClientBootstrap(key.getEventLoop(), key.getChannelClass())
+            .remoteAddress(key.getDownstreamAddress());
+        if (connectionPoolConfig.isSplicePassthroughEnabled()
+            && EpollSocketChannel.class.equals(key.getChannelClass())) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        }
+        ChannelPoolHandler poolHandler = new ChannelPoolHandlerImpl(poolStats);
+
+        SimpleChannelPool pool = (maxConnections == -1)
+                                 ? new ProxyRouterChannelPool(bootstrap, poolHandler, poolStats)
+                                 : new BoundedProxyRouterChannelPool(bootstrap, poolHandler, poolStats);
+
+        if (metricsListener != null) {
+            metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED, poolStats);
+        }
+
+        return pool;
+    }
+
+    /**
+     * Creates the connection pool for the given logical downstream host, used when {@link
+     * ProxyRouterConnectionPoolConfig#isPoolPerLogicalHostEnabled()} is true. This is the same kind of pool as {@link
+     * #createChannelPool(InetSocketAddress, EventLoopGroup, Class)} creates, except it has no fixed remote address -
+     * each new connection is spread across the host's current IP addresses (see {@link
+     * DownstreamHostAddresses#nextAddress()}), which are re-resolved in the background every {@link
+     * ProxyRouterConnectionPoolConfig#addressRefreshIntervalMillis()}. Connections to IPs that are no longer valid are
+     * closed rather than reused the next time they're released or pulled from the pool. If {@link
+     * ProxyRouterConnectionPoolConfig#outlierDetectionConfig()} is enabled the same goes for IPs that the pool's
+     * {@link DownstreamOutlierDetector} has ejected.
+     */
+    protected SimpleChannelPool createLogicalHostChannelPool(LogicalHostPoolKey key,
+                                                             EventLoopGroup eventLoopGroup,
+                                                             Class<? extends SocketChannel> channelClass) {
+        int maxConnections = connectionPoolConfig.maxConnectionsPerHost();
+        DownstreamChannelPoolStats poolStats = new DownstreamChannelPoolStats(key.toString(), maxConnections);
+        ProxyRouterOutlierDetectionConfig outlierDetectionConfig = connectionPoolConfig.outlierDetectionConfig();
+        DownstreamOutlierDetector outlierDetector =
+            (outlierDetectionConfig != null && outlierDetectionConfig.isEnabled())
+            ? new DownstreamOutlierDetector(key.getHost(), outlierDetectionConfig)
+            : null;
+        DownstreamHostAddresses hostAddresses = new DownstreamHostAddresses(
+            key.getHost(), key.getPort(), downstreamAddressResolver, outlierDetector
+        );
+        Bootstrap bootstrap = generateClientBootstrap(eventLoopGroup, channelClass);
+        ChannelPoolHandler poolHandler = new ChannelPoolHandlerImpl(poolStats);
+
+        SimpleChannelPool pool = (maxConnections == -1)
+                                 ? new ProxyRouterChannelPool(bootstrap, poolHandler, poolStats, hostAddresses)
+                                 : new BoundedProxyRouterChannelPool(bootstrap, poolHandler, poolStats, hostAddresses);
+
+        scheduleAddressRefresh(hostAddresses);
+
+        if (metricsListener != null) {
+            metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED, poolStats);
+        }
+
+        return pool;
+    }
+
+    /**
+     * Creates the HTTP/2 pool for the given downstream host, used when {@link ProxyRouterHttp2Config#isEnabled()} is
+     * true and the host is (or might be) an HTTP/2 host - see {@link #isHttp2CandidateTarget(String, int, boolean)}.
+     * The pool multiplexes calls over at most {@link ProxyRouterHttp2Config#maxConnectionsPerHost()} connections and
+     * shares {@link ProxyRouterConnectionPoolConfig#maxPendingAcquiresPerHost()} and {@link
+     * ProxyRouterConnectionPoolConfig#acquireTimeoutMillis()} with the HTTP/1.1 pools for calls that have to wait for a
+     * free stream. Like pooled HTTP/1.1 connections, connections that go without any calls for this client's idle
+     * channel timeout are closed.
+     */
+    protected Http2DownstreamChannelPool createHttp2ChannelPool(Http2PoolKey key,
+                                                                EventLoopGroup eventLoopGroup,
+                                                                Class<? extends SocketChannel> channelClass) {
+        int maxConnections = http2Config.maxConnectionsPerHost();
+        DownstreamChannelPoolStats poolStats = new DownstreamChannelPoolStats(key.toString(), maxConnections);
+        Bootstrap bootstrap = generateClientBootstrap(eventLoopGroup, channelClass);
+        boolean isPriorKnowledgeTarget = http2PriorKnowledgeTargets.contains(
+            new LogicalHostPoolKey(key.getHost(), key.getPort(), key.isSecure())
+        );
+
+        Http2DownstreamChannelPool pool = new Http2DownstreamChannelPool(
+            poolStats, () -> connectHttp2Channel(bootstrap, key, isPriorKnowledgeTarget), eventLoopGroup,
+            maxConnections, http2Config.maxConcurrentStreamsPerConnection(),
+            connectionPoolConfig.maxPendingAcquiresPerHost(), connectionPoolConfig.acquireTimeoutMillis(),
+            idleChannelTimeoutMillis, isPriorKnowledgeTarget, metricsListener
+        );
+
+        if (metricsListener != null) {
+            metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED, poolStats);
+        }
+
+        return pool;
+    }
+
+    /**
+     * Opens a new connection for an {@link Http2DownstreamChannelPool}. {@code https} connections offer {@code h2} and
+     * {@code http/1.1} via ALPN, and are set up for HTTP/2 if the downstream host selects {@code h2} (or if it's a
+     * prior knowledge target). {@code http} connections are only used for prior knowledge targets, so they're always
+     * set up for cleartext HTTP/2.
+     *
+     * @return A future that completes with the connection once its protocol is known (i.e. after the TLS handshake for
+     * {@code https}). The connection's pipeline will only contain an {@link Http2MultiplexHandler} if it's HTTP/2.
+     */
+    protected Future<Channel> connectHttp2Channel(Bootstrap bootstrap,
+                                                  Http2PoolKey key,
+                                                  boolean isPriorKnowledgeTarget) {
+        Promise<Channel> result = ImmediateEventExecutor.INSTANCE.newPromise();
+
+        Future<InetSocketAddress> addressFuture;
+        try {
+            addressFuture = resolveDownstreamAddress(key.getHost(), key.getPort());
+        }
+        catch (Throwable t) {
+            return result.setFailure(t);
+        }
+
+        addressFuture.addListener(resolveFuture -> {
+            if (!resolveFuture.isSuccess()) {
+                result.tryFailure(resolveFuture.cause());
+                return;
+            }
+
+            Bootstrap http2Bootstrap = bootstrap.clone().handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) throws Exception {
+                    ChannelPipeline p = ch.pipeline();
+                    if (debugChannelLifecycleLoggingEnabled) {
+                        p.addLast(DEBUG_LOGGER_HANDLER_NAME, new LoggingHandler(
+                            DOWNSTREAM_CLIENT_CHANNEL_DEBUG_LOGGER_NAME, LogLevel.DEBUG
+                        ));
+                    }
+
+                    if (!key.isSecure()) {
+                        addHttp2ConnectionHandlers(p);
+                        return;
+                    }
+
+                    p.addLast(SSL_HANDLER_NAME, newDownstreamHttp2SslHandler(
+                        ch, key.getHost(), key.getPort(), key.isRelaxedHttpsValidation()
+                    ));
+                    // A host that doesn't do ALPN is assumed to speak HTTP/1.1, unless we know better.
+                    String fallbackProtocol = (isPriorKnowledgeTarget)
+                                              ? ApplicationProtocolNames.HTTP_2
+                                              : ApplicationProtocolNames.HTTP_1_1;
+                    p.addLast(ALPN_HANDLER_NAME, new ApplicationProtocolNegotiationHandler(fallbackProtocol) {
+                        @Override
+                        protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                            if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                addHttp2ConnectionHandlers(ctx.pipeline());
+                            }
+                            result.trySuccess(ctx.channel());
+                        }
+
+                        @Override
+                        protected void handshakeFailure(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+                            result.tryFailure(cause);
+                            super.handshakeFailure(ctx, cause);
+                        }
+                    });
+                }
+            });
+
+            ChannelFuture connectFuture;
+            try {
+                connectFuture = http2Bootstrap.connect((InetSocketAddress) resolveFuture.getNow());
+            }
+            catch (Throwable t) {
+                result.tryFailure(t);
+                return;
+            }
+
+            connectFuture.addListener(future -> {
+                if (!future.isSuccess()) {
+                    result.tryFailure(future.cause());
+                    return;
+                }
+
+                Channel ch = connectFuture.channel();
+                if (!key.isSecure()) {
+                    result.trySuccess(ch);
+                }
+                // Covers anything that kills the connection before its protocol is known.
+                ch.closeFuture().addListener(
+                    closeFuture -> result.tryFailure(new DownstreamChannelClosedUnexpectedlyException(ch))
+                );
+            });
+        });
+
+        return result;
+    }
+
+    /**
+     * Sets up the given connection pipeline for HTTP/2: an {@link Http2FrameCodecBuilder#forClient() client frame
+     * codec} (with server push disabled) followed by an {@link Http2MultiplexHandler} that gives each stream its own
+     * child channel.
+     */
+    protected void addHttp2ConnectionHandlers(ChannelPipeline p) {
+        Http2Settings settings = Http2Settings
+            .defaultSettings()
+            .pushEnabled(false)
+            .initialWindowSize(http2Config.initialWindowSize());
+        p.addLast(HTTP2_FRAME_CODEC_HANDLER_NAME, Http2FrameCodecBuilder.forClient().initialSettings(settings).build());
+        // Server push is disabled, so there should never be any inbound streams.
+        p.addLast(HTTP2_MULTIPLEX_HANDLER_NAME, new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+    }
+
+    /**
+     * @return true if calls to the given downstream host should go through an {@link Http2DownstreamChannelPool}, i.e.
+     * {@link ProxyRouterHttp2Config#isEnabled()} is true and the host is either one of the {@link
+     * ProxyRouterHttp2Config#priorKnowledgeTargets()} or an {@code https} host that HTTP/2 can be negotiated with via
+     * ALPN.
+     */
+    protected boolean isHttp2CandidateTarget(String downstreamHost, int downstreamPort, boolean isSecureHttpsCall) {
+        if (!http2Config.isEnabled()) {
+            return false;
+        }
+
+        return (isSecureHttpsCall && http2Config.isAlpnNegotiationEnabled())
+               || http2PriorKnowledgeTargets.contains(
+                   new LogicalHostPoolKey(downstreamHost, downstreamPort, isSecureHttpsCall)
+               );
+    }
+
+    /**
+     * Schedules the given host's IP addresses to be re-resolved every {@link
+     * ProxyRouterConnectionPoolConfig#addressRefreshIntervalMillis()}. This is done on its own thread rather than an
+     * event loop since the resolution is blocking when {@link ProxyRouterDnsConfig#isEnabled()} is false. The task is
+     * kept on the {@link DownstreamHostAddresses} so it's cancelled when the host's pool is closed.
+     */
+    protected void scheduleAddressRefresh(DownstreamHostAddresses hostAddresses) {
+        long refreshIntervalMillis = connectionPoolConfig.addressRefreshIntervalMillis();
+        ScheduledFuture<?> refreshTask = getAddressRefreshScheduler().scheduleWithFixedDelay(() -> {
+            try {
+                hostAddresses.refresh();
+            }
+            catch (Throwable t) {
+                // Don't let an unexpected error stop future refreshes.
+                logger.error(
+                    "An unexpected error occurred while refreshing the IP addresses for a downstream host. "
+                    + "hostname={}, port={}", hostAddresses.getHostname(), hostAddresses.getPort(), t
+                );
+            }
+        }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        hostAddresses.setRefreshTask(refreshTask);
+    }
+
+    protected synchronized ScheduledExecutorService getAddressRefreshScheduler() {
+        if (addressRefreshScheduler == null) {
+            addressRefreshScheduler = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("proxyRouterAddressRefresher", true, Thread.NORM_PRIORITY)
+            );
+        }
+        return addressRefreshScheduler;
+    }
+
+    /**
+     * Creates a new connection for one of the pools - to the pool's fixed remote address if {@code hostAddresses} is
+     * null, otherwise to the next of the logical host's current IP addresses. Connection failures to a logical host's
+     * IPs are reported to its {@link DownstreamOutlierDetector} (if any).
+     */
+    protected ChannelFuture connectPooledChannel(Bootstrap bootstrap,
+                                                 @Nullable DownstreamHostAddresses hostAddresses) {
+        if (hostAddresses == null) {
+            return bootstrap.connect();
+        }
+
+        InetSocketAddress address = hostAddresses.nextAddress();
+        ChannelFuture connectFuture = bootstrap.connect(address);
+
+        DownstreamOutlierDetector outlierDetector = hostAddresses.getOutlierDetector();
+        if (outlierDetector != null) {
+            connectFuture.addListener(future -> {
+                if (!future.isSuccess()) {
+                    outlierDetector.recordFailure(address);
+                }
+            });
+        }
+
+        return connectFuture;
+    }
+
+    /**
+     * @return The {@link DownstreamOutlierDetector} for the given pool's logical host, or null if the pool isn't a
+     * logical host pool or outlier detection is disabled.
+     */
+    protected static @Nullable DownstreamOutlierDetector getOutlierDetector(@Nullable ChannelPool pool) {
+        if (!(pool instanceof ProxyRouterPool)) {
+            return null;
+        }
+
+        DownstreamHostAddresses hostAddresses = ((ProxyRouterPool) pool).getHostAddresses();
+        return (hostAddresses == null) ? null : hostAddresses.getOutlierDetector();
+    }
+
+    /**
+     * Closes the given channel and marks it as broken (so the pool's health check won't hand it out or take it back)
+     * if it's connected to an IP address that's no longer one of the logical host's addresses. Does nothing if {@code
+     * hostAddresses} is null.
+     */
+    protected void drainChannelIfAddressIsStale(Channel channel, @Nullable DownstreamHostAddresses hostAddresses) {
+        if (hostAddresses != null && hostAddresses.isStale(channel)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    "Draining pooled channel connected to an IP address that is no longer valid for its downstream "
+                    + "host. hostname={}, channel_id={}", hostAddresses.getHostname(), channel.toString()
+                );
+            }
+            markChannelAsBroken(channel);
+            channel.close();
+        }
+    }
+
+    protected void beforeChannelReleasedToPool(Channel channel) {
+        markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(channel, "Releasing channel back to pool");
+
+        // The call's response backpressure may have paused reads on this channel. An idle pooled channel needs to keep
+        //      reading so it notices if the downstream service closes it.
+        if (!channel.config().isAutoRead()) {
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    protected void afterChannelPolledFromPool(Channel channel) {
+        markChannelBrokenAndLogInfoIfHttpClientCodecStateIsNotZero(
+            channel, "Polling channel to be reused before healthcheck"
+        );
+
+        // A late pause from the previous call's response backpressure must not carry over to the next call.
+        if (!channel.config().isAutoRead()) {
+            channel.config().setAutoRead(true);
+        }
+
+        if (idleChannelTimeoutMillis > 0) {
+            /*
+             We have a channel that is about to be re-used, so disable the idle channel timeout detector if it exists.
+             By disabling it here we make sure that it is effectively "gone" before the healthcheck happens, preventing
+             race conditions. Note that we can't call pipeline.remove() here because we may not be in the pipeline's
+             event loop, so calling pipeline.remove() could lead to thread deadlock, but we can't call
+             channel.eventLoop().execute() because we need it disabled *now* before the healthcheck happens. The
+             pipeline preparation phase will remove it safely soon, and in the meantime it will be disabled.
+             */
+            ChannelPipeline pipeline = channel.pipeline();
+            ChannelHandler idleHandler = pipeline.get(DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME);
+            if (idleHandler != null) {
+                ((DownstreamIdleChannelTimeoutHandler) idleHandler).disableTimeoutHandling();
+            }
+        }
+    }
+
+    protected void beforeChannelOfferedToPool(Channel channel) {
+        if (idleChannelTimeoutMillis > 0) {
+            // Add an idle channel timeout detector. This will be removed before the channel's reacquisition
+            //      healthcheck runs (in pollChannel()), so we won't have a race condition where this channel is handed
+            //      over for use but gets squashed right before it's about to be used.
+            // NOTE: Due to the semantics of pool.release() we're guaranteed to be in the channel's event loop, so
+            //      there's no chance of a thread deadlock when messing with the pipeline.
+            channel.pipeline().addFirst(
+                DOWNSTREAM_IDLE_CHANNEL_TIMEOUT_HANDLER_NAME,
+                new DownstreamIdleChannelTimeoutHandler(
+                    idleChannelTimeoutMillis, () -> true, false,
+                    "StreamingAsyncHttpClientChannel-idle", null, null)
+            );
+        }
+    }
+
+    /**
+     * The things {@link StreamingAsyncHttpClient} needs to know about each of its pools.
+     */
+    protected interface ProxyRouterPool {
+
+        @NotNull DownstreamChannelPoolStats getPoolStats();
+
+        /**
+         * @return The logical host's addresses if this is a per-logical-host pool, or null if the pool is for a single
+         * IP address.
+         */
+        @Nullable DownstreamHostAddresses getHostAddresses();
+    }
+
+    /**
+     * The unbounded pool used when {@link ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} is -1.
+     */
+    protected class ProxyRouterChannelPool extends SimpleChannelPool implements ProxyRouterPool {
+
+        protected final DownstreamChannelPoolStats poolStats;
+        protected final @Nullable DownstreamHostAddresses hostAddresses;
+
+        public ProxyRouterChannelPool(Bootstrap bootstrap,
+                                      ChannelPoolHandler handler,
+                                      DownstreamChannelPoolStats poolStats) {
+            this(bootstrap, handler, poolStats, null);
+        }
+
+        public ProxyRouterChannelPool(Bootstrap bootstrap,
+                                      ChannelPoolHandler handler,
+                                      DownstreamChannelPoolStats poolStats,
+                                      @Nullable DownstreamHostAddresses hostAddresses) {
+            super(bootstrap, handler, CHANNEL_HEALTH_CHECK_INSTANCE);
+            this.poolStats = poolStats;
+            this.hostAddresses = hostAddresses;
+        }
+
+        @Override
+        public @NotNull DownstreamChannelPoolStats getPoolStats() {
+            return poolStats;
+        }
+
+        @Override
+        public @Nullable DownstreamHostAddresses getHostAddresses() {
+            return hostAddresses;
+        }
+
+        @Override
+        protected ChannelFuture connectChannel(Bootstrap bs) {
+            return connectPooledChannel(bs, hostAddresses);
+        }
+
+        @Override
+        public void close() {
+            if (hostAddresses != null) {
+                hostAddresses.close();
+            }
+            super.close();
+        }
+
+        @Override
+        public Future<Channel> acquire(Promise<Channel> promise) {
+            return super.acquire(poolStats.trackAcquire(promise));
+        }
+
+        @Override
+        public Future<Void> release(Channel channel, Promise<Void> promise) {
+            poolStats.trackChannelReleased();
+            beforeChannelReleasedToPool(channel);
+            drainChannelIfAddressIsStale(channel, hostAddresses);
+            return super.release(channel, promise);
+        }
+
+        @Override
+        protected Channel pollChannel() {
+            Channel channel = super.pollChannel();
+            if (channel != null) {
+                poolStats.trackChannelPolled();
+                afterChannelPolledFromPool(channel);
+                drainChannelIfAddressIsStale(channel, hostAddresses);
+            }
+            return channel;
+        }
+
+        @Override
+        protected boolean offerChannel(Channel channel) {
+            beforeChannelOfferedToPool(channel);
+            boolean offered = super.offerChannel(channel);
+            if (offered) {
+                poolStats.trackChannelOffered();
+            }
+            return offered;
+        }
+    }
+
+    /**
+     * The pool used when {@link ProxyRouterConnectionPoolConfig#maxConnectionsPerHost()} is set. {@link
+     * FixedChannelPool} fails acquires with a plain {@link IllegalStateException} when its pending queue is full and a
+     * {@link TimeoutException} when they wait too long, so this translates those into a {@link
+     * DownstreamConnectionPoolExhaustedException} that the error handling system maps to a 503.
+     */
+    protected class BoundedProxyRouterChannelPool extends FixedChannelPool implements ProxyRouterPool {
+
+        protected final DownstreamChannelPoolStats poolStats;
+        protected final @Nullable DownstreamHostAddresses hostAddresses;
+
+        public BoundedProxyRouterChannelPool(Bootstrap bootstrap,
+                                             ChannelPoolHandler handler,
+                                             DownstreamChannelPoolStats poolStats) {
+            this(bootstrap, handler, poolStats, null);
+        }
+
+        public BoundedProxyRouterChannelPool(Bootstrap bootstrap,
+                                             ChannelPoolHandler handler,
+                                             DownstreamChannelPoolStats poolStats,
+                                             @Nullable DownstreamHostAddresses hostAddresses) {
+            super(
+                bootstrap, handler, CHANNEL_HEALTH_CHECK_INSTANCE, FixedChannelPool.AcquireTimeoutAction.FAIL,
+                connectionPoolConfig.acquireTimeoutMillis(), connectionPoolConfig.maxConnectionsPerHost(),
+                connectionPoolConfig.maxPendingAcquiresPerHost(), true, true
+            );
+            this.poolStats = poolStats;
+            this.hostAddresses = hostAddresses;
+        }
+
+        @Override
+        public @NotNull DownstreamChannelPoolStats getPoolStats() {
+            return poolStats;
+        }
+
+        @Override
+        public @Nullable DownstreamHostAddresses getHostAddresses() {
+            return hostAddresses;
+        }
+
+        @Override
+        protected ChannelFuture connectChannel(Bootstrap bs) {
+            return connectPooledChannel(bs, hostAddresses);
+        }
+
+        @Override
+        public void close() {
+            if (hostAddresses != null) {
+                hostAddresses.close();
+            }
+            super.close();
+        }
+
+        @Override
+        public Future<Channel> acquire(Promise<Channel> promise) {
+            Promise<Channel> fixedPoolPromise = poolStats.trackAcquire(ImmediateEventExecutor.INSTANCE.newPromise());
+            fixedPoolPromise.addListener(future -> {
+                if (future.isSuccess()) {
+                    Channel ch = fixedPoolPromise.getNow();
+                    if (!promise.trySuccess(ch)) {
+                        // The caller gave up on the acquire (e.g. cancelled it), so give the channel back.
+                        release(ch);
+                    }
+                    return;
+                }
+
+                Throwable cause = future.cause();
+                if (cause instanceof IllegalStateException || cause instanceof TimeoutException) {
+                    poolStats.trackAcquireRejected();
+                    if (metricsListener != null) {
+                        metricsListener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_ACQUIRE_REJECTED, poolStats);
+                    }
+                    cause = new DownstreamConnectionPoolExhaustedException(
+                        poolStats.getPoolName(), connectionPoolConfig.maxConnectionsPerHost(),
+                        connectionPoolConfig.maxPendingAcquiresPerHost(), cause
+                    );
+                }
+                promise.tryFailure(cause);
+            });
+
+            super.acquire(fixedPoolPromise);
+            return promise;
+        }
+
+        @Override
+        public Future<Void> release(Channel channel, Promise<Void> promise) {
+            poolStats.trackChannelReleased();
+            beforeChannelReleasedToPool(channel);
+            drainChannelIfAddressIsStale(channel, hostAddresses);
+            return super.release(channel, promise);
+        }
+
+        @Override
+        protected Channel pollChannel() {
+            Channel channel = super.pollChannel();
+            if (channel != null) {
+                poolStats.trackChannelPolled();
+                afterChannelPolledFromPool(channel);
+                drainChannelIfAddressIsStale(channel, hostAddresses);
+            }
+            return channel;
+        }
+
+        @Override
+        protected boolean offerChannel(Channel channel) {
+            beforeChannelOfferedToPool(channel);
+            boolean offered = super.offerChannel(channel);
+            if (offered) {
+                poolStats.trackChannelOffered();
+            }
+            return offered;
+        }
+    }
+
+    /**
+     * Resolves the given downstream host into the address that should be used for the next downstream call. If {@link
+     * ProxyRouterDnsConfig#isEnabled()} is true this is done asynchronously by the {@link DownstreamAddressResolver},
+     * and the returned future will be failed with a {@link HostnameResolutionException} if the host can't be
+     * resolved. Otherwise this falls back to the blocking {@link
+     * #resolveHostnameToInetSocketAddressWithMultiIpSupport(String, int)}, and the returned future will already be
+     * complete (or a {@link HostnameResolutionException} will be thrown).
+     */
+    protected Future<InetSocketAddress> resolveDownstreamAddress(String downstreamHost, int downstreamPort) {
+        if (downstreamAddressResolver.isAsyncResolutionEnabled()) {
+            return downstreamAddressResolver.resolve(downstreamHost, downstreamPort);
+        }
+
+        return ImmediateEventExecutor.INSTANCE.newSucceededFuture(
+            resolveHostnameToInetSocketAddressWithMultiIpSupport(downstreamHost, downstreamPort)
+        );
+    }
+
+    protected ChannelPool getPooledChannelFuture(InetSocketAddress downstreamAddress) {
+        return getPoolMap().get(downstreamAddress);
+    }
+
+    protected Future<ChannelPool> getPoolForDownstreamCall(String downstreamHost,
+                                                           int downstreamPort,
+                                                           boolean isSecureHttpsCall) {
+        return getPoolForDownstreamCall(downstreamHost, downstreamPort, isSecureHttpsCall, false);
+    }
+
+    /**
+     * Finds the pool that should be used for a call to the given downstream host. If the host is an HTTP/2 candidate
+     * (see {@link #isHttp2CandidateTarget(String, int, boolean)}) this is the host's {@link
+     * Http2DownstreamChannelPool}, unless the host turns out to only speak HTTP/1.1 - in that case (and for all other
+     * hosts) it's the HTTP/1.1 pool from {@link #getHttp1PoolForDownstreamCall(String, int, boolean)}. The returned
+     * future will be failed if the HTTP/2 negotiation connection can't be made.
+     */
+    protected Future<ChannelPool> getPoolForDownstreamCall(String downstreamHost,
+                                                           int downstreamPort,
+                                                           boolean isSecureHttpsCall,
+                                                           boolean relaxedHttpsValidation) {
+        if (!isHttp2CandidateTarget(downstreamHost, downstreamPort, isSecureHttpsCall)) {
+            return getHttp1PoolForDownstreamCall(downstreamHost, downstreamPort, isSecureHttpsCall);
+        }
+
+        Promise<ChannelPool> result = ImmediateEventExecutor.INSTANCE.newPromise();
+        Http2DownstreamChannelPool http2Pool = getHttp2PoolMap().get(
+            new Http2PoolKey(downstreamHost, downstreamPort, isSecureHttpsCall, relaxedHttpsValidation)
+        );
+        Future<Boolean> http2SupportedFuture = http2Pool.http2Supported();
+        http2SupportedFuture.addListener(supportedFuture -> {
+            if (!supportedFuture.isSuccess()) {
+                result.tryFailure(supportedFuture.cause());
+                return;
+            }
+
+            if (Boolean.TRUE.equals(http2SupportedFuture.getNow())) {
+                result.trySuccess(http2Pool);
+                return;
+            }
+
+            Future<ChannelPool> http1PoolFuture =
+                getHttp1PoolForDownstreamCall(downstreamHost, downstreamPort, isSecureHttpsCall);
+            http1PoolFuture.addListener(poolLookupFuture -> {
+                if (poolLookupFuture.isSuccess()) {
+                    result.trySuccess(http1PoolFuture.getNow());
+                }
+                else {
+                    result.tryFailure(poolLookupFuture.cause());
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Finds the HTTP/1.1 pool that should be used for a call to the given downstream host. If {@link
+     * ProxyRouterConnectionPoolConfig#isPoolPerLogicalHostEnabled()} is true this is the host's logical pool, and the
+     * returned future completes once the host has been resolved at least once. Otherwise the host is resolved via
+     * {@link #resolveDownstreamAddress(String, int)} and this is the pool for the resulting IP address. Either way the
+     * returned future will be failed with a {@link HostnameResolutionException} if the host can't be resolved.
+     */
+    protected Future<ChannelPool> getHttp1PoolForDownstreamCall(String downstreamHost,
+                                                                int downstreamPort,
+                                                                boolean isSecureHttpsCall) {
+        Promise<ChannelPool> result = ImmediateEventExecutor.INSTANCE.newPromise();
+
+        if (connectionPoolConfig.isPoolPerLogicalHostEnabled()) {
+            SimpleChannelPool pool = getLogicalHostPoolMap().get(
+                new LogicalHostPoolKey(downstreamHost, downstreamPort, isSecureHttpsCall)
+            );
+            DownstreamHostAddresses hostAddresses = ((ProxyRouterPool) pool).getHostAddresses();
+            if (hostAddresses == null) {
+                return result.setSuccess(pool);
+            }
+
+            hostAddresses.ready().addListener(readyFuture -> {
+                if (readyFuture.isSuccess()) {
+                    result.trySuccess(pool);
+                }
+                else {
+                    result.tryFailure(readyFuture.cause());
+                }
+            });
+            return result;
+        }
+
+        Future<InetSocketAddress> addressFuture = resolveDownstreamAddress(downstreamHost, downstreamPort);
+        addressFuture.addListener(resolveFuture -> {
+            if (!resolveFuture.isSuccess()) {
+                result.tryFailure(resolveFuture.cause());
+                return;
+            }
+
+            try {
+                result.trySuccess(getPooledChannelFuture(addressFuture.getNow()));
+            }
+            catch (Throwable t) {
+                result.tryFailure(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Finds the per-event-loop pool (see {@link #getEventLoopPoolMap()}) that should be used for a call to the given
+     * downstream host from the given incoming channel, so the downstream connection runs on the incoming channel's
+     * event loop. The host is resolved via {@link #resolveDownstreamAddress(String, int)}, so the returned future will
+     * be failed with a {@link HostnameResolutionException} if the host can't be resolved. It will be failed with an
+     * {@link IllegalStateException} if the incoming channel's transport can't be determined (see {@link
+     * NettyTransport#forChannel(Channel)}).
+     */
+    protected Future<ChannelPool> getEventLoopPoolForDownstreamCall(String downstreamHost,
+                                                                    int downstreamPort,
+                                                                    Channel incomingChannel) {
+        Promise<ChannelPool> result = ImmediateEventExecutor.INSTANCE.newPromise();
+
+        NettyTransport incomingTransport = NettyTransport.forChannel(incomingChannel);
+        if (incomingTransport == null) {
+            return result.setFailure(new IllegalStateException(
+                "Unable to determine the transport of the incoming channel: " + incomingChannel
+            ));
+        }
+        EventLoop eventLoop = incomingChannel.eventLoop();
+        Class<? extends SocketChannel> channelClass = incomingTransport.getSocketChannelClass();
+
+        Future<InetSocketAddress> addressFuture = resolveDownstreamAddress(downstreamHost, downstreamPort);
+        addressFuture.addListener(resolveFuture -> {
+            if (!resolveFuture.isSuccess()) {
+                result.tryFailure(resolveFuture.cause());
+                return;
+            }
+
+            try {
+                result.trySuccess(getEventLoopPoolMap().get(
+                    new EventLoopPoolKey(eventLoop, addressFuture.getNow(), channelClass)
+                ));
+            }
+            catch (Throwable t) {
+                result.tryFailure(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return true if the downstream call can splice its bodies to/from the given incoming channel - the call must have
+     * opted in, {@link ProxyRouterConnectionPoolConfig#isSplicePassthroughEnabled()} must be true, the call must be a
+     * cleartext HTTP/1.1 call, and the incoming channel must be able to splice (see {@link
+     * ProxyBodySplicer#isSpliceCapable(Channel)}).
+     */
+    protected boolean isSplicePassthroughCandidate(boolean splicePassthrough,
+                                                   String downstreamHost,
+                                                   int downstreamPort,
+                                                   boolean isSecureHttpsCall,
+                                                   @Nullable ChannelHandlerContext ctx) {
+        return splicePassthrough
+               && connectionPoolConfig.isSplicePassthroughEnabled()
+               && !isSecureHttpsCall
+               && ctx != null
+               && ProxyBodySplicer.isSpliceCapable(ctx.channel())
+               && !isHttp2CandidateTarget(downstreamHost, downstreamPort, false);
+    }
+
+    /**
+     * @return true if the downstream call should run on the given incoming channel's event loop using a per-event-loop
+     * pool (see {@link #getEventLoopPoolForDownstreamCall(String, int, Channel)}) - {@link
+     * ProxyRouterConnectionPoolConfig#isEventLoopAffinityEnabled()} must be true, the incoming channel must be running
+     * on a transport we know how to open connections with (see {@link NettyTransport#forChannel(Channel)}), and the
+     * call must be one that would otherwise use the per-IP-address pools (i.e. not a per-logical-host or HTTP/2 call).
+     */
+    protected boolean isEventLoopAffinityCandidate(String downstreamHost,
+                                                   int downstreamPort,
+                                                   boolean isSecureHttpsCall,
+                                                   @Nullable ChannelHandlerContext ctx) {
+        return connectionPoolConfig.isEventLoopAffinityEnabled()
+               && !connectionPoolConfig.isPoolPerLogicalHostEnabled()
+               && ctx != null
+               && NettyTransport.forChannel(ctx.channel()) != null
+               && !isHttp2CandidateTarget(downstreamHost, downstreamPort, isSecureHttpsCall);
+    }
+
+    protected static class ChannelPoolHandlerImpl extends AbstractChannelPoolHandler {
+
+        protected final @Nullable DownstreamChannelPoolStats poolStats;
+
+        public ChannelPoolHandlerImpl() {
+            this(null);
+        }
+
+        public ChannelPoolHandlerImpl(@Nullable DownstreamChannelPoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void channelCreated(Channel ch) {
+            if (poolStats != null) {
+                poolStats.trackChannelCreated(ch);
+            }
+        }
+    }
+
+    protected static class ProxyRouterChannelHealthChecker implements ChannelHealthChecker {
+        @Override
+        public Future<Boolean> isHealthy(Channel channel) {
+            // See if we've marked the channel as being non-usable first.
+            if (channelIsMarkedAsBeingBroken(channel))
+                return channel.eventLoop().newSucceededFuture(Boolean.FALSE);
+
+            // We haven't marked it broken, so fallback to the default channel health checker.
+            return ChannelHealthChecker.ACTIVE.isHealthy(channel);
+        }
+    }
+
+    protected static void markChannelAsBroken(Channel ch) {
+        ch.attr(CHANNEL_IS_BROKEN_ATTR).set(true);
+    }
+
+    protected static boolean channelIsMarkedAsBeingBroken(Channel ch) {
+        Attribute<Boolean> brokenAttr = ch.attr(CHANNEL_IS_BROKEN_ATTR);
+        return Boolean.TRUE.equals(brokenAttr.get());
+    }
+
+    protected void logInitialRequestChunk(HttpRequest initialRequestChunk, String downstreamHost, int downstreamPort) {
+        if (logger.isDebugEnabled()) {
+            StringBuilder sb = new StringBuilder();
+            for (String headerName : initialRequestChunk.headers().names()) {
+                if (sb.length() > 0)
+                    sb.append(", ");
+                sb.append(headerName).append("=\"")
+                  .append(String.join(",", initialRequestChunk.headers().getAll(headerName))).append("\"");
+            }
+
+            logger.debug("STREAMING REQUEST HEADERS: " + sb.toString());
+            logger.debug("STREAMING REQUEST HOST:PORT/PATH: " + downstreamHost + ":" + downstreamPort
+                         + initialRequestChunk.uri());
+            logger.debug("STREAMING REQUEST METHOD: " + initialRequestChunk.method().name());
+            logger.debug("STREAMING REQUEST PROTOCOL: " + initialRequestChunk.protocolVersion().protocolName());
+        }
+    }
+
+    /**
+     * TODO: Fully document me.
      * <br/>
      * NOTE: The returned CompletableFuture will only be completed successfully if the connection to the downstream
      * server was successful and the initialRequestChunk was successfully written out. This has implications for
@@ -643,6 +1904,35 @@ public class StreamingAsyncHttpClient {
         boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
         @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
         ChannelHandlerContext ctx
+    ) {
+        return streamDownstreamCall(
+            downstreamHost, downstreamPort, initialRequestChunk, isSecureHttpsCall, relaxedHttpsValidation, callback,
+            downstreamCallTimeoutMillis, performSubSpanAroundDownstreamCalls, addTracingHeadersToDownstreamCall,
+            proxyRouterProcessingState, requestInfo, ctx, false
+        );
+    }
+
+    /**
+     * Same as {@link #streamDownstreamCall(String, int, HttpRequest, boolean, boolean, StreamingCallback, long,
+     * boolean, boolean, ProxyRouterProcessingState, RequestInfo, ChannelHandlerContext)}, except the call can opt into
+     * splicing its bodies between the caller's connection and the downstream connection (see {@link
+     * ProxyBodySplicer}). If {@code splicePassthrough} is true and {@link #isSplicePassthroughCandidate(boolean,
+     * String, int, boolean, ChannelHandlerContext)} agrees, the downstream connection comes from a pool on the caller's
+     * event loop (see {@link #getEventLoopPoolForDownstreamCall(String, int, Channel)}), and once the connection is
+     * set up {@link ProxyRouterProcessingState#getSplicePassthroughIncomingChannel()} is set to the caller's channel.
+     * The response body is then spliced automatically when possible - splicing the request body is up to the caller
+     * via {@link StreamingChannel#spliceRequestBodyFrom(Channel, long)}. Anything that can't be spliced is streamed as
+     * usual.
+     *
+     * <p>Calls that don't splice also use a pool on the caller's event loop when {@link
+     * #isEventLoopAffinityCandidate(String, int, boolean, ChannelHandlerContext)} says so.
+     */
+    public CompletableFuture<StreamingChannel> streamDownstreamCall(
+        String downstreamHost, int downstreamPort, HttpRequest initialRequestChunk, boolean isSecureHttpsCall,
+        boolean relaxedHttpsValidation, StreamingCallback callback, long downstreamCallTimeoutMillis,
+        boolean performSubSpanAroundDownstreamCalls, boolean addTracingHeadersToDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState, @NotNull RequestInfo<?> requestInfo,
+        ChannelHandlerContext ctx, boolean splicePassthrough
     ) {
         CompletableFuture<StreamingChannel> streamingChannel = new CompletableFuture<>();
 
@@ -656,233 +1946,589 @@ public class StreamingAsyncHttpClient {
 
         long beforeConnectionStartTimeNanos = System.nanoTime();
 
-        // Create a connection to the downstream server.
-        ChannelPool pool = getPooledChannelFuture(downstreamHost, downstreamPort);
-        Future<Channel> channelFuture = pool.acquire();
-        // Add a listener that kicks off the downstream call once the connection is completed.
-        channelFuture.addListener(future -> {
-            Pair<Deque<Span>, Map<String, String>> originalThreadInfo = null;
+        // Find the pool for the downstream host (which resolves it into IP address(es), asynchronously if
+        //      ProxyRouterDnsConfig is enabled), then create a connection to the downstream server. Calls that might
+        //      splice their bodies need a connection on the caller's event loop, as do all calls when event loop
+        //      affinity is enabled, so they get per-event-loop pools.
+        boolean isSpliceCandidate = isSplicePassthroughCandidate(
+            splicePassthrough, downstreamHost, downstreamPort, isSecureHttpsCall, ctx
+        );
+        boolean useEventLoopPool = isSpliceCandidate
+                                   || isEventLoopAffinityCandidate(
+                                       downstreamHost, downstreamPort, isSecureHttpsCall, ctx
+                                   );
+        Future<ChannelPool> poolFuture = (useEventLoopPool)
+                                         ? getEventLoopPoolForDownstreamCall(
+                                             downstreamHost, downstreamPort, ctx.channel()
+                                         )
+                                         : getPoolForDownstreamCall(
+                                             downstreamHost, downstreamPort, isSecureHttpsCall, relaxedHttpsValidation
+                                         );
+        poolFuture.addListener(poolLookupFuture -> {
+            if (!poolLookupFuture.isSuccess()) {
+                // Resolution failures are already reported as a HostnameResolutionException, which the error handling
+                //      will find inside the WrapperException.
+                Throwable cause = poolLookupFuture.cause();
+                String errorMessage = (cause instanceof HostnameResolutionException)
+                                      ? "Unable to resolve downstream host: "
+                                      : "Unable to connect to downstream host: ";
+                streamingChannel.completeExceptionally(new WrapperException(errorMessage + downstreamHost, cause));
+                return;
+            }
+
+            ChannelPool pool = poolFuture.getNow();
+            Future<Channel> channelFuture;
             try {
-                long connectionSetupTimeNanos = System.nanoTime() - beforeConnectionStartTimeNanos;
-                requestInfo.addRequestAttribute(
-                    DOWNSTREAM_CALL_CONNECTION_SETUP_TIME_NANOS_REQUEST_ATTR_KEY, connectionSetupTimeNanos
+                channelFuture = pool.acquire();
+            }
+            catch (Throwable t) {
+                streamingChannel.completeExceptionally(
+                    new WrapperException("Unable to connect to downstream host: " + downstreamHost, t)
                 );
+                return;
+            }
 
-                // Setup tracing and MDC so our log messages have the correct distributed trace info, etc.
-                originalThreadInfo = linkTracingAndMdcToCurrentThread(ctx);
+            // Add a listener that kicks off the downstream call once the connection is completed.
+            channelFuture.addListener(future -> {
+                Pair<Deque<Span>, Map<String, String>> originalThreadInfo = null;
+                try {
+                    long connectionSetupTimeNanos = System.nanoTime() - beforeConnectionStartTimeNanos;
+                    requestInfo.addRequestAttribute(
+                        DOWNSTREAM_CALL_CONNECTION_SETUP_TIME_NANOS_REQUEST_ATTR_KEY, connectionSetupTimeNanos
+                    );
 
-                if (logger.isDebugEnabled()) {
-                    logger.debug("CONNECTION SETUP TIME NANOS: {}", connectionSetupTimeNanos);
-                }
+                    // Setup tracing and MDC so our log messages have the correct distributed trace info, etc.
+                    originalThreadInfo = linkTracingAndMdcToCurrentThread(ctx);
 
-                if (!future.isSuccess()) {
-                    try {
-                        // We did not connect to the downstream host successfully. Notify the callback.
-                        streamingChannel.completeExceptionally(
-                            new WrapperException("Unable to connect to downstream host: " + downstreamHost,
-                                                 future.cause())
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("CONNECTION SETUP TIME NANOS: {}", connectionSetupTimeNanos);
+                    }
+
+                    if (!future.isSuccess()) {
+                        try {
+                            // We did not connect to the downstream host successfully. Notify the callback.
+                            streamingChannel.completeExceptionally(
+                                new WrapperException("Unable to connect to downstream host: " + downstreamHost,
+                                                     future.cause())
+                            );
+                        }
+                        finally {
+                            Channel ch = channelFuture.getNow();
+                            if (ch != null) {
+                                // We likely will never reach here since the channel future was not successful, however if
+                                //      we *do* manage to get here somehow, then mark the channel broken and release it back
+                                //      to the pool.
+                                markChannelAsBroken(ch);
+                                pool.release(ch);
+                            }
+                        }
+
+                        return;
+                    }
+
+                    // Do a subspan around the downstream call if desired.
+                    if (performSubSpanAroundDownstreamCalls) {
+                        // TODO: The subspan start stuff should probably be moved to the beginning of
+                        //      streamDownstreamCall(), so that we pick up connection setup time (and can annotate conn
+                        //      start/finish). For now, we'll fake it by annotating conn start/finish time on the subspan
+                        //      at a negative time offset. So they'll be "in the past" from the perspective of the subspan.
+
+                        // Add the subspan.
+                        String spanName = getSubspanSpanName(
+                            initialRequestChunk,
+                            requestInfo,
+                            proxySpanTaggingStrategy
+                        );
+
+                        // Start a new child/subspan for this call if possible, falling back to a new request span (rather
+                        //      than child/subspan) if there's no current span on the thread. The
+                        //      startSpanInCurrentContext() method will do the right thing here in either case.
+                        Span subspan = Tracer.getInstance().startSpanInCurrentContext(spanName, Span.SpanPurpose.CLIENT);
+
+                        // Do the auto-tagging based on the request.
+                        proxySpanTaggingStrategy.handleRequestTagging(subspan, initialRequestChunk);
+
+                        // Manually add downstream host and port tags since they aren't done by the auto-tagging, and
+                        //      this is something we definitely want for proxy/router requests.
+                        try {
+                            subspan.putTag(KnownZipkinTags.HTTP_HOST, downstreamHost + ":" + downstreamPort);
+                        }
+                        catch (Throwable t) {
+                            logger.error(
+                                "An unexpected error occurred while adding downstream host and port tags. The error will "
+                                + "be swallowed to avoid doing any damage, but your span may be missing some expected "
+                                + "tags. This error should be fixed.",
+                                t
+                            );
+                        }
+
+                        // Add the initial HttpRequest to our ProxyRouterProcessingState so it's available for final
+                        //      response tagging and span naming at the end (unless this call has already lost to
+                        //      another retry/hedge attempt for the same request).
+                        if (!callback.isCallAbandoned()) {
+                            proxyRouterProcessingState.setProxyHttpRequest(initialRequestChunk);
+                        }
+
+                        // Add the connection start/finish annotations if desired. These will show up before the subspan
+                        //      start timestamp because the span is currently starting after the connection is established,
+                        //      which is wrong. But it's something we'll have to fix later. For now, at least the conn
+                        //      start/finish will be available (and correct), even if they show up oddly before the subspan
+                        //      start time.
+                        if (proxySpanTaggingStrategy.shouldAddConnStartAnnotation()) {
+                            subspan.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicrosWithNanoOffset(
+                                subspan.getSpanStartTimeEpochMicros(),
+                                -connectionSetupTimeNanos,
+                                proxySpanTaggingStrategy.connStartAnnotationName()
+                            ));
+                        }
+
+                        if (proxySpanTaggingStrategy.shouldAddConnFinishAnnotation()) {
+                            subspan.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(
+                                subspan.getSpanStartTimeEpochMicros(),
+                                proxySpanTaggingStrategy.connFinishAnnotationName()
+                            ));
+                        }
+                    }
+
+                    Deque<Span> distributedSpanStackToUse = Tracer.getInstance().getCurrentSpanStackCopy();
+                    Map<String, String> mdcContextToUse = MDC.getCopyOfContextMap();
+
+                    @Nullable
+                    final Span spanForDownstreamCall = (distributedSpanStackToUse == null)
+                                                 ? null
+                                                 : distributedSpanStackToUse.peek();
+
+                    // Add distributed trace headers to the downstream call if desired and we have a current span.
+                    if (addTracingHeadersToDownstreamCall && spanForDownstreamCall != null) {
+                        HttpRequestTracingUtils.propagateTracingHeaders(
+                            (headerKey, headerValue) -> {
+                                if (headerValue != null) {
+                                    initialRequestChunk.headers().set(headerKey, headerValue);
+                                }
+                            },
+                            spanForDownstreamCall
                         );
                     }
+
+                    Channel ch = channelFuture.getNow();
+                    if (logger.isDebugEnabled())
+                        logger.debug("Channel ID of the Channel pulled from the pool: {}", ch.toString());
+
+                    // We may not be in the right thread to modify the channel pipeline and write data. If we're in the
+                    //      wrong thread we can get deadlock type situations. By running the relevant bits in the channel's
+                    //      event loop we're guaranteed it will be run in the correct thread.
+                    ch.eventLoop().execute(runnableWithTracingAndMdc(() -> {
+                        BiConsumer<String, Throwable> prepChannelErrorHandler = (errorMessage, cause) -> {
+                            try {
+                                streamingChannel.completeExceptionally(new WrapperException(errorMessage, cause));
+                            }
+                            finally {
+                                // This channel may be permanently busted depending on the error, so mark it broken and let
+                                //      the pool close it and clean it up.
+                                markChannelAsBroken(ch);
+                                pool.release(ch);
+                            }
+                        };
+
+                        try {
+                            ObjectHolder<Boolean> callActiveHolder = new ObjectHolder<>();
+                            callActiveHolder.heldObject = true;
+                            ObjectHolder<Boolean> lastChunkSentDownstreamHolder = new ObjectHolder<>();
+                            lastChunkSentDownstreamHolder.heldObject = false;
+                            ChannelBackpressure requestBodyBackpressure =
+                                setupBackpressureForDownstreamCall(proxyRouterProcessingState, ctx, ch);
+                            if (isSpliceCandidate && ProxyBodySplicer.canSpliceBetween(ctx.channel(), ch)) {
+                                proxyRouterProcessingState.setSplicePassthroughIncomingChannel(ctx.channel());
+                            }
+                            prepChannelForDownstreamCall(
+                                downstreamHost, downstreamPort, pool, ch, callback, distributedSpanStackToUse, mdcContextToUse, isSecureHttpsCall,
+                                relaxedHttpsValidation, performSubSpanAroundDownstreamCalls, downstreamCallTimeoutMillis,
+                                callActiveHolder, lastChunkSentDownstreamHolder, proxyRouterProcessingState,
+                                spanForDownstreamCall
+                            );
+
+                            logInitialRequestChunk(initialRequestChunk, downstreamHost, downstreamPort);
+
+                            // Send the HTTP request, and do a wire-send start annotation on the subspan if desired.
+                            if (
+                                spanForDownstreamCall != null
+                                && proxySpanTaggingStrategy.shouldAddWireSendStartAnnotation()
+                            ) {
+                                spanForDownstreamCall.addTimestampedAnnotationForCurrentTime(
+                                    proxySpanTaggingStrategy.wireSendStartAnnotationName()
+                                );
+                            }
+
+                            ChannelFuture writeFuture = ch.writeAndFlush(initialRequestChunk);
+
+                            // After the initial chunk has been sent we'll open the floodgates
+                            //      for any further chunk streaming
+                            writeFuture.addListener(completedWriteFuture -> {
+                                if (completedWriteFuture.isSuccess())
+                                    streamingChannel.complete(new StreamingChannel(
+                                        ch, pool, callActiveHolder, lastChunkSentDownstreamHolder,
+                                        distributedSpanStackToUse, mdcContextToUse, spanForDownstreamCall,
+                                        proxySpanTaggingStrategy, requestBodyBackpressure
+                                    ));
+                                else {
+                                    prepChannelErrorHandler.accept(
+                                        "Writing the first HttpRequest chunk to the downstream service failed.",
+                                        completedWriteFuture.cause()
+                                    );
+                                    //noinspection UnnecessaryReturnStatement
+                                    return;
+                                }
+                            });
+                        }
+                        catch (SSLException | NoSuchAlgorithmException | KeyStoreException ex) {
+                            prepChannelErrorHandler.accept("Error setting up SSL context for downstream call", ex);
+                            //noinspection UnnecessaryReturnStatement
+                            return;
+                        }
+                        catch (Throwable t) {
+                            // If we don't catch and handle this here it gets swallowed since we're in a Runnable
+                            prepChannelErrorHandler.accept(
+                                "An unexpected error occurred while prepping the channel pipeline for the downstream call",
+                                t
+                            );
+                            //noinspection UnnecessaryReturnStatement
+                            return;
+                        }
+                    }, ctx));
+                }
+                catch (Throwable ex) {
+                    try {
+                        String errorMsg = "Error occurred attempting to send first chunk (headers/etc) downstream";
+                        Exception errorToFire = new WrapperException(errorMsg, ex);
+                        logger.warn(errorMsg, errorToFire);
+                        streamingChannel.completeExceptionally(errorToFire);
+                    }
                     finally {
                         Channel ch = channelFuture.getNow();
                         if (ch != null) {
-                            // We likely will never reach here since the channel future was not successful, however if
-                            //      we *do* manage to get here somehow, then mark the channel broken and release it back
-                            //      to the pool.
+                            // Depending on where the error was thrown the channel may or may not exist. If it does exist,
+                            //      then assume it's unusable, mark it as broken, and let the pool close it and remove it.
                             markChannelAsBroken(ch);
                             pool.release(ch);
                         }
                     }
-
-                    return;
                 }
+                finally {
+                    // Unhook the tracing and MDC stuff from this thread now that we're done.
+                    unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
+                }
+            });
+        });
+
+        return streamingChannel;
+    }
+
+    /**
+     * Releases the resources this client holds that would otherwise outlive it - all of its connection pools (which
+     * closes their pooled connections and cancels the per-logical-host address refresh tasks), the event loop group
+     * the pooled connections run on, the address refresh thread, and the event loop thread and DNS resolvers of its
+     * {@link DownstreamAddressResolver}. Meant to be called once the client is no longer needed (e.g. when the server
+     * shuts down) - downstream calls made afterward may fail. Safe to call more than once.
+     */
+    public void close() {
+        closePoolMap(poolMap);
+        closePoolMap(logicalHostPoolMap);
+        closePoolMap(eventLoopPoolMap);
+        closePoolMap(http2PoolMap);
+        synchronized (this) {
+            if (poolEventLoopGroup != null) {
+                poolEventLoopGroup.shutdownGracefully();
+            }
+            if (addressRefreshScheduler != null) {
+                addressRefreshScheduler.shutdownNow();
+            }
+        }
+        downstreamAddressResolver.close();
+    }
+
+    /**
+     * Closes the given pool map (and therefore all of its pools) if it has been created.
+     */
+    protected void closePoolMap(@Nullable ChannelPoolMap<?, ?> poolMap) {
+        if (poolMap instanceof Closeable) {
+            try {
+                ((Closeable) poolMap).close();
+            }
+            catch (Throwable t) {
+                logger.warn("Unable to close a downstream connection pool map.", t);
+            }
+        }
+    }
+
+    /**
+     * Opens {@link ProxyRouterConnectionPoolConfig#prewarmConnectionsPerTarget()} connections to each of the {@link
+     * ProxyRouterConnectionPoolConfig#prewarmTargets()} (including the TLS handshake for https targets) and puts them
+     * in the pools, so the first calls to those hosts don't have to pay for a cold connection. When HTTP/1.1 calls are
+     * pooled per resolved IP address (i.e. {@link ProxyRouterConnectionPoolConfig#isPoolPerLogicalHostEnabled()} is
+     * false) each of a target's resolved addresses has its own pool, so each of those pools gets that many
+     * connections. This is meant to be called once at startup. Failures are logged rather than thrown - a downstream
+     * host that can't be warmed up shouldn't stop the server from starting, and calls to it will behave the same as
+     * they would without prewarming.
+     *
+     * @return A future that completes once all prewarming attempts have finished. It is never completed exceptionally.
+     */
+    public @NotNull CompletableFuture<Void> prewarmConnections() {
+        List<URI> targets = connectionPoolConfig.prewarmTargets();
+        if (targets == null || targets.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int connectionsPerTarget = connectionPoolConfig.prewarmConnectionsPerTarget();
+        CompletableFuture<?>[] targetFutures = targets
+            .stream()
+            .map(target -> prewarmConnections(target, connectionsPerTarget))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(targetFutures);
+    }
+
+    protected @NotNull CompletableFuture<Void> prewarmConnections(@NotNull URI target, int numConnections) {
+        boolean isSecureHttpsCall = "https".equalsIgnoreCase(target.getScheme());
+        String host = target.getHost();
+        int port = (target.getPort() == -1) ? ((isSecureHttpsCall) ? 443 : 80) : target.getPort();
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!connectionPoolConfig.isPoolPerLogicalHostEnabled()
+            && !isHttp2CandidateTarget(host, port, isSecureHttpsCall)) {
+            prewarmEachAddressPool(target, host, port, isSecureHttpsCall, numConnections, result);
+            return result;
+        }
+
+        Future<ChannelPool> poolFuture;
+        try {
+            poolFuture = getPoolForDownstreamCall(host, port, isSecureHttpsCall);
+        }
+        catch (Throwable t) {
+            logger.warn("Unable to prewarm connections to a downstream host. prewarm_target={}", target, t);
+            result.complete(null);
+            return result;
+        }
+
+        poolFuture.addListener(poolLookupFuture -> {
+            if (!poolLookupFuture.isSuccess()) {
+                logger.warn(
+                    "Unable to prewarm connections to a downstream host. prewarm_target={}",
+                    target, poolLookupFuture.cause()
+                );
+                result.complete(null);
+                return;
+            }
+
+            prewarmPool(poolFuture.getNow(), target, null, host, port, isSecureHttpsCall, numConnections)
+                .whenComplete((ignored, error) -> result.complete(null));
+        });
+
+        return result;
+    }
+
+    /**
+     * Resolves all the addresses for the given prewarm target and opens the given number of connections in the
+     * per-IP-address pool for each of them (see {@link #getPooledChannelFuture(InetSocketAddress)}), since calls to
+     * the target are spread across all of those pools. The given result future is completed once all prewarming
+     * attempts have finished.
+     */
+    protected void prewarmEachAddressPool(@NotNull URI target,
+                                          @NotNull String host,
+                                          int port,
+                                          boolean isSecureHttpsCall,
+                                          int numConnections,
+                                          @NotNull CompletableFuture<Void> result) {
+        Future<List<InetSocketAddress>> addressesFuture;
+        try {
+            addressesFuture = downstreamAddressResolver.resolveAll(host, port);
+        }
+        catch (Throwable t) {
+            logger.warn("Unable to prewarm connections to a downstream host. prewarm_target={}", target, t);
+            result.complete(null);
+            return;
+        }
+
+        addressesFuture.addListener(resolveFuture -> {
+            if (!resolveFuture.isSuccess()) {
+                logger.warn(
+                    "Unable to prewarm connections to a downstream host. prewarm_target={}",
+                    target, resolveFuture.cause()
+                );
+                result.complete(null);
+                return;
+            }
 
-                // Do a subspan around the downstream call if desired.
-                if (performSubSpanAroundDownstreamCalls) {
-                    // TODO: The subspan start stuff should probably be moved to the beginning of
-                    //      streamDownstreamCall(), so that we pick up connection setup time (and can annotate conn
-                    //      start/finish). For now, we'll fake it by annotating conn start/finish time on the subspan
-                    //      at a negative time offset. So they'll be "in the past" from the perspective of the subspan.
-
-                    // Add the subspan.
-                    String spanName = getSubspanSpanName(
-                        initialRequestChunk,
-                        requestInfo,
-                        proxySpanTaggingStrategy
+            List<CompletableFuture<Void>> poolFutures = new ArrayList<>();
+            for (InetSocketAddress address : addressesFuture.getNow()) {
+                try {
+                    poolFutures.add(prewarmPool(
+                        getPooledChannelFuture(address), target, address, host, port, isSecureHttpsCall,
+                        numConnections
+                    ));
+                }
+                catch (Throwable t) {
+                    logger.warn(
+                        "Unable to prewarm connections to a downstream host. prewarm_target={}, "
+                        + "downstream_address={}",
+                        target, address, t
                     );
+                }
+            }
 
-                    // Start a new child/subspan for this call if possible, falling back to a new request span (rather
-                    //      than child/subspan) if there's no current span on the thread. The
-                    //      startSpanInCurrentContext() method will do the right thing here in either case.
-                    Span subspan = Tracer.getInstance().startSpanInCurrentContext(spanName, Span.SpanPurpose.CLIENT);
+            CompletableFuture
+                .allOf(poolFutures.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> result.complete(null));
+        });
+    }
 
-                    // Do the auto-tagging based on the request.
-                    proxySpanTaggingStrategy.handleRequestTagging(subspan, initialRequestChunk);
+    /**
+     * Opens the given number of connections in the given pool (see {@link #prewarmConnection(ChannelPool, String,
+     * int, boolean)}) and then releases them all back to it, logging the outcome.
+     *
+     * @param downstreamAddress The resolved address the pool connects to if it's a per-IP-address pool, or null
+     * otherwise. Only used for logging.
+     * @return A future that completes once all the connection attempts have finished. It is never completed
+     * exceptionally.
+     */
+    protected @NotNull CompletableFuture<Void> prewarmPool(@NotNull ChannelPool pool,
+                                                           @NotNull URI target,
+                                                           @Nullable InetSocketAddress downstreamAddress,
+                                                           @NotNull String host,
+                                                           int port,
+                                                           boolean isSecureHttpsCall,
+                                                           int numConnections) {
+        // All the connections are acquired before any of them are released, otherwise the pool would just keep
+        //      handing back the same connection.
+        List<CompletableFuture<Channel>> channelFutures = new ArrayList<>(numConnections);
+        for (int i = 0; i < numConnections; i++) {
+            channelFutures.add(prewarmConnection(pool, host, port, isSecureHttpsCall));
+        }
 
-                    // Manually add downstream host and port tags since they aren't done by the auto-tagging, and
-                    //      this is something we definitely want for proxy/router requests.
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        CompletableFuture
+            .allOf(channelFutures.toArray(new CompletableFuture[0]))
+            .whenComplete((ignored, error) -> {
+                int numWarmed = 0;
+                Throwable firstFailure = null;
+                for (CompletableFuture<Channel> channelFuture : channelFutures) {
                     try {
-                        subspan.putTag(KnownZipkinTags.HTTP_HOST, downstreamHost + ":" + downstreamPort);
+                        pool.release(channelFuture.join());
+                        numWarmed++;
                     }
                     catch (Throwable t) {
-                        logger.error(
-                            "An unexpected error occurred while adding downstream host and port tags. The error will "
-                            + "be swallowed to avoid doing any damage, but your span may be missing some expected "
-                            + "tags. This error should be fixed.",
-                            t
-                        );
-                    }
-
-                    // Add the initial HttpRequest to our ProxyRouterProcessingState so it's available for final
-                    //      response tagging and span naming at the end.
-                    proxyRouterProcessingState.setProxyHttpRequest(initialRequestChunk);
-
-                    // Add the connection start/finish annotations if desired. These will show up before the subspan
-                    //      start timestamp because the span is currently starting after the connection is established,
-                    //      which is wrong. But it's something we'll have to fix later. For now, at least the conn
-                    //      start/finish will be available (and correct), even if they show up oddly before the subspan
-                    //      start time.
-                    if (proxySpanTaggingStrategy.shouldAddConnStartAnnotation()) {
-                        subspan.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicrosWithNanoOffset(
-                            subspan.getSpanStartTimeEpochMicros(),
-                            -connectionSetupTimeNanos,
-                            proxySpanTaggingStrategy.connStartAnnotationName()
-                        ));
-                    }
-
-                    if (proxySpanTaggingStrategy.shouldAddConnFinishAnnotation()) {
-                        subspan.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(
-                            subspan.getSpanStartTimeEpochMicros(),
-                            proxySpanTaggingStrategy.connFinishAnnotationName()
-                        ));
+                        if (firstFailure == null) {
+                            firstFailure = t;
+                        }
                     }
                 }
 
-                Deque<Span> distributedSpanStackToUse = Tracer.getInstance().getCurrentSpanStackCopy();
-                Map<String, String> mdcContextToUse = MDC.getCopyOfContextMap();
-
-                @Nullable
-                final Span spanForDownstreamCall = (distributedSpanStackToUse == null)
-                                             ? null
-                                             : distributedSpanStackToUse.peek();
-
-                // Add distributed trace headers to the downstream call if desired and we have a current span.
-                if (addTracingHeadersToDownstreamCall && spanForDownstreamCall != null) {
-                    HttpRequestTracingUtils.propagateTracingHeaders(
-                        (headerKey, headerValue) -> {
-                            if (headerValue != null) {
-                                initialRequestChunk.headers().set(headerKey, headerValue);
-                            }
-                        },
-                        spanForDownstreamCall
+                if (firstFailure == null) {
+                    logger.info(
+                        "Prewarmed connections to a downstream host. prewarm_target={}, downstream_address={}, "
+                        + "num_connections={}",
+                        target, downstreamAddress, numWarmed
+                    );
+                }
+                else {
+                    logger.warn(
+                        "Unable to prewarm all connections to a downstream host. prewarm_target={}, "
+                        + "downstream_address={}, num_connections_requested={}, num_connections_warmed={}",
+                        target, downstreamAddress, numConnections, numWarmed, firstFailure
                     );
                 }
+                result.complete(null);
+            });
+        return result;
+    }
 
-                Channel ch = channelFuture.getNow();
-                if (logger.isDebugEnabled())
-                    logger.debug("Channel ID of the Channel pulled from the pool: {}", ch.toString());
+    /**
+     * Acquires a new connection from the given pool and, for https, finishes its TLS handshake. The returned future
+     * holds the connection (which the caller must release back to the pool), or is failed if the connection couldn't
+     * be made - in which case the connection has already been closed and released.
+     */
+    protected @NotNull CompletableFuture<Channel> prewarmConnection(ChannelPool pool,
+                                                                    String downstreamHost,
+                                                                    int downstreamPort,
+                                                                    boolean isSecureHttpsCall) {
+        CompletableFuture<Channel> result = new CompletableFuture<>();
+        Future<Channel> channelFuture;
+        try {
+            channelFuture = pool.acquire();
+        }
+        catch (Throwable t) {
+            result.completeExceptionally(t);
+            return result;
+        }
 
-                // We may not be in the right thread to modify the channel pipeline and write data. If we're in the
-                //      wrong thread we can get deadlock type situations. By running the relevant bits in the channel's
-                //      event loop we're guaranteed it will be run in the correct thread.
-                ch.eventLoop().execute(runnableWithTracingAndMdc(() -> {
-                    BiConsumer<String, Throwable> prepChannelErrorHandler = (errorMessage, cause) -> {
-                        try {
-                            streamingChannel.completeExceptionally(new WrapperException(errorMessage, cause));
+        channelFuture.addListener(acquireFuture -> {
+            if (!acquireFuture.isSuccess()) {
+                result.completeExceptionally(acquireFuture.cause());
+                return;
+            }
+
+            Channel ch = channelFuture.getNow();
+            if (!isSecureHttpsCall || ch instanceof Http2StreamChannel) {
+                // HTTP/2 streams ride on a connection that has already done its TLS handshake.
+                result.complete(ch);
+                return;
+            }
+
+            ch.eventLoop().execute(() -> {
+                try {
+                    // prepChannelForDownstreamCall() keeps an existing SslHandler (and therefore its TLS session) if
+                    //      it's for the same host/port, and expects it to come right after the call timeout handler.
+                    //      The call timeout handler here is a disabled placeholder that the first real call replaces.
+                    ChannelPipeline p = ch.pipeline();
+                    p.addLast(
+                        DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME,
+                        new DownstreamIdleChannelTimeoutHandler(
+                            0, () -> false, true, "StreamingAsyncHttpClientChannel-prewarm", null, null
+                        )
+                    );
+                    SslHandler sslHandler = newDownstreamSslHandler(ch, downstreamHost, downstreamPort, false);
+                    p.addAfter(DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME, SSL_HANDLER_NAME, sslHandler);
+                    sslHandler.handshakeFuture().addListener(handshakeFuture -> {
+                        if (handshakeFuture.isSuccess()) {
+                            result.complete(ch);
                         }
-                        finally {
-                            // This channel may be permanently busted depending on the error, so mark it broken and let
-                            //      the pool close it and clean it up.
+                        else {
                             markChannelAsBroken(ch);
+                            ch.close();
                             pool.release(ch);
+                            result.completeExceptionally(handshakeFuture.cause());
                         }
-                    };
-
-                    try {
-                        ObjectHolder<Boolean> callActiveHolder = new ObjectHolder<>();
-                        callActiveHolder.heldObject = true;
-                        ObjectHolder<Boolean> lastChunkSentDownstreamHolder = new ObjectHolder<>();
-                        lastChunkSentDownstreamHolder.heldObject = false;
-                        prepChannelForDownstreamCall(
-                            downstreamHost, downstreamPort, pool, ch, callback, distributedSpanStackToUse, mdcContextToUse, isSecureHttpsCall,
-                            relaxedHttpsValidation, performSubSpanAroundDownstreamCalls, downstreamCallTimeoutMillis,
-                            callActiveHolder, lastChunkSentDownstreamHolder, proxyRouterProcessingState,
-                            spanForDownstreamCall
-                        );
-
-                        logInitialRequestChunk(initialRequestChunk, downstreamHost, downstreamPort);
-
-                        // Send the HTTP request, and do a wire-send start annotation on the subspan if desired.
-                        if (
-                            spanForDownstreamCall != null
-                            && proxySpanTaggingStrategy.shouldAddWireSendStartAnnotation()
-                        ) {
-                            spanForDownstreamCall.addTimestampedAnnotationForCurrentTime(
-                                proxySpanTaggingStrategy.wireSendStartAnnotationName()
-                            );
-                        }
-
-                        ChannelFuture writeFuture = ch.writeAndFlush(initialRequestChunk);
-
-                        // After the initial chunk has been sent we'll open the floodgates
-                        //      for any further chunk streaming
-                        writeFuture.addListener(completedWriteFuture -> {
-                            if (completedWriteFuture.isSuccess())
-                                streamingChannel.complete(new StreamingChannel(
-                                    ch, pool, callActiveHolder, lastChunkSentDownstreamHolder,
-                                    distributedSpanStackToUse, mdcContextToUse, spanForDownstreamCall,
-                                    proxySpanTaggingStrategy
-                                ));
-                            else {
-                                prepChannelErrorHandler.accept(
-                                    "Writing the first HttpRequest chunk to the downstream service failed.",
-                                    completedWriteFuture.cause()
-                                );
-                                //noinspection UnnecessaryReturnStatement
-                                return;
-                            }
-                        });
-                    }
-                    catch (SSLException | NoSuchAlgorithmException | KeyStoreException ex) {
-                        prepChannelErrorHandler.accept("Error setting up SSL context for downstream call", ex);
-                        //noinspection UnnecessaryReturnStatement
-                        return;
-                    }
-                    catch (Throwable t) {
-                        // If we don't catch and handle this here it gets swallowed since we're in a Runnable
-                        prepChannelErrorHandler.accept(
-                            "An unexpected error occurred while prepping the channel pipeline for the downstream call",
-                            t
-                        );
-                        //noinspection UnnecessaryReturnStatement
-                        return;
-                    }
-                }, ctx));
-            }
-            catch (Throwable ex) {
-                try {
-                    String errorMsg = "Error occurred attempting to send first chunk (headers/etc) downstream";
-                    Exception errorToFire = new WrapperException(errorMsg, ex);
-                    logger.warn(errorMsg, errorToFire);
-                    streamingChannel.completeExceptionally(errorToFire);
+                    });
                 }
-                finally {
-                    Channel ch = channelFuture.getNow();
-                    if (ch != null) {
-                        // Depending on where the error was thrown the channel may or may not exist. If it does exist,
-                        //      then assume it's unusable, mark it as broken, and let the pool close it and remove it.
-                        markChannelAsBroken(ch);
-                        pool.release(ch);
-                    }
+                catch (Throwable t) {
+                    markChannelAsBroken(ch);
+                    ch.close();
+                    pool.release(ch);
+                    result.completeExceptionally(t);
                 }
-            }
-            finally {
-                // Unhook the tracing and MDC stuff from this thread now that we're done.
-                unlinkTracingAndMdcFromCurrentThread(originalThreadInfo);
-            }
+            });
         });
 
-        return streamingChannel;
+        return result;
+    }
+
+    /**
+     * Sets up flow control in both directions between the caller's channel and the given downstream channel (see
+     * {@link ProxyRouterProcessingState#setupBackpressure(Channel, Channel)}), so that neither side can pile up an
+     * unbounded amount of data in the other side's outbound buffer.
+     *
+     * @return The backpressure for the request body direction, or null if there's no caller channel to pause.
+     */
+    protected @Nullable ChannelBackpressure setupBackpressureForDownstreamCall(
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState,
+        @Nullable ChannelHandlerContext ctx,
+        @NotNull Channel downstreamChannel
+    ) {
+        Channel incomingChannel = (ctx == null) ? null : ctx.channel();
+        if (incomingChannel == null) {
+            return null;
+        }
+
+        proxyRouterProcessingState.setupBackpressure(incomingChannel, downstreamChannel);
+        return proxyRouterProcessingState.getRequestBodyBackpressure();
     }
 
     protected void prepChannelForDownstreamCall(
@@ -903,13 +2549,55 @@ public class StreamingAsyncHttpClient {
         @Nullable Span spanForDownstreamCall
     ) throws SSLException, NoSuchAlgorithmException, KeyStoreException {
 
+        ChannelBackpressure requestBodyBackpressure = (proxyRouterProcessingState == null)
+                                                      ? null
+                                                      : proxyRouterProcessingState.getRequestBodyBackpressure();
+
+        // Report how this call goes to the logical host's outlier detection (if any). Latency is measured up to the
+        //      response headers so it isn't skewed by the size of the response body.
+        DownstreamOutlierDetector outlierDetector = getOutlierDetector(pool);
+        // HTTP/2 calls get a fresh stream channel on a connection that's already set up (including TLS), so only the
+        //      per-call handlers are needed.
+        boolean isHttp2Stream = ch instanceof Http2StreamChannel;
+        long callStartTimeNanos = System.nanoTime();
+        ObjectHolder<Boolean> responseReceivedHolder = new ObjectHolder<>();
+        responseReceivedHolder.heldObject = false;
+        ObjectHolder<Long> responseBodyBytesReceivedHolder = new ObjectHolder<>();
+        responseBodyBytesReceivedHolder.heldObject = 0L;
+        // This call's own response, and whether its response is kept out of the shared proxyRouterProcessingState
+        //      (see StreamingCallback.isOutcomeIgnored(boolean)).
+        ObjectHolder<HttpResponse> responseHolder = new ObjectHolder<>();
+        ObjectHolder<Boolean> responseIgnoredHolder = new ObjectHolder<>();
+        responseIgnoredHolder.heldObject = false;
+
         ChannelHandler chunkSenderHandler = new SimpleChannelInboundHandler<HttpObject>() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext downstreamCallCtx) throws Exception {
+                // The downstream channel's outbound buffer crossed one of its water marks. If it drained enough then
+                //      we can start reading the request body from the caller again.
+                if (requestBodyBackpressure != null) {
+                    requestBodyBackpressure.resumeProducerIfConsumerWritable();
+                }
+
+                super.channelWritabilityChanged(downstreamCallCtx);
+            }
+
+
             @Override
             protected void channelRead0(ChannelHandlerContext downstreamCallCtx, HttpObject msg) {
                 try {
                     // Only do the distributed trace and callback work if the call is active. Messages that pop up after
                     //      the call is fully processed should not trigger the behavior a second time.
                     if (callActiveHolder.heldObject) {
+                        if (msg instanceof HttpResponse) {
+                            responseIgnoredHolder.heldObject = callback.isOutcomeIgnored(true);
+                        }
+
+                        if (msg instanceof HttpContent) {
+                            responseBodyBytesReceivedHolder.heldObject +=
+                                ((HttpContent) msg).content().readableBytes();
+                        }
+
                         if (msg instanceof LastHttpContent) {
                             lastChunkSentDownstreamHolder.heldObject = true;
 
@@ -919,9 +2607,20 @@ public class StreamingAsyncHttpClient {
                                     () -> {
                                         Span currentSpan = Tracer.getInstance().getCurrentSpan();
                                         if (proxyRouterProcessingState != null) {
-                                            proxyRouterProcessingState.handleTracingResponseTaggingAndFinalSpanNameIfNotAlreadyDone(
-                                                currentSpan
-                                            );
+                                            if (responseIgnoredHolder.heldObject) {
+                                                HttpResponse ownResponse = (msg instanceof HttpResponse)
+                                                                           ? (HttpResponse) msg
+                                                                           : responseHolder.heldObject;
+                                                handleSpanTaggingForIgnoredOutcome(
+                                                    currentSpan, proxyRouterProcessingState, ownResponse, null
+                                                );
+                                            }
+                                            else {
+                                                proxyRouterProcessingState
+                                                    .handleTracingResponseTaggingAndFinalSpanNameIfNotAlreadyDone(
+                                                        currentSpan
+                                                    );
+                                            }
                                         }
 
                                         if (proxySpanTaggingStrategy.shouldAddWireReceiveFinishAnnotation()) {
@@ -941,6 +2640,7 @@ public class StreamingAsyncHttpClient {
                         }
 
                         HttpObject msgToPass = msg;
+                        long spliceableResponseContentLength = -1;
                         if (msg instanceof HttpResponse) {
                             // We can't pass the original HttpResponse back to the callback due to intricacies of how
                             //      Netty handles determining the last chunk. If we do, and the callback ends up writing
@@ -948,6 +2648,14 @@ public class StreamingAsyncHttpClient {
                             //      msg's headers might get modified - potentially causing this channel pipeline to
                             //      never send a LastHttpContent, which will in turn cause an indefinite hang.
                             HttpResponse origHttpResponse = (HttpResponse) msg;
+                            responseReceivedHolder.heldObject = true;
+                            spliceableResponseContentLength = ProxyBodySplicer.spliceableContentLength(origHttpResponse);
+                            if (outlierDetector != null) {
+                                outlierDetector.recordResponse(
+                                    ch.remoteAddress(), origHttpResponse.status().code(),
+                                    System.nanoTime() - callStartTimeNanos
+                                );
+                            }
 
                             HttpResponse httpResponse =
                                 (msg instanceof FullHttpResponse)
@@ -958,9 +2666,14 @@ public class StreamingAsyncHttpClient {
                                                         : new DefaultHttpResponse(origHttpResponse.protocolVersion(),
                                                                                   origHttpResponse.status());
                             httpResponse.headers().add(origHttpResponse.headers());
+                            if (isHttp2Stream) {
+                                // The HTTP/2 codec adds this for its own bookkeeping - it's not a real response header.
+                                httpResponse.headers().remove(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
+                            }
                             msgToPass = httpResponse;
+                            responseHolder.heldObject = httpResponse;
 
-                            if (proxyRouterProcessingState != null) {
+                            if (proxyRouterProcessingState != null && !responseIgnoredHolder.heldObject) {
                                 proxyRouterProcessingState.setProxyHttpResponse(httpResponse);
                             }
 
@@ -975,6 +2688,22 @@ public class StreamingAsyncHttpClient {
                         }
 
                         callback.messageReceived(msgToPass);
+
+                        Channel spliceIncomingChannel = (proxyRouterProcessingState == null)
+                                                        ? null
+                                                        : proxyRouterProcessingState.getSplicePassthroughIncomingChannel();
+                        if (spliceableResponseContentLength > 0 && spliceIncomingChannel != null) {
+                            // Whatever's left of the bytes the codec is decoding right now has to go through the
+                            //      pipeline as usual, so wait for that to finish before trying to splice the rest.
+                            long contentLength = spliceableResponseContentLength;
+                            ch.eventLoop().execute(runnableWithTracingAndMdc(
+                                () -> spliceResponseBodyIfPossible(
+                                    ch, spliceIncomingChannel, contentLength, responseBodyBytesReceivedHolder,
+                                    callActiveHolder, lastChunkSentDownstreamHolder, proxyRouterProcessingState
+                                ),
+                                distributedSpanStackToUse, mdcContextToUse
+                            ));
+                        }
                     }
                     else {
                         if (shouldLogBadMessagesAfterRequestFinishes) {
@@ -1005,15 +2734,23 @@ public class StreamingAsyncHttpClient {
                 // Only do the distributed trace and callback work if the call is active. Errors that pop up after the
                 //      call is fully processed should not trigger the behavior a second time.
                 if (callActiveHolder.heldObject) {
-                    if (proxyRouterProcessingState != null) {
+                    // Losing retry/hedge attempts share the proxyRouterProcessingState with the attempt that's
+                    //      actually used, so they must not overwrite its outcome.
+                    boolean outcomeIgnored = callback.isOutcomeIgnored(false);
+                    if (proxyRouterProcessingState != null && !outcomeIgnored) {
                         proxyRouterProcessingState.setProxyError(cause);
                     }
 
+                    if (outlierDetector != null && !responseReceivedHolder.heldObject && !callback.isCallAbandoned()) {
+                        // The downstream address failed us before it sent a response.
+                        outlierDetector.recordFailure(ch.remoteAddress());
+                    }
+
                     if (performSubSpanAroundDownstreamCalls) {
                         Span currentSpan = Tracer.getInstance().getCurrentSpan();
 
-                        HttpResponse proxyHttpResponseObj = (proxyRouterProcessingState == null)
-                                                            ? null
+                        HttpResponse proxyHttpResponseObj = (proxyRouterProcessingState == null || outcomeIgnored)
+                                                            ? responseHolder.heldObject
                                                             : proxyRouterProcessingState.getProxyHttpResponse();
                         if (
                             currentSpan != null
@@ -1026,9 +2763,16 @@ public class StreamingAsyncHttpClient {
                         }
 
                         if (proxyRouterProcessingState != null) {
-                            proxyRouterProcessingState.handleTracingResponseTaggingAndFinalSpanNameIfNotAlreadyDone(
-                                currentSpan
-                            );
+                            if (outcomeIgnored) {
+                                handleSpanTaggingForIgnoredOutcome(
+                                    currentSpan, proxyRouterProcessingState, responseHolder.heldObject, cause
+                                );
+                            }
+                            else {
+                                proxyRouterProcessingState.handleTracingResponseTaggingAndFinalSpanNameIfNotAlreadyDone(
+                                    currentSpan
+                                );
+                            }
                         }
 
                         if (distributedSpanStackToUse == null || distributedSpanStackToUse.size() < 2)
@@ -1143,7 +2887,14 @@ public class StreamingAsyncHttpClient {
             DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME, p, registeredHandlerNames
         );
 
-        if (isSecureHttpsCall) {
+        if (isHttp2Stream) {
+            // Translates between the HTTP/2 frames for this stream and the HttpObjects the rest of the pipeline (and
+            //      the callback) deal with.
+            addOrReplacePipelineHandler(
+                new Http2StreamFrameToHttpObjectCodec(false), HTTP2_STREAM_CODEC_HANDLER_NAME, p, registeredHandlerNames
+            );
+        }
+        else if (isSecureHttpsCall) {
             // Check and see if there's already an existing SslHandler in the pipeline. If it's pointed at the same
             //      host/port we need for this call, then we can leave it alone and don't need to create a new one.
             boolean requiresNewSslHandler = true;
@@ -1165,36 +2916,10 @@ public class StreamingAsyncHttpClient {
             }
 
             if (requiresNewSslHandler) {
-                // SSL call and we need to add a SslHandler. Create the general-purpose reusable SslContexts if needed.
-                if (clientSslCtx == null) {
-                    TrustManagerFactory tmf = TrustManagerFactory.getInstance(
-                        TrustManagerFactory.getDefaultAlgorithm()
-                    );
-                    tmf.init((KeyStore) null);
-
-                    clientSslCtx = SslContextBuilder
-                        .forClient()
-                        .trustManager(tmf)
-                        .build();
-                }
-
-                if (insecureSslCtx == null) {
-                    insecureSslCtx = SslContextBuilder
-                        .forClient()
-                        .trustManager(InsecureTrustManagerFactory.INSTANCE)
-                        .build();
-                }
-
-                // Figure out which SslContext to use for this call.
-                SslContext sslCtxToUse = (relaxedHttpsValidation) ? insecureSslCtx : clientSslCtx;
-
-                // Create the SslHandler and configure the SslEngine
-                // as per the javadocs for SslContext.newHandler(ByteBufAllocator, String, int).
-                SslHandler sslHandler = sslCtxToUse.newHandler(ch.alloc(), downstreamHost, downstreamPort);
-                SSLEngine sslEngine = sslHandler.engine();
-                SSLParameters sslParameters = sslEngine.getSSLParameters();
-                sslParameters.setEndpointIdentificationAlgorithm(HTTPS);
-                sslEngine.setSSLParameters(sslParameters);
+                // SSL call and we need to add a SslHandler.
+                SslHandler sslHandler = newDownstreamSslHandler(
+                    ch, downstreamHost, downstreamPort, relaxedHttpsValidation
+                );
                 // Add the SslHandler to the pipeline in the correct location.
                 p.addAfter(DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME, SSL_HANDLER_NAME, sslHandler);
             }
@@ -1241,8 +2966,9 @@ public class StreamingAsyncHttpClient {
         }
 
         // Add the HttpClientCodec if it wasn't already there (i.e. this is the first call on this pipeline),
-        //      or replace it if it was in a bad state.
-        if (!pipelineContainsHttpClientCodec || existingHttpClientCodecIsInBadState) {
+        //      or replace it if it was in a bad state. HTTP/2 streams never have one since they use the HTTP/2 stream
+        //      codec instead.
+        if (!isHttp2Stream && (!pipelineContainsHttpClientCodec || existingHttpClientCodecIsInBadState)) {
             addOrReplacePipelineHandler(
                 new HttpClientCodec(4096, 8192, 8192, true), HTTP_CLIENT_CODEC_HANDLER_NAME, p, registeredHandlerNames
             );
@@ -1298,6 +3024,101 @@ public class StreamingAsyncHttpClient {
         }
     }
 
+    /**
+     * Creates a new {@link SslHandler} for a downstream call to the given host and port, creating the general-purpose
+     * reusable {@link SslContext}s first if needed.
+     */
+    protected SslHandler newDownstreamSslHandler(Channel ch,
+                                                 String downstreamHost,
+                                                 int downstreamPort,
+                                                 boolean relaxedHttpsValidation)
+        throws SSLException, NoSuchAlgorithmException, KeyStoreException {
+
+        if (clientSslCtx == null) {
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+                TrustManagerFactory.getDefaultAlgorithm()
+            );
+            tmf.init((KeyStore) null);
+
+            clientSslCtx = SslContextBuilder
+                .forClient()
+                .trustManager(tmf)
+                .build();
+        }
+
+        if (insecureSslCtx == null) {
+            insecureSslCtx = SslContextBuilder
+                .forClient()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+        }
+
+        // Figure out which SslContext to use for this call.
+        SslContext sslCtxToUse = (relaxedHttpsValidation) ? insecureSslCtx : clientSslCtx;
+
+        return newSslHandlerWithHostnameVerification(sslCtxToUse, ch, downstreamHost, downstreamPort);
+    }
+
+    /**
+     * Creates a new {@link SslHandler} for an HTTP/2 connection to the given host and port. Same as {@link
+     * #newDownstreamSslHandler(Channel, String, int, boolean)}, except the {@link SslContext}s offer {@code h2} (and
+     * {@code http/1.1}) via ALPN and are restricted to the ciphers HTTP/2 allows.
+     */
+    protected SslHandler newDownstreamHttp2SslHandler(Channel ch,
+                                                      String downstreamHost,
+                                                      int downstreamPort,
+                                                      boolean relaxedHttpsValidation)
+        throws SSLException, NoSuchAlgorithmException, KeyStoreException {
+
+        if (http2ClientSslCtx == null) {
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+                TrustManagerFactory.getDefaultAlgorithm()
+            );
+            tmf.init((KeyStore) null);
+
+            http2ClientSslCtx = newHttp2SslContextBuilder()
+                .trustManager(tmf)
+                .build();
+        }
+
+        if (http2InsecureSslCtx == null) {
+            http2InsecureSslCtx = newHttp2SslContextBuilder()
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+        }
+
+        SslContext sslCtxToUse = (relaxedHttpsValidation) ? http2InsecureSslCtx : http2ClientSslCtx;
+
+        return newSslHandlerWithHostnameVerification(sslCtxToUse, ch, downstreamHost, downstreamPort);
+    }
+
+    protected SslContextBuilder newHttp2SslContextBuilder() {
+        return SslContextBuilder
+            .forClient()
+            .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+            .applicationProtocolConfig(new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_2,
+                ApplicationProtocolNames.HTTP_1_1
+            ));
+    }
+
+    protected SslHandler newSslHandlerWithHostnameVerification(SslContext sslCtx,
+                                                              Channel ch,
+                                                              String downstreamHost,
+                                                              int downstreamPort) {
+        // Create the SslHandler and configure the SslEngine
+        // as per the javadocs for SslContext.newHandler(ByteBufAllocator, String, int).
+        SslHandler sslHandler = sslCtx.newHandler(ch.alloc(), downstreamHost, downstreamPort);
+        SSLEngine sslEngine = sslHandler.engine();
+        SSLParameters sslParameters = sslEngine.getSSLParameters();
+        sslParameters.setEndpointIdentificationAlgorithm(HTTPS);
+        sslEngine.setSSLParameters(sslParameters);
+        return sslHandler;
+    }
+
     protected static int determineHttpClientCodecInboundState(HttpClientCodec currentCodec) {
         try {
             HttpObjectDecoder decoder = (HttpObjectDecoder) httpClientCodecInboundHandlerField.get(currentCodec);
@@ -1357,6 +3178,103 @@ public class StreamingAsyncHttpClient {
             p.addLast(handlerName, handler);
     }
 
+    /**
+     * Splices the rest of the downstream response body straight to the caller's channel if it's still possible, i.e.
+     * the call is still active and hasn't received the whole body yet, the two channels can still splice between each
+     * other, the request has been completely sent, and the response headers that were sent to the caller have the same
+     * {@code Content-Length} as the downstream response (so nothing in the caller's pipeline is transforming the body).
+     * Otherwise this does nothing and the body keeps streaming through the pipeline as usual.
+     *
+     * <p>The {@link HttpClientCodec} is replaced with a fresh one before splicing, since the existing one would still
+     * be waiting for the spliced bytes. Once the body has been spliced an empty {@link LastHttpContent} is sent through
+     * the rest of the pipeline so the call finishes normally. If the splice fails the error goes through the pipeline's
+     * usual error handling, which closes the caller's channel since part of the response has already been sent.
+     */
+    protected void spliceResponseBodyIfPossible(Channel ch,
+                                                Channel incomingChannel,
+                                                long contentLength,
+                                                ObjectHolder<Long> responseBodyBytesReceivedHolder,
+                                                ObjectHolder<Boolean> callActiveHolder,
+                                                ObjectHolder<Boolean> lastChunkReceivedHolder,
+                                                ProxyRouterProcessingState proxyRouterProcessingState) {
+        if (!callActiveHolder.heldObject || lastChunkReceivedHolder.heldObject) {
+            return;
+        }
+
+        if (!ProxyBodySplicer.canSpliceBetween(ch, incomingChannel)) {
+            return;
+        }
+
+        HttpClientCodec currentCodec = (HttpClientCodec) ch.pipeline().get(HTTP_CLIENT_CODEC_HANDLER_NAME);
+        if (currentCodec == null || determineHttpClientCodecOutboundState(currentCodec) != 0) {
+            // The request is still being sent.
+            return;
+        }
+
+        HttpProcessingState incomingState =
+            incomingChannel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).get();
+        HttpResponse responseSentToCaller = (incomingState == null) ? null : incomingState.getActualResponseObject();
+        if (
+            responseSentToCaller == null
+            || ProxyBodySplicer.spliceableContentLength(responseSentToCaller) != contentLength
+        ) {
+            return;
+        }
+
+        long remainingBytes = contentLength - responseBodyBytesReceivedHolder.heldObject;
+        if (remainingBytes <= 0) {
+            return;
+        }
+
+        ch.pipeline().replace(
+            HTTP_CLIENT_CODEC_HANDLER_NAME, HTTP_CLIENT_CODEC_HANDLER_NAME, new HttpClientCodec(4096, 8192, 8192, true)
+        );
+
+        // The splice paces itself, so the usual backpressure would only get in the way.
+        ChannelBackpressure responseBodyBackpressure = proxyRouterProcessingState.getResponseBodyBackpressure();
+        if (responseBodyBackpressure != null) {
+            responseBodyBackpressure.close();
+        }
+
+        Future<Void> spliceFuture =
+            ProxyBodySplicer.splice(ch, incomingChannel, remainingBytes, spliceProgressRecorder(ch));
+        spliceFuture.addListener(done -> {
+            if (!spliceFuture.isSuccess()) {
+                ch.pipeline().fireExceptionCaught(spliceFuture.cause());
+                return;
+            }
+
+            // The caller's pipeline never saw the spliced bytes, so they have to be added to the final content length
+            //      for the access logs and metrics.
+            ResponseInfo<?> responseInfo = incomingState.getResponseInfo();
+            if (responseInfo != null) {
+                Long finalContentLength = responseInfo.getFinalContentLength();
+                responseInfo.setFinalContentLength(
+                    ((finalContentLength == null) ? 0 : finalContentLength) + remainingBytes
+                );
+            }
+
+            ChannelHandlerContext codecCtx = ch.pipeline().context(HTTP_CLIENT_CODEC_HANDLER_NAME);
+            if (codecCtx != null) {
+                codecCtx.fireChannelRead(LastHttpContent.EMPTY_LAST_CONTENT);
+            }
+        });
+    }
+
+    /**
+     * @return A progress callback for {@link ProxyBodySplicer#splice(Channel, Channel, long, Runnable)} that keeps the
+     * given downstream channel's call timeout handler from timing out while body bytes are being spliced past it, or
+     * null if the channel has no call timeout handler.
+     */
+    protected static @Nullable Runnable spliceProgressRecorder(Channel downstreamChannel) {
+        ChannelHandler callTimeoutHandler = downstreamChannel.pipeline().get(DOWNSTREAM_CALL_TIMEOUT_HANDLER_NAME);
+        if (!(callTimeoutHandler instanceof DownstreamIdleChannelTimeoutHandler)) {
+            return null;
+        }
+
+        return ((DownstreamIdleChannelTimeoutHandler) callTimeoutHandler)::recordActivityOutsidePipeline;
+    }
+
     protected static void releaseChannelBackToPoolIfCallIsActive(Channel ch, ChannelPool pool,
                                                                  ObjectHolder<Boolean> callActiveHolder,
                                                                  String contextReason,
@@ -1378,6 +3296,35 @@ public class StreamingAsyncHttpClient {
         }
     }
 
+    /**
+     * Does the final response tagging and naming of the span around a downstream call whose outcome is kept out of
+     * the shared {@link ProxyRouterProcessingState} (see {@link StreamingCallback#isOutcomeIgnored(boolean)}). The
+     * span is tagged with that call's own response or error rather than the shared state's, and the shared state's
+     * {@link ProxyRouterProcessingState#handleTracingResponseTaggingAndFinalSpanNameIfNotAlreadyDone(Span)} is left
+     * for the call whose outcome is actually used.
+     *
+     * @param spanAroundDownstreamCall The span around the downstream call - may be null, in which case nothing is done.
+     * @param proxyRouterProcessingState The shared state for the overall request.
+     * @param downstreamResponse The downstream call's own response, or null if it didn't get one.
+     * @param downstreamError The error that ended the downstream call, or null if it didn't fail.
+     */
+    protected void handleSpanTaggingForIgnoredOutcome(
+        @Nullable Span spanAroundDownstreamCall,
+        @NotNull ProxyRouterProcessingState proxyRouterProcessingState,
+        @Nullable HttpResponse downstreamResponse,
+        @Nullable Throwable downstreamError
+    ) {
+        if (spanAroundDownstreamCall == null) {
+            return;
+        }
+
+        // The strategy catches and logs any errors itself.
+        proxySpanTaggingStrategy.handleResponseTaggingAndFinalSpanName(
+            spanAroundDownstreamCall, proxyRouterProcessingState.getProxyHttpRequest(), downstreamResponse,
+            downstreamError
+        );
+    }
+
     /**
      * Returns the name that should be used for the span surrounding the downstream call. Defaults to {@link
      * ProxyRouterSpanNamingAndTaggingStrategy#getInitialSpanNameOverride(HttpRequest, RequestInfo, String, String)}
@@ -1438,6 +3385,182 @@ public class StreamingAsyncHttpClient {
         }
     }
 
+    /**
+     * The key for the per-logical-host pools used when {@link
+     * ProxyRouterConnectionPoolConfig#isPoolPerLogicalHostEnabled()} is true.
+     */
+    protected static class LogicalHostPoolKey {
+
+        protected final @NotNull String host;
+        protected final int port;
+        protected final boolean secure;
+
+        public LogicalHostPoolKey(@NotNull String host, int port, boolean secure) {
+            this.host = host;
+            this.port = port;
+            this.secure = secure;
+        }
+
+        public @NotNull String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public boolean isSecure() {
+            return secure;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            LogicalHostPoolKey that = (LogicalHostPoolKey) o;
+            return port == that.port
+                   && secure == that.secure
+                   && host.equals(that.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, secure);
+        }
+
+        /**
+         * @return The key in {@code scheme-host:port} form - this is also used as the pool's name for metrics.
+         */
+        @Override
+        public String toString() {
+            return ((secure) ? "https-" : "http-") + host + ":" + port;
+        }
+    }
+
+    /**
+     * The key for the HTTP/2 pools used when {@link ProxyRouterHttp2Config#isEnabled()} is true. HTTP/2 connections are
+     * shared by every call to the host, so calls with relaxed HTTPS validation get their own pool rather than sharing
+     * a connection whose certificate was (or wasn't) validated for someone else.
+     */
+    protected static class Http2PoolKey extends LogicalHostPoolKey {
+
+        protected final boolean relaxedHttpsValidation;
+
+        public Http2PoolKey(@NotNull String host, int port, boolean secure, boolean relaxedHttpsValidation) {
+            super(host, port, secure);
+            this.relaxedHttpsValidation = relaxedHttpsValidation;
+        }
+
+        public boolean isRelaxedHttpsValidation() {
+            return relaxedHttpsValidation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return super.equals(o) && relaxedHttpsValidation == ((Http2PoolKey) o).relaxedHttpsValidation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, secure, relaxedHttpsValidation);
+        }
+
+        /**
+         * @return The key in {@code h2-host:port} form ({@code h2c} for cleartext, with a {@code -relaxed} suffix for
+         * relaxed HTTPS validation) - this is also used as the pool's name for metrics.
+         */
+        @Override
+        public String toString() {
+            return ((secure) ? "h2-" : "h2c-") + host + ":" + port + ((relaxedHttpsValidation) ? "-relaxed" : "");
+        }
+    }
+
+    /**
+     * The key for the per-event-loop pools (see {@link #getEventLoopPoolMap()}).
+     */
+    protected static class EventLoopPoolKey {
+
+        protected final @NotNull EventLoop eventLoop;
+        protected final @NotNull InetSocketAddress downstreamAddress;
+        protected final @NotNull Class<? extends SocketChannel> channelClass;
+
+        public EventLoopPoolKey(@NotNull EventLoop eventLoop,
+                                @NotNull InetSocketAddress downstreamAddress,
+                                @NotNull Class<? extends SocketChannel> channelClass) {
+            this.eventLoop = eventLoop;
+            this.downstreamAddress = downstreamAddress;
+            this.channelClass = channelClass;
+        }
+
+        public @NotNull EventLoop getEventLoop() {
+            return eventLoop;
+        }
+
+        public @NotNull InetSocketAddress getDownstreamAddress() {
+            return downstreamAddress;
+        }
+
+        public @NotNull Class<? extends SocketChannel> getChannelClass() {
+            return channelClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            EventLoopPoolKey that = (EventLoopPoolKey) o;
+            return eventLoop == that.eventLoop
+                   && downstreamAddress.equals(that.downstreamAddress)
+                   && channelClass.equals(that.channelClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(eventLoop), downstreamAddress, channelClass);
+        }
+
+        /**
+         * @return The key in {@code ip:port@eventLoopIndex} form, where the index is the event loop's position in its
+         * {@link EventLoopGroup} so the name is the same from one run of the server to the next - this is also used as
+         * the pool's name for metrics. If the event loop's position can't be determined then it's just {@code
+         * ip:port}.
+         */
+        @Override
+        public String toString() {
+            String poolName = DownstreamChannelPoolStats.poolNameFor(downstreamAddress);
+            int eventLoopIndex = eventLoopIndex(eventLoop);
+            return (eventLoopIndex < 0) ? poolName : poolName + "@" + eventLoopIndex;
+        }
+
+        /**
+         * @return The position of the given event loop in its parent {@link EventLoopGroup}, or -1 if it doesn't have a
+         * parent or isn't one of its parent's event loops.
+         */
+        protected static int eventLoopIndex(@NotNull EventLoop eventLoop) {
+            EventLoopGroup parent = eventLoop.parent();
+            if (parent == null) {
+                return -1;
+            }
+
+            int index = 0;
+            for (EventExecutor executor : parent) {
+                if (executor == eventLoop) {
+                    return index;
+                }
+                index++;
+            }
+            return -1;
+        }
+    }
+
     protected static class ObjectHolder<T> {
         public T heldObject;
     }
@@ -47,6 +47,8 @@ public class DownstreamIdleChannelTimeoutHandler extends IdleStateHandler {
     private final Map<String, String> mdcInfoForLogging;
 
     private boolean disabled = false;
+    private volatile long lastActivityOutsidePipelineNanos = 0;
+    private volatile boolean activityOutsidePipelineRecorded = false;
 
     /**
      * @param idleTimeoutMillis
@@ -80,7 +82,7 @@ public class DownstreamIdleChannelTimeoutHandler extends IdleStateHandler {
 
     @Override
     protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
-        if (!disabled && shouldKillIdleChannelNowSupplier.get()) {
+        if (!disabled && !hadRecentActivityOutsidePipeline() && shouldKillIdleChannelNowSupplier.get()) {
             String reason = (isActiveDownstreamCallTimer)
                             ? "Throwing call timeout error because the active downstream call took longer than the "
                               + "allowed timeout value."
@@ -107,4 +109,20 @@ public class DownstreamIdleChannelTimeoutHandler extends IdleStateHandler {
         this.disabled = true;
     }
 
+    /**
+     * Call this method to tell this handler that the channel did some work that didn't go through its pipeline (e.g.
+     * proxied body bytes that were spliced directly between sockets - see {@code ProxyBodySplicer}). The channel won't
+     * be considered idle until {@code idleTimeoutMillis} has passed since the last call to this method.
+     */
+    public void recordActivityOutsidePipeline() {
+        this.lastActivityOutsidePipelineNanos = System.nanoTime();
+        this.activityOutsidePipelineRecorded = true;
+    }
+
+    protected boolean hadRecentActivityOutsidePipeline() {
+        return activityOutsidePipelineRecorded
+               && (System.nanoTime() - lastActivityOutsidePipelineNanos)
+                  < TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    }
+
 }
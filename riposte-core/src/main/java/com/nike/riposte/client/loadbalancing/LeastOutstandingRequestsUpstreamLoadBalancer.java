@@ -0,0 +1,35 @@
+package com.nike.riposte.client.loadbalancing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An {@link UpstreamLoadBalancer} that picks the target with the fewest calls currently outstanding (see {@link
+ * UpstreamTarget#getNumOutstandingRequests()}). A slow target builds up outstanding calls and stops getting new ones
+ * until it catches up. Ties are broken by starting the scan at a random target, so idle targets share the load evenly
+ * rather than the first one in the list getting everything.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LeastOutstandingRequestsUpstreamLoadBalancer implements UpstreamLoadBalancer {
+
+    @Override
+    public @NotNull UpstreamTarget choose(@NotNull List<UpstreamTarget> targets) {
+        int numTargets = targets.size();
+        int startIndex = (numTargets == 1) ? 0 : ThreadLocalRandom.current().nextInt(numTargets);
+
+        UpstreamTarget best = targets.get(startIndex);
+        int bestOutstanding = best.getNumOutstandingRequests();
+        for (int i = 1; i < numTargets && bestOutstanding > 0; i++) {
+            UpstreamTarget candidate = targets.get((startIndex + i) % numTargets);
+            int candidateOutstanding = candidate.getNumOutstandingRequests();
+            if (candidateOutstanding < bestOutstanding) {
+                best = candidate;
+                bestOutstanding = candidateOutstanding;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,82 @@
+package com.nike.riposte.client.loadbalancing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An {@link UpstreamLoadBalancer} that picks two different targets at random and uses whichever one has the lower
+ * cost, where the cost is the target's EWMA latency weighted by the number of calls it has outstanding (see {@link
+ * #calculateCost(UpstreamTarget, double)}). This moves traffic away from slow targets as soon as their latency goes up,
+ * without waiting for a circuit breaker to trip, while the random sampling keeps every target getting some traffic so
+ * a recovered target is noticed and brought back. It also avoids the herding you get when every caller sends its next
+ * call to the same "best" target.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PowerOfTwoChoicesUpstreamLoadBalancer implements UpstreamLoadBalancer {
+
+    /**
+     * The lowest latency that's assumed for a target with no latency samples yet, so its outstanding calls still count
+     * against it even when none of the targets have been sampled.
+     */
+    public static final double MIN_UNSAMPLED_LATENCY_NANOS = 1;
+
+    @Override
+    public @NotNull UpstreamTarget choose(@NotNull List<UpstreamTarget> targets) {
+        int numTargets = targets.size();
+        if (numTargets == 1) {
+            return targets.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstIndex = random.nextInt(numTargets);
+        // Pick from the other (numTargets - 1) targets so the two choices are never the same target.
+        int secondIndex = (firstIndex + 1 + random.nextInt(numTargets - 1)) % numTargets;
+
+        UpstreamTarget first = targets.get(firstIndex);
+        UpstreamTarget second = targets.get(secondIndex);
+
+        double unsampledLatencyNanos = (first.getNumLatencySamples() == 0 || second.getNumLatencySamples() == 0)
+                                       ? calculateUnsampledLatencyNanos(targets)
+                                       : MIN_UNSAMPLED_LATENCY_NANOS;
+
+        return (calculateCost(second, unsampledLatencyNanos) < calculateCost(first, unsampledLatencyNanos))
+               ? second
+               : first;
+    }
+
+    /**
+     * @return The cost of sending the next call to the given target - its EWMA latency multiplied by the number of
+     * calls that would be outstanding against it. Targets with no latency samples yet use the given {@code
+     * unsampledLatencyNanos} instead of their EWMA, so they're treated like an average target and a new target that's
+     * hanging on its first calls is still penalized for them.
+     */
+    protected double calculateCost(@NotNull UpstreamTarget target, double unsampledLatencyNanos) {
+        double latencyNanos = (target.getNumLatencySamples() == 0)
+                              ? unsampledLatencyNanos
+                              : target.getEwmaLatencyNanos();
+        return latencyNanos * (target.getNumOutstandingRequests() + 1);
+    }
+
+    /**
+     * @return The latency to assume for targets with no latency samples yet - the mean EWMA latency of the targets
+     * that do have samples, but never less than {@link #MIN_UNSAMPLED_LATENCY_NANOS}.
+     */
+    protected double calculateUnsampledLatencyNanos(@NotNull List<UpstreamTarget> targets) {
+        double totalLatencyNanos = 0;
+        int numSampledTargets = 0;
+        for (UpstreamTarget target : targets) {
+            if (target.getNumLatencySamples() > 0) {
+                totalLatencyNanos += target.getEwmaLatencyNanos();
+                numSampledTargets++;
+            }
+        }
+
+        if (numSampledTargets == 0) {
+            return MIN_UNSAMPLED_LATENCY_NANOS;
+        }
+
+        return Math.max(totalLatencyNanos / numSampledTargets, MIN_UNSAMPLED_LATENCY_NANOS);
+    }
+}
@@ -0,0 +1,22 @@
+package com.nike.riposte.client.loadbalancing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link UpstreamLoadBalancer} that cycles through the targets in order, ignoring their stats. Cheap and
+ * predictable, but keeps sending its share of calls to a slow target.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RoundRobinUpstreamLoadBalancer implements UpstreamLoadBalancer {
+
+    protected final AtomicInteger counter = new AtomicInteger(0);
+
+    @Override
+    public @NotNull UpstreamTarget choose(@NotNull List<UpstreamTarget> targets) {
+        // floorMod keeps this correct after the counter overflows and goes negative.
+        return targets.get(Math.floorMod(counter.getAndIncrement(), targets.size()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.nike.riposte.client.loadbalancing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of interchangeable {@link UpstreamTarget}s (e.g. the instances of a downstream service) and the {@link
+ * UpstreamLoadBalancer} that decides which of them each call goes to. A {@code ProxyRouterEndpoint} can hand one of
+ * these to {@code ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo} instead of a single host and port - the target is
+ * picked when the first chunk info is created, and the proxy router handler reports the call's latency and outcome
+ * back to the target when the downstream call finishes so latency-aware balancers can react to it.
+ *
+ * <p>Create one instance per downstream service and reuse it for every call, since the target stats it balances on
+ * are built up across calls.
+ */
+@SuppressWarnings("WeakerAccess")
+public class UpstreamCluster {
+
+    protected final @NotNull List<UpstreamTarget> targets;
+    protected final boolean isHttps;
+    protected final @NotNull UpstreamLoadBalancer loadBalancer;
+
+    /**
+     * @param targets The targets in this cluster. Cannot be null or empty.
+     * @param isHttps True if calls to this cluster should use HTTPS, false if they should use HTTP.
+     * @param loadBalancer The load balancer that picks a target for each call. Cannot be null.
+     */
+    public UpstreamCluster(
+        @NotNull List<UpstreamTarget> targets,
+        boolean isHttps,
+        @NotNull UpstreamLoadBalancer loadBalancer
+    ) {
+        //noinspection ConstantConditions
+        if (targets == null || targets.isEmpty())
+            throw new IllegalArgumentException("targets cannot be null or empty");
+
+        if (targets.contains(null))
+            throw new IllegalArgumentException("targets cannot contain null");
+
+        //noinspection ConstantConditions
+        if (loadBalancer == null)
+            throw new IllegalArgumentException("loadBalancer cannot be null");
+
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+        this.isHttps = isHttps;
+        this.loadBalancer = loadBalancer;
+    }
+
+    /**
+     * Picks the target for a new call using {@link #getLoadBalancer()}, and counts the call as outstanding against it
+     * (see {@link UpstreamTarget#callStarted()}). The caller is responsible for eventually calling {@link
+     * UpstreamTarget#callFinished(long, boolean)} or {@link UpstreamTarget#callCancelled()} on the returned target.
+     *
+     * @return The target the new call should go to.
+     */
+    public @NotNull UpstreamTarget chooseTarget() {
+        UpstreamTarget target = loadBalancer.choose(targets);
+        target.callStarted();
+        return target;
+    }
+
+    /**
+     * @return The (unmodifiable) list of targets in this cluster.
+     */
+    public @NotNull List<UpstreamTarget> getTargets() {
+        return targets;
+    }
+
+    public boolean isHttps() {
+        return isHttps;
+    }
+
+    public @NotNull UpstreamLoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+}
@@ -0,0 +1,24 @@
+package com.nike.riposte.client.loadbalancing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Picks which {@link UpstreamTarget} in an {@link UpstreamCluster} a call should go to. Implementations must be thread
+ * safe since a single instance is shared by every call made through its cluster.
+ *
+ * @see RoundRobinUpstreamLoadBalancer
+ * @see LeastOutstandingRequestsUpstreamLoadBalancer
+ * @see PowerOfTwoChoicesUpstreamLoadBalancer
+ */
+@FunctionalInterface
+public interface UpstreamLoadBalancer {
+
+    /**
+     * @param targets The targets to choose from. Will never be null or empty.
+     * @return The target the next call should go to. Must be one of the given targets.
+     */
+    @NotNull UpstreamTarget choose(@NotNull List<UpstreamTarget> targets);
+
+}
@@ -0,0 +1,145 @@
+package com.nike.riposte.client.loadbalancing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One host/port in an {@link UpstreamCluster}, along with the live stats that {@link UpstreamLoadBalancer}s use to pick
+ * between targets: the number of calls currently outstanding against it, and an exponentially weighted moving average
+ * (EWMA) of its recent call latencies.
+ *
+ * <p>{@link UpstreamCluster#chooseTarget()} calls {@link #callStarted()} on the target it picks, and the proxy router
+ * handler calls {@link #callFinished(long, boolean)} (or {@link #callCancelled()} if the downstream call never got
+ * started) when the call is done, so you normally don't need to call those yourself. This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class UpstreamTarget {
+
+    /**
+     * The default weight given to each new latency sample when updating the EWMA - see {@link
+     * #UpstreamTarget(String, int, double)}.
+     */
+    public static final double DEFAULT_EWMA_WEIGHT = 0.3;
+
+    /**
+     * Failed calls are recorded as taking at least this many times the current average latency, so a target that
+     * fails fast doesn't look attractive to latency-aware balancers.
+     */
+    public static final double FAILED_CALL_LATENCY_PENALTY_MULTIPLIER = 2.0;
+
+    protected final @NotNull String host;
+    protected final int port;
+    protected final double ewmaWeight;
+
+    protected final AtomicInteger numOutstandingRequests = new AtomicInteger(0);
+    // Guarded by this.
+    protected double ewmaLatencyNanos = 0;
+    protected volatile long numLatencySamples = 0;
+
+    /**
+     * Creates a new instance that uses {@link #DEFAULT_EWMA_WEIGHT} for its latency average.
+     *
+     * @param host The host to call. Cannot be null.
+     * @param port The port to call.
+     */
+    public UpstreamTarget(@NotNull String host, int port) {
+        this(host, port, DEFAULT_EWMA_WEIGHT);
+    }
+
+    /**
+     * @param host The host to call. Cannot be null.
+     * @param port The port to call.
+     * @param ewmaWeight The weight given to each new latency sample when updating the EWMA. Must be greater than 0 and
+     * less than or equal to 1 - higher values react to latency changes faster, lower values smooth out noise better.
+     */
+    public UpstreamTarget(@NotNull String host, int port, double ewmaWeight) {
+        //noinspection ConstantConditions
+        if (host == null)
+            throw new IllegalArgumentException("host cannot be null");
+
+        if (ewmaWeight <= 0 || ewmaWeight > 1)
+            throw new IllegalArgumentException("ewmaWeight must be greater than 0 and less than or equal to 1");
+
+        this.host = host;
+        this.port = port;
+        this.ewmaWeight = ewmaWeight;
+    }
+
+    /**
+     * Records that a call to this target has started.
+     */
+    public void callStarted() {
+        numOutstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * Records that a call to this target has finished, and feeds its latency into the EWMA.
+     *
+     * @param latencyNanos How long the call took in nanoseconds.
+     * @param successful True if the call succeeded, false if it failed. Failed calls are penalized - see {@link
+     * #FAILED_CALL_LATENCY_PENALTY_MULTIPLIER}.
+     */
+    public void callFinished(long latencyNanos, boolean successful) {
+        decrementOutstandingRequests();
+
+        synchronized (this) {
+            double sample = (successful)
+                            ? latencyNanos
+                            : Math.max(latencyNanos, ewmaLatencyNanos * FAILED_CALL_LATENCY_PENALTY_MULTIPLIER);
+
+            // The first sample seeds the average so a new target doesn't take ages to ramp up from zero.
+            ewmaLatencyNanos = (numLatencySamples == 0)
+                               ? sample
+                               : ewmaLatencyNanos + (ewmaWeight * (sample - ewmaLatencyNanos));
+            numLatencySamples++;
+        }
+    }
+
+    /**
+     * Records that a call that was counted by {@link #callStarted()} never actually went out (e.g. we couldn't get a
+     * connection), so there's no latency to record.
+     */
+    public void callCancelled() {
+        decrementOutstandingRequests();
+    }
+
+    protected void decrementOutstandingRequests() {
+        // Never go negative, even if callFinished()/callCancelled() are called more than they should be.
+        numOutstandingRequests.updateAndGet(current -> (current > 0) ? current - 1 : 0);
+    }
+
+    public @NotNull String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return The number of calls to this target that have started but not finished yet.
+     */
+    public int getNumOutstandingRequests() {
+        return numOutstandingRequests.get();
+    }
+
+    /**
+     * @return The EWMA of this target's call latencies in nanoseconds, or 0 if no calls have finished yet.
+     */
+    public synchronized double getEwmaLatencyNanos() {
+        return ewmaLatencyNanos;
+    }
+
+    /**
+     * @return The number of latency samples that have been fed into {@link #getEwmaLatencyNanos()}.
+     */
+    public long getNumLatencySamples() {
+        return numLatencySamples;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,208 @@
+package com.nike.riposte.client.retry;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * Describes how a proxied downstream call can be retried and hedged. A {@code ProxyRouterEndpoint} opts in by passing
+ * one of these to {@code ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withRetryPolicy(DownstreamRetryPolicy)},
+ * and the proxy router handler then runs the call through a {@link RetryingDownstreamCall}.
+ *
+ * <p>Only requests with an idempotent HTTP method (see {@link #IDEMPOTENT_METHODS}) are ever retried, and only while
+ * it's still safe to do so:
+ * <ul>
+ *     <li>
+ *         Requests with a body are only retried if the attempt failed before any of the body was streamed downstream,
+ *         i.e. while connecting or sending the request headers - the body is streamed straight through from the
+ *         caller, so it can't be replayed after that.
+ *     </li>
+ *     <li>
+ *         Requests without a body are also retried if the attempt failed before any response came back (e.g. a
+ *         pooled keep-alive connection that the downstream service had already closed), and if hedging is enabled
+ *         they are hedged: if no response has come back after the hedge delay then another attempt is fired off, and
+ *         whichever attempt responds first is used while the others are cancelled. The hedge delay is the {@link
+ *         #getHedgeDelayPercentile()} of recent response times (but at least {@link #getMinHedgeDelayMillis()}), so
+ *         only the slowest calls get hedged. Nothing is hedged until enough response times have been seen to work out
+ *         the delay.
+ *     </li>
+ * </ul>
+ *
+ * <p>Every retry and hedged attempt has to be paid for out of the {@link RetryBudget}, so a downstream service that is
+ * failing or slow across the board doesn't get hit with {@link #getMaxAttempts()} times its normal load.
+ *
+ * <p>Create one instance per downstream service and reuse it for every call, since the retry budget and response
+ * times it relies on are built up across calls. This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownstreamRetryPolicy {
+
+    /**
+     * The HTTP methods that are safe to send more than once - see RFC 7231 section 4.2.2.
+     */
+    public static final Set<HttpMethod> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE, HttpMethod.PUT, HttpMethod.DELETE
+    )));
+
+    /**
+     * The default percentile of recent response times to wait before hedging a call.
+     */
+    public static final double DEFAULT_HEDGE_DELAY_PERCENTILE = 95;
+    /**
+     * The number of recent response times that are kept for working out the hedge delay.
+     */
+    public static final int RESPONSE_TIME_WINDOW_SIZE = 1000;
+    /**
+     * The number of response times that must be seen before any calls are hedged.
+     */
+    public static final int MIN_RESPONSE_TIMES_FOR_HEDGING = 100;
+
+    protected final int maxAttempts;
+    protected final @NotNull RetryBudget retryBudget;
+    protected final boolean hedgingEnabled;
+    protected final double hedgeDelayPercentile;
+    protected final long minHedgeDelayMillis;
+    protected final @NotNull LatencyPercentileTracker responseTimeTracker;
+
+    /**
+     * Creates a new instance that retries failed attempts but doesn't hedge.
+     *
+     * @param maxAttempts The maximum number of attempts per call, including the first one. Must be at least 1.
+     * @param retryBudget The budget that retries are paid for out of. Cannot be null.
+     */
+    public DownstreamRetryPolicy(int maxAttempts, @NotNull RetryBudget retryBudget) {
+        this(maxAttempts, retryBudget, false, DEFAULT_HEDGE_DELAY_PERCENTILE, 0);
+    }
+
+    /**
+     * Creates a new instance that retries failed attempts and hedges slow ones.
+     *
+     * @param maxAttempts The maximum number of attempts per call, including the first one and any hedged ones. Must be
+     * at least 1.
+     * @param retryBudget The budget that retries and hedged attempts are paid for out of. Cannot be null.
+     * @param hedgeDelayPercentile The percentile of recent response times to wait before hedging a call, e.g. 95.
+     * Must be greater than 0 and less than or equal to 100.
+     * @param minHedgeDelayMillis The minimum time to wait before hedging a call. Cannot be negative.
+     */
+    public DownstreamRetryPolicy(
+        int maxAttempts, @NotNull RetryBudget retryBudget, double hedgeDelayPercentile, long minHedgeDelayMillis
+    ) {
+        this(maxAttempts, retryBudget, true, hedgeDelayPercentile, minHedgeDelayMillis);
+    }
+
+    protected DownstreamRetryPolicy(
+        int maxAttempts,
+        @NotNull RetryBudget retryBudget,
+        boolean hedgingEnabled,
+        double hedgeDelayPercentile,
+        long minHedgeDelayMillis
+    ) {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+
+        //noinspection ConstantConditions
+        if (retryBudget == null)
+            throw new IllegalArgumentException("retryBudget cannot be null");
+
+        if (hedgeDelayPercentile <= 0 || hedgeDelayPercentile > 100)
+            throw new IllegalArgumentException(
+                "hedgeDelayPercentile must be greater than 0 and less than or equal to 100"
+            );
+
+        if (minHedgeDelayMillis < 0)
+            throw new IllegalArgumentException("minHedgeDelayMillis cannot be negative");
+
+        this.maxAttempts = maxAttempts;
+        this.retryBudget = retryBudget;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgeDelayPercentile = hedgeDelayPercentile;
+        this.minHedgeDelayMillis = minHedgeDelayMillis;
+        this.responseTimeTracker = new LatencyPercentileTracker(
+            RESPONSE_TIME_WINDOW_SIZE, MIN_RESPONSE_TIMES_FOR_HEDGING
+        );
+    }
+
+    /**
+     * @return true if calls with the given first chunk can be retried at all, i.e. its HTTP method is in {@link
+     * #IDEMPOTENT_METHODS} and more than one attempt is allowed.
+     */
+    public boolean isRetryable(@NotNull HttpRequest firstChunk) {
+        return maxAttempts > 1 && IDEMPOTENT_METHODS.contains(firstChunk.method());
+    }
+
+    /**
+     * @return true if the request for the given first chunk has (or might have) a body that will be streamed after
+     * the first chunk, false if the first chunk is the whole request.
+     */
+    public static boolean requestHasBody(@NotNull HttpRequest firstChunk) {
+        if (firstChunk instanceof HttpContent && ((HttpContent) firstChunk).content().isReadable()) {
+            return true;
+        }
+
+        if (HttpUtil.isTransferEncodingChunked(firstChunk)) {
+            return true;
+        }
+
+        try {
+            return HttpUtil.getContentLength(firstChunk, 0L) > 0;
+        }
+        catch (NumberFormatException ex) {
+            // We can't tell how big the body is, so play it safe.
+            return true;
+        }
+    }
+
+    /**
+     * @return The time in nanoseconds to wait for a response before hedging a call, or -1 if calls shouldn't be
+     * hedged yet - either because hedging is disabled, or because not enough response times have been seen.
+     */
+    public long getHedgeDelayNanos() {
+        if (!hedgingEnabled) {
+            return -1;
+        }
+
+        long percentileNanos = responseTimeTracker.getPercentile(hedgeDelayPercentile);
+        if (percentileNanos < 0) {
+            return -1;
+        }
+
+        return Math.max(percentileNanos, TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMillis));
+    }
+
+    /**
+     * Records how long a successful attempt took to get a response back, for working out {@link
+     * #getHedgeDelayNanos()}.
+     */
+    public void recordResponseTime(long responseTimeNanos) {
+        responseTimeTracker.record(responseTimeNanos);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public @NotNull RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    public double getHedgeDelayPercentile() {
+        return hedgeDelayPercentile;
+    }
+
+    public long getMinHedgeDelayMillis() {
+        return minHedgeDelayMillis;
+    }
+}
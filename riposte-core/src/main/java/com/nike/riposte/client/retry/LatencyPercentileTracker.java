@@ -0,0 +1,87 @@
+package com.nike.riposte.client.retry;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples in a fixed size ring buffer so {@link DownstreamRetryPolicy} can work out how
+ * long to wait before hedging a call, e.g. the 95th percentile of recent response times. The samples are only sorted
+ * again after a tenth of the window has been replaced, so {@link #getPercentile(double)} is cheap enough to call for
+ * every request.
+ *
+ * <p>This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LatencyPercentileTracker {
+
+    protected final int minSamples;
+    protected final int resortInterval;
+
+    // Guarded by this.
+    protected final long[] samples;
+    protected int numSamples = 0;
+    protected int nextIndex = 0;
+    protected long[] sortedSamples = null;
+    protected int numSamplesSinceLastSort = 0;
+
+    /**
+     * @param windowSize The number of most recent samples to keep. Must be at least 1.
+     * @param minSamples The number of samples needed before {@link #getPercentile(double)} returns anything. Must be
+     * at least 1 and no more than {@code windowSize}.
+     */
+    public LatencyPercentileTracker(int windowSize, int minSamples) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("windowSize must be at least 1");
+
+        if (minSamples < 1 || minSamples > windowSize)
+            throw new IllegalArgumentException("minSamples must be at least 1 and no more than windowSize");
+
+        this.samples = new long[windowSize];
+        this.minSamples = minSamples;
+        this.resortInterval = Math.max(1, windowSize / 10);
+    }
+
+    /**
+     * Adds a latency sample, replacing the oldest one if the window is full.
+     *
+     * @param latencyNanos The latency in nanoseconds.
+     */
+    public synchronized void record(long latencyNanos) {
+        samples[nextIndex] = latencyNanos;
+        nextIndex = (nextIndex + 1) % samples.length;
+        if (numSamples < samples.length) {
+            numSamples++;
+        }
+        numSamplesSinceLastSort++;
+    }
+
+    /**
+     * @param percentile The percentile to calculate, e.g. 95 for the 95th percentile. Must be greater than 0 and less
+     * than or equal to 100.
+     * @return The given percentile of the current samples in nanoseconds (using the nearest-rank method), or -1 if
+     * there are fewer than {@code minSamples} samples so far.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be greater than 0 and less than or equal to 100");
+
+        if (numSamples < minSamples) {
+            return -1;
+        }
+
+        if (sortedSamples == null || numSamplesSinceLastSort >= resortInterval) {
+            sortedSamples = Arrays.copyOf(samples, numSamples);
+            Arrays.sort(sortedSamples);
+            numSamplesSinceLastSort = 0;
+        }
+
+        int rank = (int) Math.ceil((percentile / 100) * sortedSamples.length);
+        return sortedSamples[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * @return The number of samples currently in the window.
+     */
+    public synchronized int getNumSamples() {
+        return numSamples;
+    }
+}
@@ -0,0 +1,89 @@
+package com.nike.riposte.client.retry;
+
+/**
+ * A token bucket that limits how many retries (and hedged attempts) a {@link DownstreamRetryPolicy} is allowed to make
+ * relative to the number of calls it sees, so retries can't multiply the load on a downstream service that is already
+ * struggling. Each call deposits {@link #getRetryRatio()} tokens (up to {@link #getMaxBalance()}), and each retry
+ * withdraws one whole token - so over time retries are capped at {@code retryRatio} times the call volume, with
+ * {@code maxBalance} allowing for short bursts. The bucket starts out full.
+ *
+ * <p>This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RetryBudget {
+
+    /**
+     * The default number of tokens deposited per call - i.e. retries are limited to 10% of calls.
+     */
+    public static final double DEFAULT_RETRY_RATIO = 0.1;
+    /**
+     * The default maximum number of tokens the bucket can hold.
+     */
+    public static final double DEFAULT_MAX_BALANCE = 10;
+
+    protected final double retryRatio;
+    protected final double maxBalance;
+
+    // Guarded by this.
+    protected double balance;
+
+    /**
+     * Creates a new instance that uses {@link #DEFAULT_RETRY_RATIO} and {@link #DEFAULT_MAX_BALANCE}.
+     */
+    public RetryBudget() {
+        this(DEFAULT_RETRY_RATIO, DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * @param retryRatio The number of tokens deposited for each call. Must be greater than 0 and less than or equal to
+     * 1.
+     * @param maxBalance The maximum number of tokens the bucket can hold. Must be at least 1.
+     */
+    public RetryBudget(double retryRatio, double maxBalance) {
+        if (retryRatio <= 0 || retryRatio > 1)
+            throw new IllegalArgumentException("retryRatio must be greater than 0 and less than or equal to 1");
+
+        if (maxBalance < 1)
+            throw new IllegalArgumentException("maxBalance must be at least 1");
+
+        this.retryRatio = retryRatio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    /**
+     * Deposits {@link #getRetryRatio()} tokens for a new call.
+     */
+    public synchronized void recordCall() {
+        balance = Math.min(maxBalance, balance + retryRatio);
+    }
+
+    /**
+     * Withdraws a token for a retry if there's one available.
+     *
+     * @return true if the retry is allowed, false if the budget is used up.
+     */
+    public synchronized boolean tryAcquireRetry() {
+        if (balance < 1) {
+            return false;
+        }
+
+        balance -= 1;
+        return true;
+    }
+
+    /**
+     * @return The number of tokens currently in the bucket.
+     */
+    public synchronized double getBalance() {
+        return balance;
+    }
+
+    public double getRetryRatio() {
+        return retryRatio;
+    }
+
+    public double getMaxBalance() {
+        return maxBalance;
+    }
+}
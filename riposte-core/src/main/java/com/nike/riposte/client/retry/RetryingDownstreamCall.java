@@ -0,0 +1,450 @@
+package com.nike.riposte.client.retry;
+
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Runs one proxied downstream call as one or more attempts according to a {@link DownstreamRetryPolicy}, and makes
+ * the attempts look like a single call to the {@link StreamingCallback} for the original caller. Each attempt gets its
+ * own wrapper callback, and only the attempt that ends up being used - the "chosen" attempt - is allowed to pass
+ * anything through to the real callback. The future returned by {@link #start()} takes the place of the single
+ * attempt's {@code StreamingAsyncHttpClient.streamDownstreamCall(...)} future: it completes with the chosen attempt's
+ * {@link StreamingChannel}, or fails with the last attempt's error once nothing is left to try.
+ *
+ * <p>When the request has a body the first attempt to connect and send the request headers is chosen, since the body
+ * can only be streamed to one place. When it doesn't have a body each attempt is sent as a complete request (see
+ * {@link #isWholeRequestSentWithFirstChunk()}), and the first attempt to get a response back is chosen - the rest are
+ * closed. See {@link DownstreamRetryPolicy} for when attempts are retried or hedged.
+ *
+ * <p>Create a new instance for each call. This class is thread safe - the attempts usually run on different event
+ * loops.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RetryingDownstreamCall {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryingDownstreamCall.class);
+
+    /**
+     * Starts one attempt of the downstream call - normally by calling {@code
+     * StreamingAsyncHttpClient.streamDownstreamCall(...)} with the given first chunk and callback.
+     */
+    @FunctionalInterface
+    public interface AttemptStarter {
+
+        @NotNull CompletableFuture<StreamingChannel> startAttempt(
+            @NotNull HttpRequest firstChunk, @NotNull StreamingCallback attemptCallback
+        );
+    }
+
+    protected final @NotNull DownstreamRetryPolicy retryPolicy;
+    protected final @NotNull HttpRequest firstChunk;
+    protected final @NotNull StreamingCallback callback;
+    protected final @NotNull AttemptStarter attemptStarter;
+    protected final @NotNull ScheduledExecutorService hedgeScheduler;
+    protected final @Nullable Consumer<StreamingChannel> chosenChannelListener;
+    protected final boolean wholeRequestSentWithFirstChunk;
+    protected final CompletableFuture<StreamingChannel> result = new CompletableFuture<>();
+
+    // Guarded by this.
+    protected final List<Attempt> attempts = new ArrayList<>();
+    protected int numAttemptsStarted = 0;
+    protected int numAttemptsInFlight = 0;
+    protected boolean finished = false;
+    protected volatile @Nullable Attempt chosenAttempt = null;
+
+    /**
+     * @param retryPolicy The policy that decides when to retry and hedge. Cannot be null.
+     * @param firstChunk The first chunk of the downstream request. Cannot be null.
+     * @param callback The callback for the original caller. Cannot be null.
+     * @param attemptStarter Starts each attempt. Cannot be null.
+     * @param hedgeScheduler Used to fire off hedged attempts after the hedge delay. Cannot be null.
+     * @param chosenChannelListener Called with the chosen attempt's {@link StreamingChannel} once it's chosen, and
+     * again whenever one of the other attempts finishes connecting after that - so anything that is set up per
+     * downstream channel (like backpressure) and that the other attempts may have overwritten can be pointed back at
+     * the chosen channel. May be null.
+     */
+    public RetryingDownstreamCall(
+        @NotNull DownstreamRetryPolicy retryPolicy,
+        @NotNull HttpRequest firstChunk,
+        @NotNull StreamingCallback callback,
+        @NotNull AttemptStarter attemptStarter,
+        @NotNull ScheduledExecutorService hedgeScheduler,
+        @Nullable Consumer<StreamingChannel> chosenChannelListener
+    ) {
+        //noinspection ConstantConditions
+        if (retryPolicy == null)
+            throw new IllegalArgumentException("retryPolicy cannot be null");
+
+        //noinspection ConstantConditions
+        if (firstChunk == null)
+            throw new IllegalArgumentException("firstChunk cannot be null");
+
+        //noinspection ConstantConditions
+        if (callback == null)
+            throw new IllegalArgumentException("callback cannot be null");
+
+        //noinspection ConstantConditions
+        if (attemptStarter == null)
+            throw new IllegalArgumentException("attemptStarter cannot be null");
+
+        //noinspection ConstantConditions
+        if (hedgeScheduler == null)
+            throw new IllegalArgumentException("hedgeScheduler cannot be null");
+
+        this.retryPolicy = retryPolicy;
+        this.firstChunk = firstChunk;
+        this.callback = callback;
+        this.attemptStarter = attemptStarter;
+        this.hedgeScheduler = hedgeScheduler;
+        this.chosenChannelListener = chosenChannelListener;
+        this.wholeRequestSentWithFirstChunk = !DownstreamRetryPolicy.requestHasBody(firstChunk);
+    }
+
+    /**
+     * @return true if the request has no body, in which case each attempt is sent as a complete request and the
+     * caller's (empty) content chunks should be released instead of being streamed to the chosen attempt's {@link
+     * StreamingChannel}.
+     */
+    public boolean isWholeRequestSentWithFirstChunk() {
+        return wholeRequestSentWithFirstChunk;
+    }
+
+    /**
+     * Starts the first attempt (and schedules the first hedged attempt if hedging applies). Should only be called
+     * once.
+     *
+     * @return A future that completes with the chosen attempt's {@link StreamingChannel}, or fails if every attempt
+     * failed.
+     */
+    public @NotNull CompletableFuture<StreamingChannel> start() {
+        retryPolicy.getRetryBudget().recordCall();
+        startAttempt(reserveAttempt());
+        scheduleHedgeIfAllowed();
+        return result;
+    }
+
+    /**
+     * Counts a new attempt against {@link DownstreamRetryPolicy#getMaxAttempts()} - must be called (and the attempt
+     * paid for out of the retry budget if it's not the first one) before the attempt is started.
+     *
+     * @return The new attempt's number, starting at 1.
+     */
+    protected synchronized int reserveAttempt() {
+        numAttemptsInFlight++;
+        return ++numAttemptsStarted;
+    }
+
+    protected void startAttempt(int attemptNumber) {
+        Attempt attempt = new Attempt(attemptNumber);
+        synchronized (this) {
+            if (finished) {
+                // Another attempt was chosen while this one was being set up, so there's no point starting it.
+                numAttemptsInFlight--;
+                return;
+            }
+
+            attempts.add(attempt);
+        }
+
+        attempt.future.whenComplete((sc, error) -> {
+            if (error != null) {
+                attemptFailed(attempt, error);
+            }
+            else if (!wholeRequestSentWithFirstChunk) {
+                // The body will be streamed to this attempt, so it's the one we're going with.
+                chooseAttempt(attempt);
+            }
+        });
+
+        CompletableFuture<StreamingChannel> attemptFuture;
+        try {
+            HttpRequest attemptFirstChunk = (wholeRequestSentWithFirstChunk)
+                                            ? createWholeRequest(firstChunk)
+                                            : firstChunk;
+            attemptFuture = attemptStarter.startAttempt(attemptFirstChunk, attempt);
+        }
+        catch (Throwable t) {
+            attemptFuture = new CompletableFuture<>();
+            attemptFuture.completeExceptionally(t);
+        }
+
+        attemptFuture.whenComplete((sc, error) -> {
+            if (error != null) {
+                attempt.future.completeExceptionally(error);
+            }
+            else {
+                attempt.future.complete(sc);
+            }
+        });
+    }
+
+    /**
+     * @return A complete request (headers plus an empty body) built from the given first chunk. Each attempt gets its
+     * own copy since the downstream call adds headers to it, and the attempts can be running at the same time.
+     */
+    protected @NotNull HttpRequest createWholeRequest(@NotNull HttpRequest firstChunk) {
+        return new DefaultFullHttpRequest(
+            firstChunk.protocolVersion(), firstChunk.method(), firstChunk.uri(), Unpooled.EMPTY_BUFFER,
+            firstChunk.headers().copy(), EmptyHttpHeaders.INSTANCE
+        );
+    }
+
+    protected void scheduleHedgeIfAllowed() {
+        if (!wholeRequestSentWithFirstChunk) {
+            return;
+        }
+
+        long hedgeDelayNanos = retryPolicy.getHedgeDelayNanos();
+        if (hedgeDelayNanos < 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (finished || numAttemptsStarted >= retryPolicy.getMaxAttempts()) {
+                return;
+            }
+        }
+
+        try {
+            hedgeScheduler.schedule(this::hedge, hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException ex) {
+            // The event loop is shutting down, so don't bother hedging.
+            logger.debug("Unable to schedule a hedged downstream call attempt.", ex);
+        }
+    }
+
+    protected void hedge() {
+        int attemptNumber;
+        synchronized (this) {
+            if (finished || numAttemptsStarted >= retryPolicy.getMaxAttempts()
+                || !retryPolicy.getRetryBudget().tryAcquireRetry()) {
+                return;
+            }
+
+            attemptNumber = reserveAttempt();
+        }
+
+        logger.debug(
+            "No response from the downstream call yet - starting a hedged attempt. attempt_number={}", attemptNumber
+        );
+        startAttempt(attemptNumber);
+        scheduleHedgeIfAllowed();
+    }
+
+    protected void attemptFailed(@NotNull Attempt attempt, @NotNull Throwable error) {
+        int retryAttemptNumber = 0;
+        boolean giveUp = false;
+        synchronized (this) {
+            if (attempt.failed) {
+                return;
+            }
+
+            attempt.failed = true;
+            numAttemptsInFlight--;
+            if (finished) {
+                // Another attempt was chosen, or we already gave up.
+                return;
+            }
+
+            if (numAttemptsInFlight > 0) {
+                // A hedged attempt is still in flight, so see how that one does before spending anything on a retry.
+                return;
+            }
+
+            if (numAttemptsStarted < retryPolicy.getMaxAttempts() && retryPolicy.getRetryBudget().tryAcquireRetry()) {
+                retryAttemptNumber = reserveAttempt();
+            }
+            else {
+                finished = true;
+                giveUp = true;
+            }
+        }
+
+        if (retryAttemptNumber > 0) {
+            logger.info(
+                "Retrying a failed downstream call attempt. failed_attempt_number={}, retry_attempt_number={}, "
+                + "failure_cause={}",
+                attempt.attemptNumber, retryAttemptNumber, error.toString()
+            );
+            startAttempt(retryAttemptNumber);
+        }
+        else if (giveUp) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * @return true if the given attempt is (now) the chosen one, false if another attempt was chosen or the given
+     * attempt already failed.
+     */
+    protected boolean chooseAttempt(@NotNull Attempt attempt) {
+        List<Attempt> otherAttempts = new ArrayList<>();
+        synchronized (this) {
+            if (chosenAttempt == attempt) {
+                return true;
+            }
+
+            if (finished || attempt.failed) {
+                return false;
+            }
+
+            finished = true;
+            chosenAttempt = attempt;
+            for (Attempt other : attempts) {
+                if (other != attempt && !other.failed) {
+                    otherAttempts.add(other);
+                }
+            }
+        }
+
+        if (wholeRequestSentWithFirstChunk) {
+            retryPolicy.recordResponseTime(System.nanoTime() - attempt.startTimeNanos);
+        }
+
+        attempt.future.whenComplete((sc, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+
+            notifyChosenChannelListener(sc);
+            result.complete(sc);
+        });
+
+        for (Attempt other : otherAttempts) {
+            cancelAttempt(other, attempt);
+        }
+
+        return true;
+    }
+
+    protected void cancelAttempt(@NotNull Attempt attempt, @NotNull Attempt chosen) {
+        attempt.future.whenComplete((sc, error) -> {
+            if (sc != null) {
+                sc.closeChannelForAbandonedCall(new RuntimeException(
+                    "Downstream call attempt " + attempt.attemptNumber + " was abandoned because attempt "
+                    + chosen.attemptNumber + " was used instead."
+                ));
+            }
+
+            chosen.future.thenAccept(this::notifyChosenChannelListener);
+        });
+    }
+
+    protected void notifyChosenChannelListener(@NotNull StreamingChannel chosenChannel) {
+        if (chosenChannelListener == null) {
+            return;
+        }
+
+        try {
+            chosenChannelListener.accept(chosenChannel);
+        }
+        catch (Throwable t) {
+            logger.error("The chosen channel listener threw an error. It will be ignored.", t);
+        }
+    }
+
+    /**
+     * @return The attempt that is being used for the call, or null if one hasn't been chosen (yet).
+     */
+    public @Nullable Attempt getChosenAttempt() {
+        return chosenAttempt;
+    }
+
+    /**
+     * @return The number of attempts that have been started so far.
+     */
+    public synchronized int getNumAttemptsStarted() {
+        return numAttemptsStarted;
+    }
+
+    /**
+     * One attempt of the downstream call. This is the callback that attempt's downstream channel reports to - it only
+     * passes things through to the real callback once it has been chosen.
+     */
+    public class Attempt implements StreamingCallback {
+
+        protected final int attemptNumber;
+        protected final long startTimeNanos = System.nanoTime();
+        protected final CompletableFuture<StreamingChannel> future = new CompletableFuture<>();
+        // Guarded by the owning RetryingDownstreamCall.
+        protected boolean failed = false;
+
+        protected Attempt(int attemptNumber) {
+            this.attemptNumber = attemptNumber;
+        }
+
+        @Override
+        public void messageReceived(HttpObject msg) {
+            if (chosenAttempt == this || chooseAttempt(this)) {
+                callback.messageReceived(msg);
+            }
+            else {
+                // Another attempt beat this one, and it's already being closed. Nobody else will release this.
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void unrecoverableErrorOccurred(Throwable error, boolean guaranteesBrokenDownstreamResponse) {
+            if (chosenAttempt == this) {
+                callback.unrecoverableErrorOccurred(error, guaranteesBrokenDownstreamResponse);
+            }
+            else {
+                attemptFailed(this, error);
+            }
+        }
+
+        @Override
+        public void cancelStreamingToOriginalCaller() {
+            if (chosenAttempt == this) {
+                callback.cancelStreamingToOriginalCaller();
+            }
+        }
+
+        /**
+         * All attempts share the request's proxy state, so only the chosen attempt gets to record its outcome there.
+         * A response arriving is what chooses an attempt (if nothing has been chosen yet), so the choice is made here
+         * before the response is recorded - otherwise a late loser could overwrite the winner's response.
+         */
+        @Override
+        public boolean isOutcomeIgnored(boolean responseReceived) {
+            if (responseReceived) {
+                return !(chosenAttempt == this || chooseAttempt(this));
+            }
+
+            return chosenAttempt != this;
+        }
+
+        @Override
+        public boolean isCallAbandoned() {
+            Attempt chosen = chosenAttempt;
+            return chosen != null && chosen != this;
+        }
+
+        public int getAttemptNumber() {
+            return attemptNumber;
+        }
+    }
+}
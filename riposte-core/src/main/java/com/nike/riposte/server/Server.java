@@ -1,23 +1,46 @@
 package com.nike.riposte.server;
 
+import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
+import com.nike.riposte.server.channelpipeline.HttpChannelInitializerOptions;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig.AmbiguousEndpointsPolicy;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.TransportType;
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteDistributedTracingConfigImpl;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.hooks.PostServerStartupHook;
 import com.nike.riposte.server.hooks.PreServerStartupHook;
 import com.nike.riposte.server.hooks.ServerShutdownHook;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.InFlightRequestTracker;
 import com.nike.riposte.server.http.ResponseSender;
+import com.nike.riposte.server.routing.RouteTableAnalyzer;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.AmbiguousEndpoints;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.Overlap;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.RouteTableAnalysis;
+import com.nike.riposte.util.ChannelOptionsHelper;
+import com.nike.riposte.util.NettyTransport;
 import com.nike.wingtips.Span;
 
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
@@ -25,12 +48,10 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
@@ -51,6 +72,8 @@ public class Server {
 
     private final List<EventLoopGroup> eventLoopGroups = new ArrayList<>();
     private final List<Channel> channels = new ArrayList<>();
+    private InFlightRequestTracker inFlightRequestTracker;
+    private HttpChannelInitializer httpChannelInitializer;
     private boolean startedUp = false;
     private boolean hasShutdown = false;
 
@@ -85,36 +108,21 @@ public class Server {
         }
 
         // Configure the server
-        EventLoopGroup bossGroup;
-        EventLoopGroup workerGroup;
-        Class<? extends ServerChannel> channelClass;
 
         // Use the native epoll event loop groups if available for maximum performance
-        //      (see http://netty.io/wiki/native-transports.html). If they're not available then fall back to standard
-        //      NIO event loop group.
-        if (Epoll.isAvailable()) {
-            logger.info("The epoll native transport is available. Using epoll instead of NIO. "
-                        + "riposte_server_using_native_epoll_transport=true");
-            bossGroup = (serverConfig.bossThreadFactory() == null)
-                        ? new EpollEventLoopGroup(serverConfig.numBossThreads())
-                        : new EpollEventLoopGroup(serverConfig.numBossThreads(), serverConfig.bossThreadFactory());
-            workerGroup = (serverConfig.workerThreadFactory() == null)
-                          ? new EpollEventLoopGroup(serverConfig.numWorkerThreads())
-                          : new EpollEventLoopGroup(serverConfig.numWorkerThreads(),
-                                                    serverConfig.workerThreadFactory());
-            channelClass = EpollServerSocketChannel.class;
-        }
-        else {
-            logger.info("The epoll native transport is NOT available or you are not running on a compatible "
-                        + "OS/architecture. Using NIO. riposte_server_using_native_epoll_transport=false");
-            bossGroup = (serverConfig.bossThreadFactory() == null)
-                        ? new NioEventLoopGroup(serverConfig.numBossThreads())
-                        : new NioEventLoopGroup(serverConfig.numBossThreads(), serverConfig.bossThreadFactory());
-            workerGroup = (serverConfig.workerThreadFactory() == null)
-                          ? new NioEventLoopGroup(serverConfig.numWorkerThreads())
-                          : new NioEventLoopGroup(serverConfig.numWorkerThreads(), serverConfig.workerThreadFactory());
-            channelClass = NioServerSocketChannel.class;
-        }
+        //      (see http://netty.io/wiki/native-transports.html), unless the ServerConfig asks for a specific
+        //      transport. If the requested transport isn't available then fall back to the best one that is.
+        NettyTransport transport = NettyTransport.resolve(serverConfig.transportType());
+        logger.info(
+            "Using the {} transport for the Riposte server. requested_transport={}, riposte_server_transport={}, "
+            + "riposte_server_using_native_epoll_transport={}",
+            transport, serverConfig.transportType(), transport, transport.getTransportType() == TransportType.EPOLL
+        );
+        EventLoopGroup bossGroup =
+            transport.newEventLoopGroup(serverConfig.numBossThreads(), serverConfig.bossThreadFactory());
+        EventLoopGroup workerGroup =
+            transport.newEventLoopGroup(serverConfig.numWorkerThreads(), serverConfig.workerThreadFactory());
+        Class<? extends ServerChannel> channelClass = transport.getServerChannelClass();
 
         eventLoopGroups.add(bossGroup);
         eventLoopGroups.add(workerGroup);
@@ -126,26 +134,61 @@ public class Server {
             DistributedTracingConfig<Span> wingtipsDistributedTracingConfig =
                 getOrGenerateWingtipsDistributedTracingConfig(serverConfig);
 
+            RouteTableAnalysis routeTableAnalysis = verifyEndpointsAreNotAmbiguous(serverConfig);
+
+            // If we need to drain in-flight requests on shutdown then we need to know how many there are, which we get
+            //      from the same events the MetricsListener receives.
+            MetricsListener metricsListener = serverConfig.metricsListener();
+            if (serverConfig.shutdownDrainTimeoutMillis() > 0) {
+                inFlightRequestTracker = new InFlightRequestTracker(metricsListener);
+                metricsListener = inFlightRequestTracker;
+            }
+
+            // Register any requested Jackson modules before the channel initializer builds readers from the mappers.
+            List<Module> objectMapperModules = serverConfig.defaultObjectMapperModules();
+            ObjectMapper requestContentDeserializer = registerObjectMapperModules(
+                serverConfig.defaultRequestContentDeserializer(), objectMapperModules
+            );
+            ObjectMapper responseContentSerializer = registerObjectMapperModules(
+                serverConfig.defaultResponseContentSerializer(), objectMapperModules
+            );
+
             // No custom channel initializer, so use the default
-            channelInitializer = new HttpChannelInitializer(
+            httpChannelInitializer = new HttpChannelInitializer(
                 sslCtx, serverConfig.maxRequestSizeInBytes(), serverConfig.appEndpoints(),
                 serverConfig.requestAndResponseFilters(),
                 serverConfig.longRunningTaskExecutor(), serverConfig.riposteErrorHandler(),
                 serverConfig.riposteUnhandledErrorHandler(),
-                serverConfig.requestContentValidationService(), serverConfig.defaultRequestContentDeserializer(),
+                serverConfig.requestContentValidationService(), requestContentDeserializer,
                 new ResponseSender(
-                    serverConfig.defaultResponseContentSerializer(), serverConfig.errorResponseBodySerializer(),
-                    wingtipsDistributedTracingConfig
+                    responseContentSerializer, serverConfig.errorResponseBodySerializer(),
+                    wingtipsDistributedTracingConfig, inFlightRequestTracker
                 ),
-                serverConfig.metricsListener(),
+                metricsListener,
                 serverConfig.defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints(),
                 serverConfig.accessLogger(), serverConfig.pipelineCreateHooks(),
                 serverConfig.requestSecurityValidator(), serverConfig.workerChannelIdleTimeoutMillis(),
                 serverConfig.proxyRouterConnectTimeoutMillis(), serverConfig.incompleteHttpCallTimeoutMillis(),
                 serverConfig.maxOpenIncomingServerChannels(), serverConfig.isDebugChannelLifecycleLoggingEnabled(),
                 serverConfig.userIdHeaderKeys(), serverConfig.responseCompressionThresholdBytes(),
-                serverConfig.httpRequestDecoderConfig(), wingtipsDistributedTracingConfig
+                serverConfig.httpRequestDecoderConfig(), wingtipsDistributedTracingConfig,
+                HttpChannelInitializerOptions.newBuilder()
+                                             .withEndpointRoutingConfig(serverConfig.endpointRoutingConfig())
+                                             .withProxyRouterTransportType(transport.getTransportType())
+                                             .withProxyRouterChannelOptionsConfig(serverConfig.channelOptionsConfig())
+                                             .withHttp2Config(serverConfig.http2Config())
+                                             .withHttp1PipeliningConfig(serverConfig.http1PipeliningConfig())
+                                             .withProxyRouterDnsConfig(serverConfig.proxyRouterDnsConfig())
+                                             .withProxyRouterConnectionPoolConfig(
+                                                 serverConfig.proxyRouterConnectionPoolConfig()
+                                             )
+                                             .withRouteTableAnalysis(routeTableAnalysis)
+                                             .build()
             );
+            channelInitializer = httpChannelInitializer;
+
+            // Warm up any requested proxy/router connections before we start accepting requests.
+            prewarmProxyRouterConnections(httpChannelInitializer, serverConfig.proxyRouterConnectTimeoutMillis());
         }
 
         // Create the server bootstrap
@@ -154,6 +197,29 @@ public class Server {
          .channel(channelClass)
          .childHandler(channelInitializer);
 
+        // Apply the socket/transport tuning options. This happens before the pre startup hooks so they can override
+        //      anything here if necessary.
+        ChannelOptionsHelper.applyToServerBootstrap(b, serverConfig.channelOptionsConfig());
+
+        // Proxy/router bodies can only be spliced between level-triggered epoll channels, so the incoming channels need
+        //      to be level-triggered if splicing is turned on.
+        ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig =
+            serverConfig.proxyRouterConnectionPoolConfig();
+        if (
+            proxyRouterConnectionPoolConfig != null
+            && proxyRouterConnectionPoolConfig.isSplicePassthroughEnabled()
+            && transport.getTransportType() == TransportType.EPOLL
+        ) {
+            b.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        }
+
+        // Multiple acceptor channels share the port via SO_REUSEPORT, which lets the kernel spread incoming
+        //      connections across them. This happens before the pre startup hooks so they can override it if necessary.
+        int numAcceptorChannels = determineNumAcceptorChannels(serverConfig, channelClass);
+        if (numAcceptorChannels > 1) {
+            b.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+
         // execute pre startup hooks
         List<@NotNull PreServerStartupHook> preServerStartupHooks = serverConfig.preServerStartupHooks();
         if (preServerStartupHooks != null) {
@@ -165,10 +231,16 @@ public class Server {
         if (serverConfig.isDebugChannelLifecycleLoggingEnabled())
             b.handler(new LoggingHandler(SERVER_BOSS_CHANNEL_DEBUG_LOGGER_NAME, LogLevel.DEBUG));
 
-        // Bind the server to the desired port and start it up so it is ready to receive requests
-        Channel ch = b.bind(port)
-                      .sync()
-                      .channel();
+        // Bind the server to the desired port and start it up so it is ready to receive requests. Each bind registers
+        //      a new server channel on the next boss event loop. The first channel is the one that gets passed to the
+        //      post startup and shutdown hooks.
+        for (int i = 0; i < numAcceptorChannels; i++) {
+            Channel ch = b.bind(port)
+                          .sync()
+                          .channel();
+            channels.add(ch);
+        }
+        Channel ch = channels.get(0);
 
         // execute post startup hooks
         List<@NotNull PostServerStartupHook> postServerStartupHooks = serverConfig.postServerStartupHooks();
@@ -178,10 +250,8 @@ public class Server {
             }
         }
 
-        channels.add(ch);
-
         logger.info("Server channel open and accepting " + (serverConfig.isEndpointsUseSsl() ? "https" : "http")
-                    + " requests on port " + port);
+                    + " requests on port " + port + ". num_acceptor_channels=" + numAcceptorChannels);
         startedUp = true;
 
         // Add a shutdown hook so we can gracefully stop the server when the JVM is going down
@@ -196,6 +266,103 @@ public class Server {
         }));
     }
 
+    /**
+     * Waits for the given {@link HttpChannelInitializer} to prewarm its proxy/router connections (see {@code
+     * ServerConfig.ProxyRouterConnectionPoolConfig.prewarmTargets()}), up to the given timeout. Prewarming is best
+     * effort, so hitting the timeout is logged rather than failing startup.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected void prewarmProxyRouterConnections(
+        @NotNull HttpChannelInitializer httpChannelInitializer,
+        long timeoutMillis
+    ) throws InterruptedException {
+        try {
+            httpChannelInitializer.prewarmProxyRouterConnections().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            logger.warn(
+                "Timed out waiting for proxy/router connections to be prewarmed. Server startup will continue, and "
+                + "any remaining connections will be added to the pools when they're ready. timeout_millis={}",
+                timeoutMillis
+            );
+        }
+        catch (ExecutionException e) {
+            logger.warn("Unable to prewarm proxy/router connections. Server startup will continue.", e);
+        }
+    }
+
+    /**
+     * @return The number of acceptor channels to bind, based on {@link ServerConfig#numAcceptorChannels()}. Multiple
+     * acceptor channels require {@code SO_REUSEPORT}, which is only supported by the native epoll transport, so this
+     * returns 1 (and logs a warning) if more were requested but the given server channel class isn't the epoll one.
+     * Each acceptor channel is registered on the next boss event loop, so a warning is also logged if there are more
+     * acceptor channels than {@link ServerConfig#numBossThreads()} - the extra channels would share boss threads and
+     * add nothing.
+     *
+     * @throws IllegalArgumentException if {@link ServerConfig#numAcceptorChannels()} is less than 1.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected int determineNumAcceptorChannels(
+        @NotNull ServerConfig serverConfig,
+        @NotNull Class<? extends ServerChannel> channelClass
+    ) {
+        int numAcceptorChannels = serverConfig.numAcceptorChannels();
+        if (numAcceptorChannels < 1) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.numAcceptorChannels() must be at least 1. num_acceptor_channels="
+                + numAcceptorChannels
+            );
+        }
+
+        if (numAcceptorChannels > 1 && !EpollServerSocketChannel.class.isAssignableFrom(channelClass)) {
+            logger.warn(
+                "Your ServerConfig.numAcceptorChannels() asked for multiple acceptor channels, but that requires "
+                + "SO_REUSEPORT which is only available with the native epoll transport. Falling back to a single "
+                + "acceptor channel. requested_num_acceptor_channels={}, server_channel_class={}",
+                numAcceptorChannels, channelClass.getName()
+            );
+            return 1;
+        }
+
+        if (numAcceptorChannels > serverConfig.numBossThreads()) {
+            logger.warn(
+                "Your ServerConfig.numAcceptorChannels() is greater than ServerConfig.numBossThreads(). Each "
+                + "acceptor channel is registered on the next boss thread, so the extra acceptor channels will share "
+                + "boss threads and won't improve connection accept throughput. Consider raising numBossThreads() to "
+                + "match. num_acceptor_channels={}, num_boss_threads={}",
+                numAcceptorChannels, serverConfig.numBossThreads()
+            );
+        }
+
+        return numAcceptorChannels;
+    }
+
+    /**
+     * Registers the given Jackson modules (see {@link ServerConfig#defaultObjectMapperModules()}) with the given
+     * mapper, or with a new blank {@link ObjectMapper} if the given mapper is null.
+     *
+     * @return The given mapper as-is if there are no modules to register, otherwise the mapper the modules were
+     * registered with.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected @Nullable ObjectMapper registerObjectMapperModules(
+        @Nullable ObjectMapper mapper,
+        @Nullable List<Module> modules
+    ) {
+        if (modules == null || modules.isEmpty()) {
+            return mapper;
+        }
+
+        if (mapper == null) {
+            mapper = new ObjectMapper();
+        }
+
+        // ObjectMapper ignores modules that have already been registered, so this is safe to call on the same mapper
+        //      more than once (e.g. when the request deserializer and response serializer are the same mapper).
+        mapper.registerModules(modules);
+        return mapper;
+    }
+
     @SuppressWarnings("WeakerAccess")
     protected @NotNull DistributedTracingConfig<Span> getOrGenerateWingtipsDistributedTracingConfig(
         @NotNull ServerConfig serverConfig
@@ -216,6 +383,53 @@ public class Server {
         return (DistributedTracingConfig<Span>) distributedTracingConfigRaw;
     }
 
+    /**
+     * Analyzes {@link ServerConfig#appEndpoints()} with {@link RouteTableAnalyzer} and handles any endpoints that can
+     * match the same request according to {@link EndpointRoutingConfig#ambiguousEndpointsPolicy()}. Endpoints that
+     * might match the same request (but couldn't be proven to) are only logged at debug level.
+     *
+     * @return The analysis, so it can be reused by the {@link com.nike.riposte.server.routing.CompiledEndpointRouter}
+     * rather than redone - or null if the policy is {@link AmbiguousEndpointsPolicy#IGNORE} (or there are no
+     * endpoints), in which case no analysis is done.
+     * @throws IllegalArgumentException if the policy is {@link AmbiguousEndpointsPolicy#FAIL_STARTUP} and at least one
+     * pair of endpoints definitely matches the same request.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected @Nullable RouteTableAnalysis verifyEndpointsAreNotAmbiguous(@NotNull ServerConfig serverConfig) {
+        EndpointRoutingConfig routingConfig = serverConfig.endpointRoutingConfig();
+        if (routingConfig == null) {
+            routingConfig = EndpointRoutingConfig.DEFAULT_IMPL;
+        }
+
+        AmbiguousEndpointsPolicy policy = routingConfig.ambiguousEndpointsPolicy();
+        Collection<Endpoint<?>> endpoints = serverConfig.appEndpoints();
+        //noinspection ConstantConditions
+        if (policy == AmbiguousEndpointsPolicy.IGNORE || endpoints == null) {
+            return null;
+        }
+
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(endpoints);
+        for (AmbiguousEndpoints ambiguity : analysis.getAmbiguousEndpoints()) {
+            if (ambiguity.overlap == Overlap.DEFINITE) {
+                logger.warn("Detected endpoints that match the same requests. {}", ambiguity);
+            }
+            else {
+                logger.debug("Unable to determine whether these endpoints match the same requests. {}", ambiguity);
+            }
+        }
+
+        List<AmbiguousEndpoints> definitelyAmbiguous = analysis.getDefinitelyAmbiguousEndpoints();
+        if (policy == AmbiguousEndpointsPolicy.FAIL_STARTUP && !definitelyAmbiguous.isEmpty()) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.appEndpoints() contains endpoints that match the same requests, and your "
+                + "ServerConfig.endpointRoutingConfig() is set to fail startup in this case. Requests matching more "
+                + "than one endpoint would fail at runtime. ambiguous_endpoints=" + definitelyAmbiguous
+            );
+        }
+
+        return analysis;
+    }
+
     public synchronized void shutdown() throws InterruptedException {
         if (hasShutdown) {
             return;
@@ -223,26 +437,90 @@ public class Server {
 
         try {
             logger.info("Shutting down Riposte...");
+            // execute shutdown hooks - they're only given the first channel when there are multiple acceptor channels,
+            //      to match the post startup hooks.
+            executeServerShutdownHooks(hook -> hook.executeServerShutdownHook(serverConfig, channels.get(0)));
+
+            // Stop accepting new connections.
             List<ChannelFuture> channelCloseFutures = new ArrayList<>();
             for (Channel ch : channels) {
-                // execute shutdown hooks
-                List<@NotNull ServerShutdownHook> serverShutdownHooks = serverConfig.serverShutdownHooks();
-                if (serverShutdownHooks != null) {
-                    for (ServerShutdownHook hook : serverShutdownHooks) {
-                        hook.executeServerShutdownHook(serverConfig, ch);
-                    }
-                }
-
                 channelCloseFutures.add(ch.close());
             }
             for (ChannelFuture chf : channelCloseFutures) {
                 chf.sync();
             }
+
+            // Drain the in-flight requests if desired.
+            long numRequestsStillInFlight = 0;
+            if (inFlightRequestTracker != null) {
+                long drainTimeoutMillis = serverConfig.shutdownDrainTimeoutMillis();
+                inFlightRequestTracker.startDraining();
+                executeServerShutdownHooks(hook -> hook.executeServerDrainStartedHook(serverConfig, channels.get(0)));
+
+                logger.info(
+                    "Draining in-flight requests before shutting down. num_in_flight_requests={}, "
+                    + "drain_timeout_millis={}",
+                    inFlightRequestTracker.getNumInFlightRequests(), drainTimeoutMillis
+                );
+                numRequestsStillInFlight = inFlightRequestTracker.awaitNoInFlightRequests(drainTimeoutMillis);
+                if (numRequestsStillInFlight > 0) {
+                    logger.warn(
+                        "Hit the drain timeout with requests still in flight - they will be cut off. "
+                        + "num_in_flight_requests={}, drain_timeout_millis={}",
+                        numRequestsStillInFlight, drainTimeoutMillis
+                    );
+                }
+                else {
+                    logger.info("All in-flight requests finished.");
+                }
+            }
+
+            long finalNumRequestsStillInFlight = numRequestsStillInFlight;
+            executeServerShutdownHooks(
+                hook -> hook.executeServerDrainFinishedHook(
+                    serverConfig, channels.get(0), finalNumRequestsStillInFlight
+                )
+            );
         }
         finally {
             hasShutdown = true;
+            closeProxyRouterClient();
             eventLoopGroups.forEach(EventExecutorGroup::shutdownGracefully);
             logger.info("...Riposte shutdown complete");
         }
     }
+
+    /**
+     * Releases the proxy/router client's resources (DNS resolver threads, etc) if the default {@link
+     * HttpChannelInitializer} is in use. Errors are logged rather than thrown so they don't interrupt shutdown.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected void closeProxyRouterClient() {
+        if (httpChannelInitializer == null) {
+            return;
+        }
+
+        try {
+            httpChannelInitializer.closeProxyRouterClient();
+        }
+        catch (Throwable t) {
+            logger.warn("Unable to close the proxy/router client during shutdown.", t);
+        }
+    }
+
+    /**
+     * Passes each of the {@link ServerConfig#serverShutdownHooks()} to the given consumer in order. Does nothing if
+     * there are no hooks, or if the server never bound any channels (there's no channel to give the hooks).
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected void executeServerShutdownHooks(@NotNull Consumer<ServerShutdownHook> hookExecutor) {
+        List<@NotNull ServerShutdownHook> serverShutdownHooks = serverConfig.serverShutdownHooks();
+        if (serverShutdownHooks == null || channels.isEmpty()) {
+            return;
+        }
+
+        for (ServerShutdownHook hook : serverShutdownHooks) {
+            hookExecutor.accept(hook);
+        }
+    }
 }
@@ -4,6 +4,9 @@ import com.nike.internal.util.StringUtils;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig;
+import com.nike.riposte.server.config.ServerConfig.Http1PipeliningConfig;
+import com.nike.riposte.server.config.ServerConfig.Http2Config;
 import com.nike.riposte.server.config.ServerConfig.HttpRequestDecoderConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
@@ -17,6 +20,8 @@ import com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler;
 import com.nike.riposte.server.handler.DTraceEndHandler;
 import com.nike.riposte.server.handler.DTraceStartHandler;
 import com.nike.riposte.server.handler.ExceptionHandlingHandler;
+import com.nike.riposte.server.handler.FullHttpRequestSplitterHandler;
+import com.nike.riposte.server.handler.HttpPipeliningHandler;
 import com.nike.riposte.server.handler.IdleChannelTimeoutHandler;
 import com.nike.riposte.server.handler.IncompleteHttpCallTimeoutHandler;
 import com.nike.riposte.server.handler.NonblockingEndpointExecutionHandler;
@@ -35,42 +40,74 @@ import com.nike.riposte.server.handler.RoutingHandler;
 import com.nike.riposte.server.handler.SecurityValidationHandler;
 import com.nike.riposte.server.handler.SmartHttpContentCompressor;
 import com.nike.riposte.server.handler.SmartHttpContentDecompressor;
+import com.nike.riposte.server.handler.StreamingRequestEndpointExecutionHandler;
 import com.nike.riposte.server.hooks.PipelineCreateHook;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
+import com.nike.riposte.server.routing.CompiledEndpointRouter;
+import com.nike.riposte.server.routing.RouteCache;
+import com.nike.riposte.util.JacksonCodecCache;
 import com.nike.wingtips.Span;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AsciiString;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
 /**
  * Channel pipeline initializer that sets up the channel to handle HTTP requests. Also includes support for distributed
  * tracing, request content deserialization and validation, error handling, access logging, and more (see {@link
  * #initChannel(SocketChannel)}).
+ *
+ * <p>If HTTP/2 is enabled (see {@link Http2Config}) then connections that negotiate HTTP/2 are switched over to an
+ * {@link Http2FrameCodec} and {@link Http2MultiplexHandler}, and each HTTP/2 stream gets its own child channel
+ * containing the same request handling pipeline an HTTP/1.x connection gets (see {@link
+ * #addRequestHandlers(ChannelPipeline, boolean)}).
  */
 @SuppressWarnings("WeakerAccess")
 public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
@@ -116,6 +153,44 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link HttpServerCodec} handler in the pipeline.
      */
     public static final String HTTP_SERVER_CODEC_HANDLER_NAME = "HttpServerCodecHandler";
+    /**
+     * The name of the handler that decides whether a connection will speak HTTP/2 or HTTP/1.x - either an {@link
+     * ApplicationProtocolNegotiationHandler} for SSL connections, or a handler that looks for the HTTP/2 connection
+     * preface for cleartext connections. This handler will only be present in the pipeline if {@link
+     * Http2Config#isEnabled()} is true, and it removes itself once the decision is made.
+     */
+    public static final String HTTP2_PROTOCOL_SELECTION_HANDLER_NAME = "Http2ProtocolSelectionHandler";
+    /**
+     * The name of the {@link HttpServerUpgradeHandler} handler in the pipeline. This handler will only be present in
+     * the pipeline for cleartext (non-SSL) connections when {@link Http2Config#isEnabled()} is true.
+     */
+    public static final String HTTP2_CLEARTEXT_UPGRADE_HANDLER_NAME = "Http2CleartextUpgradeHandler";
+    /**
+     * The name of the {@link Http2FrameCodec} handler in the pipeline. This handler is only present for connections
+     * that negotiated HTTP/2.
+     */
+    public static final String HTTP2_FRAME_CODEC_HANDLER_NAME = "Http2FrameCodecHandler";
+    /**
+     * The name of the {@link Http2MultiplexHandler} handler in the pipeline. This handler is only present for
+     * connections that negotiated HTTP/2.
+     */
+    public static final String HTTP2_MULTIPLEX_HANDLER_NAME = "Http2MultiplexHandler";
+    /**
+     * The name of the {@link Http2StreamFrameToHttpObjectCodec} handler in the pipeline of each HTTP/2 stream child
+     * channel.
+     */
+    public static final String HTTP2_STREAM_FRAME_TO_HTTP_OBJECT_CODEC_HANDLER_NAME =
+        "Http2StreamFrameToHttpObjectCodecHandler";
+    /**
+     * The name of the {@link FullHttpRequestSplitterHandler} handler in the pipeline of each HTTP/2 stream child
+     * channel.
+     */
+    public static final String FULL_HTTP_REQUEST_SPLITTER_HANDLER_NAME = "FullHttpRequestSplitterHandler";
+    /**
+     * The name of the {@link HttpPipeliningHandler} handler in the pipeline. This handler may or may not be present in
+     * the pipeline depending on the value of {@link #http1PipeliningConfig}.
+     */
+    public static final String HTTP1_PIPELINING_HANDLER_NAME = "HttpPipeliningHandler";
     /**
      * The name of the {@link RequestStateCleanerHandler} handler in the pipeline.
      */
@@ -177,6 +252,11 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link ProxyRouterEndpointExecutionHandler} handler in the pipeline.
      */
     public static final String PROXY_ROUTER_ENDPOINT_EXECUTION_HANDLER_NAME = "ProxyRouterEndpointExecutionHandler";
+    /**
+     * The name of the {@link StreamingRequestEndpointExecutionHandler} handler in the pipeline.
+     */
+    public static final String STREAMING_REQUEST_ENDPOINT_EXECUTION_HANDLER_NAME =
+        "StreamingRequestEndpointExecutionHandler";
     /**
      * The name of the {@link RequestHasBeenHandledVerificationHandler} handler in the pipeline.
      */
@@ -213,6 +293,9 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      */
     public static final String PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME = "ProcessFinalResponseOutputHandler";
 
+    private static final ByteBuf HTTP2_CONNECTION_PREFACE =
+        Unpooled.unreleasableBuffer(Http2CodecUtil.connectionPrefaceBuf());
+
     // -------- CLASS MEMBER FIELDS ----------
     private final SslContext sslCtx;
     private final int maxRequestSizeInBytes;
@@ -222,6 +305,7 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
     private final RiposteUnhandledErrorHandler riposteUnhandledErrorHandler;
     private final RequestValidator validationService;
     private final ObjectMapper requestContentDeserializer;
+    private final JacksonCodecCache requestContentReaderCache = new JacksonCodecCache();
     private final ResponseSender responseSender;
     private final MetricsListener metricsListener;
     private final long defaultCompletableFutureTimeoutMillis;
@@ -236,6 +320,10 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
     private final int responseCompressionThresholdBytes;
     private final HttpRequestDecoderConfig httpRequestDecoderConfig;
     private final DistributedTracingConfig<Span> distributedTracingConfig;
+    private final CompiledEndpointRouter compiledEndpointRouter;
+    private final RouteCache routeCache;
+    private final Http2Settings http2Settings;
+    private final Http1PipeliningConfig http1PipeliningConfig;
 
     private final StreamingAsyncHttpClient streamingAsyncHttpClientForProxyRouterEndpoints;
 
@@ -344,6 +432,49 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
                                   int responseCompressionThresholdBytes,
                                   HttpRequestDecoderConfig httpRequestDecoderConfig,
                                   @NotNull DistributedTracingConfig<Span> distributedTracingConfig) {
+        this(sslCtx, maxRequestSizeInBytes, endpoints, requestAndResponseFilters, longRunningTaskExecutor,
+             riposteErrorHandler, riposteUnhandledErrorHandler, validationService, requestContentDeserializer,
+             responseSender, metricsListener, defaultCompletableFutureTimeoutMillis, accessLogger, pipelineCreateHooks,
+             requestSecurityValidator, workerChannelIdleTimeoutMillis, proxyRouterConnectTimeoutMillis,
+             incompleteHttpCallTimeoutMillis, maxOpenChannelsThreshold, debugChannelLifecycleLoggingEnabled,
+             userIdHeaderKeys, responseCompressionThresholdBytes, httpRequestDecoderConfig, distributedTracingConfig,
+             HttpChannelInitializerOptions.DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Same as the other constructor, but also takes the optional settings that aren't covered by its arguments (HTTP/2
+     * and HTTP/1.1 pipelining support, endpoint routing, and the proxy/router client's transport, socket options, DNS
+     * resolution, and connection pooling).
+     *
+     * @param options
+     *     The optional settings - see {@link HttpChannelInitializerOptions}. This can be null - if it is null then
+     *     {@link HttpChannelInitializerOptions#DEFAULT_OPTIONS} will be used.
+     */
+    public HttpChannelInitializer(SslContext sslCtx,
+                                  int maxRequestSizeInBytes,
+                                  Collection<Endpoint<?>> endpoints,
+                                  List<RequestAndResponseFilter> requestAndResponseFilters,
+                                  Executor longRunningTaskExecutor,
+                                  RiposteErrorHandler riposteErrorHandler,
+                                  RiposteUnhandledErrorHandler riposteUnhandledErrorHandler,
+                                  RequestValidator validationService,
+                                  ObjectMapper requestContentDeserializer,
+                                  ResponseSender responseSender,
+                                  MetricsListener metricsListener,
+                                  long defaultCompletableFutureTimeoutMillis,
+                                  AccessLogger accessLogger,
+                                  List<PipelineCreateHook> pipelineCreateHooks,
+                                  RequestSecurityValidator requestSecurityValidator,
+                                  long workerChannelIdleTimeoutMillis,
+                                  long proxyRouterConnectTimeoutMillis,
+                                  long incompleteHttpCallTimeoutMillis,
+                                  int maxOpenChannelsThreshold,
+                                  boolean debugChannelLifecycleLoggingEnabled,
+                                  List<String> userIdHeaderKeys,
+                                  int responseCompressionThresholdBytes,
+                                  HttpRequestDecoderConfig httpRequestDecoderConfig,
+                                  @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+                                  @Nullable HttpChannelInitializerOptions options) {
         if (endpoints == null || endpoints.isEmpty())
             throw new IllegalArgumentException("endpoints cannot be empty");
 
@@ -368,6 +499,25 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
             throw new IllegalArgumentException("distributedTracingConfig cannot be null");
         }
 
+        if (options == null) {
+            options = HttpChannelInitializerOptions.DEFAULT_OPTIONS;
+        }
+
+        EndpointRoutingConfig endpointRoutingConfig = options.getEndpointRoutingConfig();
+        if (endpointRoutingConfig == null) {
+            endpointRoutingConfig = EndpointRoutingConfig.DEFAULT_IMPL;
+        }
+
+        Http2Config http2Config = options.getHttp2Config();
+        if (http2Config == null) {
+            http2Config = Http2Config.DEFAULT_IMPL;
+        }
+
+        Http1PipeliningConfig http1PipeliningConfig = options.getHttp1PipeliningConfig();
+        if (http1PipeliningConfig == null) {
+            http1PipeliningConfig = Http1PipeliningConfig.DEFAULT_IMPL;
+        }
+
         this.sslCtx = sslCtx;
         this.maxRequestSizeInBytes = maxRequestSizeInBytes;
         this.endpoints = endpoints;
@@ -376,6 +526,11 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         this.riposteUnhandledErrorHandler = riposteUnhandledErrorHandler;
         this.validationService = validationService;
         this.requestContentDeserializer = requestContentDeserializer;
+        if (requestContentDeserializer != null) {
+            // Build the readers for the default deserializer now, so the first request to each endpoint doesn't pay
+            //      for it.
+            requestContentReaderCache.prebuildReaders(requestContentDeserializer, endpoints);
+        }
         this.responseSender = responseSender;
         this.metricsListener = metricsListener;
         this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
@@ -409,7 +564,12 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
             workerChannelIdleTimeoutMillis,
             proxyRouterConnectTimeoutMillis,
             debugChannelLifecycleLoggingEnabled,
-            distributedTracingConfig
+            distributedTracingConfig,
+            options.getProxyRouterTransportType(),
+            options.getProxyRouterChannelOptionsConfig(),
+            options.getProxyRouterDnsConfig(),
+            options.getProxyRouterConnectionPoolConfig(),
+            metricsListener
         );
 
         boolean hasReqResFilters = requestAndResponseFilters != null && !requestAndResponseFilters.isEmpty();
@@ -438,6 +598,118 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         this.responseCompressionThresholdBytes = responseCompressionThresholdBytes;
         this.httpRequestDecoderConfig = httpRequestDecoderConfig;
         this.distributedTracingConfig = distributedTracingConfig;
+
+        if (endpointRoutingConfig.isCompiledRouterEnabled()) {
+            this.compiledEndpointRouter = new CompiledEndpointRouter(endpoints, options.getRouteTableAnalysis());
+            logger.info(
+                "Compiled endpoint router enabled. compiled_path_templates={}, uncompiled_path_templates={}, "
+                + "first_full_match_wins={}",
+                compiledEndpointRouter.getNumCompiledTemplates(), compiledEndpointRouter.getNumUncompiledTemplates(),
+                compiledEndpointRouter.isFirstFullMatchWins()
+            );
+        }
+        else {
+            this.compiledEndpointRouter = null;
+        }
+
+        int routeCacheMaxSize = endpointRoutingConfig.routeCacheMaxSize();
+        if (routeCacheMaxSize > 0 && RouteCache.supportsEndpoints(endpoints)) {
+            this.routeCache = new RouteCache(routeCacheMaxSize, metricsListener);
+            logger.info("Route cache enabled. route_cache_max_size={}", routeCacheMaxSize);
+        }
+        else {
+            if (routeCacheMaxSize > 0) {
+                logger.warn(
+                    "Route cache disabled - it was requested, but at least one endpoint uses a custom Matcher that "
+                    + "may look at more than the request's HTTP method and path. route_cache_max_size={}",
+                    routeCacheMaxSize
+                );
+            }
+            this.routeCache = null;
+        }
+
+        if (http2Config.isEnabled()) {
+            this.http2Settings = createHttp2Settings(http2Config);
+            logger.info(
+                "HTTP/2 enabled. negotiation={}, max_concurrent_streams={}, initial_window_size={}",
+                (sslCtx == null) ? "h2c_prior_knowledge_and_upgrade" : "alpn",
+                http2Settings.maxConcurrentStreams(), http2Settings.initialWindowSize()
+            );
+            if (sslCtx != null
+                && !sslCtx.applicationProtocolNegotiator().protocols().contains(ApplicationProtocolNames.HTTP_2)) {
+                logger.warn(
+                    "HTTP/2 is enabled, but your SslContext does not advertise the h2 protocol via ALPN, so SSL "
+                    + "callers will only be able to use HTTP/1.1. See the ServerConfig.Http2Config javadocs for how to "
+                    + "configure ALPN."
+                );
+            }
+        }
+        else {
+            this.http2Settings = null;
+        }
+
+        if (http1PipeliningConfig.isEnabled()) {
+            if (http1PipeliningConfig.maxInFlightRequestsPerConnection() <= 0) {
+                throw new IllegalArgumentException(
+                    "Your ServerConfig.http1PipeliningConfig().maxInFlightRequestsPerConnection() must be greater "
+                    + "than 0. max_in_flight_requests_per_connection="
+                    + http1PipeliningConfig.maxInFlightRequestsPerConnection()
+                );
+            }
+            this.http1PipeliningConfig = http1PipeliningConfig;
+            logger.info(
+                "HTTP/1.1 pipelining enabled. max_in_flight_requests_per_connection={}",
+                http1PipeliningConfig.maxInFlightRequestsPerConnection()
+            );
+        }
+        else {
+            this.http1PipeliningConfig = null;
+        }
+    }
+
+    /**
+     * @return The initial {@link Http2Settings} the server should send on each HTTP/2 connection, based on the given
+     * config.
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    protected static @NotNull Http2Settings createHttp2Settings(@NotNull Http2Config http2Config) {
+        if (http2Config.maxConcurrentStreams() <= 0) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.http2Config().maxConcurrentStreams() must be greater than 0. "
+                + "max_concurrent_streams=" + http2Config.maxConcurrentStreams()
+            );
+        }
+
+        if (http2Config.initialWindowSize() < 0) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.http2Config().initialWindowSize() cannot be negative. initial_window_size="
+                + http2Config.initialWindowSize()
+            );
+        }
+
+        return Http2Settings.defaultSettings()
+                            .maxConcurrentStreams(
+                                Math.min(http2Config.maxConcurrentStreams(), Http2CodecUtil.MAX_CONCURRENT_STREAMS)
+                            )
+                            .initialWindowSize(http2Config.initialWindowSize());
+    }
+
+    /**
+     * Opens the proxy/router connections requested by {@code ProxyRouterConnectionPoolConfig.prewarmTargets()} - see
+     * {@link StreamingAsyncHttpClient#prewarmConnections()}.
+     *
+     * @return A future that completes once prewarming has finished. It is never completed exceptionally.
+     */
+    public @NotNull CompletableFuture<Void> prewarmProxyRouterConnections() {
+        return streamingAsyncHttpClientForProxyRouterEndpoints.prewarmConnections();
+    }
+
+    /**
+     * Releases the resources held by the {@link StreamingAsyncHttpClient} used for proxy/router endpoints - see {@link
+     * StreamingAsyncHttpClient#close()}. Should be called when the server shuts down.
+     */
+    public void closeProxyRouterClient() {
+        streamingAsyncHttpClientForProxyRouterEndpoints.close();
     }
 
     @Override
@@ -457,17 +729,75 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         if (sslCtx != null)
             p.addLast(SSL_HANDLER_NAME, sslCtx.newHandler(ch.alloc()));
 
+        // INBOUND - Add the HTTP/2 protocol selection handler if HTTP/2 is enabled. For SSL connections this waits for
+        //           the ALPN result, for cleartext connections it looks for the HTTP/2 connection preface. If the
+        //           connection turns out to be HTTP/2 then it replaces everything after itself with the HTTP/2
+        //           handlers, otherwise it simply removes itself and the HTTP/1.x handlers below take over.
+        if (http2Settings != null) {
+            p.addLast(HTTP2_PROTOCOL_SELECTION_HANDLER_NAME,
+                      (sslCtx == null)
+                      ? new Http2PriorKnowledgeSelectionHandler()
+                      : new Http2AlpnSelectionHandler());
+        }
+
         // IN/OUT - Add the HttpServerCodec to decode requests into the appropriate HttpObjects and encode responses
         //          from HttpObjects into bytes. This MUST be the earliest "outbound" handler after the SSL handler
         //          since outbound handlers are processed in reverse order.
-        p.addLast(HTTP_SERVER_CODEC_HANDLER_NAME,
-                  new HttpServerCodec(
-                      httpRequestDecoderConfig.maxInitialLineLength(),
-                      httpRequestDecoderConfig.maxHeaderSize(),
-                      httpRequestDecoderConfig.maxChunkSize()
-                  )
+        HttpServerCodec httpServerCodec = new HttpServerCodec(
+            httpRequestDecoderConfig.maxInitialLineLength(),
+            httpRequestDecoderConfig.maxHeaderSize(),
+            httpRequestDecoderConfig.maxChunkSize()
+        );
+        p.addLast(HTTP_SERVER_CODEC_HANDLER_NAME, httpServerCodec);
+
+        // INBOUND - Add the HttpServerUpgradeHandler to support "Upgrade: h2c" requests if HTTP/2 is enabled on a
+        //           cleartext connection. Requests that don't ask for an upgrade pass straight through it.
+        if (http2Settings != null && sslCtx == null) {
+            p.addLast(HTTP2_CLEARTEXT_UPGRADE_HANDLER_NAME,
+                      new HttpServerUpgradeHandler(
+                          httpServerCodec,
+                          this::newHttp2UpgradeCodec,
+                          (maxRequestSizeInBytes > 0) ? maxRequestSizeInBytes : Integer.MAX_VALUE
+                      )
+            );
+        }
+
+        if (http1PipeliningConfig == null) {
+            addRequestHandlers(p, false);
+            return;
+        }
+
+        // INBOUND - When pipelining is enabled the connection pipeline doesn't handle requests itself, so the
+        //           OpenChannelLimitHandler goes here instead. Since there's no request pipeline to respond with an
+        //           error, connections that are over the limit are simply closed.
+        if (maxOpenChannelsThreshold != -1) {
+            p.addLast(OPEN_CHANNEL_LIMIT_HANDLER_NAME,
+                      new OpenChannelLimitHandler(openChannelsGroup, maxOpenChannelsThreshold));
+        }
+
+        // IN/OUT - Add the HttpPipeliningHandler, which hands each request to its own child channel (set up by
+        //          newPipelinedRequestInitializer()) and writes their responses back in request order.
+        HttpPipeliningHandler pipeliningHandler = new HttpPipeliningHandler(
+            newPipelinedRequestInitializer(), http1PipeliningConfig.maxInFlightRequestsPerConnection()
+        );
+        p.addLast(HTTP1_PIPELINING_HANDLER_NAME, pipeliningHandler);
+        addConnectionIdleTimeoutHandler(
+            p, "ServerWorkerPipelinedHttpConnection", pipeliningHandler::hasInFlightRequests
         );
+    }
 
+    /**
+     * Adds the handlers that process requests (everything from {@link ProcessFinalResponseOutputHandler} through
+     * {@link ChannelPipelineFinalizerHandler}) to the end of the given pipeline, and then executes the {@link
+     * #pipelineCreateHooks} on it. The pipeline must already contain a codec that translates between bytes (or HTTP/2
+     * frames) and {@link io.netty.handler.codec.http.HttpObject}s.
+     *
+     * @param p The pipeline to add the handlers to - this is either the pipeline of an HTTP/1.x connection, or the
+     * pipeline of a single request's child channel (an HTTP/2 stream, or a pipelined HTTP/1.1 request).
+     * @param isRequestChildChannel true if the pipeline belongs to a single request's child channel, false if it
+     * belongs to a connection.
+     */
+    protected void addRequestHandlers(ChannelPipeline p, boolean isRequestChildChannel) {
         // OUTBOUND - Add ProcessFinalResponseOutputHandler to get the final response headers, calculate the final
         //            content length (after compression/gzip and/or any other modifications), etc, and set those values
         //            on the channel's HttpProcessingState.
@@ -501,7 +831,12 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         // INBOUND - Add RoutingHandler to figure out which endpoint should handle the request and set it on our request
         //           state for later execution
-        p.addLast(ROUTING_HANDLER_NAME, new RoutingHandler(endpoints, maxRequestSizeInBytes, distributedTracingConfig));
+        p.addLast(
+            ROUTING_HANDLER_NAME,
+            new RoutingHandler(
+                endpoints, maxRequestSizeInBytes, distributedTracingConfig, compiledEndpointRouter, routeCache
+            )
+        );
 
         // INBOUND - Add SmartHttpContentDecompressor for automatic content decompression if the request indicates it
         //           is compressed *and* the target endpoint (determined by the previous RoutingHandler) is one that
@@ -511,8 +846,9 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         // INBOUND - Add RequestInfoSetterHandler to populate our RequestInfo's content.
         p.addLast(REQUEST_INFO_SETTER_HANDLER_NAME, new RequestInfoSetterHandler(maxRequestSizeInBytes));
         // INBOUND - Add OpenChannelLimitHandler to limit the number of open incoming server channels, but only if
-        //           maxOpenChannelsThreshold is not -1.
-        if (maxOpenChannelsThreshold != -1) {
+        //           maxOpenChannelsThreshold is not -1. Request child channels are not connections, so they don't
+        //           count against the limit (the connection they belong to was already counted).
+        if (maxOpenChannelsThreshold != -1 && !isRequestChildChannel) {
             p.addLast(OPEN_CHANNEL_LIMIT_HANDLER_NAME,
                       new OpenChannelLimitHandler(openChannelsGroup, maxOpenChannelsThreshold));
         }
@@ -527,7 +863,7 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         // INBOUND - Now that the request state knows which endpoint will be called we can try to deserialize the
         //           request content (if desired by the endpoint)
         p.addLast(REQUEST_CONTENT_DESERIALIZER_HANDLER_NAME,
-                  new RequestContentDeserializerHandler(requestContentDeserializer));
+                  new RequestContentDeserializerHandler(requestContentDeserializer, requestContentReaderCache));
 
         // INBOUND - Now that the request content has (maybe) been deserialized we can try validation on that
         //           deserialized content (if desired by the endpoint and if we have a non-null validator)
@@ -550,6 +886,15 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
                                                           distributedTracingConfig
                   ));
 
+        // INBOUND - Add StreamingRequestEndpointExecutionHandler to perform execution of endpoints that stream the
+        //           request body
+        p.addLast(
+            STREAMING_REQUEST_ENDPOINT_EXECUTION_HANDLER_NAME,
+            new StreamingRequestEndpointExecutionHandler(
+                longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig
+            )
+        );
+
         // INBOUND - Add RequestHasBeenHandledVerificationHandler to verify that one of the endpoint handlers took care
         //           of the request. This makes sure that the messages coming into channelRead are correctly typed for
         //           the rest of the pipeline.
@@ -588,4 +933,219 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Switches the connection pipeline the given {@link ChannelHandlerContext} belongs to over to HTTP/2 - every
+     * handler after the given context's handler (i.e. the HTTP/1.x codec and request handlers) is removed, and an
+     * {@link Http2FrameCodec} and {@link Http2MultiplexHandler} are added in their place. Each HTTP/2 stream then gets
+     * its own child channel set up by {@link #newHttp2StreamInitializer()}.
+     *
+     * @param ctx The context of the handler that decided the connection is HTTP/2.
+     */
+    protected void switchToHttp2(ChannelHandlerContext ctx) {
+        Http2FrameCodec frameCodec = newHttp2FrameCodec();
+        removeHandlersAfter(ctx.pipeline(), ctx.handler());
+        ctx.pipeline()
+           .addAfter(ctx.name(), HTTP2_FRAME_CODEC_HANDLER_NAME, frameCodec)
+           .addAfter(HTTP2_FRAME_CODEC_HANDLER_NAME, HTTP2_MULTIPLEX_HANDLER_NAME, newHttp2MultiplexHandler());
+        addHttp2ConnectionIdleTimeoutHandler(ctx.pipeline(), frameCodec);
+    }
+
+    /**
+     * @return The {@link HttpServerUpgradeHandler.UpgradeCodec} for the given protocol if it's {@code h2c}, or null if
+     * the caller is asking to upgrade to a protocol we don't support (in which case the request is handled as a normal
+     * HTTP/1.1 request).
+     */
+    protected @Nullable HttpServerUpgradeHandler.UpgradeCodec newHttp2UpgradeCodec(CharSequence protocol) {
+        if (!AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+            return null;
+        }
+
+        Http2FrameCodec frameCodec = newHttp2FrameCodec();
+        // The upgrade codec adds these handlers right after the Http2FrameCodec. The last one clears out the HTTP/1.x
+        //      request handlers that come after them, and then removes itself.
+        return new Http2ServerUpgradeCodec(
+            frameCodec,
+            newHttp2MultiplexHandler(),
+            new ChannelHandlerAdapter() {
+                @Override
+                public void handlerAdded(ChannelHandlerContext ctx) {
+                    removeHandlersAfter(ctx.pipeline(), this);
+                    addHttp2ConnectionIdleTimeoutHandler(ctx.pipeline(), frameCodec);
+                    ctx.pipeline().remove(this);
+                }
+            }
+        );
+    }
+
+    /**
+     * @return A new {@link Http2FrameCodec} for a single HTTP/2 connection, advertising the configured {@link
+     * #http2Settings}.
+     */
+    protected @NotNull Http2FrameCodec newHttp2FrameCodec() {
+        return Http2FrameCodecBuilder.forServer()
+                                     .initialSettings(new Http2Settings().copyFrom(http2Settings))
+                                     .build();
+    }
+
+    /**
+     * @return A new {@link Http2MultiplexHandler} for a single HTTP/2 connection, which creates a child channel for
+     * each stream using {@link #newHttp2StreamInitializer()}.
+     */
+    protected @NotNull Http2MultiplexHandler newHttp2MultiplexHandler() {
+        return new Http2MultiplexHandler(newHttp2StreamInitializer());
+    }
+
+    /**
+     * @return The {@link ChannelInitializer} for HTTP/2 stream child channels. It adds an {@link
+     * Http2StreamFrameToHttpObjectCodec} to translate between HTTP/2 frames and {@link
+     * io.netty.handler.codec.http.HttpObject}s, then the same request handlers an HTTP/1.x connection gets via {@link
+     * #addRequestHandlers(ChannelPipeline, boolean)}. Each stream carries exactly one request, so each request gets
+     * fresh channel state (e.g. its own {@link com.nike.riposte.server.http.HttpProcessingState}).
+     */
+    protected @NotNull ChannelInitializer<Channel> newHttp2StreamInitializer() {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ChannelPipeline p = ch.pipeline();
+
+                // UTILITY IN/OUT - Add a LoggingHandler if desired, same as for connections.
+                if (debugChannelLifecycleLoggingEnabled) {
+                    p.addLast(SERVER_WORKER_CHANNEL_DEBUG_LOGGING_HANDLER_NAME,
+                              new LoggingHandler(SERVER_WORKER_CHANNEL_DEBUG_SLF4J_LOGGER_NAME, LogLevel.DEBUG));
+                }
+
+                // IN/OUT - Translate between the stream's HTTP/2 frames and HttpObjects. This plays the same role
+                //          HttpServerCodec does for HTTP/1.x connections.
+                p.addLast(HTTP2_STREAM_FRAME_TO_HTTP_OBJECT_CODEC_HANDLER_NAME,
+                          new Http2StreamFrameToHttpObjectCodec(true));
+
+                // INBOUND - Split FullHttpRequests into HttpRequest + LastHttpContent the way HttpServerCodec would.
+                p.addLast(FULL_HTTP_REQUEST_SPLITTER_HANDLER_NAME, new FullHttpRequestSplitterHandler());
+
+                addRequestHandlers(p, true);
+            }
+        };
+    }
+
+    /**
+     * @return The {@link ChannelInitializer} for the child channels {@link HttpPipeliningHandler} creates for each
+     * pipelined HTTP/1.1 request. The connection's {@link HttpServerCodec} has already decoded the request into {@link
+     * io.netty.handler.codec.http.HttpObject}s (and will encode the response), so this only needs to add the request
+     * handlers via {@link #addRequestHandlers(ChannelPipeline, boolean)}. Each request gets fresh channel state (e.g.
+     * its own {@link com.nike.riposte.server.http.HttpProcessingState}).
+     */
+    protected @NotNull ChannelInitializer<Channel> newPipelinedRequestInitializer() {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ChannelPipeline p = ch.pipeline();
+
+                // UTILITY IN/OUT - Add a LoggingHandler if desired, same as for connections.
+                if (debugChannelLifecycleLoggingEnabled) {
+                    p.addLast(SERVER_WORKER_CHANNEL_DEBUG_LOGGING_HANDLER_NAME,
+                              new LoggingHandler(SERVER_WORKER_CHANNEL_DEBUG_SLF4J_LOGGER_NAME, LogLevel.DEBUG));
+                }
+
+                addRequestHandlers(p, true);
+            }
+        };
+    }
+
+    /**
+     * Adds an {@link IdleChannelTimeoutHandler} to the front of the given HTTP/2 connection pipeline (if {@link
+     * #workerChannelIdleTimeoutMillis} is greater than 0) that closes the connection when it's been idle for too long
+     * while it has no active streams. Just like HTTP/1.x connections, this means long-running requests are never
+     * killed by the idle timeout.
+     */
+    protected void addHttp2ConnectionIdleTimeoutHandler(ChannelPipeline p, Http2FrameCodec frameCodec) {
+        addConnectionIdleTimeoutHandler(
+            p, "ServerWorkerHttp2Connection", () -> frameCodec.connection().numActiveStreams() > 0
+        );
+    }
+
+    /**
+     * Adds an {@link IdleChannelTimeoutHandler} to the front of the given connection pipeline (if {@link
+     * #workerChannelIdleTimeoutMillis} is greater than 0) that closes the connection when it's been idle for too long,
+     * but only while the given {@code hasActiveRequests} returns false. This is for connections whose requests are
+     * handled by child channels (HTTP/2 streams or pipelined HTTP/1.1 requests), where the per-request handlers can't
+     * manage the connection's idle timeout themselves.
+     */
+    protected void addConnectionIdleTimeoutHandler(ChannelPipeline p,
+                                                   String customHandlerIdForLogs,
+                                                   BooleanSupplier hasActiveRequests) {
+        if (workerChannelIdleTimeoutMillis <= 0) {
+            return;
+        }
+
+        // A previous handler for this connection may have already added an idle timeout handler.
+        if (p.get(IDLE_CHANNEL_TIMEOUT_HANDLER_NAME) != null) {
+            p.remove(IDLE_CHANNEL_TIMEOUT_HANDLER_NAME);
+        }
+
+        p.addFirst(
+            IDLE_CHANNEL_TIMEOUT_HANDLER_NAME,
+            new IdleChannelTimeoutHandler(workerChannelIdleTimeoutMillis, customHandlerIdForLogs) {
+                @Override
+                protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
+                    if (!hasActiveRequests.getAsBoolean()) {
+                        super.channelIdle(ctx, evt);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Removes every handler that comes after the given handler in the given pipeline.
+     */
+    protected static void removeHandlersAfter(ChannelPipeline p, ChannelHandler handler) {
+        while (p.last() != null && p.last() != handler) {
+            p.removeLast();
+        }
+    }
+
+    /**
+     * Selects HTTP/2 for SSL connections where the caller picked {@code h2} via ALPN. Otherwise (including when the
+     * caller or the {@link SslContext} doesn't support ALPN) the connection stays HTTP/1.x.
+     */
+    protected class Http2AlpnSelectionHandler extends ApplicationProtocolNegotiationHandler {
+
+        protected Http2AlpnSelectionHandler() {
+            super(ApplicationProtocolNames.HTTP_1_1);
+        }
+
+        @Override
+        protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+            if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                switchToHttp2(ctx);
+            }
+            // Otherwise there's nothing to do - the HTTP/1.x handlers are already in place.
+        }
+    }
+
+    /**
+     * Selects HTTP/2 for cleartext connections that start with the HTTP/2 connection preface (i.e. "prior knowledge"
+     * h2c). Otherwise the connection stays HTTP/1.x, where it can still upgrade to h2c via {@link
+     * #HTTP2_CLEARTEXT_UPGRADE_HANDLER_NAME}. Either way this handler removes itself as soon as it knows the answer,
+     * passing along all the bytes it has seen.
+     */
+    protected class Http2PriorKnowledgeSelectionHandler extends ByteToMessageDecoder {
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            int prefaceLength = HTTP2_CONNECTION_PREFACE.readableBytes();
+            int bytesToCompare = Math.min(in.readableBytes(), prefaceLength);
+
+            if (!ByteBufUtil.equals(HTTP2_CONNECTION_PREFACE, HTTP2_CONNECTION_PREFACE.readerIndex(),
+                                    in, in.readerIndex(), bytesToCompare)) {
+                ctx.pipeline().remove(this);
+            }
+            else if (bytesToCompare == prefaceLength) {
+                switchToHttp2(ctx);
+                ctx.pipeline().remove(this);
+            }
+            // Otherwise what we've seen so far matches the preface, so wait for more bytes.
+        }
+    }
+
+}
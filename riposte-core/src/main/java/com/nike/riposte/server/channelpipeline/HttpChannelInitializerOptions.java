@@ -0,0 +1,251 @@
+package com.nike.riposte.server.channelpipeline;
+
+import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig;
+import com.nike.riposte.server.config.ServerConfig.Http1PipeliningConfig;
+import com.nike.riposte.server.config.ServerConfig.Http2Config;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig;
+import com.nike.riposte.server.config.ServerConfig.TransportType;
+import com.nike.riposte.server.routing.CompiledEndpointRouter;
+import com.nike.riposte.server.routing.RouteCache;
+import com.nike.riposte.server.routing.RouteTableAnalyzer;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.RouteTableAnalysis;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The optional settings for a {@link HttpChannelInitializer} that aren't part of its positional constructor
+ * arguments. Every option may be left null, in which case the {@link HttpChannelInitializer} uses the default
+ * described on the corresponding {@link Builder} method. Create instances via {@link #newBuilder()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class HttpChannelInitializerOptions {
+
+    /**
+     * An instance with every option left unset, i.e. the {@link HttpChannelInitializer} defaults for everything.
+     */
+    public static final HttpChannelInitializerOptions DEFAULT_OPTIONS = newBuilder().build();
+
+    private final @Nullable EndpointRoutingConfig endpointRoutingConfig;
+    private final @Nullable TransportType proxyRouterTransportType;
+    private final @Nullable ChannelOptionsConfig proxyRouterChannelOptionsConfig;
+    private final @Nullable Http2Config http2Config;
+    private final @Nullable Http1PipeliningConfig http1PipeliningConfig;
+    private final @Nullable ProxyRouterDnsConfig proxyRouterDnsConfig;
+    private final @Nullable ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig;
+    private final @Nullable RouteTableAnalysis routeTableAnalysis;
+
+    protected HttpChannelInitializerOptions(@NotNull Builder builder) {
+        this.endpointRoutingConfig = builder.endpointRoutingConfig;
+        this.proxyRouterTransportType = builder.proxyRouterTransportType;
+        this.proxyRouterChannelOptionsConfig = builder.proxyRouterChannelOptionsConfig;
+        this.http2Config = builder.http2Config;
+        this.http1PipeliningConfig = builder.http1PipeliningConfig;
+        this.proxyRouterDnsConfig = builder.proxyRouterDnsConfig;
+        this.proxyRouterConnectionPoolConfig = builder.proxyRouterConnectionPoolConfig;
+        this.routeTableAnalysis = builder.routeTableAnalysis;
+    }
+
+    /**
+     * @return A new builder for {@link HttpChannelInitializerOptions}.
+     */
+    public static @NotNull Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The config controlling how requests are routed to endpoints - see {@link
+     * Builder#withEndpointRoutingConfig(EndpointRoutingConfig)}.
+     */
+    public @Nullable EndpointRoutingConfig getEndpointRoutingConfig() {
+        return endpointRoutingConfig;
+    }
+
+    /**
+     * @return The Netty transport proxy/router endpoints should use - see {@link
+     * Builder#withProxyRouterTransportType(TransportType)}.
+     */
+    public @Nullable TransportType getProxyRouterTransportType() {
+        return proxyRouterTransportType;
+    }
+
+    /**
+     * @return The socket/transport tuning options for proxy/router downstream channels - see {@link
+     * Builder#withProxyRouterChannelOptionsConfig(ChannelOptionsConfig)}.
+     */
+    public @Nullable ChannelOptionsConfig getProxyRouterChannelOptionsConfig() {
+        return proxyRouterChannelOptionsConfig;
+    }
+
+    /**
+     * @return The config controlling whether HTTP/2 connections are accepted - see {@link
+     * Builder#withHttp2Config(Http2Config)}.
+     */
+    public @Nullable Http2Config getHttp2Config() {
+        return http2Config;
+    }
+
+    /**
+     * @return The config controlling HTTP/1.1 pipelining support - see {@link
+     * Builder#withHttp1PipeliningConfig(Http1PipeliningConfig)}.
+     */
+    public @Nullable Http1PipeliningConfig getHttp1PipeliningConfig() {
+        return http1PipeliningConfig;
+    }
+
+    /**
+     * @return The config controlling proxy/router DNS resolution - see {@link
+     * Builder#withProxyRouterDnsConfig(ProxyRouterDnsConfig)}.
+     */
+    public @Nullable ProxyRouterDnsConfig getProxyRouterDnsConfig() {
+        return proxyRouterDnsConfig;
+    }
+
+    /**
+     * @return The config controlling proxy/router connection pools - see {@link
+     * Builder#withProxyRouterConnectionPoolConfig(ProxyRouterConnectionPoolConfig)}.
+     */
+    public @Nullable ProxyRouterConnectionPoolConfig getProxyRouterConnectionPoolConfig() {
+        return proxyRouterConnectionPoolConfig;
+    }
+
+    /**
+     * @return The already-computed {@link RouteTableAnalyzer} results for the endpoints - see {@link
+     * Builder#withRouteTableAnalysis(RouteTableAnalysis)}.
+     */
+    public @Nullable RouteTableAnalysis getRouteTableAnalysis() {
+        return routeTableAnalysis;
+    }
+
+    /**
+     * Builder class for {@link HttpChannelInitializerOptions}.
+     */
+    public static class Builder {
+
+        private EndpointRoutingConfig endpointRoutingConfig;
+        private TransportType proxyRouterTransportType;
+        private ChannelOptionsConfig proxyRouterChannelOptionsConfig;
+        private Http2Config http2Config;
+        private Http1PipeliningConfig http1PipeliningConfig;
+        private ProxyRouterDnsConfig proxyRouterDnsConfig;
+        private ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig;
+        private RouteTableAnalysis routeTableAnalysis;
+
+        protected Builder() {
+            // Use HttpChannelInitializerOptions.newBuilder().
+        }
+
+        /**
+         * Sets the config controlling how requests are routed to endpoints. This can be null - if it is null then
+         * {@link EndpointRoutingConfig#DEFAULT_IMPL} will be used. If {@link
+         * EndpointRoutingConfig#isCompiledRouterEnabled()} is true then the endpoints' path templates are compiled
+         * into a {@link CompiledEndpointRouter} once and shared by all channels. Similarly if {@link
+         * EndpointRoutingConfig#routeCacheMaxSize()} is greater than 0 (and the endpoints support it) then a single
+         * {@link RouteCache} is created and shared by all channels.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withEndpointRoutingConfig(@Nullable EndpointRoutingConfig endpointRoutingConfig) {
+            this.endpointRoutingConfig = endpointRoutingConfig;
+            return this;
+        }
+
+        /**
+         * Sets the Netty transport that proxy/router endpoints should use for their downstream calls. This should
+         * usually match the transport the server's worker event loops are using. This can be null - if it is null
+         * then {@link TransportType#AUTO} will be used. See {@link ServerConfig#transportType()}.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withProxyRouterTransportType(@Nullable TransportType proxyRouterTransportType) {
+            this.proxyRouterTransportType = proxyRouterTransportType;
+            return this;
+        }
+
+        /**
+         * Sets the socket/transport tuning options that should be applied to the downstream channels used by
+         * proxy/router endpoints. This can be null - if it is null then {@link ChannelOptionsConfig#DEFAULT_IMPL}
+         * will be used. See {@link ServerConfig#channelOptionsConfig()}.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withProxyRouterChannelOptionsConfig(
+            @Nullable ChannelOptionsConfig proxyRouterChannelOptionsConfig
+        ) {
+            this.proxyRouterChannelOptionsConfig = proxyRouterChannelOptionsConfig;
+            return this;
+        }
+
+        /**
+         * Sets the config controlling whether HTTP/2 connections are accepted. This can be null - if it is null then
+         * {@link Http2Config#DEFAULT_IMPL} will be used (HTTP/2 disabled). See {@link ServerConfig#http2Config()}.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withHttp2Config(@Nullable Http2Config http2Config) {
+            this.http2Config = http2Config;
+            return this;
+        }
+
+        /**
+         * Sets the config controlling whether pipelined HTTP/1.1 requests are processed concurrently. This can be
+         * null - if it is null then {@link Http1PipeliningConfig#DEFAULT_IMPL} will be used (pipelining support
+         * disabled). See {@link ServerConfig#http1PipeliningConfig()}.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withHttp1PipeliningConfig(@Nullable Http1PipeliningConfig http1PipeliningConfig) {
+            this.http1PipeliningConfig = http1PipeliningConfig;
+            return this;
+        }
+
+        /**
+         * Sets the config controlling how proxy/router endpoints resolve downstream hostnames. This can be null - if
+         * it is null then {@link ProxyRouterDnsConfig#DEFAULT_IMPL} will be used (blocking lookups with random
+         * address selection). See {@link ServerConfig#proxyRouterDnsConfig()}.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withProxyRouterDnsConfig(@Nullable ProxyRouterDnsConfig proxyRouterDnsConfig) {
+            this.proxyRouterDnsConfig = proxyRouterDnsConfig;
+            return this;
+        }
+
+        /**
+         * Sets the config controlling the connection pools used by proxy/router endpoints. This can be null - if it
+         * is null then {@link ProxyRouterConnectionPoolConfig#DEFAULT_IMPL} will be used (unbounded pools). See
+         * {@link ServerConfig#proxyRouterConnectionPoolConfig()}.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withProxyRouterConnectionPoolConfig(
+            @Nullable ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig
+        ) {
+            this.proxyRouterConnectionPoolConfig = proxyRouterConnectionPoolConfig;
+            return this;
+        }
+
+        /**
+         * Sets the result of {@link RouteTableAnalyzer#analyze(java.util.Collection)} for the endpoints if it has
+         * already been done (e.g. by {@link com.nike.riposte.server.Server} when checking for ambiguous endpoints at
+         * startup), so the {@link CompiledEndpointRouter} doesn't have to do it again. This can be null - if it is
+         * null then the endpoints will be analyzed if and when the compiled router needs it.
+         *
+         * @return A reference to this Builder.
+         */
+        public @NotNull Builder withRouteTableAnalysis(@Nullable RouteTableAnalysis routeTableAnalysis) {
+            this.routeTableAnalysis = routeTableAnalysis;
+            return this;
+        }
+
+        /**
+         * @return A {@link HttpChannelInitializerOptions} built with the options from this builder.
+         */
+        public @NotNull HttpChannelInitializerOptions build() {
+            return new HttpChannelInitializerOptions(this);
+        }
+    }
+}
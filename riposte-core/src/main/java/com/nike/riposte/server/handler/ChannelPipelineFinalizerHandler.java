@@ -1,6 +1,7 @@
 package com.nike.riposte.server.handler;
 
 import com.nike.internal.util.Pair;
+import com.nike.riposte.client.asynchttp.netty.ChannelBackpressure;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessage;
@@ -193,6 +194,8 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
 
         ctx.flush();
 
+        closeProxyRouterBackpressure(ctx, requestInfo);
+
         handleMetricsForCompletedRequestIfNotAlreadyDone(state);
 
         // Make sure to clear out request info chunks, multipart data, and any other resources to prevent reference
@@ -224,6 +227,39 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
         }
     }
 
+    /**
+     * Makes sure a proxied call's backpressure doesn't leave the caller's channel or the downstream channel paused now
+     * that the request is done, and records how long each direction was paused as request attributes (see {@link
+     * ProxyRouterEndpointExecutionHandler#REQUEST_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY} and {@link
+     * ProxyRouterEndpointExecutionHandler#RESPONSE_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY}) so metrics listeners
+     * and access loggers can use them. Does nothing if the request wasn't proxied.
+     */
+    protected void closeProxyRouterBackpressure(ChannelHandlerContext ctx, RequestInfo<?> requestInfo) {
+        ProxyRouterProcessingState proxyRouterState =
+            ChannelAttributes.getProxyRouterProcessingStateForChannel(ctx).get();
+        if (proxyRouterState == null) {
+            return;
+        }
+
+        proxyRouterState.closeBackpressure();
+
+        ChannelBackpressure requestBodyBackpressure = proxyRouterState.getRequestBodyBackpressure();
+        if (requestBodyBackpressure != null) {
+            requestInfo.addRequestAttribute(
+                ProxyRouterEndpointExecutionHandler.REQUEST_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY,
+                requestBodyBackpressure.getTotalPausedTimeNanos()
+            );
+        }
+
+        ChannelBackpressure responseBodyBackpressure = proxyRouterState.getResponseBodyBackpressure();
+        if (responseBodyBackpressure != null) {
+            requestInfo.addRequestAttribute(
+                ProxyRouterEndpointExecutionHandler.RESPONSE_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY,
+                responseBodyBackpressure.getTotalPausedTimeNanos()
+            );
+        }
+    }
+
     protected void handleMetricsForCompletedRequestIfNotAlreadyDone(HttpProcessingState state) {
         // Send response-sent event for metrics purposes now that we handled all possible cases.
         //      Due to multiple messages and exception possibilities/interactions it's possible we've already dealt with
@@ -462,8 +498,8 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
      * will do nothing, but if it hasn't already succeeded then it's not going to (since the connection is closing) and
      * doing this will cause any resources it's holding onto to be released.
      *
-     * <p>Also tell ProxyRouterProcessingState to cancel any downstream call. If the downstream call had already
-     * finished this would do nothing.
+     * <p>Also tell ProxyRouterProcessingState to cancel any downstream call and close its backpressure. If the
+     * downstream call had already finished this would do nothing.
      *
      * @param proxyRouterState The state to cleanup.
      */
@@ -475,6 +511,7 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
                 ctx
             );
             proxyRouterState.cancelDownstreamRequest(ARTIFICIAL_SERVER_WORKER_CHANNEL_CLOSED_EXCEPTION);
+            proxyRouterState.closeBackpressure();
         }
     }
 }
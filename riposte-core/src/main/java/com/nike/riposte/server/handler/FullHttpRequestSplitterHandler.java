@@ -0,0 +1,43 @@
+package com.nike.riposte.server.handler;
+
+import java.util.List;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Splits each incoming {@link FullHttpRequest} into a separate {@link HttpRequest} followed by a {@link
+ * LastHttpContent}, and passes every other message through untouched. {@link io.netty.handler.codec.http.HttpServerCodec}
+ * never produces {@link FullHttpRequest}s, but {@link io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec}
+ * does whenever an HTTP/2 request fits in a single headers frame (e.g. a typical GET). The rest of the Riposte pipeline
+ * expects the request and its content as separate messages, so this handler makes HTTP/2 streams look the same as
+ * HTTP/1.x connections to the handlers that come after it.
+ * <p/>
+ * This handler should come directly after the codec that decodes incoming messages into {@link
+ * io.netty.handler.codec.http.HttpObject}s.
+ */
+public class FullHttpRequestSplitterHandler extends MessageToMessageDecoder<FullHttpRequest> {
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, FullHttpRequest msg, List<Object> out) {
+        HttpRequest request = new DefaultHttpRequest(msg.protocolVersion(), msg.method(), msg.uri(), msg.headers());
+        request.setDecoderResult(msg.decoderResult());
+        out.add(request);
+
+        if (!msg.content().isReadable() && msg.trailingHeaders().isEmpty()) {
+            out.add(LastHttpContent.EMPTY_LAST_CONTENT);
+            return;
+        }
+
+        // The FullHttpRequest is released after this method returns, so the content needs an extra retain() to hand
+        //      ownership over to the LastHttpContent.
+        LastHttpContent lastContent = new DefaultLastHttpContent(msg.content().retain());
+        lastContent.trailingHeaders().set(msg.trailingHeaders());
+        out.add(lastContent);
+    }
+}
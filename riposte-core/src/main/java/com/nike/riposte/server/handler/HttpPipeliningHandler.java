@@ -0,0 +1,595 @@
+package com.nike.riposte.server.handler;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+
+/**
+ * Connection-level handler that adds HTTP/1.1 pipelining support to an HTTP/1.x connection. The rest of the Riposte
+ * pipeline keeps its per-request state in channel attributes, so a connection can only ever process one request at a
+ * time. This handler gets around that by giving each request its own {@link PipelinedRequestChannel} - a lightweight
+ * child channel that runs on the connection's event loop and has its own pipeline (set up by the {@code
+ * requestChannelInitializer} passed into the constructor) and its own channel attributes. Pipelined requests are
+ * therefore processed concurrently, just like HTTP/2 streams.
+ * <p/>
+ * Responses are always written to the connection in request order: whatever the request channel at the front of the
+ * line writes goes straight to the connection, and everything the request channels behind it write is buffered until
+ * the responses ahead of them have been written. Once a request's response has been fully written its request channel
+ * is closed, and the next one in line takes over.
+ * <p/>
+ * If a request channel is closed before its response is finished (e.g. due to an error) then the responses after it
+ * can't be delivered in order, so the connection is closed after the responses ahead of it have been written. The
+ * connection is likewise closed after a response to a request that didn't want keep-alive (or a response that said
+ * {@code Connection: close}), and any requests pipelined after it are discarded.
+ * <p/>
+ * To avoid buffering an unbounded number of responses, this handler stops reading from the connection while it has
+ * {@code maxInFlightRequests} requests in flight. It also stops reading from the connection while the request channel
+ * receiving request content has auto-read turned off (e.g. because a proxied request body is being uploaded faster
+ * than the downstream service can take it), since a request channel can't stop reads on its own.
+ * <p/>
+ * This handler should come directly after the {@link io.netty.handler.codec.http.HttpServerCodec} (or directly after
+ * an {@link io.netty.handler.codec.http.HttpServerUpgradeHandler} if there is one), and must be the last handler in
+ * the connection's pipeline. All of its state is only ever touched on the connection's event loop.
+ */
+@SuppressWarnings("WeakerAccess")
+public class HttpPipeliningHandler extends ChannelDuplexHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpPipeliningHandler.class);
+
+    protected final ChannelHandler requestChannelInitializer;
+    protected final int maxInFlightRequests;
+
+    /**
+     * The request channels whose responses have not been fully written to the connection yet, in request order. The
+     * first one is the only one allowed to write to the connection.
+     */
+    protected final Deque<PipelinedRequestChannel> inFlightRequestChannels = new ArrayDeque<>();
+    /**
+     * The request channels that received messages during the current read loop, and therefore need a
+     * channelReadComplete event when the read loop is done.
+     */
+    protected final List<PipelinedRequestChannel> requestChannelsNeedingReadComplete = new ArrayList<>();
+
+    protected ChannelHandlerContext ctx;
+    /**
+     * The request channel that incoming request content should be sent to, or null if we're between requests.
+     */
+    protected PipelinedRequestChannel currentInboundRequestChannel;
+    protected ChannelFuture lastConnectionWriteFuture;
+    protected boolean connectionFlushNeeded;
+    /**
+     * Set to true once we know the connection is going to be closed - no new requests will be accepted after that.
+     */
+    protected boolean connectionClosing;
+
+    /**
+     * @param requestChannelInitializer The handler that sets up the pipeline for each request's {@link
+     * PipelinedRequestChannel} - usually a {@link io.netty.channel.ChannelInitializer}. Since it's added to many
+     * channels it must be {@link io.netty.channel.ChannelHandler.Sharable}. Cannot be null.
+     * @param maxInFlightRequests The max number of requests that can be in flight at the same time on the connection
+     * before this handler stops reading from it. Must be greater than 0.
+     */
+    public HttpPipeliningHandler(@NotNull ChannelHandler requestChannelInitializer, int maxInFlightRequests) {
+        //noinspection ConstantConditions
+        if (requestChannelInitializer == null)
+            throw new IllegalArgumentException("requestChannelInitializer cannot be null");
+
+        if (maxInFlightRequests < 1)
+            throw new IllegalArgumentException("maxInFlightRequests must be at least 1");
+
+        this.requestChannelInitializer = requestChannelInitializer;
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * @return true if the connection has at least one request whose response has not been fully written yet (or that
+     * is still receiving its request content), false if the connection is between requests.
+     */
+    public boolean hasInFlightRequests() {
+        return !inFlightRequestChannels.isEmpty() || currentInboundRequestChannel != null;
+    }
+
+    /**
+     * @return The number of requests whose responses have not been fully written yet.
+     */
+    public int numInFlightRequests() {
+        return inFlightRequestChannels.size();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest) {
+            if (connectionClosing) {
+                // The connection is going away after an earlier response, so there's no point processing this.
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+
+            startNewRequest((HttpRequest) msg);
+        }
+
+        PipelinedRequestChannel requestChannel = currentInboundRequestChannel;
+        if (requestChannel == null || !requestChannel.isOpen()) {
+            // Content for a request that has already been responded to (or discarded) - nobody wants it.
+            ReferenceCountUtil.release(msg);
+            if (msg instanceof LastHttpContent) {
+                currentInboundRequestChannel = null;
+            }
+            return;
+        }
+
+        if (msg instanceof LastHttpContent) {
+            currentInboundRequestChannel = null;
+            updateConnectionAutoRead();
+        }
+
+        if (!requestChannelsNeedingReadComplete.contains(requestChannel)) {
+            requestChannelsNeedingReadComplete.add(requestChannel);
+        }
+        requestChannel.pipeline().fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (requestChannelsNeedingReadComplete.isEmpty()) {
+            return;
+        }
+
+        List<PipelinedRequestChannel> requestChannels = new ArrayList<>(requestChannelsNeedingReadComplete);
+        requestChannelsNeedingReadComplete.clear();
+        for (PipelinedRequestChannel requestChannel : requestChannels) {
+            if (requestChannel.isOpen()) {
+                requestChannel.pipeline().fireChannelReadComplete();
+            }
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        PipelinedRequestChannel requestChannel = currentInboundRequestChannel;
+        if (requestChannel != null && requestChannel.isOpen()) {
+            // The request currently being read owns the error, and its pipeline knows how to respond to it.
+            requestChannel.pipeline().fireExceptionCaught(cause);
+            return;
+        }
+
+        // Nothing can respond to this error in request order, so the only safe option is to close the connection.
+        logger.warn(
+            "Unexpected error on a pipelined HTTP connection outside of any request. The connection will be closed "
+            + "once any in-flight responses have been written. connection={}", ctx.channel(), cause
+        );
+        closeConnectionAfterPendingWrites();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        connectionClosing = true;
+        closeRequestChannels();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        // This can happen if the connection switches protocols (e.g. an HTTP/2 upgrade) - nothing should be in flight
+        //      at that point, but make sure nothing is left dangling.
+        closeRequestChannels();
+    }
+
+    /**
+     * Creates and registers the {@link PipelinedRequestChannel} for the given new request, and makes it the target for
+     * the request's content. Stops reading from the connection if it has hit {@link #maxInFlightRequests}.
+     */
+    protected void startNewRequest(HttpRequest request) {
+        PipelinedRequestChannel requestChannel = newRequestChannel();
+        requestChannel.pipeline().addLast(requestChannelInitializer);
+        if (!HttpUtil.isKeepAlive(request)) {
+            // The connection will be closed after this request's response, so ignore anything pipelined after it.
+            requestChannel.closeConnectionAfterResponse = true;
+            connectionClosing = true;
+        }
+
+        inFlightRequestChannels.addLast(requestChannel);
+        currentInboundRequestChannel = requestChannel;
+
+        ChannelFuture registrationFuture = ctx.channel().eventLoop().register(requestChannel);
+        if (!registrationFuture.isSuccess()) {
+            logger.error("Unable to register the child channel for a pipelined HTTP request. The connection will be "
+                         + "closed. connection={}", ctx.channel(), registrationFuture.cause());
+            closeConnectionAfterPendingWrites();
+        }
+
+        updateConnectionAutoRead();
+    }
+
+    /**
+     * Turns the connection's auto-read on or off depending on whether we're at {@link #maxInFlightRequests} and
+     * whether the request channel receiving request content has turned its own auto-read off.
+     */
+    protected void updateConnectionAutoRead() {
+        PipelinedRequestChannel inboundRequestChannel = currentInboundRequestChannel;
+        boolean inboundRequestChannelPaused = inboundRequestChannel != null
+                                              && inboundRequestChannel.isOpen()
+                                              && !inboundRequestChannel.config().isAutoRead();
+        boolean shouldRead = !inboundRequestChannelPaused && inFlightRequestChannels.size() < maxInFlightRequests;
+
+        ChannelConfig connectionConfig = ctx.channel().config();
+        if (connectionConfig.isAutoRead() != shouldRead) {
+            connectionConfig.setAutoRead(shouldRead);
+        }
+    }
+
+    /**
+     * @return A new (unregistered) {@link PipelinedRequestChannel} for this handler's connection.
+     */
+    protected @NotNull PipelinedRequestChannel newRequestChannel() {
+        return new PipelinedRequestChannel(this, ctx.channel());
+    }
+
+    /**
+     * Called when the given request channel flushes a message. If the request channel is at the front of the line
+     * then the message is written to the connection immediately, otherwise it's buffered until it's that request
+     * channel's turn.
+     */
+    protected void requestChannelWrite(PipelinedRequestChannel requestChannel, Object msg) {
+        if (!requestChannel.isOpen() || requestChannel.responseComplete) {
+            // Nothing more can be written for this request.
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+
+        if (requestChannel != inFlightRequestChannels.peekFirst()) {
+            requestChannel.pendingWrites.add(msg);
+            return;
+        }
+
+        writeToConnection(requestChannel, msg);
+    }
+
+    /**
+     * Called when the given request channel is done handing over a batch of flushed messages.
+     */
+    protected void requestChannelFlush() {
+        if (connectionFlushNeeded) {
+            connectionFlushNeeded = false;
+            ctx.flush();
+        }
+    }
+
+    /**
+     * Writes the given message to the connection on behalf of the given request channel, which must be at the front
+     * of the line. If the message finishes the response then the next request channel in line gets its turn.
+     */
+    protected void writeToConnection(PipelinedRequestChannel requestChannel, Object msg) {
+        if (msg instanceof HttpResponse && !HttpUtil.isKeepAlive((HttpResponse) msg)) {
+            requestChannel.closeConnectionAfterResponse = true;
+        }
+
+        boolean isLastChunk = msg instanceof LastHttpContent;
+        ChannelFuture writeFuture = ctx.write(msg);
+        lastConnectionWriteFuture = writeFuture;
+        connectionFlushNeeded = true;
+        writeFuture.addListener(requestChannel::connectionWriteComplete);
+
+        if (isLastChunk) {
+            requestChannel.responseComplete = true;
+            inFlightRequestChannels.pollFirst();
+            // Close the request channel once its final write is done, but let the current call stack (which is likely
+            //      still in the middle of the request channel's response sending logic) unwind first.
+            writeFuture.addListener(
+                future -> ctx.executor().execute(requestChannel::closeAfterResponseComplete)
+            );
+
+            if (requestChannel.closeConnectionAfterResponse) {
+                closeConnectionAfterPendingWrites();
+                return;
+            }
+
+            updateConnectionAutoRead();
+            startNextResponse();
+        }
+    }
+
+    /**
+     * Gives the next request channel in line its turn - anything it already flushed is written to the connection.
+     */
+    protected void startNextResponse() {
+        PipelinedRequestChannel next = inFlightRequestChannels.peekFirst();
+        if (next == null) {
+            return;
+        }
+
+        if (!next.isOpen()) {
+            // It was closed before finishing its response while it was waiting in line.
+            closeConnectionAfterPendingWrites();
+            return;
+        }
+
+        List<Object> pendingWrites = new ArrayList<>(next.pendingWrites);
+        next.pendingWrites.clear();
+        for (Object msg : pendingWrites) {
+            // This may finish next's response and recursively start the response after it, which is what we want.
+            requestChannelWrite(next, msg);
+        }
+        requestChannelFlush();
+    }
+
+    /**
+     * Called when the given request channel is closed for any reason.
+     */
+    protected void requestChannelClosed(PipelinedRequestChannel requestChannel) {
+        requestChannel.releasePendingWrites();
+        if (requestChannel == currentInboundRequestChannel) {
+            // It can't be holding up reads anymore.
+            updateConnectionAutoRead();
+        }
+
+        if (requestChannel.closedByThisHandler || requestChannel.responseComplete) {
+            return;
+        }
+
+        // The request channel was closed before its response was finished. Nothing after it can be delivered in
+        //      order, so the connection needs to close once everything ahead of it has been written.
+        connectionClosing = true;
+        if (requestChannel == inFlightRequestChannels.peekFirst()) {
+            closeConnectionAfterPendingWrites();
+        }
+        // Otherwise startNextResponse() will close the connection when this request channel reaches the front of the
+        //      line.
+    }
+
+    /**
+     * Closes the connection once everything that has already been written to it is done, and closes all the request
+     * channels that are still in flight (their responses would never be sent).
+     */
+    protected void closeConnectionAfterPendingWrites() {
+        connectionClosing = true;
+        closeRequestChannels();
+        requestChannelFlush();
+
+        ChannelFuture lastWriteFuture = lastConnectionWriteFuture;
+        if (lastWriteFuture == null || lastWriteFuture.isDone()) {
+            ctx.close();
+        }
+        else {
+            lastWriteFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * Closes all the in-flight request channels (plus the one receiving request content, if any).
+     */
+    protected void closeRequestChannels() {
+        List<PipelinedRequestChannel> toClose = new ArrayList<>(inFlightRequestChannels);
+        inFlightRequestChannels.clear();
+        if (currentInboundRequestChannel != null && !toClose.contains(currentInboundRequestChannel)) {
+            toClose.add(currentInboundRequestChannel);
+        }
+        currentInboundRequestChannel = null;
+        requestChannelsNeedingReadComplete.clear();
+
+        for (PipelinedRequestChannel requestChannel : toClose) {
+            requestChannel.closedByThisHandler = true;
+            requestChannel.releasePendingWrites();
+            if (requestChannel.isOpen()) {
+                requestChannel.close();
+            }
+        }
+    }
+
+    /**
+     * The child channel that a single pipelined request is processed on. It shares the connection's event loop,
+     * allocator, and addresses, but has its own pipeline and attributes. Reads are pushed into it by {@link
+     * HttpPipeliningHandler}, and everything it flushes is handed to {@link HttpPipeliningHandler} to be written to the
+     * connection in request order. A write's future only completes once the message has actually been written to the
+     * connection, so listeners behave the same as they would on a real connection.
+     */
+    protected static class PipelinedRequestChannel extends AbstractChannel {
+
+        private static final ChannelMetadata METADATA = new ChannelMetadata(false);
+
+        protected final HttpPipeliningHandler owner;
+        protected final DefaultChannelConfig config;
+        /**
+         * Messages this channel flushed while it wasn't at the front of the line. They're already retained for the
+         * connection.
+         */
+        protected final List<Object> pendingWrites = new ArrayList<>();
+
+        protected boolean open = true;
+        protected boolean responseComplete;
+        protected boolean closeConnectionAfterResponse;
+        protected boolean closedByThisHandler;
+        /**
+         * The number of messages at the front of the outbound buffer that have been handed to {@link #owner} but not
+         * yet written to the connection.
+         */
+        protected int numMessagesHandedOff;
+
+        protected PipelinedRequestChannel(HttpPipeliningHandler owner, Channel connection) {
+            super(connection);
+            this.owner = owner;
+            this.config = new DefaultChannelConfig(this) {
+                @Override
+                protected void autoReadCleared() {
+                    // This may be called from outside the event loop (e.g. by a downstream call's event loop), but
+                    //      the owner's state can only be touched on the event loop.
+                    if (!isRegistered()) {
+                        return;
+                    }
+
+                    if (eventLoop().inEventLoop()) {
+                        owner.updateConnectionAutoRead();
+                    }
+                    else {
+                        eventLoop().execute(owner::updateConnectionAutoRead);
+                    }
+                }
+            };
+            this.config.setAllocator(connection.config().getAllocator());
+            this.config.setWriteBufferWaterMark(connection.config().getWriteBufferWaterMark());
+        }
+
+        @Override
+        public ChannelConfig config() {
+            return config;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open;
+        }
+
+        @Override
+        public ChannelMetadata metadata() {
+            return METADATA;
+        }
+
+        @Override
+        protected AbstractUnsafe newUnsafe() {
+            return new AbstractUnsafe() {
+                @Override
+                public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+                    promise.setFailure(new UnsupportedOperationException());
+                }
+            };
+        }
+
+        @Override
+        protected boolean isCompatible(EventLoop loop) {
+            return true;
+        }
+
+        @Override
+        protected SocketAddress localAddress0() {
+            return parent().localAddress();
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return parent().remoteAddress();
+        }
+
+        @Override
+        protected void doBind(SocketAddress localAddress) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void doDisconnect() {
+            doClose();
+        }
+
+        @Override
+        protected void doClose() {
+            if (!open) {
+                return;
+            }
+
+            open = false;
+            owner.requestChannelClosed(this);
+        }
+
+        @Override
+        protected void doBeginRead() {
+            // Reads are pushed into this channel by the owner, but the owner needs to know if this channel just turned
+            //      auto-read back on so it can start reading from the connection again.
+            owner.updateConnectionAutoRead();
+        }
+
+        @Override
+        protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+            // Hand over everything that was flushed since last time. The messages stay in the outbound buffer (so
+            //      their futures don't complete) until they've actually been written to the connection. Collect them
+            //      first since a failed write can remove messages from the buffer right away.
+            List<Object> newMessages = new ArrayList<>();
+            int[] index = {0};
+            in.forEachFlushedMessage(msg -> {
+                if (index[0]++ >= numMessagesHandedOff) {
+                    newMessages.add(msg);
+                }
+                return true;
+            });
+
+            numMessagesHandedOff += newMessages.size();
+            for (Object msg : newMessages) {
+                // The outbound buffer releases its reference when the message is removed, so the connection needs
+                //      its own.
+                owner.requestChannelWrite(this, ReferenceCountUtil.retain(msg));
+            }
+            owner.requestChannelFlush();
+        }
+
+        /**
+         * Called when one of this channel's messages has been written to the connection (or failed to be). Messages
+         * are written to the connection in order, so it's always the one at the front of the outbound buffer.
+         */
+        protected void connectionWriteComplete(Future<? super Void> future) {
+            ChannelOutboundBuffer in = unsafe().outboundBuffer();
+            if (in == null || numMessagesHandedOff <= 0) {
+                // This channel is already closed, which failed all of its outstanding writes.
+                return;
+            }
+
+            numMessagesHandedOff--;
+            if (future.isSuccess()) {
+                in.remove();
+            }
+            else {
+                in.remove(future.cause());
+            }
+        }
+
+        /**
+         * Closes this channel now that its response has been fully written, unless something else already closed it.
+         */
+        protected void closeAfterResponseComplete() {
+            if (isOpen()) {
+                closedByThisHandler = true;
+                close();
+            }
+        }
+
+        protected void releasePendingWrites() {
+            for (Object msg : pendingWrites) {
+                ReferenceCountUtil.release(msg);
+            }
+            pendingWrites.clear();
+        }
+    }
+}
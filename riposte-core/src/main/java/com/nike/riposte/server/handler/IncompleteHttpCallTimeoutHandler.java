@@ -39,6 +39,10 @@ public class IncompleteHttpCallTimeoutHandler extends IdleStateHandler {
         this.idleTimeoutMillis = idleTimeoutMillis;
     }
 
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
     @Override
     protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
         if (alreadyTriggeredException) {
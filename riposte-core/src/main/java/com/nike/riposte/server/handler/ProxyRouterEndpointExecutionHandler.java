@@ -5,10 +5,16 @@ import com.nike.fastbreak.CircuitBreaker;
 import com.nike.fastbreak.CircuitBreaker.ManualModeTask;
 import com.nike.fastbreak.CircuitBreakerDelegate;
 import com.nike.internal.util.Pair;
+import com.nike.riposte.client.asynchttp.netty.ChannelBackpressure;
+import com.nike.riposte.client.asynchttp.netty.ProxyBodySplicer;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+import com.nike.riposte.client.loadbalancing.UpstreamTarget;
+import com.nike.riposte.client.retry.DownstreamRetryPolicy;
+import com.nike.riposte.client.retry.RetryingDownstreamCall;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendLastContentChunk;
 import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendContentChunk;
 import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendHeadersChunkFromResponseInfo;
@@ -27,6 +33,7 @@ import com.nike.riposte.util.AsyncNettyHelper;
 import com.nike.riposte.util.HttpUtils;
 import com.nike.wingtips.Span;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,17 +45,23 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 
 import static com.nike.fastbreak.CircuitBreakerForHttpStatusCode.getDefaultHttpStatusCodeCircuitBreakerForKey;
 import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
@@ -76,6 +89,17 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
     public static final String DOWNSTREAM_CALL_PATH_REQUEST_ATTR_KEY = "proxyRouterDownstreamCallPath";
     public static final String DOWNSTREAM_CALL_CONNECTION_SETUP_TIME_NANOS_REQUEST_ATTR_KEY =
         ProxyRouterEndpointExecutionHandler.class + "-ProxyRouterDownstreamConnectionSetupTimeNanos";
+    /**
+     * Request attribute for the total time in nanoseconds that reading the request body from the caller was paused
+     * because the downstream service wasn't keeping up.
+     */
+    public static final String REQUEST_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY = "proxyRouterRequestBodyPausedTimeNanos";
+    /**
+     * Request attribute for the total time in nanoseconds that reading the response body from the downstream service
+     * was paused because the caller wasn't keeping up.
+     */
+    public static final String RESPONSE_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY =
+        "proxyRouterResponseBodyPausedTimeNanos";
 
     public ProxyRouterEndpointExecutionHandler(
         Executor longRunningTaskExecutor,
@@ -104,6 +128,22 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
         return proxyRouterState;
     }
 
+    @Override
+    public PipelineContinuationBehavior doChannelWritabilityChanged(ChannelHandlerContext ctx) {
+        // The caller's channel crossed one of its write buffer water marks. If it drained enough then we can start
+        //      reading the response body from the downstream service again.
+        ProxyRouterProcessingState proxyRouterState =
+            ChannelAttributes.getProxyRouterProcessingStateForChannel(ctx).get();
+        if (proxyRouterState != null) {
+            ChannelBackpressure responseBodyBackpressure = proxyRouterState.getResponseBodyBackpressure();
+            if (responseBodyBackpressure != null) {
+                responseBodyBackpressure.resumeProducerIfConsumerWritable();
+            }
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
     protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
         // This handler should only do something if the endpoint is a ProxyRouterEndpoint.
         //      Additionally, this handler should only pay attention to Netty HTTP messages. Other messages (e.g. user
@@ -122,6 +162,7 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
             RequestInfo<?> requestInfo = state.getRequestInfo();
 
             if (msg instanceof HttpRequest) {
+                HttpRequest incomingRequest = (HttpRequest) msg;
                 if (requestInfo instanceof RiposteInternalRequestInfo) {
                     // Tell this RequestInfo that we'll be managing the release of content chunks, so that when
                     //      RequestInfo.releaseAllResources() is called we don't have extra reference count removals.
@@ -151,7 +192,8 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                         getCircuitBreaker(downstreamRequestFirstChunkInfo, ctx).map(CircuitBreaker::newManualModeTask);
 
                     StreamingCallback callback = new StreamingCallbackForCtx(
-                        ctx, circuitBreakerManualTask, endpointProxyRouter, requestInfo, proxyRouterState
+                        ctx, circuitBreakerManualTask, endpointProxyRouter, requestInfo, proxyRouterState,
+                        (downstreamRequestFirstChunkInfo == null) ? null : downstreamRequestFirstChunkInfo.upstreamTarget
                     );
                     if (throwable != null) {
                         // Something blew up trying to determine the first chunk info.
@@ -201,17 +243,31 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                                 //      on subsequent chunks.
                                 proxyRouterState.setStreamingCallback(callback);
 
+                                // Splicing gives up the ability to replay the request body, so it's off for calls
+                                //      that might be retried.
+                                DownstreamRetryPolicy retryPolicy = downstreamRequestFirstChunkInfo.retryPolicy;
+                                boolean splicePassthrough =
+                                    downstreamRequestFirstChunkInfo.splicePassthrough
+                                    && (retryPolicy == null || !retryPolicy.isRetryable(downstreamRequestFirstChunk));
+
                                 // Setup the streaming channel future with everything it needs to kick off the
                                 //      downstream request.
                                 proxyRouterState.setStreamingStartTimeNanos(System.nanoTime());
-                                CompletableFuture<StreamingChannel> streamingChannel =
-                                    streamingAsyncHttpClient.streamDownstreamCall(
-                                        downstreamHost, downstreamPort, downstreamRequestFirstChunk, isSecureHttpsCall,
-                                        relaxedHttpsValidation, callback, callTimeoutValueToUse,
+                                RetryingDownstreamCall.AttemptStarter attemptStarter =
+                                    (attemptFirstChunk, attemptCallback) -> streamingAsyncHttpClient.streamDownstreamCall(
+                                        downstreamHost, downstreamPort, attemptFirstChunk, isSecureHttpsCall,
+                                        relaxedHttpsValidation, attemptCallback, callTimeoutValueToUse,
                                             performSubSpanAroundDownstreamCall, addTracingHeadersToDownstreamCall,
                                             proxyRouterState, requestInfo,
-                                            ctx
+                                            ctx, splicePassthrough
                                     );
+                                CompletableFuture<StreamingChannel> streamingChannel =
+                                    (retryPolicy != null && retryPolicy.isRetryable(downstreamRequestFirstChunk))
+                                    ? startRetryingDownstreamCall(
+                                        retryPolicy, downstreamRequestFirstChunk, callback, attemptStarter,
+                                        proxyRouterState, ctx
+                                    )
+                                    : attemptStarter.startAttempt(downstreamRequestFirstChunk, callback);
 
                                 // Tell the streaming channel future what to do when it completes.
                                 streamingChannel = streamingChannel.whenComplete((sc, cause) -> {
@@ -219,6 +275,19 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                                         // Successfully connected and sent the first chunk. We can now safely let
                                         //      the remaining content chunks through for streaming.
                                         proxyRouterState.triggerChunkProcessing(sc);
+
+                                        if (
+                                            proxyRouterState.getSplicePassthroughIncomingChannel() != null
+                                            && isRequestBodyEligibleForSplicing(
+                                                incomingRequest, downstreamRequestFirstChunk, endpointProxyRouter,
+                                                requestInfo
+                                            )
+                                        ) {
+                                            startRequestSplicePassthrough(
+                                                sc, ProxyBodySplicer.spliceableContentLength(incomingRequest),
+                                                proxyRouterState, callback, ctx
+                                            );
+                                        }
                                     }
                                     else {
                                         // Something blew up while connecting to the downstream server.
@@ -242,6 +311,7 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
             }
             else if (msg instanceof HttpContent) {
                 HttpContent msgContent = (HttpContent)msg;
+                proxyRouterState.addRequestBodyBytesReceived(msgContent.content().readableBytes());
 
                 // releaseContentChunkIfStreamAlreadyFailed() will check if we already know that the downstream call
                 //      has already failed. If so then it will release the reference counts on the given HttpContent
@@ -259,6 +329,180 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
         return PipelineContinuationBehavior.CONTINUE;
     }
 
+    /**
+     * Runs the downstream call through a {@link RetryingDownstreamCall} so it can be retried and hedged according to
+     * the given policy.
+     *
+     * @return The future for the chosen attempt's {@link StreamingChannel}.
+     */
+    protected CompletableFuture<StreamingChannel> startRetryingDownstreamCall(
+        DownstreamRetryPolicy retryPolicy,
+        HttpRequest downstreamRequestFirstChunk,
+        StreamingCallback callback,
+        RetryingDownstreamCall.AttemptStarter attemptStarter,
+        ProxyRouterProcessingState proxyRouterState,
+        ChannelHandlerContext ctx
+    ) {
+        RetryingDownstreamCall retryingCall = new RetryingDownstreamCall(
+            retryPolicy, downstreamRequestFirstChunk, callback,
+            (attemptFirstChunk, attemptCallback) -> {
+                if (!ctx.channel().isActive()) {
+                    // The caller went away, so don't bother starting any more attempts.
+                    CompletableFuture<StreamingChannel> result = new CompletableFuture<>();
+                    result.completeExceptionally(new RuntimeException(
+                        "The channel from the original caller was closed before the downstream call attempt could "
+                        + "be started."
+                    ));
+                    return result;
+                }
+
+                return attemptStarter.startAttempt(attemptFirstChunk, attemptCallback);
+            },
+            ctx.executor(),
+            // Each attempt sets up backpressure against its own downstream channel, so point it back at the chosen
+            //      one.
+            chosenChannel -> proxyRouterState.setupBackpressure(ctx.channel(), chosenChannel.getChannel())
+        );
+
+        if (retryingCall.isWholeRequestSentWithFirstChunk()) {
+            proxyRouterState.setWholeRequestSentWithFirstChunk();
+        }
+
+        return retryingCall.start();
+    }
+
+    /**
+     * @return true if the rest of the caller's request body can be spliced straight to the downstream call, i.e. both
+     * the incoming and downstream requests have the same {@code Content-Length} framing (see {@link
+     * ProxyBodySplicer#spliceableContentLength(HttpMessage)}), and the body isn't going to be decompressed on its way
+     * through (which would make the byte counts meaningless).
+     */
+    protected boolean isRequestBodyEligibleForSplicing(
+        HttpRequest incomingRequest,
+        HttpRequest downstreamRequestFirstChunk,
+        ProxyRouterEndpoint endpoint,
+        RequestInfo<?> requestInfo
+    ) {
+        long incomingContentLength = ProxyBodySplicer.spliceableContentLength(incomingRequest);
+        if (incomingContentLength <= 0
+            || incomingContentLength != ProxyBodySplicer.spliceableContentLength(downstreamRequestFirstChunk)
+        ) {
+            return false;
+        }
+
+        return !incomingRequest.headers().contains(HttpHeaderNames.CONTENT_ENCODING)
+               || !endpoint.isDecompressRequestPayloadAllowed(requestInfo);
+    }
+
+    /**
+     * Starts splicing the rest of the caller's request body straight to the downstream channel (see {@link
+     * StreamingChannel#spliceRequestBodyFrom(Channel, long)}). Reading from the caller is paused first, and the splice
+     * only starts once every chunk that already came through the pipeline has been handed to the downstream channel
+     * and nothing else has been read since - otherwise it tries again after the newly read chunks. If the call can no
+     * longer be spliced by then, reading is resumed and the body streams through the pipeline as usual.
+     *
+     * <p>Once the splice is done the caller's {@link HttpServerCodec} is reset (it's still waiting for the spliced
+     * bytes), and an empty {@link LastHttpContent} is sent through the rest of the pipeline so the request finishes as
+     * usual. If the splice fails the caller's connection is closed, since an unknown part of the request body has
+     * already been consumed and the connection can't be trusted for another request.
+     */
+    protected void startRequestSplicePassthrough(
+        StreamingChannel sc,
+        long requestContentLength,
+        ProxyRouterProcessingState proxyRouterState,
+        StreamingCallback callback,
+        ChannelHandlerContext ctx
+    ) {
+        Channel incomingChannel = ctx.channel();
+        incomingChannel.config().setAutoRead(false);
+        long bytesReceivedSnapshot = proxyRouterState.getRequestBodyBytesReceived();
+        if (requestContentLength - bytesReceivedSnapshot <= 0) {
+            incomingChannel.config().setAutoRead(true);
+            return;
+        }
+
+        // Get in line behind the chunks that have already been registered. Streaming a chunk hops onto the downstream
+        //      channel's event loop, so hop onto it as well to end up behind the writes too.
+        proxyRouterState.registerStreamingChannelChunkProcessingAction((registeredSc, cause) -> {
+            if (cause != null) {
+                // The call already failed - the rest of the body will be released as it comes through the pipeline.
+                incomingChannel.config().setAutoRead(true);
+                return;
+            }
+
+            if (proxyRouterState.getRequestBodyBytesReceived() != bytesReceivedSnapshot) {
+                // More of the body came through the pipeline in the meantime - get in line behind it.
+                startRequestSplicePassthrough(sc, requestContentLength, proxyRouterState, callback, ctx);
+                return;
+            }
+
+            sc.getChannel().eventLoop().execute(runnableWithTracingAndMdc(
+                () -> doRequestSplicePassthrough(
+                    sc, requestContentLength, bytesReceivedSnapshot, proxyRouterState, callback, ctx
+                ),
+                ctx
+            ));
+        });
+    }
+
+    protected void doRequestSplicePassthrough(
+        StreamingChannel sc,
+        long requestContentLength,
+        long bytesReceivedSnapshot,
+        ProxyRouterProcessingState proxyRouterState,
+        StreamingCallback callback,
+        ChannelHandlerContext ctx
+    ) {
+        Channel incomingChannel = ctx.channel();
+        if (proxyRouterState.getRequestBodyBytesReceived() != bytesReceivedSnapshot) {
+            startRequestSplicePassthrough(sc, requestContentLength, proxyRouterState, callback, ctx);
+            return;
+        }
+
+        if (
+            !sc.isDownstreamCallActive()
+            || proxyRouterState.isRequestStreamingCancelled()
+            || !ProxyBodySplicer.canSpliceBetween(incomingChannel, sc.getChannel())
+            || !ProxyBodySplicer.canResetDecoder()
+        ) {
+            // Fall back to streaming the rest of the body through the pipeline.
+            incomingChannel.config().setAutoRead(true);
+            return;
+        }
+
+        ChannelPipeline p = ctx.pipeline();
+        // The spliced bytes never reach the pipeline, so this timeout would fire even though the request is moving.
+        //      The downstream call timeout still covers a stalled splice.
+        if (p.get(HttpChannelInitializer.INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME) != null) {
+            p.remove(HttpChannelInitializer.INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME);
+        }
+
+        Future<Void> spliceFuture =
+            sc.spliceRequestBodyFrom(incomingChannel, requestContentLength - bytesReceivedSnapshot);
+        spliceFuture.addListener(done -> {
+            if (spliceFuture.isSuccess()) {
+                HttpServerCodec serverCodec = p.get(HttpServerCodec.class);
+                if (serverCodec != null && ProxyBodySplicer.resetDecoder(serverCodec)) {
+                    p.context(serverCodec).fireChannelRead(LastHttpContent.EMPTY_LAST_CONTENT);
+                    return;
+                }
+            }
+
+            Throwable errorToFire = new WrapperException(
+                "Splicing the request body to the downstream service failed. downstream_channel_id="
+                + sc.getChannel().toString(),
+                spliceFuture.cause()
+            );
+            try {
+                callback.unrecoverableErrorOccurred(errorToFire, true);
+            }
+            finally {
+                sc.closeChannelDueToUnrecoverableError(errorToFire);
+                incomingChannel.close();
+            }
+        });
+    }
+
     protected void registerChunkStreamingAction(
         ProxyRouterProcessingState proxyRouterState,
         HttpContent msgContent,
@@ -274,6 +518,16 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                 return;
             }
 
+            if (cause == null && proxyRouterState.isWholeRequestSentWithFirstChunk()) {
+                // The downstream request was already sent in full (there's no body to stream), so this chunk is
+                //      empty and there's nothing to do but release it.
+                msgContent.release();
+                if (msgContent instanceof LastHttpContent) {
+                    proxyRouterState.setRequestStreamingCompletedSuccessfully();
+                }
+                return;
+            }
+
             if (cause == null) {
                 // Nothing has blown up yet, so stream this next chunk downstream. Calling streamChunk() will decrement
                 //      the chunk's reference count (at some point in the future), allowing it to be destroyed since
@@ -491,10 +745,12 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
         private final ProxyRouterEndpoint endpoint;
         private final RequestInfo<?> requestInfo;
         private final ProxyRouterProcessingState proxyRouterProcessingState;
+        private final @Nullable UpstreamTarget upstreamTarget;
         private boolean channelIsActive = true;
         private boolean firstChunkSent = false;
         private boolean lastChunkSent = false;
         private boolean downstreamCallTimeSet = false;
+        private volatile int downstreamResponseStatusCode = -1;
         private boolean cancelStreamingToOriginalCaller = false;
 
         private final Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -505,12 +761,24 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
             ProxyRouterEndpoint endpoint,
             RequestInfo<?> requestInfo,
             ProxyRouterProcessingState proxyRouterProcessingState
+        ) {
+            this(ctx, circuitBreakerManualModeTask, endpoint, requestInfo, proxyRouterProcessingState, null);
+        }
+
+        StreamingCallbackForCtx(
+            ChannelHandlerContext ctx,
+            Optional<ManualModeTask<HttpResponse>> circuitBreakerManualModeTask,
+            ProxyRouterEndpoint endpoint,
+            RequestInfo<?> requestInfo,
+            ProxyRouterProcessingState proxyRouterProcessingState,
+            @Nullable UpstreamTarget upstreamTarget
         ) {
             this.ctx = ctx;
             this.circuitBreakerManualModeTask = circuitBreakerManualModeTask;
             this.endpoint = endpoint;
             this.requestInfo = requestInfo;
             this.proxyRouterProcessingState = proxyRouterProcessingState;
+            this.upstreamTarget = upstreamTarget;
         }
 
         protected void logResponseFirstChunk(HttpResponse response) {
@@ -543,18 +811,41 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
             }
         }
 
-        protected void setDownstreamCallTimeOnRequestAttributesIfNotAlreadyDone() {
+        protected void setDownstreamCallTimeOnRequestAttributesIfNotAlreadyDone(boolean callSuccessful) {
             if (downstreamCallTimeSet)
                 return;
 
+            downstreamCallTimeSet = true;
+
             long startTimeNanos = proxyRouterProcessingState.getStreamingStartTimeNanos();
             if (startTimeNanos > 0) { // 0 means we never started the call - likely due to an error/bad connection/etc.
                 long downstreamCallTimeNanos =
                     System.nanoTime() - proxyRouterProcessingState.getStreamingStartTimeNanos();
                 requestInfo.addRequestAttribute(DOWNSTREAM_CALL_TIME_NANOS_REQUEST_ATTR_KEY, downstreamCallTimeNanos);
+                reportCallFinishedToUpstreamTarget(downstreamCallTimeNanos, callSuccessful);
+            }
+            else if (upstreamTarget != null) {
+                upstreamTarget.callCancelled();
             }
+        }
 
-            downstreamCallTimeSet = true;
+        /**
+         * Feeds the finished downstream call back into the {@link UpstreamTarget} it was sent to (if it was picked from
+         * an {@link com.nike.riposte.client.loadbalancing.UpstreamCluster}) so latency-aware load balancers can react
+         * to it. A 5xx response counts as a failed call even though the call itself completed.
+         */
+        protected void reportCallFinishedToUpstreamTarget(long downstreamCallTimeNanos, boolean callSuccessful) {
+            if (upstreamTarget == null)
+                return;
+
+            boolean successful = callSuccessful && downstreamResponseStatusCode < 500;
+            try {
+                upstreamTarget.callFinished(downstreamCallTimeNanos, successful);
+            }
+            catch (Throwable t) {
+                logger.error("An error occurred while reporting a finished call to its upstream target. "
+                             + "This will be ignored. upstream_target={}", upstreamTarget, t);
+            }
         }
 
         @Override
@@ -585,6 +876,7 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                     runnableWithTracingAndMdc(
                         () -> {
                             HttpResponse httpResponse = (HttpResponse) msg;
+                            downstreamResponseStatusCode = httpResponse.status().code();
                             // Do debug logging on the original HttpResponse
                             logResponseFirstChunk(httpResponse);
 
@@ -647,7 +939,7 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                         : new OutboundMessageSendContentChunk(contentChunk);
 
                     if (contentChunk instanceof LastHttpContent) {
-                        setDownstreamCallTimeOnRequestAttributesIfNotAlreadyDone();
+                        setDownstreamCallTimeOnRequestAttributesIfNotAlreadyDone(true);
                     }
 
                     EventExecutor executor = ctx.executor();
@@ -734,6 +1026,16 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                     lastChunkSent = true;
 
                 ctx.fireChannelRead(contentChunkToSend);
+
+                // Stop reading the response body from the downstream service if the caller isn't keeping up. It'll be
+                //      resumed when the caller's channel drains (see doChannelWritabilityChanged()).
+                ChannelBackpressure responseBodyBackpressure = proxyRouterProcessingState.getResponseBodyBackpressure();
+                if (responseBodyBackpressure != null) {
+                    if (lastChunkSent)
+                        responseBodyBackpressure.close();
+                    else
+                        responseBodyBackpressure.pauseProducerIfConsumerUnwritable();
+                }
             }
         }
 
@@ -746,7 +1048,7 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
             //      system can still successfully send a full response even though the request wasn't fully sent.
             proxyRouterProcessingState.cancelRequestStreaming(error, ctx);
 
-            setDownstreamCallTimeOnRequestAttributesIfNotAlreadyDone();
+            setDownstreamCallTimeOnRequestAttributesIfNotAlreadyDone(false);
 
             EventExecutor executor = ctx.executor();
             if (executor.inEventLoop()) {
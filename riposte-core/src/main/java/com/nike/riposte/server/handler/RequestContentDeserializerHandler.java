@@ -7,14 +7,18 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.util.JacksonCodecCache;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.LastHttpContent;
 
 /**
@@ -26,6 +30,16 @@ import io.netty.handler.codec.http.LastHttpContent;
  * {@link Endpoint#customRequestContentDeserializer(RequestInfo)} if the endpoint returns one, otherwise it will use
  * {@link #defaultRequestContentDeserializer}.
  * <p/>
+ * If this handler is given a {@link JacksonCodecCache} then it passes {@link
+ * RequestInfo#setupContentDeserializer(ObjectMapper, TypeReference, ObjectReader)} a cached {@link ObjectReader} for
+ * the deserializer and type, so the request content can be deserialized without Jackson having to look up the type for
+ * every request.
+ * <p/>
+ * If the endpoint wants its request content deserialized as it arrives (see {@link
+ * Endpoint#isIncrementalRequestContentDeserializationEnabled(RequestInfo)}) then this handler also calls {@link
+ * RequestInfo#setupIncrementalContentDeserializer(ObjectMapper, TypeReference, ObjectReader)} when it sees the {@link
+ * HttpRequest}, which comes through before any of the content chunks are added to the {@link RequestInfo}.
+ * <p/>
  * This must come after {@link com.nike.riposte.server.handler.RequestInfoSetterHandler} and {@link
  * com.nike.riposte.server.handler.RoutingHandler} in the pipeline to make sure that the {@link
  * HttpProcessingState#getRequestInfo()} and {@link HttpProcessingState#getEndpointForExecution()} have both had a
@@ -39,8 +53,22 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final ObjectMapper defaultRequestContentDeserializer;
+    private final @Nullable JacksonCodecCache jacksonCodecCache;
 
     public RequestContentDeserializerHandler(ObjectMapper defaultRequestContentDeserializer) {
+        this(defaultRequestContentDeserializer, null);
+    }
+
+    /**
+     * @param defaultRequestContentDeserializer The deserializer to use for endpoints that don't have a custom one - a
+     * new no-arg {@link ObjectMapper} will be used if this is null.
+     * @param jacksonCodecCache The cache to get {@link ObjectReader}s from - may be null, in which case no readers are
+     * passed to {@link RequestInfo#setupContentDeserializer(ObjectMapper, TypeReference, ObjectReader)}.
+     */
+    public RequestContentDeserializerHandler(
+        ObjectMapper defaultRequestContentDeserializer,
+        @Nullable JacksonCodecCache jacksonCodecCache
+    ) {
         if (defaultRequestContentDeserializer == null) {
             logger.debug( "No defaultRequestContentDeserializer specified - using a new no-arg ObjectMapper as the "
                           + "default request deserializer");
@@ -48,10 +76,29 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
         }
 
         this.defaultRequestContentDeserializer = defaultRequestContentDeserializer;
+        this.jacksonCodecCache = jacksonCodecCache;
     }
 
     @Override
     public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof LastHttpContent)) {
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            Endpoint<?> endpoint = state.getEndpointForExecution();
+            RequestInfo reqInfo = state.getRequestInfo();
+            // The content hasn't started arriving yet, so this is our chance to have it deserialized as it arrives
+            //      if the endpoint wants that.
+            if (endpoint != null && reqInfo != null) {
+                TypeReference<?> contentTypeRef = endpoint.requestContentType();
+                if (contentTypeRef != null && endpoint.isIncrementalRequestContentDeserializationEnabled(reqInfo)) {
+                    ObjectMapper deserializer = getDeserializer(endpoint, reqInfo);
+                    //noinspection unchecked
+                    reqInfo.setupIncrementalContentDeserializer(
+                        deserializer, contentTypeRef, getContentReader(deserializer, contentTypeRef)
+                    );
+                }
+            }
+        }
+
         if (msg instanceof LastHttpContent) {
             HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
             Endpoint<?> endpoint = state.getEndpointForExecution();
@@ -63,12 +110,17 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
                 if (contentTypeRef != null) {
                     // A non-null TypeReference is available, so deserialization is possible. Retrieve the appropriate
                     //      deserializer and setup the RequestInfo so that it can lazily deserialize when requested.
-                    ObjectMapper deserializer = endpoint.customRequestContentDeserializer(reqInfo);
-                    if (deserializer == null)
-                        deserializer = defaultRequestContentDeserializer;
-
-                    //noinspection unchecked
-                    reqInfo.setupContentDeserializer(deserializer, contentTypeRef);
+                    ObjectMapper deserializer = getDeserializer(endpoint, reqInfo);
+                    if (jacksonCodecCache == null) {
+                        //noinspection unchecked
+                        reqInfo.setupContentDeserializer(deserializer, contentTypeRef);
+                    }
+                    else {
+                        //noinspection unchecked
+                        reqInfo.setupContentDeserializer(
+                            deserializer, contentTypeRef, getContentReader(deserializer, contentTypeRef)
+                        );
+                    }
                 }
             }
         }
@@ -76,6 +128,26 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
         return PipelineContinuationBehavior.CONTINUE;
     }
 
+    /**
+     * @return The endpoint's {@link Endpoint#customRequestContentDeserializer(RequestInfo)} if it has one, otherwise
+     * {@link #defaultRequestContentDeserializer}.
+     */
+    protected ObjectMapper getDeserializer(Endpoint<?> endpoint, RequestInfo<?> reqInfo) {
+        ObjectMapper deserializer = endpoint.customRequestContentDeserializer(reqInfo);
+        if (deserializer == null)
+            deserializer = defaultRequestContentDeserializer;
+
+        return deserializer;
+    }
+
+    /**
+     * @return The cached reader for the given deserializer and type, or null if this handler has no {@link
+     * JacksonCodecCache}.
+     */
+    protected @Nullable ObjectReader getContentReader(ObjectMapper deserializer, TypeReference<?> contentTypeRef) {
+        return (jacksonCodecCache == null) ? null : jacksonCodecCache.getReader(deserializer, contentTypeRef);
+    }
+
     @Override
     protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
         HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
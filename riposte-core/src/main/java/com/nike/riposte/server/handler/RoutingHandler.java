@@ -13,9 +13,15 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.routing.CompiledEndpointRouter;
+import com.nike.riposte.server.routing.CompiledEndpointRouter.RouteLookupResult;
+import com.nike.riposte.server.routing.CompiledEndpointRouter.RouteMatch;
+import com.nike.riposte.server.routing.RouteCache;
+import com.nike.riposte.server.routing.RouteCache.CachedRoute;
 import com.nike.wingtips.Span;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -42,6 +48,11 @@ import static com.nike.riposte.util.HttpUtils.isMaxRequestSizeValidationDisabled
  * RequestInfoSetterHandler}, which means we have to do the creation of the {@link RequestInfo} from the incoming
  * Netty {@link HttpRequest} message and set it on {@link HttpProcessingState} if the state didn't already have a
  * {@link RequestInfo}.
+ * <p/>
+ * If a {@link CompiledEndpointRouter} is provided then it is used to find the matching endpoint instead of asking each
+ * endpoint's {@link com.nike.riposte.util.Matcher} about the request in turn. The error checking is the same either
+ * way. If a {@link RouteCache} is provided then successfully routed requests are cached by HTTP method and path, and
+ * repeat requests are routed straight from the cache.
  *
  * @author Nic Munroe
  */
@@ -52,11 +63,53 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
     protected final RiposteHandlerInternalUtil handlerUtils = RiposteHandlerInternalUtil.DEFAULT_IMPL;
     protected final Collection<Endpoint<?>> endpoints;
     protected final int globalConfiguredMaxRequestSizeInBytes;
+    protected final @Nullable CompiledEndpointRouter compiledEndpointRouter;
+    protected final @Nullable RouteCache routeCache;
 
     public RoutingHandler(
         Collection<Endpoint<?>> endpoints,
         int globalMaxRequestSizeInBytes,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(endpoints, globalMaxRequestSizeInBytes, distributedTracingConfig, null);
+    }
+
+    /**
+     * @param endpoints The endpoints that requests can be routed to. Cannot be null or empty.
+     * @param globalMaxRequestSizeInBytes The global max request size, used to fail fast on too-large Content-Length.
+     * @param distributedTracingConfig The distributed tracing config. Cannot be null.
+     * @param compiledEndpointRouter The {@link CompiledEndpointRouter} to use for finding the matching endpoint, or
+     * null if each endpoint's {@link com.nike.riposte.util.Matcher} should be asked about each request in turn. When
+     * non-null this should have been built from the same {@code endpoints}. It is safe (and intended) to share a
+     * single instance across all channels.
+     */
+    public RoutingHandler(
+        Collection<Endpoint<?>> endpoints,
+        int globalMaxRequestSizeInBytes,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable CompiledEndpointRouter compiledEndpointRouter
+    ) {
+        this(endpoints, globalMaxRequestSizeInBytes, distributedTracingConfig, compiledEndpointRouter, null);
+    }
+
+    /**
+     * @param endpoints The endpoints that requests can be routed to. Cannot be null or empty.
+     * @param globalMaxRequestSizeInBytes The global max request size, used to fail fast on too-large Content-Length.
+     * @param distributedTracingConfig The distributed tracing config. Cannot be null.
+     * @param compiledEndpointRouter The {@link CompiledEndpointRouter} to use for finding the matching endpoint, or
+     * null if each endpoint's {@link com.nike.riposte.util.Matcher} should be asked about each request in turn. When
+     * non-null this should have been built from the same {@code endpoints}. It is safe (and intended) to share a
+     * single instance across all channels.
+     * @param routeCache The {@link RouteCache} to use for caching routing results, or null to route every request from
+     * scratch. When non-null the {@code endpoints} must be ones that {@link RouteCache#supportsEndpoints(Collection)}
+     * allows, and the cache should be shared across all channels.
+     */
+    public RoutingHandler(
+        Collection<Endpoint<?>> endpoints,
+        int globalMaxRequestSizeInBytes,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable CompiledEndpointRouter compiledEndpointRouter,
+        @Nullable RouteCache routeCache
     ) {
         if (endpoints == null || endpoints.isEmpty()) {
             throw new IllegalArgumentException("endpoints cannot be empty");
@@ -69,6 +122,8 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
         this.endpoints = endpoints;
         this.globalConfiguredMaxRequestSizeInBytes = globalMaxRequestSizeInBytes;
         this.spanNamingAndTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+        this.compiledEndpointRouter = compiledEndpointRouter;
+        this.routeCache = routeCache;
     }
 
     /**
@@ -95,6 +150,54 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
             }
         }
 
+        throwExceptionIfNotExactlyOneFullyMatchingEndpoint(requestInfo, hasPathMatch, fullyMatchingEndpoints);
+
+        // At this point we know there's exactly 1 fully matching endpoint, so go ahead and return it.
+        return Pair.of(fullyMatchingEndpoints.get(0), matchingPattern);
+    }
+
+    /**
+     * Does the same thing as {@link #findSingleEndpointForExecution(RequestInfo)} using the given {@link
+     * CompiledEndpointRouter}, with the same exceptions thrown for the same situations. The returned {@link RouteMatch}
+     * includes the path params if they were captured while matching.
+     */
+    protected @NotNull RouteMatch findSingleRouteMatchForExecution(
+        @NotNull CompiledEndpointRouter router,
+        @NotNull RequestInfo<?> requestInfo
+    ) {
+        RouteLookupResult lookupResult = router.findMatchingRoutes(requestInfo);
+        List<RouteMatch> fullyMatchingRoutes = lookupResult.fullyMatchingRoutes();
+
+        if (fullyMatchingRoutes.size() == 1) {
+            return fullyMatchingRoutes.get(0);
+        }
+
+        List<Endpoint<?>> fullyMatchingEndpoints = new ArrayList<>(fullyMatchingRoutes.size());
+        for (RouteMatch routeMatch : fullyMatchingRoutes) {
+            fullyMatchingEndpoints.add(routeMatch.endpoint());
+        }
+
+        throwExceptionIfNotExactlyOneFullyMatchingEndpoint(
+            requestInfo, lookupResult.hasPathMatch(), fullyMatchingEndpoints
+        );
+
+        // Should never get here - the method call above always throws when there isn't exactly one match.
+        throw new IllegalStateException(
+            "Expected exactly one fully matching endpoint, but found " + fullyMatchingEndpoints.size()
+        );
+    }
+
+    /**
+     * Throws a {@link PathNotFound404Exception} if there were no path matches, a {@link MethodNotAllowed405Exception} if
+     * there were path matches but none of them matched the HTTP method, or a {@link
+     * MultipleMatchingEndpointsException} if more than one endpoint fully matched. Does nothing if there was exactly
+     * one fully matching endpoint.
+     */
+    protected void throwExceptionIfNotExactlyOneFullyMatchingEndpoint(
+        @NotNull RequestInfo<?> requestInfo,
+        boolean hasPathMatch,
+        @NotNull List<Endpoint<?>> fullyMatchingEndpoints
+    ) {
         // If there's no endpoint that even matches the path then this is a 404 situation.
         if (!hasPathMatch) {
             throw new PathNotFound404Exception(
@@ -122,9 +225,6 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
                 fullyMatchingEndpoints, requestInfo.getPath(), String.valueOf(requestInfo.getMethod())
             );
         }
-
-        // At this point we know there's exactly 1 fully matching endpoint, so go ahead and return it.
-        return Pair.of(fullyMatchingEndpoints.get(0), matchingPattern);
     }
 
     @Override
@@ -142,9 +242,39 @@ public class RoutingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
             handlerUtils.throwExceptionIfNotSuccessfullyDecoded(nettyRequest);
 
             // The HttpRequest is valid, so continue with the endpoint routing.
-            Pair<Endpoint<?>, String> endpointForExecution = findSingleEndpointForExecution(request);
+            boolean useRouteCache = routeCache != null && request.getMethod() != null && request.getPath() != null;
+            CachedRoute cachedRoute = (useRouteCache)
+                                      ? routeCache.get(request.getMethod(), request.getPath(), state)
+                                      : null;
+
+            Pair<Endpoint<?>, String> endpointForExecution;
+            if (cachedRoute != null) {
+                request.setPathParamsBasedOnPathTemplate(cachedRoute.pathTemplate(), cachedRoute.pathParams());
+                endpointForExecution = Pair.of(cachedRoute.endpoint(), cachedRoute.pathTemplate());
+            }
+            else {
+                if (compiledEndpointRouter == null) {
+                    endpointForExecution = findSingleEndpointForExecution(request);
+                    request.setPathParamsBasedOnPathTemplate(endpointForExecution.getRight());
+                }
+                else {
+                    RouteMatch routeMatch = findSingleRouteMatchForExecution(compiledEndpointRouter, request);
+                    request.setPathParamsBasedOnPathTemplate(routeMatch.pathTemplate(), routeMatch.pathParams());
+                    endpointForExecution = Pair.of(routeMatch.endpoint(), routeMatch.pathTemplate());
+                }
+
+                // Only successfully routed requests make it this far, so 404s and 405s are never cached.
+                if (useRouteCache) {
+                    routeCache.put(
+                        request.getMethod(),
+                        request.getPath(),
+                        new CachedRoute(
+                            endpointForExecution.getLeft(), endpointForExecution.getRight(), request.getPathParams()
+                        )
+                    );
+                }
+            }
 
-            request.setPathParamsBasedOnPathTemplate(endpointForExecution.getRight());
             state.setEndpointForExecution(endpointForExecution.getLeft(), endpointForExecution.getRight());
 
             handleSpanNameUpdateForRequestWithPathTemplate(nettyRequest, request, state);
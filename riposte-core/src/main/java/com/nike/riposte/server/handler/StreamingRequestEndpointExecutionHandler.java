@@ -0,0 +1,338 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StreamingRequestBodyPublisher;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+import com.nike.riposte.server.http.impl.RiposteInternalRequestInfo;
+import com.nike.wingtips.Span;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
+import static com.nike.riposte.util.AsyncNettyHelper.functionWithTracingAndMdc;
+import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
+
+/**
+ * Inspects the current channel state's {@link HttpProcessingState#getEndpointForExecution()} to see if it is a {@link
+ * StreamingRequestEndpoint}. If so, the endpoint is executed as soon as the request's first chunk arrives, with a
+ * {@link StreamingRequestBodyPublisher} that this handler feeds the rest of the request's content chunks to as they
+ * arrive. The content chunks are never aggregated in the {@link RequestInfo}. The endpoint's response is handled the
+ * same way {@link NonblockingEndpointExecutionHandler} handles a nonblocking endpoint's response - it's placed in the
+ * channel's state and a Netty event is fired to complete the pipeline.
+ * <p/>
+ * This handler should come after {@link RoutingHandler} and {@link RequestInfoSetterHandler} in the chain, and like the
+ * other endpoint execution handlers it should come before {@link RequestHasBeenHandledVerificationHandler}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StreamingRequestEndpointExecutionHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final @NotNull Executor longRunningTaskExecutor;
+    private final long defaultCompletableFutureTimeoutMillis;
+
+    private final @NotNull ServerSpanNamingAndTaggingStrategy<Span> spanTaggingStrategy;
+
+    /**
+     * The body publisher for the request currently being handled on this channel, or null if there isn't one.
+     */
+    protected @Nullable StreamingRequestBodyPublisher requestBodyPublisher;
+
+    @SuppressWarnings("ConstantConditions")
+    public StreamingRequestEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        if (longRunningTaskExecutor == null) {
+            throw new IllegalArgumentException("longRunningTaskExecutor cannot be null");
+        }
+
+        if (distributedTracingConfig == null) {
+            throw new IllegalArgumentException("distributedTracingConfig cannot be null");
+        }
+
+        this.longRunningTaskExecutor = longRunningTaskExecutor;
+        this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
+        this.spanTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+    }
+
+    protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
+        // This handler should only do something if the endpoint is a StreamingRequestEndpoint.
+        //      Additionally, this handler should only pay attention to Netty HTTP messages. Other messages (e.g. user
+        //      event messages) should be ignored.
+        return (msg instanceof HttpObject) && (endpoint instanceof StreamingRequestEndpoint);
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        Endpoint<?> endpoint = state.getEndpointForExecution();
+
+        if (shouldHandleDoChannelReadMessage(msg, endpoint)) {
+            if (msg instanceof HttpRequest) {
+                executeEndpoint(ctx, state, (StreamingRequestEndpoint<?>) endpoint);
+            }
+            else if (msg instanceof HttpContent) {
+                // RequestInfoSetterHandler retained this chunk on our behalf (see executeEndpoint()), so it's ours to
+                //      hand off or release.
+                HttpContent chunk = (HttpContent) msg;
+                StreamingRequestBodyPublisher publisher = requestBodyPublisher;
+                if (publisher == null) {
+                    chunk.release();
+                }
+                else {
+                    publisher.addChunk(chunk);
+                }
+            }
+
+            // The endpoint consumes the body, and the pipeline will continue when the endpoint's CompletableFuture
+            //      completes (see asyncCallback() and asyncErrorCallback()).
+            return PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT;
+        }
+
+        // Not a StreamingRequestEndpoint, so continue the pipeline in case another endpoint handler is in the pipeline
+        //      and wants to deal with it.
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    protected void executeEndpoint(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull HttpProcessingState state,
+        @NotNull StreamingRequestEndpoint<?> endpoint
+    ) {
+        RequestInfo<?> requestInfo = state.getRequestInfo();
+        if (requestInfo instanceof RiposteInternalRequestInfo) {
+            // Tell this RequestInfo that we'll be managing the release of content chunks, so that it doesn't hold on
+            //      to them and when RequestInfo.releaseAllResources() is called we don't have extra reference count
+            //      removals.
+            ((RiposteInternalRequestInfo) requestInfo).contentChunksWillBeReleasedExternally();
+        }
+
+        failRequestBody(new IllegalStateException("A new request arrived before the request body finished"));
+        StreamingRequestBodyPublisher publisher = new StreamingRequestBodyPublisher(ctx.channel());
+        requestBodyPublisher = publisher;
+
+        Span endpointExecutionSpan = findEndpointExecutionSpan(state);
+        CompletableFuture<ResponseInfo<?>> responseFuture = state
+            .getPreEndpointExecutionWorkChain()
+            .thenCompose(doExecuteEndpointFunction(requestInfo, endpoint, publisher, endpointExecutionSpan, ctx));
+
+        responseFuture.whenComplete((responseInfo, throwable) -> {
+            if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointFinishAnnotation()) {
+                addEndpointFinishAnnotation(endpointExecutionSpan, spanTaggingStrategy);
+            }
+
+            // The response ends the request, so whatever is left of the body can't be consumed anymore.
+            ctx.channel().eventLoop().execute(() -> failRequestBody(publisher, (throwable != null)
+                ? throwable
+                : new IllegalStateException("The endpoint finished before the request body was consumed")
+            ));
+
+            if (throwable != null)
+                asyncErrorCallback(ctx, throwable);
+            else
+                asyncCallback(ctx, responseInfo);
+        });
+
+        // Schedule a timeout check with our Netty event loop to make sure we kill the CompletableFuture if it goes on
+        //      too long, and cancel it as soon as the CompletableFuture finishes so it doesn't hold on to the request.
+        Long endpointTimeoutOverride = endpoint.completableFutureTimeoutOverrideMillis();
+        long timeoutValueToUse = (endpointTimeoutOverride == null)
+                                 ? defaultCompletableFutureTimeoutMillis
+                                 : endpointTimeoutOverride;
+        ScheduledFuture<?> responseTimeoutScheduledFuture = ctx.channel().eventLoop().schedule(() -> {
+            if (!responseFuture.isDone()) {
+                runnableWithTracingAndMdc(
+                    () -> logger.error("A streaming request endpoint's CompletableFuture did not finish within the "
+                                       + "allotted timeout ({} milliseconds). Forcibly cancelling it.",
+                                       timeoutValueToUse), ctx
+                ).run();
+                responseFuture.completeExceptionally(
+                    new NonblockingEndpointCompletableFutureTimedOut(timeoutValueToUse)
+                );
+            }
+        }, timeoutValueToUse, TimeUnit.MILLISECONDS);
+
+        responseFuture.whenComplete((responseInfo, throwable) -> {
+            if (!responseTimeoutScheduledFuture.isDone())
+                responseTimeoutScheduledFuture.cancel(false);
+        });
+    }
+
+    /**
+     * @return A function that adds the endpoint.start span annotation (if desired) and then returns the result of
+     * {@link StreamingRequestEndpoint#execute(RequestInfo, org.reactivestreams.Publisher, Executor,
+     * ChannelHandlerContext)}. See {@link NonblockingEndpointExecutionHandler#doExecuteEndpointFunction(RequestInfo,
+     * com.nike.riposte.server.http.NonblockingEndpoint, Span, ChannelHandlerContext)} for why the endpoint.finish
+     * annotation has to be done separately.
+     */
+    @SuppressWarnings("unchecked")
+    protected Function<Void, CompletableFuture<ResponseInfo<?>>> doExecuteEndpointFunction(
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull StreamingRequestEndpoint<?> endpoint,
+        @NotNull StreamingRequestBodyPublisher requestBody,
+        @Nullable Span endpointExecutionSpan,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return functionWithTracingAndMdc(
+            aVoid -> {
+                try {
+                    if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointStartAnnotation()) {
+                        endpointExecutionSpan.addTimestampedAnnotationForCurrentTime(
+                            spanTaggingStrategy.endpointStartAnnotationName()
+                        );
+                    }
+                }
+                catch (Throwable t) {
+                    logger.error("Unexpected error while annotating Span with endpoint start timestamp.", t);
+                }
+
+                CompletableFuture<? extends ResponseInfo<?>> executionResult = endpoint.execute(
+                    (RequestInfo<Void>) requestInfo, requestBody, longRunningTaskExecutor, ctx
+                );
+
+                //noinspection ConstantConditions
+                if (executionResult == null) {
+                    throw new NullPointerException("StreamingRequestEndpoint.execute() cannot return null.");
+                }
+
+                return (CompletableFuture<ResponseInfo<?>>) executionResult;
+            },
+            ctx
+        );
+    }
+
+    protected @Nullable Span findEndpointExecutionSpan(@NotNull HttpProcessingState state) {
+        Deque<Span> spanStack = state.getDistributedTraceStack();
+        return (spanStack == null) ? null : spanStack.peek();
+    }
+
+    protected void addEndpointFinishAnnotation(Span span, ServerSpanNamingAndTaggingStrategy<Span> strategy) {
+        try {
+            span.addTimestampedAnnotationForCurrentTime(strategy.endpointFinishAnnotationName());
+        }
+        catch (Throwable t) {
+            logger.error("Unexpected error while annotating Span with endpoint finish timestamp.", t);
+        }
+    }
+
+    /**
+     * Fails the current request body (if there is one and it isn't done) with the given error. Must be called on the
+     * channel's event loop.
+     */
+    protected void failRequestBody(@NotNull Throwable cause) {
+        StreamingRequestBodyPublisher publisher = requestBodyPublisher;
+        if (publisher != null) {
+            failRequestBody(publisher, cause);
+        }
+    }
+
+    protected void failRequestBody(@NotNull StreamingRequestBodyPublisher publisher, @NotNull Throwable cause) {
+        publisher.fail(cause);
+        if (requestBodyPublisher == publisher) {
+            requestBodyPublisher = null;
+        }
+    }
+
+    @Override
+    public PipelineContinuationBehavior doExceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        // An error response is about to be sent, so the rest of the body won't be delivered.
+        failRequestBody(cause);
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelInactive(ChannelHandlerContext ctx) {
+        StreamingRequestBodyPublisher publisher = requestBodyPublisher;
+        if (publisher != null && !publisher.isLastChunkReceived()) {
+            failRequestBody(publisher, new ClosedChannelException());
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // To save on extraneous linking/unlinking, we'll do it as-necessary in this class.
+        return false;
+    }
+
+    protected void asyncCallback(ChannelHandlerContext ctx, ResponseInfo<?> responseInfo) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+
+        if (responseInfo.isChunkedResponse()) {
+            // Whoops, chunked responses are not allowed for this endpoint type.
+            asyncErrorCallback(
+                ctx,
+                new Exception("StreamingRequestEndpoint execution resulted in a chunked ResponseInfo, when only full "
+                              + "ResponseInfos are allowed. offending_endpoint_class=" +
+                              state.getEndpointForExecution().getClass().getName())
+            );
+        }
+        else {
+            executeOnlyIfChannelIsActive(
+                ctx, "StreamingRequestEndpointExecutionHandler-asyncCallback",
+                () -> {
+                    // Set the ResponseInfo on the state and fire the event while in the channel's EventLoop, to avoid
+                    //      racing with an error that was fired down the pipe.
+                    EventExecutor executor = ctx.executor();
+                    if (executor.inEventLoop()) {
+                        setResponseInfoAndActivatePipelineForResponse(state, responseInfo, ctx);
+                    }
+                    else {
+                        executor.execute(() -> setResponseInfoAndActivatePipelineForResponse(state, responseInfo, ctx));
+                    }
+                }
+            );
+        }
+    }
+
+    protected void setResponseInfoAndActivatePipelineForResponse(HttpProcessingState state,
+                                                                 ResponseInfo<?> responseInfo,
+                                                                 ChannelHandlerContext ctx) {
+        if (state.isRequestHandled()) {
+            logger.warn("The request has already been handled, likely due to an error, so "
+                        + "the endpoint's response will be ignored.");
+        }
+        else {
+            state.setResponseInfo(responseInfo, null);
+            ctx.fireChannelRead(LastOutboundMessageSendFullResponseInfo.INSTANCE);
+        }
+    }
+
+    protected void asyncErrorCallback(ChannelHandlerContext ctx, Throwable error) {
+        executeOnlyIfChannelIsActive(
+            ctx, "StreamingRequestEndpointExecutionHandler-asyncErrorCallback",
+            () -> ctx.fireExceptionCaught(error)
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link MetricsListener} that keeps track of the number of in-flight requests and whether the server is draining,
+ * and passes every event on to the app's own {@link MetricsListener} (if any). This is used by the server's drain-mode
+ * shutdown (see {@code ServerConfig.shutdownDrainTimeoutMillis()}).
+ *
+ * <p>Riposte already sends exactly one {@link ServerMetricsEvent#REQUEST_RECEIVED} event when a request starts (from
+ * {@link com.nike.riposte.server.handler.RequestStateCleanerHandler}), and exactly one {@link
+ * ServerMetricsEvent#RESPONSE_SENT} or {@link ServerMetricsEvent#RESPONSE_WRITE_FAILED} event when it's done (from
+ * {@link com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler}, even if the channel is closed early), so
+ * the difference between the two is the number of requests in flight. This is the same way metrics listeners like
+ * {@code CodahaleMetricsListener} track their in-flight request counters.
+ *
+ * <p>While {@link #isDraining()} is true, {@link ResponseSender} forces every response it sends to close its
+ * connection afterward.
+ */
+@SuppressWarnings("WeakerAccess")
+public class InFlightRequestTracker implements MetricsListener {
+
+    protected final @Nullable MetricsListener delegate;
+    protected final Object lock = new Object();
+
+    protected long numInFlightRequests = 0;
+    protected volatile boolean draining = false;
+
+    /**
+     * @param delegate The app's {@link MetricsListener} that every event should be passed on to - may be null if the
+     * app doesn't have one.
+     */
+    public InFlightRequestTracker(@Nullable MetricsListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onEvent(@NotNull ServerMetricsEvent event, @Nullable Object value) {
+        if (event == ServerMetricsEvent.REQUEST_RECEIVED) {
+            synchronized (lock) {
+                numInFlightRequests++;
+            }
+        }
+        else if (event == ServerMetricsEvent.RESPONSE_SENT || event == ServerMetricsEvent.RESPONSE_WRITE_FAILED) {
+            synchronized (lock) {
+                // Guard against going negative in case something unexpected causes an extra completion event.
+                if (numInFlightRequests > 0) {
+                    numInFlightRequests--;
+                }
+
+                if (numInFlightRequests == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        if (delegate != null) {
+            delegate.onEvent(event, value);
+        }
+    }
+
+    /**
+     * @return The app's {@link MetricsListener} that events are passed on to, or null if there isn't one.
+     */
+    public @Nullable MetricsListener getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return The number of requests that have been received but haven't finished sending their response yet.
+     */
+    public long getNumInFlightRequests() {
+        synchronized (lock) {
+            return numInFlightRequests;
+        }
+    }
+
+    /**
+     * Puts this tracker into drain mode - see {@link #isDraining()}. There is no way to leave drain mode.
+     */
+    public void startDraining() {
+        draining = true;
+    }
+
+    /**
+     * @return true if the server is draining, which means every response should close its connection once it's sent.
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Blocks until there are no in-flight requests, or until the given timeout passes, whichever comes first.
+     *
+     * @param timeoutMillis The max amount of time to wait in milliseconds.
+     * @return The number of requests still in flight when this method returns - 0 unless the timeout was hit.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public long awaitNoInFlightRequests(long timeoutMillis) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + (timeoutMillis * 1_000_000L);
+        synchronized (lock) {
+            while (numInFlightRequests > 0) {
+                long remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000L;
+                if (remainingMillis <= 0) {
+                    break;
+                }
+
+                lock.wait(remainingMillis);
+            }
+
+            return numInFlightRequests;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.nike.riposte.server.http;
 
 import com.nike.fastbreak.CircuitBreaker;
+import com.nike.riposte.client.loadbalancing.UpstreamCluster;
+import com.nike.riposte.client.loadbalancing.UpstreamTarget;
+import com.nike.riposte.client.retry.DownstreamRetryPolicy;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 
@@ -31,6 +34,10 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
      * HttpRequest} to stream. That {@link ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#firstChunk} will in turn
      * contain the URI path and headers, etc, that should be streamed in the first chunk.
      * <p/>
+     * If the downstream system has multiple instances you can create the {@link DownstreamRequestFirstChunkInfo} from
+     * an {@link UpstreamCluster} instead of a single host and port, and the cluster's load balancer will pick the
+     * instance to call.
+     * <p/>
      * This method returns a {@link CompletableFuture} because depending on the requirements of the proxy routing
      * endpoint it may not know what downstream system to connect to or what to send until an unspecified amount of time
      * has passed (e.g. DNS or Eureka lookups), and we can't allow this method to block.
@@ -200,6 +207,31 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
          * Set this to false if you do not want the standard tracing headers to be added to your downstream call
          */
         public boolean addTracingHeadersToDownstreamCall = true;
+        /**
+         * The {@link UpstreamCluster} that {@link #host} and {@link #port} were picked from, or null if this instance
+         * was created with an explicit host and port.
+         */
+        public final @Nullable UpstreamCluster upstreamCluster;
+        /**
+         * The {@link UpstreamTarget} that was picked from {@link #upstreamCluster}, or null if this instance was
+         * created with an explicit host and port. The proxy router handler reports the downstream call's latency and
+         * outcome to this target when the call finishes.
+         */
+        public final @Nullable UpstreamTarget upstreamTarget;
+        /**
+         * The policy for retrying and hedging the downstream call, or null if the downstream call should only ever be
+         * attempted once. Defaults to null. See {@link DownstreamRetryPolicy} for which calls are eligible.
+         */
+        public @Nullable DownstreamRetryPolicy retryPolicy = null;
+        /**
+         * Set this to true if the request and response bodies should be spliced between the caller's connection and
+         * the downstream connection inside the kernel instead of being streamed through the JVM. Only has an effect
+         * when {@code ServerConfig.ProxyRouterConnectionPoolConfig#isSplicePassthroughEnabled()} is true, and only for
+         * calls that can be spliced - everything else falls back to normal streaming. Spliced bytes never pass through
+         * the Riposte pipeline, so don't turn this on for endpoints whose filters or handlers need to see the bodies.
+         * Defaults to false.
+         */
+        public boolean splicePassthrough = false;
 
         /**
          * Creates a new instance with the given values, and defaults {@link #customCircuitBreaker} to {@link
@@ -237,7 +269,6 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
          * @param disableCircuitBreaker
          *     the value for {@link #disableCircuitBreaker}
          */
-        @SuppressWarnings("ConstantConditions")
         public DownstreamRequestFirstChunkInfo(
             @NotNull String host,
             int port,
@@ -245,6 +276,72 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
             @NotNull HttpRequest firstChunk,
             @NotNull Optional<CircuitBreaker<HttpResponse>> customCircuitBreaker,
             boolean disableCircuitBreaker
+        ) {
+            this(host, port, isHttps, firstChunk, customCircuitBreaker, disableCircuitBreaker, null, null);
+        }
+
+        /**
+         * Creates a new instance that calls a target picked from the given {@link UpstreamCluster}, and defaults {@link
+         * #customCircuitBreaker} to {@link Optional#empty()} and {@link #disableCircuitBreaker} to false - telling the
+         * router handler to use the default circuit breaker for the picked target's host.
+         *
+         * @param upstreamCluster
+         *     the cluster to pick the target from - {@link #host}, {@link #port}, and {@link #isHttps} come from the
+         *     picked target and cluster
+         * @param firstChunk
+         *     the value for {@link #firstChunk}
+         */
+        public DownstreamRequestFirstChunkInfo(
+            @NotNull UpstreamCluster upstreamCluster, @NotNull HttpRequest firstChunk
+        ) {
+            this(upstreamCluster, firstChunk, Optional.empty(), false);
+        }
+
+        /**
+         * Creates a new instance that calls a target picked from the given {@link UpstreamCluster}. The target is
+         * picked (and counted as an outstanding call against it) right away.
+         *
+         * @param upstreamCluster
+         *     the cluster to pick the target from - {@link #host}, {@link #port}, and {@link #isHttps} come from the
+         *     picked target and cluster
+         * @param firstChunk
+         *     the value for {@link #firstChunk}
+         * @param customCircuitBreaker
+         *     the value for {@link #customCircuitBreaker}
+         * @param disableCircuitBreaker
+         *     the value for {@link #disableCircuitBreaker}
+         */
+        public DownstreamRequestFirstChunkInfo(
+            @NotNull UpstreamCluster upstreamCluster,
+            @NotNull HttpRequest firstChunk,
+            @NotNull Optional<CircuitBreaker<HttpResponse>> customCircuitBreaker,
+            boolean disableCircuitBreaker
+        ) {
+            this(upstreamCluster, chooseTarget(upstreamCluster, firstChunk), firstChunk, customCircuitBreaker,
+                 disableCircuitBreaker);
+        }
+
+        private DownstreamRequestFirstChunkInfo(
+            @NotNull UpstreamCluster upstreamCluster,
+            @NotNull UpstreamTarget upstreamTarget,
+            @NotNull HttpRequest firstChunk,
+            @NotNull Optional<CircuitBreaker<HttpResponse>> customCircuitBreaker,
+            boolean disableCircuitBreaker
+        ) {
+            this(upstreamTarget.getHost(), upstreamTarget.getPort(), upstreamCluster.isHttps(), firstChunk,
+                 customCircuitBreaker, disableCircuitBreaker, upstreamCluster, upstreamTarget);
+        }
+
+        @SuppressWarnings("ConstantConditions")
+        private DownstreamRequestFirstChunkInfo(
+            @NotNull String host,
+            int port,
+            boolean isHttps,
+            @NotNull HttpRequest firstChunk,
+            @NotNull Optional<CircuitBreaker<HttpResponse>> customCircuitBreaker,
+            boolean disableCircuitBreaker,
+            @Nullable UpstreamCluster upstreamCluster,
+            @Nullable UpstreamTarget upstreamTarget
         ) {
             if (host == null) {
                 throw new IllegalArgumentException("host cannot be null.");
@@ -261,6 +358,25 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
             //noinspection OptionalAssignedToNull
             this.customCircuitBreaker = (customCircuitBreaker == null) ? Optional.empty() : customCircuitBreaker;
             this.disableCircuitBreaker = disableCircuitBreaker;
+            this.upstreamCluster = upstreamCluster;
+            this.upstreamTarget = upstreamTarget;
+        }
+
+        @SuppressWarnings("ConstantConditions")
+        private static @NotNull UpstreamTarget chooseTarget(
+            @NotNull UpstreamCluster upstreamCluster, @NotNull HttpRequest firstChunk
+        ) {
+            if (upstreamCluster == null) {
+                throw new IllegalArgumentException("upstreamCluster cannot be null.");
+            }
+
+            // Check this before picking a target, otherwise the target would be left with an outstanding call that
+            //      never finishes.
+            if (firstChunk == null) {
+                throw new IllegalArgumentException("firstChunk cannot be null.");
+            }
+
+            return upstreamCluster.chooseTarget();
         }
 
         /**
@@ -294,6 +410,25 @@ public abstract class ProxyRouterEndpoint implements Endpoint {
             this.addTracingHeadersToDownstreamCall = addTracingHeadersToDownstreamCall;
             return this;
         }
+
+        /**
+         * Pass in a {@link DownstreamRetryPolicy} if you want the downstream call to be retried (and optionally
+         * hedged) when it's safe to do so. Reuse the same policy for every call to the same downstream service, since
+         * its retry budget and response times are built up across calls. Defaults to null (no retries).
+         */
+        public @NotNull DownstreamRequestFirstChunkInfo withRetryPolicy(@Nullable DownstreamRetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Pass in true if you want the request and response bodies spliced between connections inside the kernel when
+         * possible - see {@link #splicePassthrough}. Defaults to false.
+         */
+        public @NotNull DownstreamRequestFirstChunkInfo withSplicePassthrough(boolean splicePassthrough) {
+            this.splicePassthrough = splicePassthrough;
+            return this;
+        }
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.nike.riposte.server.http;
 
 import com.nike.internal.util.Pair;
+import com.nike.riposte.client.asynchttp.netty.ChannelBackpressure;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
 import com.nike.riposte.server.config.ServerConfig;
@@ -15,6 +16,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
@@ -41,11 +43,20 @@ public class ProxyRouterProcessingState implements ProcessingState {
     private long streamingStartTimeNanos;
     private boolean requestStreamingCompletedSuccessfully;
     private boolean requestStreamingCancelled;
+    private boolean wholeRequestSentWithFirstChunk;
 
     private HttpRequest proxyHttpRequest;
     private HttpResponse proxyHttpResponse;
     private Throwable proxyError;
 
+    // The backpressure instances are set up on whatever thread connects to the downstream service, and used from both
+    //      the incoming channel's and the downstream channel's event loops.
+    private volatile ChannelBackpressure requestBodyBackpressure;
+    private volatile ChannelBackpressure responseBodyBackpressure;
+
+    private volatile Channel splicePassthroughIncomingChannel;
+    private volatile long requestBodyBytesReceived;
+
     private DistributedTracingConfig<Span> distributedTracingConfig;
     private boolean tracingResponseTaggingAndFinalSpanNameCompleted = false;
 
@@ -54,6 +65,11 @@ public class ProxyRouterProcessingState implements ProcessingState {
     }
 
     public void cleanStateForNewRequest() {
+        closeBackpressure();
+        requestBodyBackpressure = null;
+        responseBodyBackpressure = null;
+        splicePassthroughIncomingChannel = null;
+        requestBodyBytesReceived = 0;
         streamingCallback = null;
         streamingChannelCompletableFuture = null;
         firstChunkCF = null;
@@ -61,6 +77,7 @@ public class ProxyRouterProcessingState implements ProcessingState {
         streamingStartTimeNanos = 0;
         requestStreamingCompletedSuccessfully = false;
         requestStreamingCancelled = false;
+        wholeRequestSentWithFirstChunk = false;
         proxyHttpRequest = null;
         proxyHttpResponse = null;
         proxyError = null;
@@ -125,6 +142,24 @@ public class ProxyRouterProcessingState implements ProcessingState {
         this.requestStreamingCompletedSuccessfully = true;
     }
 
+    /**
+     * @return true if the whole downstream request was sent along with its first chunk (see {@link
+     * #setWholeRequestSentWithFirstChunk()}), meaning the caller's content chunks should be released rather than
+     * streamed downstream.
+     */
+    public boolean isWholeRequestSentWithFirstChunk() {
+        return wholeRequestSentWithFirstChunk;
+    }
+
+    /**
+     * Call this when the downstream request is sent as a complete request rather than streamed (e.g. a retried or
+     * hedged call for a request with no body), so the caller's content chunks aren't written downstream a second
+     * time.
+     */
+    public void setWholeRequestSentWithFirstChunk() {
+        this.wholeRequestSentWithFirstChunk = true;
+    }
+
     public boolean isRequestStreamingCancelled() {
         return requestStreamingCancelled;
     }
@@ -177,6 +212,80 @@ public class ProxyRouterProcessingState implements ProcessingState {
         });
     }
 
+    /**
+     * Sets up flow control in both directions between the given incoming channel and downstream channel for the
+     * current proxied call: reading the request body from the incoming channel is paused while the downstream channel
+     * is not writable, and reading the response body from the downstream channel is paused while the incoming channel
+     * is not writable. Any previous backpressure for this state is closed first.
+     *
+     * @param incomingChannel The channel the original caller's request came in on.
+     * @param downstreamChannel The channel connected to the downstream service.
+     */
+    public synchronized void setupBackpressure(Channel incomingChannel, Channel downstreamChannel) {
+        closeBackpressure();
+        requestBodyBackpressure = new ChannelBackpressure(incomingChannel, downstreamChannel);
+        responseBodyBackpressure = new ChannelBackpressure(downstreamChannel, incomingChannel);
+    }
+
+    /**
+     * Closes the backpressure set up by {@link #setupBackpressure(Channel, Channel)} (if any), which makes sure
+     * neither channel is left paused. The backpressure instances are kept around so their paused times can still be
+     * inspected until {@link #cleanStateForNewRequest()} is called. Safe to call more than once.
+     */
+    public synchronized void closeBackpressure() {
+        if (requestBodyBackpressure != null)
+            requestBodyBackpressure.close();
+
+        if (responseBodyBackpressure != null)
+            responseBodyBackpressure.close();
+    }
+
+    /**
+     * @return The backpressure that pauses reading the request body from the incoming channel while the downstream
+     * channel is not writable, or null if no downstream call has been set up.
+     */
+    public ChannelBackpressure getRequestBodyBackpressure() {
+        return requestBodyBackpressure;
+    }
+
+    /**
+     * @return The backpressure that pauses reading the response body from the downstream channel while the incoming
+     * channel is not writable, or null if no downstream call has been set up.
+     */
+    public ChannelBackpressure getResponseBodyBackpressure() {
+        return responseBodyBackpressure;
+    }
+
+    /**
+     * @return The incoming channel that body bytes can be spliced to/from for the current proxied call (see {@code
+     * ProxyBodySplicer}), or null if splicing isn't possible for this call. This is only set when the downstream call
+     * opted into splice pass-through and the incoming and downstream channels are able to splice between each other.
+     */
+    public Channel getSplicePassthroughIncomingChannel() {
+        return splicePassthroughIncomingChannel;
+    }
+
+    public void setSplicePassthroughIncomingChannel(Channel splicePassthroughIncomingChannel) {
+        this.splicePassthroughIncomingChannel = splicePassthroughIncomingChannel;
+    }
+
+    /**
+     * Adds to the count of request body bytes that have come through the incoming channel's pipeline for the current
+     * request. Only called from the incoming channel's event loop.
+     */
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    public void addRequestBodyBytesReceived(int numBytes) {
+        requestBodyBytesReceived += numBytes;
+    }
+
+    /**
+     * @return The number of request body bytes that have come through the incoming channel's pipeline for the current
+     * request - this does not include any bytes that were spliced past the pipeline.
+     */
+    public long getRequestBodyBytesReceived() {
+        return requestBodyBytesReceived;
+    }
+
     public HttpRequest getProxyHttpRequest() {
         return proxyHttpRequest;
     }
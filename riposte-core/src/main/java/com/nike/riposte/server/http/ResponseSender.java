@@ -8,8 +8,10 @@ import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfi
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.error.handler.ErrorResponseBody;
 import com.nike.riposte.server.error.handler.ErrorResponseBodySerializer;
+import com.nike.riposte.util.CompositeByteBufOutputStream;
 import com.nike.riposte.util.ErrorContractSerializerHelper;
 import com.nike.riposte.util.HttpUtils;
+import com.nike.riposte.util.JacksonCodecCache;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.TraceAndSpanIdGenerator;
 import com.nike.wingtips.TraceHeaders;
@@ -17,13 +19,19 @@ import com.nike.wingtips.Tracer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -31,6 +39,9 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -80,9 +91,17 @@ public class ResponseSender {
     private final ObjectMapper defaultResponseContentSerializer;
     private final ErrorResponseBodySerializer errorResponseBodySerializer;
     private final @NotNull ServerSpanNamingAndTaggingStrategy<Span> spanNamingAndTaggingStrategy;
+    private final @Nullable InFlightRequestTracker inFlightRequestTracker;
+    private final @NotNull JacksonCodecCache responseContentWriterCache = new JacksonCodecCache();
 
     public static final int DEFAULT_HTTP_STATUS_CODE = HttpResponseStatus.OK.code();
 
+    /**
+     * Serialized response bodies up to this size are sent as a single pooled {@link ByteBuf} - bigger ones are sent as
+     * a {@link CompositeByteBuf} made up of buffers of this size. See {@link CompositeByteBufOutputStream}.
+     */
+    public static final int SERIALIZED_RESPONSE_BODY_COMPONENT_SIZE_BYTES = 64 * 1024;
+
     private static final String HORRIBLE_EXPLOSION_DEFAULT_RESPONSE =
         "{\"error_id\":\"%UUID%\",\"errors\":[{\"code\":10,\"message\":\"An error occurred while fulfilling the request\"}]}";
 
@@ -104,6 +123,19 @@ public class ResponseSender {
         @Nullable ObjectMapper defaultResponseContentSerializer,
         @Nullable ErrorResponseBodySerializer errorResponseBodySerializer,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(defaultResponseContentSerializer, errorResponseBodySerializer, distributedTracingConfig, null);
+    }
+
+    /**
+     * @param inFlightRequestTracker The tracker that says whether the server is draining - while it is, every response
+     * is forced to close its connection once it's sent. May be null if the server doesn't drain on shutdown.
+     */
+    public ResponseSender(
+        @Nullable ObjectMapper defaultResponseContentSerializer,
+        @Nullable ErrorResponseBodySerializer errorResponseBodySerializer,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable InFlightRequestTracker inFlightRequestTracker
     ) {
         if (defaultResponseContentSerializer == null) {
             logger.info("No defaultResponseContentSerializer specified - using a new no-arg ObjectMapper as the "
@@ -124,8 +156,19 @@ public class ResponseSender {
         this.defaultResponseContentSerializer = defaultResponseContentSerializer;
         this.errorResponseBodySerializer = errorResponseBodySerializer;
         this.spanNamingAndTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+        this.inFlightRequestTracker = inFlightRequestTracker;
     }
 
+    /**
+     * Serializes the given output to a String.
+     *
+     * @deprecated Response bodies are no longer serialized via this method - they're serialized straight into buffers
+     * instead (see {@link #serializeOutputToByteBufForResponse(Object, ResponseInfo, ObjectMapper,
+     * ChannelHandlerContext)}). Override {@link #serializeOutputToCompositeByteBufOutputStream(Object, ObjectMapper,
+     * ResponseInfo, ChannelHandlerContext, Charset, CompositeByteBufOutputStream)} to customize response body
+     * serialization.
+     */
+    @Deprecated
     protected String serializeOutputToString(Object output, ObjectMapper serializer, ResponseInfo<?> responseInfo,
                                              ChannelHandlerContext ctx) {
         if (output instanceof CharSequence)
@@ -138,22 +181,29 @@ public class ResponseSender {
             return serializer.writeValueAsString(output);
         }
         catch (JsonProcessingException e) {
-            // Something blew up trying to serialize the output.
-            // Log what went wrong, set the error_uid response header, then return a default error response string.
-            String errorUid = UUID.randomUUID().toString();
-            runnableWithTracingAndMdc(
-                () -> logger.error(
-                    "The output could not be serialized. A default error response will be used instead. "
-                    + "error_uid={}, unserializable_class={}",
-                    errorUid, output.getClass().getName(), e
-                ),
-                ctx
-            ).run();
-            responseInfo.getHeaders().set("error_uid", errorUid);
-            return HORRIBLE_EXPLOSION_DEFAULT_RESPONSE.replace("%UUID%", errorUid);
+            return handleOutputSerializationFailure(output, e, responseInfo, ctx);
         }
     }
 
+    /**
+     * Called when the given output could not be serialized. Logs what went wrong, sets the error_uid response header,
+     * then returns a default error response string that should be sent instead.
+     */
+    protected String handleOutputSerializationFailure(Object output, Exception cause, ResponseInfo<?> responseInfo,
+                                                      ChannelHandlerContext ctx) {
+        String errorUid = UUID.randomUUID().toString();
+        runnableWithTracingAndMdc(
+            () -> logger.error(
+                "The output could not be serialized. A default error response will be used instead. "
+                + "error_uid={}, unserializable_class={}",
+                errorUid, output.getClass().getName(), cause
+            ),
+            ctx
+        ).run();
+        responseInfo.getHeaders().set("error_uid", errorUid);
+        return HORRIBLE_EXPLOSION_DEFAULT_RESPONSE.replace("%UUID%", errorUid);
+    }
+
     /**
      * Outputs a chunk of the response to the user via the given ctx argument, depending on the type of the given msg
      * argument. This method only works on chunked responses (where {@link ResponseInfo#isChunkedResponse()} is true).
@@ -229,9 +279,9 @@ public class ResponseSender {
     /**
      * Outputs the given *full* responseInfo to the user via the given ctx argument. This method only works on full
      * responses (where {@link ResponseInfo#isChunkedResponse()} is false). If the response's {@link
-     * ResponseInfo#getContentForFullResponse()} is not null then the given serializer will be used to convert the
-     * content to a string (the {@link #defaultResponseContentSerializer} will be used if the given serializer is
-     * null).
+     * ResponseInfo#getContentForFullResponse()} is not null then the given serializer will be used to serialize the
+     * content into the response body (the {@link #defaultResponseContentSerializer} will be used if the given
+     * serializer is null).
      * <p/>
      * The given requestInfo argument is used to help determine the Trace ID that should be output to the user in the
      * headers as well as to determine if the user wants the connection kept alive. Once the response is successfully
@@ -279,6 +329,12 @@ public class ResponseSender {
 
     protected void sendFirstChunk(ChannelHandlerContext ctx, RequestInfo<?> requestInfo, ResponseInfo<?> responseInfo,
                                   ObjectMapper serializer) {
+        // If the server is draining then tell the caller to go elsewhere for future requests, and close the connection
+        //      once this response is done.
+        if (inFlightRequestTracker != null && inFlightRequestTracker.isDraining()) {
+            responseInfo.setForceConnectionCloseAfterResponseSent(true);
+        }
+
         // Sanitize the responseInfo
         sanitizeResponseInfo(responseInfo, requestInfo, serializer, ctx);
 
@@ -464,23 +520,119 @@ public class ResponseSender {
         }
     }
 
+    /**
+     * Converts the given content into the bytes for the response body. Raw byte arrays are used as-is, and {@link
+     * CharSequence}s are encoded with the {@link ResponseInfo#getDesiredContentWriterEncoding()} charset. Anything
+     * else is serialized with the given serializer (or {@link #defaultResponseContentSerializer} if it's null)
+     * directly into buffers from the channel's allocator by {@link #serializeOutputToCompositeByteBufOutputStream(
+     * Object, ObjectMapper, ResponseInfo, ChannelHandlerContext, Charset, CompositeByteBufOutputStream)}, rather than
+     * going through an intermediate String. That method is the hook to override for custom response body
+     * serialization. If the serialization fails with an {@link IOException} then {@link
+     * #handleOutputSerializationFailure(Object, Exception, ResponseInfo, ChannelHandlerContext)} decides what's sent
+     * instead.
+     *
+     * <p>The caller owns the returned buffer and is responsible for releasing it (usually by sending it).
+     */
     protected ByteBuf serializeOutputToByteBufForResponse(
         Object content,
         ResponseInfo<?> responseInfo,
         ObjectMapper serializer,
         ChannelHandlerContext ctx
     ) {
-        // If the content is a raw byte array then use it as-is via a wrapped ByteBuf. Otherwise serialize it to a
-        //      string using the provided serializer.
+        // If the content is a raw byte array then use it as-is via a wrapped ByteBuf.
         if (content instanceof byte[]) {
             return Unpooled.wrappedBuffer((byte[]) content);
         }
-        else {
-            return Unpooled.copiedBuffer(
-                serializeOutputToString(content, serializer, responseInfo, ctx),
-                responseInfo.getDesiredContentWriterEncoding()
+
+        Charset charset = responseInfo.getDesiredContentWriterEncoding();
+        ByteBufAllocator alloc = getAllocatorForResponse(ctx);
+        if (content instanceof CharSequence) {
+            return encodeStringForResponse((CharSequence) content, charset, alloc);
+        }
+
+        if (serializer == null)
+            serializer = defaultResponseContentSerializer;
+
+        CompositeByteBufOutputStream out =
+            new CompositeByteBufOutputStream(alloc, SERIALIZED_RESPONSE_BODY_COMPONENT_SIZE_BYTES);
+        try {
+            serializeOutputToCompositeByteBufOutputStream(content, serializer, responseInfo, ctx, charset, out);
+            return out.toByteBuf();
+        }
+        catch (IOException e) {
+            // Something blew up trying to serialize the output. Throw away whatever was written and use the default
+            //      error response instead.
+            out.release();
+            return encodeStringForResponse(
+                handleOutputSerializationFailure(content, e, responseInfo, ctx), charset, alloc
             );
         }
+        catch (RuntimeException | Error e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Serializes the given content into the given stream using the given serializer and charset. Jackson writes UTF-8
+     * straight to bytes, so for UTF-8 (the default) this never creates a String or a char buffer for the output - other
+     * charsets go through an {@link OutputStreamWriter}. The serialization is done with an {@link ObjectWriter} for the
+     * content's class that's cached the first time that class is seen for the serializer (see {@link
+     * JacksonCodecCache}), so the serializer lookup only happens once per response type.
+     *
+     * <p>This is the hook subclasses should override to customize how response bodies are serialized. It's called by
+     * {@link #serializeOutputToByteBufForResponse(Object, ResponseInfo, ObjectMapper, ChannelHandlerContext)} for all
+     * response content that isn't a {@code byte[]} or a {@link CharSequence}. Anything written to the given stream
+     * before an {@link IOException} is thrown is discarded.
+     *
+     * @param content The response content to serialize.
+     * @param serializer The serializer to use - never null (the default serializer is used if the response didn't
+     * specify one).
+     * @param responseInfo The response the content belongs to.
+     * @param ctx The channel handler context for the response - may be null.
+     * @param charset The charset the response body should be encoded with.
+     * @param out The stream to write the serialized content into.
+     */
+    protected void serializeOutputToCompositeByteBufOutputStream(
+        Object content,
+        ObjectMapper serializer,
+        ResponseInfo<?> responseInfo,
+        ChannelHandlerContext ctx,
+        Charset charset,
+        CompositeByteBufOutputStream out
+    ) throws IOException {
+        ObjectWriter objectWriter = (content == null)
+                                    ? serializer.writer()
+                                    : responseContentWriterCache.getWriter(serializer, content.getClass());
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            objectWriter.writeValue(out, content);
+        }
+        else {
+            // Closing the writer flushes it, whether or not the serializer already closed it.
+            try (Writer writer = new OutputStreamWriter(out, charset)) {
+                objectWriter.writeValue(writer, content);
+            }
+        }
+    }
+
+    /**
+     * @return The given string encoded with the given charset, in a buffer from the given allocator.
+     */
+    protected ByteBuf encodeStringForResponse(CharSequence str, Charset charset, ByteBufAllocator alloc) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return ByteBufUtil.writeUtf8(alloc, str);
+        }
+
+        return ByteBufUtil.encodeString(alloc, CharBuffer.wrap(str), charset);
+    }
+
+    /**
+     * @return The allocator response bodies should be serialized into - the given ctx's allocator, or {@link
+     * ByteBufAllocator#DEFAULT} if there isn't one.
+     */
+    protected ByteBufAllocator getAllocatorForResponse(ChannelHandlerContext ctx) {
+        ByteBufAllocator alloc = (ctx == null) ? null : ctx.alloc();
+        return (alloc == null) ? ByteBufAllocator.DEFAULT : alloc;
     }
 
     protected void synchronizeAndSetupResponseInfoAndFirstChunk(
@@ -0,0 +1,320 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.handler.IncompleteHttpCallTimeoutHandler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME;
+
+/**
+ * The {@link Publisher} that a {@link StreamingRequestEndpoint} receives the request body through. The endpoint
+ * execution handler feeds it the request's content chunks via {@link #addChunk(HttpContent)} as they come through the
+ * pipeline, and it hands them to its (single) {@link Subscriber} as the subscriber asks for them. Whenever there are
+ * chunks waiting for demand it turns off the {@link Channel}'s auto-read, so the rest of the body stays on the wire
+ * (and in the caller's send buffer) until the subscriber catches up. Once the body has been fully delivered, or the
+ * subscriber cancels, or the body fails, reading is turned back on so the rest of the request can be drained. While
+ * reading is paused the channel's {@link IncompleteHttpCallTimeoutHandler} (if any) is taken out of the pipeline, since
+ * it would otherwise kill the request as soon as a slow subscriber stalls for longer than the timeout - a fresh one is
+ * put back when reading resumes, so a caller that stops sending is still caught.
+ *
+ * <p>All of the state is confined to the channel's event loop - {@link Subscription#request(long)}, {@link
+ * Subscription#cancel()}, and {@link #subscribe(Subscriber)} hop onto it if they're called from another thread, and
+ * the {@link Subscriber} is always signalled on it. The {@link ByteBuf}s passed to {@link Subscriber#onNext(Object)}
+ * belong to the subscriber, which must release them.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StreamingRequestBodyPublisher implements Publisher<ByteBuf> {
+
+    protected final @NotNull Channel channel;
+    protected final @NotNull ArrayDeque<ByteBuf> bufferedChunks = new ArrayDeque<>();
+    protected @Nullable Subscriber<? super ByteBuf> subscriber;
+    protected boolean hasHadSubscriber = false;
+    protected long demand = 0;
+    protected boolean lastChunkReceived = false;
+    protected @Nullable Throwable error;
+    // True once a terminal signal has been sent to the subscriber, or the subscriber has cancelled.
+    protected boolean done = false;
+    protected boolean draining = false;
+    protected boolean readingPaused = false;
+    // The timeout of the IncompleteHttpCallTimeoutHandler that was removed while reading is paused, or 0 if none was.
+    protected long suspendedIncompleteHttpCallTimeoutMillis = 0;
+
+    /**
+     * @param channel The channel the request body is arriving on - its auto-read is turned off while chunks are
+     * waiting for demand. Cannot be null.
+     */
+    public StreamingRequestBodyPublisher(@NotNull Channel channel) {
+        //noinspection ConstantConditions
+        if (channel == null) {
+            throw new IllegalArgumentException("channel cannot be null");
+        }
+
+        this.channel = channel;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuf> subscriber) {
+        //noinspection ConstantConditions
+        if (subscriber == null) {
+            // Required by the Reactive Streams spec (rule 1.9).
+            throw new NullPointerException("subscriber cannot be null");
+        }
+
+        runOnEventLoop(() -> doSubscribe(subscriber));
+    }
+
+    protected void doSubscribe(@NotNull Subscriber<? super ByteBuf> newSubscriber) {
+        if (hasHadSubscriber) {
+            newSubscriber.onSubscribe(NoOpSubscription.INSTANCE);
+            newSubscriber.onError(
+                new IllegalStateException("A request body can only be subscribed to once")
+            );
+            return;
+        }
+
+        hasHadSubscriber = true;
+        subscriber = newSubscriber;
+        newSubscriber.onSubscribe(new RequestBodySubscription());
+        // The body may have already finished or failed before the subscriber showed up.
+        drain();
+    }
+
+    /**
+     * Adds the given chunk's content to the body, and delivers it to the subscriber if it has asked for it. Must be
+     * called on the channel's event loop. This takes ownership of the chunk - it's either handed to the subscriber
+     * or released.
+     */
+    public void addChunk(@NotNull HttpContent chunk) {
+        if (done || error != null || lastChunkReceived || !chunk.content().isReadable()) {
+            chunk.release();
+        }
+        else {
+            bufferedChunks.add(chunk.content());
+        }
+
+        if (chunk instanceof LastHttpContent) {
+            lastChunkReceived = true;
+        }
+
+        drain();
+    }
+
+    /**
+     * Fails the body with the given error - any chunks that haven't been delivered yet are released, and the
+     * subscriber (now or when it subscribes) gets {@link Subscriber#onError(Throwable)}. Does nothing if the body has
+     * already been fully delivered, failed, or cancelled. Must be called on the channel's event loop.
+     */
+    public void fail(@NotNull Throwable cause) {
+        if (done || error != null) {
+            return;
+        }
+
+        error = cause;
+        releaseBufferedChunks();
+        drain();
+    }
+
+    /**
+     * @return true if the last chunk of the body has arrived (whether or not it has been delivered yet).
+     */
+    public boolean isLastChunkReceived() {
+        return lastChunkReceived;
+    }
+
+    /**
+     * @return true if the subscriber has been sent a terminal signal, or has cancelled.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Delivers as much as the subscriber has asked for, followed by the terminal signal if there's one to send. Safe
+     * to call re-entrantly (e.g. when the subscriber calls {@link Subscription#request(long)} from {@link
+     * Subscriber#onNext(Object)}) - the outer call picks up the new demand.
+     */
+    protected void drain() {
+        if (draining) {
+            return;
+        }
+
+        draining = true;
+        try {
+            while (!done && subscriber != null) {
+                Subscriber<? super ByteBuf> s = subscriber;
+                if (error != null) {
+                    finish();
+                    s.onError(error);
+                }
+                else if (demand > 0 && !bufferedChunks.isEmpty()) {
+                    demand--;
+                    s.onNext(bufferedChunks.poll());
+                    continue;
+                }
+                else if (bufferedChunks.isEmpty() && lastChunkReceived) {
+                    finish();
+                    s.onComplete();
+                }
+
+                break;
+            }
+        }
+        catch (Throwable t) {
+            // The subscriber broke the spec by throwing. Treat it like a cancel so nothing else leaks, and let the
+            //      caller deal with the error.
+            finish();
+            throw t;
+        }
+        finally {
+            draining = false;
+            updateAutoRead();
+        }
+    }
+
+    protected void doRequest(long n) {
+        if (done) {
+            return;
+        }
+
+        if (n <= 0) {
+            // Required by the Reactive Streams spec (rule 3.9).
+            fail(new IllegalArgumentException("The number of chunks requested must be greater than 0. requested=" + n));
+            return;
+        }
+
+        demand += n;
+        if (demand < 0) {
+            // Overflowed - treat it as unbounded, as per the spec (rule 3.17).
+            demand = Long.MAX_VALUE;
+        }
+
+        drain();
+    }
+
+    protected void doCancel() {
+        if (done) {
+            return;
+        }
+
+        finish();
+        updateAutoRead();
+    }
+
+    protected void finish() {
+        done = true;
+        subscriber = null;
+        releaseBufferedChunks();
+    }
+
+    protected void releaseBufferedChunks() {
+        ByteBuf chunk;
+        while ((chunk = bufferedChunks.poll()) != null) {
+            chunk.release();
+        }
+    }
+
+    /**
+     * Stops reading from the channel while there are chunks waiting for demand, and starts again once they've been
+     * delivered (or the body is done and the rest of the request just needs to be drained).
+     */
+    protected void updateAutoRead() {
+        boolean shouldPause = !done && error == null && !bufferedChunks.isEmpty();
+        if (shouldPause != readingPaused) {
+            readingPaused = shouldPause;
+            if (shouldPause) {
+                suspendIncompleteHttpCallTimeout();
+            }
+            channel.config().setAutoRead(!shouldPause);
+            if (!shouldPause) {
+                resumeIncompleteHttpCallTimeout();
+            }
+        }
+    }
+
+    /**
+     * Removes the channel's {@link IncompleteHttpCallTimeoutHandler} (if it has one) while reading is paused - nothing
+     * is read while the subscriber catches up, so the timeout would fire even though the caller isn't the one stalling.
+     */
+    protected void suspendIncompleteHttpCallTimeout() {
+        ChannelPipeline pipeline = channel.pipeline();
+        ChannelHandler timeoutHandler = pipeline.get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME);
+        if (timeoutHandler instanceof IncompleteHttpCallTimeoutHandler) {
+            suspendedIncompleteHttpCallTimeoutMillis =
+                ((IncompleteHttpCallTimeoutHandler) timeoutHandler).getIdleTimeoutMillis();
+            pipeline.remove(timeoutHandler);
+        }
+    }
+
+    /**
+     * Puts back a fresh {@link IncompleteHttpCallTimeoutHandler} (so its timer starts over) if one was removed by
+     * {@link #suspendIncompleteHttpCallTimeout()} and the rest of the request still needs to arrive.
+     */
+    protected void resumeIncompleteHttpCallTimeout() {
+        long timeoutMillis = suspendedIncompleteHttpCallTimeoutMillis;
+        if (timeoutMillis <= 0) {
+            return;
+        }
+
+        suspendedIncompleteHttpCallTimeoutMillis = 0;
+        ChannelPipeline pipeline = channel.pipeline();
+        if (!lastChunkReceived
+            && channel.isActive()
+            && pipeline.get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME) == null
+        ) {
+            pipeline.addFirst(
+                INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME, new IncompleteHttpCallTimeoutHandler(timeoutMillis)
+            );
+        }
+    }
+
+    protected void runOnEventLoop(@NotNull Runnable runnable) {
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            runnable.run();
+        }
+        else {
+            eventLoop.execute(runnable);
+        }
+    }
+
+    protected class RequestBodySubscription implements Subscription {
+
+        @Override
+        public void request(long n) {
+            runOnEventLoop(() -> doRequest(n));
+        }
+
+        @Override
+        public void cancel() {
+            runOnEventLoop(StreamingRequestBodyPublisher.this::doCancel);
+        }
+    }
+
+    protected enum NoOpSubscription implements Subscription {
+        INSTANCE;
+
+        @Override
+        public void request(long n) {
+            // Do nothing.
+        }
+
+        @Override
+        public void cancel() {
+            // Do nothing.
+        }
+    }
+}
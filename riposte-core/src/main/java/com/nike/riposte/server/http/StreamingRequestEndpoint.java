@@ -0,0 +1,111 @@
+package com.nike.riposte.server.http;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Extension of {@link Endpoint} for endpoints that consume the request body as it arrives, rather than waiting for the
+ * whole thing to be aggregated in the {@link RequestInfo} like {@link StandardEndpoint}s and {@link
+ * NonblockingEndpoint}s do. The body is handed to {@link #execute(RequestInfo, Publisher, Executor,
+ * ChannelHandlerContext)} as a Reactive Streams {@link Publisher} of {@link ByteBuf}s, and the body is only read off
+ * the connection as fast as the {@link Subscriber} asks for it via {@link Subscription#request(long)} - so request
+ * bodies of any size (e.g. uploads that are streamed to disk or object storage) can be handled in constant memory.
+ * <p/>
+ * Since the body is never aggregated, {@link RequestInfo#getRawContentBytes()}, {@link RequestInfo#getRawContent()},
+ * and {@link RequestInfo#getContent()} are always null for these endpoints, and there's no request size limit by
+ * default (see {@link #maxRequestSizeInBytesOverride()}).
+ */
+public abstract class StreamingRequestEndpoint<O> implements Endpoint<Void> {
+
+    /**
+     * This is where the logic for the endpoint goes. It's called as soon as the request's headers arrive (and any
+     * pre-endpoint-execution work like security validation is done), usually before the body has finished arriving.
+     * Like {@link NonblockingEndpoint#execute(RequestInfo, Executor, ChannelHandlerContext)} this is initially called
+     * on a Netty worker I/O thread, so DO NOT do anything blocking here - see that method's javadocs for how to build
+     * the returned {@link CompletableFuture} safely.
+     * <p/>
+     * The rules for {@code requestBody}:
+     * <ul>
+     *     <li>
+     *         It only supports a single {@link Subscriber}, and only delivers bytes as they're requested via {@link
+     *         Subscription#request(long)}. Reading from the connection stops while there are chunks waiting for
+     *         demand, so a slow subscriber slows down the caller rather than buffering the body in memory.
+     *     </li>
+     *     <li>
+     *         The subscriber owns every {@link ByteBuf} it receives in {@link Subscriber#onNext(Object)} and MUST
+     *         call {@link ByteBuf#release()} on each one when it's done with it, otherwise there will be leaks.
+     *     </li>
+     *     <li>
+     *         {@link Subscriber#onError(Throwable)} is called if the request fails before the body finishes (e.g.
+     *         the caller disconnects, or the endpoint times out).
+     *     </li>
+     *     <li>
+     *         Only complete the returned {@link CompletableFuture} once you're done with the body - the response
+     *         ends the request, so any part of the body that hasn't been consumed by then is discarded (and the
+     *         subscriber gets {@link Subscriber#onError(Throwable)} if it's still subscribed).
+     *     </li>
+     * </ul>
+     * The same timeout as {@link NonblockingEndpoint}s applies to the returned {@link CompletableFuture} (see {@link
+     * #completableFutureTimeoutOverrideMillis()}), so endpoints that accept very large bodies will usually want to
+     * override it.
+     *
+     * @param request The request - its content is always null for these endpoints, since the body comes through
+     * {@code requestBody} instead.
+     * @param requestBody The request body, published as it arrives.
+     * @param longRunningTaskExecutor The executor to use for any blocking or long running work.
+     * @param ctx The channel handler context for the request.
+     * @return A {@link CompletableFuture} for the (full, not chunked) response.
+     */
+    public abstract @NotNull CompletableFuture<ResponseInfo<O>> execute(
+        @NotNull RequestInfo<Void> request,
+        @NotNull Publisher<ByteBuf> requestBody,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    );
+
+    /**
+     * Streaming request endpoints receive the body through a {@link Publisher} rather than {@link
+     * RequestInfo#getContent()}, so return null.
+     */
+    @Override
+    public @Nullable TypeReference<Void> requestContentType() {
+        return null;
+    }
+
+    /**
+     * Streaming request endpoints have no deserialized content to validate, so return false.
+     */
+    @Override
+    public boolean isValidateRequestContent(@NotNull RequestInfo<?> request) {
+        return false;
+    }
+
+    /**
+     * The body isn't available until it's streamed, so it can't be required up front - return false.
+     */
+    @Override
+    public boolean isRequireRequestContent() {
+        return false;
+    }
+
+    /**
+     * The whole point of streaming the request body is to support bodies that are too big to aggregate, so return 0
+     * to disable the request size limit by default. Override this if you want a limit - it's enforced as the body
+     * arrives.
+     */
+    @Override
+    public @Nullable Integer maxRequestSizeInBytesOverride() {
+        return 0;
+    }
+}
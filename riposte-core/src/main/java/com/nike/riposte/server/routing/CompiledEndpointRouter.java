@@ -0,0 +1,505 @@
+package com.nike.riposte.server.routing;
+
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.RouteTableAnalysis;
+import com.nike.riposte.util.AntPathMatcher;
+import com.nike.riposte.util.CompiledPathTemplate;
+import com.nike.riposte.util.Matcher;
+import com.nike.riposte.util.MatcherUtil;
+import com.nike.riposte.util.MultiMatcher;
+import com.nike.riposte.util.SingleMatcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.nike.riposte.util.CompiledPathTemplate.isLiteralSegment;
+import static com.nike.riposte.util.CompiledPathTemplate.isPathParamSegment;
+
+/**
+ * Compiles the path templates of a collection of {@link Endpoint}s into a prefix trie keyed by path segment, so that
+ * finding the endpoints that match a request costs roughly one map lookup per path segment rather than one {@link
+ * Matcher#matchesPath(RequestInfo)} call (and the associated Ant path matching) per endpoint. Path parameters are
+ * captured during the same walk, so they don't need to be extracted from the path a second time.
+ *
+ * <p>The results are identical to asking each endpoint's {@link Endpoint#requestMatcher()} about the request in
+ * registration order, which is what {@link com.nike.riposte.server.handler.RoutingHandler} does when no compiled router
+ * is in use. Only the path templates of plain {@link SingleMatcher} and {@link MultiMatcher} instances made up
+ * entirely of literal segments and simple <code>{pathParam}</code> segments are placed in the trie. Everything else -
+ * Ant wildcards ({@code *}, {@code ?}, {@code **}), regex path params, partial-segment path params, and custom {@link
+ * Matcher} implementations or subclasses - is checked one by one alongside the trie lookup using the same logic the
+ * matcher itself would use.
+ *
+ * <p>The endpoints are also run through {@link RouteTableAnalyzer} at construction time (unless an analysis that was
+ * already done for them is passed in). If that proves no request can ever be fully matched by more than one endpoint
+ * then lookups return as soon as the first fully matching route is found, rather than continuing to look for others
+ * just so a multiple-matching-endpoints error can be thrown.
+ *
+ * <p>Instances are immutable after construction and safe to share across all channels.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompiledEndpointRouter {
+
+    protected static final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    protected final @NotNull List<Endpoint<?>> endpoints;
+    protected final @NotNull TrieNode root = new TrieNode();
+    protected final @NotNull List<AntTemplateRoute> antTemplateRoutes = new ArrayList<>();
+    protected final @NotNull List<Integer> opaqueMatcherEndpointIndexes = new ArrayList<>();
+    protected final int numCompiledTemplates;
+    protected final boolean firstFullMatchWins;
+    /**
+     * The lowest {@link Matcher#matchingPathTemplates()} index of each endpoint's templates that had to be Ant-matched
+     * rather than compiled, or {@link Integer#MAX_VALUE} if the endpoint has no such templates.
+     */
+    protected final int[] firstAntTemplateIndexByEndpoint;
+
+    public CompiledEndpointRouter(@NotNull Collection<Endpoint<?>> endpoints) {
+        this(endpoints, null);
+    }
+
+    /**
+     * @param endpoints The endpoints to route to. Cannot be null or empty.
+     * @param routeTableAnalysis The result of {@link RouteTableAnalyzer#analyze(Collection)} for the given endpoints,
+     * if it has already been done (e.g. by the server at startup) - the analysis is O(n^2) in the number of endpoints,
+     * so there's no reason to do it twice. If this is null then the endpoints are analyzed here.
+     */
+    public CompiledEndpointRouter(
+        @NotNull Collection<Endpoint<?>> endpoints,
+        @Nullable RouteTableAnalysis routeTableAnalysis
+    ) {
+        //noinspection ConstantConditions
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("endpoints cannot be empty");
+        }
+
+        this.endpoints = new ArrayList<>(endpoints);
+        this.firstAntTemplateIndexByEndpoint = new int[this.endpoints.size()];
+        Arrays.fill(firstAntTemplateIndexByEndpoint, Integer.MAX_VALUE);
+
+        int compiledCount = 0;
+        for (int endpointIndex = 0; endpointIndex < this.endpoints.size(); endpointIndex++) {
+            Matcher matcher = this.endpoints.get(endpointIndex).requestMatcher();
+            if (!isCompilableMatcher(matcher)) {
+                // We can't know what a custom matcher does, so it has to be asked about each request directly.
+                opaqueMatcherEndpointIndexes.add(endpointIndex);
+                continue;
+            }
+
+            int templateIndex = 0;
+            for (String pathTemplate : matcher.matchingPathTemplates()) {
+                if (addTemplateToTrie(endpointIndex, templateIndex, pathTemplate)) {
+                    compiledCount++;
+                }
+                else {
+                    antTemplateRoutes.add(new AntTemplateRoute(endpointIndex, templateIndex, pathTemplate));
+                    firstAntTemplateIndexByEndpoint[endpointIndex] =
+                        Math.min(firstAntTemplateIndexByEndpoint[endpointIndex], templateIndex);
+                }
+                templateIndex++;
+            }
+        }
+
+        this.numCompiledTemplates = compiledCount;
+        if (routeTableAnalysis == null) {
+            routeTableAnalysis = RouteTableAnalyzer.analyze(this.endpoints);
+        }
+        this.firstFullMatchWins = routeTableAnalysis.isProvablyUnambiguous();
+    }
+
+    /**
+     * @return true if the given matcher's path matching logic is known to be exactly "return the first of {@link
+     * Matcher#matchingPathTemplates()} that Ant-matches the path (ignoring trailing slashes)", which is what allows its
+     * templates to be compiled.
+     */
+    protected boolean isCompilableMatcher(@NotNull Matcher matcher) {
+        return matcher.getClass() == SingleMatcher.class || matcher.getClass() == MultiMatcher.class;
+    }
+
+    /**
+     * Adds the given path template to the trie if it is made up entirely of literal and simple path param segments.
+     *
+     * @return true if the template was added to the trie, false if it can't be represented in the trie and must be
+     * Ant-matched instead.
+     */
+    protected boolean addTemplateToTrie(int endpointIndex, int templateIndex, @NotNull String pathTemplate) {
+        if (!pathTemplate.startsWith("/")) {
+            return false;
+        }
+
+        List<String> segments = tokenizePath(pathTemplate);
+        for (String segment : segments) {
+            if (!isLiteralSegment(segment) && !isPathParamSegment(segment)) {
+                return false;
+            }
+        }
+
+        List<Integer> pathParamSegmentIndexes = new ArrayList<>();
+        List<String> pathParamNames = new ArrayList<>();
+        TrieNode node = root;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (isPathParamSegment(segment)) {
+                pathParamSegmentIndexes.add(i);
+                pathParamNames.add(segment.substring(1, segment.length() - 1));
+                if (node.pathParamChild == null) {
+                    node.pathParamChild = new TrieNode();
+                }
+                node = node.pathParamChild;
+            }
+            else {
+                node = node.literalChildren.computeIfAbsent(segment, s -> new TrieNode());
+            }
+        }
+
+        node.terminalRoutes.add(
+            new TrieRoute(
+                endpointIndex, templateIndex, pathTemplate, pathTemplate.endsWith("/"),
+                pathParamSegmentIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                pathParamNames.toArray(new String[0])
+            )
+        );
+        return true;
+    }
+
+    /**
+     * Splits the given path into segments the same way {@link AntPathMatcher} does: separated by forward slashes, with
+     * each segment trimmed and empty segments ignored.
+     */
+    protected static @NotNull List<String> tokenizePath(@NotNull String path) {
+        List<String> segments = new ArrayList<>();
+        int len = path.length();
+        int pos = 0;
+        while (pos < len) {
+            int segmentEnd = path.indexOf('/', pos);
+            if (segmentEnd < 0) {
+                segmentEnd = len;
+            }
+
+            int start = pos;
+            int end = segmentEnd;
+            while (start < end && path.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && path.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+
+            pos = segmentEnd + 1;
+        }
+        return segments;
+    }
+
+    /**
+     * @return The result of matching the given request against all the endpoints this router was built with. The
+     * {@link RouteLookupResult#hasPathMatch()} and {@link RouteLookupResult#fullyMatchingRoutes()} values are exactly
+     * what you'd get by asking each endpoint's {@link Endpoint#requestMatcher()} about the request in turn, with the
+     * fully matching routes in endpoint registration order.
+     */
+    public @NotNull RouteLookupResult findMatchingRoutes(@NotNull RequestInfo<?> request) {
+        List<RouteMatch> pathMatches = new ArrayList<>(1);
+
+        //noinspection ConstantConditions
+        String rawPath = (request == null) ? null : request.getPath();
+        if (rawPath != null) {
+            String path = MatcherUtil.stripEndSlash(rawPath);
+            // Paths that don't start with a slash can never match a SingleMatcher or MultiMatcher template.
+            if (path.startsWith("/")) {
+                List<String> segments = tokenizePath(path);
+                collectTrieMatches(root, segments, 0, path.endsWith("/"), pathMatches);
+
+                if (firstFullMatchWins) {
+                    for (RouteMatch trieMatch : pathMatches) {
+                        // An endpoint's earlier Ant-matched template takes precedence over a later compiled one, so
+                        //      we can only stop early if there's no such template left to check.
+                        if (trieMatch.templateIndex < firstAntTemplateIndexByEndpoint[trieMatch.endpointIndex]
+                            && trieMatch.endpoint.requestMatcher().matchesMethod(request)) {
+                            return new RouteLookupResult(true, Collections.singletonList(trieMatch));
+                        }
+                    }
+                }
+
+                for (AntTemplateRoute antRoute : antTemplateRoutes) {
+                    if (pathMatcher.match(antRoute.pathTemplate, path)) {
+                        RouteMatch endpointMatch = addPathMatch(
+                            pathMatches,
+                            new RouteMatch(
+                                endpoints.get(antRoute.endpointIndex), antRoute.endpointIndex,
+                                antRoute.templateIndex, antRoute.pathTemplate, null
+                            )
+                        );
+
+                        // Ant routes are checked in template order, so the endpoint's match can't change after this.
+                        if (firstFullMatchWins && endpointMatch.endpoint.requestMatcher().matchesMethod(request)) {
+                            return new RouteLookupResult(true, Collections.singletonList(endpointMatch));
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Integer endpointIndex : opaqueMatcherEndpointIndexes) {
+            Endpoint<?> endpoint = endpoints.get(endpointIndex);
+            Optional<String> pattern = endpoint.requestMatcher().matchesPath(request);
+            if (pattern.isPresent()) {
+                addPathMatch(pathMatches, new RouteMatch(endpoint, endpointIndex, 0, pattern.get(), null));
+            }
+        }
+
+        if (pathMatches.isEmpty()) {
+            return RouteLookupResult.NO_PATH_MATCH;
+        }
+
+        if (pathMatches.size() > 1) {
+            pathMatches.sort((m1, m2) -> Integer.compare(m1.endpointIndex, m2.endpointIndex));
+        }
+
+        List<RouteMatch> fullyMatchingRoutes = new ArrayList<>(1);
+        for (RouteMatch pathMatch : pathMatches) {
+            if (pathMatch.endpoint.requestMatcher().matchesMethod(request)) {
+                fullyMatchingRoutes.add(pathMatch);
+            }
+        }
+
+        return new RouteLookupResult(true, fullyMatchingRoutes);
+    }
+
+    protected void collectTrieMatches(
+        @NotNull TrieNode node,
+        @NotNull List<String> segments,
+        int segmentIndex,
+        boolean pathEndsWithSlash,
+        @NotNull List<RouteMatch> pathMatches
+    ) {
+        if (segmentIndex == segments.size()) {
+            for (TrieRoute route : node.terminalRoutes) {
+                // The Ant matcher requires the template and path to agree on trailing slashes (after the single
+                //      trailing slash has been stripped from both, so this only matters for the root path and for
+                //      templates/paths ending in multiple slashes).
+                if (route.endsWithSlash == pathEndsWithSlash) {
+                    addPathMatch(
+                        pathMatches,
+                        new RouteMatch(
+                            endpoints.get(route.endpointIndex), route.endpointIndex, route.templateIndex,
+                            route.pathTemplate, route.extractPathParams(segments)
+                        )
+                    );
+                }
+            }
+            return;
+        }
+
+        TrieNode literalChild = node.literalChildren.get(segments.get(segmentIndex));
+        if (literalChild != null) {
+            collectTrieMatches(literalChild, segments, segmentIndex + 1, pathEndsWithSlash, pathMatches);
+        }
+
+        // The Ant matcher uses a regex dot for path params, which doesn't match line terminators.
+        if (node.pathParamChild != null && !containsLineTerminator(segments.get(segmentIndex))) {
+            collectTrieMatches(node.pathParamChild, segments, segmentIndex + 1, pathEndsWithSlash, pathMatches);
+        }
+    }
+
+    protected static boolean containsLineTerminator(@NotNull String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given match, making sure each endpoint only has one entry. When an endpoint matches via more than one of
+     * its templates the one that comes first in {@link Matcher#matchingPathTemplates()} wins, since that's the one
+     * {@link MultiMatcher#matchesPath(RequestInfo)} would have returned.
+     *
+     * @return The entry for the new match's endpoint after the new match has been taken into account.
+     */
+    protected static @NotNull RouteMatch addPathMatch(
+        @NotNull List<RouteMatch> pathMatches,
+        @NotNull RouteMatch newMatch
+    ) {
+        for (int i = 0; i < pathMatches.size(); i++) {
+            RouteMatch existing = pathMatches.get(i);
+            if (existing.endpointIndex == newMatch.endpointIndex) {
+                if (newMatch.templateIndex < existing.templateIndex) {
+                    pathMatches.set(i, newMatch);
+                    return newMatch;
+                }
+                return existing;
+            }
+        }
+
+        pathMatches.add(newMatch);
+        return newMatch;
+    }
+
+    /**
+     * @return The number of path templates that were compiled into the trie.
+     */
+    public int getNumCompiledTemplates() {
+        return numCompiledTemplates;
+    }
+
+    /**
+     * @return The number of path templates (plus custom matchers) that could not be compiled into the trie and are
+     * instead checked one by one for each request.
+     */
+    public int getNumUncompiledTemplates() {
+        return antTemplateRoutes.size() + opaqueMatcherEndpointIndexes.size();
+    }
+
+    /**
+     * @return true if {@link RouteTableAnalyzer} proved that no request can be fully matched by more than one endpoint,
+     * in which case {@link #findMatchingRoutes(RequestInfo)} returns as soon as it finds a fully matching route.
+     */
+    public boolean isFirstFullMatchWins() {
+        return firstFullMatchWins;
+    }
+
+    /**
+     * The result of {@link #findMatchingRoutes(RequestInfo)}.
+     */
+    public static class RouteLookupResult {
+
+        protected static final RouteLookupResult NO_PATH_MATCH =
+            new RouteLookupResult(false, Collections.emptyList());
+
+        protected final boolean hasPathMatch;
+        protected final @NotNull List<RouteMatch> fullyMatchingRoutes;
+
+        protected RouteLookupResult(boolean hasPathMatch, @NotNull List<RouteMatch> fullyMatchingRoutes) {
+            this.hasPathMatch = hasPathMatch;
+            this.fullyMatchingRoutes = fullyMatchingRoutes;
+        }
+
+        /**
+         * @return true if at least one endpoint matched the request's path (regardless of HTTP method).
+         */
+        public boolean hasPathMatch() {
+            return hasPathMatch;
+        }
+
+        /**
+         * @return The routes whose endpoints matched both the request's path and HTTP method, in endpoint registration
+         * order. Will never be null.
+         */
+        public @NotNull List<RouteMatch> fullyMatchingRoutes() {
+            return fullyMatchingRoutes;
+        }
+    }
+
+    /**
+     * An endpoint that matched a request's path, along with the path template it matched on and (if they were
+     * captured while matching) the request's path params.
+     */
+    public static class RouteMatch {
+
+        protected final @NotNull Endpoint<?> endpoint;
+        protected final int endpointIndex;
+        protected final int templateIndex;
+        protected final @NotNull String pathTemplate;
+        protected final @Nullable Map<String, String> pathParams;
+
+        protected RouteMatch(
+            @NotNull Endpoint<?> endpoint,
+            int endpointIndex,
+            int templateIndex,
+            @NotNull String pathTemplate,
+            @Nullable Map<String, String> pathParams
+        ) {
+            this.endpoint = endpoint;
+            this.endpointIndex = endpointIndex;
+            this.templateIndex = templateIndex;
+            this.pathTemplate = pathTemplate;
+            this.pathParams = pathParams;
+        }
+
+        public @NotNull Endpoint<?> endpoint() {
+            return endpoint;
+        }
+
+        public @NotNull String pathTemplate() {
+            return pathTemplate;
+        }
+
+        /**
+         * @return The path params captured while matching the path template, or null if the template was matched in a
+         * way that doesn't capture path params (in which case they should be extracted from the path via {@link
+         * RequestInfo#setPathParamsBasedOnPathTemplate(String)}).
+         */
+        public @Nullable Map<String, String> pathParams() {
+            return pathParams;
+        }
+    }
+
+    protected static class TrieNode {
+        protected final @NotNull Map<String, TrieNode> literalChildren = new HashMap<>();
+        protected @Nullable TrieNode pathParamChild;
+        protected final @NotNull List<TrieRoute> terminalRoutes = new ArrayList<>(1);
+    }
+
+    protected static class TrieRoute {
+        protected final int endpointIndex;
+        protected final int templateIndex;
+        protected final @NotNull String pathTemplate;
+        protected final boolean endsWithSlash;
+        protected final int[] pathParamSegmentIndexes;
+        protected final @NotNull String[] pathParamNames;
+
+        protected TrieRoute(
+            int endpointIndex,
+            int templateIndex,
+            @NotNull String pathTemplate,
+            boolean endsWithSlash,
+            int[] pathParamSegmentIndexes,
+            @NotNull String[] pathParamNames
+        ) {
+            this.endpointIndex = endpointIndex;
+            this.templateIndex = templateIndex;
+            this.pathTemplate = pathTemplate;
+            this.endsWithSlash = endsWithSlash;
+            this.pathParamSegmentIndexes = pathParamSegmentIndexes;
+            this.pathParamNames = pathParamNames;
+        }
+
+        protected @NotNull Map<String, String> extractPathParams(@NotNull List<String> segments) {
+            if (pathParamNames.length == 0) {
+                return Collections.emptyMap();
+            }
+
+            Map<String, String> pathParams = new LinkedHashMap<>();
+            for (int i = 0; i < pathParamNames.length; i++) {
+                pathParams.put(pathParamNames[i], segments.get(pathParamSegmentIndexes[i]));
+            }
+            return pathParams;
+        }
+    }
+
+    protected static class AntTemplateRoute {
+        protected final int endpointIndex;
+        protected final int templateIndex;
+        protected final @NotNull String pathTemplate;
+
+        protected AntTemplateRoute(int endpointIndex, int templateIndex, @NotNull String pathTemplate) {
+            this.endpointIndex = endpointIndex;
+            this.templateIndex = templateIndex;
+            this.pathTemplate = pathTemplate;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.nike.riposte.server.routing;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.util.Matcher;
+import com.nike.riposte.util.MultiMatcher;
+import com.nike.riposte.util.SingleMatcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+/**
+ * A bounded, thread safe cache of resolved routes keyed by HTTP method and decoded request path. Each {@link
+ * CachedRoute} holds everything routing produces for a request - the endpoint, the matched path template, and the
+ * extracted path params - so a cache hit skips endpoint matching entirely. A single instance is intended to be shared
+ * across all channels.
+ *
+ * <p>Only routes that depend on nothing but the HTTP method and path can be cached, which is the case when every
+ * endpoint uses a {@link SingleMatcher} or {@link MultiMatcher} - see {@link #supportsEndpoints(Collection)}. Callers
+ * should only {@link #put(HttpMethod, String, CachedRoute)} successfully routed requests, so 404s and 405s never take
+ * up space.
+ *
+ * <p>Admission follows the TinyLFU approach: every lookup records the key in a small count-min frequency sketch, and
+ * once the cache is full a new route is only admitted if it has been requested more often than the eviction victim.
+ * This keeps one-off requests (e.g. something scanning random URLs that happen to match a path param template) from
+ * flushing out the hot routes. Victims are picked in insertion order, and a victim that survives an admission
+ * contest goes to the back of the line so the next contest compares against a different route. The sketch counters
+ * are periodically halved so that routes that were hot a long time ago eventually give way to routes that are hot
+ * now. Updates to the sketch are deliberately unsynchronized - a lost increment only makes a frequency estimate a
+ * little low, which doesn't matter for admission decisions.
+ *
+ * <p>Hits, misses, and evictions are counted (see {@link #getHitCount()}, {@link #getMissCount()}, and {@link
+ * #getEvictionCount()}) and reported to the {@link MetricsListener} (if any) as {@link
+ * ServerMetricsEvent#ROUTE_CACHE_HIT}, {@link ServerMetricsEvent#ROUTE_CACHE_MISS}, and {@link
+ * ServerMetricsEvent#ROUTE_CACHE_EVICTION} events.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RouteCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteCache.class);
+
+    protected final int maxSize;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull Map<RouteKey, CachedRoute> routes;
+    protected final @NotNull Queue<RouteKey> evictionOrder = new ConcurrentLinkedQueue<>();
+    protected final @NotNull FrequencySketch frequencySketch;
+    protected final @NotNull ReentrantLock evictionLock = new ReentrantLock();
+
+    protected final @NotNull LongAdder hitCount = new LongAdder();
+    protected final @NotNull LongAdder missCount = new LongAdder();
+    protected final @NotNull LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param maxSize The max number of routes to cache. Must be greater than 0.
+     * @param metricsListener The {@link MetricsListener} that should be notified of cache hits, misses, and evictions.
+     * Can be null if you don't want metrics events.
+     */
+    public RouteCache(int maxSize, @Nullable MetricsListener metricsListener) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0. maxSize: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.metricsListener = metricsListener;
+        this.routes = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+        this.frequencySketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * @return true if the routing results for the given endpoints depend only on the HTTP method and path of the
+     * request, and can therefore be cached by this class. This is the case when every endpoint uses a {@link
+     * SingleMatcher} or {@link MultiMatcher} (i.e. the ones created by {@link Matcher#match(String)} and {@link
+     * Matcher#multiMatch(Collection)}). Subclasses of those matchers might look at other parts of the request, so only
+     * the exact classes count.
+     */
+    public static boolean supportsEndpoints(@NotNull Collection<Endpoint<?>> endpoints) {
+        for (Endpoint<?> endpoint : endpoints) {
+            Class<?> matcherClass = endpoint.requestMatcher().getClass();
+            if (matcherClass != SingleMatcher.class && matcherClass != MultiMatcher.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param method The request's HTTP method.
+     * @param path The request's decoded path.
+     * @param metricsEventValue The value to pass to the {@link MetricsListener} along with the hit or miss event -
+     * normally the request's {@code HttpProcessingState}. Can be null.
+     * @return The cached route for the given method and path, or null if there isn't one.
+     */
+    public @Nullable CachedRoute get(
+        @NotNull HttpMethod method,
+        @NotNull String path,
+        @Nullable Object metricsEventValue
+    ) {
+        RouteKey key = new RouteKey(method, path);
+        frequencySketch.increment(key.hashCode());
+
+        CachedRoute route = routes.get(key);
+        if (route == null) {
+            missCount.increment();
+            notifyMetricsListener(ServerMetricsEvent.ROUTE_CACHE_MISS, metricsEventValue);
+        }
+        else {
+            hitCount.increment();
+            notifyMetricsListener(ServerMetricsEvent.ROUTE_CACHE_HIT, metricsEventValue);
+        }
+
+        return route;
+    }
+
+    /**
+     * Caches the given route for the given method and path, if the admission policy allows it (see the class javadocs
+     * for details). If another thread is busy making room in the cache at the same moment then the route is simply not
+     * cached - it will get another chance the next time it's requested.
+     *
+     * @param method The request's HTTP method.
+     * @param path The request's decoded path.
+     * @param route The route that the request resolved to.
+     * @return true if the route was added to the cache, false if it was rejected.
+     */
+    public boolean put(@NotNull HttpMethod method, @NotNull String path, @NotNull CachedRoute route) {
+        RouteKey key = new RouteKey(method, path);
+
+        if (routes.size() < maxSize) {
+            if (routes.putIfAbsent(key, route) == null) {
+                evictionOrder.offer(key);
+            }
+            return true;
+        }
+
+        if (!evictionLock.tryLock()) {
+            return false;
+        }
+
+        try {
+            if (routes.containsKey(key)) {
+                return true;
+            }
+
+            // Keep going until we're under the size limit - concurrent puts of the fast path above can overshoot.
+            while (routes.size() >= maxSize) {
+                RouteKey victim = evictionOrder.poll();
+                if (victim == null) {
+                    break;
+                }
+
+                if (frequencySketch.frequency(key.hashCode()) <= frequencySketch.frequency(victim.hashCode())) {
+                    // The candidate isn't requested more often than the victim, so the victim stays and the candidate
+                    //      is rejected. Send the victim to the back of the line so the next contest is against a
+                    //      different route.
+                    evictionOrder.offer(victim);
+                    return false;
+                }
+
+                if (routes.remove(victim) != null) {
+                    evictionCount.increment();
+                    notifyMetricsListener(ServerMetricsEvent.ROUTE_CACHE_EVICTION, null);
+                }
+            }
+
+            routes.put(key, route);
+            evictionOrder.offer(key);
+            return true;
+        }
+        finally {
+            evictionLock.unlock();
+        }
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, @Nullable Object value) {
+        if (metricsListener == null) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(event, value);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener threw an exception while handling a route cache event. event={}", event, t);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The number of routes currently cached.
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * The routing result for a request: the {@link Endpoint} that should handle it, the path template it matched, and
+     * the path params extracted from the request path using that template.
+     */
+    public static class CachedRoute {
+
+        protected final @NotNull Endpoint<?> endpoint;
+        protected final @NotNull String pathTemplate;
+        protected final @NotNull Map<String, String> pathParams;
+
+        /**
+         * @param endpoint The endpoint the request was routed to. Cannot be null.
+         * @param pathTemplate The path template the endpoint matched. Cannot be null.
+         * @param pathParams The path params extracted from the request path. Since the instance is shared across
+         * requests these are copied into a read-only map. Can be null, which is treated as no path params.
+         */
+        @SuppressWarnings("ConstantConditions")
+        public CachedRoute(
+            @NotNull Endpoint<?> endpoint,
+            @NotNull String pathTemplate,
+            @Nullable Map<String, String> pathParams
+        ) {
+            if (endpoint == null) {
+                throw new IllegalArgumentException("endpoint cannot be null");
+            }
+
+            if (pathTemplate == null) {
+                throw new IllegalArgumentException("pathTemplate cannot be null");
+            }
+
+            this.endpoint = endpoint;
+            this.pathTemplate = pathTemplate;
+            this.pathParams = (pathParams == null || pathParams.isEmpty())
+                              ? Collections.emptyMap()
+                              : Collections.unmodifiableMap(new LinkedHashMap<>(pathParams));
+        }
+
+        public @NotNull Endpoint<?> endpoint() {
+            return endpoint;
+        }
+
+        public @NotNull String pathTemplate() {
+            return pathTemplate;
+        }
+
+        public @NotNull Map<String, String> pathParams() {
+            return pathParams;
+        }
+    }
+
+    protected static class RouteKey {
+
+        protected final @NotNull HttpMethod method;
+        protected final @NotNull String path;
+        protected final int hash;
+
+        protected RouteKey(@NotNull HttpMethod method, @NotNull String path) {
+            this.method = method;
+            this.path = path;
+            this.hash = 31 * method.hashCode() + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RouteKey)) {
+                return false;
+            }
+            RouteKey other = (RouteKey) o;
+            return hash == other.hash && path.equals(other.path) && method.equals(other.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters (so frequencies top out at 15), packed 16 to a {@code long}, with 4 hash
+     * functions. All counters are halved once the number of recorded increments reaches 10x the cache size, which is
+     * how old popularity fades.
+     */
+    protected static class FrequencySketch {
+
+        protected static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        protected static final long RESET_MASK = 0x7777777777777777L;
+        protected static final int MAX_COUNT = 15;
+
+        protected final long[] table;
+        protected final int tableMask;
+        protected final int sampleSize;
+        protected int size;
+
+        protected FrequencySketch(int maxSize) {
+            // One long (16 counters) per cached route, rounded up to a power of two.
+            int cappedMaxSize = Math.min(Math.max(maxSize, 8), 1 << 24);
+            int tableSize = Integer.highestOneBit(cappedMaxSize - 1) << 1;
+            this.table = new long[tableSize];
+            this.tableMask = tableSize - 1;
+            this.sampleSize = (int) Math.min(10L * maxSize, Integer.MAX_VALUE);
+        }
+
+        protected int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long spread = spread(hash, i);
+                int index = tableIndex(spread);
+                int shift = counterShift(spread);
+                frequency = Math.min(frequency, (int) ((table[index] >>> shift) & 0xfL));
+            }
+            return frequency;
+        }
+
+        protected void increment(int hash) {
+            boolean incremented = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long spread = spread(hash, i);
+                int index = tableIndex(spread);
+                int shift = counterShift(spread);
+                long value = table[index];
+                if (((value >>> shift) & 0xfL) < MAX_COUNT) {
+                    table[index] = value + (1L << shift);
+                    incremented = true;
+                }
+            }
+
+            if (incremented && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        protected void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = size >>> 1;
+        }
+
+        protected long spread(int hash, int seedIndex) {
+            long spread = (hash + SEEDS[seedIndex]) * SEEDS[seedIndex];
+            return spread ^ (spread >>> 32);
+        }
+
+        protected int tableIndex(long spread) {
+            return (int) (spread >>> 8) & tableMask;
+        }
+
+        protected int counterShift(long spread) {
+            // 16 counters of 4 bits each per long.
+            return ((int) spread & 15) << 2;
+        }
+    }
+}
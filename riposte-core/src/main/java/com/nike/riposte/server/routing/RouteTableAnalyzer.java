@@ -0,0 +1,399 @@
+package com.nike.riposte.server.routing;
+
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.util.AntPathMatcher;
+import com.nike.riposte.util.Matcher;
+import com.nike.riposte.util.MultiMatcher;
+import com.nike.riposte.util.SingleMatcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import static com.nike.riposte.server.routing.CompiledEndpointRouter.tokenizePath;
+import static com.nike.riposte.util.CompiledPathTemplate.isLiteralSegment;
+import static com.nike.riposte.util.CompiledPathTemplate.isPathParamSegment;
+
+/**
+ * Analyzes a collection of {@link Endpoint}s at startup to find endpoints that can match the same request (i.e. a
+ * request whose path matches at least one path template from each endpoint, and whose HTTP method is accepted by
+ * both). Such requests would otherwise only be discovered at runtime, when {@link
+ * com.nike.riposte.server.handler.RoutingHandler} throws a {@link
+ * com.nike.riposte.server.error.exception.MultipleMatchingEndpointsException}.
+ *
+ * <p>Each pair of endpoints is classified as one of the {@link Overlap} values. Path templates made up of literal and
+ * simple <code>{pathParam}</code> segments can always be classified exactly. Ant wildcards and regex path params are
+ * classified exactly where possible (e.g. a wildcard segment vs. a literal segment), and otherwise reported as {@link
+ * Overlap#POSSIBLE}. Custom {@link Matcher} implementations can't be analyzed at all, so their presence means the
+ * route table can never be proven unambiguous.
+ *
+ * <p>If {@link RouteTableAnalysis#isProvablyUnambiguous()} is true then at most one endpoint can ever fully match a
+ * given request, which means a router can safely return the first fully matching endpoint it finds instead of
+ * collecting all of them.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RouteTableAnalyzer {
+
+    protected static final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    protected static final String DOUBLE_WILDCARD = "**";
+
+    /**
+     * How two endpoints (or two path templates) relate to each other.
+     */
+    public enum Overlap {
+        /**
+         * There's no request that both can match.
+         */
+        DISJOINT,
+        /**
+         * There's definitely at least one request that both match.
+         */
+        DEFINITE,
+        /**
+         * It couldn't be determined whether there's a request that both match.
+         */
+        POSSIBLE
+    }
+
+    // Intentionally protected - use the static methods.
+    protected RouteTableAnalyzer() { /* do nothing */ }
+
+    /**
+     * @param endpoints The endpoints to analyze. Cannot be null.
+     * @return The result of comparing every endpoint against every other endpoint.
+     */
+    public static @NotNull RouteTableAnalysis analyze(@NotNull Collection<Endpoint<?>> endpoints) {
+        //noinspection ConstantConditions
+        if (endpoints == null) {
+            throw new IllegalArgumentException("endpoints cannot be null");
+        }
+
+        List<Endpoint<?>> endpointList = new ArrayList<>(endpoints);
+        List<AmbiguousEndpoints> ambiguities = new ArrayList<>();
+        boolean hasUnanalyzableMatcher = false;
+
+        for (int i = 0; i < endpointList.size(); i++) {
+            Endpoint<?> first = endpointList.get(i);
+            if (!isAnalyzableMatcher(first.requestMatcher())) {
+                hasUnanalyzableMatcher = true;
+            }
+
+            for (int j = i + 1; j < endpointList.size(); j++) {
+                Endpoint<?> second = endpointList.get(j);
+                AmbiguousEndpoints ambiguity = compareEndpoints(first, second);
+                if (ambiguity != null) {
+                    ambiguities.add(ambiguity);
+                }
+            }
+        }
+
+        return new RouteTableAnalysis(ambiguities, hasUnanalyzableMatcher);
+    }
+
+    /**
+     * @return true if the given matcher's path matching logic is known to be exactly "Ant-match the path against {@link
+     * Matcher#matchingPathTemplates()} (ignoring trailing slashes)", which is what allows it to be analyzed.
+     */
+    protected static boolean isAnalyzableMatcher(@NotNull Matcher matcher) {
+        return matcher.getClass() == SingleMatcher.class || matcher.getClass() == MultiMatcher.class;
+    }
+
+    /**
+     * @return An {@link AmbiguousEndpoints} describing how the given endpoints overlap, or null if they're {@link
+     * Overlap#DISJOINT}.
+     */
+    protected static @Nullable AmbiguousEndpoints compareEndpoints(
+        @NotNull Endpoint<?> first,
+        @NotNull Endpoint<?> second
+    ) {
+        Matcher firstMatcher = first.requestMatcher();
+        Matcher secondMatcher = second.requestMatcher();
+
+        Collection<HttpMethod> sharedMethods = findSharedMethods(firstMatcher, secondMatcher);
+        if (sharedMethods != null && sharedMethods.isEmpty()) {
+            return null;
+        }
+
+        if (!isAnalyzableMatcher(firstMatcher) || !isAnalyzableMatcher(secondMatcher)) {
+            return new AmbiguousEndpoints(first, second, null, null, sharedMethods, Overlap.POSSIBLE);
+        }
+
+        AmbiguousEndpoints possibleOverlap = null;
+        for (String firstTemplate : firstMatcher.matchingPathTemplates()) {
+            for (String secondTemplate : secondMatcher.matchingPathTemplates()) {
+                Overlap overlap = comparePathTemplates(firstTemplate, secondTemplate);
+                if (overlap == Overlap.DEFINITE) {
+                    return new AmbiguousEndpoints(
+                        first, second, firstTemplate, secondTemplate, sharedMethods, Overlap.DEFINITE
+                    );
+                }
+
+                if (overlap == Overlap.POSSIBLE && possibleOverlap == null) {
+                    possibleOverlap = new AmbiguousEndpoints(
+                        first, second, firstTemplate, secondTemplate, sharedMethods, Overlap.POSSIBLE
+                    );
+                }
+            }
+        }
+
+        return possibleOverlap;
+    }
+
+    /**
+     * @return The HTTP methods accepted by both matchers, or null if both matchers accept all methods. An empty
+     * collection means the matchers can never match the same request.
+     */
+    protected static @Nullable Collection<HttpMethod> findSharedMethods(
+        @NotNull Matcher firstMatcher,
+        @NotNull Matcher secondMatcher
+    ) {
+        if (firstMatcher.isMatchAllMethods() && secondMatcher.isMatchAllMethods()) {
+            return null;
+        }
+
+        if (firstMatcher.isMatchAllMethods()) {
+            return new ArrayList<>(secondMatcher.matchingMethods());
+        }
+
+        if (secondMatcher.isMatchAllMethods()) {
+            return new ArrayList<>(firstMatcher.matchingMethods());
+        }
+
+        Set<HttpMethod> shared = new LinkedHashSet<>(firstMatcher.matchingMethods());
+        shared.retainAll(secondMatcher.matchingMethods());
+        return new ArrayList<>(shared);
+    }
+
+    /**
+     * Determines whether there's a request path that would be matched by both of the given path templates, following
+     * the same rules as {@link SingleMatcher} and {@link MultiMatcher}: the path is split into segments by forward
+     * slashes (empty segments ignored), and the template and path must agree on whether they end with a trailing slash
+     * once a single trailing slash has been removed from the path.
+     */
+    public static @NotNull Overlap comparePathTemplates(@NotNull String firstTemplate, @NotNull String secondTemplate) {
+        if (!firstTemplate.startsWith("/") || !secondTemplate.startsWith("/")) {
+            // Neither SingleMatcher nor MultiMatcher allow this, so we don't know what's going on.
+            return Overlap.POSSIBLE;
+        }
+
+        List<String> firstSegments = tokenizePath(firstTemplate);
+        List<String> secondSegments = tokenizePath(secondTemplate);
+        int firstDoubleWildcardIndex = firstSegments.indexOf(DOUBLE_WILDCARD);
+        int secondDoubleWildcardIndex = secondSegments.indexOf(DOUBLE_WILDCARD);
+
+        if (firstDoubleWildcardIndex < 0 && secondDoubleWildcardIndex < 0) {
+            // Without double wildcards every template segment consumes exactly one path segment.
+            if (firstSegments.size() != secondSegments.size()
+                || firstTemplate.endsWith("/") != secondTemplate.endsWith("/")) {
+                return Overlap.DISJOINT;
+            }
+
+            return compareSegmentRange(firstSegments, 0, secondSegments, 0, firstSegments.size(), Overlap.DEFINITE);
+        }
+
+        // At least one template has a double wildcard, which can consume any number of path segments. We can still
+        //      prove they're disjoint if the segments before the first double wildcard or after the last double
+        //      wildcard can't match each other, or if one template needs more path segments than the other can match.
+        if (firstDoubleWildcardIndex < 0
+            && firstSegments.size() < countSegmentsConsumingExactlyOnePathSegment(secondSegments)) {
+            return Overlap.DISJOINT;
+        }
+
+        if (secondDoubleWildcardIndex < 0
+            && secondSegments.size() < countSegmentsConsumingExactlyOnePathSegment(firstSegments)) {
+            return Overlap.DISJOINT;
+        }
+
+        int prefixLength = Math.min(
+            (firstDoubleWildcardIndex < 0) ? firstSegments.size() : firstDoubleWildcardIndex,
+            (secondDoubleWildcardIndex < 0) ? secondSegments.size() : secondDoubleWildcardIndex
+        );
+        if (compareSegmentRange(firstSegments, 0, secondSegments, 0, prefixLength, Overlap.POSSIBLE)
+            == Overlap.DISJOINT) {
+            return Overlap.DISJOINT;
+        }
+
+        int suffixLength = Math.min(
+            firstSegments.size() - 1 - firstSegments.lastIndexOf(DOUBLE_WILDCARD),
+            secondSegments.size() - 1 - secondSegments.lastIndexOf(DOUBLE_WILDCARD)
+        );
+        if (suffixLength > 0 && compareSegmentRange(
+            firstSegments, firstSegments.size() - suffixLength,
+            secondSegments, secondSegments.size() - suffixLength,
+            suffixLength, Overlap.POSSIBLE
+        ) == Overlap.DISJOINT) {
+            return Overlap.DISJOINT;
+        }
+
+        return Overlap.POSSIBLE;
+    }
+
+    protected static int countSegmentsConsumingExactlyOnePathSegment(@NotNull List<String> templateSegments) {
+        int count = 0;
+        for (String segment : templateSegments) {
+            if (!DOUBLE_WILDCARD.equals(segment)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compares {@code length} segments from each template starting at the given indexes.
+     *
+     * @return {@link Overlap#DISJOINT} if any pair of segments is disjoint, otherwise {@link Overlap#POSSIBLE} if any
+     * pair of segments possibly overlaps, otherwise the given {@code allSegmentsOverlapResult}.
+     */
+    protected static @NotNull Overlap compareSegmentRange(
+        @NotNull List<String> firstSegments,
+        int firstStart,
+        @NotNull List<String> secondSegments,
+        int secondStart,
+        int length,
+        @NotNull Overlap allSegmentsOverlapResult
+    ) {
+        Overlap result = allSegmentsOverlapResult;
+        for (int i = 0; i < length; i++) {
+            Overlap segmentOverlap = compareSegments(firstSegments.get(firstStart + i), secondSegments.get(secondStart + i));
+            if (segmentOverlap == Overlap.DISJOINT) {
+                return Overlap.DISJOINT;
+            }
+
+            if (segmentOverlap == Overlap.POSSIBLE) {
+                result = Overlap.POSSIBLE;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Whether there's a single path segment that both of the given template segments would match.
+     */
+    protected static @NotNull Overlap compareSegments(@NotNull String first, @NotNull String second) {
+        boolean firstIsLiteral = isLiteralSegment(first);
+        boolean secondIsLiteral = isLiteralSegment(second);
+
+        if (firstIsLiteral && secondIsLiteral) {
+            return (first.equals(second)) ? Overlap.DEFINITE : Overlap.DISJOINT;
+        }
+
+        // A simple path param matches any single path segment.
+        if ((isPathParamSegment(first) && (secondIsLiteral || isPathParamSegment(second)))
+            || (isPathParamSegment(second) && firstIsLiteral)) {
+            return Overlap.DEFINITE;
+        }
+
+        // For a wildcard or regex segment vs. a literal segment we can just ask the Ant matcher.
+        if (firstIsLiteral || secondIsLiteral) {
+            String literal = (firstIsLiteral) ? first : second;
+            String pattern = (firstIsLiteral) ? second : first;
+            return (pathMatcher.match("/" + pattern, "/" + literal)) ? Overlap.DEFINITE : Overlap.DISJOINT;
+        }
+
+        return Overlap.POSSIBLE;
+    }
+
+    /**
+     * The result of {@link RouteTableAnalyzer#analyze(Collection)}.
+     */
+    public static class RouteTableAnalysis {
+
+        protected final @NotNull List<AmbiguousEndpoints> ambiguousEndpoints;
+        protected final boolean hasUnanalyzableMatcher;
+
+        protected RouteTableAnalysis(
+            @NotNull List<AmbiguousEndpoints> ambiguousEndpoints,
+            boolean hasUnanalyzableMatcher
+        ) {
+            this.ambiguousEndpoints = Collections.unmodifiableList(ambiguousEndpoints);
+            this.hasUnanalyzableMatcher = hasUnanalyzableMatcher;
+        }
+
+        /**
+         * @return All pairs of endpoints that definitely or possibly overlap, in endpoint registration order. Will
+         * never be null.
+         */
+        public @NotNull List<AmbiguousEndpoints> getAmbiguousEndpoints() {
+            return ambiguousEndpoints;
+        }
+
+        /**
+         * @return The subset of {@link #getAmbiguousEndpoints()} that definitely overlap.
+         */
+        public @NotNull List<AmbiguousEndpoints> getDefinitelyAmbiguousEndpoints() {
+            List<AmbiguousEndpoints> result = new ArrayList<>();
+            for (AmbiguousEndpoints ambiguity : ambiguousEndpoints) {
+                if (ambiguity.overlap == Overlap.DEFINITE) {
+                    result.add(ambiguity);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return true if it was proven that no request can be fully matched by more than one endpoint.
+         */
+        public boolean isProvablyUnambiguous() {
+            return ambiguousEndpoints.isEmpty() && !hasUnanalyzableMatcher;
+        }
+    }
+
+    /**
+     * A pair of endpoints that definitely or possibly match the same request.
+     */
+    public static class AmbiguousEndpoints {
+
+        public final @NotNull Endpoint<?> firstEndpoint;
+        public final @NotNull Endpoint<?> secondEndpoint;
+        /**
+         * The first endpoint's path template that overlaps with {@link #secondPathTemplate}, or null if the endpoint's
+         * matcher couldn't be analyzed.
+         */
+        public final @Nullable String firstPathTemplate;
+        /**
+         * The second endpoint's path template that overlaps with {@link #firstPathTemplate}, or null if the endpoint's
+         * matcher couldn't be analyzed.
+         */
+        public final @Nullable String secondPathTemplate;
+        /**
+         * The HTTP methods accepted by both endpoints, or null if both accept all methods.
+         */
+        public final @Nullable Collection<HttpMethod> sharedMethods;
+        public final @NotNull Overlap overlap;
+
+        public AmbiguousEndpoints(
+            @NotNull Endpoint<?> firstEndpoint,
+            @NotNull Endpoint<?> secondEndpoint,
+            @Nullable String firstPathTemplate,
+            @Nullable String secondPathTemplate,
+            @Nullable Collection<HttpMethod> sharedMethods,
+            @NotNull Overlap overlap
+        ) {
+            this.firstEndpoint = firstEndpoint;
+            this.secondEndpoint = secondEndpoint;
+            this.firstPathTemplate = firstPathTemplate;
+            this.secondPathTemplate = secondPathTemplate;
+            this.sharedMethods = sharedMethods;
+            this.overlap = overlap;
+        }
+
+        @Override
+        public String toString() {
+            return "overlap=" + overlap
+                   + ", first_endpoint=" + firstEndpoint.getClass().getName()
+                   + ", first_path_template=" + firstPathTemplate
+                   + ", second_endpoint=" + secondEndpoint.getClass().getName()
+                   + ", second_path_template=" + secondPathTemplate
+                   + ", shared_methods=" + ((sharedMethods == null) ? "ALL" : String.valueOf(sharedMethods));
+        }
+    }
+}
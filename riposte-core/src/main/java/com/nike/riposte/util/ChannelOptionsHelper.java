@@ -0,0 +1,124 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.RecvByteBufAllocator;
+
+/**
+ * Helper class for applying a {@link ChannelOptionsConfig} to Netty bootstraps - {@link
+ * #applyToServerBootstrap(ServerBootstrap, ChannelOptionsConfig)} for the server, and {@link
+ * #applyToClientBootstrap(Bootstrap, ChannelOptionsConfig)} for downstream (proxy/router) calls.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ChannelOptionsHelper {
+
+    // Intentionally protected - use the static methods.
+    protected ChannelOptionsHelper() { /* do nothing */ }
+
+    /**
+     * @param config The config to check - may be null, in which case {@link ChannelOptionsConfig#DEFAULT_IMPL} is
+     * used.
+     * @return The given config (or {@link ChannelOptionsConfig#DEFAULT_IMPL} if it was null), after verifying that all
+     * of its values are valid.
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    public static @NotNull ChannelOptionsConfig validate(@Nullable ChannelOptionsConfig config) {
+        if (config == null) {
+            return ChannelOptionsConfig.DEFAULT_IMPL;
+        }
+
+        if (config.soBacklog() <= 0) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.channelOptionsConfig().soBacklog() must be greater than 0. so_backlog="
+                + config.soBacklog()
+            );
+        }
+
+        //noinspection ConstantConditions
+        if (config.writeBufferWaterMark() == null) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.channelOptionsConfig().writeBufferWaterMark() cannot be null."
+            );
+        }
+
+        //noinspection ConstantConditions
+        if (config.allocator() == null) {
+            throw new IllegalArgumentException(
+                "Your ServerConfig.channelOptionsConfig().allocator() cannot be null."
+            );
+        }
+
+        return config;
+    }
+
+    /**
+     * Sets {@link ChannelOption#SO_BACKLOG} (and {@link ChannelOption#SO_RCVBUF} if specified) on the server's
+     * listening channel(s), and all the per-connection options on the child channels.
+     *
+     * @param bootstrap The server bootstrap to apply the options to.
+     * @param config The options to apply - may be null, in which case {@link ChannelOptionsConfig#DEFAULT_IMPL} is
+     * used.
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    public static void applyToServerBootstrap(
+        @NotNull ServerBootstrap bootstrap,
+        @Nullable ChannelOptionsConfig config
+    ) {
+        config = validate(config);
+
+        bootstrap.option(ChannelOption.SO_BACKLOG, config.soBacklog());
+        if (config.soRcvBuf() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, config.soRcvBuf());
+        }
+
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, config.tcpNoDelay());
+        if (config.soRcvBuf() > 0) {
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, config.soRcvBuf());
+        }
+        if (config.soSndBuf() > 0) {
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, config.soSndBuf());
+        }
+        bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, config.writeBufferWaterMark());
+        bootstrap.childOption(ChannelOption.ALLOCATOR, config.allocator());
+        RecvByteBufAllocator recvByteBufAllocator = config.recvByteBufAllocator();
+        if (recvByteBufAllocator != null) {
+            bootstrap.childOption(ChannelOption.RCVBUF_ALLOCATOR, recvByteBufAllocator);
+        }
+    }
+
+    /**
+     * Sets all the per-connection options on the channels created by the given client bootstrap. {@link
+     * ChannelOptionsConfig#soBacklog()} is ignored since it only applies to listening channels.
+     *
+     * @param bootstrap The client bootstrap to apply the options to.
+     * @param config The options to apply - may be null, in which case {@link ChannelOptionsConfig#DEFAULT_IMPL} is
+     * used.
+     * @throws IllegalArgumentException if any of the config's values are invalid.
+     */
+    public static void applyToClientBootstrap(
+        @NotNull Bootstrap bootstrap,
+        @Nullable ChannelOptionsConfig config
+    ) {
+        config = validate(config);
+
+        bootstrap.option(ChannelOption.TCP_NODELAY, config.tcpNoDelay());
+        if (config.soRcvBuf() > 0) {
+            bootstrap.option(ChannelOption.SO_RCVBUF, config.soRcvBuf());
+        }
+        if (config.soSndBuf() > 0) {
+            bootstrap.option(ChannelOption.SO_SNDBUF, config.soSndBuf());
+        }
+        bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, config.writeBufferWaterMark());
+        bootstrap.option(ChannelOption.ALLOCATOR, config.allocator());
+        RecvByteBufAllocator recvByteBufAllocator = config.recvByteBufAllocator();
+        if (recvByteBufAllocator != null) {
+            bootstrap.option(ChannelOption.RCVBUF_ALLOCATOR, recvByteBufAllocator);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.nike.riposte.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * An {@link OutputStream} that writes into {@link ByteBuf}s from a {@link ByteBufAllocator}, for serializing things
+ * (e.g. response bodies) straight into the buffers that will be sent over the wire. The bytes go into a single buffer
+ * until it reaches the component size given to the constructor, and after that into a series of new buffers of that
+ * size. So unlike a {@link io.netty.buffer.ByteBufOutputStream} the bytes already written never have to be copied into
+ * a bigger buffer as the output grows past the component size.
+ *
+ * <p>Call {@link #toByteBuf()} when you're done writing to get the result - a single {@link ByteBuf} if everything fit
+ * in one component, or a {@link CompositeByteBuf} of all the components otherwise. If you end up not needing the
+ * result (e.g. because whatever was writing failed) then call {@link #release()} instead so the buffers are returned to
+ * the allocator. This class is not thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompositeByteBufOutputStream extends OutputStream {
+
+    /**
+     * The initial capacity of the first component - it grows from there (up to the component size) as needed.
+     */
+    public static final int INITIAL_CAPACITY_BYTES = 256;
+
+    protected final @NotNull ByteBufAllocator alloc;
+    protected final int componentSizeBytes;
+    protected final @NotNull List<ByteBuf> fullComponents = new ArrayList<>();
+    protected @Nullable ByteBuf currentComponent;
+    protected boolean finished = false;
+
+    /**
+     * @param alloc The allocator to get buffers from - cannot be null.
+     * @param componentSizeBytes The max size of each buffer - must be greater than 0. Output that is bigger than this
+     * ends up in a {@link CompositeByteBuf}.
+     */
+    public CompositeByteBufOutputStream(@NotNull ByteBufAllocator alloc, int componentSizeBytes) {
+        //noinspection ConstantConditions
+        if (alloc == null) {
+            throw new IllegalArgumentException("alloc cannot be null");
+        }
+
+        if (componentSizeBytes <= 0) {
+            throw new IllegalArgumentException(
+                "componentSizeBytes must be greater than 0. component_size_bytes=" + componentSizeBytes
+            );
+        }
+
+        this.alloc = alloc;
+        this.componentSizeBytes = componentSizeBytes;
+    }
+
+    @Override
+    public void write(int b) {
+        writableComponent().writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException(
+                "Invalid offset or length. offset=" + off + ", length=" + len + ", array_length=" + b.length
+            );
+        }
+
+        while (len > 0) {
+            ByteBuf component = writableComponent();
+            int numBytes = Math.min(len, component.maxWritableBytes());
+            component.writeBytes(b, off, numBytes);
+            off += numBytes;
+            len -= numBytes;
+        }
+    }
+
+    /**
+     * @return The number of bytes written so far.
+     */
+    public int size() {
+        int result = (currentComponent == null) ? 0 : currentComponent.readableBytes();
+        for (ByteBuf component : fullComponents) {
+            result += component.readableBytes();
+        }
+        return result;
+    }
+
+    /**
+     * @return The component that the next byte should be written to, starting a new one if the current one is full.
+     */
+    protected @NotNull ByteBuf writableComponent() {
+        ensureNotFinished();
+
+        ByteBuf component = currentComponent;
+        if (component != null && component.maxWritableBytes() > 0) {
+            return component;
+        }
+
+        if (component != null) {
+            fullComponents.add(component);
+        }
+
+        // Anything that fills up the first component is big, so the rest of the components start out at full size.
+        int initialCapacity = (component == null)
+                              ? Math.min(INITIAL_CAPACITY_BYTES, componentSizeBytes)
+                              : componentSizeBytes;
+        component = alloc.buffer(initialCapacity, componentSizeBytes);
+        currentComponent = component;
+        return component;
+    }
+
+    /**
+     * Finishes this stream and hands ownership of everything written to it to the caller, who is responsible for
+     * releasing the returned buffer. Nothing can be written to this stream afterward.
+     *
+     * @return Everything written to this stream - a single {@link ByteBuf} if it fit in one component, or a {@link
+     * CompositeByteBuf} otherwise.
+     */
+    public @NotNull ByteBuf toByteBuf() {
+        ensureNotFinished();
+        finished = true;
+
+        ByteBuf lastComponent = currentComponent;
+        currentComponent = null;
+        if (fullComponents.isEmpty()) {
+            return (lastComponent == null) ? Unpooled.EMPTY_BUFFER : lastComponent;
+        }
+
+        List<ByteBuf> components = new ArrayList<>(fullComponents);
+        fullComponents.clear();
+        if (lastComponent != null) {
+            components.add(lastComponent);
+        }
+
+        CompositeByteBuf result = alloc.compositeBuffer(components.size());
+        result.addComponents(true, components);
+        return result;
+    }
+
+    /**
+     * Finishes this stream and releases everything written to it. Does nothing if this stream is already finished.
+     */
+    public void release() {
+        if (finished) {
+            return;
+        }
+
+        finished = true;
+        for (ByteBuf component : fullComponents) {
+            component.release();
+        }
+        fullComponents.clear();
+
+        if (currentComponent != null) {
+            currentComponent.release();
+            currentComponent = null;
+        }
+    }
+
+    protected void ensureNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("This stream has already been turned into a ByteBuf or released");
+        }
+    }
+}
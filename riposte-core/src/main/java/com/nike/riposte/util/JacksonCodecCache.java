@@ -0,0 +1,150 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.http.Endpoint;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the Jackson {@link ObjectReader}s and {@link ObjectWriter}s built from {@link ObjectMapper}s, so that the
+ * type lookups {@link ObjectMapper#readValue(byte[], TypeReference)} and friends do on every call only happen once per
+ * mapper and type. The readers for every endpoint's {@link Endpoint#requestContentType()} can be built ahead of time
+ * with {@link #prebuildReaders(ObjectMapper, Collection)}, and everything else is built and cached the first time it's
+ * asked for.
+ *
+ * <p>Readers and writers take a snapshot of their mapper's configuration when they're built, so mappers should be
+ * fully configured before they're used with this class. Mappers are cached by identity, and there's a limit on the
+ * number of mappers ({@link #MAX_CACHED_MAPPERS}) and types per mapper ({@link #MAX_CACHED_TYPES_PER_MAPPER}) that get
+ * cached, so endpoints that create a new mapper (or type) per request won't grow the cache forever - once a limit is
+ * hit the readers and writers that don't fit are built fresh every time they're asked for. This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class JacksonCodecCache {
+
+    /**
+     * The max number of distinct {@link ObjectMapper}s that readers or writers will be cached for.
+     */
+    public static final int MAX_CACHED_MAPPERS = 32;
+    /**
+     * The max number of distinct types that readers or writers will be cached for, per {@link ObjectMapper}.
+     */
+    public static final int MAX_CACHED_TYPES_PER_MAPPER = 256;
+
+    protected final @NotNull Map<ObjectMapper, ConcurrentMap<Type, ObjectReader>> readerCache =
+        new IdentityHashMap<>();
+    protected final @NotNull Map<ObjectMapper, ConcurrentMap<Class<?>, ObjectWriter>> writerCache =
+        new IdentityHashMap<>();
+    // Copy-on-write snapshots of the caches above, so the per-request lookups don't need to lock anything. The maps
+    //      above are only touched (while holding this object's lock) when a new mapper shows up.
+    protected volatile @NotNull Map<ObjectMapper, ConcurrentMap<Type, ObjectReader>> readerCacheSnapshot =
+        new IdentityHashMap<>();
+    protected volatile @NotNull Map<ObjectMapper, ConcurrentMap<Class<?>, ObjectWriter>> writerCacheSnapshot =
+        new IdentityHashMap<>();
+
+    /**
+     * Builds and caches the readers for the given endpoints' {@link Endpoint#requestContentType()}s using the given
+     * mapper. Endpoints that don't want their request content deserialized are skipped.
+     *
+     * @param mapper The mapper the readers should come from - usually the server's default request deserializer.
+     * @param endpoints The endpoints to build readers for - may be null.
+     */
+    public void prebuildReaders(@NotNull ObjectMapper mapper, @Nullable Collection<Endpoint<?>> endpoints) {
+        if (endpoints == null) {
+            return;
+        }
+
+        for (Endpoint<?> endpoint : endpoints) {
+            TypeReference<?> requestContentType = endpoint.requestContentType();
+            if (requestContentType != null) {
+                getReader(mapper, requestContentType);
+            }
+        }
+    }
+
+    /**
+     * @return A reader from the given mapper for the given type - the cached one if there is one, otherwise a new one
+     * that is cached if it fits.
+     */
+    public @NotNull ObjectReader getReader(@NotNull ObjectMapper mapper, @NotNull TypeReference<?> typeReference) {
+        Map<ObjectMapper, ConcurrentMap<Type, ObjectReader>> snapshot = readerCacheSnapshot;
+        ConcurrentMap<Type, ObjectReader> readersForMapper = snapshot.get(mapper);
+        if (readersForMapper == null && snapshot.size() < MAX_CACHED_MAPPERS) {
+            readersForMapper = addMapperToReaderCache(mapper);
+        }
+
+        Type type = typeReference.getType();
+        ObjectReader reader = (readersForMapper == null) ? null : readersForMapper.get(type);
+        if (reader == null) {
+            reader = mapper.readerFor(typeReference);
+            if (readersForMapper != null && readersForMapper.size() < MAX_CACHED_TYPES_PER_MAPPER) {
+                readersForMapper.putIfAbsent(type, reader);
+            }
+        }
+
+        return reader;
+    }
+
+    /**
+     * @return A writer from the given mapper for the given class - the cached one if there is one, otherwise a new one
+     * that is cached if it fits.
+     */
+    public @NotNull ObjectWriter getWriter(@NotNull ObjectMapper mapper, @NotNull Class<?> type) {
+        Map<ObjectMapper, ConcurrentMap<Class<?>, ObjectWriter>> snapshot = writerCacheSnapshot;
+        ConcurrentMap<Class<?>, ObjectWriter> writersForMapper = snapshot.get(mapper);
+        if (writersForMapper == null && snapshot.size() < MAX_CACHED_MAPPERS) {
+            writersForMapper = addMapperToWriterCache(mapper);
+        }
+
+        ObjectWriter writer = (writersForMapper == null) ? null : writersForMapper.get(type);
+        if (writer == null) {
+            writer = mapper.writerFor(type);
+            if (writersForMapper != null && writersForMapper.size() < MAX_CACHED_TYPES_PER_MAPPER) {
+                writersForMapper.putIfAbsent(type, writer);
+            }
+        }
+
+        return writer;
+    }
+
+    /**
+     * @return The reader cache for the given mapper, or null if there's no room for another mapper.
+     */
+    protected synchronized @Nullable ConcurrentMap<Type, ObjectReader> addMapperToReaderCache(
+        @NotNull ObjectMapper mapper
+    ) {
+        ConcurrentMap<Type, ObjectReader> result = readerCache.get(mapper);
+        if (result == null && readerCache.size() < MAX_CACHED_MAPPERS) {
+            result = new ConcurrentHashMap<>();
+            readerCache.put(mapper, result);
+            readerCacheSnapshot = new IdentityHashMap<>(readerCache);
+        }
+        return result;
+    }
+
+    /**
+     * @return The writer cache for the given mapper, or null if there's no room for another mapper.
+     */
+    protected synchronized @Nullable ConcurrentMap<Class<?>, ObjectWriter> addMapperToWriterCache(
+        @NotNull ObjectMapper mapper
+    ) {
+        ConcurrentMap<Class<?>, ObjectWriter> result = writerCache.get(mapper);
+        if (result == null && writerCache.size() < MAX_CACHED_MAPPERS) {
+            result = new ConcurrentHashMap<>();
+            writerCache.put(mapper, result);
+            writerCacheSnapshot = new IdentityHashMap<>(writerCache);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,311 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.config.ServerConfig.TransportType;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BooleanSupplier;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Represents one of the Netty transports Riposte knows how to run on (see {@link TransportType}), bundling together
+ * the {@link EventLoopGroup}, {@link ServerChannel}, and {@link SocketChannel} classes that go with it. Use {@link
+ * #resolve(TransportType)} to turn a requested {@link TransportType} into the best transport that is actually
+ * available on the current OS/architecture/classpath.
+ *
+ * <p>The io_uring transport lives in the separate {@code io.netty.incubator:netty-incubator-transport-native-io_uring}
+ * artifact, which Riposte does not depend on. It is therefore loaded reflectively, and is only used if you add that
+ * artifact (and a Netty version it's compatible with) to your classpath yourself.
+ */
+@SuppressWarnings("WeakerAccess")
+public class NettyTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyTransport.class);
+
+    public static final String IO_URING_CLASS_NAME = "io.netty.incubator.channel.uring.IOUring";
+    public static final String IO_URING_EVENT_LOOP_GROUP_CLASS_NAME =
+        "io.netty.incubator.channel.uring.IOUringEventLoopGroup";
+    public static final String IO_URING_SERVER_SOCKET_CHANNEL_CLASS_NAME =
+        "io.netty.incubator.channel.uring.IOUringServerSocketChannel";
+    public static final String IO_URING_SOCKET_CHANNEL_CLASS_NAME =
+        "io.netty.incubator.channel.uring.IOUringSocketChannel";
+
+    public static final NettyTransport EPOLL = new NettyTransport(
+        TransportType.EPOLL,
+        (numThreads, threadFactory) -> (threadFactory == null)
+                                       ? new EpollEventLoopGroup(numThreads)
+                                       : new EpollEventLoopGroup(numThreads, threadFactory),
+        EpollServerSocketChannel.class,
+        EpollSocketChannel.class
+    );
+
+    public static final NettyTransport NIO = new NettyTransport(
+        TransportType.NIO,
+        (numThreads, threadFactory) -> (threadFactory == null)
+                                       ? new NioEventLoopGroup(numThreads)
+                                       : new NioEventLoopGroup(numThreads, threadFactory),
+        NioServerSocketChannel.class,
+        NioSocketChannel.class
+    );
+
+    private static volatile @Nullable NettyTransport ioUringTransport;
+
+    private final @NotNull TransportType transportType;
+    private final @NotNull EventLoopGroupFactory eventLoopGroupFactory;
+    private final @NotNull Class<? extends ServerChannel> serverChannelClass;
+    private final @NotNull Class<? extends SocketChannel> socketChannelClass;
+
+    protected NettyTransport(
+        @NotNull TransportType transportType,
+        @NotNull EventLoopGroupFactory eventLoopGroupFactory,
+        @NotNull Class<? extends ServerChannel> serverChannelClass,
+        @NotNull Class<? extends SocketChannel> socketChannelClass
+    ) {
+        //noinspection ConstantConditions
+        if (transportType == null) {
+            throw new IllegalArgumentException("transportType cannot be null");
+        }
+
+        if (transportType == TransportType.AUTO) {
+            throw new IllegalArgumentException("transportType must be a concrete transport, not AUTO");
+        }
+
+        //noinspection ConstantConditions
+        if (eventLoopGroupFactory == null) {
+            throw new IllegalArgumentException("eventLoopGroupFactory cannot be null");
+        }
+
+        //noinspection ConstantConditions
+        if (serverChannelClass == null) {
+            throw new IllegalArgumentException("serverChannelClass cannot be null");
+        }
+
+        //noinspection ConstantConditions
+        if (socketChannelClass == null) {
+            throw new IllegalArgumentException("socketChannelClass cannot be null");
+        }
+
+        this.transportType = transportType;
+        this.eventLoopGroupFactory = eventLoopGroupFactory;
+        this.serverChannelClass = serverChannelClass;
+        this.socketChannelClass = socketChannelClass;
+    }
+
+    /**
+     * @param requested The transport you'd like to use - may be null, which is treated the same as {@link
+     * TransportType#AUTO}.
+     * @return The transport that should be used for the given request. {@link TransportType#AUTO} picks epoll if it's
+     * available and NIO otherwise. If a specific native transport is requested but isn't available on this
+     * OS/architecture/classpath then a warning is logged and this falls back to the {@link TransportType#AUTO} choice,
+     * so asking for a transport never prevents startup.
+     */
+    public static @NotNull NettyTransport resolve(@Nullable TransportType requested) {
+        return resolve(requested, Epoll::isAvailable, NettyTransport::isIoUringAvailable);
+    }
+
+    static @NotNull NettyTransport resolve(
+        @Nullable TransportType requested,
+        @NotNull BooleanSupplier epollAvailable,
+        @NotNull BooleanSupplier ioUringAvailable
+    ) {
+        if (requested == null) {
+            requested = TransportType.AUTO;
+        }
+
+        switch (requested) {
+            case NIO:
+                return NIO;
+            case EPOLL:
+                if (epollAvailable.getAsBoolean()) {
+                    return EPOLL;
+                }
+
+                logger.warn(
+                    "The epoll native transport was requested, but it is NOT available or you are not running on a "
+                    + "compatible OS/architecture. Falling back to NIO. epoll_unavailability_cause={}",
+                    String.valueOf(Epoll.unavailabilityCause())
+                );
+                return NIO;
+            case IO_URING:
+                if (ioUringAvailable.getAsBoolean()) {
+                    NettyTransport ioUring = ioUring();
+                    if (ioUring != null) {
+                        return ioUring;
+                    }
+                }
+
+                NettyTransport fallback = resolve(TransportType.AUTO, epollAvailable, ioUringAvailable);
+                logger.warn(
+                    "The io_uring native transport was requested, but it is NOT available. It requires the "
+                    + "netty-incubator-transport-native-io_uring artifact on the classpath and a compatible Linux "
+                    + "kernel. Falling back to {}.", fallback.getTransportType()
+                );
+                return fallback;
+            case AUTO:
+                return (epollAvailable.getAsBoolean()) ? EPOLL : NIO;
+            default:
+                throw new IllegalStateException("Unhandled TransportType: " + requested.name());
+        }
+    }
+
+    /**
+     * @return true if the io_uring incubator transport is on the classpath and usable on this OS/kernel, false
+     * otherwise. Never throws.
+     */
+    public static boolean isIoUringAvailable() {
+        try {
+            Class<?> ioUringClass = Class.forName(IO_URING_CLASS_NAME);
+            return Boolean.TRUE.equals(ioUringClass.getMethod("isAvailable").invoke(null));
+        }
+        catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The io_uring transport, loaded reflectively, or null if its classes couldn't be loaded.
+     */
+    protected static @Nullable NettyTransport ioUring() {
+        NettyTransport result = ioUringTransport;
+        if (result == null) {
+            try {
+                ClassLoader classLoader = NettyTransport.class.getClassLoader();
+                Constructor<? extends EventLoopGroup> eventLoopGroupConstructor =
+                    Class.forName(IO_URING_EVENT_LOOP_GROUP_CLASS_NAME, false, classLoader)
+                         .asSubclass(EventLoopGroup.class)
+                         .getConstructor(int.class, ThreadFactory.class);
+                Class<? extends ServerChannel> serverChannelClass =
+                    Class.forName(IO_URING_SERVER_SOCKET_CHANNEL_CLASS_NAME, false, classLoader)
+                         .asSubclass(ServerChannel.class);
+                Class<? extends SocketChannel> socketChannelClass =
+                    Class.forName(IO_URING_SOCKET_CHANNEL_CLASS_NAME, false, classLoader)
+                         .asSubclass(SocketChannel.class);
+
+                result = new NettyTransport(
+                    TransportType.IO_URING,
+                    (numThreads, threadFactory) -> {
+                        try {
+                            return eventLoopGroupConstructor.newInstance(numThreads, threadFactory);
+                        }
+                        catch (Exception ex) {
+                            throw new IllegalStateException("Unable to create the io_uring EventLoopGroup", ex);
+                        }
+                    },
+                    serverChannelClass,
+                    socketChannelClass
+                );
+                ioUringTransport = result;
+            }
+            catch (Throwable t) {
+                logger.warn("Unable to load the io_uring native transport classes. cause={}", t.toString());
+                return null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Figures out which transport the given channel is running on, so that new outbound connections can be opened on
+     * the same event loop. Channels that sit on top of a socket (e.g. HTTP/2 stream channels) are followed up through
+     * their parents to the socket they belong to.
+     *
+     * @param channel The channel to inspect - may be null.
+     * @return The transport the given channel's socket is running on, or null if the channel is null or isn't backed
+     * by a socket from one of the transports Riposte knows about (e.g. an {@code EmbeddedChannel} or local channel).
+     */
+    public static @Nullable NettyTransport forChannel(@Nullable Channel channel) {
+        // Stop at the first socket - the parent of an accepted socket is the server channel that accepted it.
+        Channel socket = channel;
+        while (socket != null && !(socket instanceof SocketChannel)) {
+            socket = socket.parent();
+        }
+
+        if (socket == null) {
+            return null;
+        }
+
+        Class<? extends Channel> socketClass = socket.getClass();
+        if (EPOLL.getSocketChannelClass().equals(socketClass)) {
+            return EPOLL;
+        }
+
+        if (NIO.getSocketChannelClass().equals(socketClass)) {
+            return NIO;
+        }
+
+        // Compare by name first so we don't try (and log a warning about failing) to load io_uring for no reason.
+        if (IO_URING_SOCKET_CHANNEL_CLASS_NAME.equals(socketClass.getName())) {
+            return ioUring();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return A new {@link EventLoopGroup} for this transport with the given number of threads (0 means Netty's
+     * default), using the given {@link ThreadFactory} (null means Netty's default).
+     */
+    public @NotNull EventLoopGroup newEventLoopGroup(int numThreads, @Nullable ThreadFactory threadFactory) {
+        return eventLoopGroupFactory.newEventLoopGroup(numThreads, threadFactory);
+    }
+
+    /**
+     * @return The concrete transport this represents - never {@link TransportType#AUTO}.
+     */
+    public @NotNull TransportType getTransportType() {
+        return transportType;
+    }
+
+    /**
+     * @return The {@link ServerChannel} class to use with this transport's {@link EventLoopGroup}s when accepting
+     * connections.
+     */
+    public @NotNull Class<? extends ServerChannel> getServerChannelClass() {
+        return serverChannelClass;
+    }
+
+    /**
+     * @return The {@link SocketChannel} class to use with this transport's {@link EventLoopGroup}s when opening
+     * outbound connections.
+     */
+    public @NotNull Class<? extends SocketChannel> getSocketChannelClass() {
+        return socketChannelClass;
+    }
+
+    /**
+     * @return true if this is a native (JNI-based) transport, false if it's the pure-java NIO transport.
+     */
+    public boolean isNative() {
+        return transportType != TransportType.NIO;
+    }
+
+    @Override
+    public String toString() {
+        return transportType.name().toLowerCase();
+    }
+
+    /**
+     * Creates {@link EventLoopGroup}s for a specific transport.
+     */
+    @FunctionalInterface
+    protected interface EventLoopGroupFactory {
+        @NotNull EventLoopGroup newEventLoopGroup(int numThreads, @Nullable ThreadFactory threadFactory);
+    }
+}
@@ -0,0 +1,169 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ChannelBackpressure}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ChannelBackpressureTest {
+
+    private EmbeddedChannel producer;
+    private EmbeddedChannel consumer;
+    private ChannelBackpressure backpressure;
+
+    @Before
+    public void beforeMethod() {
+        producer = new EmbeddedChannel();
+        consumer = new EmbeddedChannel();
+        consumer.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        backpressure = new ChannelBackpressure(producer, consumer);
+    }
+
+    @After
+    public void afterMethod() {
+        producer.finishAndReleaseAll();
+        consumer.finishAndReleaseAll();
+    }
+
+    private void makeConsumerUnwritable() {
+        // Writes without a flush stay in the outbound buffer and count against the water marks.
+        consumer.write(Unpooled.wrappedBuffer(new byte[32]));
+        assertThat(consumer.isWritable()).isFalse();
+    }
+
+    private void makeConsumerWritable() {
+        consumer.flush();
+        assertThat(consumer.isWritable()).isTrue();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_args() {
+        // expect
+        //noinspection ConstantConditions
+        assertThat(catchThrowable(() -> new ChannelBackpressure(null, consumer)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("producer cannot be null");
+        //noinspection ConstantConditions
+        assertThat(catchThrowable(() -> new ChannelBackpressure(producer, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("consumer cannot be null");
+    }
+
+    @Test
+    public void pauseProducerIfConsumerUnwritable_does_nothing_while_consumer_is_writable() {
+        // when
+        boolean result = backpressure.pauseProducerIfConsumerUnwritable();
+
+        // then
+        assertThat(result).isFalse();
+        assertThat(backpressure.isPaused()).isFalse();
+        assertThat(producer.config().isAutoRead()).isTrue();
+        assertThat(backpressure.getNumPauses()).isEqualTo(0);
+        assertThat(backpressure.getTotalPausedTimeNanos()).isEqualTo(0);
+    }
+
+    @Test
+    public void producer_is_paused_while_consumer_is_unwritable_and_resumed_once_it_drains() throws InterruptedException {
+        // given
+        makeConsumerUnwritable();
+
+        // when
+        boolean pauseResult = backpressure.pauseProducerIfConsumerUnwritable();
+
+        // then
+        assertThat(pauseResult).isTrue();
+        assertThat(backpressure.isPaused()).isTrue();
+        assertThat(producer.config().isAutoRead()).isFalse();
+        assertThat(backpressure.getNumPauses()).isEqualTo(1);
+
+        // and when
+        boolean secondPauseResult = backpressure.pauseProducerIfConsumerUnwritable();
+        boolean earlyResumeResult = backpressure.resumeProducerIfConsumerWritable();
+
+        // then
+        assertThat(secondPauseResult).isFalse();
+        assertThat(earlyResumeResult).isFalse();
+        assertThat(backpressure.getNumPauses()).isEqualTo(1);
+        assertThat(producer.config().isAutoRead()).isFalse();
+
+        // and when
+        Thread.sleep(5);
+        makeConsumerWritable();
+        boolean resumeResult = backpressure.resumeProducerIfConsumerWritable();
+
+        // then
+        assertThat(resumeResult).isTrue();
+        assertThat(backpressure.isPaused()).isFalse();
+        assertThat(producer.config().isAutoRead()).isTrue();
+        long pausedTimeNanos = backpressure.getTotalPausedTimeNanos();
+        assertThat(pausedTimeNanos).isGreaterThanOrEqualTo(5_000_000L);
+        assertThat(backpressure.getTotalPausedTimeNanos()).isEqualTo(pausedTimeNanos);
+    }
+
+    @Test
+    public void resumeProducerIfConsumerWritable_can_be_driven_by_the_consumers_writability_changed_event() {
+        // given
+        consumer.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                backpressure.resumeProducerIfConsumerWritable();
+            }
+        });
+        makeConsumerUnwritable();
+        backpressure.pauseProducerIfConsumerUnwritable();
+        assertThat(producer.config().isAutoRead()).isFalse();
+
+        // when
+        makeConsumerWritable();
+
+        // then
+        assertThat(producer.config().isAutoRead()).isTrue();
+        assertThat(backpressure.isPaused()).isFalse();
+    }
+
+    @Test
+    public void close_resumes_the_producer_and_prevents_further_pauses() {
+        // given
+        makeConsumerUnwritable();
+        backpressure.pauseProducerIfConsumerUnwritable();
+
+        // when
+        backpressure.close();
+
+        // then
+        assertThat(backpressure.isClosed()).isTrue();
+        assertThat(backpressure.isPaused()).isFalse();
+        assertThat(producer.config().isAutoRead()).isTrue();
+
+        // and when
+        boolean pauseResult = backpressure.pauseProducerIfConsumerUnwritable();
+        backpressure.close();
+
+        // then
+        assertThat(pauseResult).isFalse();
+        assertThat(producer.config().isAutoRead()).isTrue();
+        assertThat(backpressure.getNumPauses()).isEqualTo(1);
+    }
+
+    @Test
+    public void getters_return_the_channels() {
+        // expect
+        assertThat(backpressure.getProducer()).isSameAs(producer);
+        assertThat(backpressure.getConsumer()).isSameAs(consumer);
+    }
+}
@@ -0,0 +1,447 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig.AddressSelectionStrategy;
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.InetNameResolver;
+import io.netty.resolver.InetSocketAddressResolver;
+import io.netty.resolver.dns.DnsAddressResolverGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link DownstreamAddressResolver}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamAddressResolverTest {
+
+    private final List<DownstreamAddressResolver> resolversToShutdown = new ArrayList<>();
+
+    @After
+    public void afterMethod() {
+        resolversToShutdown.forEach(resolver -> {
+            if (resolver.resolverEventLoopGroup != null) {
+                resolver.resolverEventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private DownstreamAddressResolver resolver(@Nullable ProxyRouterDnsConfig dnsConfig) {
+        DownstreamAddressResolver resolver = new DownstreamAddressResolver(dnsConfig);
+        resolversToShutdown.add(resolver);
+        return resolver;
+    }
+
+    private static ProxyRouterDnsConfig enabledConfig(
+        @Nullable AddressResolverGroup<InetSocketAddress> customGroup,
+        @NotNull AddressSelectionStrategy addressSelectionStrategy
+    ) {
+        return new ProxyRouterDnsConfig() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public @NotNull AddressSelectionStrategy addressSelectionStrategy() {
+                return addressSelectionStrategy;
+            }
+
+            @Override
+            public @Nullable AddressResolverGroup<InetSocketAddress> customAddressResolverGroup() {
+                return customGroup;
+            }
+        };
+    }
+
+    private static InetAddress ip(String ip) throws UnknownHostException {
+        return InetAddress.getByName(ip);
+    }
+
+    @Test
+    public void constructor_uses_default_config_and_disables_async_resolution_if_passed_null() {
+        // when
+        DownstreamAddressResolver resolver = resolver(null);
+
+        // then
+        assertThat(resolver.dnsConfig).isSameAs(ProxyRouterDnsConfig.DEFAULT_IMPL);
+        assertThat(resolver.isAsyncResolutionEnabled()).isFalse();
+        assertThat(resolver.resolverEventLoopGroup).isNull();
+        assertThat(catchThrowable(() -> resolver.resolve("localhost", 8080)))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void constructor_creates_netty_DnsAddressResolverGroup_if_enabled_without_custom_group() {
+        // when
+        DownstreamAddressResolver resolver = resolver(enabledConfig(null, AddressSelectionStrategy.RANDOM));
+
+        // then
+        assertThat(resolver.isAsyncResolutionEnabled()).isTrue();
+        assertThat(resolver.addressResolverGroup).isInstanceOf(DnsAddressResolverGroup.class);
+        assertThat(resolver.resolverEventLoopGroup).isNotNull();
+    }
+
+    private enum BadConfigScenario {
+        NEGATIVE_MIN_TTL(-1, 10, 5, 5000, "minTtlSeconds() must be greater than or equal to 0"),
+        MIN_TTL_GREATER_THAN_MAX_TTL(11, 10, 5, 5000, "minTtlSeconds() must be greater than or equal to 0"),
+        NEGATIVE_NEGATIVE_TTL(0, 10, -1, 5000, "negativeTtlSeconds() must be greater than or equal to 0"),
+        ZERO_QUERY_TIMEOUT(0, 10, 5, 0, "queryTimeoutMillis() must be greater than 0");
+
+        public final int minTtl;
+        public final int maxTtl;
+        public final int negativeTtl;
+        public final long queryTimeoutMillis;
+        public final String expectedMessagePart;
+
+        BadConfigScenario(int minTtl, int maxTtl, int negativeTtl, long queryTimeoutMillis,
+                          String expectedMessagePart) {
+            this.minTtl = minTtl;
+            this.maxTtl = maxTtl;
+            this.negativeTtl = negativeTtl;
+            this.queryTimeoutMillis = queryTimeoutMillis;
+            this.expectedMessagePart = expectedMessagePart;
+        }
+
+        public ProxyRouterDnsConfig config(boolean enabled) {
+            return new ProxyRouterDnsConfig() {
+                @Override
+                public boolean isEnabled() {
+                    return enabled;
+                }
+
+                @Override
+                public int minTtlSeconds() {
+                    return minTtl;
+                }
+
+                @Override
+                public int maxTtlSeconds() {
+                    return maxTtl;
+                }
+
+                @Override
+                public int negativeTtlSeconds() {
+                    return negativeTtl;
+                }
+
+                @Override
+                public long queryTimeoutMillis() {
+                    return queryTimeoutMillis;
+                }
+            };
+        }
+    }
+
+    @DataProvider(value = {
+        "NEGATIVE_MIN_TTL",
+        "MIN_TTL_GREATER_THAN_MAX_TTL",
+        "NEGATIVE_NEGATIVE_TTL",
+        "ZERO_QUERY_TIMEOUT"
+    })
+    @Test
+    public void validate_throws_IllegalArgumentException_for_bad_config_values_only_if_enabled(
+        BadConfigScenario scenario
+    ) {
+        // when
+        Throwable enabledEx = catchThrowable(() -> DownstreamAddressResolver.validate(scenario.config(true)));
+        Throwable disabledEx = catchThrowable(() -> DownstreamAddressResolver.validate(scenario.config(false)));
+
+        // then
+        assertThat(enabledEx)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Your ServerConfig.proxyRouterDnsConfig()." + scenario.expectedMessagePart);
+        assertThat(disabledEx).isNull();
+    }
+
+    @Test
+    public void validate_throws_IllegalArgumentException_if_addressSelectionStrategy_is_null() {
+        // given
+        //noinspection ConstantConditions
+        ProxyRouterDnsConfig config = new ProxyRouterDnsConfig() {
+            @Override
+            public @NotNull AddressSelectionStrategy addressSelectionStrategy() {
+                return null;
+            }
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> DownstreamAddressResolver.validate(config));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Your ServerConfig.proxyRouterDnsConfig().addressSelectionStrategy() cannot be null.");
+    }
+
+    @Test
+    public void close_closes_the_resolver_group_it_created_and_shuts_down_its_event_loop() {
+        // given
+        AddressResolverGroup<InetSocketAddress> createdGroupMock = mock(AddressResolverGroup.class);
+        DownstreamAddressResolver resolver = new DownstreamAddressResolver(
+            enabledConfig(null, AddressSelectionStrategy.RANDOM)
+        ) {
+            @Override
+            protected @NotNull AddressResolverGroup<InetSocketAddress> createDnsAddressResolverGroup(
+                @NotNull ProxyRouterDnsConfig dnsConfig
+            ) {
+                return createdGroupMock;
+            }
+        };
+        resolversToShutdown.add(resolver);
+
+        // when
+        resolver.close();
+        resolver.close();
+
+        // then
+        verify(createdGroupMock, times(2)).close();
+        assertThat(resolver.resolverEventLoopGroup.isShuttingDown()).isTrue();
+    }
+
+    @Test
+    public void close_does_not_close_custom_resolver_group() {
+        // given
+        AddressResolverGroup<InetSocketAddress> customGroupMock = mock(AddressResolverGroup.class);
+        DownstreamAddressResolver resolver = resolver(enabledConfig(customGroupMock, AddressSelectionStrategy.RANDOM));
+
+        // when
+        resolver.close();
+
+        // then
+        verify(customGroupMock, never()).close();
+        assertThat(resolver.resolverEventLoopGroup.isShuttingDown()).isTrue();
+    }
+
+    @Test
+    public void close_does_nothing_when_async_resolution_is_disabled() {
+        // given
+        DownstreamAddressResolver resolver = resolver(null);
+
+        // when
+        Throwable ex = catchThrowable(resolver::close);
+
+        // then
+        assertThat(ex).isNull();
+    }
+
+    @Test
+    public void resolve_uses_hosts_file_with_default_dns_resolver_group() throws Exception {
+        // given
+        DownstreamAddressResolver resolver = resolver(enabledConfig(null, AddressSelectionStrategy.RANDOM));
+
+        // when
+        InetSocketAddress result = resolver.resolve("localhost", 8080).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result.isUnresolved()).isFalse();
+        assertThat(result.getAddress().isLoopbackAddress()).isTrue();
+        assertThat(result.getPort()).isEqualTo(8080);
+    }
+
+    @Test
+    public void resolve_cycles_through_addresses_with_ROUND_ROBIN_strategy() throws Exception {
+        // given
+        Map<String, List<InetAddress>> records = new HashMap<>();
+        records.put("some.host", Arrays.asList(ip("10.0.0.1"), ip("10.0.0.2"), ip("10.0.0.3")));
+        StandInAddressResolverGroup standIn = new StandInAddressResolverGroup(records);
+        DownstreamAddressResolver resolver = resolver(enabledConfig(standIn, AddressSelectionStrategy.ROUND_ROBIN));
+
+        // when
+        List<InetSocketAddress> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(resolver.resolve("some.host", 443).get(10, TimeUnit.SECONDS));
+        }
+
+        // then
+        assertThat(results).containsExactly(
+            new InetSocketAddress(ip("10.0.0.1"), 443),
+            new InetSocketAddress(ip("10.0.0.2"), 443),
+            new InetSocketAddress(ip("10.0.0.3"), 443),
+            new InetSocketAddress(ip("10.0.0.1"), 443)
+        );
+        assertThat(standIn.numLookups.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void resolve_spreads_calls_across_all_addresses_with_RANDOM_strategy() throws Exception {
+        // given
+        List<InetAddress> addresses = Arrays.asList(ip("10.0.0.1"), ip("10.0.0.2"));
+        Map<String, List<InetAddress>> records = new HashMap<>();
+        records.put("some.host", addresses);
+        DownstreamAddressResolver resolver = resolver(
+            enabledConfig(new StandInAddressResolverGroup(records), AddressSelectionStrategy.RANDOM)
+        );
+
+        // when
+        Set<InetAddress> seen = new HashSet<>();
+        for (int i = 0; i < 200 && seen.size() < addresses.size(); i++) {
+            seen.add(resolver.resolve("some.host", 80).get(10, TimeUnit.SECONDS).getAddress());
+        }
+
+        // then
+        assertThat(seen).containsExactlyInAnyOrderElementsOf(addresses);
+    }
+
+    @Test
+    public void resolve_fails_with_HostnameResolutionException_if_hostname_cannot_be_resolved() {
+        // given
+        DownstreamAddressResolver resolver = resolver(
+            enabledConfig(new StandInAddressResolverGroup(new HashMap<>()), AddressSelectionStrategy.RANDOM)
+        );
+
+        // when
+        Future<InetSocketAddress> result = resolver.resolve("does.not.exist", 80);
+        Throwable ex = catchThrowable(() -> result.get(10, TimeUnit.SECONDS));
+
+        // then
+        assertThat(ex).isInstanceOf(ExecutionException.class);
+        assertThat(ex.getCause())
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasMessage("Unable to resolve hostname into IP address(es). hostname=does.not.exist")
+            .hasCauseInstanceOf(UnknownHostException.class);
+    }
+
+    @Test
+    public void resolveAll_returns_every_address_for_the_hostname() throws Exception {
+        // given
+        Map<String, List<InetAddress>> records = new HashMap<>();
+        records.put("some.host", Arrays.asList(ip("10.0.0.1"), ip("10.0.0.2")));
+        DownstreamAddressResolver resolver = resolver(
+            enabledConfig(new StandInAddressResolverGroup(records), AddressSelectionStrategy.ROUND_ROBIN)
+        );
+
+        // when
+        List<InetSocketAddress> result = resolver.resolveAll("some.host", 443).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).containsExactly(
+            new InetSocketAddress(ip("10.0.0.1"), 443),
+            new InetSocketAddress(ip("10.0.0.2"), 443)
+        );
+        assertThat(resolver.roundRobinCounters).isEmpty();
+    }
+
+    @Test
+    public void resolveAll_does_blocking_lookup_if_async_resolution_is_not_enabled() throws Exception {
+        // given
+        DownstreamAddressResolver resolver = resolver(null);
+
+        // when
+        Future<List<InetSocketAddress>> result = resolver.resolveAll("localhost", 8080);
+
+        // then
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.get()).isNotEmpty().allSatisfy(address -> {
+            assertThat(address.getAddress().isLoopbackAddress()).isTrue();
+            assertThat(address.getPort()).isEqualTo(8080);
+        });
+        assertThat(resolver.resolverEventLoopGroup).isNull();
+    }
+
+    @Test
+    public void resolveAll_fails_with_HostnameResolutionException_if_blocking_lookup_fails() {
+        // given
+        DownstreamAddressResolver resolver = resolver(null);
+
+        // when
+        Future<List<InetSocketAddress>> result = resolver.resolveAll("does.not.exist.invalid", 80);
+
+        // then
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.cause())
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasCauseInstanceOf(UnknownHostException.class);
+    }
+
+    @Test
+    public void selectAddress_returns_the_only_address_if_there_is_just_one() {
+        // given
+        DownstreamAddressResolver resolver = resolver(
+            enabledConfig(new StandInAddressResolverGroup(new HashMap<>()), AddressSelectionStrategy.ROUND_ROBIN)
+        );
+
+        // expect
+        assertThat(resolver.selectAddress("some.host", 80, Arrays.asList("foo"))).isEqualTo("foo");
+        assertThat(resolver.roundRobinCounters).isEmpty();
+    }
+
+    /**
+     * An in-process stand-in for DNS that resolves hostnames based on the given map.
+     */
+    private static class StandInAddressResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+
+        private final Map<String, List<InetAddress>> records;
+        private final AtomicInteger numLookups = new AtomicInteger();
+
+        private StandInAddressResolverGroup(Map<String, List<InetAddress>> records) {
+            this.records = records;
+        }
+
+        @Override
+        protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) {
+            return new InetSocketAddressResolver(executor, new InetNameResolver(executor) {
+                @Override
+                protected void doResolve(String inetHost, Promise<InetAddress> promise) {
+                    List<InetAddress> addresses = lookup(inetHost);
+                    if (addresses == null) {
+                        promise.setFailure(new UnknownHostException(inetHost));
+                    }
+                    else {
+                        promise.setSuccess(addresses.get(0));
+                    }
+                }
+
+                @Override
+                protected void doResolveAll(String inetHost, Promise<List<InetAddress>> promise) {
+                    List<InetAddress> addresses = lookup(inetHost);
+                    if (addresses == null) {
+                        promise.setFailure(new UnknownHostException(inetHost));
+                    }
+                    else {
+                        promise.setSuccess(addresses);
+                    }
+                }
+            });
+        }
+
+        private List<InetAddress> lookup(String inetHost) {
+            numLookups.incrementAndGet();
+            return records.get(inetHost);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link DownstreamChannelPoolStats}.
+ */
+public class DownstreamChannelPoolStatsTest {
+
+    private final DownstreamChannelPoolStats stats = new DownstreamChannelPoolStats(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080), 42
+    );
+
+    @Test
+    public void constructor_sets_pool_name_and_max_connections() {
+        // expect
+        assertThat(stats.getPoolName()).isEqualTo(InetAddress.getLoopbackAddress().getHostAddress() + ":8080");
+        assertThat(stats.getMaxConnections()).isEqualTo(42);
+        assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+        assertThat(stats.getNumIdleChannels()).isEqualTo(0);
+        assertThat(stats.getNumPendingAcquires()).isEqualTo(0);
+        assertThat(stats.getNumChannelsCreated()).isEqualTo(0);
+        assertThat(stats.getNumChannelsClosed()).isEqualTo(0);
+        assertThat(stats.getNumAcquiresRejected()).isEqualTo(0);
+    }
+
+    @Test
+    public void trackChannelCreated_counts_the_channel_as_closed_when_it_closes() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        // when
+        stats.trackChannelCreated(channel);
+
+        // then
+        assertThat(stats.getNumChannelsCreated()).isEqualTo(1);
+        assertThat(stats.getNumChannelsClosed()).isEqualTo(0);
+
+        // and when
+        channel.close();
+
+        // then
+        assertThat(stats.getNumChannelsClosed()).isEqualTo(1);
+    }
+
+    @Test
+    public void trackAcquire_counts_acquires_as_pending_until_they_complete() {
+        // given
+        Promise<Channel> successfulAcquire = ImmediateEventExecutor.INSTANCE.newPromise();
+        Promise<Channel> failedAcquire = ImmediateEventExecutor.INSTANCE.newPromise();
+
+        // when
+        Promise<Channel> result = stats.trackAcquire(successfulAcquire);
+        stats.trackAcquire(failedAcquire);
+
+        // then
+        assertThat(result).isSameAs(successfulAcquire);
+        assertThat(stats.getNumPendingAcquires()).isEqualTo(2);
+        assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+
+        // and when
+        successfulAcquire.setSuccess(new EmbeddedChannel());
+        failedAcquire.setFailure(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(stats.getNumPendingAcquires()).isEqualTo(0);
+        assertThat(stats.getNumActiveChannels()).isEqualTo(1);
+
+        // and when
+        stats.trackChannelReleased();
+
+        // then
+        assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+    }
+
+    @Test
+    public void idle_and_rejected_tracking_works_as_expected() {
+        // when
+        stats.trackChannelOffered();
+        stats.trackChannelOffered();
+        stats.trackChannelPolled();
+        stats.trackAcquireRejected();
+
+        // then
+        assertThat(stats.getNumIdleChannels()).isEqualTo(1);
+        assertThat(stats.getNumAcquiresRejected()).isEqualTo(1);
+        assertThat(stats.toString()).contains("idle=1", "rejected=1");
+    }
+}
@@ -0,0 +1,242 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link DownstreamHostAddresses}.
+ */
+public class DownstreamHostAddressesTest {
+
+    private DownstreamAddressResolver resolverMock;
+    private DownstreamHostAddresses hostAddresses;
+
+    private static final InetSocketAddress FIRST_ADDRESS = address("10.0.0.1");
+    private static final InetSocketAddress SECOND_ADDRESS = address("10.0.0.2");
+
+    @Before
+    public void beforeMethod() {
+        resolverMock = mock(DownstreamAddressResolver.class);
+        doReturn(SECOND_ADDRESS).when(resolverMock).selectAddress(anyString(), eq(443), anyList());
+        hostAddresses = new DownstreamHostAddresses("some.host", 443, resolverMock);
+    }
+
+    private static InetSocketAddress address(String ip) {
+        try {
+            return new InetSocketAddress(InetAddress.getByName(ip), 443);
+        }
+        catch (UnknownHostException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void resolvesTo(InetSocketAddress... addresses) {
+        doReturn(ImmediateEventExecutor.INSTANCE.newSucceededFuture(Arrays.asList(addresses)))
+            .when(resolverMock).resolveAll("some.host", 443);
+    }
+
+    private static Channel channelConnectedTo(InetSocketAddress remoteAddress) {
+        Channel channelMock = mock(Channel.class);
+        doReturn(remoteAddress).when(channelMock).remoteAddress();
+        return channelMock;
+    }
+
+    @Test
+    public void ready_resolves_the_host_the_first_time_only() {
+        // given
+        resolvesTo(FIRST_ADDRESS, SECOND_ADDRESS);
+
+        // when
+        Future<?> firstResult = hostAddresses.ready();
+        Future<?> secondResult = hostAddresses.ready();
+
+        // then
+        assertThat(firstResult.isSuccess()).isTrue();
+        assertThat(secondResult.isSuccess()).isTrue();
+        assertThat(hostAddresses.getAddresses()).containsExactly(FIRST_ADDRESS, SECOND_ADDRESS);
+        verify(resolverMock, times(1)).resolveAll("some.host", 443);
+    }
+
+    @Test
+    public void ready_fails_with_HostnameResolutionException_if_the_host_cannot_be_resolved() {
+        // given
+        HostnameResolutionException failure = new HostnameResolutionException("intentional test failure", null);
+        doReturn(ImmediateEventExecutor.INSTANCE.newFailedFuture(failure))
+            .when(resolverMock).resolveAll("some.host", 443);
+
+        // when
+        Future<?> result = hostAddresses.ready();
+
+        // then
+        assertThat(result.cause()).isSameAs(failure);
+        assertThat(hostAddresses.getAddresses()).isEmpty();
+    }
+
+    @Test
+    public void refresh_reuses_a_resolution_that_is_already_in_flight() {
+        // given
+        Promise<List<InetSocketAddress>> inFlight = ImmediateEventExecutor.INSTANCE.newPromise();
+        doReturn(inFlight).when(resolverMock).resolveAll("some.host", 443);
+
+        // when
+        Future<List<InetSocketAddress>> firstResult = hostAddresses.refresh();
+        Future<List<InetSocketAddress>> secondResult = hostAddresses.refresh();
+        inFlight.setSuccess(Arrays.asList(FIRST_ADDRESS));
+
+        // then
+        assertThat(firstResult).isSameAs(inFlight);
+        assertThat(secondResult).isSameAs(inFlight);
+        assertThat(hostAddresses.getAddresses()).containsExactly(FIRST_ADDRESS);
+        verify(resolverMock, times(1)).resolveAll("some.host", 443);
+    }
+
+    @Test
+    public void refresh_keeps_the_previous_addresses_if_resolution_fails() {
+        // given
+        resolvesTo(FIRST_ADDRESS);
+        hostAddresses.refresh();
+        doReturn(ImmediateEventExecutor.INSTANCE.newFailedFuture(new HostnameResolutionException("intentional", null)))
+            .when(resolverMock).resolveAll("some.host", 443);
+
+        // when
+        Future<List<InetSocketAddress>> result = hostAddresses.refresh();
+
+        // then
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(hostAddresses.getAddresses()).containsExactly(FIRST_ADDRESS);
+    }
+
+    @Test
+    public void close_cancels_the_refresh_task_and_is_safe_to_call_more_than_once() {
+        // given
+        ScheduledFuture<?> refreshTaskMock = mock(ScheduledFuture.class);
+        hostAddresses.setRefreshTask(refreshTaskMock);
+
+        // when
+        hostAddresses.close();
+        hostAddresses.close();
+
+        // then
+        verify(refreshTaskMock, times(1)).cancel(false);
+        assertThat(hostAddresses.isClosed()).isTrue();
+    }
+
+    @Test
+    public void setRefreshTask_cancels_the_task_immediately_if_already_closed() {
+        // given
+        ScheduledFuture<?> refreshTaskMock = mock(ScheduledFuture.class);
+        hostAddresses.close();
+
+        // when
+        hostAddresses.setRefreshTask(refreshTaskMock);
+
+        // then
+        verify(refreshTaskMock).cancel(false);
+    }
+
+    @Test
+    public void refresh_task_is_not_cancelled_until_close_is_called() {
+        // given
+        ScheduledFuture<?> refreshTaskMock = mock(ScheduledFuture.class);
+
+        // when
+        hostAddresses.setRefreshTask(refreshTaskMock);
+
+        // then
+        verify(refreshTaskMock, never()).cancel(false);
+        assertThat(hostAddresses.isClosed()).isFalse();
+    }
+
+    @Test
+    public void nextAddress_uses_the_resolver_to_pick_from_the_current_addresses() {
+        // given
+        resolvesTo(FIRST_ADDRESS, SECOND_ADDRESS);
+        hostAddresses.refresh();
+
+        // when
+        InetSocketAddress result = hostAddresses.nextAddress();
+
+        // then
+        assertThat(result).isEqualTo(SECOND_ADDRESS);
+        verify(resolverMock).selectAddress("some.host", 443, Arrays.asList(FIRST_ADDRESS, SECOND_ADDRESS));
+    }
+
+    @Test
+    public void nextAddress_throws_HostnameResolutionException_if_the_host_has_not_been_resolved() {
+        // when
+        Throwable ex = catchThrowable(() -> hostAddresses.nextAddress());
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasMessageContaining("hostname=some.host");
+    }
+
+    @Test
+    public void isStale_is_true_only_for_channels_connected_to_addresses_that_are_no_longer_valid() {
+        // given
+        Channel firstChannel = channelConnectedTo(FIRST_ADDRESS);
+        Channel secondChannel = channelConnectedTo(SECOND_ADDRESS);
+        resolvesTo(FIRST_ADDRESS, SECOND_ADDRESS);
+        hostAddresses.refresh();
+        assertThat(hostAddresses.isStale(firstChannel)).isFalse();
+        assertThat(hostAddresses.isStale(secondChannel)).isFalse();
+
+        // when
+        resolvesTo(SECOND_ADDRESS);
+        hostAddresses.refresh();
+
+        // then
+        assertThat(hostAddresses.isStale(firstChannel)).isTrue();
+        assertThat(hostAddresses.isStale(secondChannel)).isFalse();
+        assertThat(hostAddresses.isStale(channelConnectedTo(null))).isFalse();
+    }
+
+    @Test
+    public void outlier_detector_ejections_are_skipped_by_nextAddress_and_make_channels_stale() {
+        // given
+        DownstreamOutlierDetector outlierDetectorMock = mock(DownstreamOutlierDetector.class);
+        doReturn(Arrays.asList(SECOND_ADDRESS)).when(outlierDetectorMock).filterAvailable(anyList());
+        doReturn(true).when(outlierDetectorMock).isEjected(FIRST_ADDRESS);
+        hostAddresses = new DownstreamHostAddresses("some.host", 443, resolverMock, outlierDetectorMock);
+        resolvesTo(FIRST_ADDRESS, SECOND_ADDRESS);
+
+        // when
+        hostAddresses.refresh();
+        InetSocketAddress result = hostAddresses.nextAddress();
+
+        // then
+        assertThat(hostAddresses.getOutlierDetector()).isSameAs(outlierDetectorMock);
+        verify(outlierDetectorMock).retainAddresses(Arrays.asList(FIRST_ADDRESS, SECOND_ADDRESS));
+        verify(outlierDetectorMock).filterAvailable(Arrays.asList(FIRST_ADDRESS, SECOND_ADDRESS));
+        verify(resolverMock).selectAddress("some.host", 443, Arrays.asList(SECOND_ADDRESS));
+        assertThat(result).isEqualTo(SECOND_ADDRESS);
+        assertThat(hostAddresses.isStale(channelConnectedTo(FIRST_ADDRESS))).isTrue();
+        assertThat(hostAddresses.isStale(channelConnectedTo(SECOND_ADDRESS))).isFalse();
+    }
+}
@@ -0,0 +1,358 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link DownstreamOutlierDetector}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamOutlierDetectorTest {
+
+    private static final InetSocketAddress FIRST_ADDRESS = address("10.0.0.1");
+    private static final InetSocketAddress SECOND_ADDRESS = address("10.0.0.2");
+    private static final InetSocketAddress THIRD_ADDRESS = address("10.0.0.3");
+    private static final List<InetSocketAddress> ALL_ADDRESSES =
+        Arrays.asList(FIRST_ADDRESS, SECOND_ADDRESS, THIRD_ADDRESS);
+
+    private static final long BASE_EJECTION_MILLIS = 1000;
+    private static final long MAX_EJECTION_MILLIS = 3000;
+    private static final long RAMP_UP_MILLIS = 1000;
+
+    private long currentTimeNanos;
+    private DownstreamOutlierDetector detector;
+
+    @Before
+    public void beforeMethod() {
+        currentTimeNanos = 0;
+        detector = detectorWithRampUp(RAMP_UP_MILLIS);
+        detector.retainAddresses(ALL_ADDRESSES);
+    }
+
+    private DownstreamOutlierDetector detectorWithRampUp(long rampUpMillis) {
+        return detector(rampUpMillis, 50);
+    }
+
+    private DownstreamOutlierDetector detector(long rampUpMillis, int maxEjectionPercent) {
+        ProxyRouterOutlierDetectionConfig config = new ProxyRouterOutlierDetectionConfig() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public int consecutiveFailuresToEject() {
+                return 3;
+            }
+
+            @Override
+            public int minResponsesForLatencyOutlierDetection() {
+                return 5;
+            }
+
+            @Override
+            public long baseEjectionTimeMillis() {
+                return BASE_EJECTION_MILLIS;
+            }
+
+            @Override
+            public long maxEjectionTimeMillis() {
+                return MAX_EJECTION_MILLIS;
+            }
+
+            @Override
+            public long reinstatementRampUpMillis() {
+                return rampUpMillis;
+            }
+
+            @Override
+            public int maxEjectionPercent() {
+                return maxEjectionPercent;
+            }
+        };
+
+        return new DownstreamOutlierDetector("some.host", config) {
+            @Override
+            protected long currentTimeNanos() {
+                return currentTimeNanos;
+            }
+        };
+    }
+
+    private static InetSocketAddress address(String ip) {
+        try {
+            return new InetSocketAddress(InetAddress.getByName(ip), 443);
+        }
+        catch (UnknownHostException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void advanceMillis(long millis) {
+        currentTimeNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private void failRepeatedly(InetSocketAddress address, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.recordFailure(address);
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void consecutive_failures_eject_the_address(boolean useServerErrorResponses) {
+        // when
+        for (int i = 0; i < 3; i++) {
+            if (useServerErrorResponses) {
+                detector.recordResponse(FIRST_ADDRESS, 503, 1000);
+            }
+            else {
+                detector.recordFailure(FIRST_ADDRESS);
+            }
+        }
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+        assertThat(detector.filterAvailable(ALL_ADDRESSES)).containsExactly(SECOND_ADDRESS, THIRD_ADDRESS);
+    }
+
+    @Test
+    public void a_successful_response_resets_the_consecutive_failure_count() {
+        // when
+        failRepeatedly(FIRST_ADDRESS, 2);
+        detector.recordResponse(FIRST_ADDRESS, 200, 1000);
+        failRepeatedly(FIRST_ADDRESS, 2);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void latency_outliers_are_ejected_once_enough_responses_are_seen() {
+        // given
+        for (int i = 0; i < 5; i++) {
+            detector.recordResponse(SECOND_ADDRESS, 200, 1_000_000);
+            detector.recordResponse(THIRD_ADDRESS, 200, 1_000_000);
+        }
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            detector.recordResponse(FIRST_ADDRESS, 200, 10_000_000);
+        }
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+
+        // and when
+        detector.recordResponse(FIRST_ADDRESS, 200, 10_000_000);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+        assertThat(detector.isEjected(SECOND_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void no_more_than_maxEjectionPercent_of_addresses_are_ejected() {
+        // when
+        failRepeatedly(FIRST_ADDRESS, 3);
+        failRepeatedly(SECOND_ADDRESS, 3);
+
+        // then
+        // 50% of 3 addresses rounds down to 1.
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+        assertThat(detector.isEjected(SECOND_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void no_address_is_ejected_when_maxEjectionPercent_is_0() {
+        // given
+        detector = detector(RAMP_UP_MILLIS, 0);
+        detector.retainAddresses(ALL_ADDRESSES);
+
+        // when
+        failRepeatedly(FIRST_ADDRESS, 10);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void the_last_available_address_is_never_ejected_even_when_maxEjectionPercent_is_100() {
+        // given
+        detector = detector(RAMP_UP_MILLIS, 100);
+        detector.retainAddresses(ALL_ADDRESSES);
+
+        // when
+        failRepeatedly(FIRST_ADDRESS, 3);
+        failRepeatedly(SECOND_ADDRESS, 3);
+        failRepeatedly(THIRD_ADDRESS, 3);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+        assertThat(detector.isEjected(SECOND_ADDRESS)).isTrue();
+        assertThat(detector.isEjected(THIRD_ADDRESS)).isFalse();
+        assertThat(detector.filterAvailable(ALL_ADDRESSES)).containsExactly(THIRD_ADDRESS);
+    }
+
+    @Test
+    public void the_last_available_address_of_two_is_never_ejected() {
+        // given
+        detector = detector(RAMP_UP_MILLIS, 100);
+        detector.retainAddresses(Arrays.asList(FIRST_ADDRESS, SECOND_ADDRESS));
+
+        // when
+        failRepeatedly(FIRST_ADDRESS, 3);
+        failRepeatedly(SECOND_ADDRESS, 3);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+        assertThat(detector.isEjected(SECOND_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void the_only_known_address_is_never_ejected() {
+        // given
+        detector.retainAddresses(Arrays.asList(FIRST_ADDRESS));
+
+        // when
+        failRepeatedly(FIRST_ADDRESS, 10);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void filterAvailable_returns_all_addresses_if_every_one_is_ejected() {
+        // given
+        List<InetSocketAddress> onlyFirst = Arrays.asList(FIRST_ADDRESS);
+        failRepeatedly(FIRST_ADDRESS, 3);
+
+        // expect
+        assertThat(detector.filterAvailable(onlyFirst)).isSameAs(onlyFirst);
+    }
+
+    @Test
+    public void ejection_time_grows_exponentially_up_to_the_max() {
+        // given
+        detector = detectorWithRampUp(0);
+        detector.retainAddresses(ALL_ADDRESSES);
+
+        long[] expectedEjectionMillis = {1000, 2000, 3000, 3000};
+        for (long expectedMillis : expectedEjectionMillis) {
+            // when
+            failRepeatedly(FIRST_ADDRESS, 3);
+            advanceMillis(expectedMillis - 1);
+
+            // then
+            assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+
+            // and when
+            advanceMillis(1);
+
+            // then
+            assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+            assertThat(detector.filterAvailable(ALL_ADDRESSES)).contains(FIRST_ADDRESS);
+        }
+    }
+
+    @Test
+    public void ejection_time_resets_after_staying_healthy_for_the_max_ejection_time() {
+        // given
+        detector = detectorWithRampUp(0);
+        detector.retainAddresses(ALL_ADDRESSES);
+        failRepeatedly(FIRST_ADDRESS, 3);
+        advanceMillis(BASE_EJECTION_MILLIS);
+        failRepeatedly(FIRST_ADDRESS, 3);
+        advanceMillis(2 * BASE_EJECTION_MILLIS);
+        advanceMillis(MAX_EJECTION_MILLIS + 1);
+
+        // when
+        failRepeatedly(FIRST_ADDRESS, 3);
+        advanceMillis(BASE_EJECTION_MILLIS);
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+    }
+
+    @Test
+    public void reinstated_addresses_are_ramped_back_in_gradually() {
+        // given
+        failRepeatedly(FIRST_ADDRESS, 3);
+        advanceMillis(BASE_EJECTION_MILLIS);
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+
+        // when
+        Set<Boolean> includedRightAfterReinstatement = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            includedRightAfterReinstatement.add(detector.filterAvailable(ALL_ADDRESSES).contains(FIRST_ADDRESS));
+        }
+
+        // then
+        assertThat(includedRightAfterReinstatement).containsExactly(false);
+
+        // and when
+        advanceMillis(RAMP_UP_MILLIS / 2);
+        int numIncludedHalfway = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (detector.filterAvailable(ALL_ADDRESSES).contains(FIRST_ADDRESS)) {
+                numIncludedHalfway++;
+            }
+        }
+
+        // then
+        assertThat(numIncludedHalfway).isBetween(300, 700);
+
+        // and when
+        advanceMillis(RAMP_UP_MILLIS / 2);
+
+        // then
+        for (int i = 0; i < 100; i++) {
+            assertThat(detector.filterAvailable(ALL_ADDRESSES)).containsExactlyElementsOf(ALL_ADDRESSES);
+        }
+    }
+
+    @Test
+    public void retainAddresses_forgets_addresses_that_are_no_longer_valid() {
+        // given
+        failRepeatedly(FIRST_ADDRESS, 3);
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isTrue();
+
+        // when
+        detector.retainAddresses(Arrays.asList(SECOND_ADDRESS, THIRD_ADDRESS));
+
+        // then
+        assertThat(detector.isEjected(FIRST_ADDRESS)).isFalse();
+        assertThat(detector.statsByAddress.keySet()).containsExactlyInAnyOrder(SECOND_ADDRESS, THIRD_ADDRESS);
+    }
+
+    @Test
+    public void non_inet_addresses_are_ignored() {
+        // when
+        detector.recordFailure(null);
+        detector.recordResponse(null, 500, 1000);
+
+        // then
+        assertThat(detector.statsByAddress).hasSize(3);
+        assertThat(detector.getHostname()).isEqualTo("some.host");
+    }
+}
@@ -0,0 +1,484 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2GoAwayFrame;
+import io.netty.handler.codec.http2.DefaultHttp2SettingsFrame;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import static com.nike.riposte.client.asynchttp.netty.Http2DownstreamChannelPool.HTTP2_CONNECTION_STATE_HANDLER_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link Http2DownstreamChannelPool}.
+ */
+@RunWith(DataProviderRunner.class)
+public class Http2DownstreamChannelPoolTest {
+
+    private static final String MULTIPLEX_HANDLER_NAME = "multiplexHandler";
+
+    private DefaultEventLoopGroup timeoutExecutorGroup;
+    private DownstreamChannelPoolStats poolStats;
+    private MetricsListener metricsListenerMock;
+    private List<Promise<Channel>> connectionPromises;
+    private Supplier<Future<Channel>> connectionFactory;
+
+    @Before
+    public void beforeMethod() {
+        timeoutExecutorGroup = new DefaultEventLoopGroup(1);
+        poolStats = new DownstreamChannelPoolStats("h2c-some.host:8080", 2);
+        metricsListenerMock = mock(MetricsListener.class);
+        connectionPromises = new ArrayList<>();
+        connectionFactory = () -> {
+            Promise<Channel> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+            connectionPromises.add(promise);
+            return promise;
+        };
+    }
+
+    @After
+    public void afterMethod() {
+        timeoutExecutorGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private Http2DownstreamChannelPool pool(int maxConnections,
+                                            int maxStreams,
+                                            int maxPendingAcquires,
+                                            long acquireTimeoutMillis,
+                                            boolean http2KnownToBeSupported) {
+        return new Http2DownstreamChannelPool(
+            poolStats, connectionFactory, timeoutExecutorGroup, maxConnections, maxStreams, maxPendingAcquires,
+            acquireTimeoutMillis, http2KnownToBeSupported, metricsListenerMock
+        );
+    }
+
+    private Http2DownstreamChannelPool poolWithIdleTimeout(long idleConnectionTimeoutMillis) {
+        return new Http2DownstreamChannelPool(
+            poolStats, connectionFactory, timeoutExecutorGroup, 2, 10, 10, 10_000, idleConnectionTimeoutMillis, true,
+            metricsListenerMock
+        );
+    }
+
+    private static void waitForNumConnections(Http2DownstreamChannelPool pool, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getNumConnections() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static EmbeddedChannel http2Connection() {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.pipeline().addLast(Http2FrameCodecBuilder.forClient().build());
+        ch.pipeline().addLast(MULTIPLEX_HANDLER_NAME, new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+        return ch;
+    }
+
+    private void completeConnection(int index, Channel connection) {
+        connectionPromises.get(index).setSuccess(connection);
+    }
+
+    @DataProvider(value = {
+        "0  |   1   |   maxConnections must be greater than 0",
+        "1  |   0   |   maxConcurrentStreamsPerConnection must be greater than 0"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        int maxConnections, int maxStreams, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> pool(maxConnections, maxStreams, 10, 1000, true));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @Test
+    public void http2Supported_returns_true_without_connecting_if_http2_is_known_to_be_supported() {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 10, 10, 1000, true);
+
+        // when
+        Future<Boolean> result = pool.http2Supported();
+
+        // then
+        assertThat(result.getNow()).isTrue();
+        assertThat(connectionPromises).isEmpty();
+        assertThat(pool.getPoolStats()).isSameAs(poolStats);
+        assertThat(pool.getHostAddresses()).isNull();
+    }
+
+    @Test
+    public void http2Supported_opens_a_single_connection_and_keeps_it_if_it_is_http2() {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 10, 10, 1000, false);
+        EmbeddedChannel connection = http2Connection();
+
+        // when
+        Future<Boolean> firstResult = pool.http2Supported();
+        Future<Boolean> secondResult = pool.http2Supported();
+
+        // then
+        assertThat(connectionPromises).hasSize(1);
+        assertThat(firstResult).isSameAs(secondResult);
+        assertThat(firstResult.isDone()).isFalse();
+
+        // and when
+        completeConnection(0, connection);
+
+        // then
+        assertThat(firstResult.getNow()).isTrue();
+        assertThat(pool.getNumConnections()).isEqualTo(1);
+        assertThat(connection.pipeline().get(HTTP2_CONNECTION_STATE_HANDLER_NAME)).isNotNull();
+        assertThat(poolStats.getNumChannelsCreated()).isEqualTo(1);
+        assertThat(pool.http2Supported().getNow()).isTrue();
+    }
+
+    @Test
+    public void http2Supported_returns_false_and_closes_the_connection_if_it_did_not_negotiate_http2() {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 10, 10, 1000, false);
+        EmbeddedChannel http1Connection = new EmbeddedChannel();
+
+        // when
+        Future<Boolean> result = pool.http2Supported();
+        completeConnection(0, http1Connection);
+
+        // then
+        assertThat(result.getNow()).isFalse();
+        assertThat(http1Connection.isOpen()).isFalse();
+        assertThat(pool.getNumConnections()).isEqualTo(0);
+        assertThat(pool.http2Supported().getNow()).isFalse();
+        assertThat(connectionPromises).hasSize(1);
+    }
+
+    @Test
+    public void http2Supported_fails_if_the_connection_fails_and_tries_again_next_time() {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 10, 10, 1000, false);
+        Exception connectError = new Exception("kaboom");
+
+        // when
+        Future<Boolean> firstResult = pool.http2Supported();
+        connectionPromises.get(0).setFailure(connectError);
+
+        // then
+        assertThat(firstResult.cause()).isSameAs(connectError);
+
+        // and when
+        Future<Boolean> secondResult = pool.http2Supported();
+        completeConnection(1, http2Connection());
+
+        // then
+        assertThat(connectionPromises).hasSize(2);
+        assertThat(secondResult.getNow()).isTrue();
+    }
+
+    @Test
+    public void acquire_multiplexes_streams_over_connections_and_opens_new_connections_as_needed() {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 2, 10, 10_000, true);
+        EmbeddedChannel firstConnection = http2Connection();
+        EmbeddedChannel secondConnection = http2Connection();
+
+        // when
+        Future<Channel> firstAcquire = pool.acquire();
+
+        // then
+        assertThat(connectionPromises).hasSize(1);
+        assertThat(firstAcquire.isDone()).isFalse();
+
+        // and when
+        completeConnection(0, firstConnection);
+        Future<Channel> secondAcquire = pool.acquire();
+
+        // then
+        assertThat(firstAcquire.getNow()).isInstanceOf(Http2StreamChannel.class);
+        assertThat(firstAcquire.getNow().parent()).isSameAs(firstConnection);
+        assertThat(secondAcquire.getNow().parent()).isSameAs(firstConnection);
+        assertThat(connectionPromises).hasSize(1);
+
+        // and when
+        Future<Channel> thirdAcquire = pool.acquire();
+        completeConnection(1, secondConnection);
+
+        // then
+        assertThat(connectionPromises).hasSize(2);
+        assertThat(thirdAcquire.getNow().parent()).isSameAs(secondConnection);
+        assertThat(pool.getNumConnections()).isEqualTo(2);
+        assertThat(poolStats.getNumActiveChannels()).isEqualTo(3);
+        assertThat(poolStats.getNumChannelsCreated()).isEqualTo(2);
+    }
+
+    @Test
+    public void acquire_waits_for_a_free_stream_once_the_pool_is_at_its_limits() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 10, 10_000, true);
+        Future<Channel> firstAcquire = pool.acquire();
+        completeConnection(0, http2Connection());
+        assertThat(firstAcquire.isSuccess()).isTrue();
+
+        // when
+        Future<Channel> waitingAcquire = pool.acquire();
+
+        // then
+        assertThat(waitingAcquire.isDone()).isFalse();
+        assertThat(connectionPromises).hasSize(1);
+        assertThat(poolStats.getNumPendingAcquires()).isEqualTo(1);
+    }
+
+    @Test
+    public void release_closes_the_stream_and_hands_its_slot_to_the_next_waiting_acquire() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 10, 10_000, true);
+        Future<Channel> firstAcquire = pool.acquire();
+        completeConnection(0, http2Connection());
+        Channel firstStream = firstAcquire.getNow();
+        Future<Channel> waitingAcquire = pool.acquire();
+        assertThat(waitingAcquire.isDone()).isFalse();
+
+        // when
+        Future<Void> releaseFuture = pool.release(firstStream);
+
+        // then
+        assertThat(releaseFuture.isSuccess()).isTrue();
+        assertThat(firstStream.isOpen()).isFalse();
+        assertThat(waitingAcquire.getNow()).isInstanceOf(Http2StreamChannel.class);
+        assertThat(poolStats.getNumActiveChannels()).isEqualTo(1);
+
+        // and when
+        Future<Void> secondReleaseFuture = pool.release(firstStream);
+
+        // then
+        assertThat(secondReleaseFuture.cause()).isInstanceOf(IllegalArgumentException.class);
+        assertThat(poolStats.getNumActiveChannels()).isEqualTo(1);
+    }
+
+    @Test
+    public void acquire_is_rejected_if_too_many_acquires_are_already_waiting() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 1, 10_000, true);
+        Future<Channel> firstAcquire = pool.acquire();
+
+        // when
+        Future<Channel> secondAcquire = pool.acquire();
+
+        // then
+        assertThat(firstAcquire.isDone()).isFalse();
+        assertThat(secondAcquire.cause())
+            .isInstanceOf(DownstreamConnectionPoolExhaustedException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(poolStats.getNumAcquiresRejected()).isEqualTo(1);
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_ACQUIRE_REJECTED, poolStats);
+    }
+
+    @Test
+    public void acquire_fails_if_it_waits_too_long() throws Exception {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 10, 50, true);
+
+        // when
+        Future<Channel> acquire = pool.acquire();
+
+        // then
+        assertThat(acquire.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(acquire.cause())
+            .isInstanceOf(DownstreamConnectionPoolExhaustedException.class)
+            .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    public void waiting_acquires_fail_if_the_only_connection_attempt_fails() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 10, 10_000, true);
+        Future<Channel> acquire = pool.acquire();
+        Exception connectError = new Exception("kaboom");
+
+        // when
+        connectionPromises.get(0).setFailure(connectError);
+
+        // then
+        assertThat(acquire.cause()).isSameAs(connectError);
+    }
+
+    @Test
+    public void connections_that_received_a_goaway_do_not_get_new_streams() {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 10, 10, 10_000, true);
+        EmbeddedChannel firstConnection = http2Connection();
+        pool.acquire();
+        completeConnection(0, firstConnection);
+
+        // when
+        firstConnection.pipeline().context(MULTIPLEX_HANDLER_NAME).fireChannelRead(
+            new DefaultHttp2GoAwayFrame(Http2Error.NO_ERROR)
+        );
+        Future<Channel> acquire = pool.acquire();
+
+        // then
+        assertThat(connectionPromises).hasSize(2);
+        assertThat(acquire.isDone()).isFalse();
+
+        // and when
+        EmbeddedChannel secondConnection = http2Connection();
+        completeConnection(1, secondConnection);
+
+        // then
+        assertThat(acquire.getNow().parent()).isSameAs(secondConnection);
+    }
+
+    @Test
+    public void the_downstream_hosts_max_concurrent_streams_setting_is_honored() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 10, 10, 10_000, true);
+        EmbeddedChannel connection = http2Connection();
+        pool.acquire();
+        completeConnection(0, connection);
+
+        // when
+        connection.pipeline().context(MULTIPLEX_HANDLER_NAME).fireChannelRead(
+            new DefaultHttp2SettingsFrame(new Http2Settings().maxConcurrentStreams(1))
+        );
+        Future<Channel> acquire = pool.acquire();
+
+        // then
+        assertThat(acquire.isDone()).isFalse();
+    }
+
+    @Test
+    public void closed_connections_are_replaced_for_waiting_acquires() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 10, 10_000, true);
+        EmbeddedChannel firstConnection = http2Connection();
+        pool.acquire();
+        completeConnection(0, firstConnection);
+        Future<Channel> waitingAcquire = pool.acquire();
+
+        // when
+        firstConnection.close();
+
+        // then
+        assertThat(pool.getNumConnections()).isEqualTo(0);
+        assertThat(connectionPromises).hasSize(2);
+
+        // and when
+        EmbeddedChannel secondConnection = http2Connection();
+        completeConnection(1, secondConnection);
+
+        // then
+        assertThat(waitingAcquire.getNow().parent()).isSameAs(secondConnection);
+    }
+
+    @Test
+    public void connections_are_closed_once_they_have_had_no_streams_for_the_idle_timeout() throws Exception {
+        // given
+        Http2DownstreamChannelPool pool = poolWithIdleTimeout(50);
+        Future<Channel> acquire = pool.acquire();
+        completeConnection(0, http2Connection());
+        Channel stream = acquire.getNow();
+
+        // when
+        Thread.sleep(150);
+
+        // then
+        // The connection has an active stream, so it isn't idle.
+        assertThat(pool.getNumConnections()).isEqualTo(1);
+
+        // and when
+        pool.release(stream);
+        waitForNumConnections(pool, 0);
+
+        // then
+        assertThat(pool.getNumConnections()).isEqualTo(0);
+
+        // and when
+        Future<Channel> nextAcquire = pool.acquire();
+
+        // then
+        // The idle connection was dropped, so a new one is needed.
+        assertThat(nextAcquire.isDone()).isFalse();
+        assertThat(connectionPromises).hasSize(2);
+    }
+
+    @Test
+    public void opening_a_stream_on_an_idle_connection_cancels_its_idle_timeout() throws Exception {
+        // given
+        Http2DownstreamChannelPool pool = poolWithIdleTimeout(200);
+        Future<Channel> firstAcquire = pool.acquire();
+        completeConnection(0, http2Connection());
+        pool.release(firstAcquire.getNow());
+
+        // when
+        Future<Channel> secondAcquire = pool.acquire();
+        Thread.sleep(400);
+
+        // then
+        assertThat(secondAcquire.isSuccess()).isTrue();
+        assertThat(pool.getNumConnections()).isEqualTo(1);
+        assertThat(connectionPromises).hasSize(1);
+    }
+
+    @Test
+    public void idle_connections_are_kept_when_the_idle_timeout_is_disabled() throws Exception {
+        // given
+        Http2DownstreamChannelPool pool = pool(2, 10, 10, 10_000, true);
+        Future<Channel> acquire = pool.acquire();
+        completeConnection(0, http2Connection());
+
+        // when
+        pool.release(acquire.getNow());
+        Thread.sleep(100);
+
+        // then
+        assertThat(pool.getNumConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void close_fails_waiting_acquires_and_closes_connections() {
+        // given
+        Http2DownstreamChannelPool pool = pool(1, 1, 10, 10_000, true);
+        EmbeddedChannel connection = http2Connection();
+        pool.acquire();
+        completeConnection(0, connection);
+        Future<Channel> waitingAcquire = pool.acquire();
+
+        // when
+        pool.close();
+
+        // then
+        assertThat(waitingAcquire.cause()).isInstanceOf(IllegalStateException.class);
+        assertThat(connection.isOpen()).isFalse();
+        assertThat(pool.acquire().cause()).isInstanceOf(IllegalStateException.class);
+    }
+}
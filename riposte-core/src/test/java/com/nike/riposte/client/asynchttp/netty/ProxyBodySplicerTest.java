@@ -0,0 +1,168 @@
+package com.nike.riposte.client.asynchttp.netty;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link ProxyBodySplicer}. Actual splicing needs native epoll connections, so these tests
+ * cover the checks that decide whether splicing can happen at all, and the codec handling around it.
+ */
+@RunWith(DataProviderRunner.class)
+public class ProxyBodySplicerTest {
+
+    @Test
+    public void isSpliceCapable_returns_false_for_null_and_non_epoll_channels() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+
+        // expect
+        assertThat(ProxyBodySplicer.isSpliceCapable(null)).isFalse();
+        assertThat(ProxyBodySplicer.isSpliceCapable(channel)).isFalse();
+        assertThat(ProxyBodySplicer.canSpliceBetween(channel, channel)).isFalse();
+        assertThat(ProxyBodySplicer.canSpliceBetween(null, null)).isFalse();
+    }
+
+    @Test
+    public void splice_fails_if_the_channels_cannot_splice() {
+        // given
+        EmbeddedChannel source = new EmbeddedChannel();
+        EmbeddedChannel target = new EmbeddedChannel();
+
+        // when
+        Future<Void> result = ProxyBodySplicer.splice(source, target, 42, null);
+
+        // then
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @DataProvider(value = {
+        "42         |   null        |   42",
+        "0          |   null        |   0",
+        "null       |   null        |   -1",
+        "-1         |   null        |   -1",
+        "notanumber |   null        |   -1",
+        "42         |   chunked     |   -1",
+        "null       |   chunked     |   -1"
+    }, splitBy = "\\|")
+    @Test
+    public void spliceableContentLength_only_allows_content_length_framing(
+        String contentLength, String transferEncoding, long expectedResult
+    ) {
+        // given
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/some/path");
+        if (contentLength != null) {
+            request.headers().set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        }
+        if (transferEncoding != null) {
+            request.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+
+        // expect
+        assertThat(ProxyBodySplicer.spliceableContentLength(request)).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void spliceableContentLength_returns_negative_one_for_full_messages() {
+        // given
+        DefaultFullHttpResponse response = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(new byte[]{1, 2, 3})
+        );
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 3);
+
+        // expect
+        assertThat(ProxyBodySplicer.spliceableContentLength(response)).isEqualTo(-1);
+        response.release();
+    }
+
+    @Test
+    public void resetDecoder_makes_the_decoder_treat_the_next_bytes_as_a_new_message() {
+        // given
+        HttpServerCodec codec = new HttpServerCodec();
+        EmbeddedChannel channel = new EmbeddedChannel(codec);
+        // Only the headers arrive through the pipeline - the body is spliced past it.
+        channel.writeInbound(ascii("POST /first HTTP/1.1\r\nHost: foo\r\nContent-Length: 10\r\n\r\n"));
+        Object firstRequest = channel.readInbound();
+        assertThat(firstRequest).isInstanceOf(HttpRequest.class);
+
+        // when
+        boolean result = ProxyBodySplicer.resetDecoder(codec);
+        channel.writeInbound(ascii("GET /second HTTP/1.1\r\nHost: foo\r\nContent-Length: 0\r\n\r\n"));
+
+        // then
+        assertThat(result).isTrue();
+        List<Object> decoded = new ArrayList<>(channel.inboundMessages());
+        assertThat(decoded).isNotEmpty();
+        assertThat(decoded.get(0)).isInstanceOf(HttpRequest.class);
+        HttpRequest secondRequest = (HttpRequest) decoded.get(0);
+        assertThat(secondRequest.uri()).isEqualTo("/second");
+        assertThat(secondRequest.decoderResult().isSuccess()).isTrue();
+        assertThat(decoded.get(decoded.size() - 1)).isInstanceOf(LastHttpContent.class);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void canResetDecoder_returns_true_with_the_netty_version_in_use() {
+        // Request body splicing depends on reaching the HTTP server codec's private decoder field. If this fails after
+        //      a Netty upgrade then splicing is silently disabled - see ProxyBodySplicer.findHttpCodecDecoderField().
+        // expect
+        assertThat(ProxyBodySplicer.canResetDecoder()).isTrue();
+        assertThat(ProxyBodySplicer.findHttpCodecDecoderField(ProxyBodySplicer.HTTP_CODEC_INBOUND_HANDLER_FIELD_NAME))
+            .isNotNull();
+    }
+
+    @Test
+    public void findHttpCodecDecoderField_returns_null_if_the_field_does_not_exist() {
+        // expect
+        assertThat(ProxyBodySplicer.findHttpCodecDecoderField("fieldThatDoesNotExist")).isNull();
+    }
+
+    @Test
+    public void resetDecoder_fails_closed_if_the_decoder_field_is_unavailable() {
+        // given
+        HttpServerCodec codec = new HttpServerCodec();
+        EmbeddedChannel channel = new EmbeddedChannel(codec);
+        channel.writeInbound(ascii("POST /first HTTP/1.1\r\nHost: foo\r\nContent-Length: 10\r\n\r\n"));
+        Object firstRequest = channel.readInbound();
+        assertThat(firstRequest).isInstanceOf(HttpRequest.class);
+
+        // when
+        boolean result = ProxyBodySplicer.resetDecoder(codec, null);
+
+        // then
+        assertThat(result).isFalse();
+        // The decoder was left alone, so it still treats the next bytes as the first request's body.
+        channel.writeInbound(ascii("0123456789"));
+        assertThat(channel.inboundMessages()).noneMatch(msg -> msg instanceof HttpRequest);
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf ascii(String str) {
+        return Unpooled.copiedBuffer(str, CharsetUtil.US_ASCII);
+    }
+}
@@ -1,14 +1,36 @@
 package com.nike.riposte.client.asynchttp.netty;
 
+import com.nike.backstopper.exception.WrapperException;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.BoundedProxyRouterChannelPool;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.EventLoopPoolKey;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.Http2PoolKey;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.LogicalHostPoolKey;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.ObjectHolder;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.ProxyRouterChannelPool;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.ProxyRouterPool;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+import com.nike.riposte.client.retry.DownstreamRetryPolicy;
+import com.nike.riposte.client.retry.RetryBudget;
+import com.nike.riposte.client.retry.RetryingDownstreamCall;
+import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterHttp2Config;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterOutlierDetectionConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig;
+import com.nike.riposte.server.config.ServerConfig.TransportType;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
+import com.nike.riposte.server.error.exception.HostnameResolutionException;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.testutils.Whitebox;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 
@@ -23,27 +45,64 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.SimpleChannelPool;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
 import io.netty.util.Attribute;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 
 import static com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.CHANNEL_IS_BROKEN_ATTR;
 import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
@@ -51,16 +110,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Tests the functionality of {@link StreamingAsyncHttpClient}.
@@ -158,6 +221,7 @@ public class StreamingAsyncHttpClientTest {
         assertThat(sc.distributedTracingMdcInfo).isSameAs(mdcInfoMock);
         assertThat(sc.spanForDownstreamCall).isSameAs(spanForDownstreamCallMock);
         assertThat(sc.proxySpanTaggingStrategy).isSameAs(proxySpanTaggingStrategyMock);
+        assertThat(sc.requestBodyBackpressure).isNull();
     }
 
     @Test
@@ -359,6 +423,35 @@ public class StreamingAsyncHttpClientTest {
         );
     }
 
+    @DataProvider(value = {
+        "false",
+        "true"
+    })
+    @Test
+    public void StreamingChannel_doStreamChunk_checks_request_body_backpressure_after_writing_non_last_chunks(
+        boolean chunkIsLastChunk
+    ) {
+        // given
+        ChannelBackpressure backpressureMock = mock(ChannelBackpressure.class);
+        StreamingChannel sc = new StreamingChannel(
+            channelMock, channelPoolMock, callActiveHolder, downstreamLastChunkSentHolder, null, null,
+            spanForDownstreamCallMock, proxySpanTaggingStrategyMock, backpressureMock
+        );
+        HttpContent chunk = (chunkIsLastChunk) ? mock(LastHttpContent.class) : contentChunkMock;
+        doReturn(writeAndFlushChannelFutureMock).when(channelMock).writeAndFlush(chunk);
+
+        // when
+        ChannelFuture result = sc.doStreamChunk(chunk);
+
+        // then
+        assertThat(result).isSameAs(writeAndFlushChannelFutureMock);
+        verify(channelMock).writeAndFlush(chunk);
+        if (chunkIsLastChunk)
+            verifyNoInteractions(backpressureMock);
+        else
+            verify(backpressureMock).pauseProducerIfConsumerUnwritable();
+    }
+
     @Test
     public void StreamingChannel_closeChannelDueToUnrecoverableError_calls_the_do_method_and_sets_field_to_true_when_not_closed_and_call_active() {
         // given
@@ -452,6 +545,32 @@ public class StreamingAsyncHttpClientTest {
 
     }
 
+    @Test
+    public void StreamingChannel_closeChannelForAbandonedCall_closes_the_channel_without_treating_it_as_an_unrecoverable_error() {
+        // given
+        Throwable abandonReason = new RuntimeException("another attempt was used instead");
+        streamingChannelSpy.channelClosedDueToUnrecoverableError = false;
+        streamingChannelSpy.callActiveHolder.heldObject = true;
+
+        // when
+        streamingChannelSpy.closeChannelForAbandonedCall(abandonReason);
+
+        // then
+        assertThat(streamingChannelSpy.channelClosedDueToUnrecoverableError).isTrue();
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(eventLoopMock).execute(taskCaptor.capture());
+
+        // and when
+        taskCaptor.getValue().run();
+
+        // then
+        verify(streamingChannelSpy).doCloseChannel(abandonReason, false);
+        verify(streamingChannelSpy, never()).doCloseChannelDueToUnrecoverableError(any(Throwable.class));
+        verify(channelIsBrokenAttrMock).set(true);
+        verifyChannelReleasedBackToPool(streamingChannelSpy.callActiveHolder, channelPoolMock, channelMock);
+        verify(channelMock).close();
+    }
+
     @DataProvider(value = {
             "80   | false | localhost | localhost",
             "80   | true  | localhost | localhost:80",
@@ -482,6 +601,64 @@ public class StreamingAsyncHttpClientTest {
         assertThat(request.headers().get(HOST)).isEqualTo(expectedHostHeader);
     }
 
+    @Test
+    public void resolveDownstreamAddress_does_blocking_lookup_if_async_dns_resolution_is_not_enabled() {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null, null, null, null
+        );
+
+        // when
+        Future<InetSocketAddress> result = impl.resolveDownstreamAddress("localhost", 8080);
+
+        // then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getNow().getAddress().isLoopbackAddress()).isTrue();
+        assertThat(result.getNow().getPort()).isEqualTo(8080);
+    }
+
+    @Test
+    public void streamDownstreamCall_fails_with_HostnameResolutionException_if_async_dns_resolution_fails() {
+        // given
+        @SuppressWarnings("unchecked")
+        AddressResolverGroup<InetSocketAddress> resolverGroupMock = mock(AddressResolverGroup.class);
+        @SuppressWarnings("unchecked")
+        AddressResolver<InetSocketAddress> resolverMock = mock(AddressResolver.class);
+        doReturn(resolverMock).when(resolverGroupMock).getResolver(any());
+        UnknownHostException resolutionError = new UnknownHostException("intentional test exception");
+        doReturn(ImmediateEventExecutor.INSTANCE.newFailedFuture(resolutionError)).when(resolverMock).resolveAll(any());
+        ProxyRouterDnsConfig dnsConfig = new ProxyRouterDnsConfig() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public @Nullable AddressResolverGroup<InetSocketAddress> customAddressResolverGroup() {
+                return resolverGroupMock;
+            }
+        };
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null, dnsConfig, null, null
+        );
+        ChannelHandlerContext ctx = mockChannelHandlerContext();
+        ProxyRouterProcessingState proxyState = ChannelAttributes.getProxyRouterProcessingStateForChannel(ctx).get();
+
+        // when
+        CompletableFuture<StreamingChannel> result = impl.streamDownstreamCall(
+            "does.not.exist", 80, new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, ""), false, false,
+            mock(StreamingCallback.class), 200, true, true, proxyState, mock(RequestInfo.class), ctx
+        );
+        Throwable ex = catchThrowable(() -> result.get(10, TimeUnit.SECONDS));
+
+        // then
+        assertThat(ex).isInstanceOf(ExecutionException.class);
+        assertThat(ex.getCause()).isInstanceOf(WrapperException.class);
+        assertThat(ex.getCause().getCause())
+            .isInstanceOf(HostnameResolutionException.class)
+            .hasCauseInstanceOf(UnknownHostException.class);
+    }
+
     private ChannelHandlerContext mockChannelHandlerContext() {
         ChannelHandlerContext mockContext = mock(ChannelHandlerContext.class);
         when(mockContext.channel()).thenReturn(mock(Channel.class));
@@ -645,6 +822,1148 @@ public class StreamingAsyncHttpClientTest {
         assertThat(result).isEqualTo(scenario.expectedResult);
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void pool_release_and_poll_hooks_turn_auto_read_back_on_for_channels_paused_by_backpressure(
+        boolean releasing
+    ) {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null
+        );
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setAutoRead(false);
+
+        // when
+        if (releasing)
+            impl.beforeChannelReleasedToPool(channel);
+        else
+            impl.afterChannelPolledFromPool(channel);
+
+        // then
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void generateClientBootstrap_applies_connect_timeout_and_channel_options_config() {
+        // given
+        WriteBufferWaterMark waterMark = new WriteBufferWaterMark(1024, 4096);
+        ChannelOptionsConfig channelOptionsConfig = new ChannelOptionsConfig() {
+            @Override
+            public boolean tcpNoDelay() {
+                return false;
+            }
+
+            @Override
+            public int soSndBuf() {
+                return 8192;
+            }
+
+            @Override
+            public @NotNull WriteBufferWaterMark writeBufferWaterMark() {
+                return waterMark;
+            }
+        };
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 4242, true, mock(DistributedTracingConfig.class), TransportType.NIO, channelOptionsConfig
+        );
+
+        // when
+        Bootstrap result = impl.generateClientBootstrap(mock(EventLoopGroup.class), NioSocketChannel.class);
+
+        // then
+        Map<ChannelOption<?>, Object> options = result.config().options();
+        assertThat(options.get(ChannelOption.CONNECT_TIMEOUT_MILLIS)).isEqualTo(4242);
+        assertThat(options.get(ChannelOption.TCP_NODELAY)).isEqualTo(false);
+        assertThat(options.get(ChannelOption.SO_SNDBUF)).isEqualTo(8192);
+        assertThat(options.get(ChannelOption.WRITE_BUFFER_WATER_MARK)).isSameAs(waterMark);
+        assertThat(options).doesNotContainKeys(ChannelOption.SO_BACKLOG, ChannelOption.SO_RCVBUF);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_channel_options_config() {
+        // given
+        ChannelOptionsConfig badConfig = new ChannelOptionsConfig() {
+            @Override
+            public int soBacklog() {
+                return 0;
+            }
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, badConfig
+        ));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shorter_constructors_use_the_defaults_for_the_args_they_do_not_take() {
+        // given
+        ProxyRouterDnsConfig dnsConfig = new ProxyRouterDnsConfig() {};
+
+        // when
+        StreamingAsyncHttpClient withTransport = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), TransportType.NIO
+        );
+        StreamingAsyncHttpClient withDnsConfig = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), TransportType.NIO, null, dnsConfig
+        );
+
+        // then
+        assertThat((Object) Whitebox.getInternalState(withTransport, "transportType")).isEqualTo(TransportType.NIO);
+        assertThat((Object) Whitebox.getInternalState(withTransport, "channelOptionsConfig"))
+            .isSameAs(ChannelOptionsConfig.DEFAULT_IMPL);
+        assertThat((Object) Whitebox.getInternalState(withTransport, "connectionPoolConfig"))
+            .isSameAs(ProxyRouterConnectionPoolConfig.DEFAULT_IMPL);
+
+        DownstreamAddressResolver resolver =
+            (DownstreamAddressResolver) Whitebox.getInternalState(withDnsConfig, "downstreamAddressResolver");
+        assertThat((Object) Whitebox.getInternalState(resolver, "dnsConfig")).isSameAs(dnsConfig);
+        assertThat((Object) Whitebox.getInternalState(withDnsConfig, "connectionPoolConfig"))
+            .isSameAs(ProxyRouterConnectionPoolConfig.DEFAULT_IMPL);
+    }
+
+    private static ProxyRouterConnectionPoolConfig boundedPoolConfig(
+        int maxConnections, int maxPendingAcquires, long acquireTimeoutMillis
+    ) {
+        return new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public int maxConnectionsPerHost() {
+                return maxConnections;
+            }
+
+            @Override
+            public int maxPendingAcquiresPerHost() {
+                return maxPendingAcquires;
+            }
+
+            @Override
+            public long acquireTimeoutMillis() {
+                return acquireTimeoutMillis;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        "0      |   1   |   1",
+        "-2     |   1   |   1",
+        "1      |   0   |   1",
+        "1      |   1   |   0",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_connection_pool_config(
+        int maxConnections, int maxPendingAcquires, long acquireTimeoutMillis
+    ) {
+        // given
+        ProxyRouterConnectionPoolConfig badConfig =
+            boundedPoolConfig(maxConnections, maxPendingAcquires, acquireTimeoutMillis);
+
+        // when
+        Throwable ex = catchThrowable(() -> new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null, null, badConfig, null
+        ));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Your ServerConfig.proxyRouterConnectionPoolConfig().");
+    }
+
+    @Test
+    public void validateConnectionPoolConfig_ignores_other_options_when_pools_are_unbounded() {
+        // given
+        ProxyRouterConnectionPoolConfig config = boundedPoolConfig(-1, 0, 0);
+
+        // expect
+        assertThat(StreamingAsyncHttpClient.validateConnectionPoolConfig(config)).isSameAs(config);
+        assertThat(StreamingAsyncHttpClient.validateConnectionPoolConfig(null))
+            .isSameAs(ProxyRouterConnectionPoolConfig.DEFAULT_IMPL);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void createChannelPool_creates_the_expected_pool_type_and_fires_pool_created_event(boolean bounded) {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null, null,
+            (bounded) ? boundedPoolConfig(42, 100, 1000) : null, metricsListenerMock
+        );
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080);
+        ArgumentCaptor<Object> statsCaptor = ArgumentCaptor.forClass(Object.class);
+
+        // when
+        SimpleChannelPool result = impl.createChannelPool(
+            address, mock(EventLoopGroup.class), NioSocketChannel.class
+        );
+
+        // then
+        if (bounded) {
+            assertThat(result).isInstanceOf(BoundedProxyRouterChannelPool.class);
+        }
+        else {
+            assertThat(result)
+                .isInstanceOf(ProxyRouterChannelPool.class)
+                .isNotInstanceOf(BoundedProxyRouterChannelPool.class);
+        }
+        verify(metricsListenerMock).onEvent(eq(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED), statsCaptor.capture());
+        DownstreamChannelPoolStats stats = (DownstreamChannelPoolStats) statsCaptor.getValue();
+        assertThat(stats.getPoolName()).isEqualTo(address.getAddress().getHostAddress() + ":8080");
+        assertThat(stats.getMaxConnections()).isEqualTo((bounded) ? 42 : -1);
+    }
+
+    @Test
+    public void bounded_pool_fails_fast_with_DownstreamConnectionPoolExhaustedException_when_exhausted()
+        throws Exception {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+            boundedPoolConfig(1, 1, 250), metricsListenerMock
+        );
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+        // The server socket's backlog accepts the connection even though we never call accept().
+        try (ServerSocket downstreamServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            InetSocketAddress address = new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), downstreamServer.getLocalPort()
+            );
+            SimpleChannelPool pool = impl.createChannelPool(address, eventLoopGroup, NioSocketChannel.class);
+            ArgumentCaptor<Object> statsCaptor = ArgumentCaptor.forClass(Object.class);
+            verify(metricsListenerMock).onEvent(
+                eq(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED), statsCaptor.capture()
+            );
+            DownstreamChannelPoolStats stats = (DownstreamChannelPoolStats) statsCaptor.getValue();
+
+            // when
+            Channel firstChannel = pool.acquire().get(10, TimeUnit.SECONDS);
+            Future<Channel> waitingAcquire = pool.acquire();
+            Future<Channel> rejectedAcquire = pool.acquire().await();
+
+            // then
+            assertThat(stats.getNumActiveChannels()).isEqualTo(1);
+            assertThat(stats.getNumChannelsCreated()).isEqualTo(1);
+            assertThat(rejectedAcquire.cause())
+                .isInstanceOf(DownstreamConnectionPoolExhaustedException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+            // and when
+            waitingAcquire.await();
+
+            // then
+            assertThat(waitingAcquire.cause())
+                .isInstanceOf(DownstreamConnectionPoolExhaustedException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+            DownstreamConnectionPoolExhaustedException ex =
+                (DownstreamConnectionPoolExhaustedException) waitingAcquire.cause();
+            assertThat(ex.poolName).isEqualTo(stats.getPoolName());
+            assertThat(ex.maxConnectionsPerHost).isEqualTo(1);
+            assertThat(ex.maxPendingAcquiresPerHost).isEqualTo(1);
+            assertThat(stats.getNumAcquiresRejected()).isEqualTo(2);
+            assertThat(stats.getNumPendingAcquires()).isEqualTo(0);
+            verify(metricsListenerMock, times(2)).onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_ACQUIRE_REJECTED, stats);
+
+            // and when
+            pool.release(firstChannel).await();
+
+            // then
+            assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+            assertThat(stats.getNumIdleChannels()).isEqualTo(1);
+            assertThat(pool.acquire().get(10, TimeUnit.SECONDS)).isSameAs(firstChannel);
+            assertThat(stats.getNumIdleChannels()).isEqualTo(0);
+            assertThat(stats.getNumChannelsCreated()).isEqualTo(1);
+        }
+        finally {
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ProxyRouterConnectionPoolConfig logicalHostPoolConfig(
+        boolean poolPerLogicalHostEnabled, long addressRefreshIntervalMillis, @Nullable List<URI> prewarmTargets,
+        int prewarmConnectionsPerTarget
+    ) {
+        return new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public boolean isPoolPerLogicalHostEnabled() {
+                return poolPerLogicalHostEnabled;
+            }
+
+            @Override
+            public long addressRefreshIntervalMillis() {
+                return addressRefreshIntervalMillis;
+            }
+
+            @Override
+            public @Nullable List<URI> prewarmTargets() {
+                return prewarmTargets;
+            }
+
+            @Override
+            public int prewarmConnectionsPerTarget() {
+                return prewarmConnectionsPerTarget;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        "true   |   0       |   http://some.host        |   1",
+        "true   |   -1      |   null                    |   1",
+        "false  |   1000    |   http://some.host        |   0",
+        "false  |   1000    |   ftp://some.host         |   1",
+        "false  |   1000    |   /no/scheme/or/host      |   1",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_logical_host_or_prewarm_config(
+        boolean poolPerLogicalHostEnabled, long addressRefreshIntervalMillis, String prewarmTarget,
+        int prewarmConnectionsPerTarget
+    ) {
+        // given
+        ProxyRouterConnectionPoolConfig badConfig = logicalHostPoolConfig(
+            poolPerLogicalHostEnabled, addressRefreshIntervalMillis,
+            (prewarmTarget == null) ? null : Collections.singletonList(URI.create(prewarmTarget)),
+            prewarmConnectionsPerTarget
+        );
+
+        // when
+        Throwable ex = catchThrowable(() -> new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null, null, badConfig, null
+        ));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Your ServerConfig.proxyRouterConnectionPoolConfig().");
+    }
+
+    private static ProxyRouterOutlierDetectionConfig outlierDetectionConfig(
+        boolean enabled, int consecutiveFailuresToEject, double latencyOutlierMultiplier, long baseEjectionTimeMillis,
+        long maxEjectionTimeMillis, int maxEjectionPercent
+    ) {
+        return new ProxyRouterOutlierDetectionConfig() {
+            @Override
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            @Override
+            public int consecutiveFailuresToEject() {
+                return consecutiveFailuresToEject;
+            }
+
+            @Override
+            public double latencyOutlierMultiplier() {
+                return latencyOutlierMultiplier;
+            }
+
+            @Override
+            public long baseEjectionTimeMillis() {
+                return baseEjectionTimeMillis;
+            }
+
+            @Override
+            public long maxEjectionTimeMillis() {
+                return maxEjectionTimeMillis;
+            }
+
+            @Override
+            public int maxEjectionPercent() {
+                return maxEjectionPercent;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        "0  |   3.0     |   1000    |   2000    |   50",
+        "5  |   0.5     |   1000    |   2000    |   50",
+        "5  |   3.0     |   0       |   2000    |   50",
+        "5  |   3.0     |   1000    |   999     |   50",
+        "5  |   3.0     |   1000    |   2000    |   -1",
+        "5  |   3.0     |   1000    |   2000    |   101",
+    }, splitBy = "\\|")
+    @Test
+    public void validateConnectionPoolConfig_throws_IllegalArgumentException_for_invalid_outlier_detection_config(
+        int consecutiveFailuresToEject, double latencyOutlierMultiplier, long baseEjectionTimeMillis,
+        long maxEjectionTimeMillis, int maxEjectionPercent
+    ) {
+        // given
+        ProxyRouterOutlierDetectionConfig badOutlierConfig = outlierDetectionConfig(
+            true, consecutiveFailuresToEject, latencyOutlierMultiplier, baseEjectionTimeMillis, maxEjectionTimeMillis,
+            maxEjectionPercent
+        );
+        ProxyRouterConnectionPoolConfig badConfig = new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig() {
+                return badOutlierConfig;
+            }
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> StreamingAsyncHttpClient.validateConnectionPoolConfig(badConfig));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Your ServerConfig.proxyRouterConnectionPoolConfig().outlierDetectionConfig().");
+    }
+
+    @DataProvider(value = {
+        "true   |   0   |   100",
+        "true   |   0   |   0",
+        "false  |   -1  |   100",
+    }, splitBy = "\\|")
+    @Test
+    public void validateConnectionPoolConfig_accepts_valid_or_disabled_outlier_detection_config(
+        boolean enabled, int consecutiveFailuresToEject, int maxEjectionPercent
+    ) {
+        // given
+        // A latencyOutlierMultiplier of 0 disables latency based ejection, and a disabled config isn't validated.
+        ProxyRouterOutlierDetectionConfig outlierConfig = outlierDetectionConfig(
+            enabled, (enabled) ? 5 : consecutiveFailuresToEject, 0, 1000, 1000, maxEjectionPercent
+        );
+        ProxyRouterConnectionPoolConfig config = new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig() {
+                return outlierConfig;
+            }
+        };
+
+        // expect
+        assertThat(StreamingAsyncHttpClient.validateConnectionPoolConfig(config)).isSameAs(config);
+    }
+
+    @Test
+    public void validateConnectionPoolConfig_ignores_logical_host_and_prewarm_options_when_they_are_not_used() {
+        // given
+        ProxyRouterConnectionPoolConfig config = logicalHostPoolConfig(false, 0, Collections.emptyList(), 0);
+
+        // expect
+        assertThat(StreamingAsyncHttpClient.validateConnectionPoolConfig(config)).isSameAs(config);
+    }
+
+    private static ProxyRouterConnectionPoolConfig http2PoolConfig(
+        boolean enabled, boolean alpnNegotiationEnabled, @Nullable List<URI> priorKnowledgeTargets,
+        int maxConnectionsPerHost, int maxConcurrentStreamsPerConnection, int initialWindowSize
+    ) {
+        ProxyRouterHttp2Config http2Config = new ProxyRouterHttp2Config() {
+            @Override
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            @Override
+            public boolean isAlpnNegotiationEnabled() {
+                return alpnNegotiationEnabled;
+            }
+
+            @Override
+            public @Nullable List<URI> priorKnowledgeTargets() {
+                return priorKnowledgeTargets;
+            }
+
+            @Override
+            public int maxConnectionsPerHost() {
+                return maxConnectionsPerHost;
+            }
+
+            @Override
+            public int maxConcurrentStreamsPerConnection() {
+                return maxConcurrentStreamsPerConnection;
+            }
+
+            @Override
+            public int initialWindowSize() {
+                return initialWindowSize;
+            }
+        };
+        return new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public @Nullable ProxyRouterHttp2Config http2Config() {
+                return http2Config;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        "0  |   100 |   65535   |   null",
+        "2  |   0   |   65535   |   null",
+        "2  |   100 |   -1      |   null",
+        "2  |   100 |   65535   |   ftp://some.host",
+        "2  |   100 |   65535   |   /no/scheme/or/host",
+    }, splitBy = "\\|")
+    @Test
+    public void validateConnectionPoolConfig_throws_IllegalArgumentException_for_invalid_http2_config(
+        int maxConnectionsPerHost, int maxConcurrentStreamsPerConnection, int initialWindowSize,
+        String priorKnowledgeTarget
+    ) {
+        // given
+        ProxyRouterConnectionPoolConfig badConfig = http2PoolConfig(
+            true, true,
+            (priorKnowledgeTarget == null) ? null : Collections.singletonList(URI.create(priorKnowledgeTarget)),
+            maxConnectionsPerHost, maxConcurrentStreamsPerConnection, initialWindowSize
+        );
+
+        // when
+        Throwable ex = catchThrowable(() -> StreamingAsyncHttpClient.validateConnectionPoolConfig(badConfig));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Your ServerConfig.proxyRouterConnectionPoolConfig().http2Config().");
+    }
+
+    @Test
+    public void validateConnectionPoolConfig_does_not_validate_a_disabled_http2_config() {
+        // given
+        ProxyRouterConnectionPoolConfig config = http2PoolConfig(
+            false, true, Collections.singletonList(URI.create("ftp://some.host")), 0, 0, -1
+        );
+
+        // expect
+        assertThat(StreamingAsyncHttpClient.validateConnectionPoolConfig(config)).isSameAs(config);
+    }
+
+    @DataProvider(value = {
+        "false      |   true    |   true    |   443     |   false",
+        "false      |   true    |   false   |   8080    |   false",
+        "true       |   true    |   true    |   443     |   true",
+        "true       |   false   |   true    |   443     |   false",
+        "true       |   true    |   false   |   80      |   false",
+        "true       |   false   |   false   |   8080    |   true",
+        "true       |   false   |   true    |   8080    |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void isHttp2CandidateTarget_uses_alpn_for_https_targets_and_prior_knowledge_for_the_rest(
+        boolean enabled, boolean alpnNegotiationEnabled, boolean isSecureHttpsCall, int port, boolean expectedResult
+    ) {
+        // given
+        ProxyRouterConnectionPoolConfig config = http2PoolConfig(
+            enabled, alpnNegotiationEnabled, Collections.singletonList(URI.create("http://some.host:8080")), 2, 100,
+            65535
+        );
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null, config, null
+        );
+
+        // expect
+        assertThat(impl.isHttp2CandidateTarget("some.host", port, isSecureHttpsCall)).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void close_closes_the_pools_and_shuts_down_the_event_loop_group_they_use() {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+            http2PoolConfig(true, true, null, 2, 100, 65535), null
+        );
+        Http2DownstreamChannelPool http2Pool = impl.getHttp2PoolMap().get(
+            new Http2PoolKey("some.host", 443, true, false)
+        );
+        assertThat(http2Pool.timeoutExecutorGroup.isShuttingDown()).isFalse();
+
+        // when
+        impl.close();
+
+        // then
+        assertThat(http2Pool.acquire().cause())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Http2DownstreamChannelPool was closed");
+        assertThat(http2Pool.timeoutExecutorGroup.isShuttingDown()).isTrue();
+    }
+
+    @Test
+    public void close_does_nothing_to_pools_that_were_never_created() {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null, null, null
+        );
+
+        // when
+        Throwable ex = catchThrowable(() -> {
+            impl.close();
+            impl.close();
+        });
+
+        // then
+        assertThat(ex).isNull();
+    }
+
+    @Test
+    public void Http2PoolKey_includes_the_https_validation_mode_in_equals_and_toString() {
+        // given
+        Http2PoolKey strictKey = new Http2PoolKey("some.host", 443, true, false);
+        Http2PoolKey relaxedKey = new Http2PoolKey("some.host", 443, true, true);
+
+        // expect
+        assertThat(strictKey).isEqualTo(new Http2PoolKey("some.host", 443, true, false));
+        assertThat(strictKey.hashCode()).isEqualTo(new Http2PoolKey("some.host", 443, true, false).hashCode());
+        assertThat(strictKey).isNotEqualTo(relaxedKey);
+        assertThat(strictKey.toString()).isEqualTo("h2-some.host:443");
+        assertThat(relaxedKey.toString()).isEqualTo("h2-some.host:443-relaxed");
+        assertThat(new Http2PoolKey("some.host", 8080, false, false).toString()).isEqualTo("h2c-some.host:8080");
+    }
+
+    @Test
+    public void getPoolForDownstreamCall_multiplexes_calls_to_prior_knowledge_targets_over_h2c() throws Exception {
+        // given
+        NioEventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        try {
+            Channel serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(Http2FrameCodecBuilder.forServer().build());
+                        ch.pipeline().addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+                    }
+                })
+                .bind(InetAddress.getLoopbackAddress(), 0)
+                .sync()
+                .channel();
+            String host = InetAddress.getLoopbackAddress().getHostAddress();
+            int port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+            StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+                0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+                http2PoolConfig(
+                    true, true, Collections.singletonList(URI.create("http://" + host + ":" + port)), 1, 100, 65535
+                ),
+                null
+            );
+
+            // when
+            ChannelPool pool = impl.getPoolForDownstreamCall(host, port, false).get(10, TimeUnit.SECONDS);
+            Channel firstStream = pool.acquire().get(10, TimeUnit.SECONDS);
+            Channel secondStream = pool.acquire().get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(pool).isInstanceOf(Http2DownstreamChannelPool.class);
+            assertThat(((Http2DownstreamChannelPool) pool).getNumConnections()).isEqualTo(1);
+            assertThat(firstStream).isInstanceOf(Http2StreamChannel.class);
+            assertThat(secondStream).isInstanceOf(Http2StreamChannel.class);
+            assertThat(firstStream.parent()).isSameAs(secondStream.parent());
+            firstStream.eventLoop().parent().shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+        finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ProxyRouterConnectionPoolConfig eventLoopAffinityPoolConfig(
+        boolean eventLoopAffinityEnabled, boolean poolPerLogicalHostEnabled
+    ) {
+        return new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public boolean isEventLoopAffinityEnabled() {
+                return eventLoopAffinityEnabled;
+            }
+
+            @Override
+            public boolean isPoolPerLogicalHostEnabled() {
+                return poolPerLogicalHostEnabled;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        "true   |   false   |   true    |   true",
+        "false  |   false   |   true    |   false",
+        "true   |   true    |   true    |   false",
+        "true   |   false   |   false   |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void isEventLoopAffinityCandidate_works_as_expected(
+        boolean affinityEnabled, boolean poolPerLogicalHostEnabled, boolean incomingIsSocket, boolean expectedResult
+    ) {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+            eventLoopAffinityPoolConfig(affinityEnabled, poolPerLogicalHostEnabled), null
+        );
+        Channel incomingChannel = (incomingIsSocket) ? new NioSocketChannel() : new EmbeddedChannel();
+        ChannelHandlerContext ctxMock = mock(ChannelHandlerContext.class);
+        doReturn(incomingChannel).when(ctxMock).channel();
+
+        try {
+            // expect
+            assertThat(impl.isEventLoopAffinityCandidate("some.host", 8080, false, ctxMock))
+                .isEqualTo(expectedResult);
+            assertThat(impl.isEventLoopAffinityCandidate("some.host", 8080, false, null)).isFalse();
+        }
+        finally {
+            incomingChannel.unsafe().closeForcibly();
+        }
+    }
+
+    @Test
+    public void EventLoopPoolKey_uses_the_event_loop_identity_in_equals() {
+        // given
+        EventLoop otherEventLoopMock = mock(EventLoop.class);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080);
+        EventLoopPoolKey key = new EventLoopPoolKey(eventLoopMock, address, NioSocketChannel.class);
+
+        // expect
+        assertThat(key).isEqualTo(new EventLoopPoolKey(eventLoopMock, address, NioSocketChannel.class));
+        assertThat(key.hashCode())
+            .isEqualTo(new EventLoopPoolKey(eventLoopMock, address, NioSocketChannel.class).hashCode());
+        assertThat(key).isNotEqualTo(new EventLoopPoolKey(otherEventLoopMock, address, NioSocketChannel.class));
+    }
+
+    @Test
+    public void EventLoopPoolKey_toString_uses_the_event_loops_position_in_its_group() {
+        // given
+        DefaultEventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(3);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 8080);
+        String poolName = DownstreamChannelPoolStats.poolNameFor(address);
+        try {
+            List<EventLoop> eventLoops = new ArrayList<>();
+            eventLoopGroup.forEach(executor -> eventLoops.add((EventLoop) executor));
+
+            // expect
+            for (int i = 0; i < eventLoops.size(); i++) {
+                assertThat(new EventLoopPoolKey(eventLoops.get(i), address, NioSocketChannel.class).toString())
+                    .isEqualTo(poolName + "@" + i);
+            }
+            // An event loop without a parent group has no position.
+            assertThat(new EventLoopPoolKey(eventLoopMock, address, NioSocketChannel.class).toString())
+                .isEqualTo(poolName);
+        }
+        finally {
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void getEventLoopPoolForDownstreamCall_uses_a_pool_on_the_incoming_channels_event_loop() throws Exception {
+        // given
+        NioEventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        // Stands in for the server's worker event loops - each incoming channel gets its own event loop.
+        NioEventLoopGroup incomingGroup = new NioEventLoopGroup(2);
+        try {
+            Channel serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(InetAddress.getLoopbackAddress(), 0)
+                .sync()
+                .channel();
+            String host = InetAddress.getLoopbackAddress().getHostAddress();
+            int port = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+            Bootstrap incomingBootstrap = new Bootstrap()
+                .group(incomingGroup)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+            Channel firstIncomingChannel = incomingBootstrap.connect(host, port).sync().channel();
+            Channel secondIncomingChannel = incomingBootstrap.connect(host, port).sync().channel();
+            assertThat(firstIncomingChannel.eventLoop()).isNotSameAs(secondIncomingChannel.eventLoop());
+            StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+                0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+                eventLoopAffinityPoolConfig(true, false), null
+            );
+
+            // when
+            ChannelPool firstPool =
+                impl.getEventLoopPoolForDownstreamCall(host, port, firstIncomingChannel).get(10, TimeUnit.SECONDS);
+            ChannelPool secondPool =
+                impl.getEventLoopPoolForDownstreamCall(host, port, secondIncomingChannel).get(10, TimeUnit.SECONDS);
+            ChannelPool firstPoolAgain =
+                impl.getEventLoopPoolForDownstreamCall(host, port, firstIncomingChannel).get(10, TimeUnit.SECONDS);
+            Channel downstreamChannel = firstPool.acquire().get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(firstPool).isNotSameAs(secondPool);
+            assertThat(firstPoolAgain).isSameAs(firstPool);
+            assertThat(downstreamChannel).isInstanceOf(NioSocketChannel.class);
+            assertThat(downstreamChannel.eventLoop()).isSameAs(firstIncomingChannel.eventLoop());
+        }
+        finally {
+            incomingGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void getEventLoopPoolForDownstreamCall_fails_if_the_incoming_channels_transport_is_unknown() {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+            eventLoopAffinityPoolConfig(true, false), null
+        );
+
+        // when
+        Future<ChannelPool> result = impl.getEventLoopPoolForDownstreamCall("some.host", 8080, new EmbeddedChannel());
+
+        // then
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void createLogicalHostChannelPool_connects_to_the_hosts_current_addresses_and_drains_stale_connections(
+        boolean bounded
+    ) throws Exception {
+        // given
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        ProxyRouterConnectionPoolConfig config = (bounded)
+                                                 ? boundedPoolConfig(42, 100, 1000)
+                                                 : logicalHostPoolConfig(true, 60_000, null, 1);
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null, config, metricsListenerMock
+        );
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+        try (ServerSocket downstreamServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            InetSocketAddress address = new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), downstreamServer.getLocalPort()
+            );
+            String host = address.getAddress().getHostAddress();
+            LogicalHostPoolKey key = new LogicalHostPoolKey(host, address.getPort(), false);
+
+            // when
+            SimpleChannelPool pool = impl.createLogicalHostChannelPool(key, eventLoopGroup, NioSocketChannel.class);
+            DownstreamHostAddresses hostAddresses = ((ProxyRouterPool) pool).getHostAddresses();
+            DownstreamChannelPoolStats stats = ((ProxyRouterPool) pool).getPoolStats();
+            hostAddresses.ready().get(10, TimeUnit.SECONDS);
+            Channel channel = pool.acquire().get(10, TimeUnit.SECONDS);
+
+            // then
+            assertThat(pool).isInstanceOf((bounded) ? BoundedProxyRouterChannelPool.class : ProxyRouterChannelPool.class);
+            verify(metricsListenerMock).onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED, stats);
+            assertThat(stats.getPoolName()).isEqualTo("http-" + host + ":" + address.getPort());
+            assertThat(hostAddresses.getAddresses()).containsExactly(address);
+            assertThat(channel.remoteAddress()).isEqualTo(address);
+
+            // and when
+            hostAddresses.updateAddresses(Collections.singletonList(
+                new InetSocketAddress(InetAddress.getByName("10.0.0.1"), address.getPort())
+            ));
+            pool.release(channel).await();
+
+            // then
+            assertThat(channel.closeFuture().await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(stats.getNumIdleChannels()).isEqualTo(0);
+            assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+        }
+        finally {
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void createLogicalHostChannelPool_sets_up_outlier_detection_only_if_enabled(boolean enabled) {
+        // given
+        ProxyRouterOutlierDetectionConfig outlierConfig = outlierDetectionConfig(enabled, 5, 3.0, 1000, 2000, 50);
+        ProxyRouterConnectionPoolConfig config = new ProxyRouterConnectionPoolConfig() {
+            @Override
+            public boolean isPoolPerLogicalHostEnabled() {
+                return true;
+            }
+
+            @Override
+            public @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig() {
+                return outlierConfig;
+            }
+        };
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null, config, null
+        );
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+        try {
+            LogicalHostPoolKey key = new LogicalHostPoolKey("some.host", 443, true);
+
+            // when
+            SimpleChannelPool pool = impl.createLogicalHostChannelPool(key, eventLoopGroup, NioSocketChannel.class);
+
+            // then
+            DownstreamOutlierDetector outlierDetector = StreamingAsyncHttpClient.getOutlierDetector(pool);
+            if (enabled) {
+                assertThat(outlierDetector).isNotNull();
+                assertThat(outlierDetector.getHostname()).isEqualTo("some.host");
+            }
+            else {
+                assertThat(outlierDetector).isNull();
+            }
+        }
+        finally {
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void closing_a_logical_host_pool_cancels_its_address_refresh_and_close_shuts_down_the_refresh_scheduler(
+        boolean bounded
+    ) {
+        // given
+        ProxyRouterConnectionPoolConfig config = (bounded)
+                                                 ? boundedPoolConfig(42, 100, 1000)
+                                                 : logicalHostPoolConfig(true, 60_000, null, 1);
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null, config, null
+        );
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+        try {
+            LogicalHostPoolKey key = new LogicalHostPoolKey("some.host", 443, true);
+            SimpleChannelPool pool = impl.createLogicalHostChannelPool(key, eventLoopGroup, NioSocketChannel.class);
+            DownstreamHostAddresses hostAddresses = ((ProxyRouterPool) pool).getHostAddresses();
+            ScheduledFuture<?> refreshTask = hostAddresses.refreshTask;
+            assertThat((Object) refreshTask).isNotNull();
+            assertThat(refreshTask.isCancelled()).isFalse();
+
+            // when
+            pool.close();
+
+            // then
+            assertThat(refreshTask.isCancelled()).isTrue();
+            assertThat(hostAddresses.isClosed()).isTrue();
+
+            // and when
+            impl.close();
+
+            // then
+            assertThat(impl.getAddressRefreshScheduler().isShutdown()).isTrue();
+        }
+        finally {
+            impl.close();
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void prewarmConnections_adds_the_requested_number_of_connections_to_the_pools(
+        boolean poolPerLogicalHostEnabled
+    ) throws Exception {
+        try (ServerSocket downstreamServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            // given
+            String host = InetAddress.getLoopbackAddress().getHostAddress();
+            int port = downstreamServer.getLocalPort();
+            StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+                0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+                logicalHostPoolConfig(
+                    poolPerLogicalHostEnabled, 60_000,
+                    Collections.singletonList(URI.create("http://" + host + ":" + port + "/some/path")), 3
+                ),
+                null
+            );
+
+            // when
+            impl.prewarmConnections().get(10, TimeUnit.SECONDS);
+
+            // then
+            ChannelPool pool = impl.getPoolForDownstreamCall(host, port, false).get(10, TimeUnit.SECONDS);
+            DownstreamChannelPoolStats stats = ((ProxyRouterPool) pool).getPoolStats();
+            assertThat(stats.getNumChannelsCreated()).isEqualTo(3);
+            assertThat(stats.getNumIdleChannels()).isEqualTo(3);
+            assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+
+            Channel channel = pool.acquire().get(10, TimeUnit.SECONDS);
+            assertThat(stats.getNumChannelsCreated()).isEqualTo(3);
+            channel.eventLoop().parent().shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void prewarmConnections_warms_the_pool_for_each_resolved_address_when_pooling_per_ip_address()
+        throws Exception {
+        try (ServerSocket firstServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             ServerSocket secondServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            // given
+            InetSocketAddress firstAddress =
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), firstServer.getLocalPort());
+            InetSocketAddress secondAddress =
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), secondServer.getLocalPort());
+            StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+                0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+                logicalHostPoolConfig(
+                    false, 60_000, Collections.singletonList(URI.create("http://some-multi-address-host")), 2
+                ),
+                null
+            );
+            DownstreamAddressResolver resolverMock = mock(DownstreamAddressResolver.class);
+            List<InetSocketAddress> resolvedAddresses = new ArrayList<>();
+            resolvedAddresses.add(firstAddress);
+            resolvedAddresses.add(secondAddress);
+            doReturn(ImmediateEventExecutor.INSTANCE.newSucceededFuture(resolvedAddresses))
+                .when(resolverMock).resolveAll("some-multi-address-host", 80);
+            Whitebox.setInternalState(impl, "downstreamAddressResolver", resolverMock);
+
+            // when
+            impl.prewarmConnections().get(10, TimeUnit.SECONDS);
+
+            // then
+            for (InetSocketAddress address : resolvedAddresses) {
+                DownstreamChannelPoolStats stats =
+                    ((ProxyRouterPool) impl.getPooledChannelFuture(address)).getPoolStats();
+                assertThat(stats.getNumChannelsCreated()).isEqualTo(2);
+                assertThat(stats.getNumIdleChannels()).isEqualTo(2);
+                assertThat(stats.getNumActiveChannels()).isEqualTo(0);
+            }
+        }
+    }
+
+    @Test
+    public void prewarmConnections_logs_failures_instead_of_throwing_them() throws Exception {
+        // given
+        int closedPort;
+        try (ServerSocket unusedServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            closedPort = unusedServer.getLocalPort();
+        }
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            0, 2000, true, mock(DistributedTracingConfig.class), null, null, null,
+            logicalHostPoolConfig(
+                true, 60_000, Collections.singletonList(URI.create("http://" + host + ":" + closedPort)), 2
+            ),
+            null
+        );
+
+        // when
+        CompletableFuture<Void> result = impl.prewarmConnections();
+
+        // then
+        result.get(10, TimeUnit.SECONDS);
+        assertThat(result).isCompleted().isNotCompletedExceptionally();
+        ChannelPool pool = impl.getPoolForDownstreamCall(host, closedPort, false).get(10, TimeUnit.SECONDS);
+        assertThat(((ProxyRouterPool) pool).getPoolStats().getNumIdleChannels()).isEqualTo(0);
+    }
+
+    @Test
+    public void prewarmConnections_does_nothing_if_there_are_no_prewarm_targets() {
+        // given
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(
+            200, 200, true, mock(DistributedTracingConfig.class), null, null, null, null, null
+        );
+
+        // expect
+        assertThat(impl.prewarmConnections()).isCompleted();
+    }
+
+    private static class HedgedAttemptChannel {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final StreamingChannel streamingChannelMock = mock(StreamingChannel.class);
+        final Span span;
+
+        HedgedAttemptChannel(Span span) {
+            this.span = span;
+        }
+    }
+
+    @Test
+    public void prepChannelForDownstreamCall_keeps_the_losing_attempt_out_of_the_shared_state_when_the_second_attempt_wins()
+        throws Exception {
+        // given
+        DummyProxyRouterSpanNamingAndTaggingStrategy taggingStrategySpy = spy(
+            new DummyProxyRouterSpanNamingAndTaggingStrategy("some-span-name", null)
+        );
+        DistributedTracingConfig<Span> tracingConfigMock = mock(DistributedTracingConfig.class);
+        doReturn(taggingStrategySpy).when(tracingConfigMock).getProxyRouterSpanNamingAndTaggingStrategy();
+        StreamingAsyncHttpClient impl = new StreamingAsyncHttpClient(200, 200, true, tracingConfigMock);
+
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path");
+        ProxyRouterProcessingState proxyState = new ProxyRouterProcessingState();
+        proxyState.setDistributedTracingConfig(tracingConfigMock);
+        proxyState.setProxyHttpRequest(request);
+
+        DownstreamOutlierDetector outlierDetectorMock = mock(DownstreamOutlierDetector.class);
+        DownstreamHostAddresses hostAddressesMock = mock(DownstreamHostAddresses.class);
+        doReturn(outlierDetectorMock).when(hostAddressesMock).getOutlierDetector();
+        ChannelPool poolMock = mock(ChannelPool.class, withSettings().extraInterfaces(ProxyRouterPool.class));
+        doReturn(hostAddressesMock).when((ProxyRouterPool) poolMock).getHostAddresses();
+
+        Span overallRequestSpan = Span.newBuilder("overall-request", Span.SpanPurpose.SERVER).build();
+        List<HedgedAttemptChannel> attemptChannels = new ArrayList<>();
+        RetryingDownstreamCall.AttemptStarter attemptStarter = (firstChunk, attemptCallback) -> {
+            HedgedAttemptChannel attemptChannel = new HedgedAttemptChannel(
+                Span.newBuilder("attempt-" + (attemptChannels.size() + 1), Span.SpanPurpose.CLIENT).build()
+            );
+            attemptChannels.add(attemptChannel);
+            ObjectHolder<Boolean> callActiveHolder = new ObjectHolder<>();
+            callActiveHolder.heldObject = true;
+            ObjectHolder<Boolean> lastChunkSentDownstreamHolder = new ObjectHolder<>();
+            lastChunkSentDownstreamHolder.heldObject = false;
+            impl.prepChannelForDownstreamCall(
+                "some.host", 8080, poolMock, attemptChannel.channel, attemptCallback,
+                new ArrayDeque<>(Arrays.asList(attemptChannel.span, overallRequestSpan)), null, false, false, true,
+                5000, callActiveHolder, lastChunkSentDownstreamHolder, proxyState, attemptChannel.span
+            );
+            return CompletableFuture.completedFuture(attemptChannel.streamingChannelMock);
+        };
+
+        DownstreamRetryPolicy retryPolicy = new DownstreamRetryPolicy(2, new RetryBudget(), 50, 0);
+        for (int i = 0; i < DownstreamRetryPolicy.MIN_RESPONSE_TIMES_FOR_HEDGING; i++) {
+            retryPolicy.recordResponseTime(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        StreamingCallback callbackMock = mock(StreamingCallback.class);
+        ScheduledExecutorService hedgeSchedulerMock = mock(ScheduledExecutorService.class);
+        RetryingDownstreamCall call = new RetryingDownstreamCall(
+            retryPolicy, request, callbackMock, attemptStarter, hedgeSchedulerMock, null
+        );
+
+        CompletableFuture<StreamingChannel> callFuture = call.start();
+        ArgumentCaptor<Runnable> hedgeCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(hedgeSchedulerMock).schedule(hedgeCaptor.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+        hedgeCaptor.getValue().run();
+        assertThat(attemptChannels).hasSize(2);
+        HedgedAttemptChannel firstAttempt = attemptChannels.get(0);
+        HedgedAttemptChannel secondAttempt = attemptChannels.get(1);
+
+        // when
+        secondAttempt.channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        secondAttempt.channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        firstAttempt.channel.writeInbound(
+            new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE)
+        );
+        firstAttempt.channel.close();
+
+        // then
+        assertThat(callFuture).isCompletedWithValue(secondAttempt.streamingChannelMock);
+        verify(firstAttempt.streamingChannelMock).closeChannelForAbandonedCall(any(Throwable.class));
+        verify(firstAttempt.streamingChannelMock, never()).closeChannelDueToUnrecoverableError(any(Throwable.class));
+
+        // The shared state only has the winner's outcome, and the winner's span was tagged with it.
+        HttpResponse sharedResponse = proxyState.getProxyHttpResponse();
+        assertThat(sharedResponse.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(proxyState.getProxyError()).isNull();
+        verify(taggingStrategySpy).doHandleResponseTaggingAndFinalSpanName(
+            secondAttempt.span, request, sharedResponse, null
+        );
+
+        // The loser's span was tagged with its own response and error.
+        ArgumentCaptor<HttpResponse> loserResponseCaptor = ArgumentCaptor.forClass(HttpResponse.class);
+        ArgumentCaptor<Throwable> loserErrorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(taggingStrategySpy).doHandleResponseTaggingAndFinalSpanName(
+            eq(firstAttempt.span), eq(request), loserResponseCaptor.capture(), loserErrorCaptor.capture()
+        );
+        assertThat(loserResponseCaptor.getValue().status()).isEqualTo(HttpResponseStatus.SERVICE_UNAVAILABLE);
+        assertThat(loserErrorCaptor.getValue()).isInstanceOf(DownstreamChannelClosedUnexpectedlyException.class);
+
+        // Only the winner's response made it to the caller, and abandoning the loser isn't counted as a failure.
+        verify(callbackMock).messageReceived(sharedResponse);
+        verify(callbackMock, never()).unrecoverableErrorOccurred(any(Throwable.class), anyBoolean());
+        verify(outlierDetectorMock, never()).recordFailure(any());
+    }
+
     private static class DummyProxyRouterSpanNamingAndTaggingStrategy extends ProxyRouterSpanNamingAndTaggingStrategy<Span> {
 
         public final String initialSpanName;
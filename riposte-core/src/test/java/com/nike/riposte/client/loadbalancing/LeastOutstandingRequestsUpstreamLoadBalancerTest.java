@@ -0,0 +1,74 @@
+package com.nike.riposte.client.loadbalancing;
+
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link LeastOutstandingRequestsUpstreamLoadBalancer}.
+ */
+@RunWith(DataProviderRunner.class)
+public class LeastOutstandingRequestsUpstreamLoadBalancerTest {
+
+    private final LeastOutstandingRequestsUpstreamLoadBalancer loadBalancer =
+        new LeastOutstandingRequestsUpstreamLoadBalancer();
+
+    private UpstreamTarget targetWithOutstandingRequests(String host, int numOutstanding) {
+        UpstreamTarget target = new UpstreamTarget(host, 8080);
+        for (int i = 0; i < numOutstanding; i++) {
+            target.callStarted();
+        }
+        return target;
+    }
+
+    @Test
+    public void choose_picks_the_target_with_the_fewest_outstanding_requests() {
+        // given
+        UpstreamTarget leastBusy = targetWithOutstandingRequests("host2", 1);
+        List<UpstreamTarget> targets = Arrays.asList(
+            targetWithOutstandingRequests("host1", 5), leastBusy, targetWithOutstandingRequests("host3", 3)
+        );
+
+        // expect
+        for (int i = 0; i < 20; i++) {
+            assertThat(loadBalancer.choose(targets)).isSameAs(leastBusy);
+        }
+    }
+
+    @Test
+    public void choose_spreads_ties_across_the_tied_targets() {
+        // given
+        List<UpstreamTarget> targets = Arrays.asList(
+            targetWithOutstandingRequests("host1", 0),
+            targetWithOutstandingRequests("host2", 0),
+            targetWithOutstandingRequests("host3", 0)
+        );
+        Set<UpstreamTarget> chosen = new HashSet<>();
+
+        // when
+        for (int i = 0; i < 500; i++) {
+            chosen.add(loadBalancer.choose(targets));
+        }
+
+        // then
+        assertThat(chosen).containsExactlyInAnyOrderElementsOf(targets);
+    }
+
+    @Test
+    public void choose_returns_the_only_target_when_there_is_just_one() {
+        // given
+        UpstreamTarget target = targetWithOutstandingRequests("host1", 10);
+
+        // expect
+        assertThat(loadBalancer.choose(Collections.singletonList(target))).isSameAs(target);
+    }
+}
@@ -0,0 +1,141 @@
+package com.nike.riposte.client.loadbalancing;
+
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link PowerOfTwoChoicesUpstreamLoadBalancer}.
+ */
+@RunWith(DataProviderRunner.class)
+public class PowerOfTwoChoicesUpstreamLoadBalancerTest {
+
+    private final PowerOfTwoChoicesUpstreamLoadBalancer loadBalancer = new PowerOfTwoChoicesUpstreamLoadBalancer();
+
+    private UpstreamTarget targetWithLatency(String host, long latencyNanos) {
+        UpstreamTarget target = new UpstreamTarget(host, 8080);
+        target.callFinished(latencyNanos, true);
+        return target;
+    }
+
+    @Test
+    public void choose_returns_the_only_target_when_there_is_just_one() {
+        // given
+        UpstreamTarget target = targetWithLatency("host1", 1000);
+
+        // expect
+        assertThat(loadBalancer.choose(Collections.singletonList(target))).isSameAs(target);
+    }
+
+    @Test
+    public void choose_always_picks_the_cheaper_of_two_targets() {
+        // given
+        UpstreamTarget fast = targetWithLatency("fast", 1_000_000);
+        UpstreamTarget slow = targetWithLatency("slow", 50_000_000);
+        List<UpstreamTarget> targets = Arrays.asList(slow, fast);
+
+        // expect
+        for (int i = 0; i < 50; i++) {
+            assertThat(loadBalancer.choose(targets)).isSameAs(fast);
+        }
+    }
+
+    @Test
+    public void choose_never_picks_the_slowest_target_and_spreads_calls_across_the_rest() {
+        // given
+        UpstreamTarget slow = targetWithLatency("slow", 50_000_000);
+        List<UpstreamTarget> targets = Arrays.asList(
+            targetWithLatency("host1", 1_000_000), slow, targetWithLatency("host3", 1_000_000)
+        );
+        Map<UpstreamTarget, Integer> counts = new HashMap<>();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            counts.merge(loadBalancer.choose(targets), 1, Integer::sum);
+        }
+
+        // then
+        // The slowest target can only win if it's compared against itself, and the two choices are always distinct.
+        assertThat(counts).doesNotContainKey(slow);
+        assertThat(counts).containsKeys(targets.get(0), targets.get(2));
+    }
+
+    @Test
+    public void calculateCost_weights_latency_by_outstanding_requests() {
+        // given
+        UpstreamTarget target = targetWithLatency("host1", 1000);
+        target.callStarted();
+        target.callStarted();
+
+        // expect
+        assertThat(loadBalancer.calculateCost(target, 5000)).isEqualTo(3000);
+    }
+
+    @Test
+    public void calculateCost_uses_the_given_latency_for_targets_with_no_samples_yet() {
+        // given
+        UpstreamTarget freshTarget = new UpstreamTarget("new", 8080);
+        freshTarget.callStarted();
+
+        // expect
+        assertThat(loadBalancer.calculateCost(freshTarget, 5000)).isEqualTo(10000);
+        assertThat(loadBalancer.calculateCost(new UpstreamTarget("new", 8080), 5000)).isEqualTo(5000);
+    }
+
+    @Test
+    public void calculateUnsampledLatencyNanos_returns_the_mean_of_the_sampled_targets_with_a_non_zero_floor() {
+        // given
+        List<UpstreamTarget> targets = Arrays.asList(
+            targetWithLatency("host1", 1000), targetWithLatency("host2", 3000), new UpstreamTarget("new", 8080)
+        );
+
+        // expect
+        assertThat(loadBalancer.calculateUnsampledLatencyNanos(targets)).isEqualTo(2000);
+        assertThat(loadBalancer.calculateUnsampledLatencyNanos(
+            Arrays.asList(new UpstreamTarget("new1", 8080), new UpstreamTarget("new2", 8080))
+        )).isEqualTo(PowerOfTwoChoicesUpstreamLoadBalancer.MIN_UNSAMPLED_LATENCY_NANOS);
+        assertThat(loadBalancer.calculateUnsampledLatencyNanos(
+            Arrays.asList(targetWithLatency("host1", 0), new UpstreamTarget("new", 8080))
+        )).isEqualTo(PowerOfTwoChoicesUpstreamLoadBalancer.MIN_UNSAMPLED_LATENCY_NANOS);
+    }
+
+    @Test
+    public void choose_stops_sending_calls_to_a_fresh_target_that_hangs_on_its_first_calls() {
+        // given
+        UpstreamTarget hungFreshTarget = new UpstreamTarget("hung", 8080);
+        for (int i = 0; i < 10; i++) {
+            hungFreshTarget.callStarted();
+        }
+        List<UpstreamTarget> targets = Arrays.asList(
+            targetWithLatency("host1", 1_000_000), hungFreshTarget, targetWithLatency("host3", 1_000_000)
+        );
+
+        // expect
+        for (int i = 0; i < 1000; i++) {
+            assertThat(loadBalancer.choose(targets)).isNotSameAs(hungFreshTarget);
+        }
+    }
+
+    @Test
+    public void choose_prefers_an_idle_fresh_target_over_a_hung_one_when_no_target_has_samples_yet() {
+        // given
+        UpstreamTarget hungFreshTarget = new UpstreamTarget("hung", 8080);
+        hungFreshTarget.callStarted();
+        UpstreamTarget idleFreshTarget = new UpstreamTarget("idle", 8080);
+        List<UpstreamTarget> targets = Arrays.asList(hungFreshTarget, idleFreshTarget);
+
+        // expect
+        for (int i = 0; i < 50; i++) {
+            assertThat(loadBalancer.choose(targets)).isSameAs(idleFreshTarget);
+        }
+    }
+}
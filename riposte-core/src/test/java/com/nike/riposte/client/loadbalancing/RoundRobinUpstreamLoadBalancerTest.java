@@ -0,0 +1,50 @@
+package com.nike.riposte.client.loadbalancing;
+
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link RoundRobinUpstreamLoadBalancer}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RoundRobinUpstreamLoadBalancerTest {
+
+    private final List<UpstreamTarget> targets = Arrays.asList(
+        new UpstreamTarget("host1", 8080), new UpstreamTarget("host2", 8080), new UpstreamTarget("host3", 8080)
+    );
+
+    @Test
+    public void choose_cycles_through_targets_in_order() {
+        // given
+        RoundRobinUpstreamLoadBalancer loadBalancer = new RoundRobinUpstreamLoadBalancer();
+
+        // expect
+        for (int i = 0; i < 7; i++) {
+            assertThat(loadBalancer.choose(targets)).isSameAs(targets.get(i % 3));
+        }
+    }
+
+    @Test
+    public void choose_keeps_cycling_after_the_counter_overflows() {
+        // given
+        RoundRobinUpstreamLoadBalancer loadBalancer = new RoundRobinUpstreamLoadBalancer();
+        loadBalancer.counter.set(Integer.MAX_VALUE);
+
+        // when
+        UpstreamTarget beforeOverflow = loadBalancer.choose(targets);
+        UpstreamTarget afterOverflow = loadBalancer.choose(targets);
+
+        // then
+        // Integer.MAX_VALUE and Integer.MIN_VALUE both floorMod 3 to 1.
+        assertThat(beforeOverflow).isSameAs(targets.get(1));
+        assertThat(afterOverflow).isSameAs(targets.get(1));
+        assertThat(loadBalancer.choose(targets)).isSameAs(targets.get(2));
+    }
+}
@@ -0,0 +1,91 @@
+package com.nike.riposte.client.loadbalancing;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link UpstreamCluster}.
+ */
+@RunWith(DataProviderRunner.class)
+public class UpstreamClusterTest {
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void constructor_sets_fields_and_copies_targets(boolean isHttps) {
+        // given
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080);
+        List<UpstreamTarget> targets = new ArrayList<>(Collections.singletonList(target));
+        UpstreamLoadBalancer loadBalancer = new RoundRobinUpstreamLoadBalancer();
+
+        // when
+        UpstreamCluster cluster = new UpstreamCluster(targets, isHttps, loadBalancer);
+        targets.clear();
+
+        // then
+        assertThat(cluster.getTargets()).containsExactly(target);
+        assertThat(cluster.isHttps()).isEqualTo(isHttps);
+        assertThat(cluster.getLoadBalancer()).isSameAs(loadBalancer);
+        assertThat(catchThrowable(() -> cluster.getTargets().add(target)))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_bad_args() {
+        // given
+        UpstreamLoadBalancer loadBalancer = new RoundRobinUpstreamLoadBalancer();
+        List<UpstreamTarget> targets = Collections.singletonList(new UpstreamTarget("localhost", 8080));
+
+        // expect
+        //noinspection ConstantConditions
+        assertThat(catchThrowable(() -> new UpstreamCluster(null, false, loadBalancer)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("targets cannot be null or empty");
+        assertThat(catchThrowable(() -> new UpstreamCluster(Collections.emptyList(), false, loadBalancer)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("targets cannot be null or empty");
+        assertThat(catchThrowable(() -> new UpstreamCluster(Arrays.asList(targets.get(0), null), false, loadBalancer)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("targets cannot contain null");
+        //noinspection ConstantConditions
+        assertThat(catchThrowable(() -> new UpstreamCluster(targets, false, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("loadBalancer cannot be null");
+    }
+
+    @Test
+    public void chooseTarget_uses_the_load_balancer_and_counts_the_call_as_outstanding() {
+        // given
+        UpstreamTarget firstTarget = new UpstreamTarget("host1", 8080);
+        UpstreamTarget secondTarget = new UpstreamTarget("host2", 8080);
+        UpstreamLoadBalancer loadBalancerMock = mock(UpstreamLoadBalancer.class);
+        doReturn(secondTarget).when(loadBalancerMock).choose(anyList());
+        UpstreamCluster cluster = new UpstreamCluster(Arrays.asList(firstTarget, secondTarget), false, loadBalancerMock);
+
+        // when
+        UpstreamTarget result = cluster.chooseTarget();
+
+        // then
+        assertThat(result).isSameAs(secondTarget);
+        verify(loadBalancerMock).choose(cluster.getTargets());
+        assertThat(secondTarget.getNumOutstandingRequests()).isEqualTo(1);
+        assertThat(firstTarget.getNumOutstandingRequests()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.nike.riposte.client.loadbalancing;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link UpstreamTarget}.
+ */
+@RunWith(DataProviderRunner.class)
+public class UpstreamTargetTest {
+
+    @Test
+    public void constructor_sets_fields_and_uses_default_ewma_weight() {
+        // when
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080);
+
+        // then
+        assertThat(target.getHost()).isEqualTo("localhost");
+        assertThat(target.getPort()).isEqualTo(8080);
+        assertThat(target.ewmaWeight).isEqualTo(UpstreamTarget.DEFAULT_EWMA_WEIGHT);
+        assertThat(target.getNumOutstandingRequests()).isEqualTo(0);
+        assertThat(target.getEwmaLatencyNanos()).isEqualTo(0);
+        assertThat(target.getNumLatencySamples()).isEqualTo(0);
+        assertThat(target.toString()).isEqualTo("localhost:8080");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_host() {
+        // when
+        //noinspection ConstantConditions
+        Throwable ex = catchThrowable(() -> new UpstreamTarget(null, 8080));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("host cannot be null");
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-0.5",
+        "1.1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_ewmaWeight(double badWeight) {
+        // when
+        Throwable ex = catchThrowable(() -> new UpstreamTarget("localhost", 8080, badWeight));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("ewmaWeight must be greater than 0 and less than or equal to 1");
+    }
+
+    @Test
+    public void outstanding_requests_are_tracked_and_never_go_negative() {
+        // given
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080);
+
+        // when
+        target.callStarted();
+        target.callStarted();
+        target.callStarted();
+        target.callFinished(1000, true);
+        target.callCancelled();
+
+        // then
+        assertThat(target.getNumOutstandingRequests()).isEqualTo(1);
+
+        // and when
+        target.callCancelled();
+        target.callCancelled();
+
+        // then
+        assertThat(target.getNumOutstandingRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void callFinished_seeds_the_ewma_with_the_first_sample_and_then_decays_toward_new_samples() {
+        // given
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080, 0.5);
+
+        // when
+        target.callFinished(1000, true);
+
+        // then
+        assertThat(target.getEwmaLatencyNanos()).isEqualTo(1000);
+
+        // and when
+        target.callFinished(3000, true);
+
+        // then
+        assertThat(target.getEwmaLatencyNanos()).isCloseTo(2000, within(0.001));
+        assertThat(target.getNumLatencySamples()).isEqualTo(2);
+    }
+
+    @Test
+    public void callFinished_penalizes_failed_calls() {
+        // given
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080, 0.5);
+        target.callFinished(1000, true);
+
+        // when
+        // A fast failure counts as at least twice the current average.
+        target.callFinished(10, false);
+
+        // then
+        assertThat(target.getEwmaLatencyNanos()).isCloseTo(1500, within(0.001));
+
+        // and when
+        // A slow failure counts as its actual latency.
+        target.callFinished(10_000, false);
+
+        // then
+        assertThat(target.getEwmaLatencyNanos()).isCloseTo(5750, within(0.001));
+    }
+
+    @Test
+    public void callCancelled_does_not_record_a_latency_sample() {
+        // given
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080);
+        target.callStarted();
+
+        // when
+        target.callCancelled();
+
+        // then
+        assertThat(target.getNumLatencySamples()).isEqualTo(0);
+        assertThat(target.getEwmaLatencyNanos()).isEqualTo(0);
+    }
+}
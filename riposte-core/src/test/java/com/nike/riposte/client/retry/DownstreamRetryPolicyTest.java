@@ -0,0 +1,192 @@
+package com.nike.riposte.client.retry;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link DownstreamRetryPolicy}.
+ */
+@RunWith(DataProviderRunner.class)
+public class DownstreamRetryPolicyTest {
+
+    private static HttpRequest request(HttpMethod method) {
+        return new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, "/some/path");
+    }
+
+    @Test
+    public void retry_only_constructor_disables_hedging() {
+        // given
+        RetryBudget budget = new RetryBudget();
+
+        // when
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(3, budget);
+
+        // then
+        assertThat(policy.getMaxAttempts()).isEqualTo(3);
+        assertThat(policy.getRetryBudget()).isSameAs(budget);
+        assertThat(policy.isHedgingEnabled()).isFalse();
+        assertThat(policy.getHedgeDelayPercentile()).isEqualTo(DownstreamRetryPolicy.DEFAULT_HEDGE_DELAY_PERCENTILE);
+        assertThat(policy.getMinHedgeDelayMillis()).isEqualTo(0);
+    }
+
+    @Test
+    public void hedging_constructor_enables_hedging() {
+        // when
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(2, new RetryBudget(), 99, 5);
+
+        // then
+        assertThat(policy.isHedgingEnabled()).isTrue();
+        assertThat(policy.getHedgeDelayPercentile()).isEqualTo(99);
+        assertThat(policy.getMinHedgeDelayMillis()).isEqualTo(5);
+    }
+
+    @DataProvider(value = {
+        "0  |   true    |   95      |   0   |   maxAttempts must be at least 1",
+        "2  |   false   |   95      |   0   |   retryBudget cannot be null",
+        "2  |   true    |   0       |   0   |   hedgeDelayPercentile must be greater than 0 and less than or equal to 100",
+        "2  |   true    |   100.5   |   0   |   hedgeDelayPercentile must be greater than 0 and less than or equal to 100",
+        "2  |   true    |   95      |   -1  |   minHedgeDelayMillis cannot be negative"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        int maxAttempts, boolean useBudget, double hedgeDelayPercentile, long minHedgeDelayMillis,
+        String expectedMessage
+    ) {
+        // given
+        RetryBudget budget = (useBudget) ? new RetryBudget() : null;
+
+        // when
+        @SuppressWarnings("ConstantConditions")
+        Throwable ex = catchThrowable(
+            () -> new DownstreamRetryPolicy(maxAttempts, budget, hedgeDelayPercentile, minHedgeDelayMillis)
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @DataProvider(value = {
+        "GET        |   true",
+        "HEAD       |   true",
+        "OPTIONS    |   true",
+        "TRACE      |   true",
+        "PUT        |   true",
+        "DELETE     |   true",
+        "POST       |   false",
+        "PATCH      |   false",
+        "CONNECT    |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void isRetryable_only_allows_idempotent_methods(String methodName, boolean expectedResult) {
+        // given
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(2, new RetryBudget());
+
+        // expect
+        assertThat(policy.isRetryable(request(HttpMethod.valueOf(methodName)))).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void isRetryable_returns_false_if_only_one_attempt_is_allowed() {
+        // given
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(1, new RetryBudget());
+
+        // expect
+        assertThat(policy.isRetryable(request(HttpMethod.GET))).isFalse();
+    }
+
+    @DataProvider(value = {
+        "null       |   null        |   false",
+        "0          |   null        |   false",
+        "42         |   null        |   true",
+        "notanumber |   null        |   true",
+        "null       |   chunked     |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void requestHasBody_looks_at_the_content_length_and_transfer_encoding_headers(
+        String contentLength, String transferEncoding, boolean expectedResult
+    ) {
+        // given
+        HttpRequest request = request(HttpMethod.PUT);
+        if (contentLength != null) {
+            request.headers().set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        }
+        if (transferEncoding != null) {
+            request.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+
+        // expect
+        assertThat(DownstreamRetryPolicy.requestHasBody(request)).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void requestHasBody_returns_true_for_a_full_request_with_content() {
+        // given
+        HttpRequest request = new DefaultFullHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.PUT, "/some/path", Unpooled.wrappedBuffer(new byte[]{1, 2, 3})
+        );
+
+        // expect
+        assertThat(DownstreamRetryPolicy.requestHasBody(request)).isTrue();
+    }
+
+    @Test
+    public void getHedgeDelayNanos_returns_negative_one_until_enough_response_times_are_recorded() {
+        // given
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(2, new RetryBudget(), 50, 0);
+        for (int i = 0; i < DownstreamRetryPolicy.MIN_RESPONSE_TIMES_FOR_HEDGING - 1; i++) {
+            policy.recordResponseTime(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // expect
+        assertThat(policy.getHedgeDelayNanos()).isEqualTo(-1);
+
+        // and when
+        policy.recordResponseTime(TimeUnit.MILLISECONDS.toNanos(10));
+
+        // then
+        assertThat(policy.getHedgeDelayNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void getHedgeDelayNanos_is_at_least_minHedgeDelayMillis() {
+        // given
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(2, new RetryBudget(), 50, 20);
+        for (int i = 0; i < DownstreamRetryPolicy.MIN_RESPONSE_TIMES_FOR_HEDGING; i++) {
+            policy.recordResponseTime(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // expect
+        assertThat(policy.getHedgeDelayNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void getHedgeDelayNanos_returns_negative_one_if_hedging_is_disabled() {
+        // given
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(2, new RetryBudget());
+        for (int i = 0; i < DownstreamRetryPolicy.MIN_RESPONSE_TIMES_FOR_HEDGING; i++) {
+            policy.recordResponseTime(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // expect
+        assertThat(policy.getHedgeDelayNanos()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.nike.riposte.client.retry;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link LatencyPercentileTracker}.
+ */
+@RunWith(DataProviderRunner.class)
+public class LatencyPercentileTrackerTest {
+
+    @DataProvider(value = {
+        "0      |   1   |   windowSize must be at least 1",
+        "10     |   0   |   minSamples must be at least 1 and no more than windowSize",
+        "10     |   11  |   minSamples must be at least 1 and no more than windowSize"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        int windowSize, int minSamples, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new LatencyPercentileTracker(windowSize, minSamples));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1",
+        "100.1"
+    })
+    @Test
+    public void getPercentile_throws_IllegalArgumentException_for_invalid_percentile(double badPercentile) {
+        // given
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(10, 1);
+
+        // when
+        Throwable ex = catchThrowable(() -> tracker.getPercentile(badPercentile));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("percentile must be greater than 0 and less than or equal to 100");
+    }
+
+    @Test
+    public void getPercentile_returns_negative_one_until_minSamples_have_been_recorded() {
+        // given
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(10, 3);
+        tracker.record(5);
+        tracker.record(10);
+
+        // expect
+        assertThat(tracker.getPercentile(50)).isEqualTo(-1);
+
+        // and when
+        tracker.record(15);
+
+        // then
+        assertThat(tracker.getPercentile(50)).isEqualTo(10);
+        assertThat(tracker.getNumSamples()).isEqualTo(3);
+    }
+
+    @DataProvider(value = {
+        "1      |   1",
+        "50     |   50",
+        "95     |   95",
+        "99.5   |   100",
+        "100    |   100"
+    }, splitBy = "\\|")
+    @Test
+    public void getPercentile_uses_nearest_rank(double percentile, long expectedValue) {
+        // given
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(100, 1);
+        // Record out of order to make sure the samples get sorted.
+        for (int i = 100; i > 0; i--) {
+            tracker.record(i);
+        }
+
+        // expect
+        assertThat(tracker.getPercentile(percentile)).isEqualTo(expectedValue);
+    }
+
+    @Test
+    public void old_samples_are_replaced_once_the_window_is_full() {
+        // given
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(10, 1);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1000);
+        }
+        assertThat(tracker.getPercentile(100)).isEqualTo(1000);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1);
+        }
+
+        // then
+        assertThat(tracker.getNumSamples()).isEqualTo(10);
+        assertThat(tracker.getPercentile(100)).isEqualTo(1);
+    }
+
+    @Test
+    public void samples_are_only_resorted_after_a_tenth_of_the_window_has_been_replaced() {
+        // given
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(100, 1);
+        for (int i = 0; i < 100; i++) {
+            tracker.record(10);
+        }
+        assertThat(tracker.getPercentile(100)).isEqualTo(10);
+
+        // when
+        for (int i = 0; i < 9; i++) {
+            tracker.record(1000);
+        }
+
+        // then
+        assertThat(tracker.getPercentile(100)).isEqualTo(10);
+
+        // and when
+        tracker.record(1000);
+
+        // then
+        assertThat(tracker.getPercentile(100)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,94 @@
+package com.nike.riposte.client.retry;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link RetryBudget}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RetryBudgetTest {
+
+    @Test
+    public void default_constructor_uses_defaults_and_starts_full() {
+        // when
+        RetryBudget budget = new RetryBudget();
+
+        // then
+        assertThat(budget.getRetryRatio()).isEqualTo(RetryBudget.DEFAULT_RETRY_RATIO);
+        assertThat(budget.getMaxBalance()).isEqualTo(RetryBudget.DEFAULT_MAX_BALANCE);
+        assertThat(budget.getBalance()).isEqualTo(RetryBudget.DEFAULT_MAX_BALANCE);
+    }
+
+    @DataProvider(value = {
+        "0      |   10      |   retryRatio must be greater than 0 and less than or equal to 1",
+        "-0.1   |   10      |   retryRatio must be greater than 0 and less than or equal to 1",
+        "1.1    |   10      |   retryRatio must be greater than 0 and less than or equal to 1",
+        "0.1    |   0.5     |   maxBalance must be at least 1"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        double retryRatio, double maxBalance, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new RetryBudget(retryRatio, maxBalance));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @Test
+    public void retries_are_limited_to_the_retry_ratio_of_calls_once_the_initial_balance_is_used_up() {
+        // given
+        RetryBudget budget = new RetryBudget(0.25, 2);
+
+        // when
+        boolean firstRetry = budget.tryAcquireRetry();
+        boolean secondRetry = budget.tryAcquireRetry();
+        boolean thirdRetry = budget.tryAcquireRetry();
+
+        // then
+        assertThat(firstRetry).isTrue();
+        assertThat(secondRetry).isTrue();
+        assertThat(thirdRetry).isFalse();
+        assertThat(budget.getBalance()).isEqualTo(0);
+
+        // and when
+        for (int i = 0; i < 3; i++) {
+            budget.recordCall();
+        }
+
+        // then
+        assertThat(budget.tryAcquireRetry()).isFalse();
+
+        // and when
+        budget.recordCall();
+
+        // then
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.getBalance()).isCloseTo(0, within(0.0001));
+    }
+
+    @Test
+    public void recordCall_never_goes_above_maxBalance() {
+        // given
+        RetryBudget budget = new RetryBudget(0.5, 3);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            budget.recordCall();
+        }
+
+        // then
+        assertThat(budget.getBalance()).isEqualTo(3);
+    }
+}
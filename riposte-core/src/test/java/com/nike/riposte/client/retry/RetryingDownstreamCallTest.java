@@ -0,0 +1,475 @@
+package com.nike.riposte.client.retry;
+
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingCallback;
+import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient.StreamingChannel;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests the functionality of {@link RetryingDownstreamCall}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RetryingDownstreamCallTest {
+
+    private StreamingCallback callbackMock;
+    private ScheduledExecutorService schedulerMock;
+    private Consumer<StreamingChannel> chosenChannelListenerMock;
+    private List<StartedAttempt> startedAttempts;
+    private RetryingDownstreamCall.AttemptStarter attemptStarter;
+
+    private static class StartedAttempt {
+        final HttpRequest firstChunk;
+        final StreamingCallback callback;
+        final CompletableFuture<StreamingChannel> future = new CompletableFuture<>();
+        final StreamingChannel streamingChannelMock = mock(StreamingChannel.class);
+
+        StartedAttempt(HttpRequest firstChunk, StreamingCallback callback) {
+            this.firstChunk = firstChunk;
+            this.callback = callback;
+        }
+
+        void connect() {
+            future.complete(streamingChannelMock);
+        }
+
+        void failToConnect(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    @Before
+    public void beforeMethod() {
+        callbackMock = mock(StreamingCallback.class);
+        schedulerMock = mock(ScheduledExecutorService.class);
+        //noinspection unchecked
+        chosenChannelListenerMock = mock(Consumer.class);
+        startedAttempts = new ArrayList<>();
+        attemptStarter = (firstChunk, attemptCallback) -> {
+            StartedAttempt attempt = new StartedAttempt(firstChunk, attemptCallback);
+            startedAttempts.add(attempt);
+            return attempt.future;
+        };
+    }
+
+    private RetryingDownstreamCall call(DownstreamRetryPolicy policy, HttpRequest firstChunk) {
+        return new RetryingDownstreamCall(
+            policy, firstChunk, callbackMock, attemptStarter, schedulerMock, chosenChannelListenerMock
+        );
+    }
+
+    private static HttpRequest bodylessRequest() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path?foo=bar");
+        request.headers().set("some-header", "some-value");
+        return request;
+    }
+
+    private static HttpRequest requestWithBody() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "/some/path");
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, 42);
+        return request;
+    }
+
+    private static HttpResponse response() {
+        return new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+    }
+
+    private static DownstreamRetryPolicy hedgingPolicyWithResponseTimes(int maxAttempts, RetryBudget budget) {
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(maxAttempts, budget, 50, 0);
+        for (int i = 0; i < DownstreamRetryPolicy.MIN_RESPONSE_TIMES_FOR_HEDGING; i++) {
+            policy.recordResponseTime(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return policy;
+    }
+
+    private Runnable captureScheduledHedge(long expectedDelayNanos) {
+        ArgumentCaptor<Runnable> hedgeCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(schedulerMock).schedule(hedgeCaptor.capture(), eq(expectedDelayNanos), eq(TimeUnit.NANOSECONDS));
+        return hedgeCaptor.getValue();
+    }
+
+    @DataProvider(value = {
+        "true   |   false   |   false   |   false   |   retryPolicy cannot be null",
+        "false  |   true    |   false   |   false   |   firstChunk cannot be null",
+        "false  |   false   |   true    |   false   |   callback cannot be null",
+        "false  |   false   |   false   |   true    |   attemptStarter cannot be null"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_args(
+        boolean nullPolicy, boolean nullFirstChunk, boolean nullCallback, boolean nullAttemptStarter,
+        String expectedMessage
+    ) {
+        // when
+        @SuppressWarnings("ConstantConditions")
+        Throwable ex = catchThrowable(() -> new RetryingDownstreamCall(
+            (nullPolicy) ? null : new DownstreamRetryPolicy(2, new RetryBudget()),
+            (nullFirstChunk) ? null : bodylessRequest(),
+            (nullCallback) ? null : callbackMock,
+            (nullAttemptStarter) ? null : attemptStarter,
+            schedulerMock,
+            null
+        ));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_hedgeScheduler() {
+        // when
+        @SuppressWarnings("ConstantConditions")
+        Throwable ex = catchThrowable(() -> new RetryingDownstreamCall(
+            new DownstreamRetryPolicy(2, new RetryBudget()), bodylessRequest(), callbackMock, attemptStarter, null,
+            null
+        ));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("hedgeScheduler cannot be null");
+    }
+
+    @Test
+    public void request_with_body_is_retried_if_connecting_fails_and_then_chosen_once_connected() {
+        // given
+        HttpRequest firstChunk = requestWithBody();
+        RetryBudget budget = new RetryBudget(0.1, 5);
+        RetryingDownstreamCall call = call(new DownstreamRetryPolicy(3, budget), firstChunk);
+
+        // when
+        CompletableFuture<StreamingChannel> result = call.start();
+
+        // then
+        assertThat(call.isWholeRequestSentWithFirstChunk()).isFalse();
+        assertThat(startedAttempts).hasSize(1);
+        assertThat(startedAttempts.get(0).firstChunk).isSameAs(firstChunk);
+
+        // and when
+        startedAttempts.get(0).failToConnect(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(startedAttempts).hasSize(2);
+        assertThat(startedAttempts.get(1).firstChunk).isSameAs(firstChunk);
+        assertThat(result).isNotDone();
+        assertThat(budget.getBalance()).isEqualTo(4);
+
+        // and when
+        startedAttempts.get(1).connect();
+
+        // then
+        assertThat(result).isCompletedWithValue(startedAttempts.get(1).streamingChannelMock);
+        assertThat(call.getChosenAttempt()).isSameAs(startedAttempts.get(1).callback);
+        assertThat(call.getNumAttemptsStarted()).isEqualTo(2);
+        verify(chosenChannelListenerMock).accept(startedAttempts.get(1).streamingChannelMock);
+        verifyNoMoreInteractions(callbackMock);
+        // Retries are only fired off when a request with a body fails, never hedged.
+        verify(schedulerMock, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void errors_and_messages_from_the_chosen_attempt_are_passed_to_the_callback() {
+        // given
+        RetryingDownstreamCall call = call(new DownstreamRetryPolicy(3, new RetryBudget()), requestWithBody());
+        call.start();
+        startedAttempts.get(0).connect();
+        StreamingCallback attemptCallback = startedAttempts.get(0).callback;
+        HttpResponse response = response();
+        RuntimeException error = new RuntimeException("intentional test exception");
+
+        // when
+        attemptCallback.messageReceived(response);
+        attemptCallback.unrecoverableErrorOccurred(error, false);
+        attemptCallback.cancelStreamingToOriginalCaller();
+
+        // then
+        verify(callbackMock).messageReceived(response);
+        verify(callbackMock).unrecoverableErrorOccurred(error, false);
+        verify(callbackMock).cancelStreamingToOriginalCaller();
+        assertThat(startedAttempts).hasSize(1);
+    }
+
+    @Test
+    public void call_fails_with_the_last_error_once_maxAttempts_is_reached() {
+        // given
+        RetryingDownstreamCall call = call(new DownstreamRetryPolicy(2, new RetryBudget()), requestWithBody());
+        CompletableFuture<StreamingChannel> result = call.start();
+        RuntimeException lastError = new RuntimeException("intentional test exception");
+
+        // when
+        startedAttempts.get(0).failToConnect(new RuntimeException("first intentional test exception"));
+        startedAttempts.get(1).failToConnect(lastError);
+
+        // then
+        assertThat(startedAttempts).hasSize(2);
+        assertThat(result).isCompletedExceptionally();
+        assertThat(catchThrowable(result::join)).hasCause(lastError);
+        verifyNoMoreInteractions(callbackMock);
+    }
+
+    @Test
+    public void call_is_not_retried_if_the_retry_budget_is_used_up() {
+        // given
+        RetryBudget budget = new RetryBudget(0.1, 1);
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        RetryingDownstreamCall call = call(new DownstreamRetryPolicy(3, budget), requestWithBody());
+        CompletableFuture<StreamingChannel> result = call.start();
+
+        // when
+        startedAttempts.get(0).failToConnect(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(startedAttempts).hasSize(1);
+        assertThat(result).isCompletedExceptionally();
+    }
+
+    @Test
+    public void bodyless_request_is_sent_whole_and_retried_if_it_fails_before_a_response_arrives() {
+        // given
+        HttpRequest firstChunk = bodylessRequest();
+        RetryingDownstreamCall call = call(new DownstreamRetryPolicy(3, new RetryBudget()), firstChunk);
+        CompletableFuture<StreamingChannel> result = call.start();
+        StartedAttempt firstAttempt = startedAttempts.get(0);
+
+        // then
+        assertThat(call.isWholeRequestSentWithFirstChunk()).isTrue();
+        assertThat(firstAttempt.firstChunk).isInstanceOf(FullHttpRequest.class).isNotSameAs(firstChunk);
+        assertThat(firstAttempt.firstChunk.method()).isEqualTo(firstChunk.method());
+        assertThat(firstAttempt.firstChunk.uri()).isEqualTo(firstChunk.uri());
+        assertThat(firstAttempt.firstChunk.headers().get("some-header")).isEqualTo("some-value");
+        assertThat(((FullHttpRequest) firstAttempt.firstChunk).content().readableBytes()).isEqualTo(0);
+
+        // and when
+        firstAttempt.connect();
+
+        // then
+        assertThat(result).isNotDone();
+
+        // and when
+        // e.g. a pooled keep-alive connection that the downstream service had already closed.
+        firstAttempt.callback.unrecoverableErrorOccurred(new RuntimeException("intentional test exception"), true);
+        firstAttempt.failToConnect(new RuntimeException("this should be ignored"));
+
+        // then
+        assertThat(startedAttempts).hasSize(2);
+        StartedAttempt secondAttempt = startedAttempts.get(1);
+        assertThat(secondAttempt.firstChunk).isNotSameAs(firstAttempt.firstChunk);
+        verifyNoMoreInteractions(callbackMock);
+
+        // and when
+        secondAttempt.connect();
+        HttpResponse response = response();
+        secondAttempt.callback.messageReceived(response);
+
+        // then
+        assertThat(result).isCompletedWithValue(secondAttempt.streamingChannelMock);
+        verify(callbackMock).messageReceived(response);
+        verify(chosenChannelListenerMock).accept(secondAttempt.streamingChannelMock);
+    }
+
+    @Test
+    public void bodyless_request_is_hedged_and_the_first_attempt_to_respond_is_used() {
+        // given
+        RetryBudget budget = new RetryBudget(0.1, 5);
+        DownstreamRetryPolicy policy = hedgingPolicyWithResponseTimes(2, budget);
+        RetryingDownstreamCall call = call(policy, bodylessRequest());
+        CompletableFuture<StreamingChannel> result = call.start();
+        StartedAttempt firstAttempt = startedAttempts.get(0);
+        firstAttempt.connect();
+        Runnable hedge = captureScheduledHedge(TimeUnit.MILLISECONDS.toNanos(10));
+
+        // when
+        hedge.run();
+
+        // then
+        assertThat(startedAttempts).hasSize(2);
+        assertThat(budget.getBalance()).isEqualTo(4);
+        // maxAttempts has been reached, so there's no more hedging.
+        verifyNoMoreInteractions(schedulerMock);
+
+        // and when
+        StartedAttempt secondAttempt = startedAttempts.get(1);
+        secondAttempt.connect();
+        HttpResponse winningResponse = response();
+        secondAttempt.callback.messageReceived(winningResponse);
+
+        // then
+        assertThat(result).isCompletedWithValue(secondAttempt.streamingChannelMock);
+        verify(callbackMock).messageReceived(winningResponse);
+        verify(firstAttempt.streamingChannelMock).closeChannelForAbandonedCall(any(Throwable.class));
+        verify(firstAttempt.streamingChannelMock, never()).closeChannelDueToUnrecoverableError(any(Throwable.class));
+        verify(secondAttempt.streamingChannelMock, never()).closeChannelForAbandonedCall(any(Throwable.class));
+
+        // and when
+        HttpContent losingChunk = new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[]{1, 2, 3}));
+        firstAttempt.callback.messageReceived(losingChunk);
+        firstAttempt.callback.unrecoverableErrorOccurred(new RuntimeException("intentional test exception"), true);
+
+        // then
+        assertThat(losingChunk.refCnt()).isEqualTo(0);
+        verifyNoMoreInteractions(callbackMock);
+    }
+
+    @Test
+    public void only_the_winning_attempt_records_its_outcome_when_the_second_attempt_wins() {
+        // given
+        RetryingDownstreamCall call = call(hedgingPolicyWithResponseTimes(2, new RetryBudget()), bodylessRequest());
+        call.start();
+        captureScheduledHedge(TimeUnit.MILLISECONDS.toNanos(10)).run();
+        StartedAttempt firstAttempt = startedAttempts.get(0);
+        StartedAttempt secondAttempt = startedAttempts.get(1);
+        firstAttempt.connect();
+        secondAttempt.connect();
+        assertThat(firstAttempt.callback.isCallAbandoned()).isFalse();
+        assertThat(secondAttempt.callback.isCallAbandoned()).isFalse();
+
+        // when
+        boolean secondResponseIgnored = secondAttempt.callback.isOutcomeIgnored(true);
+
+        // then
+        // Asking whether a response should be recorded is what chooses the attempt, so it happens before the response
+        //      is recorded anywhere.
+        assertThat(secondResponseIgnored).isFalse();
+        assertThat(call.getChosenAttempt()).isSameAs(secondAttempt.callback);
+        assertThat(secondAttempt.callback.isOutcomeIgnored(false)).isFalse();
+        assertThat(secondAttempt.callback.isCallAbandoned()).isFalse();
+
+        assertThat(firstAttempt.callback.isOutcomeIgnored(true)).isTrue();
+        assertThat(firstAttempt.callback.isOutcomeIgnored(false)).isTrue();
+        assertThat(firstAttempt.callback.isCallAbandoned()).isTrue();
+        assertThat(call.getChosenAttempt()).isSameAs(secondAttempt.callback);
+        verify(firstAttempt.streamingChannelMock).closeChannelForAbandonedCall(any(Throwable.class));
+        verify(firstAttempt.streamingChannelMock, never()).closeChannelDueToUnrecoverableError(any(Throwable.class));
+    }
+
+    @Test
+    public void failure_of_an_attempt_before_one_is_chosen_is_ignored_but_not_abandoned() {
+        // given
+        RetryingDownstreamCall call = call(hedgingPolicyWithResponseTimes(2, new RetryBudget()), bodylessRequest());
+        call.start();
+        StartedAttempt firstAttempt = startedAttempts.get(0);
+        firstAttempt.connect();
+
+        // expect
+        // An attempt that fails before being chosen may still be retried, so it only tags its own span. It wasn't
+        //      abandoned though, so the failure still counts against the downstream host.
+        assertThat(firstAttempt.callback.isOutcomeIgnored(false)).isTrue();
+        assertThat(firstAttempt.callback.isCallAbandoned()).isFalse();
+        assertThat(call.getChosenAttempt()).isNull();
+    }
+
+    @Test
+    public void hedged_attempt_that_is_still_connecting_is_closed_once_it_connects_if_another_attempt_won() {
+        // given
+        RetryingDownstreamCall call = call(hedgingPolicyWithResponseTimes(2, new RetryBudget()), bodylessRequest());
+        call.start();
+        captureScheduledHedge(TimeUnit.MILLISECONDS.toNanos(10)).run();
+        StartedAttempt firstAttempt = startedAttempts.get(0);
+        StartedAttempt secondAttempt = startedAttempts.get(1);
+        firstAttempt.connect();
+        firstAttempt.callback.messageReceived(response());
+
+        // when
+        secondAttempt.connect();
+
+        // then
+        verify(secondAttempt.streamingChannelMock).closeChannelForAbandonedCall(any(Throwable.class));
+        // The second attempt may have pointed per-channel state at itself while connecting, so the chosen channel
+        //      listener is called again.
+        verify(chosenChannelListenerMock, times(2)).accept(firstAttempt.streamingChannelMock);
+    }
+
+    @Test
+    public void failed_attempt_waits_for_an_in_flight_hedged_attempt_instead_of_retrying() {
+        // given
+        RetryingDownstreamCall call = call(hedgingPolicyWithResponseTimes(3, new RetryBudget()), bodylessRequest());
+        CompletableFuture<StreamingChannel> result = call.start();
+        captureScheduledHedge(TimeUnit.MILLISECONDS.toNanos(10)).run();
+        assertThat(startedAttempts).hasSize(2);
+
+        // when
+        startedAttempts.get(0).failToConnect(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(startedAttempts).hasSize(2);
+        assertThat(result).isNotDone();
+
+        // and when
+        startedAttempts.get(1).failToConnect(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(startedAttempts).hasSize(3);
+        assertThat(result).isNotDone();
+    }
+
+    @Test
+    public void bodyless_request_is_not_hedged_until_enough_response_times_are_known() {
+        // given
+        DownstreamRetryPolicy policy = new DownstreamRetryPolicy(2, new RetryBudget(), 50, 0);
+        RetryingDownstreamCall call = call(policy, bodylessRequest());
+
+        // when
+        call.start();
+        startedAttempts.get(0).connect();
+        startedAttempts.get(0).callback.messageReceived(response());
+
+        // then
+        verifyNoMoreInteractions(schedulerMock);
+        assertThat(policy.responseTimeTracker.getNumSamples()).isEqualTo(1);
+    }
+
+    @Test
+    public void exception_thrown_by_the_attempt_starter_counts_as_a_failed_attempt() {
+        // given
+        RuntimeException error = new RuntimeException("intentional test exception");
+        attemptStarter = (firstChunk, attemptCallback) -> {
+            throw error;
+        };
+        RetryingDownstreamCall call = call(new DownstreamRetryPolicy(2, new RetryBudget()), requestWithBody());
+
+        // when
+        CompletableFuture<StreamingChannel> result = call.start();
+
+        // then
+        assertThat(call.getNumAttemptsStarted()).isEqualTo(2);
+        assertThat(result).isCompletedExceptionally();
+        assertThat(catchThrowable(result::join)).hasCause(error);
+    }
+}
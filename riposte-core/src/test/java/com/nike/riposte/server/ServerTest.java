@@ -1,29 +1,58 @@
 package com.nike.riposte.server;
 
+import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig.AmbiguousEndpointsPolicy;
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteDistributedTracingConfigImpl;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfigImpl;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.hooks.ServerShutdownHook;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.InFlightRequestTracker;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.RouteTableAnalysis;
+import com.nike.riposte.util.Matcher;
 import com.nike.wingtips.Span;
 
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
+import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.slf4j.Logger;
 import com.nike.riposte.testutils.Whitebox;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpMethod;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -92,6 +121,125 @@ public class ServerTest {
         verify(serverConfigMock).distributedTracingConfig();
     }
 
+    private Endpoint<?> endpoint(Matcher matcher) {
+        return new Endpoint<Object>() {
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return matcher;
+            }
+        };
+    }
+
+    private ServerConfig serverConfigWithEndpointsAndPolicy(
+        List<Endpoint<?>> endpoints,
+        AmbiguousEndpointsPolicy policy
+    ) {
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(endpoints).when(serverConfigMock).appEndpoints();
+        if (policy != null) {
+            EndpointRoutingConfig routingConfig = new EndpointRoutingConfig() {
+                @Override
+                public @NotNull AmbiguousEndpointsPolicy ambiguousEndpointsPolicy() {
+                    return policy;
+                }
+            };
+            doReturn(routingConfig).when(serverConfigMock).endpointRoutingConfig();
+        }
+        return serverConfigMock;
+    }
+
+    @Test
+    public void verifyEndpointsAreNotAmbiguous_throws_IllegalArgumentException_for_ambiguous_endpoints_when_policy_is_FAIL_STARTUP() {
+        // given
+        ServerConfig serverConfig = serverConfigWithEndpointsAndPolicy(
+            Arrays.asList(
+                endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+                endpoint(Matcher.match("/foo/bar", HttpMethod.GET))
+            ),
+            AmbiguousEndpointsPolicy.FAIL_STARTUP
+        );
+        Server server = new Server(serverConfig);
+
+        // when
+        Throwable ex = catchThrowable(() -> server.verifyEndpointsAreNotAmbiguous(serverConfig));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Your ServerConfig.appEndpoints() contains endpoints that match the same requests")
+            .hasMessageContaining("/foo/{id}")
+            .hasMessageContaining("/foo/bar");
+    }
+
+    @DataProvider(value = {
+        "null",
+        "IGNORE",
+        "LOG_WARNING",
+    })
+    @Test
+    public void verifyEndpointsAreNotAmbiguous_does_not_throw_for_ambiguous_endpoints_when_policy_is_not_FAIL_STARTUP(
+        AmbiguousEndpointsPolicy policy
+    ) {
+        // given
+        ServerConfig serverConfig = serverConfigWithEndpointsAndPolicy(
+            Arrays.asList(
+                endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+                endpoint(Matcher.match("/foo/bar", HttpMethod.GET))
+            ),
+            policy
+        );
+        Server server = new Server(serverConfig);
+
+        // when
+        Throwable ex = catchThrowable(() -> server.verifyEndpointsAreNotAmbiguous(serverConfig));
+
+        // then
+        assertThat(ex).isNull();
+    }
+
+    @Test
+    public void verifyEndpointsAreNotAmbiguous_returns_analysis_for_reuse_unless_policy_is_IGNORE() {
+        // given
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/bar", HttpMethod.GET))
+        );
+        ServerConfig logWarningConfig = serverConfigWithEndpointsAndPolicy(
+            endpoints, AmbiguousEndpointsPolicy.LOG_WARNING
+        );
+        ServerConfig ignoreConfig = serverConfigWithEndpointsAndPolicy(endpoints, AmbiguousEndpointsPolicy.IGNORE);
+
+        // when
+        RouteTableAnalysis logWarningResult = new Server(logWarningConfig).verifyEndpointsAreNotAmbiguous(
+            logWarningConfig
+        );
+        RouteTableAnalysis ignoreResult = new Server(ignoreConfig).verifyEndpointsAreNotAmbiguous(ignoreConfig);
+
+        // then
+        assertThat(logWarningResult).isNotNull();
+        assertThat(logWarningResult.getDefinitelyAmbiguousEndpoints()).hasSize(1);
+        assertThat(ignoreResult).isNull();
+    }
+
+    @Test
+    public void verifyEndpointsAreNotAmbiguous_does_not_throw_for_possibly_ambiguous_endpoints_when_policy_is_FAIL_STARTUP() {
+        // given
+        ServerConfig serverConfig = serverConfigWithEndpointsAndPolicy(
+            Arrays.asList(
+                endpoint(Matcher.match("/foo/*.json", HttpMethod.GET)),
+                endpoint(Matcher.match("/foo/{name}.json", HttpMethod.GET))
+            ),
+            AmbiguousEndpointsPolicy.FAIL_STARTUP
+        );
+        Server server = new Server(serverConfig);
+
+        // when
+        Throwable ex = catchThrowable(() -> server.verifyEndpointsAreNotAmbiguous(serverConfig));
+
+        // then
+        assertThat(ex).isNull();
+    }
+
     @Test
     public void shutdown_executes_ServerShutdownHooks() throws InterruptedException {
         // given
@@ -114,6 +262,295 @@ public class ServerTest {
         verify(serverShutdownHookMock, times(1)).executeServerShutdownHook(serverConfigMock, channelMock);
     }
 
+    @DataProvider(value = {
+        "false",
+        "true"
+    })
+    @Test
+    public void shutdown_closes_proxy_router_client_even_if_closing_it_throws(boolean closeThrows)
+        throws InterruptedException {
+        // given
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        Channel channelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(channelMock).close();
+        HttpChannelInitializer httpChannelInitializerMock = mock(HttpChannelInitializer.class);
+        if (closeThrows) {
+            doThrow(new RuntimeException("intentional test exception"))
+                .when(httpChannelInitializerMock).closeProxyRouterClient();
+        }
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", singletonList(channelMock));
+        Whitebox.setInternalState(server, "httpChannelInitializer", httpChannelInitializerMock);
+
+        // when
+        Throwable ex = catchThrowable(server::shutdown);
+
+        // then
+        assertThat(ex).isNull();
+        verify(httpChannelInitializerMock).closeProxyRouterClient();
+    }
+
+    @Test
+    public void shutdown_closes_all_acceptor_channels_but_only_executes_ServerShutdownHooks_for_the_first_one()
+        throws InterruptedException {
+        // given
+        ServerShutdownHook serverShutdownHookMock = mock(ServerShutdownHook.class);
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(singletonList(serverShutdownHookMock)).when(serverConfigMock).serverShutdownHooks();
+
+        Channel firstChannelMock = mock(Channel.class);
+        Channel secondChannelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(firstChannelMock).close();
+        doReturn(mock(ChannelFuture.class)).when(secondChannelMock).close();
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", Arrays.asList(firstChannelMock, secondChannelMock));
+
+        // when
+        server.shutdown();
+
+        // then
+        verify(firstChannelMock).close();
+        verify(secondChannelMock).close();
+        verify(serverShutdownHookMock).executeServerShutdownHook(serverConfigMock, firstChannelMock);
+        verify(serverShutdownHookMock).executeServerDrainFinishedHook(serverConfigMock, firstChannelMock, 0L);
+        verifyNoMoreInteractions(serverShutdownHookMock);
+    }
+
+    @Test
+    public void shutdown_without_drain_phase_does_not_execute_drain_started_hooks() throws InterruptedException {
+        // given
+        ServerShutdownHook serverShutdownHookMock = mock(ServerShutdownHook.class);
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(singletonList(serverShutdownHookMock)).when(serverConfigMock).serverShutdownHooks();
+
+        Channel channelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(channelMock).close();
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", singletonList(channelMock));
+
+        // when
+        server.shutdown();
+
+        // then
+        InOrder inOrder = inOrder(serverShutdownHookMock, channelMock);
+        inOrder.verify(serverShutdownHookMock).executeServerShutdownHook(serverConfigMock, channelMock);
+        inOrder.verify(channelMock).close();
+        inOrder.verify(serverShutdownHookMock).executeServerDrainFinishedHook(serverConfigMock, channelMock, 0L);
+        verify(serverShutdownHookMock, never()).executeServerDrainStartedHook(any(), any());
+    }
+
+    @Test
+    public void shutdown_drains_in_flight_requests_and_executes_ServerShutdownHooks_at_each_stage()
+        throws InterruptedException {
+        // given
+        ServerShutdownHook serverShutdownHookMock = mock(ServerShutdownHook.class);
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(singletonList(serverShutdownHookMock)).when(serverConfigMock).serverShutdownHooks();
+        doReturn(10_000L).when(serverConfigMock).shutdownDrainTimeoutMillis();
+
+        Channel channelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(channelMock).close();
+
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+
+        // Finish the in-flight requests from another thread once draining starts.
+        doAnswer(invocation -> {
+            assertThat(tracker.isDraining()).isTrue();
+            new Thread(() -> {
+                tracker.onEvent(ServerMetricsEvent.RESPONSE_SENT, null);
+                tracker.onEvent(ServerMetricsEvent.RESPONSE_WRITE_FAILED, null);
+            }).start();
+            return null;
+        }).when(serverShutdownHookMock).executeServerDrainStartedHook(serverConfigMock, channelMock);
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", singletonList(channelMock));
+        Whitebox.setInternalState(server, "inFlightRequestTracker", tracker);
+
+        // when
+        server.shutdown();
+
+        // then
+        InOrder inOrder = inOrder(serverShutdownHookMock, channelMock);
+        inOrder.verify(serverShutdownHookMock).executeServerShutdownHook(serverConfigMock, channelMock);
+        inOrder.verify(channelMock).close();
+        inOrder.verify(serverShutdownHookMock).executeServerDrainStartedHook(serverConfigMock, channelMock);
+        inOrder.verify(serverShutdownHookMock).executeServerDrainFinishedHook(serverConfigMock, channelMock, 0L);
+        assertThat(tracker.getNumInFlightRequests()).isEqualTo(0);
+    }
+
+    @Test
+    public void shutdown_stops_draining_when_the_drain_timeout_is_hit() throws InterruptedException {
+        // given
+        ServerShutdownHook serverShutdownHookMock = mock(ServerShutdownHook.class);
+
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(singletonList(serverShutdownHookMock)).when(serverConfigMock).serverShutdownHooks();
+        doReturn(50L).when(serverConfigMock).shutdownDrainTimeoutMillis();
+
+        Channel channelMock = mock(Channel.class);
+        doReturn(mock(ChannelFuture.class)).when(channelMock).close();
+
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+
+        Server server = new Server(serverConfigMock);
+
+        Whitebox.setInternalState(server, "channels", singletonList(channelMock));
+        Whitebox.setInternalState(server, "inFlightRequestTracker", tracker);
+
+        // when
+        server.shutdown();
+
+        // then
+        verify(serverShutdownHookMock).executeServerDrainStartedHook(serverConfigMock, channelMock);
+        verify(serverShutdownHookMock).executeServerDrainFinishedHook(serverConfigMock, channelMock, 1L);
+    }
+
+    @DataProvider(value = {
+        "1  |   true    |   1",
+        "4  |   true    |   4",
+        "1  |   false   |   1",
+        "4  |   false   |   1"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void determineNumAcceptorChannels_only_allows_multiple_acceptor_channels_for_epoll(
+        int configuredNumAcceptorChannels, boolean useEpollChannelClass, int expectedResult
+    ) {
+        // given
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(configuredNumAcceptorChannels).when(serverConfigMock).numAcceptorChannels();
+        Class<? extends ServerChannel> channelClass = (useEpollChannelClass)
+                                                      ? EpollServerSocketChannel.class
+                                                      : NioServerSocketChannel.class;
+        Server server = new Server(serverConfigMock);
+
+        // when
+        int result = server.determineNumAcceptorChannels(serverConfigMock, channelClass);
+
+        // then
+        assertThat(result).isEqualTo(expectedResult);
+    }
+
+    @DataProvider(value = {
+        "4  |   4   |   false",
+        "4  |   8   |   false",
+        "4  |   2   |   true",
+        "1  |   1   |   false"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void determineNumAcceptorChannels_warns_if_there_are_more_acceptor_channels_than_boss_threads(
+        int configuredNumAcceptorChannels, int configuredNumBossThreads, boolean expectWarning
+    ) {
+        // given
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(configuredNumAcceptorChannels).when(serverConfigMock).numAcceptorChannels();
+        doReturn(configuredNumBossThreads).when(serverConfigMock).numBossThreads();
+        Server server = new Server(serverConfigMock);
+        Logger loggerMock = mock(Logger.class);
+        Whitebox.setInternalState(server, "logger", loggerMock);
+
+        // when
+        int result = server.determineNumAcceptorChannels(serverConfigMock, EpollServerSocketChannel.class);
+
+        // then
+        assertThat(result).isEqualTo(configuredNumAcceptorChannels);
+        if (expectWarning) {
+            verify(loggerMock).warn(
+                contains("numAcceptorChannels() is greater than ServerConfig.numBossThreads()"),
+                eq(configuredNumAcceptorChannels), eq(configuredNumBossThreads)
+            );
+        }
+        else {
+            verifyNoMoreInteractions(loggerMock);
+        }
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void determineNumAcceptorChannels_throws_IllegalArgumentException_if_config_value_is_less_than_1(
+        int configuredNumAcceptorChannels
+    ) {
+        // given
+        ServerConfig serverConfigMock = mock(ServerConfig.class);
+        doReturn(configuredNumAcceptorChannels).when(serverConfigMock).numAcceptorChannels();
+        Server server = new Server(serverConfigMock);
+
+        // when
+        Throwable ex = catchThrowable(
+            () -> server.determineNumAcceptorChannels(serverConfigMock, EpollServerSocketChannel.class)
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Your ServerConfig.numAcceptorChannels() must be at least 1");
+    }
+
+    @DataProvider(value = {
+        "true   |   true",
+        "true   |   false",
+        "false  |   true",
+        "false  |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void registerObjectMapperModules_returns_mapper_as_is_if_there_are_no_modules(
+        boolean mapperIsNull, boolean modulesIsNull
+    ) {
+        // given
+        ObjectMapper mapper = (mapperIsNull) ? null : mock(ObjectMapper.class);
+        List<Module> modules = (modulesIsNull) ? null : Collections.emptyList();
+        Server server = new Server(mock(ServerConfig.class));
+
+        // when
+        ObjectMapper result = server.registerObjectMapperModules(mapper, modules);
+
+        // then
+        assertThat(result).isSameAs(mapper);
+        if (mapper != null) {
+            verifyNoMoreInteractions(mapper);
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void registerObjectMapperModules_registers_modules_with_given_mapper_or_new_one_if_mapper_is_null(
+        boolean mapperIsNull
+    ) {
+        // given
+        ObjectMapper mapper = (mapperIsNull) ? null : new ObjectMapper();
+        Module module = new SimpleModule("someModule") { };
+        Server server = new Server(mock(ServerConfig.class));
+
+        // when
+        ObjectMapper result = server.registerObjectMapperModules(mapper, singletonList(module));
+
+        // then
+        assertThat(result).isNotNull();
+        if (mapper != null) {
+            assertThat(result).isSameAs(mapper);
+        }
+        assertThat(result.getRegisteredModuleIds()).containsExactly(module.getTypeId());
+    }
+
     @Test
     public void shutdown_does_nothing_if_it_has_already_been_called() throws InterruptedException {
         // given
@@ -132,6 +569,7 @@ public class ServerTest {
         server.shutdown();
 
         verify(serverShutdownHookMock, times(1)).executeServerShutdownHook(serverConfigMock, channelMock);
+        verify(serverShutdownHookMock, times(1)).executeServerDrainFinishedHook(serverConfigMock, channelMock, 0L);
 
         // when
         server.shutdown(); // called a second time
@@ -1,9 +1,17 @@
 package com.nike.riposte.server.channelpipeline;
 
 import com.nike.internal.util.Pair;
+import com.nike.riposte.client.asynchttp.netty.DownstreamAddressResolver;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+import com.nike.riposte.server.config.ServerConfig.EndpointRoutingConfig;
+import com.nike.riposte.server.config.ServerConfig.Http1PipeliningConfig;
+import com.nike.riposte.server.config.ServerConfig.Http2Config;
 import com.nike.riposte.server.config.ServerConfig.HttpRequestDecoderConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterConnectionPoolConfig;
+import com.nike.riposte.server.config.ServerConfig.ProxyRouterDnsConfig;
+import com.nike.riposte.server.config.ServerConfig.TransportType;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
@@ -17,6 +25,9 @@ import com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler;
 import com.nike.riposte.server.handler.DTraceEndHandler;
 import com.nike.riposte.server.handler.DTraceStartHandler;
 import com.nike.riposte.server.handler.ExceptionHandlingHandler;
+import com.nike.riposte.server.handler.FullHttpRequestSplitterHandler;
+import com.nike.riposte.server.handler.HttpPipeliningHandler;
+import com.nike.riposte.server.handler.IdleChannelTimeoutHandler;
 import com.nike.riposte.server.handler.NonblockingEndpointExecutionHandler;
 import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.handler.ProcessFinalResponseOutputHandler;
@@ -33,11 +44,14 @@ import com.nike.riposte.server.handler.RoutingHandler;
 import com.nike.riposte.server.handler.SecurityValidationHandler;
 import com.nike.riposte.server.handler.SmartHttpContentCompressor;
 import com.nike.riposte.server.handler.SmartHttpContentDecompressor;
+import com.nike.riposte.server.handler.StreamingRequestEndpointExecutionHandler;
 import com.nike.riposte.server.hooks.PipelineCreateHook;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
+import com.nike.riposte.server.routing.CompiledEndpointRouter;
+import com.nike.riposte.server.routing.RouteCache;
 import com.nike.riposte.testutils.Whitebox;
 import com.nike.riposte.util.Matcher;
 import com.nike.wingtips.Span;
@@ -52,6 +66,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -64,15 +79,27 @@ import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLException;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInboundHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
@@ -90,7 +117,9 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 /**
@@ -217,6 +246,76 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(resFH, "filtersInResponseProcessingOrder"), is(reversedFilters));
     }
 
+    @Test
+    public void constructor_applies_the_given_options() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        TransportType proxyRouterTransportType = TransportType.NIO;
+        ChannelOptionsConfig proxyRouterChannelOptionsConfig = new ChannelOptionsConfig() {};
+        ProxyRouterDnsConfig proxyRouterDnsConfig = new ProxyRouterDnsConfig() {};
+        ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig = new ProxyRouterConnectionPoolConfig() {};
+        EndpointRoutingConfig endpointRoutingConfig = new EndpointRoutingConfig() {
+            @Override
+            public boolean isCompiledRouterEnabled() {
+                return true;
+            }
+
+            @Override
+            public int routeCacheMaxSize() {
+                return 42;
+            }
+        };
+        HttpChannelInitializerOptions options = HttpChannelInitializerOptions
+            .newBuilder()
+            .withEndpointRoutingConfig(endpointRoutingConfig)
+            .withProxyRouterTransportType(proxyRouterTransportType)
+            .withProxyRouterChannelOptionsConfig(proxyRouterChannelOptionsConfig)
+            .withProxyRouterDnsConfig(proxyRouterDnsConfig)
+            .withProxyRouterConnectionPoolConfig(proxyRouterConnectionPoolConfig)
+            .build();
+
+        // when
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), metricsListener, 4242L,
+            null, null, null, 121, 42, 321, 100, false, null, 123, null, mock(DistributedTracingConfig.class), options);
+
+        // then
+        CompiledEndpointRouter compiledEndpointRouter = extractField(hci, "compiledEndpointRouter");
+        assertThat(compiledEndpointRouter, notNullValue());
+        assertThat(compiledEndpointRouter.getNumCompiledTemplates(), is(1));
+        RouteCache routeCache = extractField(hci, "routeCache");
+        assertThat(routeCache, notNullValue());
+        assertThat(routeCache.getMaxSize(), is(42));
+        assertThat(extractField(routeCache, "metricsListener"), is(metricsListener));
+
+        StreamingAsyncHttpClient sahc = extractField(hci, "streamingAsyncHttpClientForProxyRouterEndpoints");
+        assertThat(extractField(sahc, "transportType"), is(proxyRouterTransportType));
+        assertThat(extractField(sahc, "channelOptionsConfig"), is(proxyRouterChannelOptionsConfig));
+        DownstreamAddressResolver downstreamAddressResolver = extractField(sahc, "downstreamAddressResolver");
+        assertThat(extractField(downstreamAddressResolver, "dnsConfig"), is(proxyRouterDnsConfig));
+        assertThat(extractField(sahc, "connectionPoolConfig"), is(proxyRouterConnectionPoolConfig));
+        assertThat(extractField(sahc, "metricsListener"), is(metricsListener));
+    }
+
+    @Test
+    public void constructor_treats_null_options_as_the_default_options() {
+        // when
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L,
+            null, null, null, 121, 42, 321, 100, false, null, 123, null, mock(DistributedTracingConfig.class), null);
+
+        // then
+        assertThat(extractField(hci, "compiledEndpointRouter"), nullValue());
+        assertThat(extractField(hci, "routeCache"), nullValue());
+        assertThat(extractField(hci, "http2Settings"), nullValue());
+        assertThat(extractField(hci, "http1PipeliningConfig"), nullValue());
+        StreamingAsyncHttpClient sahc = extractField(hci, "streamingAsyncHttpClientForProxyRouterEndpoints");
+        assertThat(extractField(sahc, "transportType"), is(TransportType.AUTO));
+        assertThat(extractField(sahc, "channelOptionsConfig"), is(ChannelOptionsConfig.DEFAULT_IMPL));
+    }
+
     @Test
     public void constructor_gracefully_handles_some_null_args() {
         // when
@@ -242,6 +341,36 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(hci, "cachedResponseFilterHandler"), nullValue());
         assertThat(extractField(hci, "userIdHeaderKeys"), nullValue());
         assertThat(extractField(hci, "httpRequestDecoderConfig"), is(HttpRequestDecoderConfig.DEFAULT_IMPL));
+        assertThat(extractField(hci, "compiledEndpointRouter"), nullValue());
+        assertThat(extractField(hci, "routeCache"), nullValue());
+        StreamingAsyncHttpClient sahc = extractField(hci, "streamingAsyncHttpClientForProxyRouterEndpoints");
+        assertThat(extractField(sahc, "transportType"), is(TransportType.AUTO));
+        assertThat(extractField(sahc, "channelOptionsConfig"), is(ChannelOptionsConfig.DEFAULT_IMPL));
+    }
+
+    @Test
+    public void constructor_does_not_create_routeCache_if_an_endpoint_uses_a_custom_matcher() {
+        // given
+        Endpoint<?> customMatcherEndpoint = mock(Endpoint.class);
+        doReturn(mock(Matcher.class)).when(customMatcherEndpoint).requestMatcher();
+        EndpointRoutingConfig endpointRoutingConfig = new EndpointRoutingConfig() {
+            @Override
+            public int routeCacheMaxSize() {
+                return 42;
+            }
+        };
+
+        // when
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path"), customMatcherEndpoint), null, null,
+            mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, mock(DistributedTracingConfig.class),
+            HttpChannelInitializerOptions.newBuilder().withEndpointRoutingConfig(endpointRoutingConfig).build());
+
+        // then
+        assertThat(extractField(hci, "routeCache"), nullValue());
     }
 
     @Test
@@ -386,6 +515,46 @@ public class HttpChannelInitializerTest {
             null, 123, null, mock(DistributedTracingConfig.class));
     }
 
+    private HttpChannelInitializer basicHttp2ChannelInitializer(SslContext sslCtx, long workerChannelIdleTimeoutMillis,
+                                                                int maxOpenChannelsThreshold) {
+        Http2Config http2Config = new Http2Config() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+        };
+
+        return new HttpChannelInitializer(
+            sslCtx, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, workerChannelIdleTimeoutMillis, 4200, 1234, maxOpenChannelsThreshold, false,
+            null, 123, null, mock(DistributedTracingConfig.class),
+            HttpChannelInitializerOptions.newBuilder().withHttp2Config(http2Config).build());
+    }
+
+    private HttpChannelInitializer basicPipeliningChannelInitializer(long workerChannelIdleTimeoutMillis,
+                                                                     int maxOpenChannelsThreshold,
+                                                                     int maxInFlightRequestsPerConnection) {
+        Http1PipeliningConfig http1PipeliningConfig = new Http1PipeliningConfig() {
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public int maxInFlightRequestsPerConnection() {
+                return maxInFlightRequestsPerConnection;
+            }
+        };
+
+        return new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class),
+            mock(RiposteUnhandledErrorHandler.class), null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, workerChannelIdleTimeoutMillis, 4200, 1234, maxOpenChannelsThreshold, false,
+            null, 123, null, mock(DistributedTracingConfig.class),
+            HttpChannelInitializerOptions.newBuilder().withHttp1PipeliningConfig(http1PipeliningConfig).build());
+    }
+
     @Test
     public void initChannel_adds_all_handlers_with_correct_names() throws SSLException {
         RequestAndResponseFilter beforeSecurityRequestFilter = mock(RequestAndResponseFilter.class);
@@ -423,6 +592,7 @@ public class HttpChannelInitializerTest {
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_CONTENT_VALIDATION_HANDLER_NAME), any(RequestContentValidationHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.NONBLOCKING_ENDPOINT_EXECUTION_HANDLER_NAME), any(NonblockingEndpointExecutionHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.PROXY_ROUTER_ENDPOINT_EXECUTION_HANDLER_NAME), any(ProxyRouterEndpointExecutionHandler.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.STREAMING_REQUEST_ENDPOINT_EXECUTION_HANDLER_NAME), any(StreamingRequestEndpointExecutionHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_HAS_BEEN_HANDLED_VERIFICATION_HANDLER_NAME), any(RequestHasBeenHandledVerificationHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.EXCEPTION_HANDLING_HANDLER_NAME), any(ExceptionHandlingHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.RESPONSE_FILTER_HANDLER_NAME), any(ResponseFilterHandler.class));
@@ -858,6 +1028,48 @@ public class HttpChannelInitializerTest {
                 routingHandler.getRight(), "spanNamingAndTaggingStrategy"
             );
         assertThat(actualNamingStrategy, is(expectedServerSpanNamingAndTaggingStrategy));
+        assertThat(Whitebox.getInternalState(routingHandler.getRight(), "compiledEndpointRouter"), nullValue());
+        assertThat(Whitebox.getInternalState(routingHandler.getRight(), "routeCache"), nullValue());
+    }
+
+    @Test
+    public void initChannel_gives_RoutingHandler_the_shared_compiledEndpointRouter() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializerNoUtilityHandlers();
+        CompiledEndpointRouter expectedRouter = new CompiledEndpointRouter(extractField(hci, "endpoints"));
+        Whitebox.setInternalState(hci, "compiledEndpointRouter", expectedRouter);
+        Whitebox.setInternalState(hci, "distributedTracingConfig", mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        Pair<Integer, RoutingHandler> routingHandler =
+            findChannelHandler(channelHandlerArgumentCaptor.getAllValues(), RoutingHandler.class);
+        assertThat(routingHandler, notNullValue());
+        assertThat(Whitebox.getInternalState(routingHandler.getRight(), "compiledEndpointRouter"), is(expectedRouter));
+    }
+
+    @Test
+    public void initChannel_gives_RoutingHandler_the_shared_routeCache() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializerNoUtilityHandlers();
+        RouteCache expectedRouteCache = new RouteCache(42, null);
+        Whitebox.setInternalState(hci, "routeCache", expectedRouteCache);
+        Whitebox.setInternalState(hci, "distributedTracingConfig", mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        Pair<Integer, RoutingHandler> routingHandler =
+            findChannelHandler(channelHandlerArgumentCaptor.getAllValues(), RoutingHandler.class);
+        assertThat(routingHandler, notNullValue());
+        assertThat(Whitebox.getInternalState(routingHandler.getRight(), "routeCache"), is(expectedRouteCache));
     }
 
     @Test
@@ -912,6 +1124,8 @@ public class HttpChannelInitializerTest {
         // and then
         ObjectMapper actualRequestContentDeserializer = (ObjectMapper) Whitebox.getInternalState(requestContentDeserializerHandler.getRight(), "defaultRequestContentDeserializer");
         assertThat(actualRequestContentDeserializer, is(expectedRequestContentDeserializer));
+        Object actualReaderCache = Whitebox.getInternalState(requestContentDeserializerHandler.getRight(), "jacksonCodecCache");
+        assertThat(actualReaderCache, is(Whitebox.getInternalState(hci, "requestContentReaderCache")));
     }
 
     @Test
@@ -1226,6 +1440,323 @@ public class HttpChannelInitializerTest {
         hooks.forEach(hook -> verify(hook).executePipelineCreateHook(channelPipelineMock));
     }
 
+    @Test
+    public void constructor_creates_http2Settings_from_http2Config_only_if_http2_is_enabled() {
+        // when
+        HttpChannelInitializer disabled = basicHttpChannelInitializerNoUtilityHandlers();
+        HttpChannelInitializer enabled = basicHttp2ChannelInitializer(null, 0, -1);
+
+        // then
+        assertThat(extractField(disabled, "http2Settings"), nullValue());
+        Http2Settings http2Settings = extractField(enabled, "http2Settings");
+        Assertions.assertThat(http2Settings.maxConcurrentStreams()).isEqualTo(100L);
+        Assertions.assertThat(http2Settings.initialWindowSize()).isEqualTo(65535);
+    }
+
+    @DataProvider(value = {
+        "0      |   65535   |   Your ServerConfig.http2Config().maxConcurrentStreams() must be greater than 0. max_concurrent_streams=0",
+        "-1     |   65535   |   Your ServerConfig.http2Config().maxConcurrentStreams() must be greater than 0. max_concurrent_streams=-1",
+        "100    |   -1      |   Your ServerConfig.http2Config().initialWindowSize() cannot be negative. initial_window_size=-1"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void createHttp2Settings_throws_IllegalArgumentException_for_invalid_config(
+        long maxConcurrentStreams, int initialWindowSize, String expectedMessage
+    ) {
+        // given
+        Http2Config http2Config = new Http2Config() {
+            @Override
+            public long maxConcurrentStreams() {
+                return maxConcurrentStreams;
+            }
+
+            @Override
+            public int initialWindowSize() {
+                return initialWindowSize;
+            }
+        };
+
+        // when
+        Throwable ex = Assertions.catchThrowable(() -> HttpChannelInitializer.createHttp2Settings(http2Config));
+
+        // then
+        Assertions.assertThat(ex)
+                  .isInstanceOf(IllegalArgumentException.class)
+                  .hasMessage(expectedMessage);
+    }
+
+    @Test
+    public void initChannel_adds_prior_knowledge_selection_and_upgrade_handlers_around_HttpServerCodec_for_cleartext_http2() {
+        // given
+        HttpChannelInitializer hci = basicHttp2ChannelInitializer(null, 0, -1);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        InOrder inOrder = inOrder(channelPipelineMock);
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP2_PROTOCOL_SELECTION_HANDLER_NAME),
+            any(HttpChannelInitializer.Http2PriorKnowledgeSelectionHandler.class)
+        );
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME), any(HttpServerCodec.class)
+        );
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP2_CLEARTEXT_UPGRADE_HANDLER_NAME), any(HttpServerUpgradeHandler.class)
+        );
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME),
+            any(ProcessFinalResponseOutputHandler.class)
+        );
+    }
+
+    @Test
+    public void initChannel_adds_alpn_selection_handler_after_SslHandler_for_ssl_http2() throws SSLException {
+        // given
+        HttpChannelInitializer hci = basicHttp2ChannelInitializer(SslContextBuilder.forClient().build(), 0, -1);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        InOrder inOrder = inOrder(channelPipelineMock);
+        inOrder.verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.SSL_HANDLER_NAME), any(SslHandler.class));
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP2_PROTOCOL_SELECTION_HANDLER_NAME),
+            any(HttpChannelInitializer.Http2AlpnSelectionHandler.class)
+        );
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME), any(HttpServerCodec.class)
+        );
+        verify(channelPipelineMock, never()).addLast(
+            eq(HttpChannelInitializer.HTTP2_CLEARTEXT_UPGRADE_HANDLER_NAME), any(ChannelHandler.class)
+        );
+    }
+
+    private EmbeddedChannel http2CleartextConnection(HttpChannelInitializer hci) {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ch.pipeline().addLast(HttpChannelInitializer.HTTP2_PROTOCOL_SELECTION_HANDLER_NAME,
+                              hci.new Http2PriorKnowledgeSelectionHandler());
+        ch.pipeline().addLast(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME, new HttpServerCodec());
+        ch.pipeline().addLast("someHttp1Handler", new ChannelInboundHandlerAdapter());
+        return ch;
+    }
+
+    @DataProvider(value = {
+        "0",
+        "42"
+    })
+    @Test
+    public void Http2PriorKnowledgeSelectionHandler_switches_connection_to_http2_when_it_sees_the_connection_preface(
+        long workerChannelIdleTimeoutMillis
+    ) {
+        // given
+        EmbeddedChannel ch = http2CleartextConnection(
+            basicHttp2ChannelInitializer(null, workerChannelIdleTimeoutMillis, -1)
+        );
+
+        // when
+        ch.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+
+        // then
+        ChannelPipeline p = ch.pipeline();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP2_FRAME_CODEC_HANDLER_NAME))
+                  .isInstanceOf(Http2FrameCodec.class);
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP2_MULTIPLEX_HANDLER_NAME))
+                  .isInstanceOf(Http2MultiplexHandler.class);
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP2_PROTOCOL_SELECTION_HANDLER_NAME)).isNull();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME)).isNull();
+        Assertions.assertThat(p.get("someHttp1Handler")).isNull();
+        if (workerChannelIdleTimeoutMillis > 0) {
+            Assertions.assertThat(p.first()).isInstanceOf(IdleChannelTimeoutHandler.class);
+            Assertions.assertThat(p.get(HttpChannelInitializer.IDLE_CHANNEL_TIMEOUT_HANDLER_NAME)).isSameAs(p.first());
+        }
+        else {
+            Assertions.assertThat(p.get(HttpChannelInitializer.IDLE_CHANNEL_TIMEOUT_HANDLER_NAME)).isNull();
+        }
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void Http2PriorKnowledgeSelectionHandler_removes_itself_and_leaves_http1_handlers_for_non_http2_bytes() {
+        // given
+        EmbeddedChannel ch = http2CleartextConnection(basicHttp2ChannelInitializer(null, 0, -1));
+        ByteBuf http1Request = Unpooled.copiedBuffer("GET /foo HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+
+        // when
+        ch.writeInbound(http1Request);
+
+        // then
+        ChannelPipeline p = ch.pipeline();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP2_PROTOCOL_SELECTION_HANDLER_NAME)).isNull();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP2_FRAME_CODEC_HANDLER_NAME)).isNull();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME)).isNotNull();
+        Assertions.assertThat(p.get("someHttp1Handler")).isNotNull();
+        Object msg = ch.readInbound();
+        Assertions.assertThat(msg).isInstanceOf(HttpRequest.class);
+        Assertions.assertThat(((HttpRequest) msg).uri()).isEqualTo("/foo");
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void Http2PriorKnowledgeSelectionHandler_waits_for_more_bytes_if_partial_preface_matches() {
+        // given
+        EmbeddedChannel ch = http2CleartextConnection(basicHttp2ChannelInitializer(null, 0, -1));
+        ByteBuf partialPreface = Http2CodecUtil.connectionPrefaceBuf().readRetainedSlice(10);
+
+        // when
+        ch.writeInbound(partialPreface);
+
+        // then
+        ChannelPipeline p = ch.pipeline();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP2_PROTOCOL_SELECTION_HANDLER_NAME)).isNotNull();
+        Assertions.assertThat(p.get(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME)).isNotNull();
+        Assertions.assertThat((Object) ch.readInbound()).isNull();
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void newHttp2UpgradeCodec_only_supports_h2c() {
+        // given
+        HttpChannelInitializer hci = basicHttp2ChannelInitializer(null, 0, -1);
+
+        // expect
+        Assertions.assertThat(hci.newHttp2UpgradeCodec("h2c")).isInstanceOf(Http2ServerUpgradeCodec.class);
+        Assertions.assertThat(hci.newHttp2UpgradeCodec("websocket")).isNull();
+    }
+
+    @Test
+    public void newHttp2StreamInitializer_adds_frame_codec_and_request_handlers_but_not_OpenChannelLimitHandler() {
+        // given
+        HttpChannelInitializer hci = basicHttp2ChannelInitializer(null, 0, 100);
+        List<PipelineCreateHook> hooks = Collections.singletonList(mock(PipelineCreateHook.class));
+        Whitebox.setInternalState(hci, "pipelineCreateHooks", hooks);
+
+        // when
+        EmbeddedChannel ch = new EmbeddedChannel(hci.newHttp2StreamInitializer());
+
+        // then
+        List<String> names = ch.pipeline().names();
+        Assertions.assertThat(names.subList(0, 4)).containsExactly(
+            HttpChannelInitializer.HTTP2_STREAM_FRAME_TO_HTTP_OBJECT_CODEC_HANDLER_NAME,
+            HttpChannelInitializer.FULL_HTTP_REQUEST_SPLITTER_HANDLER_NAME,
+            HttpChannelInitializer.PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME,
+            HttpChannelInitializer.REQUEST_STATE_CLEANER_HANDLER_NAME
+        );
+        Assertions.assertThat(ch.pipeline().first()).isInstanceOf(Http2StreamFrameToHttpObjectCodec.class);
+        Assertions.assertThat(ch.pipeline().get(HttpChannelInitializer.FULL_HTTP_REQUEST_SPLITTER_HANDLER_NAME))
+                  .isInstanceOf(FullHttpRequestSplitterHandler.class);
+        Assertions.assertThat(names).contains(HttpChannelInitializer.CHANNEL_PIPELINE_FINALIZER_HANDLER_NAME);
+        Assertions.assertThat(names).doesNotContain(
+            HttpChannelInitializer.OPEN_CHANNEL_LIMIT_HANDLER_NAME,
+            HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME
+        );
+        hooks.forEach(hook -> verify(hook).executePipelineCreateHook(ch.pipeline()));
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void constructor_sets_http1PipeliningConfig_only_if_pipelining_is_enabled() {
+        // when
+        HttpChannelInitializer disabled = basicHttpChannelInitializerNoUtilityHandlers();
+        HttpChannelInitializer enabled = basicPipeliningChannelInitializer(0, -1, 42);
+
+        // then
+        assertThat(extractField(disabled, "http1PipeliningConfig"), nullValue());
+        Http1PipeliningConfig config = extractField(enabled, "http1PipeliningConfig");
+        Assertions.assertThat(config.maxInFlightRequestsPerConnection()).isEqualTo(42);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_pipelining_maxInFlightRequestsPerConnection_is_not_positive(
+        int badValue
+    ) {
+        // when
+        Throwable ex = Assertions.catchThrowable(() -> basicPipeliningChannelInitializer(0, -1, badValue));
+
+        // then
+        Assertions.assertThat(ex)
+                  .isInstanceOf(IllegalArgumentException.class)
+                  .hasMessage("Your ServerConfig.http1PipeliningConfig().maxInFlightRequestsPerConnection() must be "
+                              + "greater than 0. max_in_flight_requests_per_connection=" + badValue);
+    }
+
+    @DataProvider(value = {
+        "0      |   -1",
+        "42     |   100"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void initChannel_adds_HttpPipeliningHandler_after_HttpServerCodec_instead_of_request_handlers_if_pipelining_is_enabled(
+        long workerChannelIdleTimeoutMillis, int maxOpenChannelsThreshold
+    ) {
+        // given
+        HttpChannelInitializer hci =
+            basicPipeliningChannelInitializer(workerChannelIdleTimeoutMillis, maxOpenChannelsThreshold, 42);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        InOrder inOrder = inOrder(channelPipelineMock);
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME), any(HttpServerCodec.class)
+        );
+        if (maxOpenChannelsThreshold != -1) {
+            inOrder.verify(channelPipelineMock).addLast(
+                eq(HttpChannelInitializer.OPEN_CHANNEL_LIMIT_HANDLER_NAME), any(OpenChannelLimitHandler.class)
+            );
+        }
+        ArgumentCaptor<HttpPipeliningHandler> pipeliningHandlerCaptor =
+            ArgumentCaptor.forClass(HttpPipeliningHandler.class);
+        inOrder.verify(channelPipelineMock).addLast(
+            eq(HttpChannelInitializer.HTTP1_PIPELINING_HANDLER_NAME), pipeliningHandlerCaptor.capture()
+        );
+        Assertions.assertThat((int) extractField(pipeliningHandlerCaptor.getValue(), "maxInFlightRequests"))
+                  .isEqualTo(42);
+        verify(channelPipelineMock, never()).addLast(
+            eq(HttpChannelInitializer.PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME),
+            any(ProcessFinalResponseOutputHandler.class)
+        );
+        if (workerChannelIdleTimeoutMillis > 0) {
+            verify(channelPipelineMock).addFirst(
+                eq(HttpChannelInitializer.IDLE_CHANNEL_TIMEOUT_HANDLER_NAME), any(IdleChannelTimeoutHandler.class)
+            );
+        }
+        else {
+            verify(channelPipelineMock, never()).addFirst(anyString(), any(ChannelHandler.class));
+        }
+    }
+
+    @Test
+    public void newPipelinedRequestInitializer_adds_request_handlers_but_not_codec_or_OpenChannelLimitHandler() {
+        // given
+        HttpChannelInitializer hci = basicPipeliningChannelInitializer(0, 100, 42);
+        List<PipelineCreateHook> hooks = Collections.singletonList(mock(PipelineCreateHook.class));
+        Whitebox.setInternalState(hci, "pipelineCreateHooks", hooks);
+
+        // when
+        EmbeddedChannel ch = new EmbeddedChannel(hci.newPipelinedRequestInitializer());
+
+        // then
+        List<String> names = ch.pipeline().names();
+        Assertions.assertThat(names.subList(0, 2)).containsExactly(
+            HttpChannelInitializer.PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME,
+            HttpChannelInitializer.REQUEST_STATE_CLEANER_HANDLER_NAME
+        );
+        Assertions.assertThat(names).contains(HttpChannelInitializer.CHANNEL_PIPELINE_FINALIZER_HANDLER_NAME);
+        Assertions.assertThat(names).doesNotContain(
+            HttpChannelInitializer.OPEN_CHANNEL_LIMIT_HANDLER_NAME,
+            HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME,
+            HttpChannelInitializer.HTTP1_PIPELINING_HANDLER_NAME
+        );
+        hooks.forEach(hook -> verify(hook).executePipelineCreateHook(ch.pipeline()));
+        ch.finishAndReleaseAll();
+    }
+
     private List<RequestAndResponseFilter> createRequestAndResponseFilterMock() {
         RequestAndResponseFilter beforeSecurityRequestFilter = mock(RequestAndResponseFilter.class);
         doReturn(true).when(beforeSecurityRequestFilter).shouldExecuteBeforeSecurityValidation();
@@ -1,5 +1,6 @@
 package com.nike.riposte.server.handler;
 
+import com.nike.riposte.client.asynchttp.netty.ChannelBackpressure;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessage;
@@ -280,6 +281,43 @@ public class ChannelPipelineFinalizerHandlerTest {
         Assertions.assertThat(state.isRequestMetricsRecordedOrScheduled()).isEqualTo(metricsAlreadyScheduled);
     }
 
+    @Test
+    public void finalizeChannelPipeline_closes_proxy_router_backpressure_and_records_paused_times() throws Exception {
+        // given
+        ChannelBackpressure requestBodyBackpressureMock = mock(ChannelBackpressure.class);
+        ChannelBackpressure responseBodyBackpressureMock = mock(ChannelBackpressure.class);
+        doReturn(42L).when(requestBodyBackpressureMock).getTotalPausedTimeNanos();
+        doReturn(4242L).when(responseBodyBackpressureMock).getTotalPausedTimeNanos();
+        doReturn(requestBodyBackpressureMock).when(proxyRouterStateMock).getRequestBodyBackpressure();
+        doReturn(responseBodyBackpressureMock).when(proxyRouterStateMock).getResponseBodyBackpressure();
+        state.setResponseWriterFinalChunkChannelFuture(mock(ChannelFuture.class));
+
+        // when
+        handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        verify(proxyRouterStateMock).closeBackpressure();
+        verify(requestInfoMock).addRequestAttribute(
+            ProxyRouterEndpointExecutionHandler.REQUEST_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY, 42L
+        );
+        verify(requestInfoMock).addRequestAttribute(
+            ProxyRouterEndpointExecutionHandler.RESPONSE_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY, 4242L
+        );
+    }
+
+    @Test
+    public void finalizeChannelPipeline_does_not_record_paused_times_if_request_was_not_proxied() throws Exception {
+        // given
+        doReturn(null).when(proxyRouterProcessingStateAttributeMock).get();
+        state.setResponseWriterFinalChunkChannelFuture(mock(ChannelFuture.class));
+
+        // when
+        handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        verify(requestInfoMock, never()).addRequestAttribute(anyString(), any());
+    }
+
     @Test
     public void finalizeChannelPipeline_should_send_error_response_if_state_indicates_no_response_already_sent() throws JsonProcessingException {
         // given
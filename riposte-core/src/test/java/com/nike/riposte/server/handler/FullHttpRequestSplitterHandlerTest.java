@@ -0,0 +1,96 @@
+package com.nike.riposte.server.handler;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link FullHttpRequestSplitterHandler}.
+ */
+public class FullHttpRequestSplitterHandlerTest {
+
+    @Test
+    public void splits_FullHttpRequest_into_HttpRequest_and_LastHttpContent() {
+        // given
+        EmbeddedChannel ch = new EmbeddedChannel(new FullHttpRequestSplitterHandler());
+        ByteBuf content = Unpooled.copiedBuffer("some payload", StandardCharsets.UTF_8);
+        FullHttpRequest fullRequest = new DefaultFullHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.POST, "/some/path", content
+        );
+        fullRequest.headers().set("foo", "bar");
+        fullRequest.trailingHeaders().set("some-trailer", "baz");
+
+        // when
+        ch.writeInbound(fullRequest);
+
+        // then
+        Object first = ch.readInbound();
+        assertThat(first).isInstanceOf(HttpRequest.class).isNotInstanceOf(HttpContent.class);
+        HttpRequest request = (HttpRequest) first;
+        assertThat(request.method()).isEqualTo(HttpMethod.POST);
+        assertThat(request.uri()).isEqualTo("/some/path");
+        assertThat(request.protocolVersion()).isEqualTo(HttpVersion.HTTP_1_1);
+        assertThat(request.headers().get("foo")).isEqualTo("bar");
+        assertThat(request.decoderResult().isSuccess()).isTrue();
+
+        Object second = ch.readInbound();
+        assertThat(second).isInstanceOf(LastHttpContent.class);
+        LastHttpContent lastContent = (LastHttpContent) second;
+        assertThat(lastContent.content().toString(StandardCharsets.UTF_8)).isEqualTo("some payload");
+        assertThat(lastContent.trailingHeaders().get("some-trailer")).isEqualTo("baz");
+        assertThat(lastContent.refCnt()).isEqualTo(1);
+
+        assertThat((Object) ch.readInbound()).isNull();
+        lastContent.release();
+        assertThat(content.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void uses_EMPTY_LAST_CONTENT_for_FullHttpRequest_without_content_or_trailers() {
+        // given
+        EmbeddedChannel ch = new EmbeddedChannel(new FullHttpRequestSplitterHandler());
+        FullHttpRequest fullRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path");
+        fullRequest.setDecoderResult(DecoderResult.failure(new Exception("intentional test exception")));
+
+        // when
+        ch.writeInbound(fullRequest);
+
+        // then
+        HttpRequest request = ch.readInbound();
+        assertThat(request.decoderResult().isFailure()).isTrue();
+        assertThat((Object) ch.readInbound()).isSameAs(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertThat(fullRequest.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void passes_other_messages_through_untouched() {
+        // given
+        EmbeddedChannel ch = new EmbeddedChannel(new FullHttpRequestSplitterHandler());
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/some/path");
+        HttpContent chunk = new DefaultHttpContent(Unpooled.copiedBuffer("chunk", StandardCharsets.UTF_8));
+
+        // when
+        ch.writeInbound(request, chunk);
+
+        // then
+        assertThat((Object) ch.readInbound()).isSameAs(request);
+        assertThat((Object) ch.readInbound()).isSameAs(chunk);
+        chunk.release();
+    }
+}
@@ -0,0 +1,324 @@
+package com.nike.riposte.server.handler;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link HttpPipeliningHandler}.
+ */
+@RunWith(DataProviderRunner.class)
+public class HttpPipeliningHandlerTest {
+
+    private static final AttributeKey<String> TEST_ATTR_KEY = AttributeKey.valueOf("HttpPipeliningHandlerTestAttr");
+
+    private List<Channel> requestChannels;
+    private List<List<Object>> requestChannelMessages;
+    private EmbeddedChannel connection;
+    private HttpPipeliningHandler handler;
+
+    @Before
+    public void beforeMethod() {
+        requestChannels = new ArrayList<>();
+        requestChannelMessages = new ArrayList<>();
+        handler = new HttpPipeliningHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                requestChannels.add(ch);
+                List<Object> messages = new ArrayList<>();
+                requestChannelMessages.add(messages);
+                ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        messages.add(msg);
+                    }
+                });
+            }
+        }, 3);
+        connection = new EmbeddedChannel(handler);
+    }
+
+    private static HttpRequest request(String uri) {
+        return new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+    }
+
+    private static FullHttpResponse response(String payload) {
+        return new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8)
+        );
+    }
+
+    private List<String> readOutboundPayloads() {
+        List<String> payloads = new ArrayList<>();
+        Object msg;
+        while ((msg = connection.readOutbound()) != null) {
+            if (msg instanceof HttpContent) {
+                payloads.add(((HttpContent) msg).content().toString(StandardCharsets.UTF_8));
+            }
+            else {
+                payloads.add(msg.getClass().getSimpleName());
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        return payloads;
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_bad_args() {
+        // expect
+        //noinspection ConstantConditions
+        assertThat(catchThrowable(() -> new HttpPipeliningHandler(null, 1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("requestChannelInitializer cannot be null");
+        assertThat(catchThrowable(() -> new HttpPipeliningHandler(new ChannelInboundHandlerAdapter(), 0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxInFlightRequests must be at least 1");
+    }
+
+    @Test
+    public void each_request_gets_its_own_child_channel_with_its_own_attributes_and_content() {
+        // given
+        HttpRequest firstRequest = request("/first");
+        HttpContent firstChunk = new DefaultHttpContent(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8));
+        LastHttpContent firstLastChunk = new DefaultLastHttpContent();
+        HttpRequest secondRequest = request("/second");
+
+        // when
+        connection.writeInbound(firstRequest, firstChunk, firstLastChunk, secondRequest,
+                                LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(requestChannels).hasSize(2);
+        Channel first = requestChannels.get(0);
+        Channel second = requestChannels.get(1);
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.isActive()).isTrue();
+        assertThat(first.parent()).isSameAs(connection);
+        assertThat(first.eventLoop()).isSameAs(connection.eventLoop());
+
+        first.attr(TEST_ATTR_KEY).set("foo");
+        assertThat(second.attr(TEST_ATTR_KEY).get()).isNull();
+        assertThat(connection.attr(TEST_ATTR_KEY).get()).isNull();
+
+        assertThat(requestChannelMessages.get(0)).containsExactly(firstRequest, firstChunk, firstLastChunk);
+        assertThat(requestChannelMessages.get(1)).containsExactly(secondRequest, LastHttpContent.EMPTY_LAST_CONTENT);
+        assertThat(handler.numInFlightRequests()).isEqualTo(2);
+        assertThat(handler.hasInFlightRequests()).isTrue();
+        firstChunk.release();
+    }
+
+    @Test
+    public void responses_are_written_to_the_connection_in_request_order() {
+        // given
+        connection.writeInbound(request("/first"), LastHttpContent.EMPTY_LAST_CONTENT,
+                                request("/second"), LastHttpContent.EMPTY_LAST_CONTENT,
+                                request("/third"), LastHttpContent.EMPTY_LAST_CONTENT);
+        Channel first = requestChannels.get(0);
+        Channel second = requestChannels.get(1);
+        Channel third = requestChannels.get(2);
+
+        // when
+        ChannelFuture thirdFuture = third.writeAndFlush(response("third"));
+        ChannelFuture secondFuture = second.writeAndFlush(response("second"));
+
+        // then
+        assertThat(readOutboundPayloads()).isEmpty();
+        assertThat(secondFuture.isDone()).isFalse();
+        assertThat(thirdFuture.isDone()).isFalse();
+
+        // and when
+        first.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        first.writeAndFlush(new DefaultHttpContent(Unpooled.copiedBuffer("first-a", StandardCharsets.UTF_8)));
+        assertThat(readOutboundPayloads()).containsExactly("DefaultHttpResponse", "first-a");
+        ChannelFuture firstFuture =
+            first.writeAndFlush(new DefaultLastHttpContent(Unpooled.copiedBuffer("first-b", StandardCharsets.UTF_8)));
+        connection.runPendingTasks();
+
+        // then
+        assertThat(readOutboundPayloads()).containsExactly("first-b", "second", "third");
+        assertThat(firstFuture.isSuccess()).isTrue();
+        assertThat(secondFuture.isSuccess()).isTrue();
+        assertThat(thirdFuture.isSuccess()).isTrue();
+        assertThat(first.isOpen()).isFalse();
+        assertThat(second.isOpen()).isFalse();
+        assertThat(third.isOpen()).isFalse();
+        assertThat(handler.hasInFlightRequests()).isFalse();
+        assertThat(connection.isOpen()).isTrue();
+    }
+
+    @Test
+    public void stops_reading_from_the_connection_while_at_max_in_flight_requests() {
+        // given
+        connection.writeInbound(request("/first"), LastHttpContent.EMPTY_LAST_CONTENT,
+                                request("/second"), LastHttpContent.EMPTY_LAST_CONTENT);
+        assertThat(connection.config().isAutoRead()).isTrue();
+
+        // when
+        connection.writeInbound(request("/third"), LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(connection.config().isAutoRead()).isFalse();
+
+        // and when
+        requestChannels.get(0).writeAndFlush(response("first"));
+
+        // then
+        assertThat(connection.config().isAutoRead()).isTrue();
+        assertThat(readOutboundPayloads()).containsExactly("first");
+    }
+
+    @Test
+    public void stops_reading_from_the_connection_while_the_request_channel_receiving_content_has_auto_read_off() {
+        // given
+        connection.writeInbound(request("/first"));
+        Channel first = requestChannels.get(0);
+        assertThat(connection.config().isAutoRead()).isTrue();
+
+        // when
+        first.config().setAutoRead(false);
+
+        // then
+        assertThat(connection.config().isAutoRead()).isFalse();
+
+        // and when
+        first.config().setAutoRead(true);
+
+        // then
+        assertThat(connection.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void a_request_channel_with_auto_read_off_stops_holding_up_reads_once_its_request_content_is_done() {
+        // given
+        connection.writeInbound(request("/first"));
+        Channel first = requestChannels.get(0);
+        first.config().setAutoRead(false);
+        assertThat(connection.config().isAutoRead()).isFalse();
+
+        // when
+        connection.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(connection.config().isAutoRead()).isTrue();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void connection_is_closed_after_a_non_keep_alive_response_and_later_requests_are_discarded(
+        boolean requestAsksForClose
+    ) {
+        // given
+        HttpRequest firstRequest = request("/first");
+        if (requestAsksForClose) {
+            firstRequest.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        }
+        connection.writeInbound(firstRequest, LastHttpContent.EMPTY_LAST_CONTENT);
+        connection.writeInbound(request("/second"), LastHttpContent.EMPTY_LAST_CONTENT);
+        FullHttpResponse firstResponse = response("first");
+        if (!requestAsksForClose) {
+            firstResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        }
+
+        // when
+        requestChannels.get(0).writeAndFlush(firstResponse);
+        connection.runPendingTasks();
+
+        // then
+        assertThat(readOutboundPayloads()).containsExactly("first");
+        assertThat(connection.isOpen()).isFalse();
+        assertThat(requestChannels.get(0).isOpen()).isFalse();
+        if (requestAsksForClose) {
+            // The second request arrived after the connection was marked for closing, so it was never started.
+            assertThat(requestChannels).hasSize(1);
+        }
+        else {
+            assertThat(requestChannels.get(1).isOpen()).isFalse();
+        }
+    }
+
+    @Test
+    public void connection_is_closed_after_earlier_responses_if_a_request_channel_closes_before_finishing_its_response() {
+        // given
+        connection.writeInbound(request("/first"), LastHttpContent.EMPTY_LAST_CONTENT,
+                                request("/second"), LastHttpContent.EMPTY_LAST_CONTENT,
+                                request("/third"), LastHttpContent.EMPTY_LAST_CONTENT);
+        Channel first = requestChannels.get(0);
+        Channel second = requestChannels.get(1);
+        Channel third = requestChannels.get(2);
+        second.writeAndFlush(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        ChannelFuture thirdFuture = third.writeAndFlush(response("third"));
+
+        // when
+        second.close();
+        connection.runPendingTasks();
+
+        // then
+        assertThat(connection.isOpen()).isTrue();
+
+        // and when
+        first.writeAndFlush(response("first"));
+        connection.runPendingTasks();
+
+        // then
+        assertThat(readOutboundPayloads()).containsExactly("first");
+        assertThat(connection.isOpen()).isFalse();
+        assertThat(third.isOpen()).isFalse();
+        assertThat(thirdFuture.isSuccess()).isFalse();
+    }
+
+    @Test
+    public void closing_the_connection_closes_all_request_channels() {
+        // given
+        connection.writeInbound(request("/first"), LastHttpContent.EMPTY_LAST_CONTENT, request("/second"));
+        Channel first = requestChannels.get(0);
+        Channel second = requestChannels.get(1);
+        FullHttpResponse pendingResponse = response("second");
+        second.writeAndFlush(pendingResponse);
+
+        // when
+        connection.close();
+
+        // then
+        assertThat(first.isOpen()).isFalse();
+        assertThat(second.isOpen()).isFalse();
+        assertThat(pendingResponse.refCnt()).isEqualTo(0);
+        assertThat(handler.hasInFlightRequests()).isFalse();
+    }
+}
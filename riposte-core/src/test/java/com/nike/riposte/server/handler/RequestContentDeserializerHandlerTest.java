@@ -6,10 +6,12 @@ import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.util.JacksonCodecCache;
 import com.nike.riposte.util.Matcher;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -20,6 +22,7 @@ import java.util.UUID;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
 
@@ -28,6 +31,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -124,6 +128,60 @@ public class RequestContentDeserializerHandlerTest {
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
+    @Test
+    public void doChannelRead_passes_cached_reader_to_setupContentDeserializer_if_handler_has_a_JacksonCodecCache() throws Exception {
+        // given
+        JacksonCodecCache cacheMock = mock(JacksonCodecCache.class);
+        ObjectReader readerMock = mock(ObjectReader.class);
+        doReturn(readerMock).when(cacheMock).getReader(defaultHandlerDeserializerMock, contentTypeRef);
+        doReturn(null).when(endpointMock).customRequestContentDeserializer(any());
+        RequestContentDeserializerHandler handlerWithCache =
+            new RequestContentDeserializerHandler(defaultHandlerDeserializerMock, cacheMock);
+
+        // when
+        PipelineContinuationBehavior result = handlerWithCache.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(requestInfoSpy).setupContentDeserializer(defaultHandlerDeserializerMock, contentTypeRef, readerMock);
+        verify(cacheMock).getReader(defaultHandlerDeserializerMock, contentTypeRef);
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_sets_up_incremental_deserialization_for_HttpRequest_if_endpoint_wants_it() throws Exception {
+        // given
+        JacksonCodecCache cacheMock = mock(JacksonCodecCache.class);
+        ObjectReader readerMock = mock(ObjectReader.class);
+        doReturn(readerMock).when(cacheMock).getReader(defaultHandlerDeserializerMock, contentTypeRef);
+        doReturn(true).when(endpointMock).isIncrementalRequestContentDeserializationEnabled(requestInfoSpy);
+        RequestContentDeserializerHandler handlerWithCache =
+            new RequestContentDeserializerHandler(defaultHandlerDeserializerMock, cacheMock);
+
+        // when
+        PipelineContinuationBehavior result = handlerWithCache.doChannelRead(ctxMock, mock(HttpRequest.class));
+
+        // then
+        verify(requestInfoSpy).setupIncrementalContentDeserializer(
+            defaultHandlerDeserializerMock, contentTypeRef, readerMock
+        );
+        verify(requestInfoSpy, never()).setupContentDeserializer(any(), any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_does_not_set_up_incremental_deserialization_if_endpoint_does_not_want_it() throws Exception {
+        // given
+        doReturn(false).when(endpointMock).isIncrementalRequestContentDeserializationEnabled(requestInfoSpy);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpRequest.class));
+
+        // then
+        verify(requestInfoSpy, never()).setupIncrementalContentDeserializer(any(), any(), any());
+        verify(requestInfoSpy, never()).setupContentDeserializer(any(), any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
     @Test
     public void doChannelRead_uses_TypeReference_from_endpoint_requestContentType_method() throws Exception {
         // given
@@ -15,6 +15,10 @@ import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.routing.CompiledEndpointRouter;
+import com.nike.riposte.server.routing.CompiledEndpointRouter.RouteMatch;
+import com.nike.riposte.server.routing.RouteCache;
+import com.nike.riposte.server.routing.RouteCache.CachedRoute;
 import com.nike.riposte.util.Matcher;
 import com.nike.wingtips.Span;
 
@@ -34,6 +38,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -42,6 +48,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
@@ -128,6 +135,36 @@ public class RoutingHandlerTest {
         assertThat(actualEndpoints).isSameAs(endpoints);
         assertThat(theHandler.globalConfiguredMaxRequestSizeInBytes).isEqualTo(maxRequestSizeInBytes);
         assertThat(theHandler.spanNamingAndTaggingStrategy).isSameAs(spanNamingStrategySpy);
+        assertThat(theHandler.compiledEndpointRouter).isNull();
+        assertThat(theHandler.routeCache).isNull();
+    }
+
+    @Test
+    public void constructor_sets_compiledEndpointRouter_when_provided() {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+
+        // when
+        RoutingHandler theHandler = new RoutingHandler(
+            endpoints, maxRequestSizeInBytes, distributedTracingConfigMock, router
+        );
+
+        // then
+        assertThat(theHandler.compiledEndpointRouter).isSameAs(router);
+    }
+
+    @Test
+    public void constructor_sets_routeCache_when_provided() {
+        // given
+        RouteCache routeCache = new RouteCache(42, null);
+
+        // when
+        RoutingHandler theHandler = new RoutingHandler(
+            endpoints, maxRequestSizeInBytes, distributedTracingConfigMock, null, routeCache
+        );
+
+        // then
+        assertThat(theHandler.routeCache).isSameAs(routeCache);
     }
 
     @DataProvider(value = {
@@ -180,6 +217,99 @@ public class RoutingHandlerTest {
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
+    @Test
+    public void doChannelRead_uses_compiledEndpointRouter_when_available_then_sets_path_params_and_endpoint_on_state() {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+        handlerSpy = spy(new RoutingHandler(endpoints, maxRequestSizeInBytes, distributedTracingConfigMock, router));
+        HttpRequest msg = mock(HttpRequest.class);
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(handlerSpy).findSingleRouteMatchForExecution(router, requestInfoMock);
+        verify(handlerSpy, never()).findSingleEndpointForExecution(any(RequestInfo.class));
+        verify(requestInfoMock).setPathParamsBasedOnPathTemplate(defaultPath, null);
+        verify(stateMock).setEndpointForExecution(endpointMock, defaultPath);
+        verify(handlerSpy).handleSpanNameUpdateForRequestWithPathTemplate(msg, requestInfoMock, stateMock);
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_caches_successfully_routed_request_when_routeCache_is_available() {
+        // given
+        RouteCache routeCache = new RouteCache(42, null);
+        handlerSpy = spy(
+            new RoutingHandler(endpoints, maxRequestSizeInBytes, distributedTracingConfigMock, null, routeCache)
+        );
+        Map<String, String> pathParams = Collections.singletonMap("vipname", "foo");
+        doReturn(HttpMethod.GET).when(requestInfoMock).getMethod();
+        doReturn("/some/path/foo").when(requestInfoMock).getPath();
+        doReturn(pathParams).when(requestInfoMock).getPathParams();
+        HttpRequest msg = mock(HttpRequest.class);
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(handlerSpy).findSingleEndpointForExecution(requestInfoMock);
+        verify(stateMock).setEndpointForExecution(endpointMock, defaultPath);
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(routeCache.getMissCount()).isEqualTo(1);
+        CachedRoute cachedRoute = routeCache.get(HttpMethod.GET, "/some/path/foo", null);
+        assertThat(cachedRoute).isNotNull();
+        assertThat(cachedRoute.endpoint()).isSameAs(endpointMock);
+        assertThat(cachedRoute.pathTemplate()).isEqualTo(defaultPath);
+        assertThat(cachedRoute.pathParams()).isEqualTo(pathParams);
+    }
+
+    @Test
+    public void doChannelRead_uses_cached_route_when_available_and_skips_endpoint_matching() {
+        // given
+        RouteCache routeCache = new RouteCache(42, null);
+        Map<String, String> pathParams = Collections.singletonMap("vipname", "foo");
+        routeCache.put(HttpMethod.GET, "/some/path/foo", new CachedRoute(endpointMock, defaultPath, pathParams));
+        handlerSpy = spy(
+            new RoutingHandler(endpoints, maxRequestSizeInBytes, distributedTracingConfigMock, null, routeCache)
+        );
+        doReturn(HttpMethod.GET).when(requestInfoMock).getMethod();
+        doReturn("/some/path/foo").when(requestInfoMock).getPath();
+        HttpRequest msg = mock(HttpRequest.class);
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(handlerSpy, never()).findSingleEndpointForExecution(any(RequestInfo.class));
+        verify(matcherMock, never()).matchesPath(any(RequestInfo.class));
+        verify(requestInfoMock).setPathParamsBasedOnPathTemplate(defaultPath, pathParams);
+        verify(stateMock).setEndpointForExecution(endpointMock, defaultPath);
+        verify(handlerSpy).handleSpanNameUpdateForRequestWithPathTemplate(msg, requestInfoMock, stateMock);
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(routeCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void doChannelRead_does_not_cache_request_that_fails_routing() {
+        // given
+        RouteCache routeCache = new RouteCache(42, null);
+        handlerSpy = spy(
+            new RoutingHandler(endpoints, maxRequestSizeInBytes, distributedTracingConfigMock, null, routeCache)
+        );
+        doReturn(Optional.empty()).when(matcherMock).matchesPath(any(RequestInfo.class));
+        doReturn(HttpMethod.GET).when(requestInfoMock).getMethod();
+        doReturn("/does/not/exist").when(requestInfoMock).getPath();
+        HttpRequest msg = mock(HttpRequest.class);
+
+        // when
+        Throwable ex = catchThrowable(() -> handlerSpy.doChannelRead(ctxMock, msg));
+
+        // then
+        assertThat(ex).isInstanceOf(PathNotFound404Exception.class);
+        assertThat(routeCache.size()).isEqualTo(0);
+    }
+
     private enum SpanNameUpdateScenario {
         NEW_SPAN_NAME(
             "newSpanName-" + UUID.randomUUID().toString(), "origSpanName", false, true
@@ -310,6 +440,76 @@ public class RoutingHandlerTest {
         handlerSpy.findSingleEndpointForExecution(requestInfoMock);
     }
 
+    private RequestInfo<?> requestInfoMockForPathAndMethod(String path, HttpMethod method) {
+        RequestInfo<?> requestMock = mock(RequestInfo.class);
+        doReturn(path).when(requestMock).getPath();
+        doReturn(method).when(requestMock).getMethod();
+        return requestMock;
+    }
+
+    @Test
+    public void findSingleRouteMatchForExecution_returns_matching_route_with_captured_path_params() {
+        // given
+        Endpoint<?> fooEndpoint = mock(Endpoint.class);
+        doReturn(Matcher.match("/foo/{id}", HttpMethod.GET)).when(fooEndpoint).requestMatcher();
+        Endpoint<?> barEndpoint = mock(Endpoint.class);
+        doReturn(Matcher.match("/bar/{id}", HttpMethod.GET)).when(barEndpoint).requestMatcher();
+        CompiledEndpointRouter router = new CompiledEndpointRouter(Arrays.asList(fooEndpoint, barEndpoint));
+
+        // when
+        RouteMatch result = handlerSpy.findSingleRouteMatchForExecution(
+            router, requestInfoMockForPathAndMethod("/bar/42", HttpMethod.GET)
+        );
+
+        // then
+        assertThat(result.endpoint()).isSameAs(barEndpoint);
+        assertThat(result.pathTemplate()).isEqualTo("/bar/{id}");
+        Map<String, String> expectedPathParams = new HashMap<>();
+        expectedPathParams.put("id", "42");
+        assertThat(result.pathParams()).isEqualTo(expectedPathParams);
+    }
+
+    @Test
+    public void findSingleRouteMatchForExecution_throws_PathNotFound404Exception_if_no_matching_path() {
+        // given
+        doReturn(Optional.empty()).when(matcherMock).matchesPath(any(RequestInfo.class));
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+
+        // when
+        Throwable ex = catchThrowable(() -> handlerSpy.findSingleRouteMatchForExecution(router, requestInfoMock));
+
+        // then
+        assertThat(ex).isInstanceOf(PathNotFound404Exception.class);
+    }
+
+    @Test
+    public void findSingleRouteMatchForExecution_throws_MethodNotAllowed405Exception_if_path_matches_but_method_does_not() {
+        // given
+        doReturn(false).when(matcherMock).matchesMethod(any(RequestInfo.class));
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+
+        // when
+        Throwable ex = catchThrowable(() -> handlerSpy.findSingleRouteMatchForExecution(router, requestInfoMock));
+
+        // then
+        assertThat(ex).isInstanceOf(MethodNotAllowed405Exception.class);
+    }
+
+    @Test
+    public void findSingleRouteMatchForExecution_throws_MultipleMatchingEndpointsException_if_multiple_endpoints_fully_match() {
+        // given
+        Endpoint<?> alsoMatchingEndpointMock = mock(Endpoint.class);
+        doReturn(matcherMock).when(alsoMatchingEndpointMock).requestMatcher();
+        endpoints.add(alsoMatchingEndpointMock);
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+
+        // when
+        Throwable ex = catchThrowable(() -> handlerSpy.findSingleRouteMatchForExecution(router, requestInfoMock));
+
+        // then
+        assertThat(ex).isInstanceOf(MultipleMatchingEndpointsException.class);
+    }
+
     @Test
     public void doChannelRead_HttpRequest_throws_exception_when_content_length_header_greater_than_configured_global_request_limit() {
         // given
@@ -0,0 +1,407 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.distributedtracing.DefaultRiposteServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StreamingRequestBodyPublisher;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.testutils.Whitebox;
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.util.TracingState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Publisher;
+import org.slf4j.MDC;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.Attribute;
+import io.netty.util.concurrent.EventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link StreamingRequestEndpointExecutionHandler}.
+ */
+public class StreamingRequestEndpointExecutionHandlerTest {
+
+    private StreamingRequestEndpointExecutionHandler handlerSpy;
+    private HttpProcessingState stateMock;
+    private ChannelHandlerContext ctxMock;
+    private Channel channelMock;
+    private EventLoop eventLoopMock;
+    private Attribute<HttpProcessingState> stateAttrMock;
+    private RequestInfoImpl requestInfoSpy;
+    private StreamingRequestEndpoint<?> endpointMock;
+    private Executor longRunningTaskExecutorMock;
+    private long defaultCompletableFutureTimeoutMillis = 4242;
+    private CompletableFuture<ResponseInfo<?>> responseFuture;
+    private CompletableFuture<Void> stateWorkChainFutureSpy;
+    private CompletableFuture futureThatWillBeAttachedToSpy;
+    private HttpRequest requestMsg = mock(HttpRequest.class);
+    private EventExecutor eventExecutorMock;
+    private DistributedTracingConfig<Span> distributedTracingConfigMock;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void beforeMethod() {
+        stateMock = mock(HttpProcessingState.class);
+        ctxMock = mock(ChannelHandlerContext.class);
+        channelMock = mock(Channel.class);
+        stateAttrMock = mock(Attribute.class);
+        requestInfoSpy = spy(RequestInfoImpl.dummyInstanceForUnknownRequests());
+        endpointMock = mock(StreamingRequestEndpoint.class);
+        longRunningTaskExecutorMock = mock(Executor.class);
+        responseFuture = new CompletableFuture<>();
+        stateWorkChainFutureSpy = spy(CompletableFuture.completedFuture(null));
+        eventLoopMock = mock(EventLoop.class);
+        eventExecutorMock = mock(EventExecutor.class);
+
+        distributedTracingConfigMock = mock(DistributedTracingConfig.class);
+        doReturn(DefaultRiposteServerSpanNamingAndTaggingStrategy.getDefaultInstance())
+            .when(distributedTracingConfigMock).getServerSpanNamingAndTaggingStrategy();
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttrMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(stateMock).when(stateAttrMock).get();
+        doReturn(false).when(stateMock).isRequestHandled();
+        doReturn(endpointMock).when(stateMock).getEndpointForExecution();
+        doReturn(requestInfoSpy).when(stateMock).getRequestInfo();
+        doReturn(responseFuture).when(endpointMock).execute(
+            any(RequestInfo.class), any(Publisher.class), any(Executor.class), any(ChannelHandlerContext.class)
+        );
+        doReturn(null).when(endpointMock).completableFutureTimeoutOverrideMillis();
+        doReturn(eventLoopMock).when(channelMock).eventLoop();
+        doReturn(true).when(eventLoopMock).inEventLoop();
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(eventLoopMock).execute(any(Runnable.class));
+        doReturn(eventExecutorMock).when(ctxMock).executor();
+        doReturn(true).when(eventExecutorMock).inEventLoop();
+        doReturn(true).when(channelMock).isActive();
+        doAnswer(invocation -> {
+            CompletableFuture actualFutureForAttaching = (CompletableFuture) invocation.callRealMethod();
+            futureThatWillBeAttachedToSpy = spy(actualFutureForAttaching);
+            return futureThatWillBeAttachedToSpy;
+        }).when(stateWorkChainFutureSpy).thenCompose(any(Function.class));
+        doReturn(stateWorkChainFutureSpy).when(stateMock).getPreEndpointExecutionWorkChain();
+
+        handlerSpy = spy(new StreamingRequestEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock
+        ));
+
+        resetTracingAndMdc();
+
+        Tracer.getInstance().startRequestWithRootSpan("someRootSpan");
+        TracingState tracingState = TracingState.getCurrentThreadTracingState();
+        doReturn(tracingState.getLeft()).when(stateMock).getDistributedTraceStack();
+        doReturn(tracingState.getRight()).when(stateMock).getLoggerMdcContextMap();
+    }
+
+    @After
+    public void afterMethod() {
+        resetTracingAndMdc();
+    }
+
+    private void resetTracingAndMdc() {
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+    }
+
+    @Test
+    public void constructor_sets_variables_based_on_args_passed_in() {
+        // when
+        StreamingRequestEndpointExecutionHandler theHandler = new StreamingRequestEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock
+        );
+
+        // then
+        Executor actualExecutor = (Executor) Whitebox.getInternalState(theHandler, "longRunningTaskExecutor");
+        long actualTimeoutValue = (long) Whitebox.getInternalState(theHandler, "defaultCompletableFutureTimeoutMillis");
+        assertThat(actualExecutor).isEqualTo(longRunningTaskExecutorMock);
+        assertThat(actualTimeoutValue).isEqualTo(defaultCompletableFutureTimeoutMillis);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_passed_null_executor() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new StreamingRequestEndpointExecutionHandler(null, 42, distributedTracingConfigMock)
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("longRunningTaskExecutor cannot be null");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_passed_null_distributedTracingConfig() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new StreamingRequestEndpointExecutionHandler(longRunningTaskExecutorMock, 42, null)
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("distributedTracingConfig cannot be null");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void doChannelRead_executes_endpoint_with_body_publisher_and_schedules_timeout_and_returns_DO_NOT_FIRE_CONTINUE_EVENT_for_HttpRequest() {
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, requestMsg);
+
+        // then
+        ArgumentCaptor<Publisher> publisherCaptor = ArgumentCaptor.forClass(Publisher.class);
+        verify(endpointMock).execute(
+            eq(requestInfoSpy), publisherCaptor.capture(), eq(longRunningTaskExecutorMock), eq(ctxMock)
+        );
+        assertThat(publisherCaptor.getValue()).isSameAs(handlerSpy.requestBodyPublisher);
+        verify(requestInfoSpy).contentChunksWillBeReleasedExternally();
+        // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
+        verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(any(BiConsumer.class));
+        verify(eventLoopMock).schedule(
+            any(Runnable.class), eq(defaultCompletableFutureTimeoutMillis), eq(TimeUnit.MILLISECONDS)
+        );
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+    }
+
+    @Test
+    public void doChannelRead_hands_content_chunks_to_the_body_publisher_and_returns_DO_NOT_FIRE_CONTINUE_EVENT() {
+        // given
+        StreamingRequestBodyPublisher publisherMock = mock(StreamingRequestBodyPublisher.class);
+        handlerSpy.requestBodyPublisher = publisherMock;
+        HttpContent chunkMock = mock(HttpContent.class);
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, chunkMock);
+
+        // then
+        verify(publisherMock).addChunk(chunkMock);
+        verify(chunkMock, never()).release();
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+    }
+
+    @Test
+    public void doChannelRead_releases_content_chunks_if_there_is_no_body_publisher() {
+        // given
+        HttpContent chunkMock = mock(HttpContent.class);
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, chunkMock);
+
+        // then
+        verify(chunkMock).release();
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_and_returns_CONTINUE_if_endpoint_is_not_StreamingRequestEndpoint() {
+        // given
+        doReturn(mock(Endpoint.class)).when(stateMock).getEndpointForExecution();
+        HttpContent chunkMock = mock(HttpContent.class);
+
+        // when
+        PipelineContinuationBehavior requestResult = handlerSpy.doChannelRead(ctxMock, requestMsg);
+        PipelineContinuationBehavior chunkResult = handlerSpy.doChannelRead(ctxMock, chunkMock);
+
+        // then
+        verifyNoInteractions(endpointMock, eventLoopMock, chunkMock);
+        assertThat(handlerSpy.requestBodyPublisher).isNull();
+        assertThat(requestResult).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(chunkResult).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_schedules_timeout_using_endpoint_value_if_endpoint_specifies_one() {
+        // given
+        Long endpointValue = defaultCompletableFutureTimeoutMillis + 1;
+        doReturn(endpointValue).when(endpointMock).completableFutureTimeoutOverrideMillis();
+
+        // when
+        handlerSpy.doChannelRead(ctxMock, requestMsg);
+
+        // then
+        verify(eventLoopMock).schedule(any(Runnable.class), eq(endpointValue), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private BiConsumer<ResponseInfo<?>, Throwable> extractContinuationLogic() {
+        handlerSpy.doChannelRead(ctxMock, requestMsg);
+        ArgumentCaptor<BiConsumer> completionLogicArgumentCaptor = ArgumentCaptor.forClass(BiConsumer.class);
+        // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
+        verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(completionLogicArgumentCaptor.capture());
+        // The first whenComplete is the continuation logic, so that's what we'll grab
+        return completionLogicArgumentCaptor.getAllValues().get(0);
+    }
+
+    @Test
+    public void doChannelRead_completion_logic_fails_unconsumed_body_and_calls_asyncCallback_on_success() {
+        // given
+        BiConsumer<ResponseInfo<?>, Throwable> continuationLogic = extractContinuationLogic();
+        StreamingRequestBodyPublisher publisher = handlerSpy.requestBodyPublisher;
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+
+        // when
+        continuationLogic.accept(responseInfo, null);
+
+        // then
+        verify(handlerSpy).failRequestBody(eq(publisher), any(IllegalStateException.class));
+        assertThat(handlerSpy.requestBodyPublisher).isNull();
+        verify(handlerSpy).asyncCallback(ctxMock, responseInfo);
+        verify(handlerSpy, never()).asyncErrorCallback(any(ChannelHandlerContext.class), any(Throwable.class));
+    }
+
+    @Test
+    public void doChannelRead_completion_logic_fails_body_with_error_and_calls_asyncErrorCallback_on_failure() {
+        // given
+        BiConsumer<ResponseInfo<?>, Throwable> continuationLogic = extractContinuationLogic();
+        StreamingRequestBodyPublisher publisher = handlerSpy.requestBodyPublisher;
+        Throwable cause = new Exception("intentional test exception");
+
+        // when
+        continuationLogic.accept(null, cause);
+
+        // then
+        verify(handlerSpy).failRequestBody(publisher, cause);
+        verify(handlerSpy).asyncErrorCallback(ctxMock, cause);
+        verify(handlerSpy, never()).asyncCallback(any(ChannelHandlerContext.class), any(ResponseInfo.class));
+    }
+
+    @Test
+    public void doChannelInactive_fails_body_publisher_if_last_chunk_has_not_arrived() {
+        // given
+        StreamingRequestBodyPublisher publisherMock = mock(StreamingRequestBodyPublisher.class);
+        doReturn(false).when(publisherMock).isLastChunkReceived();
+        handlerSpy.requestBodyPublisher = publisherMock;
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelInactive(ctxMock);
+
+        // then
+        verify(publisherMock).fail(any(ClosedChannelException.class));
+        assertThat(handlerSpy.requestBodyPublisher).isNull();
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelInactive_does_not_fail_body_publisher_if_last_chunk_has_arrived() {
+        // given
+        StreamingRequestBodyPublisher publisherMock = mock(StreamingRequestBodyPublisher.class);
+        doReturn(true).when(publisherMock).isLastChunkReceived();
+        handlerSpy.requestBodyPublisher = publisherMock;
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelInactive(ctxMock);
+
+        // then
+        verify(publisherMock, never()).fail(any(Throwable.class));
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doExceptionCaught_fails_body_publisher() {
+        // given
+        StreamingRequestBodyPublisher publisherMock = mock(StreamingRequestBodyPublisher.class);
+        handlerSpy.requestBodyPublisher = publisherMock;
+        Throwable cause = new Exception("intentional test exception");
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doExceptionCaught(ctxMock, cause);
+
+        // then
+        verify(publisherMock).fail(cause);
+        assertThat(handlerSpy.requestBodyPublisher).isNull();
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(
+            handlerSpy.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, null, null, null)
+        ).isFalse();
+    }
+
+    @Test
+    public void asyncCallback_calls_asyncErrorCallback_if_responseInfo_is_chunked() {
+        // given
+        ResponseInfo<?> responseInfo = ResponseInfo.newChunkedResponseBuilder().build();
+
+        // when
+        handlerSpy.asyncCallback(ctxMock, responseInfo);
+
+        // then
+        verify(handlerSpy, never()).setResponseInfoAndActivatePipelineForResponse(
+            any(HttpProcessingState.class), any(ResponseInfo.class), any(ChannelHandlerContext.class)
+        );
+        verify(handlerSpy).asyncErrorCallback(eq(ctxMock), any(Exception.class));
+    }
+
+    @Test
+    public void asyncCallback_calls_setResponseInfoAndActivatePipelineForResponse_for_full_responses() {
+        // given
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+
+        // when
+        handlerSpy.asyncCallback(ctxMock, responseInfo);
+
+        // then
+        verify(handlerSpy).setResponseInfoAndActivatePipelineForResponse(stateMock, responseInfo, ctxMock);
+    }
+
+    @Test
+    public void doExecuteEndpointFunction_provides_friendly_exception_message_if_endpoint_execute_method_returns_null() {
+        // given
+        doReturn(null).when(endpointMock).execute(
+            any(RequestInfo.class), any(Publisher.class), any(Executor.class), any(ChannelHandlerContext.class)
+        );
+        StreamingRequestBodyPublisher publisher = new StreamingRequestBodyPublisher(channelMock);
+
+        Function<Void, CompletableFuture<ResponseInfo<?>>> executeFunc = handlerSpy
+            .doExecuteEndpointFunction(requestInfoSpy, endpointMock, publisher, null, ctxMock);
+
+        // when
+        Throwable ex = catchThrowable(() -> executeFunc.apply(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(NullPointerException.class)
+            .hasMessage("StreamingRequestEndpoint.execute() cannot return null.");
+    }
+}
@@ -0,0 +1,138 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link InFlightRequestTracker}.
+ */
+@RunWith(DataProviderRunner.class)
+public class InFlightRequestTrackerTest {
+
+    @DataProvider(value = {
+        "RESPONSE_SENT",
+        "RESPONSE_WRITE_FAILED"
+    })
+    @Test
+    public void onEvent_counts_in_flight_requests(ServerMetricsEvent completionEvent) {
+        // given
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+
+        // when
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+        tracker.onEvent(completionEvent, null);
+
+        // then
+        assertThat(tracker.getNumInFlightRequests()).isEqualTo(1);
+    }
+
+    @Test
+    public void onEvent_never_lets_the_in_flight_count_go_negative() {
+        // given
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+
+        // when
+        tracker.onEvent(ServerMetricsEvent.RESPONSE_SENT, null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+
+        // then
+        assertThat(tracker.getNumInFlightRequests()).isEqualTo(1);
+    }
+
+    @DataProvider(value = {
+        "REQUEST_RECEIVED",
+        "RESPONSE_SENT",
+        "RESPONSE_WRITE_FAILED"
+    })
+    @Test
+    public void onEvent_passes_events_on_to_the_delegate(ServerMetricsEvent event) {
+        // given
+        MetricsListener delegateMock = mock(MetricsListener.class);
+        InFlightRequestTracker tracker = new InFlightRequestTracker(delegateMock);
+        Object value = new Object();
+
+        // when
+        tracker.onEvent(event, value);
+
+        // then
+        assertThat(tracker.getDelegate()).isSameAs(delegateMock);
+        verify(delegateMock).onEvent(event, value);
+    }
+
+    @Test
+    public void startDraining_turns_on_drain_mode() {
+        // given
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+        assertThat(tracker.isDraining()).isFalse();
+
+        // when
+        tracker.startDraining();
+
+        // then
+        assertThat(tracker.isDraining()).isTrue();
+    }
+
+    @Test
+    public void awaitNoInFlightRequests_returns_once_the_last_in_flight_request_finishes() throws InterruptedException {
+        // given
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+        Thread finisher = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            tracker.onEvent(ServerMetricsEvent.RESPONSE_SENT, null);
+        });
+
+        // when
+        long start = System.currentTimeMillis();
+        finisher.start();
+        long result = tracker.awaitNoInFlightRequests(10_000);
+        long duration = System.currentTimeMillis() - start;
+
+        // then
+        assertThat(result).isEqualTo(0);
+        assertThat(duration).isLessThan(5_000);
+    }
+
+    @Test
+    public void awaitNoInFlightRequests_returns_the_remaining_count_when_the_timeout_is_hit()
+        throws InterruptedException {
+        // given
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+        tracker.onEvent(ServerMetricsEvent.REQUEST_RECEIVED, null);
+
+        // when
+        long result = tracker.awaitNoInFlightRequests(50);
+
+        // then
+        assertThat(result).isEqualTo(2);
+    }
+
+    @Test
+    public void awaitNoInFlightRequests_returns_immediately_when_nothing_is_in_flight() throws InterruptedException {
+        // given
+        InFlightRequestTracker tracker = new InFlightRequestTracker(null);
+
+        // when
+        long result = tracker.awaitNoInFlightRequests(0);
+
+        // then
+        assertThat(result).isEqualTo(0);
+    }
+}
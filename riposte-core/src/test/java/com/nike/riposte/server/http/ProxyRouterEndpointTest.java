@@ -1,5 +1,10 @@
 package com.nike.riposte.server.http;
 
+import com.nike.riposte.client.loadbalancing.RoundRobinUpstreamLoadBalancer;
+import com.nike.riposte.client.loadbalancing.UpstreamCluster;
+import com.nike.riposte.client.loadbalancing.UpstreamTarget;
+import com.nike.riposte.client.retry.DownstreamRetryPolicy;
+import com.nike.riposte.client.retry.RetryBudget;
 import com.nike.riposte.server.http.ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo;
 import com.nike.riposte.util.Matcher;
 
@@ -11,6 +16,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -104,6 +111,81 @@ public class ProxyRouterEndpointTest {
             .hasMessage("firstChunk cannot be null.");
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void downstreamRequestFirstChunkInfo_upstreamCluster_constructor_picks_target_from_cluster(boolean isHttps) {
+        // given
+        UpstreamTarget firstTarget = new UpstreamTarget("host1", 8080);
+        UpstreamTarget secondTarget = new UpstreamTarget("host2", 8081);
+        UpstreamCluster cluster = new UpstreamCluster(
+            Arrays.asList(firstTarget, secondTarget), isHttps, new RoundRobinUpstreamLoadBalancer()
+        );
+        HttpRequest firstChunk = mock(HttpRequest.class);
+
+        // when
+        DownstreamRequestFirstChunkInfo firstInfo = new DownstreamRequestFirstChunkInfo(cluster, firstChunk);
+        DownstreamRequestFirstChunkInfo secondInfo = new DownstreamRequestFirstChunkInfo(
+            cluster, firstChunk, Optional.empty(), true
+        );
+
+        // then
+        assertThat(firstInfo.host).isEqualTo("host1");
+        assertThat(firstInfo.port).isEqualTo(8080);
+        assertThat(firstInfo.isHttps).isEqualTo(isHttps);
+        assertThat(firstInfo.firstChunk).isSameAs(firstChunk);
+        assertThat(firstInfo.customCircuitBreaker).isEmpty();
+        assertThat(firstInfo.disableCircuitBreaker).isFalse();
+        assertThat(firstInfo.upstreamCluster).isSameAs(cluster);
+        assertThat(firstInfo.upstreamTarget).isSameAs(firstTarget);
+
+        assertThat(secondInfo.host).isEqualTo("host2");
+        assertThat(secondInfo.port).isEqualTo(8081);
+        assertThat(secondInfo.disableCircuitBreaker).isTrue();
+        assertThat(secondInfo.upstreamTarget).isSameAs(secondTarget);
+
+        assertThat(firstTarget.getNumOutstandingRequests()).isEqualTo(1);
+        assertThat(secondTarget.getNumOutstandingRequests()).isEqualTo(1);
+    }
+
+    @Test
+    public void downstreamRequestFirstChunkInfo_host_constructor_has_no_upstream_cluster() {
+        // when
+        DownstreamRequestFirstChunkInfo instance =
+            new DownstreamRequestFirstChunkInfo("localhost", 8080, true, mock(HttpRequest.class));
+
+        // then
+        assertThat(instance.upstreamCluster).isNull();
+        assertThat(instance.upstreamTarget).isNull();
+    }
+
+    @Test
+    public void downstreamRequestFirstChunkInfo_upstreamCluster_constructor_throws_IllegalArgumentException_for_null_args() {
+        // given
+        UpstreamTarget target = new UpstreamTarget("localhost", 8080);
+        UpstreamCluster cluster = new UpstreamCluster(
+            Arrays.asList(target), false, new RoundRobinUpstreamLoadBalancer()
+        );
+
+        // when
+        Throwable nullClusterEx = catchThrowable(
+            () -> new DownstreamRequestFirstChunkInfo((UpstreamCluster) null, mock(HttpRequest.class))
+        );
+        Throwable nullFirstChunkEx = catchThrowable(() -> new DownstreamRequestFirstChunkInfo(cluster, null));
+
+        // then
+        assertThat(nullClusterEx)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("upstreamCluster cannot be null.");
+        assertThat(nullFirstChunkEx)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("firstChunk cannot be null.");
+        // The target must not be left with an outstanding call that will never finish.
+        assertThat(target.getNumOutstandingRequests()).isEqualTo(0);
+    }
+
     @Test
     public void downstreamRequestFirstChunkInfo_defaults_to_empty_optional_if_passed_null_customCircuitBreaker_optional() {
         // when
@@ -162,6 +244,22 @@ public class ProxyRouterEndpointTest {
         assertThat(downstreamRequestFirstChunkInfo.performSubSpanAroundDownstreamCall).isEqualTo(flagValue);
     }
 
+    @Test
+    public void downstreamRequestFirstChunkInfo_allowsSettingRetryPolicy() {
+        // given
+        DownstreamRetryPolicy retryPolicy = new DownstreamRetryPolicy(2, new RetryBudget());
+        DownstreamRequestFirstChunkInfo downstreamRequestFirstChunkInfo =
+                new DownstreamRequestFirstChunkInfo("localhost", 8080, true, mock(HttpRequest.class));
+        assertThat(downstreamRequestFirstChunkInfo.retryPolicy).isNull();
+
+        // when
+        DownstreamRequestFirstChunkInfo result = downstreamRequestFirstChunkInfo.withRetryPolicy(retryPolicy);
+
+        // then
+        assertThat(result).isSameAs(downstreamRequestFirstChunkInfo);
+        assertThat(downstreamRequestFirstChunkInfo.retryPolicy).isSameAs(retryPolicy);
+    }
+
     public void downstreamRequestFirstChunkInfo_throws_IllegalArgumentException_if_constructed_with_null_firstChunk() {
         // when
         Throwable ex = catchThrowable(
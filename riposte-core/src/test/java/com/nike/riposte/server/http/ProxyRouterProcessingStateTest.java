@@ -1,5 +1,6 @@
 package com.nike.riposte.server.http;
 
+import com.nike.riposte.client.asynchttp.netty.ChannelBackpressure;
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
@@ -21,6 +22,9 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 
@@ -179,4 +183,95 @@ public class ProxyRouterProcessingStateTest {
         verify(distributedTracingConfigMock).getProxyRouterSpanNamingAndTaggingStrategy();
         assertThat(stateSpy.isTracingResponseTaggingAndFinalSpanNameCompleted()).isTrue();
     }
+
+    @Test
+    public void setupBackpressure_creates_backpressure_for_both_directions() {
+        // given
+        EmbeddedChannel incomingChannel = new EmbeddedChannel();
+        EmbeddedChannel downstreamChannel = new EmbeddedChannel();
+
+        // when
+        stateSpy.setupBackpressure(incomingChannel, downstreamChannel);
+
+        // then
+        ChannelBackpressure requestBodyBackpressure = stateSpy.getRequestBodyBackpressure();
+        assertThat(requestBodyBackpressure.getProducer()).isSameAs(incomingChannel);
+        assertThat(requestBodyBackpressure.getConsumer()).isSameAs(downstreamChannel);
+        ChannelBackpressure responseBodyBackpressure = stateSpy.getResponseBodyBackpressure();
+        assertThat(responseBodyBackpressure.getProducer()).isSameAs(downstreamChannel);
+        assertThat(responseBodyBackpressure.getConsumer()).isSameAs(incomingChannel);
+    }
+
+    @Test
+    public void closeBackpressure_and_cleanStateForNewRequest_make_sure_nothing_is_left_paused() {
+        // given
+        EmbeddedChannel incomingChannel = new EmbeddedChannel();
+        EmbeddedChannel downstreamChannel = new EmbeddedChannel();
+        stateSpy.setupBackpressure(incomingChannel, downstreamChannel);
+        ChannelBackpressure requestBodyBackpressure = stateSpy.getRequestBodyBackpressure();
+        ChannelBackpressure responseBodyBackpressure = stateSpy.getResponseBodyBackpressure();
+        downstreamChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        downstreamChannel.write(Unpooled.wrappedBuffer(new byte[32]));
+        requestBodyBackpressure.pauseProducerIfConsumerUnwritable();
+        assertThat(incomingChannel.config().isAutoRead()).isFalse();
+
+        // when
+        stateSpy.closeBackpressure();
+
+        // then
+        assertThat(incomingChannel.config().isAutoRead()).isTrue();
+        assertThat(requestBodyBackpressure.isClosed()).isTrue();
+        assertThat(responseBodyBackpressure.isClosed()).isTrue();
+        // The backpressure is kept around so its paused times can be recorded.
+        assertThat(stateSpy.getRequestBodyBackpressure()).isSameAs(requestBodyBackpressure);
+        assertThat(stateSpy.getResponseBodyBackpressure()).isSameAs(responseBodyBackpressure);
+
+        // and when
+        stateSpy.cleanStateForNewRequest();
+
+        // then
+        assertThat(stateSpy.getRequestBodyBackpressure()).isNull();
+        assertThat(stateSpy.getResponseBodyBackpressure()).isNull();
+        downstreamChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void wholeRequestSentWithFirstChunk_is_set_and_cleared_by_cleanStateForNewRequest() {
+        // given
+        assertThat(stateSpy.isWholeRequestSentWithFirstChunk()).isFalse();
+
+        // when
+        stateSpy.setWholeRequestSentWithFirstChunk();
+
+        // then
+        assertThat(stateSpy.isWholeRequestSentWithFirstChunk()).isTrue();
+
+        // and when
+        stateSpy.cleanStateForNewRequest();
+
+        // then
+        assertThat(stateSpy.isWholeRequestSentWithFirstChunk()).isFalse();
+    }
+
+    @Test
+    public void splice_passthrough_state_is_set_and_cleared_by_cleanStateForNewRequest() {
+        // given
+        EmbeddedChannel incomingChannel = new EmbeddedChannel();
+
+        // when
+        stateSpy.setSplicePassthroughIncomingChannel(incomingChannel);
+        stateSpy.addRequestBodyBytesReceived(42);
+        stateSpy.addRequestBodyBytesReceived(8);
+
+        // then
+        assertThat(stateSpy.getSplicePassthroughIncomingChannel()).isSameAs(incomingChannel);
+        assertThat(stateSpy.getRequestBodyBytesReceived()).isEqualTo(50);
+
+        // and when
+        stateSpy.cleanStateForNewRequest();
+
+        // then
+        assertThat(stateSpy.getSplicePassthroughIncomingChannel()).isNull();
+        assertThat(stateSpy.getRequestBodyBytesReceived()).isEqualTo(0);
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfi
 import com.nike.riposte.server.error.handler.ErrorResponseBodySerializer;
 import com.nike.riposte.server.http.impl.FullResponseInfo;
 import com.nike.riposte.server.testutils.TestUtil;
+import com.nike.riposte.util.CompositeByteBufOutputStream;
 import com.nike.wingtips.Span;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,13 +15,21 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -33,7 +42,13 @@ import io.netty.handler.codec.http.cookie.DefaultCookie;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(DataProviderRunner.class)
@@ -119,6 +134,168 @@ public class ResponseSenderTest {
         }
     }
 
+    @DataProvider(value = {
+        "UTF-8      |   10      |   false",
+        "UTF-8      |   100000  |   true",
+        "UTF-16     |   10      |   false",
+        "UTF-16     |   100000  |   true",
+        "ISO-8859-1 |   10      |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void serializeOutputToByteBufForResponse_serializes_objects_directly_into_buffers_from_the_ctx_allocator(
+        String charsetName, int valueLength, boolean expectComposite
+    ) throws Exception {
+        // given
+        Charset charset = Charset.forName(charsetName);
+        responseInfo.setDesiredContentWriterEncoding(charset);
+        when(ctx.alloc()).thenReturn(new UnpooledByteBufAllocator(false));
+        ObjectMapper serializer = new ObjectMapper();
+        StringBuilder value = new StringBuilder();
+        while (value.length() < valueLength) {
+            value.append("foo\u00e9");
+        }
+        Map<String, String> content = Collections.singletonMap("someKey", value.toString());
+
+        // when
+        ByteBuf result = responseSender.serializeOutputToByteBufForResponse(content, responseInfo, serializer, ctx);
+
+        // then
+        try {
+            assertThat(ByteBufUtil.getBytes(result))
+                .isEqualTo(serializer.writeValueAsString(content).getBytes(charset));
+            assertThat(result instanceof CompositeByteBuf).isEqualTo(expectComposite);
+        }
+        finally {
+            result.release();
+        }
+    }
+
+    @Test
+    public void serializeOutputToByteBufForResponse_encodes_CharSequences_in_the_response_charset() {
+        // given
+        responseInfo.setDesiredContentWriterEncoding(StandardCharsets.UTF_16);
+
+        // when
+        ByteBuf result = responseSender.serializeOutputToByteBufForResponse("foo\u00e9", responseInfo, null, ctx);
+
+        // then
+        try {
+            assertThat(ByteBufUtil.getBytes(result)).isEqualTo("foo\u00e9".getBytes(StandardCharsets.UTF_16));
+        }
+        finally {
+            result.release();
+        }
+    }
+
+    @Test
+    public void serializeOutputToByteBufForResponse_uses_default_error_response_if_serialization_fails()
+        throws Exception {
+        // given
+        // A plain Object has no properties, which a default ObjectMapper refuses to serialize.
+        ObjectMapper serializer = new ObjectMapper();
+
+        // when
+        ByteBuf result = responseSender.serializeOutputToByteBufForResponse(
+            new Object(), responseInfo, serializer, ctx
+        );
+
+        // then
+        try {
+            String errorUid = responseInfo.getHeaders().get("error_uid");
+            assertThat(errorUid).isNotNull();
+            assertThat(result.toString(StandardCharsets.UTF_8))
+                .startsWith("{\"error_id\":\"" + errorUid + "\"")
+                .contains("An error occurred while fulfilling the request");
+        }
+        finally {
+            result.release();
+        }
+    }
+
+    @Test
+    public void serializeOutputToByteBufForResponse_only_builds_one_ObjectWriter_per_serializer_and_content_class() {
+        // given
+        ObjectMapper serializerSpy = spy(new ObjectMapper());
+        Map<String, String> content = Collections.singletonMap("foo", "bar");
+
+        // when
+        ByteBuf firstResult = responseSender.serializeOutputToByteBufForResponse(
+            content, responseInfo, serializerSpy, ctx
+        );
+        ByteBuf secondResult = responseSender.serializeOutputToByteBufForResponse(
+            content, responseInfo, serializerSpy, ctx
+        );
+
+        // then
+        try {
+            assertThat(firstResult.toString(StandardCharsets.UTF_8)).isEqualTo("{\"foo\":\"bar\"}");
+            assertThat(secondResult.toString(StandardCharsets.UTF_8)).isEqualTo("{\"foo\":\"bar\"}");
+            verify(serializerSpy, times(1)).writerFor(content.getClass());
+        }
+        finally {
+            firstResult.release();
+            secondResult.release();
+        }
+    }
+
+    @Test
+    public void serializeOutputToByteBufForResponse_uses_the_serializeOutputToCompositeByteBufOutputStream_override() {
+        // given
+        responseInfo.setDesiredContentWriterEncoding(StandardCharsets.UTF_16);
+        ResponseSender customSender = new ResponseSender(null, null, distributedTracingConfigMock) {
+            @Override
+            protected void serializeOutputToCompositeByteBufOutputStream(
+                Object content, ObjectMapper serializer, ResponseInfo<?> responseInfo, ChannelHandlerContext ctx,
+                Charset charset, CompositeByteBufOutputStream out
+            ) throws IOException {
+                out.write(("custom:" + content).getBytes(charset));
+            }
+        };
+
+        // when
+        ByteBuf objectResult = customSender.serializeOutputToByteBufForResponse(
+            Collections.singletonMap("foo", "bar"), responseInfo, null, ctx
+        );
+        ByteBuf bytesResult = customSender.serializeOutputToByteBufForResponse(
+            "raw".getBytes(StandardCharsets.UTF_8), responseInfo, null, ctx
+        );
+
+        // then
+        try {
+            assertThat(objectResult.toString(StandardCharsets.UTF_16)).isEqualTo("custom:{foo=bar}");
+            assertThat(bytesResult.toString(StandardCharsets.UTF_8)).isEqualTo("raw");
+        }
+        finally {
+            objectResult.release();
+            bytesResult.release();
+        }
+    }
+
+    @Test
+    public void serializeOutputToByteBufForResponse_still_serializes_into_buffers_for_a_spied_ResponseSender()
+        throws IOException {
+        // given
+        responseInfo.setDesiredContentWriterEncoding(StandardCharsets.UTF_8);
+        ResponseSender senderSpy = spy(new ResponseSender(null, null, distributedTracingConfigMock));
+        Map<String, String> content = Collections.singletonMap("foo", "bar");
+
+        // when
+        ByteBuf result = senderSpy.serializeOutputToByteBufForResponse(content, responseInfo, null, ctx);
+
+        // then
+        try {
+            assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("{\"foo\":\"bar\"}");
+            verify(senderSpy).serializeOutputToCompositeByteBufOutputStream(
+                eq(content), any(ObjectMapper.class), eq(responseInfo), eq(ctx), eq(StandardCharsets.UTF_8),
+                any(CompositeByteBufOutputStream.class)
+            );
+            verify(senderSpy, never()).serializeOutputToString(any(), any(), any(), any());
+        }
+        finally {
+            result.release();
+        }
+    }
+
     private Set<Cookie> createCookies(int numberOfCookies) {
         if (numberOfCookies < 0) {
             return null;
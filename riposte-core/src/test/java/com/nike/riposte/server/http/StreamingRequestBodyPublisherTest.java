@@ -0,0 +1,386 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.error.exception.IncompleteHttpCallTimeoutException;
+import com.nike.riposte.server.handler.IncompleteHttpCallTimeoutHandler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static com.nike.riposte.server.channelpipeline.HttpChannelInitializer.INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link StreamingRequestBodyPublisher}.
+ */
+public class StreamingRequestBodyPublisherTest {
+
+    private EmbeddedChannel channel;
+    private StreamingRequestBodyPublisher publisher;
+    private RecordingSubscriber subscriber;
+
+    @Before
+    public void beforeMethod() {
+        channel = new EmbeddedChannel();
+        publisher = new StreamingRequestBodyPublisher(channel);
+        subscriber = new RecordingSubscriber();
+    }
+
+    @After
+    public void afterMethod() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpContent chunk(String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    private static LastHttpContent lastChunk(String content) {
+        return new DefaultLastHttpContent(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_passed_null_channel() {
+        // when
+        Throwable ex = catchThrowable(() -> new StreamingRequestBodyPublisher(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("channel cannot be null");
+    }
+
+    @Test
+    public void subscribe_throws_NullPointerException_if_passed_null_subscriber() {
+        // when
+        Throwable ex = catchThrowable(() -> publisher.subscribe(null));
+
+        // then
+        assertThat(ex).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void chunks_are_only_delivered_as_they_are_requested_and_body_completes_after_last_chunk() {
+        // given
+        publisher.subscribe(subscriber);
+        HttpContent first = chunk("foo");
+        HttpContent second = chunk("bar");
+
+        // when
+        publisher.addChunk(first);
+        publisher.addChunk(second);
+        publisher.addChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.completed).isFalse();
+
+        // and when
+        subscriber.subscription.request(1);
+
+        // then
+        assertThat(subscriber.received).containsExactly("foo");
+        assertThat(subscriber.completed).isFalse();
+
+        // and when
+        subscriber.subscription.request(5);
+
+        // then
+        assertThat(subscriber.received).containsExactly("foo", "bar");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.error).isNull();
+        assertThat(publisher.isDone()).isTrue();
+        assertThat(first.refCnt()).isZero();
+        assertThat(second.refCnt()).isZero();
+    }
+
+    @Test
+    public void auto_read_is_turned_off_while_chunks_are_waiting_for_demand_and_back_on_once_they_are_delivered() {
+        // given
+        publisher.subscribe(subscriber);
+        assertThat(channel.config().isAutoRead()).isTrue();
+
+        // when
+        publisher.addChunk(chunk("foo"));
+
+        // then
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // and when
+        subscriber.subscription.request(1);
+
+        // then
+        assertThat(subscriber.received).containsExactly("foo");
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void incomplete_call_timeout_does_not_fire_while_a_stalled_subscriber_has_reads_paused() throws Exception {
+        // given
+        long timeoutMillis = 50;
+        channel.pipeline().addFirst(
+            INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME, new IncompleteHttpCallTimeoutHandler(timeoutMillis)
+        );
+        ChannelHandler originalTimeoutHandler = channel.pipeline().get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME);
+        publisher.subscribe(subscriber);
+
+        // when
+        publisher.addChunk(chunk("foo"));
+        // The subscriber stalls for longer than the timeout.
+        Thread.sleep(timeoutMillis * 3);
+        channel.runPendingTasks();
+
+        // then
+        channel.checkException();
+        assertThat(channel.isOpen()).isTrue();
+        assertThat(channel.config().isAutoRead()).isFalse();
+        assertThat(channel.pipeline().get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME)).isNull();
+
+        // and when
+        subscriber.subscription.request(1);
+
+        // then
+        // A fresh timeout handler is put back for the rest of the request.
+        ChannelHandler resumedTimeoutHandler = channel.pipeline().get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME);
+        assertThat(resumedTimeoutHandler)
+            .isInstanceOf(IncompleteHttpCallTimeoutHandler.class)
+            .isNotSameAs(originalTimeoutHandler);
+        assertThat(((IncompleteHttpCallTimeoutHandler) resumedTimeoutHandler).getIdleTimeoutMillis())
+            .isEqualTo(timeoutMillis);
+        assertThat(subscriber.received).containsExactly("foo");
+
+        // and when
+        // The caller stops sending once reading has resumed.
+        Thread.sleep(timeoutMillis * 3);
+        channel.runPendingTasks();
+
+        // then
+        Throwable ex = catchThrowable(() -> channel.checkException());
+        assertThat(ex).isInstanceOf(IncompleteHttpCallTimeoutException.class);
+    }
+
+    @Test
+    public void incomplete_call_timeout_is_not_put_back_once_the_last_chunk_has_arrived() {
+        // given
+        channel.pipeline().addFirst(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME, new IncompleteHttpCallTimeoutHandler(50));
+        publisher.subscribe(subscriber);
+        publisher.addChunk(chunk("foo"));
+        publisher.addChunk(lastChunk("bar"));
+        assertThat(channel.pipeline().get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME)).isNull();
+
+        // when
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // then
+        assertThat(subscriber.completed).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(channel.pipeline().get(INCOMPLETE_HTTP_CALL_TIMEOUT_HANDLER_NAME)).isNull();
+    }
+
+    @Test
+    public void chunks_that_arrive_before_subscription_are_buffered_until_requested() {
+        // given
+        publisher.addChunk(chunk("foo"));
+        publisher.addChunk(lastChunk("bar"));
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // when
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // then
+        assertThat(subscriber.received).containsExactly("foo", "bar");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void empty_body_completes_without_any_demand() {
+        // given
+        publisher.addChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // when
+        publisher.subscribe(subscriber);
+
+        // then
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test
+    public void requesting_from_onNext_delivers_the_next_chunk_without_recursing() {
+        // given
+        subscriber.requestOnNext = true;
+        publisher.subscribe(subscriber);
+        publisher.addChunk(chunk("a"));
+        publisher.addChunk(chunk("b"));
+        publisher.addChunk(lastChunk("c"));
+
+        // when
+        subscriber.subscription.request(1);
+
+        // then
+        assertThat(subscriber.received).containsExactly("a", "b", "c");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.maxOnNextDepth).isEqualTo(1);
+    }
+
+    @Test
+    public void fail_releases_buffered_chunks_and_signals_onError() {
+        // given
+        publisher.subscribe(subscriber);
+        HttpContent buffered = chunk("foo");
+        publisher.addChunk(buffered);
+        Throwable cause = new RuntimeException("intentional test exception");
+
+        // when
+        publisher.fail(cause);
+
+        // then
+        assertThat(buffered.refCnt()).isZero();
+        assertThat(subscriber.error).isSameAs(cause);
+        assertThat(subscriber.received).isEmpty();
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void fail_before_subscription_signals_onError_when_subscribed() {
+        // given
+        Throwable cause = new RuntimeException("intentional test exception");
+        publisher.fail(cause);
+        HttpContent lateChunk = chunk("foo");
+        publisher.addChunk(lateChunk);
+
+        // when
+        publisher.subscribe(subscriber);
+
+        // then
+        assertThat(lateChunk.refCnt()).isZero();
+        assertThat(subscriber.error).isSameAs(cause);
+    }
+
+    @Test
+    public void fail_does_nothing_after_the_body_has_completed() {
+        // given
+        publisher.subscribe(subscriber);
+        publisher.addChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // when
+        publisher.fail(new RuntimeException("intentional test exception"));
+
+        // then
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void cancel_releases_buffered_and_later_chunks_and_turns_auto_read_back_on() {
+        // given
+        publisher.subscribe(subscriber);
+        HttpContent buffered = chunk("foo");
+        publisher.addChunk(buffered);
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // when
+        subscriber.subscription.cancel();
+        HttpContent lateChunk = lastChunk("bar");
+        publisher.addChunk(lateChunk);
+        subscriber.subscription.request(1);
+
+        // then
+        assertThat(buffered.refCnt()).isZero();
+        assertThat(lateChunk.refCnt()).isZero();
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.completed).isFalse();
+        assertThat(publisher.isDone()).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void second_subscriber_is_rejected_with_onError() {
+        // given
+        publisher.subscribe(subscriber);
+        RecordingSubscriber secondSubscriber = new RecordingSubscriber();
+
+        // when
+        publisher.subscribe(secondSubscriber);
+
+        // then
+        assertThat(secondSubscriber.subscription).isNotNull();
+        assertThat(secondSubscriber.error).isInstanceOf(IllegalStateException.class);
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void requesting_zero_chunks_signals_onError_with_IllegalArgumentException() {
+        // given
+        publisher.subscribe(subscriber);
+        HttpContent buffered = chunk("foo");
+        publisher.addChunk(buffered);
+
+        // when
+        subscriber.subscription.request(0);
+
+        // then
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+        assertThat(buffered.refCnt()).isZero();
+    }
+
+    private static class RecordingSubscriber implements Subscriber<ByteBuf> {
+
+        Subscription subscription;
+        final List<String> received = new ArrayList<>();
+        Throwable error;
+        boolean completed = false;
+        boolean requestOnNext = false;
+        int onNextDepth = 0;
+        int maxOnNextDepth = 0;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(ByteBuf chunk) {
+            onNextDepth++;
+            maxOnNextDepth = Math.max(maxOnNextDepth, onNextDepth);
+            try {
+                received.add(chunk.toString(StandardCharsets.UTF_8));
+                chunk.release();
+                if (requestOnNext) {
+                    subscription.request(1);
+                }
+            }
+            finally {
+                onNextDepth--;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the default functionality of {@link StreamingRequestEndpoint}.
+ */
+public class StreamingRequestEndpointTest {
+
+    private StreamingRequestEndpoint<String> defaultImpl;
+
+    @Before
+    public void setup() {
+        defaultImpl = new StreamingRequestEndpoint<String>() {
+            @Override
+            public @NotNull CompletableFuture<ResponseInfo<String>> execute(
+                @NotNull RequestInfo<Void> request,
+                @NotNull Publisher<ByteBuf> requestBody,
+                @NotNull Executor longRunningTaskExecutor,
+                @NotNull ChannelHandlerContext ctx
+            ) {
+                return null;
+            }
+
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void requestContentType_returns_null() {
+        // expect
+        assertThat(defaultImpl.requestContentType()).isNull();
+    }
+
+    @Test
+    public void isValidateRequestContent_returns_false() {
+        // expect
+        assertThat(defaultImpl.isValidateRequestContent(mock(RequestInfo.class))).isFalse();
+    }
+
+    @Test
+    public void isRequireRequestContent_returns_false() {
+        // expect
+        assertThat(defaultImpl.isRequireRequestContent()).isFalse();
+    }
+
+    @Test
+    public void maxRequestSizeInBytesOverride_returns_0_to_disable_the_limit() {
+        // expect
+        assertThat(defaultImpl.maxRequestSizeInBytesOverride()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,421 @@
+package com.nike.riposte.server.routing;
+
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.routing.CompiledEndpointRouter.RouteLookupResult;
+import com.nike.riposte.server.routing.CompiledEndpointRouter.RouteMatch;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.RouteTableAnalysis;
+import com.nike.riposte.util.HttpUtils;
+import com.nike.riposte.util.Matcher;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link CompiledEndpointRouter}. Most of these tests verify that the router gives the exact
+ * same results as asking each endpoint's {@link Matcher} about the request in registration order (which is what
+ * {@link com.nike.riposte.server.handler.RoutingHandler} does when no compiled router is in use).
+ */
+@RunWith(DataProviderRunner.class)
+public class CompiledEndpointRouterTest {
+
+    private static final List<Endpoint<?>> mixedEndpoints = Arrays.asList(
+        endpoint(Matcher.match("/", HttpMethod.GET)),
+        endpoint(Matcher.match("/foo", HttpMethod.GET)),
+        endpoint(Matcher.match("/foo", HttpMethod.POST)),
+        endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+        endpoint(Matcher.match("/foo/bar", HttpMethod.GET, HttpMethod.PUT)),
+        endpoint(Matcher.match("/foo/{id}/baz/{otherId}", HttpMethod.DELETE)),
+        endpoint(Matcher.match("/trailing/slash/", HttpMethod.GET)),
+        endpoint(Matcher.match("/wild/*/card", HttpMethod.GET)),
+        endpoint(Matcher.match("/double/**", HttpMethod.GET)),
+        endpoint(Matcher.match("/regex/{num:[0-9]+}", HttpMethod.GET)),
+        endpoint(Matcher.match("/partial/file-{name}.json", HttpMethod.GET)),
+        endpoint(Matcher.multiMatch(Arrays.asList("/multi/one", "/multi/{param}", "/foo/bar"), HttpMethod.PATCH)),
+        endpoint(Matcher.match("/any/method/{thing}")),
+        endpoint(new CustomMatcher("/custom/path", HttpMethod.GET))
+    );
+
+    private static Endpoint<?> endpoint(Matcher matcher) {
+        return new Endpoint<Object>() {
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return matcher;
+            }
+
+            @Override
+            public String toString() {
+                return "Endpoint for " + matcher.matchingPathTemplates();
+            }
+        };
+    }
+
+    private static RequestInfo<?> request(String path, HttpMethod method) {
+        RequestInfo<?> requestMock = mock(RequestInfo.class);
+        doReturn(path).when(requestMock).getPath();
+        doReturn(method).when(requestMock).getMethod();
+        return requestMock;
+    }
+
+    /**
+     * Mimics the linear scan done by {@code RoutingHandler} when no compiled router is in use.
+     */
+    private static Map<Endpoint<?>, String> linearScanFullMatches(List<Endpoint<?>> endpoints, RequestInfo<?> request) {
+        Map<Endpoint<?>, String> result = new HashMap<>();
+        for (Endpoint<?> endpoint : endpoints) {
+            Optional<String> pattern = endpoint.requestMatcher().matchesPath(request);
+            if (pattern.isPresent() && endpoint.requestMatcher().matchesMethod(request)) {
+                result.put(endpoint, pattern.get());
+            }
+        }
+        return result;
+    }
+
+    private static boolean linearScanHasPathMatch(List<Endpoint<?>> endpoints, RequestInfo<?> request) {
+        for (Endpoint<?> endpoint : endpoints) {
+            if (endpoint.requestMatcher().matchesPath(request).isPresent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_endpoints_is_null_or_empty() {
+        // when
+        Throwable nullEx = catchThrowable(() -> new CompiledEndpointRouter(null));
+        Throwable emptyEx = catchThrowable(() -> new CompiledEndpointRouter(Collections.emptyList()));
+
+        // then
+        assertThat(nullEx).isInstanceOf(IllegalArgumentException.class);
+        assertThat(emptyEx).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_compiles_simple_templates_and_leaves_the_rest_uncompiled() {
+        // when
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+
+        // then
+        // Uncompiled: wildcard, double wildcard, regex param, partial-segment param, and the custom matcher.
+        assertThat(router.getNumUncompiledTemplates()).isEqualTo(5);
+        // Compiled: everything else, including all 3 multi-matcher templates.
+        assertThat(router.getNumCompiledTemplates()).isEqualTo(11);
+    }
+
+    @DataProvider(value = {
+        "/                          |   GET",
+        "/                          |   POST",
+        "//                         |   GET",
+        "/foo                       |   GET",
+        "/foo/                      |   GET",
+        "/foo//                     |   GET",
+        "/foo                       |   POST",
+        "/foo                       |   DELETE",
+        "foo                        |   GET",
+        "/foo/123                   |   GET",
+        "/foo/ 123                  |   GET",
+        "/foo/bar                   |   GET",
+        "/foo/bar                   |   PUT",
+        "/foo/bar                   |   PATCH",
+        "/foo/bar                   |   POST",
+        "//foo///bar                |   GET",
+        "/foo/123/baz/456           |   DELETE",
+        "/foo/123/baz/456/          |   DELETE",
+        "/foo/123/baz               |   DELETE",
+        "/foo/123/baz/456/789       |   DELETE",
+        "/trailing/slash            |   GET",
+        "/trailing/slash/           |   GET",
+        "/trailing/slash//          |   GET",
+        "/wild/anything/card        |   GET",
+        "/wild/any/thing/card       |   GET",
+        "/double                    |   GET",
+        "/double/a/b/c              |   GET",
+        "/regex/42                  |   GET",
+        "/regex/notanumber          |   GET",
+        "/partial/file-stuff.json   |   GET",
+        "/partial/stuff.json        |   GET",
+        "/multi/one                 |   PATCH",
+        "/multi/two                 |   PATCH",
+        "/multi/two                 |   GET",
+        "/any/method/stuff          |   OPTIONS",
+        "/custom/path               |   GET",
+        "/custom/path               |   POST",
+        "/does/not/exist            |   GET",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void findMatchingRoutes_gives_same_results_as_linear_scan_of_matchers(String path, String methodName) {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+        RequestInfo<?> request = request(path, HttpMethod.valueOf(methodName));
+        Map<Endpoint<?>, String> expectedFullMatches = linearScanFullMatches(mixedEndpoints, request);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request);
+
+        // then
+        assertThat(result.hasPathMatch()).isEqualTo(linearScanHasPathMatch(mixedEndpoints, request));
+        Map<Endpoint<?>, String> actualFullMatches = new HashMap<>();
+        for (RouteMatch routeMatch : result.fullyMatchingRoutes()) {
+            actualFullMatches.put(routeMatch.endpoint(), routeMatch.pathTemplate());
+        }
+        assertThat(actualFullMatches).isEqualTo(expectedFullMatches);
+    }
+
+    @DataProvider(value = {
+        "/foo/123                   |   GET",
+        "/foo/123/                  |   GET",
+        "/foo/ 123 /baz/456         |   DELETE",
+        "/foo/bar                   |   PUT",
+        "/multi/two                 |   PATCH",
+        "/any/method/stuff          |   GET",
+        "/regex/42                  |   GET",
+        "/partial/file-stuff.json   |   GET",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void findMatchingRoutes_path_params_match_those_decoded_from_the_path_template(
+        String path, String methodName
+    ) {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+        RequestInfo<?> request = request(path, HttpMethod.valueOf(methodName));
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request);
+
+        // then
+        assertThat(result.fullyMatchingRoutes()).hasSize(1);
+        RouteMatch routeMatch = result.fullyMatchingRoutes().get(0);
+        Map<String, String> expectedPathParams = HttpUtils.decodePathParams(routeMatch.pathTemplate(), path);
+        if (routeMatch.pathParams() != null) {
+            assertThat(routeMatch.pathParams()).isEqualTo(expectedPathParams);
+        }
+    }
+
+    @Test
+    public void findMatchingRoutes_captures_path_params_for_compiled_templates() {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request("/foo/abc/baz/def", HttpMethod.DELETE));
+
+        // then
+        assertThat(result.fullyMatchingRoutes()).hasSize(1);
+        RouteMatch routeMatch = result.fullyMatchingRoutes().get(0);
+        assertThat(routeMatch.endpoint()).isSameAs(mixedEndpoints.get(5));
+        assertThat(routeMatch.pathTemplate()).isEqualTo("/foo/{id}/baz/{otherId}");
+        Map<String, String> expectedPathParams = new HashMap<>();
+        expectedPathParams.put("id", "abc");
+        expectedPathParams.put("otherId", "def");
+        assertThat(routeMatch.pathParams()).isEqualTo(expectedPathParams);
+    }
+
+    @Test
+    public void findMatchingRoutes_returns_null_path_params_for_uncompiled_templates() {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request("/regex/42", HttpMethod.GET));
+
+        // then
+        assertThat(result.fullyMatchingRoutes()).hasSize(1);
+        assertThat(result.fullyMatchingRoutes().get(0).pathParams()).isNull();
+    }
+
+    @Test
+    public void findMatchingRoutes_uses_first_matching_template_of_MultiMatcher() {
+        // given
+        List<Endpoint<?>> endpoints = Collections.singletonList(
+            endpoint(Matcher.multiMatch(Arrays.asList("/foo/{param}", "/foo/bar"), HttpMethod.GET))
+        );
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+        RequestInfo<?> request = request("/foo/bar", HttpMethod.GET);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request);
+
+        // then
+        assertThat(result.fullyMatchingRoutes()).hasSize(1);
+        assertThat(result.fullyMatchingRoutes().get(0).pathTemplate())
+            .isEqualTo(endpoints.get(0).requestMatcher().matchesPath(request).get())
+            .isEqualTo("/foo/{param}");
+    }
+
+    @Test
+    public void findMatchingRoutes_returns_all_fully_matching_routes_in_registration_order() {
+        // given
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/**", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/bar", HttpMethod.GET))
+        );
+        CompiledEndpointRouter router = new CompiledEndpointRouter(endpoints);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request("/foo/bar", HttpMethod.GET));
+
+        // then
+        assertThat(result.hasPathMatch()).isTrue();
+        List<Endpoint<?>> actualEndpoints = new ArrayList<>();
+        result.fullyMatchingRoutes().forEach(rm -> actualEndpoints.add(rm.endpoint()));
+        assertThat(actualEndpoints).containsExactlyElementsOf(endpoints);
+    }
+
+    @Test
+    public void constructor_enables_first_full_match_wins_only_if_endpoints_are_provably_unambiguous() {
+        // given
+        List<Endpoint<?>> unambiguousEndpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/bar", HttpMethod.POST))
+        );
+
+        // when
+        CompiledEndpointRouter unambiguousRouter = new CompiledEndpointRouter(unambiguousEndpoints);
+        CompiledEndpointRouter mixedRouter = new CompiledEndpointRouter(mixedEndpoints);
+
+        // then
+        assertThat(unambiguousRouter.isFirstFullMatchWins()).isTrue();
+        assertThat(mixedRouter.isFirstFullMatchWins()).isFalse();
+    }
+
+    @Test
+    public void constructor_uses_precomputed_route_table_analysis_instead_of_redoing_it() {
+        // given
+        List<Endpoint<?>> unambiguousEndpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/bar", HttpMethod.POST))
+        );
+        // The analysis of some other (ambiguous) route table, to prove it's what the router goes by.
+        RouteTableAnalysis ambiguousAnalysis = RouteTableAnalyzer.analyze(mixedEndpoints);
+
+        // when
+        CompiledEndpointRouter router = new CompiledEndpointRouter(unambiguousEndpoints, ambiguousAnalysis);
+        CompiledEndpointRouter routerWithNullAnalysis = new CompiledEndpointRouter(unambiguousEndpoints, null);
+
+        // then
+        assertThat(router.isFirstFullMatchWins()).isFalse();
+        assertThat(routerWithNullAnalysis.isFirstFullMatchWins()).isTrue();
+    }
+
+    @DataProvider(value = {
+        "/foo/123       |   GET",
+        "/foo/bar       |   GET",
+        "/foo/bar       |   POST",
+        "/foo/bar       |   PUT",
+        "/multi/bar     |   GET",
+        "/multi/{x}     |   GET",
+        "/wild/a/b      |   GET",
+        "/nope          |   GET",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void findMatchingRoutes_gives_same_results_as_linear_scan_when_first_full_match_wins(
+        String path, String methodName
+    ) {
+        // given
+        List<Endpoint<?>> unambiguousEndpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/bar", HttpMethod.POST)),
+            // The Ant-matched template comes first, so it must win over the compiled one.
+            endpoint(Matcher.multiMatch(Arrays.asList("/multi/*", "/multi/{param}"), HttpMethod.GET)),
+            endpoint(Matcher.match("/wild/**", HttpMethod.GET))
+        );
+        CompiledEndpointRouter router = new CompiledEndpointRouter(unambiguousEndpoints);
+        assertThat(router.isFirstFullMatchWins()).isTrue();
+        RequestInfo<?> request = request(path, HttpMethod.valueOf(methodName));
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request);
+
+        // then
+        assertThat(result.hasPathMatch()).isEqualTo(linearScanHasPathMatch(unambiguousEndpoints, request));
+        Map<Endpoint<?>, String> actualFullMatches = new HashMap<>();
+        for (RouteMatch routeMatch : result.fullyMatchingRoutes()) {
+            actualFullMatches.put(routeMatch.endpoint(), routeMatch.pathTemplate());
+        }
+        assertThat(actualFullMatches).isEqualTo(linearScanFullMatches(unambiguousEndpoints, request));
+    }
+
+    @Test
+    public void findMatchingRoutes_reports_path_match_with_no_full_matches_when_only_method_does_not_match() {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request("/foo/123", HttpMethod.PUT));
+
+        // then
+        assertThat(result.hasPathMatch()).isTrue();
+        assertThat(result.fullyMatchingRoutes()).isEmpty();
+    }
+
+    @Test
+    public void findMatchingRoutes_reports_no_path_match_for_null_path() {
+        // given
+        CompiledEndpointRouter router = new CompiledEndpointRouter(mixedEndpoints);
+
+        // when
+        RouteLookupResult result = router.findMatchingRoutes(request(null, HttpMethod.GET));
+
+        // then
+        assertThat(result.hasPathMatch()).isFalse();
+        assertThat(result.fullyMatchingRoutes()).isEmpty();
+    }
+
+    private static class CustomMatcher implements Matcher {
+
+        private final String path;
+        private final Collection<HttpMethod> methods;
+
+        CustomMatcher(String path, HttpMethod... methods) {
+            this.path = path;
+            this.methods = Arrays.asList(methods);
+        }
+
+        @Override
+        public @NotNull Collection<HttpMethod> matchingMethods() {
+            return methods;
+        }
+
+        @Override
+        public @NotNull Collection<String> matchingPathTemplates() {
+            return Collections.singletonList(path);
+        }
+
+        @Override
+        public @NotNull Optional<String> matchesPath(@NotNull RequestInfo<?> request) {
+            return (path.equals(request.getPath())) ? Optional.of(path) : Optional.empty();
+        }
+
+        @Override
+        public boolean matchesMethod(@NotNull RequestInfo<?> request) {
+            return methods.contains(request.getMethod());
+        }
+
+        @Override
+        public boolean isMatchAllMethods() {
+            return false;
+        }
+    }
+}
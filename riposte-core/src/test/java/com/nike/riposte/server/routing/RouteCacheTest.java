@@ -0,0 +1,246 @@
+package com.nike.riposte.server.routing;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+import com.nike.riposte.server.routing.RouteCache.CachedRoute;
+import com.nike.riposte.util.Matcher;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests the functionality of {@link RouteCache}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RouteCacheTest {
+
+    private static Endpoint<?> endpoint(Matcher matcher) {
+        return new Endpoint<Object>() {
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return matcher;
+            }
+        };
+    }
+
+    private static final Endpoint<?> fooEndpoint = endpoint(Matcher.match("/foo/{id}"));
+
+    private static CachedRoute route(String id) {
+        return new CachedRoute(fooEndpoint, "/foo/{id}", Collections.singletonMap("id", id));
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_maxSize_is_not_positive(int maxSize) {
+        // when
+        Throwable ex = catchThrowable(() -> new RouteCache(maxSize, null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxSize must be greater than 0. maxSize: " + maxSize);
+    }
+
+    @Test
+    public void supportsEndpoints_returns_true_only_if_all_endpoints_use_single_or_multi_matchers() {
+        // given
+        Endpoint<?> multiMatcherEndpoint = endpoint(Matcher.multiMatch(Arrays.asList("/bar", "/baz")));
+        Endpoint<?> customMatcherEndpoint = endpoint(mock(Matcher.class));
+
+        // expect
+        assertThat(RouteCache.supportsEndpoints(Arrays.asList(fooEndpoint, multiMatcherEndpoint))).isTrue();
+        assertThat(RouteCache.supportsEndpoints(Arrays.asList(fooEndpoint, customMatcherEndpoint))).isFalse();
+    }
+
+    @Test
+    public void get_returns_cached_route_for_same_method_and_path_only() {
+        // given
+        RouteCache cache = new RouteCache(10, null);
+        CachedRoute route = route("42");
+        cache.put(HttpMethod.GET, "/foo/42", route);
+
+        // expect
+        assertThat(cache.get(HttpMethod.GET, "/foo/42", null)).isSameAs(route);
+        assertThat(cache.get(HttpMethod.POST, "/foo/42", null)).isNull();
+        assertThat(cache.get(HttpMethod.GET, "/foo/43", null)).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_notifies_metrics_listener_of_hits_and_misses() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        RouteCache cache = new RouteCache(10, metricsListener);
+        cache.put(HttpMethod.GET, "/foo/42", route("42"));
+        Object state = new Object();
+
+        // when
+        cache.get(HttpMethod.GET, "/foo/42", state);
+        cache.get(HttpMethod.GET, "/foo/43", state);
+
+        // then
+        verify(metricsListener).onEvent(ServerMetricsEvent.ROUTE_CACHE_HIT, state);
+        verify(metricsListener).onEvent(ServerMetricsEvent.ROUTE_CACHE_MISS, state);
+        verifyNoMoreInteractions(metricsListener);
+    }
+
+    @Test
+    public void get_does_not_propagate_metrics_listener_exceptions() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doThrow(new RuntimeException("kaboom")).when(metricsListener).onEvent(ServerMetricsEvent.ROUTE_CACHE_MISS, null);
+        RouteCache cache = new RouteCache(10, metricsListener);
+
+        // when
+        Throwable ex = catchThrowable(() -> cache.get(HttpMethod.GET, "/foo/42", null));
+
+        // then
+        assertThat(ex).isNull();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_rejects_new_route_that_is_not_requested_more_often_than_the_eviction_victim() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        RouteCache cache = new RouteCache(2, metricsListener);
+        for (int i = 0; i < 5; i++) {
+            cache.get(HttpMethod.GET, "/foo/1", null);
+            cache.get(HttpMethod.GET, "/foo/2", null);
+        }
+        cache.put(HttpMethod.GET, "/foo/1", route("1"));
+        cache.put(HttpMethod.GET, "/foo/2", route("2"));
+
+        // when
+        // Simulates a scan - each random path is requested once - mixed in with ongoing hot traffic.
+        for (int i = 0; i < 100; i++) {
+            cache.get(HttpMethod.GET, "/foo/1", null);
+            cache.get(HttpMethod.GET, "/foo/2", null);
+            String path = "/foo/random-" + i;
+            cache.get(HttpMethod.GET, path, null);
+            assertThat(cache.put(HttpMethod.GET, path, route("random-" + i))).isFalse();
+        }
+
+        // then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(HttpMethod.GET, "/foo/1", null)).isNotNull();
+        assertThat(cache.get(HttpMethod.GET, "/foo/2", null)).isNotNull();
+        assertThat(cache.getEvictionCount()).isEqualTo(0);
+        verify(metricsListener, never()).onEvent(ServerMetricsEvent.ROUTE_CACHE_EVICTION, null);
+    }
+
+    @Test
+    public void put_evicts_a_route_to_admit_a_more_frequently_requested_one() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        RouteCache cache = new RouteCache(2, metricsListener);
+        cache.get(HttpMethod.GET, "/foo/1", null);
+        cache.put(HttpMethod.GET, "/foo/1", route("1"));
+        cache.get(HttpMethod.GET, "/foo/2", null);
+        cache.put(HttpMethod.GET, "/foo/2", route("2"));
+        for (int i = 0; i < 5; i++) {
+            cache.get(HttpMethod.GET, "/foo/hot", null);
+        }
+
+        // when
+        boolean admitted = cache.put(HttpMethod.GET, "/foo/hot", route("hot"));
+
+        // then
+        assertThat(admitted).isTrue();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        // The oldest route is the first eviction candidate.
+        assertThat(cache.routes).doesNotContainKey(new RouteCache.RouteKey(HttpMethod.GET, "/foo/1"));
+        assertThat(cache.routes).containsKey(new RouteCache.RouteKey(HttpMethod.GET, "/foo/hot"));
+        verify(metricsListener).onEvent(ServerMetricsEvent.ROUTE_CACHE_EVICTION, null);
+    }
+
+    @Test
+    public void put_does_not_replace_an_existing_route() {
+        // given
+        RouteCache cache = new RouteCache(10, null);
+        CachedRoute first = route("42");
+        cache.put(HttpMethod.GET, "/foo/42", first);
+
+        // when
+        boolean result = cache.put(HttpMethod.GET, "/foo/42", route("42"));
+
+        // then
+        assertThat(result).isTrue();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(HttpMethod.GET, "/foo/42", null)).isSameAs(first);
+    }
+
+    @Test
+    public void CachedRoute_copies_path_params_into_read_only_map() {
+        // given
+        Map<String, String> pathParams = new HashMap<>();
+        pathParams.put("id", "42");
+
+        // when
+        CachedRoute route = new CachedRoute(fooEndpoint, "/foo/{id}", pathParams);
+        pathParams.put("id", "changed");
+
+        // then
+        assertThat(route.endpoint()).isSameAs(fooEndpoint);
+        assertThat(route.pathTemplate()).isEqualTo("/foo/{id}");
+        assertThat(route.pathParams()).isEqualTo(Collections.singletonMap("id", "42"));
+        assertThat(catchThrowable(() -> route.pathParams().put("foo", "bar")))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(new CachedRoute(fooEndpoint, "/foo", null).pathParams()).isEmpty();
+    }
+
+    @Test
+    public void CachedRoute_constructor_throws_IllegalArgumentException_on_null_args() {
+        // expect
+        assertThat(catchThrowable(() -> new CachedRoute(null, "/foo", null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("endpoint cannot be null");
+        assertThat(catchThrowable(() -> new CachedRoute(fooEndpoint, null, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("pathTemplate cannot be null");
+    }
+
+    @Test
+    public void FrequencySketch_tracks_frequencies_and_ages_them_out() {
+        // given
+        RouteCache.FrequencySketch sketch = new RouteCache.FrequencySketch(8);
+        int hotHash = "hot".hashCode();
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(hotHash);
+        }
+
+        // then
+        // Counters top out at 15, and reaching the sample size (10 * maxSize) halves everything.
+        assertThat(sketch.frequency(hotHash)).isEqualTo(15);
+        assertThat(sketch.frequency("cold".hashCode())).isLessThanOrEqualTo(1);
+        sketch.reset();
+        assertThat(sketch.frequency(hotHash)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,204 @@
+package com.nike.riposte.server.routing;
+
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.AmbiguousEndpoints;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.Overlap;
+import com.nike.riposte.server.routing.RouteTableAnalyzer.RouteTableAnalysis;
+import com.nike.riposte.util.Matcher;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link RouteTableAnalyzer}.
+ */
+@RunWith(DataProviderRunner.class)
+public class RouteTableAnalyzerTest {
+
+    private static Endpoint<?> endpoint(Matcher matcher) {
+        return new Endpoint<Object>() {
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return matcher;
+            }
+        };
+    }
+
+    @DataProvider(value = {
+        // Literals and simple path params.
+        "/                      |   /                       |   DEFINITE",
+        "/                      |   /foo                    |   DISJOINT",
+        "/foo                   |   /foo                    |   DEFINITE",
+        "/foo                   |   /foo/                   |   DISJOINT",
+        "/foo                   |   /bar                    |   DISJOINT",
+        "/foo/{id}              |   /foo/bar                |   DEFINITE",
+        "/foo/{id}              |   /foo/{otherId}          |   DEFINITE",
+        "/foo/{id}              |   /foo/{id}/bar           |   DISJOINT",
+        "/foo/{id}/bar          |   /foo/{id}/baz           |   DISJOINT",
+        "/{a}/bar               |   /foo/{b}                |   DEFINITE",
+        // Single-segment wildcards and regex params vs. literals can be decided exactly.
+        "/foo/*                 |   /foo/bar                |   DEFINITE",
+        "/foo/*.json            |   /foo/bar.xml            |   DISJOINT",
+        "/foo/{num:[0-9]+}      |   /foo/42                 |   DEFINITE",
+        "/foo/{num:[0-9]+}      |   /foo/bar                |   DISJOINT",
+        "/foo/*                 |   /bar/*                  |   DISJOINT",
+        // Two non-literal segments can't be decided.
+        "/foo/*.json            |   /foo/*.xml              |   POSSIBLE",
+        "/foo/*                 |   /foo/{id}               |   POSSIBLE",
+        // Double wildcards.
+        "/foo/**                |   /bar/**                 |   DISJOINT",
+        "/foo/**                |   /foo/bar                |   POSSIBLE",
+        "/foo/**/baz            |   /foo/bar/qux            |   DISJOINT",
+        "/foo/bar/baz/**        |   /foo/bar                |   DISJOINT",
+        "/**                    |   /anything               |   POSSIBLE",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void comparePathTemplates_works_as_expected(String first, String second, Overlap expected) {
+        // expect
+        assertThat(RouteTableAnalyzer.comparePathTemplates(first, second)).isEqualTo(expected);
+        assertThat(RouteTableAnalyzer.comparePathTemplates(second, first)).isEqualTo(expected);
+    }
+
+    @Test
+    public void analyze_throws_IllegalArgumentException_if_endpoints_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> RouteTableAnalyzer.analyze(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("endpoints cannot be null");
+    }
+
+    @Test
+    public void analyze_proves_unambiguous_table_when_no_endpoints_overlap() {
+        // given
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo", HttpMethod.POST)),
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/bar/**", HttpMethod.GET)),
+            endpoint(Matcher.multiMatch(Arrays.asList("/baz", "/baz/{id}")))
+        );
+
+        // when
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(endpoints);
+
+        // then
+        assertThat(analysis.getAmbiguousEndpoints()).isEmpty();
+        assertThat(analysis.isProvablyUnambiguous()).isTrue();
+    }
+
+    @Test
+    public void analyze_ignores_overlapping_paths_when_methods_do_not_overlap() {
+        // given
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/{id}", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/bar", HttpMethod.PUT, HttpMethod.POST))
+        );
+
+        // when
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(endpoints);
+
+        // then
+        assertThat(analysis.isProvablyUnambiguous()).isTrue();
+    }
+
+    @Test
+    public void analyze_reports_definitely_ambiguous_endpoints() {
+        // given
+        Endpoint<?> first = endpoint(Matcher.match("/foo/{id}", HttpMethod.GET, HttpMethod.PUT));
+        Endpoint<?> second = endpoint(Matcher.multiMatch(Arrays.asList("/other", "/foo/bar")));
+        Endpoint<?> third = endpoint(Matcher.match("/unrelated", HttpMethod.GET));
+
+        // when
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(Arrays.asList(first, second, third));
+
+        // then
+        assertThat(analysis.isProvablyUnambiguous()).isFalse();
+        assertThat(analysis.getAmbiguousEndpoints()).hasSize(1);
+        assertThat(analysis.getDefinitelyAmbiguousEndpoints()).hasSize(1);
+        AmbiguousEndpoints ambiguity = analysis.getAmbiguousEndpoints().get(0);
+        assertThat(ambiguity.firstEndpoint).isSameAs(first);
+        assertThat(ambiguity.secondEndpoint).isSameAs(second);
+        assertThat(ambiguity.firstPathTemplate).isEqualTo("/foo/{id}");
+        assertThat(ambiguity.secondPathTemplate).isEqualTo("/foo/bar");
+        assertThat(ambiguity.sharedMethods).containsExactly(HttpMethod.GET, HttpMethod.PUT);
+        assertThat(ambiguity.overlap).isEqualTo(Overlap.DEFINITE);
+    }
+
+    @Test
+    public void analyze_reports_possibly_ambiguous_endpoints_without_marking_them_definite() {
+        // given
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo/*.json", HttpMethod.GET)),
+            endpoint(Matcher.match("/foo/{name}.json", HttpMethod.GET))
+        );
+
+        // when
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(endpoints);
+
+        // then
+        assertThat(analysis.isProvablyUnambiguous()).isFalse();
+        assertThat(analysis.getAmbiguousEndpoints()).hasSize(1);
+        assertThat(analysis.getAmbiguousEndpoints().get(0).overlap).isEqualTo(Overlap.POSSIBLE);
+        assertThat(analysis.getDefinitelyAmbiguousEndpoints()).isEmpty();
+    }
+
+    @Test
+    public void analyze_never_proves_unambiguous_table_with_custom_matcher() {
+        // given
+        Matcher customMatcher = mock(Matcher.class);
+        doReturn(Collections.singletonList(HttpMethod.DELETE)).when(customMatcher).matchingMethods();
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo", HttpMethod.GET)),
+            endpoint(customMatcher)
+        );
+
+        // when
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(endpoints);
+
+        // then
+        // The methods don't overlap so the pair isn't ambiguous, but we still can't prove anything about the custom
+        //      matcher's paths.
+        assertThat(analysis.getAmbiguousEndpoints()).isEmpty();
+        assertThat(analysis.isProvablyUnambiguous()).isFalse();
+    }
+
+    @Test
+    public void analyze_reports_custom_matchers_with_overlapping_methods_as_possibly_ambiguous() {
+        // given
+        Matcher customMatcher = mock(Matcher.class);
+        doReturn(true).when(customMatcher).isMatchAllMethods();
+        List<Endpoint<?>> endpoints = Arrays.asList(
+            endpoint(Matcher.match("/foo", HttpMethod.GET)),
+            endpoint(customMatcher)
+        );
+
+        // when
+        RouteTableAnalysis analysis = RouteTableAnalyzer.analyze(endpoints);
+
+        // then
+        assertThat(analysis.getAmbiguousEndpoints()).hasSize(1);
+        AmbiguousEndpoints ambiguity = analysis.getAmbiguousEndpoints().get(0);
+        assertThat(ambiguity.overlap).isEqualTo(Overlap.POSSIBLE);
+        assertThat(ambiguity.firstPathTemplate).isNull();
+        assertThat(ambiguity.secondPathTemplate).isNull();
+        assertThat(ambiguity.sharedMethods).containsExactly(HttpMethod.GET);
+    }
+}
@@ -0,0 +1,202 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.NetUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ChannelOptionsHelper}.
+ */
+@RunWith(DataProviderRunner.class)
+public class ChannelOptionsHelperTest {
+
+    private static final WriteBufferWaterMark customWaterMark = new WriteBufferWaterMark(1024, 4096);
+    private static final ByteBufAllocator customAllocator = new UnpooledByteBufAllocator(false);
+    private static final RecvByteBufAllocator customRecvAllocator = new FixedRecvByteBufAllocator(2048);
+
+    private static final ChannelOptionsConfig customConfig = new ChannelOptionsConfig() {
+        @Override
+        public boolean tcpNoDelay() {
+            return false;
+        }
+
+        @Override
+        public int soBacklog() {
+            return 42;
+        }
+
+        @Override
+        public int soRcvBuf() {
+            return 65536;
+        }
+
+        @Override
+        public int soSndBuf() {
+            return 32768;
+        }
+
+        @Override
+        public @NotNull WriteBufferWaterMark writeBufferWaterMark() {
+            return customWaterMark;
+        }
+
+        @Override
+        public @NotNull ByteBufAllocator allocator() {
+            return customAllocator;
+        }
+
+        @Override
+        public @Nullable RecvByteBufAllocator recvByteBufAllocator() {
+            return customRecvAllocator;
+        }
+    };
+
+    @Test
+    public void applyToServerBootstrap_sets_listening_and_child_options_from_config() {
+        // given
+        ServerBootstrap bootstrap = new ServerBootstrap();
+
+        // when
+        ChannelOptionsHelper.applyToServerBootstrap(bootstrap, customConfig);
+
+        // then
+        Map<ChannelOption<?>, Object> options = bootstrap.config().options();
+        assertThat(options).hasSize(2);
+        assertThat(options.get(ChannelOption.SO_BACKLOG)).isEqualTo(42);
+        assertThat(options.get(ChannelOption.SO_RCVBUF)).isEqualTo(65536);
+
+        Map<ChannelOption<?>, Object> childOptions = bootstrap.config().childOptions();
+        assertThat(childOptions).hasSize(6);
+        assertThat(childOptions.get(ChannelOption.TCP_NODELAY)).isEqualTo(false);
+        assertThat(childOptions.get(ChannelOption.SO_RCVBUF)).isEqualTo(65536);
+        assertThat(childOptions.get(ChannelOption.SO_SNDBUF)).isEqualTo(32768);
+        assertThat(childOptions.get(ChannelOption.WRITE_BUFFER_WATER_MARK)).isSameAs(customWaterMark);
+        assertThat(childOptions.get(ChannelOption.ALLOCATOR)).isSameAs(customAllocator);
+        assertThat(childOptions.get(ChannelOption.RCVBUF_ALLOCATOR)).isSameAs(customRecvAllocator);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void applyToServerBootstrap_uses_netty_defaults_and_skips_unset_options_for_default_config(
+        boolean useNullConfig
+    ) {
+        // given
+        ServerBootstrap bootstrap = new ServerBootstrap();
+
+        // when
+        ChannelOptionsHelper.applyToServerBootstrap(
+            bootstrap, (useNullConfig) ? null : ChannelOptionsConfig.DEFAULT_IMPL
+        );
+
+        // then
+        Map<ChannelOption<?>, Object> options = bootstrap.config().options();
+        assertThat(options).hasSize(1);
+        assertThat(options.get(ChannelOption.SO_BACKLOG)).isEqualTo(NetUtil.SOMAXCONN);
+
+        Map<ChannelOption<?>, Object> childOptions = bootstrap.config().childOptions();
+        assertThat(childOptions).hasSize(3);
+        assertThat(childOptions.get(ChannelOption.TCP_NODELAY)).isEqualTo(true);
+        assertThat(childOptions.get(ChannelOption.WRITE_BUFFER_WATER_MARK)).isSameAs(WriteBufferWaterMark.DEFAULT);
+        assertThat(childOptions.get(ChannelOption.ALLOCATOR)).isSameAs(ByteBufAllocator.DEFAULT);
+    }
+
+    @Test
+    public void applyToClientBootstrap_sets_everything_but_backlog_from_config() {
+        // given
+        Bootstrap bootstrap = new Bootstrap();
+
+        // when
+        ChannelOptionsHelper.applyToClientBootstrap(bootstrap, customConfig);
+
+        // then
+        Map<ChannelOption<?>, Object> options = bootstrap.config().options();
+        assertThat(options).hasSize(6);
+        assertThat(options.get(ChannelOption.TCP_NODELAY)).isEqualTo(false);
+        assertThat(options.get(ChannelOption.SO_RCVBUF)).isEqualTo(65536);
+        assertThat(options.get(ChannelOption.SO_SNDBUF)).isEqualTo(32768);
+        assertThat(options.get(ChannelOption.WRITE_BUFFER_WATER_MARK)).isSameAs(customWaterMark);
+        assertThat(options.get(ChannelOption.ALLOCATOR)).isSameAs(customAllocator);
+        assertThat(options.get(ChannelOption.RCVBUF_ALLOCATOR)).isSameAs(customRecvAllocator);
+    }
+
+    @Test
+    public void validate_returns_DEFAULT_IMPL_for_null_config() {
+        // expect
+        assertThat(ChannelOptionsHelper.validate(null)).isSameAs(ChannelOptionsConfig.DEFAULT_IMPL);
+        assertThat(ChannelOptionsHelper.validate(customConfig)).isSameAs(customConfig);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void validate_throws_IllegalArgumentException_if_soBacklog_is_not_positive(int badBacklog) {
+        // given
+        ChannelOptionsConfig config = new ChannelOptionsConfig() {
+            @Override
+            public int soBacklog() {
+                return badBacklog;
+            }
+        };
+
+        // when
+        Throwable ex = catchThrowable(() -> ChannelOptionsHelper.validate(config));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Your ServerConfig.channelOptionsConfig().soBacklog() must be greater than 0. so_backlog="
+                        + badBacklog);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    @Test
+    public void validate_throws_IllegalArgumentException_if_watermark_or_allocator_is_null() {
+        // given
+        ChannelOptionsConfig nullWaterMark = new ChannelOptionsConfig() {
+            @Override
+            public @NotNull WriteBufferWaterMark writeBufferWaterMark() {
+                return null;
+            }
+        };
+        ChannelOptionsConfig nullAllocator = new ChannelOptionsConfig() {
+            @Override
+            public @NotNull ByteBufAllocator allocator() {
+                return null;
+            }
+        };
+
+        // expect
+        assertThat(catchThrowable(() -> ChannelOptionsHelper.validate(nullWaterMark)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Your ServerConfig.channelOptionsConfig().writeBufferWaterMark() cannot be null.");
+        assertThat(catchThrowable(() -> ChannelOptionsHelper.validate(nullAllocator)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Your ServerConfig.channelOptionsConfig().allocator() cannot be null.");
+    }
+}
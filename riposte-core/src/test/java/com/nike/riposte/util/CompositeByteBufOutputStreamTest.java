@@ -0,0 +1,128 @@
+package com.nike.riposte.util;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link CompositeByteBufOutputStream}.
+ */
+@RunWith(DataProviderRunner.class)
+public class CompositeByteBufOutputStreamTest {
+
+    private static final ByteBufAllocator ALLOC = new UnpooledByteBufAllocator(false);
+
+    @DataProvider(value = {
+        "1      |   false",
+        "100    |   false",
+        "1024   |   false",
+        "1025   |   true",
+        "5000   |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void toByteBuf_returns_everything_written_in_a_composite_only_if_it_does_not_fit_in_one_component(
+        int numBytes, boolean expectComposite
+    ) {
+        // given
+        byte[] bytes = new byte[numBytes];
+        new Random().nextBytes(bytes);
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(ALLOC, 1024);
+
+        // when
+        out.write(bytes[0]);
+        out.write(bytes, 1, bytes.length - 1);
+        ByteBuf result = out.toByteBuf();
+
+        // then
+        try {
+            assertThat(ByteBufUtil.getBytes(result)).isEqualTo(bytes);
+            assertThat(result instanceof CompositeByteBuf).isEqualTo(expectComposite);
+            if (expectComposite) {
+                assertThat(((CompositeByteBuf) result).numComponents()).isEqualTo((numBytes + 1023) / 1024);
+            }
+        }
+        finally {
+            result.release();
+        }
+    }
+
+    @Test
+    public void toByteBuf_returns_an_empty_buffer_if_nothing_was_written() {
+        // given
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(ALLOC, 1024);
+
+        // when
+        ByteBuf result = out.toByteBuf();
+
+        // then
+        assertThat(result.readableBytes()).isEqualTo(0);
+    }
+
+    @Test
+    public void size_returns_the_number_of_bytes_written_so_far() {
+        // given
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(ALLOC, 10);
+
+        // when
+        out.write(new byte[25], 0, 25);
+
+        // then
+        assertThat(out.size()).isEqualTo(25);
+        out.release();
+    }
+
+    @Test
+    public void release_releases_all_components_and_finishes_the_stream() {
+        // given
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(ALLOC, 10);
+        out.write(new byte[25], 0, 25);
+        ByteBuf firstComponent = out.fullComponents.get(0);
+        ByteBuf lastComponent = out.currentComponent;
+
+        // when
+        out.release();
+        out.release();
+
+        // then
+        assertThat(firstComponent.refCnt()).isEqualTo(0);
+        assertThat(lastComponent.refCnt()).isEqualTo(0);
+        assertThat(catchThrowable(() -> out.write(1))).isInstanceOf(IllegalStateException.class);
+        assertThat(catchThrowable(out::toByteBuf)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void write_throws_IndexOutOfBoundsException_for_invalid_offset_or_length() {
+        // given
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(ALLOC, 10);
+
+        // expect
+        assertThat(catchThrowable(() -> out.write(new byte[5], -1, 2)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(catchThrowable(() -> out.write(new byte[5], 4, 2)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args() {
+        // expect
+        assertThat(catchThrowable(() -> new CompositeByteBufOutputStream(null, 10)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("alloc cannot be null");
+        assertThat(catchThrowable(() -> new CompositeByteBufOutputStream(ALLOC, 0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("componentSizeBytes must be greater than 0. component_size_bytes=0");
+    }
+}
@@ -0,0 +1,144 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.http.Endpoint;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link JacksonCodecCache}.
+ */
+public class JacksonCodecCacheTest {
+
+    private final JacksonCodecCache cache = new JacksonCodecCache();
+
+    @Test
+    public void getReader_caches_readers_per_mapper_and_type() throws Exception {
+        // given
+        ObjectMapper mapperSpy = spy(new ObjectMapper());
+        TypeReference<Map<String, Integer>> typeRef = new TypeReference<Map<String, Integer>>() { };
+        // A different TypeReference instance for the same type should hit the same cache entry.
+        TypeReference<Map<String, Integer>> sameTypeRef = new TypeReference<Map<String, Integer>>() { };
+
+        // when
+        ObjectReader firstReader = cache.getReader(mapperSpy, typeRef);
+        ObjectReader secondReader = cache.getReader(mapperSpy, sameTypeRef);
+        ObjectReader otherMapperReader = cache.getReader(new ObjectMapper(), typeRef);
+
+        // then
+        assertThat(secondReader).isSameAs(firstReader);
+        assertThat(otherMapperReader).isNotSameAs(firstReader);
+        verify(mapperSpy, times(1)).readerFor(typeRef);
+        Map<String, Integer> result = firstReader.readValue("{\"foo\":42}");
+        assertThat(result).containsEntry("foo", 42);
+    }
+
+    @Test
+    public void getWriter_caches_writers_per_mapper_and_class() throws Exception {
+        // given
+        ObjectMapper mapperSpy = spy(new ObjectMapper());
+
+        // when
+        ObjectWriter firstWriter = cache.getWriter(mapperSpy, ArrayList.class);
+        ObjectWriter secondWriter = cache.getWriter(mapperSpy, ArrayList.class);
+        ObjectWriter otherClassWriter = cache.getWriter(mapperSpy, String.class);
+
+        // then
+        assertThat(secondWriter).isSameAs(firstWriter);
+        assertThat(otherClassWriter).isNotSameAs(firstWriter);
+        verify(mapperSpy, times(1)).writerFor(ArrayList.class);
+        assertThat(firstWriter.writeValueAsString(new ArrayList<>(Arrays.asList(1, 2)))).isEqualTo("[1,2]");
+    }
+
+    @Test
+    public void getReader_and_getWriter_stop_caching_new_mappers_once_the_max_is_reached() {
+        // given
+        for (int i = 0; i < JacksonCodecCache.MAX_CACHED_MAPPERS; i++) {
+            ObjectMapper mapper = new ObjectMapper();
+            cache.getReader(mapper, new TypeReference<String>() { });
+            cache.getWriter(mapper, String.class);
+        }
+        ObjectMapper oneMapperTooMany = new ObjectMapper();
+        TypeReference<String> typeRef = new TypeReference<String>() { };
+
+        // when
+        ObjectReader firstReader = cache.getReader(oneMapperTooMany, typeRef);
+        ObjectReader secondReader = cache.getReader(oneMapperTooMany, typeRef);
+        ObjectWriter firstWriter = cache.getWriter(oneMapperTooMany, String.class);
+        ObjectWriter secondWriter = cache.getWriter(oneMapperTooMany, String.class);
+
+        // then
+        assertThat(secondReader).isNotSameAs(firstReader);
+        assertThat(secondWriter).isNotSameAs(firstWriter);
+        assertThat(cache.readerCacheSnapshot).hasSize(JacksonCodecCache.MAX_CACHED_MAPPERS);
+        assertThat(cache.writerCacheSnapshot).hasSize(JacksonCodecCache.MAX_CACHED_MAPPERS);
+    }
+
+    @Test
+    public void getWriter_stops_caching_new_types_for_a_mapper_once_the_max_is_reached() {
+        // given
+        ObjectMapper mapper = new ObjectMapper();
+        for (int i = 0; i < JacksonCodecCache.MAX_CACHED_TYPES_PER_MAPPER; i++) {
+            // Each array dimension is a distinct class (arrays can have at most 255 dimensions).
+            Class<?> componentType = (i % 2 == 0) ? String.class : Long.class;
+            cache.getWriter(mapper, Array.newInstance(componentType, new int[(i / 2) + 1]).getClass());
+        }
+
+        // when
+        ObjectWriter firstWriter = cache.getWriter(mapper, Integer.class);
+        ObjectWriter secondWriter = cache.getWriter(mapper, Integer.class);
+
+        // then
+        assertThat(secondWriter).isNotSameAs(firstWriter);
+        assertThat(cache.writerCacheSnapshot.get(mapper)).hasSize(JacksonCodecCache.MAX_CACHED_TYPES_PER_MAPPER);
+    }
+
+    @Test
+    public void prebuildReaders_builds_readers_for_endpoints_that_want_deserialized_content() {
+        // given
+        ObjectMapper mapperSpy = spy(new ObjectMapper());
+        TypeReference<Map<String, Integer>> typeRef = new TypeReference<Map<String, Integer>>() { };
+        Collection<Endpoint<?>> endpoints = Arrays.asList(endpoint(typeRef), endpoint(null));
+
+        // when
+        cache.prebuildReaders(mapperSpy, endpoints);
+        cache.prebuildReaders(mapperSpy, null);
+        ObjectReader reader = cache.getReader(mapperSpy, typeRef);
+
+        // then
+        assertThat(reader).isNotNull();
+        assertThat(cache.readerCacheSnapshot.get(mapperSpy)).hasSize(1);
+        verify(mapperSpy, times(1)).readerFor(typeRef);
+    }
+
+    private static <T> Endpoint<T> endpoint(@Nullable TypeReference<T> requestContentType) {
+        return new Endpoint<T>() {
+            @Override
+            public @NotNull Matcher requestMatcher() {
+                return Matcher.match("/some/path");
+            }
+
+            @Override
+            public @Nullable TypeReference<T> requestContentType() {
+                return requestContentType;
+            }
+        };
+    }
+}
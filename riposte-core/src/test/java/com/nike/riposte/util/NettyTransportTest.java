@@ -0,0 +1,177 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.server.config.ServerConfig.TransportType;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link NettyTransport}.
+ */
+@RunWith(DataProviderRunner.class)
+public class NettyTransportTest {
+
+    @DataProvider(value = {
+        // requested    | epollAvailable    | ioUringAvailable  | expected
+        "null           | true              | false             | EPOLL",
+        "null           | false             | false             | NIO",
+        "AUTO           | true              | true              | EPOLL",
+        "AUTO           | false             | true              | NIO",
+        "EPOLL          | true              | false             | EPOLL",
+        "EPOLL          | false             | false             | NIO",
+        "NIO            | true              | true              | NIO",
+        "NIO            | false             | false             | NIO",
+        // io_uring isn't on the test classpath, so even if it claims to be available its classes can't be loaded.
+        "IO_URING       | true              | true              | EPOLL",
+        "IO_URING       | true              | false             | EPOLL",
+        "IO_URING       | false             | false             | NIO",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void resolve_picks_the_requested_transport_or_falls_back_to_the_best_available_one(
+        TransportType requested, boolean epollAvailable, boolean ioUringAvailable, TransportType expected
+    ) {
+        // when
+        NettyTransport result = NettyTransport.resolve(requested, () -> epollAvailable, () -> ioUringAvailable);
+
+        // then
+        assertThat(result.getTransportType()).isEqualTo(expected);
+    }
+
+    @Test
+    public void resolve_without_availability_suppliers_never_returns_io_uring_when_its_classes_are_missing() {
+        // when
+        NettyTransport result = NettyTransport.resolve(TransportType.IO_URING);
+
+        // then
+        assertThat(NettyTransport.isIoUringAvailable()).isFalse();
+        assertThat(result.getTransportType()).isIn(TransportType.EPOLL, TransportType.NIO);
+    }
+
+    @Test
+    public void EPOLL_and_NIO_constants_expose_the_expected_channel_classes() {
+        // expect
+        assertThat(NettyTransport.EPOLL.getTransportType()).isEqualTo(TransportType.EPOLL);
+        assertThat(NettyTransport.EPOLL.getServerChannelClass()).isEqualTo(EpollServerSocketChannel.class);
+        assertThat(NettyTransport.EPOLL.getSocketChannelClass()).isEqualTo(EpollSocketChannel.class);
+        assertThat(NettyTransport.EPOLL.isNative()).isTrue();
+        assertThat(NettyTransport.EPOLL.toString()).isEqualTo("epoll");
+
+        assertThat(NettyTransport.NIO.getTransportType()).isEqualTo(TransportType.NIO);
+        assertThat(NettyTransport.NIO.getServerChannelClass()).isEqualTo(NioServerSocketChannel.class);
+        assertThat(NettyTransport.NIO.getSocketChannelClass()).isEqualTo(NioSocketChannel.class);
+        assertThat(NettyTransport.NIO.isNative()).isFalse();
+        assertThat(NettyTransport.NIO.toString()).isEqualTo("nio");
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void NIO_newEventLoopGroup_creates_NioEventLoopGroup_with_optional_thread_factory(
+        boolean useCustomThreadFactory
+    ) throws InterruptedException {
+        // given
+        ThreadFactory threadFactory = (useCustomThreadFactory)
+                                      ? spy(new DefaultThreadFactory("nettyTransportTest"))
+                                      : null;
+
+        // when
+        EventLoopGroup result = NettyTransport.NIO.newEventLoopGroup(1, threadFactory);
+
+        // then
+        try {
+            assertThat(result).isInstanceOf(NioEventLoopGroup.class);
+            assertThat(((NioEventLoopGroup)result).executorCount()).isEqualTo(1);
+            if (useCustomThreadFactory) {
+                result.submit(() -> { }).sync();
+                verify(threadFactory).newThread(any(Runnable.class));
+            }
+        }
+        finally {
+            result.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void forChannel_returns_the_transport_of_the_channel_or_its_nearest_socket_ancestor() {
+        // given
+        NioSocketChannel socketChannel = new NioSocketChannel();
+        Channel childChannel = mock(Channel.class);
+        doReturn(socketChannel).when(childChannel).parent();
+
+        // expect
+        try {
+            assertThat(NettyTransport.forChannel(socketChannel)).isSameAs(NettyTransport.NIO);
+            assertThat(NettyTransport.forChannel(childChannel)).isSameAs(NettyTransport.NIO);
+        }
+        finally {
+            // The channel was never registered with an event loop, so it has to be closed directly.
+            socketChannel.unsafe().closeForcibly();
+        }
+    }
+
+    @Test
+    public void forChannel_returns_null_for_null_or_unknown_channels() {
+        // given
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel();
+
+        // expect
+        assertThat(NettyTransport.forChannel(null)).isNull();
+        assertThat(NettyTransport.forChannel(embeddedChannel)).isNull();
+        assertThat(NettyTransport.forChannel(mock(SocketChannel.class))).isNull();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_AUTO_or_null_args() {
+        // given
+        NettyTransport.EventLoopGroupFactory factory = mock(NettyTransport.EventLoopGroupFactory.class);
+
+        // expect
+        assertThat(catchThrowable(
+            () -> new NettyTransport(TransportType.AUTO, factory, NioServerSocketChannel.class, NioSocketChannel.class)
+        )).isInstanceOf(IllegalArgumentException.class)
+          .hasMessage("transportType must be a concrete transport, not AUTO");
+        assertThat(catchThrowable(
+            () -> new NettyTransport(null, factory, NioServerSocketChannel.class, NioSocketChannel.class)
+        )).isInstanceOf(IllegalArgumentException.class)
+          .hasMessage("transportType cannot be null");
+        assertThat(catchThrowable(
+            () -> new NettyTransport(TransportType.NIO, null, NioServerSocketChannel.class, NioSocketChannel.class)
+        )).isInstanceOf(IllegalArgumentException.class)
+          .hasMessage("eventLoopGroupFactory cannot be null");
+        assertThat(catchThrowable(
+            () -> new NettyTransport(TransportType.NIO, factory, null, NioSocketChannel.class)
+        )).isInstanceOf(IllegalArgumentException.class)
+          .hasMessage("serverChannelClass cannot be null");
+        assertThat(catchThrowable(
+            () -> new NettyTransport(TransportType.NIO, factory, NioServerSocketChannel.class, null)
+        )).isInstanceOf(IllegalArgumentException.class)
+          .hasMessage("socketChannelClass cannot be null");
+    }
+}
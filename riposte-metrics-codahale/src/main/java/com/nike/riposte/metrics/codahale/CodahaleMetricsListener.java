@@ -4,11 +4,14 @@ import com.nike.internal.util.StringUtils;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.metrics.codahale.impl.EndpointMetricsHandlerDefaultImpl;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.ChannelOptionsConfig;
+import com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
+import com.nike.riposte.server.metrics.ProxyRouterChannelPoolStats;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
 
 import com.codahale.metrics.Counter;
@@ -18,6 +21,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.Timer;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -25,20 +29,40 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.ALLOCATOR;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.BOSS_THREADS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.ENDPOINTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.MAX_REQUEST_SIZE_IN_BYTES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.RCVBUF_ALLOCATOR;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.SO_BACKLOG;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.SO_RCVBUF;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.SO_SNDBUF;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.TCP_NO_DELAY;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.WORKER_THREADS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.WRITE_BUFFER_HIGH_WATER_MARK;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.WRITE_BUFFER_LOW_WATER_MARK;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.FAILED_REQUESTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.INFLIGHT_REQUESTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROCESSED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_POOL_ACQUIRES_REJECTED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_POOL_ACTIVE_CHANNELS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_POOL_CHANNELS_CLOSED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_POOL_CHANNELS_CREATED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_POOL_IDLE_CHANNELS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_POOL_PENDING_ACQUIRES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_REQUEST_BODY_PAUSED_TIME;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROXY_ROUTER_RESPONSE_BODY_PAUSED_TIME;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_SIZES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_SIZES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_WRITE_FAILED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.ROUTE_CACHE_EVICTIONS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.ROUTE_CACHE_HITS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.ROUTE_CACHE_MISSES;
 
 /**
  * Codahale-based {@link MetricsListener}. <b>Two things must occur during app startup for this class to be fully
@@ -78,6 +102,16 @@ public class CodahaleMetricsListener implements MetricsListener {
     protected Counter responseWriteFailed;
     protected Histogram responseSizes;
     protected Histogram requestSizes;
+    // Route cache counters are only created the first time a route cache event arrives, so apps that don't enable the
+    //      route cache don't end up with always-zero metrics.
+    protected volatile Counter routeCacheHits;
+    protected volatile Counter routeCacheMisses;
+    protected volatile Counter routeCacheEvictions;
+    // Same for the proxy/router connection pool counter - the per-pool gauges are registered as each pool is created.
+    protected volatile Counter proxyRouterPoolAcquiresRejected;
+    // The proxy/router backpressure timers are only created the first time a proxied request finishes.
+    protected volatile Timer proxyRouterRequestBodyPausedTime;
+    protected volatile Timer proxyRouterResponseBodyPausedTime;
 
     // Endpoint related metrics are handled by a EndpointMetricsHandler impl.
     protected final EndpointMetricsHandler endpointMetricsHandler;
@@ -214,6 +248,43 @@ public class CodahaleMetricsListener implements MetricsListener {
         );
     }
 
+    /**
+     * Registers gauges for the given proxy/router connection pool's active, idle, and pending connections, and the
+     * total number of connections it has created and closed. The gauges read the stats live, so this only needs to be
+     * called once per pool.
+     */
+    protected void addProxyRouterPoolMetrics(ProxyRouterChannelPoolStats poolStats) {
+        // Keep the pool name ("ip:port") from being split into extra levels by systems like graphite.
+        String poolName = poolStats.getPoolName().replace('.', '_').replace(':', '_');
+
+        registerOrReplaceGauge(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_POOL_ACTIVE_CHANNELS), poolName),
+            (Gauge<Integer>) poolStats::getNumActiveChannels
+        );
+        registerOrReplaceGauge(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_POOL_IDLE_CHANNELS), poolName),
+            (Gauge<Integer>) poolStats::getNumIdleChannels
+        );
+        registerOrReplaceGauge(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_POOL_PENDING_ACQUIRES), poolName),
+            (Gauge<Integer>) poolStats::getNumPendingAcquires
+        );
+        registerOrReplaceGauge(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_POOL_CHANNELS_CREATED), poolName),
+            (Gauge<Long>) poolStats::getNumChannelsCreated
+        );
+        registerOrReplaceGauge(
+            name(serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_POOL_CHANNELS_CLOSED), poolName),
+            (Gauge<Long>) poolStats::getNumChannelsClosed
+        );
+    }
+
+    protected void registerOrReplaceGauge(String gaugeName, Gauge<?> gauge) {
+        // A new pool for the same address (e.g. from another server sharing this listener) takes over the gauges.
+        metricsCollector.getMetricRegistry().remove(gaugeName);
+        metricsCollector.registerNamedMetric(gaugeName, gauge);
+    }
+
     /**
      * Adds metrics related to the given ServerConfig - usually gauges so you can inspect how the ServerConfig was setup.
      * Usually not needed - better to log this info on startup.
@@ -241,6 +312,59 @@ public class CodahaleMetricsListener implements MetricsListener {
 
         metricsCollector.registerNamedMetric(serverConfigMetricNamingStrategy.nameFor(ENDPOINTS),
                                              (Gauge<List<String>>)() -> endpointsList);
+
+        addChannelOptionsConfigMetrics(config);
+    }
+
+    /**
+     * Adds gauges for the socket/transport tuning values in {@link ServerConfig#channelOptionsConfig()} (or {@link
+     * ChannelOptionsConfig#DEFAULT_IMPL} if that's null). Socket buffer sizes report 0 when they're left at the OS
+     * default, and the {@link io.netty.channel.RecvByteBufAllocator} reports {@code "transport_default"} when it's left
+     * at the transport's default.
+     */
+    protected void addChannelOptionsConfigMetrics(ServerConfig config) {
+        ChannelOptionsConfig channelOptionsConfig = config.channelOptionsConfig();
+        if (channelOptionsConfig == null) {
+            channelOptionsConfig = ChannelOptionsConfig.DEFAULT_IMPL;
+        }
+        ChannelOptionsConfig finalChannelOptionsConfig = channelOptionsConfig;
+
+        metricsCollector.registerNamedMetric(serverConfigMetricNamingStrategy.nameFor(TCP_NO_DELAY),
+                                             (Gauge<Boolean>)finalChannelOptionsConfig::tcpNoDelay);
+
+        metricsCollector.registerNamedMetric(serverConfigMetricNamingStrategy.nameFor(SO_BACKLOG),
+                                             (Gauge<Integer>)finalChannelOptionsConfig::soBacklog);
+
+        metricsCollector.registerNamedMetric(serverConfigMetricNamingStrategy.nameFor(SO_RCVBUF),
+                                             (Gauge<Integer>)() -> Math.max(finalChannelOptionsConfig.soRcvBuf(), 0));
+
+        metricsCollector.registerNamedMetric(serverConfigMetricNamingStrategy.nameFor(SO_SNDBUF),
+                                             (Gauge<Integer>)() -> Math.max(finalChannelOptionsConfig.soSndBuf(), 0));
+
+        metricsCollector.registerNamedMetric(
+            serverConfigMetricNamingStrategy.nameFor(WRITE_BUFFER_LOW_WATER_MARK),
+            (Gauge<Integer>)() -> finalChannelOptionsConfig.writeBufferWaterMark().low()
+        );
+
+        metricsCollector.registerNamedMetric(
+            serverConfigMetricNamingStrategy.nameFor(WRITE_BUFFER_HIGH_WATER_MARK),
+            (Gauge<Integer>)() -> finalChannelOptionsConfig.writeBufferWaterMark().high()
+        );
+
+        metricsCollector.registerNamedMetric(
+            serverConfigMetricNamingStrategy.nameFor(ALLOCATOR),
+            (Gauge<String>)() -> finalChannelOptionsConfig.allocator().getClass().getName()
+        );
+
+        metricsCollector.registerNamedMetric(
+            serverConfigMetricNamingStrategy.nameFor(RCVBUF_ALLOCATOR),
+            (Gauge<String>)() -> {
+                Object recvByteBufAllocator = finalChannelOptionsConfig.recvByteBufAllocator();
+                return (recvByteBufAllocator == null)
+                       ? "transport_default"
+                       : recvByteBufAllocator.getClass().getName();
+            }
+        );
     }
 
     @Override
@@ -262,6 +386,50 @@ public class CodahaleMetricsListener implements MetricsListener {
                     logger.debug("inflightRequests decremented after response write failure");
                 }
             }
+            else if (ServerMetricsEvent.ROUTE_CACHE_HIT.equals(event)) {
+                Counter counter = routeCacheHits;
+                if (counter == null) {
+                    counter = routeCacheHits = metricsCollector.getNamedCounter(
+                        serverStatsMetricNamingStrategy.nameFor(ROUTE_CACHE_HITS)
+                    );
+                }
+                counter.inc();
+            }
+            else if (ServerMetricsEvent.ROUTE_CACHE_MISS.equals(event)) {
+                Counter counter = routeCacheMisses;
+                if (counter == null) {
+                    counter = routeCacheMisses = metricsCollector.getNamedCounter(
+                        serverStatsMetricNamingStrategy.nameFor(ROUTE_CACHE_MISSES)
+                    );
+                }
+                counter.inc();
+            }
+            else if (ServerMetricsEvent.ROUTE_CACHE_EVICTION.equals(event)) {
+                Counter counter = routeCacheEvictions;
+                if (counter == null) {
+                    counter = routeCacheEvictions = metricsCollector.getNamedCounter(
+                        serverStatsMetricNamingStrategy.nameFor(ROUTE_CACHE_EVICTIONS)
+                    );
+                }
+                counter.inc();
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED.equals(event)) {
+                if (value instanceof ProxyRouterChannelPoolStats) {
+                    addProxyRouterPoolMetrics((ProxyRouterChannelPoolStats) value);
+                }
+                else {
+                    logger.error("Metrics Error: value is not a ProxyRouterChannelPoolStats");
+                }
+            }
+            else if (ServerMetricsEvent.PROXY_ROUTER_POOL_ACQUIRE_REJECTED.equals(event)) {
+                Counter counter = proxyRouterPoolAcquiresRejected;
+                if (counter == null) {
+                    counter = proxyRouterPoolAcquiresRejected = metricsCollector.getNamedCounter(
+                        serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_POOL_ACQUIRES_REJECTED)
+                    );
+                }
+                counter.inc();
+            }
             else if (ServerMetricsEvent.RESPONSE_SENT.equals(event)) {
                 HttpProcessingState httpState;
                 if (value instanceof HttpProcessingState) {
@@ -324,10 +492,12 @@ public class CodahaleMetricsListener implements MetricsListener {
                 }
 
                 // meter request/response sizes
-                requestSizes.update(requestInfo.getRawContentLengthInBytes());
+                requestSizes.update(requestInfo.getRawContentLengthInBytesAsLong());
                 // TODO: Maybe add another metric for the raw uncompressed response length?
                 responseSizes
                     .update(responseInfo.getFinalContentLength() == null ? 0 : responseInfo.getFinalContentLength());
+
+                updateProxyRouterBackpressureMetrics(requestInfo);
             }
             else {
                 logger.error("Metrics Error: unknown metrics event " + event);
@@ -338,6 +508,38 @@ public class CodahaleMetricsListener implements MetricsListener {
         }
     }
 
+    /**
+     * Updates the proxy/router backpressure paused-time timers from the given request's attributes. Does nothing for
+     * requests that weren't proxied, since they won't have the attributes.
+     */
+    protected void updateProxyRouterBackpressureMetrics(RequestInfo<?> requestInfo) {
+        Object requestBodyPausedTimeNanos = requestInfo.getRequestAttributes().get(
+            ProxyRouterEndpointExecutionHandler.REQUEST_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY
+        );
+        if (requestBodyPausedTimeNanos instanceof Long) {
+            Timer timer = proxyRouterRequestBodyPausedTime;
+            if (timer == null) {
+                timer = proxyRouterRequestBodyPausedTime = metricsCollector.getNamedTimer(
+                    serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_REQUEST_BODY_PAUSED_TIME)
+                );
+            }
+            timer.update((Long) requestBodyPausedTimeNanos, TimeUnit.NANOSECONDS);
+        }
+
+        Object responseBodyPausedTimeNanos = requestInfo.getRequestAttributes().get(
+            ProxyRouterEndpointExecutionHandler.RESPONSE_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY
+        );
+        if (responseBodyPausedTimeNanos instanceof Long) {
+            Timer timer = proxyRouterResponseBodyPausedTime;
+            if (timer == null) {
+                timer = proxyRouterResponseBodyPausedTime = metricsCollector.getNamedTimer(
+                    serverStatsMetricNamingStrategy.nameFor(PROXY_ROUTER_RESPONSE_BODY_PAUSED_TIME)
+                );
+            }
+            timer.update((Long) responseBodyPausedTimeNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
     public Counter getInflightRequests() {
         return inflightRequests;
     }
@@ -362,6 +564,51 @@ public class CodahaleMetricsListener implements MetricsListener {
         return requestSizes;
     }
 
+    /**
+     * @return The route cache hits counter, or null if there have been no route cache hits yet.
+     */
+    public @Nullable Counter getRouteCacheHits() {
+        return routeCacheHits;
+    }
+
+    /**
+     * @return The route cache misses counter, or null if there have been no route cache misses yet.
+     */
+    public @Nullable Counter getRouteCacheMisses() {
+        return routeCacheMisses;
+    }
+
+    /**
+     * @return The route cache evictions counter, or null if there have been no route cache evictions yet.
+     */
+    public @Nullable Counter getRouteCacheEvictions() {
+        return routeCacheEvictions;
+    }
+
+    /**
+     * @return The proxy/router connection pool rejected acquires counter, or null if no downstream calls have been
+     * rejected by an exhausted connection pool yet.
+     */
+    public @Nullable Counter getProxyRouterPoolAcquiresRejected() {
+        return proxyRouterPoolAcquiresRejected;
+    }
+
+    /**
+     * @return The timer for how long proxied requests had reading their request body paused due to backpressure, or
+     * null if no proxied requests have finished yet.
+     */
+    public @Nullable Timer getProxyRouterRequestBodyPausedTime() {
+        return proxyRouterRequestBodyPausedTime;
+    }
+
+    /**
+     * @return The timer for how long proxied requests had reading their downstream response body paused due to
+     * backpressure, or null if no proxied requests have finished yet.
+     */
+    public @Nullable Timer getProxyRouterResponseBodyPausedTime() {
+        return proxyRouterResponseBodyPausedTime;
+    }
+
     public MetricRegistry getMetricRegistry() {
         return metricsCollector.getMetricRegistry();
     }
@@ -380,14 +627,33 @@ public class CodahaleMetricsListener implements MetricsListener {
         FAILED_REQUESTS,
         RESPONSE_WRITE_FAILED,
         REQUEST_SIZES,
-        RESPONSE_SIZES
+        RESPONSE_SIZES,
+        ROUTE_CACHE_HITS,
+        ROUTE_CACHE_MISSES,
+        ROUTE_CACHE_EVICTIONS,
+        PROXY_ROUTER_POOL_ACTIVE_CHANNELS,
+        PROXY_ROUTER_POOL_IDLE_CHANNELS,
+        PROXY_ROUTER_POOL_PENDING_ACQUIRES,
+        PROXY_ROUTER_POOL_CHANNELS_CREATED,
+        PROXY_ROUTER_POOL_CHANNELS_CLOSED,
+        PROXY_ROUTER_POOL_ACQUIRES_REJECTED,
+        PROXY_ROUTER_REQUEST_BODY_PAUSED_TIME,
+        PROXY_ROUTER_RESPONSE_BODY_PAUSED_TIME
     }
 
     public enum ServerConfigMetricNames {
         BOSS_THREADS,
         WORKER_THREADS,
         MAX_REQUEST_SIZE_IN_BYTES,
-        ENDPOINTS
+        ENDPOINTS,
+        TCP_NO_DELAY,
+        SO_BACKLOG,
+        SO_RCVBUF,
+        SO_SNDBUF,
+        WRITE_BUFFER_LOW_WATER_MARK,
+        WRITE_BUFFER_HIGH_WATER_MARK,
+        ALLOCATOR,
+        RCVBUF_ALLOCATOR
     }
 
     /**
@@ -8,11 +8,13 @@ import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatistic
 import com.nike.riposte.metrics.codahale.impl.EndpointMetricsHandlerDefaultImpl;
 import com.nike.riposte.server.config.ServerConfig;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.metrics.ProxyRouterChannelPoolStats;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
 import com.nike.riposte.util.Matcher;
 
@@ -46,8 +48,11 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.NetUtil;
 
 import static com.codahale.metrics.MetricRegistry.name;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.DEFAULT_REQUEST_AND_RESPONSE_SIZE_HISTOGRAM_SUPPLIER;
@@ -66,6 +71,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -440,6 +446,23 @@ public class CodahaleMetricsListenerTest {
                 .isEqualTo(expectedEndpointsListValue);
             verify(cmcMock).registerNamedMetric(expectedEndpointsListGaugeName,
                                                 registeredGauges.get(expectedEndpointsListGaugeName));
+
+            // Metrics for channel options config values - the serverConfig doesn't specify any so they're defaults.
+            Map<String, Object> expectedChannelOptionsGaugeValues = new HashMap<>();
+            expectedChannelOptionsGaugeValues.put("tcp_no_delay", true);
+            expectedChannelOptionsGaugeValues.put("so_backlog", NetUtil.SOMAXCONN);
+            expectedChannelOptionsGaugeValues.put("so_rcvbuf", 0);
+            expectedChannelOptionsGaugeValues.put("so_sndbuf", 0);
+            expectedChannelOptionsGaugeValues.put("write_buffer_low_water_mark", WriteBufferWaterMark.DEFAULT.low());
+            expectedChannelOptionsGaugeValues.put("write_buffer_high_water_mark", WriteBufferWaterMark.DEFAULT.high());
+            expectedChannelOptionsGaugeValues.put("allocator", ByteBufAllocator.DEFAULT.getClass().getName());
+            expectedChannelOptionsGaugeValues.put("rcvbuf_allocator", "transport_default");
+            expectedChannelOptionsGaugeValues.forEach((gaugeSuffix, expectedValue) -> {
+                String expectedGaugeName = name(ServerConfig.class.getSimpleName(), gaugeSuffix);
+                assertThat(registeredGauges).containsKey(expectedGaugeName);
+                assertThat(registeredGauges.get(expectedGaugeName).getValue()).isEqualTo(expectedValue);
+                verify(cmcMock).registerNamedMetric(expectedGaugeName, registeredGauges.get(expectedGaugeName));
+            });
         }
         else {
             // No server config values should have been registered.
@@ -476,6 +499,89 @@ public class CodahaleMetricsListenerTest {
         verify(listener.responseWriteFailed).inc();
     }
 
+    @DataProvider(value = {
+        "ROUTE_CACHE_HIT        |   route_cache_hits",
+        "ROUTE_CACHE_MISS       |   route_cache_misses",
+        "ROUTE_CACHE_EVICTION   |   route_cache_evictions"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void onEvent_lazily_creates_and_increments_route_cache_counters(
+        ServerMetricsEvent event, String expectedCounterName
+    ) {
+        // given
+        String prefix = ((DefaultMetricNamingStrategy)listener.serverStatsMetricNamingStrategy).prefix;
+        String expectedName = name(prefix, expectedCounterName);
+        assertThat(registeredCounterMocks).doesNotContainKey(expectedName);
+
+        // when
+        listener.onEvent(event, state);
+        listener.onEvent(event, state);
+
+        // then
+        Counter counter = registeredCounterMocks.get(expectedName);
+        assertThat(counter).isNotNull();
+        verify(cmcMock).getNamedCounter(expectedName);
+        verify(counter, times(2)).inc();
+        switch (event) {
+            case ROUTE_CACHE_HIT:
+                assertThat(listener.getRouteCacheHits()).isSameAs(counter);
+                break;
+            case ROUTE_CACHE_MISS:
+                assertThat(listener.getRouteCacheMisses()).isSameAs(counter);
+                break;
+            default:
+                assertThat(listener.getRouteCacheEvictions()).isSameAs(counter);
+        }
+    }
+
+    @Test
+    public void onEvent_registers_gauges_for_new_proxy_router_connection_pools() {
+        // given
+        String prefix = ((DefaultMetricNamingStrategy)listener.serverStatsMetricNamingStrategy).prefix;
+        ProxyRouterChannelPoolStats poolStatsMock = mock(ProxyRouterChannelPoolStats.class);
+        doReturn("127.0.0.1:8080").when(poolStatsMock).getPoolName();
+        doReturn(1).when(poolStatsMock).getNumActiveChannels();
+        doReturn(2).when(poolStatsMock).getNumIdleChannels();
+        doReturn(3).when(poolStatsMock).getNumPendingAcquires();
+        doReturn(4L).when(poolStatsMock).getNumChannelsCreated();
+        doReturn(5L).when(poolStatsMock).getNumChannelsClosed();
+
+        // when
+        listener.onEvent(ServerMetricsEvent.PROXY_ROUTER_POOL_CREATED, poolStatsMock);
+
+        // then
+        assertThat(registeredGauges.get(name(prefix, "proxy_router_pool_active_channels", "127_0_0_1_8080"))
+                                   .getValue()).isEqualTo(1);
+        assertThat(registeredGauges.get(name(prefix, "proxy_router_pool_idle_channels", "127_0_0_1_8080"))
+                                   .getValue()).isEqualTo(2);
+        assertThat(registeredGauges.get(name(prefix, "proxy_router_pool_pending_acquires", "127_0_0_1_8080"))
+                                   .getValue()).isEqualTo(3);
+        assertThat(registeredGauges.get(name(prefix, "proxy_router_pool_channels_created", "127_0_0_1_8080"))
+                                   .getValue()).isEqualTo(4L);
+        assertThat(registeredGauges.get(name(prefix, "proxy_router_pool_channels_closed", "127_0_0_1_8080"))
+                                   .getValue()).isEqualTo(5L);
+    }
+
+    @Test
+    public void onEvent_lazily_creates_and_increments_proxy_router_pool_acquires_rejected_counter() {
+        // given
+        String prefix = ((DefaultMetricNamingStrategy)listener.serverStatsMetricNamingStrategy).prefix;
+        String expectedName = name(prefix, "proxy_router_pool_acquires_rejected");
+        assertThat(registeredCounterMocks).doesNotContainKey(expectedName);
+        assertThat(listener.getProxyRouterPoolAcquiresRejected()).isNull();
+
+        // when
+        listener.onEvent(
+            ServerMetricsEvent.PROXY_ROUTER_POOL_ACQUIRE_REJECTED, mock(ProxyRouterChannelPoolStats.class)
+        );
+
+        // then
+        Counter counter = registeredCounterMocks.get(expectedName);
+        assertThat(counter).isNotNull();
+        verify(counter).inc();
+        assertThat(listener.getProxyRouterPoolAcquiresRejected()).isSameAs(counter);
+    }
+
     @DataProvider(value = {
         "GET    |   99",
         "GET    |   142",
@@ -555,8 +661,8 @@ public class CodahaleMetricsListenerTest {
 
         doReturn(responseStatusCode).when(responseInfoMock).getHttpStatusCodeWithDefault(ResponseSender.DEFAULT_HTTP_STATUS_CODE);
 
-        int requestRawContentLengthBytes = (int)(Math.random() * 10000);
-        doReturn(requestRawContentLengthBytes).when(requestInfoMock).getRawContentLengthInBytes();
+        long requestRawContentLengthBytes = (long)(Math.random() * 10000);
+        doReturn(requestRawContentLengthBytes).when(requestInfoMock).getRawContentLengthInBytesAsLong();
 
         long finalResponseContentLength = (long)(Math.random() * 10000);
         doReturn(finalResponseContentLength).when(responseInfoMock).getFinalContentLength();
@@ -613,8 +719,8 @@ public class CodahaleMetricsListenerTest {
         state.setEndpointForExecution(null, null);
         doReturn(responseStatusCode).when(responseInfoMock).getHttpStatusCodeWithDefault(ResponseSender.DEFAULT_HTTP_STATUS_CODE);
 
-        int requestRawContentLengthBytes = (int)(Math.random() * 10000);
-        doReturn(requestRawContentLengthBytes).when(requestInfoMock).getRawContentLengthInBytes();
+        long requestRawContentLengthBytes = (long)(Math.random() * 10000);
+        doReturn(requestRawContentLengthBytes).when(requestInfoMock).getRawContentLengthInBytesAsLong();
 
         long finalResponseContentLength = (long)(Math.random() * 10000);
         doReturn(finalResponseContentLength).when(responseInfoMock).getFinalContentLength();
@@ -733,6 +839,37 @@ public class CodahaleMetricsListenerTest {
         verify(listener.responseSizes).update(0L);
     }
 
+    @Test
+    public void onEvent_for_RESPONSE_SENT_updates_proxy_router_backpressure_timers_if_request_was_proxied() {
+        // given
+        String prefix = ((DefaultMetricNamingStrategy)listener.serverStatsMetricNamingStrategy).prefix;
+        Map<String, Object> requestAttributes = new HashMap<>();
+        requestAttributes.put(ProxyRouterEndpointExecutionHandler.REQUEST_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY, 42L);
+        requestAttributes.put(ProxyRouterEndpointExecutionHandler.RESPONSE_BODY_PAUSED_TIME_NANOS_REQUEST_ATTR_KEY, 0L);
+        doReturn(requestAttributes).when(requestInfoMock).getRequestAttributes();
+
+        // when
+        listener.onEvent(ServerMetricsEvent.RESPONSE_SENT, state);
+
+        // then
+        Timer requestBodyTimer = registeredTimerMocks.get(name(prefix, "proxy_router_request_body_paused_time"));
+        Timer responseBodyTimer = registeredTimerMocks.get(name(prefix, "proxy_router_response_body_paused_time"));
+        assertThat(listener.getProxyRouterRequestBodyPausedTime()).isSameAs(requestBodyTimer).isNotNull();
+        assertThat(listener.getProxyRouterResponseBodyPausedTime()).isSameAs(responseBodyTimer).isNotNull();
+        verify(requestBodyTimer).update(42L, NANOSECONDS);
+        verify(responseBodyTimer).update(0L, NANOSECONDS);
+    }
+
+    @Test
+    public void onEvent_for_RESPONSE_SENT_does_not_create_proxy_router_backpressure_timers_if_request_was_not_proxied() {
+        // when
+        listener.onEvent(ServerMetricsEvent.RESPONSE_SENT, state);
+
+        // then
+        assertThat(listener.getProxyRouterRequestBodyPausedTime()).isNull();
+        assertThat(listener.getProxyRouterResponseBodyPausedTime()).isNull();
+    }
+
     @Test
     public void onEvent_does_nothing_if_event_type_is_unknown() {
         // given
@@ -14,6 +14,7 @@ import com.nike.fastbreak.exception.CircuitBreakerTimeoutException;
 import com.nike.internal.util.Pair;
 import com.nike.internal.util.StringUtils;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.Forbidden403Exception;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
@@ -182,6 +183,19 @@ public class BackstopperRiposteFrameworkErrorHandlerListener implements ApiExcep
             );
         }
 
+        if (ex instanceof DownstreamConnectionPoolExhaustedException) {
+            DownstreamConnectionPoolExhaustedException theEx = (DownstreamConnectionPoolExhaustedException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("downstream_pool_name", String.valueOf(theEx.poolName)),
+                    Pair.of("max_connections_per_host", String.valueOf(theEx.maxConnectionsPerHost)),
+                    Pair.of("max_pending_acquires_per_host", String.valueOf(theEx.maxPendingAcquiresPerHost)),
+                    causeDetailsForLogs(theEx)
+                )
+            );
+        }
+
         if (ex instanceof HostnameResolutionException) {
             return ApiExceptionHandlerListenerResult.handleResponse(
                 singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
@@ -28,6 +28,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.net.InetSocketAddress;
+import java.net.URI;
 import java.security.cert.CertificateException;
 import java.util.Collection;
 import java.util.List;
@@ -38,11 +40,17 @@ import java.util.concurrent.ThreadFactory;
 
 import javax.net.ssl.SSLException;
 
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.util.NetUtil;
 
 /**
  * Interface for providing the configuration options needed by a Riposte server. Reasonable defaults are provided where
@@ -217,6 +225,21 @@ public interface ServerConfig {
         return null;
     }
 
+    /**
+     * @return The Jackson modules that should be registered with {@link #defaultRequestContentDeserializer()} and
+     * {@link #defaultResponseContentSerializer()} (or the blank {@link ObjectMapper}s that are used in their place if
+     * they're null) before the server starts up. This is mainly a hook for bytecode-accelerated (de)serializer modules
+     * like Jackson's Afterburner or Blackbird modules, which make the (de)serialization itself cheaper, but any module
+     * works. This can safely be null or empty, in which case the mappers are used as-is. Defaults to null.
+     * <p/>
+     * NOTE: The modules are registered on the mappers returned by this config, so if you share those mappers with other
+     * code it'll see the modules too. Riposte builds its Jackson readers and writers from these mappers when it starts
+     * up (or the first time it sees a response type), so the mappers should be fully configured by then.
+     */
+    default @Nullable List<com.fasterxml.jackson.databind.Module> defaultObjectMapperModules() {
+        return null;
+    }
+
     /**
      * @return true if the server should enable some debugging features, false if those debug features should be hidden.
      * This is usually just for some extra debug logging, but it could result in a significant amount of log spam so it
@@ -268,6 +291,18 @@ public interface ServerConfig {
         return false;
     }
 
+    /**
+     * @return The Netty transport the server should use for its boss and worker event loops, and that proxy/router
+     * endpoints should use for their downstream calls. Defaults to {@link TransportType#AUTO}, which uses the native
+     * epoll transport when it's available and falls back to NIO otherwise. If you ask for a specific native transport
+     * that isn't available on the current OS/architecture/classpath then a warning is logged and the {@link
+     * TransportType#AUTO} choice is used instead. The transport that was actually chosen is logged at startup. See
+     * {@link TransportType} for the options.
+     */
+    default @NotNull TransportType transportType() {
+        return TransportType.AUTO;
+    }
+
     /**
      * @return The number of netty boss threads to use. This is usually fine at 1.
      */
@@ -275,6 +310,19 @@ public interface ServerConfig {
         return 1;
     }
 
+    /**
+     * @return The number of listening (acceptor) channels to bind to the server's port. Defaults to 1, which is fine
+     * for most purposes. Values greater than 1 bind that many channels to the same port with {@code SO_REUSEPORT},
+     * so the kernel load-balances incoming connections across them instead of funneling every accept through a single
+     * queue - useful under heavy connection churn (lots of short-lived connections, e.g. behind a network load
+     * balancer). Each acceptor channel is registered on the next boss event loop, so you'll usually want {@link
+     * #numBossThreads()} to be at least this large. This requires the native epoll transport - if it's not available
+     * then a warning is logged and a single channel is bound as usual. Must be at least 1.
+     */
+    default int numAcceptorChannels() {
+        return 1;
+    }
+
     /**
      * @return The custom {@link ThreadFactory} you want the Riposte server to use when it creates boss threads, or
      * return null if you want to use the default. Default is recommended unless you have a good reason to override and
@@ -491,12 +539,31 @@ public interface ServerConfig {
 
     /**
      * @return The list of {@link ServerShutdownHook} that allows you to implement logic that is automatically executed
-     * when the Riposte server is shutdown. Null is allowed if you have no hooks to execute.
+     * when the Riposte server is shutdown. Null is allowed if you have no hooks to execute. See the {@link
+     * ServerShutdownHook} javadocs for the shutdown stages the hooks are called at.
      */
     default @Nullable List<@NotNull ServerShutdownHook> serverShutdownHooks() {
         return null;
     }
 
+    /**
+     * @return The max amount of time in milliseconds the server should spend draining in-flight requests when it is
+     * shut down. If this is greater than 0 then shutdown happens in stages: the server stops accepting new connections,
+     * every response sent from then on gets a {@code Connection: close} header (and the connection is closed after it's
+     * sent) so keep-alive callers move on to other servers, and the server waits for all in-flight requests (including
+     * proxy/router streams) to finish or for this deadline to pass, whichever comes first. Only then are the event loops
+     * torn down. This lets load balancers take the server out of rotation without callers seeing errors.
+     *
+     * <p>If this method returns a value less than or equal to 0 then there is no drain phase - the event loops are torn
+     * down right after the server stops accepting connections, which cuts off any requests still in flight.
+     *
+     * <p>In-flight requests are tracked by Riposte's default channel pipeline, so draining does nothing if you use a
+     * {@link #customChannelInitializer()}.
+     */
+    default long shutdownDrainTimeoutMillis() {
+        return 0;
+    }
+
     /**
      * @return The list of {@link PipelineCreateHook} that allows you to modify the channel pipeline created by Riposte
      * for handling new channels. Null is allowed if you have no hooks to execute.
@@ -546,6 +613,65 @@ public interface ServerConfig {
         return null;
     }
 
+    /**
+     * @return The {@link EndpointRoutingConfig} that controls how incoming requests are matched to one of your {@link
+     * #appEndpoints()}, or null if you want to use the default values. See the javadocs for {@link
+     * EndpointRoutingConfig} and its methods for more details.
+     */
+    default @Nullable EndpointRoutingConfig endpointRoutingConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ChannelOptionsConfig} containing the socket/transport tuning options (TCP_NODELAY, socket
+     * buffer sizes, write buffer watermarks, buffer allocators, etc) that should be applied both to the server's
+     * incoming channels and to the downstream channels used by proxy/router endpoints, or null if you want to use the
+     * default values. See the javadocs for {@link ChannelOptionsConfig} and its methods for more details.
+     *
+     * <p>These options are applied to the {@link io.netty.bootstrap.ServerBootstrap} before your {@link
+     * #preServerStartupHooks()} are executed, so a {@link PreServerStartupHook} can still override them if needed.
+     */
+    default @Nullable ChannelOptionsConfig channelOptionsConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link Http2Config} that controls whether (and how) the server accepts HTTP/2 connections, or null
+     * if you want to use the default values (HTTP/2 disabled). See the javadocs for {@link Http2Config} and its methods
+     * for more details.
+     */
+    default @Nullable Http2Config http2Config() {
+        return null;
+    }
+
+    /**
+     * @return The {@link Http1PipeliningConfig} that controls whether the server processes pipelined HTTP/1.1 requests
+     * concurrently, or null if you want to use the default values (pipelined requests are not processed concurrently).
+     * See the javadocs for {@link Http1PipeliningConfig} and its methods for more details.
+     */
+    default @Nullable Http1PipeliningConfig http1PipeliningConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ProxyRouterDnsConfig} that controls how proxy/router endpoints resolve downstream hostnames
+     * into IP addresses, or null if you want to use the default values (blocking {@link
+     * java.net.InetAddress#getAllByName(String)} lookups for every downstream call). See the javadocs for {@link
+     * ProxyRouterDnsConfig} and its methods for more details.
+     */
+    default @Nullable ProxyRouterDnsConfig proxyRouterDnsConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ProxyRouterConnectionPoolConfig} that controls how many connections proxy/router endpoints
+     * can open to each downstream host, or null if you want to use the default values (no limit). See the javadocs for
+     * {@link ProxyRouterConnectionPoolConfig} and its methods for more details.
+     */
+    default @Nullable ProxyRouterConnectionPoolConfig proxyRouterConnectionPoolConfig() {
+        return null;
+    }
+
     /**
      * @return The {@link DistributedTracingConfig} that should be used to control certain Riposte distributed tracing
      * behaviors, or null if you want to use the default implementation ({@code
@@ -617,4 +743,856 @@ public interface ServerConfig {
             return 8192;
         }
     }
+
+    /**
+     * Config options that control how incoming requests are routed to the {@link Endpoint} that should handle them.
+     * Routing behavior for a given set of endpoints (the 404, 405, and multiple-matching-endpoints errors) is the same
+     * regardless of these options - they only affect how the matching endpoint is found, and whether endpoints with
+     * overlapping path templates are allowed to start up in the first place.
+     */
+    interface EndpointRoutingConfig {
+
+        /**
+         * Statically accessible implementation of the {@link EndpointRoutingConfig} interface that returns the
+         * default values.
+         */
+        @NotNull EndpointRoutingConfig DEFAULT_IMPL = new EndpointRoutingConfig() {};
+
+        /**
+         * Defaults to false.
+         *
+         * @return true if the path templates of all {@link #appEndpoints()} should be compiled at startup into a
+         * prefix trie keyed by path segment, so that routing a request costs roughly one lookup per path segment and
+         * path parameters are captured during the same walk. False means every endpoint's {@link
+         * Endpoint#requestMatcher()} is asked about every request in turn, which is fine for apps with a modest number
+         * of endpoints. Path templates that can't be represented in the trie (Ant-style wildcards, regex path
+         * params, custom {@link com.nike.riposte.util.Matcher} implementations, etc) still work when this is enabled -
+         * they are simply checked one by one alongside the trie lookup.
+         */
+        default boolean isCompiledRouterEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to 0 (disabled).
+         *
+         * @return The max number of resolved routes to cache, keyed by HTTP method and decoded request path, or 0 (or
+         * less) to disable the route cache. A cached route holds the matching endpoint, the matched path template, and
+         * the extracted path params, so a repeat request for the same method and path skips endpoint matching
+         * entirely. This is useful when traffic is dominated by a small set of concrete URIs (health checks, a few hot
+         * GETs, etc). Only successfully routed requests are cached, and once the cache is full a new route is only
+         * admitted if it has been requested more often than the route it would replace, so scanning lots of random
+         * URLs can't flush the hot routes out. The cache is only used when every one of your {@link #appEndpoints()}
+         * uses a {@link com.nike.riposte.util.Matcher#match(String)}/{@link
+         * com.nike.riposte.util.Matcher#multiMatch(java.util.Collection)} style matcher, since custom {@link
+         * com.nike.riposte.util.Matcher} implementations may look at more than the method and path. Cache hits,
+         * misses, and evictions are reported to your {@link #metricsListener()} as {@link
+         * com.nike.riposte.server.metrics.ServerMetricsEvent#ROUTE_CACHE_HIT}, {@link
+         * com.nike.riposte.server.metrics.ServerMetricsEvent#ROUTE_CACHE_MISS}, and {@link
+         * com.nike.riposte.server.metrics.ServerMetricsEvent#ROUTE_CACHE_EVICTION} events.
+         */
+        default int routeCacheMaxSize() {
+            return 0;
+        }
+
+        /**
+         * Defaults to {@link AmbiguousEndpointsPolicy#LOG_WARNING}.
+         *
+         * @return What should happen when the server detects at startup that two or more of your {@link
+         * #appEndpoints()} can match the same request (same path and HTTP method). Such requests fail at runtime with
+         * a multiple-matching-endpoints error, so it's usually better to find out at startup. See {@link
+         * AmbiguousEndpointsPolicy} for the options.
+         */
+        default @NotNull AmbiguousEndpointsPolicy ambiguousEndpointsPolicy() {
+            return AmbiguousEndpointsPolicy.LOG_WARNING;
+        }
+
+        /**
+         * The options for {@link #ambiguousEndpointsPolicy()}. Only endpoints that are provably ambiguous are acted
+         * on - endpoints whose overlap can't be determined at startup (e.g. two Ant-wildcard path templates, or custom
+         * {@link com.nike.riposte.util.Matcher} implementations) are only logged at info level.
+         */
+        enum AmbiguousEndpointsPolicy {
+            /**
+             * Don't analyze the endpoints for ambiguity at startup.
+             */
+            IGNORE,
+            /**
+             * Log a warning for each pair of ambiguous endpoints, but allow the server to start up.
+             */
+            LOG_WARNING,
+            /**
+             * Fail server startup with an {@link IllegalArgumentException} if any endpoints are ambiguous.
+             */
+            FAIL_STARTUP
+        }
+    }
+
+    /**
+     * Typed socket/transport tuning options that map to Netty {@link ChannelOption}s. Unless noted otherwise each
+     * option is applied to both the server's child (incoming connection) channels and the downstream channels created
+     * by proxy/router endpoints. The defaults match Netty's own defaults, so the {@link #DEFAULT_IMPL} doesn't change
+     * any behavior.
+     *
+     * <p>Please see the javadocs on {@link ChannelOption} for full details on these options.
+     */
+    interface ChannelOptionsConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ChannelOptionsConfig} interface that returns the default
+         * values.
+         */
+        @NotNull ChannelOptionsConfig DEFAULT_IMPL = new ChannelOptionsConfig() {};
+
+        /**
+         * Defaults to true, which disables Nagle's algorithm.
+         *
+         * @return The value for {@link ChannelOption#TCP_NODELAY}.
+         */
+        default boolean tcpNoDelay() {
+            return true;
+        }
+
+        /**
+         * Defaults to {@link NetUtil#SOMAXCONN}, which is read from the OS where possible. This is only applied to the
+         * server's listening channel(s) - it has no meaning for downstream channels.
+         *
+         * @return The value for {@link ChannelOption#SO_BACKLOG}, i.e. the max number of fully established connections
+         * waiting to be accepted. Must be greater than 0.
+         */
+        default int soBacklog() {
+            return NetUtil.SOMAXCONN;
+        }
+
+        /**
+         * Defaults to 0, which means the OS default (and the OS's automatic buffer tuning) is used.
+         *
+         * @return The value for {@link ChannelOption#SO_RCVBUF} in bytes, or 0 (or less) to leave it unset. When set
+         * it's also applied to the server's listening channel(s), since the TCP window scale of accepted connections
+         * is negotiated from the listening socket's receive buffer.
+         */
+        default int soRcvBuf() {
+            return 0;
+        }
+
+        /**
+         * Defaults to 0, which means the OS default (and the OS's automatic buffer tuning) is used.
+         *
+         * @return The value for {@link ChannelOption#SO_SNDBUF} in bytes, or 0 (or less) to leave it unset.
+         */
+        default int soSndBuf() {
+            return 0;
+        }
+
+        /**
+         * Defaults to {@link WriteBufferWaterMark#DEFAULT} (32 KiB low, 64 KiB high).
+         *
+         * @return The value for {@link ChannelOption#WRITE_BUFFER_WATER_MARK}. Once more than the high watermark's
+         * worth of bytes are queued for writing on a channel its {@link io.netty.channel.Channel#isWritable()} flips to
+         * false, and it only flips back once the queue drains below the low watermark.
+         */
+        default @NotNull WriteBufferWaterMark writeBufferWaterMark() {
+            return WriteBufferWaterMark.DEFAULT;
+        }
+
+        /**
+         * Defaults to {@link ByteBufAllocator#DEFAULT}, which is normally the pooled allocator (it can be changed
+         * with the {@code io.netty.allocator.type} System property).
+         *
+         * @return The value for {@link ChannelOption#ALLOCATOR}, i.e. the allocator used for the channel's
+         * {@link io.netty.buffer.ByteBuf}s.
+         */
+        default @NotNull ByteBufAllocator allocator() {
+            return ByteBufAllocator.DEFAULT;
+        }
+
+        /**
+         * Defaults to null, which means the transport's own default is used (an {@link
+         * io.netty.channel.AdaptiveRecvByteBufAllocator} for all the built-in transports).
+         *
+         * @return The value for {@link ChannelOption#RCVBUF_ALLOCATOR}, i.e. the strategy for sizing the buffers
+         * that incoming bytes are read into, or null to use the transport's default.
+         */
+        default @Nullable RecvByteBufAllocator recvByteBufAllocator() {
+            return null;
+        }
+    }
+
+    /**
+     * Config options for accepting HTTP/2 connections alongside HTTP/1.x ones. When enabled, each HTTP/2 stream is
+     * handled by its own child channel that runs the same request handling pipeline an HTTP/1.x connection does, so
+     * your endpoints, {@link RequestAndResponseFilter}s, {@link PipelineCreateHook}s, etc work the same regardless of
+     * which protocol the caller used. HTTP/2 is negotiated as follows:
+     *
+     * <ul>
+     *     <li>
+     *         If {@link #isEndpointsUseSsl()} is true then HTTP/2 is negotiated via TLS ALPN. <b>Your {@link
+     *         #createSslContext()} must advertise {@code h2} (and {@code http/1.1}) for this to work</b>, e.g. via
+     *         {@code SslContextBuilder.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN,
+     *         SelectorFailureBehavior.NO_ADVERTISE, SelectedListenerFailureBehavior.ACCEPT,
+     *         ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))}. The default {@link
+     *         #createSslContext()} doesn't, so TLS callers will keep using HTTP/1.1 until you do. ALPN also requires
+     *         a JDK (or OpenSSL/tcnative provider) that supports it.
+     *     </li>
+     *     <li>
+     *         Otherwise cleartext HTTP/2 (h2c) is accepted both with prior knowledge (the caller starts the
+     *         connection with the HTTP/2 connection preface), and via an HTTP/1.1 {@code Upgrade: h2c} request.
+     *     </li>
+     * </ul>
+     *
+     * <p>Connections that don't negotiate HTTP/2 are handled as HTTP/1.x exactly as they would be if HTTP/2 was
+     * disabled. Note that {@link #maxOpenIncomingServerChannels()} counts HTTP/2 connections, not streams - use {@link
+     * #maxConcurrentStreams()} to limit the number of concurrent requests per HTTP/2 connection.
+     */
+    interface Http2Config {
+
+        /**
+         * Statically accessible implementation of the {@link Http2Config} interface that returns the default values.
+         */
+        @NotNull Http2Config DEFAULT_IMPL = new Http2Config() {};
+
+        /**
+         * Defaults to false.
+         *
+         * @return true if the server should accept HTTP/2 connections (see the {@link Http2Config} class javadocs for
+         * how HTTP/2 is negotiated), false if it should only speak HTTP/1.x.
+         */
+        default boolean isEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to 100, the minimum value recommended by the HTTP/2 spec.
+         *
+         * @return The value the server advertises for the HTTP/2 {@code SETTINGS_MAX_CONCURRENT_STREAMS} setting, i.e.
+         * the max number of requests a caller can have in flight at the same time on a single HTTP/2 connection. Must
+         * be greater than 0.
+         */
+        default long maxConcurrentStreams() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 65535, the HTTP/2 spec default.
+         *
+         * @return The value the server advertises for the HTTP/2 {@code SETTINGS_INITIAL_WINDOW_SIZE} setting, i.e.
+         * how many bytes of request payload a caller can send on each stream before it has to wait for the server to
+         * acknowledge them. Cannot be negative.
+         */
+        default int initialWindowSize() {
+            return 65535;
+        }
+    }
+
+    /**
+     * Config options for HTTP/1.1 request pipelining, i.e. callers sending several requests on a connection without
+     * waiting for the earlier responses. By default a connection holds a single request's state, so pipelined requests
+     * are not processed concurrently. When this is enabled each request on an HTTP/1.x connection is instead handled by
+     * its own child channel that runs the normal request handling pipeline (with its own {@link
+     * com.nike.riposte.server.http.RequestInfo}, response state, etc), so the endpoints for pipelined requests execute
+     * concurrently. Responses are always written back in request order as required by the HTTP/1.1 spec - a response
+     * that finishes early is buffered until all the responses ahead of it have been written.
+     *
+     * <p>Things to be aware of when enabling this:
+     * <ul>
+     *     <li>
+     *         Buffered responses are held in memory until it's their turn, so a slow request at the front of the line
+     *         means the responses behind it pile up. Use {@link #maxInFlightRequestsPerConnection()} to bound this.
+     *     </li>
+     *     <li>
+     *         A request that ends with the connection being closed (e.g. a {@code Connection: close} request, or an
+     *         error that forces the connection closed) causes the connection to be closed right after that request's
+     *         response is written, and the responses for any requests pipelined after it are discarded.
+     *     </li>
+     *     <li>
+     *         Your {@link PipelineCreateHook}s run once per request (against the child channel's pipeline) rather than
+     *         once per connection.
+     *     </li>
+     *     <li>
+     *         This has no effect on HTTP/2 connections, which multiplex requests natively (see {@link Http2Config}).
+     *     </li>
+     * </ul>
+     */
+    interface Http1PipeliningConfig {
+
+        /**
+         * Statically accessible implementation of the {@link Http1PipeliningConfig} interface that returns the default
+         * values.
+         */
+        @NotNull Http1PipeliningConfig DEFAULT_IMPL = new Http1PipeliningConfig() {};
+
+        /**
+         * Defaults to false.
+         *
+         * @return true if pipelined HTTP/1.1 requests should be processed concurrently (see the {@link
+         * Http1PipeliningConfig} class javadocs), false if each connection should only ever hold a single request's
+         * state.
+         */
+        default boolean isEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to 16.
+         *
+         * @return The max number of requests that can be in flight at the same time on a single connection. Once a
+         * connection hits this limit the server stops reading from it until one of its in-flight requests has had its
+         * response written. Must be greater than 0.
+         */
+        default int maxInFlightRequestsPerConnection() {
+            return 16;
+        }
+    }
+
+    /**
+     * Config options for how proxy/router endpoints resolve downstream hostnames into IP addresses. By default every
+     * downstream call does a blocking {@link java.net.InetAddress#getAllByName(String)} lookup (which is only cached
+     * according to the JVM's {@code networkaddress.cache.ttl} security properties) on whatever thread kicked off the
+     * call. When {@link #isEnabled()} is true the lookups are done asynchronously by Netty's non-blocking DNS resolver
+     * (or by your {@link #customAddressResolverGroup()}) instead, with the results cached according to the DNS record
+     * TTLs, so a slow or flaky DNS server can no longer stall the threads handling requests.
+     *
+     * <p>Either way, when a hostname resolves to multiple IP addresses the address for each downstream call is picked
+     * according to {@link #addressSelectionStrategy()}, so traffic is spread across all of them (this is important
+     * for things like Amazon ELBs, which associate multiple IPs with the ELB's DNS and only scale up based on aggregate
+     * traffic across all of them).
+     */
+    interface ProxyRouterDnsConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterDnsConfig} interface that returns the default
+         * values.
+         */
+        @NotNull ProxyRouterDnsConfig DEFAULT_IMPL = new ProxyRouterDnsConfig() {};
+
+        /**
+         * Defaults to false.
+         *
+         * @return true if downstream hostnames should be resolved asynchronously and cached as described in the {@link
+         * ProxyRouterDnsConfig} class javadocs, false if they should be resolved with blocking {@link
+         * java.net.InetAddress#getAllByName(String)} lookups.
+         */
+        default boolean isEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to 0. Ignored if {@link #customAddressResolverGroup()} is not null.
+         *
+         * @return The minimum number of seconds a successful lookup will be cached for, no matter what TTL the DNS
+         * record has. Must be greater than or equal to 0, and less than or equal to {@link #maxTtlSeconds()}.
+         */
+        default int minTtlSeconds() {
+            return 0;
+        }
+
+        /**
+         * Defaults to {@link Integer#MAX_VALUE}, which means the DNS record TTLs are always respected. Ignored if
+         * {@link #customAddressResolverGroup()} is not null.
+         *
+         * @return The maximum number of seconds a successful lookup will be cached for, no matter what TTL the DNS
+         * record has. Must be greater than or equal to {@link #minTtlSeconds()}.
+         */
+        default int maxTtlSeconds() {
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Defaults to 5. Ignored if {@link #customAddressResolverGroup()} is not null.
+         *
+         * @return The number of seconds a failed lookup will be cached for, so that calls to a hostname that doesn't
+         * resolve fail fast rather than hammering the DNS server. Set this to 0 to disable negative caching. Must be
+         * greater than or equal to 0.
+         */
+        default int negativeTtlSeconds() {
+            return 5;
+        }
+
+        /**
+         * Defaults to 5000. Ignored if {@link #customAddressResolverGroup()} is not null.
+         *
+         * @return The amount of time in milliseconds to wait for a DNS server to answer a query before giving up on
+         * it. Must be greater than 0.
+         */
+        default long queryTimeoutMillis() {
+            return 5000;
+        }
+
+        /**
+         * Defaults to null. Ignored if {@link #customAddressResolverGroup()} is not null.
+         *
+         * @return The DNS servers that should be queried (in order), or null if the platform default DNS servers
+         * should be used (e.g. the ones in {@code /etc/resolv.conf}). Entries in the hosts file (e.g. {@code
+         * /etc/hosts}) are always checked before any DNS server is queried.
+         */
+        default @Nullable List<InetSocketAddress> nameServers() {
+            return null;
+        }
+
+        /**
+         * Defaults to {@link AddressSelectionStrategy#RANDOM}, which is the same behavior Riposte has always had.
+         *
+         * @return The {@link AddressSelectionStrategy} that should be used to pick the IP address for a downstream
+         * call when a hostname resolves to multiple IP addresses. This is used even when {@link #isEnabled()} is
+         * false.
+         */
+        default @NotNull AddressSelectionStrategy addressSelectionStrategy() {
+            return AddressSelectionStrategy.RANDOM;
+        }
+
+        /**
+         * Defaults to null.
+         *
+         * @return The {@link AddressResolverGroup} that should be used to resolve downstream hostnames, or null if
+         * Riposte should create a Netty {@code DnsAddressResolverGroup} based on the other options in this class.
+         * This lets you plug in your own resolver (e.g. one that does service discovery, or a stand-in for tests).
+         * Riposte will call {@link io.netty.resolver.AddressResolver#resolveAll(java.net.SocketAddress)} on the
+         * resolver returned for a dedicated Netty NIO event loop, so the returned resolver should be non-blocking.
+         */
+        default @Nullable AddressResolverGroup<InetSocketAddress> customAddressResolverGroup() {
+            return null;
+        }
+
+        /**
+         * The options for {@link #addressSelectionStrategy()}.
+         */
+        enum AddressSelectionStrategy {
+            /**
+             * Pick a random IP address for each downstream call.
+             */
+            RANDOM,
+            /**
+             * Cycle through the IP addresses in order, one per downstream call (tracked separately for each
+             * hostname and port).
+             */
+            ROUND_ROBIN
+        }
+    }
+
+    /**
+     * Config options for the connection pools used by proxy/router endpoints. There is one pool for each resolved
+     * downstream IP address and port. By default these pools are unbounded - a new connection is opened whenever a
+     * downstream call can't reuse an idle one, so a slow downstream service can cause an unlimited number of
+     * connections to pile up. When {@link #maxConnectionsPerHost()} is set, each pool caps the number of connections
+     * it will open, and downstream calls that arrive while the pool is at its limit wait in a queue for a connection
+     * to be released. Calls that can't be queued (because {@link #maxPendingAcquiresPerHost()} was hit) or that wait
+     * longer than {@link #acquireTimeoutMillis()} fail fast with a {@code DownstreamConnectionPoolExhaustedException},
+     * which maps to a 503 response.
+     *
+     * <p>By default pools are keyed by the resolved IP address, which means a hostname with 8 IPs ends up with 8
+     * separate pools (each one cold until a call happens to pick its IP), and connections to IPs that have dropped out
+     * of DNS are never reaped. When {@link #isPoolPerLogicalHostEnabled()} is true there is instead one pool per
+     * logical downstream host (hostname, port, and scheme). Each logical pool spreads its new connections across the
+     * host's current IP addresses (see {@link ProxyRouterDnsConfig#addressSelectionStrategy()}), re-resolves the
+     * hostname in the background every {@link #addressRefreshIntervalMillis()}, and closes connections to IPs that are
+     * no longer in DNS as they're released back to (or pulled out of) the pool.
+     *
+     * <p>{@link #prewarmTargets()} lets you open connections (including their TLS handshakes) to known downstream
+     * hosts at startup so the first calls after a deploy don't pay for them.
+     *
+     * <p>{@link #outlierDetectionConfig()} lets the logical host pools take individual misbehaving IP addresses out of
+     * rotation - see {@link ProxyRouterOutlierDetectionConfig}.
+     *
+     * <p>{@link #http2Config()} lets calls to downstream hosts that speak HTTP/2 share a few multiplexed connections
+     * per host instead of using these pools - see {@link ProxyRouterHttp2Config}.
+     *
+     * <p>{@link #isSplicePassthroughEnabled()} lets proxy/router endpoints that opt in forward request and response
+     * bodies with the kernel's {@code splice} call instead of copying them through the JVM.
+     *
+     * <p>{@link #isEventLoopAffinityEnabled()} runs each downstream call on the same event loop as the incoming
+     * connection that triggered it, with the pools partitioned per event loop, instead of on the proxy client's own
+     * separate event loop group.
+     *
+     * <p>Each pool's stats (active, idle, and pending connections, etc) are reported to your {@link #metricsListener()}
+     * via the {@link com.nike.riposte.server.metrics.ServerMetricsEvent#PROXY_ROUTER_POOL_CREATED} event.
+     */
+    interface ProxyRouterConnectionPoolConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterConnectionPoolConfig} interface that returns
+         * the default values.
+         */
+        @NotNull ProxyRouterConnectionPoolConfig DEFAULT_IMPL = new ProxyRouterConnectionPoolConfig() {};
+
+        /**
+         * Defaults to -1, which means the pools are unbounded (the same behavior Riposte has always had).
+         *
+         * @return The max number of connections each pool can have open to its downstream host at the same time, or
+         * -1 for no limit. Must be -1 or greater than 0.
+         */
+        default int maxConnectionsPerHost() {
+            return -1;
+        }
+
+        /**
+         * Defaults to 1000. Ignored if {@link #maxConnectionsPerHost()} is -1.
+         *
+         * @return The max number of downstream calls that can be waiting for a connection from a single pool at the
+         * same time. Calls beyond this limit fail immediately. Must be greater than 0.
+         */
+        default int maxPendingAcquiresPerHost() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 5000. Ignored if {@link #maxConnectionsPerHost()} is -1.
+         *
+         * @return The max amount of time in milliseconds a downstream call will wait for a connection from a pool that
+         * is at its {@link #maxConnectionsPerHost()} limit before failing. Must be greater than 0.
+         */
+        default long acquireTimeoutMillis() {
+            return 5000;
+        }
+
+        /**
+         * Defaults to false, which means there is one pool per resolved IP address (the same behavior Riposte has
+         * always had).
+         *
+         * @return true if there should be one pool per logical downstream host (hostname, port, and scheme) that
+         * balances across the host's current IP addresses, false if there should be one pool per resolved IP address.
+         * See the {@link ProxyRouterConnectionPoolConfig} class javadocs for details. When this is true {@link
+         * #maxConnectionsPerHost()} applies to the logical host rather than to each of its IPs.
+         */
+        default boolean isPoolPerLogicalHostEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to 30000. Ignored if {@link #isPoolPerLogicalHostEnabled()} is false.
+         *
+         * @return The amount of time in milliseconds between background re-resolutions of each logical host's IP
+         * addresses. Must be greater than 0.
+         */
+        default long addressRefreshIntervalMillis() {
+            return 30_000;
+        }
+
+        /**
+         * Defaults to null.
+         *
+         * @return The downstream hosts that should have connections opened to them at startup, or null if no
+         * connections should be pre-warmed. Each one should be an {@code http} or {@code https} URI with a host and
+         * optional port (e.g. {@code https://foo.example.com}) - anything after the port is ignored. {@code https}
+         * connections have their TLS handshake done up front, so they must use the same hostname your proxy/router
+         * endpoints send calls to. Pre-warming failures are logged but won't stop the server from starting.
+         */
+        default @Nullable List<URI> prewarmTargets() {
+            return null;
+        }
+
+        /**
+         * Defaults to 1. Ignored if {@link #prewarmTargets()} is null or empty.
+         *
+         * @return The number of connections that should be opened to each of the {@link #prewarmTargets()} at startup.
+         * If {@link #isPoolPerLogicalHostEnabled()} is false then HTTP/1.1 connections are pooled per resolved IP
+         * address, so this many connections are opened to <i>each</i> of a target's resolved addresses. Must be
+         * greater than 0.
+         */
+        default int prewarmConnectionsPerTarget() {
+            return 1;
+        }
+
+        /**
+         * Defaults to null. Ignored if {@link #isPoolPerLogicalHostEnabled()} is false.
+         *
+         * @return The {@link ProxyRouterOutlierDetectionConfig} that controls how the logical host pools detect and
+         * eject misbehaving IP addresses, or null if outlier detection should be disabled.
+         */
+        default @Nullable ProxyRouterOutlierDetectionConfig outlierDetectionConfig() {
+            return null;
+        }
+
+        /**
+         * Defaults to null.
+         *
+         * @return The {@link ProxyRouterHttp2Config} that controls whether proxy/router endpoints can multiplex their
+         * downstream calls over HTTP/2 connections, or null if downstream calls should always use HTTP/1.1.
+         */
+        default @Nullable ProxyRouterHttp2Config http2Config() {
+            return null;
+        }
+
+        /**
+         * Defaults to false. Only has an effect when the server uses the native epoll transport (see {@link
+         * ServerConfig#transportType()}).
+         *
+         * <p>When this is true the server's connections (and the connections proxy/router endpoints make for splice
+         * calls) use level-triggered epoll, which is what the kernel's {@code splice} support requires. Proxy/router
+         * endpoints can then ask for splice pass-through on a per-call basis (see {@code
+         * ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo#withSplicePassthrough(boolean)}), in which case the
+         * request and response bodies are moved between the caller's connection and the downstream connection inside
+         * the kernel rather than being read into and written back out of the JVM. Splicing only happens for cleartext
+         * HTTP/1.1 calls with {@code Content-Length} bodies - everything else (TLS on either side, chunked bodies,
+         * HTTP/2, pipelined requests, compression, etc) falls back to the normal streaming behavior automatically.
+         *
+         * <p>Level-triggered epoll costs slightly more than the default edge-triggered mode for connections that never
+         * splice, so only turn this on if you have proxy/router endpoints that move large bodies.
+         *
+         * @return true if proxy/router endpoints should be allowed to splice bodies between connections, false
+         * otherwise.
+         */
+        default boolean isSplicePassthroughEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to false.
+         *
+         * <p>By default proxy/router endpoints make their downstream calls on a separate event loop group owned by the
+         * proxy client (sized at twice the number of CPU cores), so every chunk that's proxied has to be handed off
+         * between one of the server's worker threads and one of the client's threads, and the server runs twice as
+         * many I/O threads as there are cores. When this is true each downstream call instead runs on the same event
+         * loop as the incoming connection that triggered it, and there is a separate set of pools for each server
+         * worker event loop. Reads, writes, and callbacks for both sides of a proxied call then all happen on one
+         * thread, with no hand-off between threads.
+         *
+         * <p>This only applies to downstream calls that would otherwise use the per-IP-address pools. Calls that use
+         * the per-logical-host pools (see {@link #isPoolPerLogicalHostEnabled()}) or HTTP/2 (see {@link
+         * #http2Config()}) still use the proxy client's own event loop group, as do the connections opened for {@link
+         * #prewarmTargets()}. Since each event loop has its own pools, connections can't be reused across event loops
+         * - keep that in mind when setting {@link #maxConnectionsPerHost()}, which applies to each event loop's pool
+         * separately.
+         *
+         * @return true if proxy/router downstream calls should run on the event loop of the incoming connection that
+         * triggered them, false if they should run on the proxy client's own event loop group.
+         */
+        default boolean isEventLoopAffinityEnabled() {
+            return false;
+        }
+    }
+
+    /**
+     * Config options for passive outlier detection in the per-logical-host connection pools used by proxy/router
+     * endpoints (see {@link ProxyRouterConnectionPoolConfig#isPoolPerLogicalHostEnabled()}). The fastbreak circuit
+     * breaker used by proxy/router endpoints is keyed by hostname, so one bad instance behind a DNS name either trips
+     * the breaker for the whole host or keeps serving errors and slow responses. When {@link #isEnabled()} is true each
+     * logical host pool watches the results of the calls made to each of the host's IP addresses, and ejects an
+     * address (so new connections stop going to it, and its pooled connections are closed) when it returns {@link
+     * #consecutiveFailuresToEject()} 5xx responses or connection failures in a row, or when its average response
+     * latency is more than {@link #latencyOutlierMultiplier()} times the average of the host's other addresses.
+     *
+     * <p>An ejected address stays out for {@link #baseEjectionTimeMillis()}, doubling each time the same address is
+     * ejected again (up to {@link #maxEjectionTimeMillis()}), and is then eased back in by getting a growing share of
+     * new connections over {@link #reinstatementRampUpMillis()}. No more than {@link #maxEjectionPercent()} of a host's
+     * addresses are ejected at the same time, and the last address that isn't ejected is never ejected.
+     */
+    interface ProxyRouterOutlierDetectionConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterOutlierDetectionConfig} interface that returns
+         * the default values.
+         */
+        @NotNull ProxyRouterOutlierDetectionConfig DEFAULT_IMPL = new ProxyRouterOutlierDetectionConfig() {};
+
+        /**
+         * Defaults to false.
+         *
+         * @return true if misbehaving IP addresses should be ejected as described in the {@link
+         * ProxyRouterOutlierDetectionConfig} class javadocs, false otherwise.
+         */
+        default boolean isEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to 5.
+         *
+         * @return The number of 5xx responses or connection failures in a row that will get an address ejected. Must
+         * be greater than 0.
+         */
+        default int consecutiveFailuresToEject() {
+            return 5;
+        }
+
+        /**
+         * Defaults to 3.0.
+         *
+         * @return How many times slower than the average of the host's other addresses an address's average response
+         * latency has to be before it's ejected, or 0 to disable latency based ejection. Must be 0 or greater than 1.
+         */
+        default double latencyOutlierMultiplier() {
+            return 3.0;
+        }
+
+        /**
+         * Defaults to 20.
+         *
+         * @return The number of responses an address needs before its latency is compared against the host's other
+         * addresses (and the number the other addresses need before they count towards the average). Must be greater
+         * than 0.
+         */
+        default int minResponsesForLatencyOutlierDetection() {
+            return 20;
+        }
+
+        /**
+         * Defaults to 30000.
+         *
+         * @return The amount of time in milliseconds an address is ejected for the first time it's ejected. Each
+         * further ejection of the same address doubles this, up to {@link #maxEjectionTimeMillis()}. Must be greater
+         * than 0.
+         */
+        default long baseEjectionTimeMillis() {
+            return 30_000;
+        }
+
+        /**
+         * Defaults to 300000. An address that has stayed healthy for this long after being reinstated has its ejection
+         * time reset back to {@link #baseEjectionTimeMillis()}.
+         *
+         * @return The max amount of time in milliseconds an address can be ejected for. Must be greater than or equal
+         * to {@link #baseEjectionTimeMillis()}.
+         */
+        default long maxEjectionTimeMillis() {
+            return 300_000;
+        }
+
+        /**
+         * Defaults to 30000.
+         *
+         * @return The amount of time in milliseconds over which a reinstated address's share of new connections is
+         * ramped back up to normal, or 0 to reinstate addresses all at once. Must be greater than or equal to 0.
+         */
+        default long reinstatementRampUpMillis() {
+            return 30_000;
+        }
+
+        /**
+         * Defaults to 50. As long as this is greater than 0, at least one address can be ejected when the host has more
+         * than one address. The last address that isn't ejected is never ejected, even if this is 100.
+         *
+         * @return The max percentage of a host's addresses that can be ejected at the same time, or 0 to never eject
+         * any. Must be between 0 and 100.
+         */
+        default int maxEjectionPercent() {
+            return 50;
+        }
+    }
+
+    /**
+     * Config options for HTTP/2 connections from proxy/router endpoints to downstream hosts. By default downstream
+     * calls use HTTP/1.1, so each in-flight call ties up a whole connection (and TLS session) to the downstream host.
+     * When {@link #isEnabled()} is true, calls to downstream hosts that speak HTTP/2 are instead sent as streams
+     * multiplexed over at most {@link #maxConnectionsPerHost()} connections per host (hostname, port, and scheme),
+     * with up to {@link #maxConcurrentStreamsPerConnection()} calls in flight on each connection. Calls that arrive
+     * while every connection is at its stream limit wait for a stream to free up, subject to the same {@link
+     * ProxyRouterConnectionPoolConfig#maxPendingAcquiresPerHost()} and {@link
+     * ProxyRouterConnectionPoolConfig#acquireTimeoutMillis()} limits as the HTTP/1.1 pools.
+     *
+     * <p>A downstream host is called over HTTP/2 when:
+     * <ul>
+     *     <li>
+     *         It's an {@code https} host and {@link #isAlpnNegotiationEnabled()} is true, and the host selects {@code
+     *         h2} during ALPN negotiation of the first connection. A host that selects (or defaults to) HTTP/1.1 is
+     *         remembered and called over HTTP/1.1 from then on. ALPN requires a JDK (or OpenSSL/tcnative provider)
+     *         that supports it.
+     *     </li>
+     *     <li>
+     *         It's one of the {@link #priorKnowledgeTargets()}, which are always called over HTTP/2 - in cleartext
+     *         (h2c) for {@code http} targets.
+     *     </li>
+     * </ul>
+     *
+     * <p>Streaming, tracing headers, and timeouts work the same for HTTP/2 calls as they do for HTTP/1.1 calls. Note
+     * that outlier detection (see {@link ProxyRouterOutlierDetectionConfig}) only applies to the HTTP/1.1 pools.
+     */
+    interface ProxyRouterHttp2Config {
+
+        /**
+         * Statically accessible implementation of the {@link ProxyRouterHttp2Config} interface that returns the
+         * default values.
+         */
+        @NotNull ProxyRouterHttp2Config DEFAULT_IMPL = new ProxyRouterHttp2Config() {};
+
+        /**
+         * Defaults to false.
+         *
+         * @return true if downstream calls can use HTTP/2 as described in the {@link ProxyRouterHttp2Config} class
+         * javadocs, false if they should always use HTTP/1.1.
+         */
+        default boolean isEnabled() {
+            return false;
+        }
+
+        /**
+         * Defaults to true.
+         *
+         * @return true if connections to {@code https} downstream hosts should offer HTTP/2 via ALPN, false if only
+         * the {@link #priorKnowledgeTargets()} should be called over HTTP/2.
+         */
+        default boolean isAlpnNegotiationEnabled() {
+            return true;
+        }
+
+        /**
+         * Defaults to null.
+         *
+         * @return The downstream hosts that are known to speak HTTP/2 and should always be called over HTTP/2 without
+         * negotiating it first, or null if there aren't any. Each one should be an {@code http} or {@code https} URI
+         * with a host and optional port (e.g. {@code http://foo.example.com:8080}) - anything after the port is
+         * ignored.
+         */
+        default @Nullable List<URI> priorKnowledgeTargets() {
+            return null;
+        }
+
+        /**
+         * Defaults to 2.
+         *
+         * @return The max number of HTTP/2 connections that can be open to each downstream host at the same time. Must
+         * be greater than 0.
+         */
+        default int maxConnectionsPerHost() {
+            return 2;
+        }
+
+        /**
+         * Defaults to 100. The downstream host's own {@code SETTINGS_MAX_CONCURRENT_STREAMS} is also honored if it's
+         * lower.
+         *
+         * @return The max number of calls that can be in flight at the same time on a single HTTP/2 connection. Must be
+         * greater than 0.
+         */
+        default int maxConcurrentStreamsPerConnection() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 65535, the HTTP/2 spec default.
+         *
+         * @return The value advertised for the HTTP/2 {@code SETTINGS_INITIAL_WINDOW_SIZE} setting, i.e. how many bytes
+         * of response payload a downstream host can send on each stream before it has to wait for them to be
+         * acknowledged. Cannot be negative.
+         */
+        default int initialWindowSize() {
+            return 65535;
+        }
+    }
+
+    /**
+     * The options for {@link #transportType()}. See <a href="http://netty.io/wiki/native-transports.html">the Netty
+     * native transports docs</a> for details on the native transports.
+     */
+    enum TransportType {
+        /**
+         * Use the best transport that's available: native epoll on linux x86_64 (which {@code riposte-core} pulls in
+         * by default), or NIO everywhere else. This is the same behavior Riposte has always had.
+         */
+        AUTO,
+        /**
+         * The native epoll transport. Only available on linux.
+         */
+        EPOLL,
+        /**
+         * The native io_uring transport, which batches syscalls via submission/completion queues shared with the
+         * kernel. This needs a recent linux kernel (5.9+), and the {@code
+         * io.netty.incubator:netty-incubator-transport-native-io_uring} artifact (plus a Netty version it's compatible
+         * with) on your classpath - Riposte does not pull it in for you.
+         */
+        IO_URING,
+        /**
+         * The standard java NIO transport. Available everywhere.
+         */
+        NIO
+    }
 }
@@ -0,0 +1,24 @@
+package com.nike.riposte.server.error.exception;
+
+/**
+ * Thrown when a proxy/router downstream call can't get a connection because the downstream host's connection pool is
+ * at its {@code ServerConfig.ProxyRouterConnectionPoolConfig.maxConnectionsPerHost()} limit, and either too many calls
+ * are already waiting for a connection or this call waited too long. Should usually map to a 503 HTTP status code.
+ */
+public class DownstreamConnectionPoolExhaustedException extends RuntimeException {
+
+    public final String poolName;
+    public final int maxConnectionsPerHost;
+    public final int maxPendingAcquiresPerHost;
+
+    public DownstreamConnectionPoolExhaustedException(String poolName,
+                                                      int maxConnectionsPerHost,
+                                                      int maxPendingAcquiresPerHost,
+                                                      Throwable cause) {
+        super("The downstream connection pool is exhausted. pool_name=" + poolName + ", max_connections_per_host="
+              + maxConnectionsPerHost + ", max_pending_acquires_per_host=" + maxPendingAcquiresPerHost, cause);
+        this.poolName = poolName;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxPendingAcquiresPerHost = maxPendingAcquiresPerHost;
+    }
+}
@@ -7,10 +7,55 @@ import org.jetbrains.annotations.NotNull;
 import io.netty.channel.Channel;
 
 /**
- * Hook for server shutdown events.
+ * Hook for server shutdown events. Shutdown happens in stages, and each stage calls the matching method on every hook
+ * (in list order):
+ *
+ * <ol>
+ *     <li>
+ *         {@link #executeServerShutdownHook(ServerConfig, Channel)} - the server is about to shut down and is still
+ *         accepting connections.
+ *     </li>
+ *     <li>
+ *         {@link #executeServerDrainStartedHook(ServerConfig, Channel)} - the server has stopped accepting connections
+ *         and is waiting for in-flight requests to finish. Only called if {@link
+ *         ServerConfig#shutdownDrainTimeoutMillis()} is greater than 0.
+ *     </li>
+ *     <li>
+ *         {@link #executeServerDrainFinishedHook(ServerConfig, Channel, long)} - draining is done (or there was no
+ *         drain phase), and the event loops are about to be torn down.
+ *     </li>
+ * </ol>
+ *
+ * The {@link Channel} passed to each method is the server's (first) listening channel, which is closed by the time
+ * the drain stages are reached.
  */
 @FunctionalInterface
 public interface ServerShutdownHook {
 
     void executeServerShutdownHook(@NotNull ServerConfig serverConfig, @NotNull Channel channel);
+
+    /**
+     * Called once the server has stopped accepting connections and has started waiting for in-flight requests to
+     * finish. Does nothing by default.
+     */
+    default void executeServerDrainStartedHook(@NotNull ServerConfig serverConfig, @NotNull Channel channel) {
+        // Do nothing by default.
+    }
+
+    /**
+     * Called after the drain phase is over, right before the server's event loops are torn down. Does nothing by
+     * default.
+     *
+     * @param numRequestsStillInFlight The number of requests that were still in flight when the drain phase ended. This
+     * is greater than 0 only if the {@link ServerConfig#shutdownDrainTimeoutMillis()} deadline was hit, in which case
+     * those requests will be cut off. In-flight requests are only tracked when draining is enabled, so this is always 0
+     * if there was no drain phase.
+     */
+    default void executeServerDrainFinishedHook(
+        @NotNull ServerConfig serverConfig,
+        @NotNull Channel channel,
+        long numRequestsStillInFlight
+    ) {
+        // Do nothing by default.
+    }
 }
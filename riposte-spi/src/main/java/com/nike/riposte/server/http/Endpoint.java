@@ -159,4 +159,21 @@ public interface Endpoint<I> {
     default boolean isDecompressRequestPayloadAllowed(@NotNull RequestInfo<?> request) {
         return true;
     }
+
+    /**
+     * @return true if this endpoint wants the request content deserialized into {@link #requestContentType()} as the
+     * content chunks arrive, false if the content should be deserialized all at once after it has fully arrived (the
+     * default). Deserializing incrementally means the request content doesn't need to be held in memory until the last
+     * chunk arrives, and the deserialized {@link RequestInfo#getContent()} is ready as soon as it does, which can make
+     * a big difference for large JSON payloads. The tradeoff is that the raw content is not kept, so {@link
+     * RequestInfo#getRawContentBytes()} and {@link RequestInfo#getRawContent()} will return null - only return true
+     * here if this endpoint doesn't need the raw content. See {@link
+     * RequestInfo#setupIncrementalContentDeserializer(ObjectMapper, TypeReference,
+     * com.fasterxml.jackson.databind.ObjectReader)} for the cases where the content is deserialized all at once even
+     * if this returns true. Note that this method is called before any of the payload has arrived, so all of the
+     * get-content-related methods in the given request will return null.
+     */
+    default boolean isIncrementalRequestContentDeserializationEnabled(@NotNull RequestInfo<?> request) {
+        return false;
+    }
 }
@@ -2,15 +2,21 @@ package com.nike.riposte.server.http;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -145,15 +151,46 @@ public interface RequestInfo<T> {
      */
     @NotNull RequestInfo<T> setPathParamsBasedOnPathTemplate(@NotNull String pathTemplate);
 
+    /**
+     * Same as {@link #setPathParamsBasedOnPathTemplate(String)}, except the caller has already extracted the path
+     * parameters for this request's {@link #getPath()} (e.g. a router that captured them while matching the path
+     * template), so there's no need to match the path template against the path a second time. If {@code pathParams}
+     * is null then this behaves exactly like {@link #setPathParamsBasedOnPathTemplate(String)}.
+     * <p/>
+     * The default implementation ignores {@code pathParams} and simply calls {@link
+     * #setPathParamsBasedOnPathTemplate(String)}.
+     *
+     * @return this instance.
+     */
+    default @NotNull RequestInfo<T> setPathParamsBasedOnPathTemplate(
+        @NotNull String pathTemplate,
+        @Nullable Map<String, String> pathParams
+    ) {
+        return setPathParamsBasedOnPathTemplate(pathTemplate);
+    }
+
     /**
      * Returns the total size of the raw content in bytes. This will be 0 until {@link #addContentChunk(HttpContent)}
      * detects that the final content chunk has been added, at which point this method will return the number of bytes
      * for the request content. You can call {@link #isCompleteRequestWithAllChunks()} to determine whether this method
      * is returning 0 because we're waiting on all the content to finish arriving or because the request has no content
      * associated with it.
+     * <p/>
+     * NOTE: Request bodies larger than {@link Integer#MAX_VALUE} bytes (2 GiB) can't be represented by an int, so this
+     * method returns {@link Integer#MAX_VALUE} for them rather than overflowing. Use {@link
+     * #getRawContentLengthInBytesAsLong()} if you need the exact size of very large (e.g. streaming) requests.
      */
     int getRawContentLengthInBytes();
 
+    /**
+     * The same as {@link #getRawContentLengthInBytes()}, except the size is not capped at {@link Integer#MAX_VALUE}, so
+     * it can report the exact size of request bodies over 2 GiB. Defaults to {@link #getRawContentLengthInBytes()}
+     * for implementations that don't track a larger size.
+     */
+    default long getRawContentLengthInBytesAsLong() {
+        return getRawContentLengthInBytes();
+    }
+
     /**
      * Returns the raw content associated with this request as a byte array. This will be null until {@link
      * #addContentChunk(HttpContent)} detects that the final content chunk has been added, at which point this method
@@ -168,6 +205,70 @@ public interface RequestInfo<T> {
      */
     @Nullable byte[] getRawContentBytes();
 
+    /**
+     * Returns the raw content associated with this request as a read-only {@link ByteBuf} view over the content, or
+     * null in the same cases that {@link #getRawContentBytes()} would return null (the request isn't complete yet, or
+     * it has no content). Unlike {@link #getRawContentBytes()}, implementations that hold on to the content chunks
+     * should return a composite view over those chunks rather than copying them into a new array, so this is the
+     * cheapest way to get at the content when you don't need a {@code byte[]} (e.g. when handing the content off to
+     * something that can write or parse {@link ByteBuf}s or {@link ByteBuffer}s directly).
+     * <p/>
+     * <b>IMPORTANT - reference counting rules:</b> The memory behind the returned buffer is owned by this instance and
+     * is released by {@link #releaseAllResources()}, so callers must NOT release the returned buffer. Each call returns
+     * a new buffer with its own reader/writer indexes, so reading from it doesn't affect any other caller. If you need
+     * the content to outlive the request (e.g. you're handing it to something asynchronous that finishes after the
+     * response is sent) then call {@link ByteBuf#retain()} on the returned buffer and {@link ByteBuf#release()} when
+     * you're done with it.
+     * <p/>
+     * The default implementation wraps {@link #getRawContentBytes()} (which doesn't copy the array, but does
+     * require the chunks to be converted to an array first), so there's nothing to release. Implementations should
+     * override this when they can do better.
+     */
+    default @Nullable ByteBuf getRawContentByteBuf() {
+        byte[] rawContentBytes = getRawContentBytes();
+        if (rawContentBytes == null) {
+            return null;
+        }
+
+        return Unpooled.wrappedBuffer(rawContentBytes).asReadOnly();
+    }
+
+    /**
+     * Returns the raw content associated with this request as read-only {@link ByteBuffer}s, one per component of
+     * {@link #getRawContentByteBuf()} where possible, without copying anything. This will be null whenever {@link
+     * #getRawContentByteBuf()} is null. The returned buffers share memory with the content held by this instance, so
+     * they're only valid until {@link #releaseAllResources()} is called - see {@link #getRawContentByteBuf()} for the
+     * reference counting rules.
+     */
+    default @Nullable ByteBuffer[] getRawContentNioBuffers() {
+        ByteBuf rawContentByteBuf = getRawContentByteBuf();
+        if (rawContentByteBuf == null) {
+            return null;
+        }
+
+        ByteBuffer[] result = rawContentByteBuf.nioBuffers();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = result[i].asReadOnlyBuffer();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the raw content associated with this request as an {@link InputStream} that reads straight from {@link
+     * #getRawContentByteBuf()} without copying anything, or null whenever {@link #getRawContentByteBuf()} is null. Each
+     * call returns a new stream that starts at the beginning of the content. The stream is only valid until {@link
+     * #releaseAllResources()} is called - see {@link #getRawContentByteBuf()} for the reference counting rules. Closing
+     * the stream does not release anything.
+     */
+    default @Nullable InputStream getRawContentInputStream() {
+        ByteBuf rawContentByteBuf = getRawContentByteBuf();
+        if (rawContentByteBuf == null) {
+            return null;
+        }
+
+        return new ByteBufInputStream(rawContentByteBuf);
+    }
+
     /**
      * Returns the raw content associated with this request (as retrieved from {@link #getRawContentBytes()}) as a
      * string with {@link #getContentCharset()} encoding. This will be null until {@link #getRawContentBytes()} returns
@@ -274,6 +375,56 @@ public interface RequestInfo<T> {
         @NotNull TypeReference<T> typeReference
     );
 
+    /**
+     * Same as {@link #setupContentDeserializer(ObjectMapper, TypeReference)}, except this also takes an {@link
+     * ObjectReader} that was already built from the given deserializer for the given type reference (e.g. one that was
+     * built when the server started up). Implementations can deserialize with that reader instead of the deserializer
+     * so that Jackson doesn't need to look up the type again every time. If {@code contentReader} is null then this
+     * behaves exactly like {@link #setupContentDeserializer(ObjectMapper, TypeReference)}.
+     * <p/>
+     * The default implementation ignores {@code contentReader} and simply calls {@link
+     * #setupContentDeserializer(ObjectMapper, TypeReference)}.
+     *
+     * @return this instance.
+     */
+    default @NotNull RequestInfo<T> setupContentDeserializer(
+        @NotNull ObjectMapper deserializer,
+        @NotNull TypeReference<T> typeReference,
+        @Nullable ObjectReader contentReader
+    ) {
+        return setupContentDeserializer(deserializer, typeReference);
+    }
+
+    /**
+     * Asks this instance to deserialize the request content into the given type as the content chunks arrive, rather
+     * than waiting for {@link #getContent()} to deserialize {@link #getRawContentBytes()} after the last chunk. This
+     * has to be called before the first content chunk is added via {@link #addContentChunk(HttpContent)}, and it does
+     * the equivalent of {@link #setupContentDeserializer(ObjectMapper, TypeReference, ObjectReader)} if it returns
+     * true. If it returns false then nothing changes, and {@link #setupContentDeserializer(ObjectMapper,
+     * TypeReference, ObjectReader)} should be called as usual once the content has arrived.
+     * <p/>
+     * When this returns true the content chunks are not kept around after they've been parsed, which means
+     * {@link #getRawContentBytes()}, {@link #getRawContent()}, and {@link #getMultipartParts()} will all return null
+     * for this request. Any deserialization error is still thrown when {@link #getContent()} is called, as usual.
+     * <p/>
+     * The default implementation doesn't support incremental deserialization and always returns false.
+     *
+     * @param deserializer The deserializer to use.
+     * @param typeReference The type to deserialize the content into.
+     * @param contentReader A reader that was already built from the given deserializer for the given type - may be
+     * null.
+     * @return true if the content will be deserialized incrementally, false if this instance can't do that (e.g.
+     * because content chunks have already been added, or the content isn't something that can be parsed
+     * incrementally).
+     */
+    default boolean setupIncrementalContentDeserializer(
+        @NotNull ObjectMapper deserializer,
+        @NotNull TypeReference<T> typeReference,
+        @Nullable ObjectReader contentReader
+    ) {
+        return false;
+    }
+
     /**
      * @return true if {@link #setupContentDeserializer(ObjectMapper, TypeReference)} was called and passed valid
      * deserialization info such that content can be deserialized and returned properly from {@link #getContent()},
@@ -335,6 +486,9 @@ public interface RequestInfo<T> {
      * a byte array, but the pipeline must take care of this itself in the case of exceptions being thrown before the
      * final chunk being added or in the case that the request never causes {@link #getRawContentBytes()} to be called.
      * Individual endpoints do not need to worry about this issue - it's a problem for the server to solve.
+     *
+     * @return The number of content bytes received so far, capped at {@link Integer#MAX_VALUE} - see {@link
+     * #getRawContentLengthInBytesAsLong()} for the uncapped size.
      */
     int addContentChunk(@NotNull HttpContent chunk);
 
@@ -4,14 +4,22 @@ import com.nike.riposte.server.error.exception.RequestContentDeserializationExce
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.util.HttpUtils;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -22,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -39,6 +48,7 @@ import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCounted;
 
 /**
@@ -61,8 +71,10 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
     protected @Nullable String pathTemplate;
     protected @NotNull Map<String, String> pathParams = Collections.emptyMap();
     protected final @NotNull Map<String, Object> attributes = new HashMap<>();
-    protected int rawContentLengthInBytes;
+    protected long rawContentLengthInBytes;
     protected @Nullable byte[] rawContentBytes;
+    // Holds its own references to the content, and is released by releaseAllResources() - see getRawContentByteBuf().
+    protected volatile @Nullable ByteBuf rawContentByteBuf;
     protected @Nullable String rawContent;
     protected @Nullable T content;
     protected final @NotNull Charset contentCharset;
@@ -76,6 +88,16 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
 
     protected @Nullable ObjectMapper contentDeserializer;
     protected @Nullable TypeReference<T> contentDeserializerTypeReference;
+    protected @Nullable ObjectReader contentDeserializerReader;
+
+    // Only used when the content is being deserialized as it arrives - see setupIncrementalContentDeserializer().
+    protected boolean isIncrementalContentDeserialization = false;
+    protected @Nullable JsonParser incrementalContentParser;
+    protected @Nullable TokenBuffer incrementalContentTokens;
+    protected @Nullable byte[] incrementalContentScratchBytes;
+    protected @Nullable Throwable incrementalContentDeserializationError;
+    protected boolean incrementalContentFailOnTrailingTokens = false;
+    protected boolean incrementalContentRootValueComplete = false;
 
     protected boolean contentChunksWillBeReleasedExternally = false;
 
@@ -239,12 +261,24 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      */
     @Override
     public synchronized int getRawContentLengthInBytes() {
+        return saturatedCast(getRawContentLengthInBytesAsLong());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getRawContentLengthInBytesAsLong() {
         if (!isCompleteRequestWithAllChunks)
             return 0;
 
         return rawContentLengthInBytes;
     }
 
+    protected static int saturatedCast(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -261,6 +295,55 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         return rawContentBytes;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable ByteBuf getRawContentByteBuf() {
+        ByteBuf result = rawContentByteBuf;
+        if (result == null) {
+            result = createRawContentByteBuf();
+        }
+
+        return (result == null) ? null : result.duplicate();
+    }
+
+    /**
+     * Creates (if it hasn't already been created) the read-only buffer that {@link #getRawContentByteBuf()} hands out
+     * duplicates of. If the content chunks are still around then the buffer is a composite over retained duplicates
+     * of the chunks (so it stays valid even if {@link #getRawContentBytes()} releases the chunks later), otherwise it
+     * wraps {@link #rawContentBytes}. Either way nothing is copied.
+     *
+     * @return The buffer, or null if the request isn't complete or has no content.
+     */
+    protected synchronized @Nullable ByteBuf createRawContentByteBuf() {
+        if (rawContentByteBuf != null) {
+            return rawContentByteBuf;
+        }
+
+        if (!isCompleteRequestWithAllChunks) {
+            return null;
+        }
+
+        List<ByteBuf> components = new ArrayList<>(contentChunks.size());
+        for (HttpContent chunk : contentChunks) {
+            if (chunk.content().isReadable()) {
+                components.add(chunk.content().retainedDuplicate());
+            }
+        }
+
+        if (!components.isEmpty()) {
+            // The fixed composite never consolidates (copies) its components no matter how many there are, but it
+            //      doesn't report itself as read-only, hence the asReadOnly().
+            rawContentByteBuf = Unpooled.wrappedUnmodifiableBuffer(components.toArray(new ByteBuf[0])).asReadOnly();
+        }
+        else if (rawContentBytes != null) {
+            rawContentByteBuf = Unpooled.wrappedBuffer(rawContentBytes).asReadOnly();
+        }
+
+        return rawContentByteBuf;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -350,6 +433,15 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         }
 
         try {
+            if (isIncrementalContentDeserialization) {
+                // The content was deserialized (or failed to deserialize) as it arrived, so all that's left to do is
+                //      report a failure. If there was no failure then the content was null.
+                if (incrementalContentDeserializationError != null) {
+                    throw incrementalContentDeserializationError;
+                }
+                return null;
+            }
+
             @SuppressWarnings("ConstantConditions") // isContentDeserializerSetup() verifies contentDeserializerTypeReference is non-null.
             Type inputType = contentDeserializerTypeReference.getType();
             if (inputType instanceof Class) {
@@ -368,8 +460,17 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
 
             // Not a String or CharSequence. Do our best to deserialize.
             byte[] bytes = getRawContentBytes();
+            if (bytes == null) {
+                return null;
+            }
+
+            // Use the pre-built reader if we have one - it skips the type lookup that readValue() has to do.
+            if (contentDeserializerReader != null) {
+                return contentDeserializerReader.readValue(bytes);
+            }
+
             //noinspection ConstantConditions - isContentDeserializerSetup() verifies contentDeserializer is non-null.
-            return (bytes == null) ? null : contentDeserializer.readValue(bytes, contentDeserializerTypeReference);
+            return contentDeserializer.readValue(bytes, contentDeserializerTypeReference);
         }
         catch (Throwable e) {
             // Something went wrong during deserialization. Throw an appropriate error.
@@ -389,12 +490,191 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
     public @NotNull RequestInfo<T> setupContentDeserializer(
         @NotNull ObjectMapper deserializer,
         @NotNull TypeReference<T> typeReference
+    ) {
+        return setupContentDeserializer(deserializer, typeReference, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull RequestInfo<T> setupContentDeserializer(
+        @NotNull ObjectMapper deserializer,
+        @NotNull TypeReference<T> typeReference,
+        @Nullable ObjectReader contentReader
     ) {
         this.contentDeserializer = deserializer;
         this.contentDeserializerTypeReference = typeReference;
+        this.contentDeserializerReader = contentReader;
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This implementation can deserialize incrementally if no content has arrived yet, the content isn't multipart,
+     * the content charset is UTF-8, the type isn't one that {@link #getContent()} returns as raw content ({@code
+     * byte[]}, {@link String}, or {@link CharSequence}), and the deserializer's {@link JsonFactory} supports
+     * non-blocking parsing (see {@link JsonFactory#canParseAsync()}). Each content chunk is run through a non-blocking
+     * parser as it arrives, and the resulting tokens are buffered in a {@link TokenBuffer} until the last chunk
+     * arrives, at which point they're deserialized into the desired type. The content chunks themselves are not kept.
+     * Parsing stops once the first root JSON value is complete, so anything after it is ignored just like it is when
+     * the content is deserialized all at once - unless {@link DeserializationFeature#FAIL_ON_TRAILING_TOKENS} is
+     * enabled, in which case trailing content causes the same deserialization failure it would otherwise.
+     * <p/>
+     * NOTE: Like any {@link TokenBuffer}, floating point numbers are buffered as doubles unless the deserializer has
+     * {@link DeserializationFeature#USE_BIG_DECIMAL_FOR_FLOATS} enabled, so {@link java.math.BigDecimal} fields that
+     * need more precision than a double can hold should not be deserialized incrementally without that feature.
+     */
+    @Override
+    public synchronized boolean setupIncrementalContentDeserializer(
+        @NotNull ObjectMapper deserializer,
+        @NotNull TypeReference<T> typeReference,
+        @Nullable ObjectReader contentReader
+    ) {
+        if (isIncrementalContentDeserialization) {
+            return true;
+        }
+
+        if (isCompleteRequestWithAllChunks
+            || rawContentLengthInBytes > 0
+            || !contentChunks.isEmpty()
+            || contentChunksWillBeReleasedExternally
+            || isMultipart
+            || !CharsetUtil.UTF_8.equals(getContentCharset())
+            || isRawContentType(typeReference.getType())
+            || !deserializer.getFactory().canParseAsync()
+        ) {
+            return false;
+        }
+
+        JsonParser parser;
+        try {
+            parser = deserializer.getFactory().createNonBlockingByteArrayParser();
+        }
+        catch (IOException e) {
+            logger.debug("Unable to create a non-blocking parser for incremental request content deserialization", e);
+            return false;
+        }
+
+        TokenBuffer tokens = new TokenBuffer(parser);
+        if (deserializer.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+            tokens.forceUseOfBigDecimal(true);
+        }
+
+        this.incrementalContentParser = parser;
+        this.incrementalContentTokens = tokens;
+        DeserializationFeature failOnTrailingTokens = DeserializationFeature.FAIL_ON_TRAILING_TOKENS;
+        this.incrementalContentFailOnTrailingTokens = (contentReader == null)
+                                                      ? deserializer.isEnabled(failOnTrailingTokens)
+                                                      : contentReader.isEnabled(failOnTrailingTokens);
+        this.incrementalContentRootValueComplete = false;
+        this.isIncrementalContentDeserialization = true;
+        setupContentDeserializer(deserializer, typeReference, contentReader);
+        return true;
+    }
+
+    /**
+     * @return true if the given type is one that {@link #getContent()} returns as raw content rather than deserializing
+     * it ({@code byte[]}, {@link String}, or {@link CharSequence}), false otherwise.
+     */
+    protected boolean isRawContentType(@NotNull Type type) {
+        return byte[].class.equals(type) || String.class.equals(type) || CharSequence.class.equals(type);
+    }
+
+    /**
+     * Runs the given chunk's bytes through {@link #incrementalContentParser} and buffers the resulting tokens in
+     * {@link #incrementalContentTokens}. If this is the last chunk then the buffered tokens are deserialized and the
+     * result is stored in {@link #content}. Any error is stored in {@link #incrementalContentDeserializationError} so
+     * that {@link #getContent()} can throw it - once that happens the rest of the content is ignored.
+     */
+    protected synchronized void feedIncrementalContentDeserializer(@NotNull HttpContent chunk) {
+        JsonParser parser = incrementalContentParser;
+        TokenBuffer tokens = incrementalContentTokens;
+        if (parser == null || tokens == null || incrementalContentDeserializationError != null) {
+            return;
+        }
+
+        try {
+            ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            ByteBuf bytes = chunk.content();
+            int numBytes = bytes.readableBytes();
+            // Once the root value is complete the rest of the content is ignored, so there's no need to parse it.
+            if (numBytes > 0 && !incrementalContentRootValueComplete) {
+                if (bytes.hasArray()) {
+                    int start = bytes.arrayOffset() + bytes.readerIndex();
+                    feeder.feedInput(bytes.array(), start, start + numBytes);
+                }
+                else {
+                    // The parser is done with the scratch array by the time all the available tokens have been
+                    //      buffered, so it can be reused for every chunk.
+                    byte[] scratch = incrementalContentScratchBytes;
+                    if (scratch == null || scratch.length < numBytes) {
+                        scratch = new byte[numBytes];
+                        incrementalContentScratchBytes = scratch;
+                    }
+                    bytes.getBytes(bytes.readerIndex(), scratch, 0, numBytes);
+                    feeder.feedInput(scratch, 0, numBytes);
+                }
+                bufferAvailableTokens(parser, tokens);
+            }
+
+            if (chunk instanceof LastHttpContent) {
+                if (!incrementalContentRootValueComplete) {
+                    feeder.endOfInput();
+                    bufferAvailableTokens(parser, tokens);
+                }
+                finishIncrementalContentDeserialization(tokens);
+            }
+        }
+        catch (Throwable t) {
+            incrementalContentDeserializationError = t;
+            releaseIncrementalContentDeserializer();
+        }
+    }
+
+    /**
+     * Buffers all the tokens the given parser can produce from the input it has been fed so far. If {@link
+     * #incrementalContentFailOnTrailingTokens} is false then this stops as soon as the first root value is complete
+     * and sets {@link #incrementalContentRootValueComplete}, since the deserializer would ignore anything after it.
+     */
+    protected void bufferAvailableTokens(@NotNull JsonParser parser, @NotNull TokenBuffer tokens) throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+            if (!incrementalContentFailOnTrailingTokens && parser.getParsingContext().inRoot()) {
+                incrementalContentRootValueComplete = true;
+                return;
+            }
+            token = parser.nextToken();
+        }
+    }
+
+    protected void finishIncrementalContentDeserialization(@NotNull TokenBuffer tokens) throws IOException {
+        releaseIncrementalContentDeserializer();
+
+        // No content means null content, same as when the content is deserialized all at once.
+        if (rawContentLengthInBytes == 0) {
+            return;
+        }
+
+        try (JsonParser bufferedContent = tokens.asParser()) {
+            if (contentDeserializerReader != null) {
+                content = contentDeserializerReader.readValue(bufferedContent);
+            }
+            else {
+                //noinspection ConstantConditions - the deserializer is always set up when deserializing incrementally.
+                content = contentDeserializer.readValue(bufferedContent, contentDeserializerTypeReference);
+            }
+        }
+    }
+
+    protected synchronized void releaseIncrementalContentDeserializer() {
+        incrementalContentParser = null;
+        incrementalContentTokens = null;
+        incrementalContentScratchBytes = null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -421,6 +701,23 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull RequestInfo<T> setPathParamsBasedOnPathTemplate(
+        @NotNull String pathTemplate,
+        @Nullable Map<String, String> pathParams
+    ) {
+        if (pathParams == null) {
+            return setPathParamsBasedOnPathTemplate(pathTemplate);
+        }
+
+        this.pathTemplate = pathTemplate;
+        setPathParams(pathParams);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -458,12 +755,19 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
                                             + "representing the complete request with all chunks");
         }
 
-        chunk.retain();
         rawContentLengthInBytes += chunk.content().readableBytes();
 
-        // If content chunks will be released externally then there's no point in us holding on to them
-        if (!contentChunksWillBeReleasedExternally)
-            contentChunks.add(chunk);
+        if (isIncrementalContentDeserialization) {
+            // The chunk is parsed right away, so there's no need to hold on to it.
+            feedIncrementalContentDeserializer(chunk);
+        }
+        else {
+            chunk.retain();
+
+            // If content chunks will be released externally then there's no point in us holding on to them
+            if (!contentChunksWillBeReleasedExternally)
+                contentChunks.add(chunk);
+        }
 
         if (chunk instanceof LastHttpContent) {
             // If content chunks will be released externally then we can't guarantee that the data will be available
@@ -488,7 +792,7 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
             }
         }
 
-        return rawContentLengthInBytes;
+        return saturatedCast(rawContentLengthInBytes);
     }
 
     /**
@@ -506,6 +810,15 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
     public void releaseAllResources() {
         releaseContentChunks();
         releaseMultipartData();
+        releaseIncrementalContentDeserializer();
+        releaseRawContentByteBuf();
+    }
+
+    protected synchronized void releaseRawContentByteBuf() {
+        if (rawContentByteBuf != null) {
+            rawContentByteBuf.release();
+            rawContentByteBuf = null;
+        }
     }
 
     /**
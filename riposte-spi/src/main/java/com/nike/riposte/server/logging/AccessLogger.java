@@ -448,7 +448,7 @@ public class AccessLogger {
             Pair.of(SPAN_ID + "-Req", request.getHeaders().get(SPAN_ID)),
             Pair.of(TRACE_ID + "-Req", request.getHeaders().get(TRACE_ID)),
             Pair.of(TRACE_ID + "-Res", responseTraceId),
-            Pair.of("raw_content_length-Req", String.valueOf(request.getRawContentLengthInBytes())),
+            Pair.of("raw_content_length-Req", String.valueOf(request.getRawContentLengthInBytesAsLong())),
             Pair.of("raw_content_length-Res", uncompressedRawContentLength),
             Pair.of("final_content_length-Res", finalContentLength),
             Pair.of("elapsed_time_millis", (elapsedTimeMillis == null) ? null : elapsedTimeMillis.toString())
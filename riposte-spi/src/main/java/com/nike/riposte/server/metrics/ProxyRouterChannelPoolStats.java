@@ -0,0 +1,54 @@
+package com.nike.riposte.server.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A live view of the stats for one of the connection pools used by proxy/router endpoints (there is one pool for each
+ * resolved downstream IP address and port). An instance of this is the value for the {@link
+ * ServerMetricsEvent#PROXY_ROUTER_POOL_CREATED} and {@link ServerMetricsEvent#PROXY_ROUTER_POOL_ACQUIRE_REJECTED}
+ * events. The values change as the pool is used, so metrics systems can register gauges that read from it.
+ */
+public interface ProxyRouterChannelPoolStats {
+
+    /**
+     * @return The name of the pool, in {@code ip:port} form.
+     */
+    @NotNull String getPoolName();
+
+    /**
+     * @return The max number of connections the pool can have open at the same time, or -1 if it's unbounded. See
+     * {@code ServerConfig.ProxyRouterConnectionPoolConfig.maxConnectionsPerHost()}.
+     */
+    int getMaxConnections();
+
+    /**
+     * @return The number of connections currently being used for downstream calls.
+     */
+    int getNumActiveChannels();
+
+    /**
+     * @return The number of connections currently sitting idle in the pool waiting to be reused.
+     */
+    int getNumIdleChannels();
+
+    /**
+     * @return The number of downstream calls currently waiting for the pool to give them a connection.
+     */
+    int getNumPendingAcquires();
+
+    /**
+     * @return The total number of connections the pool has opened.
+     */
+    long getNumChannelsCreated();
+
+    /**
+     * @return The total number of the pool's connections that have been closed.
+     */
+    long getNumChannelsClosed();
+
+    /**
+     * @return The total number of downstream calls that failed because the pool was at its connection limit and
+     * either its pending queue was full or the call waited too long for a connection.
+     */
+    long getNumAcquiresRejected();
+}
@@ -6,5 +6,12 @@ package com.nike.riposte.server.metrics;
 public enum ServerMetricsEvent {
     REQUEST_RECEIVED, RESPONSE_SENT,
     // TODO: This should be removed (see todos in ChannelPipelineFinalizerHandler)
-    RESPONSE_WRITE_FAILED
+    RESPONSE_WRITE_FAILED,
+    // Route cache events (only fired when ServerConfig.EndpointRoutingConfig.routeCacheMaxSize() enables the cache).
+    //      The value for hits and misses is the request's HttpProcessingState, and for evictions it's null.
+    ROUTE_CACHE_HIT, ROUTE_CACHE_MISS, ROUTE_CACHE_EVICTION,
+    // Proxy/router connection pool events. Created is fired once for each new downstream connection pool, and acquire
+    //      rejected is fired whenever a bounded pool (see ServerConfig.ProxyRouterConnectionPoolConfig) fails a
+    //      downstream call because it's exhausted. The value for both is the pool's ProxyRouterChannelPoolStats.
+    PROXY_ROUTER_POOL_CREATED, PROXY_ROUTER_POOL_ACQUIRE_REJECTED
 }
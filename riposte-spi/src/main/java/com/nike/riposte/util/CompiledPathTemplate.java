@@ -0,0 +1,402 @@
+package com.nike.riposte.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A path template that has been parsed once into literal segments and simple <code>{pathParam}</code> segments, so
+ * that request paths can be matched against it by walking the path's characters directly - no tokenizing into a
+ * {@code String[]}, no regexes, and no allocation at all when only checking for a match. Path params are returned as
+ * a compact read-only {@link Map} that shares the template's param names and only records where each value sits in
+ * the path.
+ *
+ * <p>Matching follows the exact same rules as {@link AntPathMatcher#match(String, String)} does for these kinds of
+ * templates: the path is split on forward slashes, each segment is trimmed, empty segments are ignored, literal
+ * segments must match exactly, path param segments match any segment that doesn't contain a line terminator, and the
+ * template and path must agree on whether they end with a trailing slash. Like {@link SingleMatcher} and {@link
+ * MultiMatcher}, a single trailing slash on the path is ignored (see {@link MatcherUtil#stripEndSlash(String)}).
+ *
+ * <p>Templates using any Ant wildcards ({@code *}, {@code ?}, {@code **}), regex path params (e.g.
+ * <code>{id:[0-9]+}</code>), or path params that only cover part of a segment (e.g. <code>file-{name}.json</code>)
+ * can't be compiled - {@link #compile(String)} returns null for those, and {@link AntPathMatcher} should be used
+ * instead.
+ *
+ * <p>Instances are immutable and thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompiledPathTemplate {
+
+    protected final @NotNull String pathTemplate;
+    /**
+     * The literal value of each segment, or null for path param segments.
+     */
+    protected final @Nullable String[] literalSegments;
+    /**
+     * The index into {@link #pathParamNames} that each segment's value should be captured to, or -1 for literal
+     * segments (and for path param segments whose name is repeated later in the template, since the last one wins).
+     */
+    protected final int[] segmentCaptureIndexes;
+    protected final @NotNull String[] pathParamNames;
+    protected final boolean endsWithSlash;
+
+    protected CompiledPathTemplate(
+        @NotNull String pathTemplate,
+        @Nullable String[] literalSegments,
+        int[] segmentCaptureIndexes,
+        @NotNull String[] pathParamNames
+    ) {
+        this.pathTemplate = pathTemplate;
+        this.literalSegments = literalSegments;
+        this.segmentCaptureIndexes = segmentCaptureIndexes;
+        this.pathParamNames = pathParamNames;
+        this.endsWithSlash = pathTemplate.endsWith("/");
+    }
+
+    /**
+     * @param pathTemplate The path template to compile.
+     * @return The compiled path template, or null if the given template can't be compiled because it doesn't start
+     * with a forward slash or uses Ant wildcards, regex path params, or partial-segment path params. Templates that
+     * return null here should be matched with {@link AntPathMatcher} instead.
+     */
+    public static @Nullable CompiledPathTemplate compile(@NotNull String pathTemplate) {
+        //noinspection ConstantConditions
+        if (pathTemplate == null || !pathTemplate.startsWith("/")) {
+            return null;
+        }
+
+        List<String> segments = new ArrayList<>();
+        int len = pathTemplate.length();
+        int pos = 0;
+        while (pos < len) {
+            int segmentEnd = indexOfSlash(pathTemplate, pos, len);
+            int start = skipLeadingWhitespace(pathTemplate, pos, segmentEnd);
+            int end = skipTrailingWhitespace(pathTemplate, start, segmentEnd);
+            if (end > start) {
+                segments.add(pathTemplate.substring(start, end));
+            }
+            pos = segmentEnd + 1;
+        }
+
+        String[] literalSegments = new String[segments.size()];
+        int[] segmentCaptureIndexes = new int[segments.size()];
+        List<String> pathParamNames = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            segmentCaptureIndexes[i] = -1;
+            if (isPathParamSegment(segment)) {
+                String name = segment.substring(1, segment.length() - 1);
+                int existingIndex = pathParamNames.indexOf(name);
+                if (existingIndex >= 0) {
+                    // Repeated names keep their original position, but the last segment's value wins. This mimics
+                    //      what AntPathMatcher does when it fills a LinkedHashMap.
+                    for (int j = 0; j < i; j++) {
+                        if (segmentCaptureIndexes[j] == existingIndex) {
+                            segmentCaptureIndexes[j] = -1;
+                        }
+                    }
+                    segmentCaptureIndexes[i] = existingIndex;
+                }
+                else {
+                    segmentCaptureIndexes[i] = pathParamNames.size();
+                    pathParamNames.add(name);
+                }
+            }
+            else if (isLiteralSegment(segment)) {
+                literalSegments[i] = segment;
+            }
+            else {
+                return null;
+            }
+        }
+
+        return new CompiledPathTemplate(
+            pathTemplate, literalSegments, segmentCaptureIndexes, pathParamNames.toArray(new String[0])
+        );
+    }
+
+    /**
+     * @return true if the given template segment has no characters that have special meaning to {@link
+     * AntPathMatcher}.
+     */
+    public static boolean isLiteralSegment(@NotNull String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '{' || c == '}' || c == '*' || c == '?') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the given template segment is a single <code>{pathParam}</code> covering the entire segment,
+     * with no regex and nothing else that would change how {@link AntPathMatcher} parses it.
+     */
+    public static boolean isPathParamSegment(@NotNull String segment) {
+        if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+            return false;
+        }
+
+        for (int i = 1; i < segment.length() - 1; i++) {
+            char c = segment.charAt(i);
+            if (c == '{' || c == '}' || c == ':' || c == '*' || c == '?' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The original path template that was compiled.
+     */
+    public @NotNull String getPathTemplate() {
+        return pathTemplate;
+    }
+
+    /**
+     * @return The names of the path params in this template, in the order they first appear.
+     */
+    public @NotNull List<String> getPathParamNames() {
+        return Collections.unmodifiableList(Arrays.asList(pathParamNames));
+    }
+
+    /**
+     * @param path The request path to check (a single trailing slash is ignored).
+     * @return true if the given path matches this template. This does not allocate anything.
+     */
+    public boolean matches(@NotNull CharSequence path) {
+        return doMatch(path, null);
+    }
+
+    /**
+     * @param path The request path to match and extract path params from (a single trailing slash is ignored).
+     * @return The path params if the given path matches this template (an empty map if the template has no path
+     * params), or null if the path doesn't match. The returned map is read-only and iterates in the order the params
+     * first appear in the template.
+     */
+    public @Nullable Map<String, String> matchAndExtractPathParams(@NotNull CharSequence path) {
+        if (pathParamNames.length == 0) {
+            return (doMatch(path, null)) ? Collections.emptyMap() : null;
+        }
+
+        int[] valueBounds = new int[pathParamNames.length * 2];
+        if (!doMatch(path, valueBounds)) {
+            return null;
+        }
+
+        return new PathParamsMap(pathParamNames, path, valueBounds);
+    }
+
+    /**
+     * Walks the path's segments using index arithmetic, comparing each against the corresponding template segment.
+     *
+     * @param valueBoundsOut If non-null, the start (inclusive) and end (exclusive) index of each path param's value
+     * will be written to this array.
+     */
+    protected boolean doMatch(@NotNull CharSequence path, int[] valueBoundsOut) {
+        //noinspection ConstantConditions
+        if (path == null) {
+            return false;
+        }
+
+        int len = path.length();
+        if (len == 0 || path.charAt(0) != '/') {
+            return false;
+        }
+
+        // Ignore a single trailing slash, as MatcherUtil.stripEndSlash() would.
+        if (len > 1 && path.charAt(len - 1) == '/') {
+            len--;
+        }
+
+        int segmentIndex = 0;
+        int pos = 0;
+        while (pos < len) {
+            int segmentEnd = indexOfSlash(path, pos, len);
+            int start = skipLeadingWhitespace(path, pos, segmentEnd);
+            int end = skipTrailingWhitespace(path, start, segmentEnd);
+            if (end > start) {
+                if (segmentIndex >= literalSegments.length) {
+                    return false;
+                }
+
+                String literal = literalSegments[segmentIndex];
+                if (literal == null) {
+                    if (containsLineTerminator(path, start, end)) {
+                        // AntPathMatcher uses a regex dot for path params, which doesn't match line terminators.
+                        return false;
+                    }
+
+                    int captureIndex = segmentCaptureIndexes[segmentIndex];
+                    if (valueBoundsOut != null && captureIndex >= 0) {
+                        valueBoundsOut[captureIndex * 2] = start;
+                        valueBoundsOut[captureIndex * 2 + 1] = end;
+                    }
+                }
+                else if (!regionEquals(path, start, end, literal)) {
+                    return false;
+                }
+
+                segmentIndex++;
+            }
+            pos = segmentEnd + 1;
+        }
+
+        if (segmentIndex != literalSegments.length) {
+            return false;
+        }
+
+        return endsWithSlash == (path.charAt(len - 1) == '/');
+    }
+
+    protected static int indexOfSlash(@NotNull CharSequence cs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (cs.charAt(i) == '/') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // Trimming matches String.trim(), which is what AntPathMatcher uses on each segment.
+    protected static int skipLeadingWhitespace(@NotNull CharSequence cs, int start, int end) {
+        while (start < end && cs.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    protected static int skipTrailingWhitespace(@NotNull CharSequence cs, int start, int end) {
+        while (end > start && cs.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    protected static boolean regionEquals(@NotNull CharSequence cs, int start, int end, @NotNull String literal) {
+        if (end - start != literal.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < literal.length(); i++) {
+            if (cs.charAt(start + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static boolean containsLineTerminator(@NotNull CharSequence cs, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = cs.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return pathTemplate;
+    }
+
+    /**
+     * A read-only map of path param names to values that shares its names array with the {@link
+     * CompiledPathTemplate} it came from and only records the bounds of each value within the path. Value strings are
+     * created the first time they're asked for.
+     */
+    protected static class PathParamsMap extends AbstractMap<String, String> {
+
+        protected final @NotNull String[] names;
+        protected final @NotNull CharSequence path;
+        protected final int[] valueBounds;
+        protected @Nullable String[] values;
+
+        protected PathParamsMap(@NotNull String[] names, @NotNull CharSequence path, int[] valueBounds) {
+            this.names = names;
+            this.path = path;
+            this.valueBounds = valueBounds;
+        }
+
+        protected @NotNull String valueAt(int index) {
+            if (values == null) {
+                values = new String[names.length];
+            }
+
+            String value = values[index];
+            if (value == null) {
+                value = path.subSequence(valueBounds[index * 2], valueBounds[index * 2 + 1]).toString();
+                values[index] = value;
+            }
+            return value;
+        }
+
+        protected int indexOfName(@Nullable Object name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public boolean containsKey(@Nullable Object key) {
+            return indexOfName(key) >= 0;
+        }
+
+        @Override
+        public @Nullable String get(@Nullable Object key) {
+            int index = indexOfName(key);
+            return (index < 0) ? null : valueAt(index);
+        }
+
+        @Override
+        public @NotNull Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public @NotNull Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+                        private int nextIndex = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return nextIndex < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (nextIndex >= names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = nextIndex++;
+                            return new SimpleImmutableEntry<>(names[index], valueAt(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+    }
+}
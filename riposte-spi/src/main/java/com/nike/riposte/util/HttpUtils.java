@@ -14,7 +14,9 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,6 +49,20 @@ public class HttpUtils {
 
     protected static final AntPathMatcher pathParamExtractor = new AntPathMatcher();
 
+    /**
+     * The max number of path templates that {@link #compiledPathTemplateCache} will hold. Path templates normally come
+     * from a fixed set of endpoints, so if this is exceeded then something is generating templates dynamically and
+     * caching them would just be a memory leak (the same reasoning {@link AntPathMatcher} uses for its caches).
+     */
+    protected static final int COMPILED_PATH_TEMPLATE_CACHE_MAX_SIZE = 65536;
+
+    /**
+     * Cache of path template to its {@link CompiledPathTemplate}, or to an empty Optional if the template can't be
+     * compiled and must be handled by {@link #pathParamExtractor}.
+     */
+    protected static final Map<String, Optional<CompiledPathTemplate>> compiledPathTemplateCache =
+        new ConcurrentHashMap<>(256);
+
     // Intentionally protected - use the static methods.
     protected HttpUtils() { /* do nothing */ }
 
@@ -223,6 +239,8 @@ public class HttpUtils {
     }
 
     public static @NotNull Map<String, String> decodePathParams(@NotNull String pathTemplate, @NotNull String path) {
+        String rawPath = path;
+
         // Ignore trailing slashes on either the template or path.
         if (pathTemplate.endsWith("/")) {
             pathTemplate = pathTemplate.substring(0, pathTemplate.length() - 1);
@@ -232,6 +250,19 @@ public class HttpUtils {
             path = path.substring(0, path.length() - 1);
         }
 
+        // The compiled template ignores a single trailing slash on the raw path itself, which is equivalent to the
+        //      stripping above except for the root path (which strips down to an empty path that can never match).
+        CompiledPathTemplate compiledPathTemplate = getCompiledPathTemplate(pathTemplate);
+        if (compiledPathTemplate != null && !path.isEmpty()) {
+            Map<String, String> pathParams = compiledPathTemplate.matchAndExtractPathParams(rawPath);
+            if (pathParams == null) {
+                throw new PathParameterMatchingException(
+                    "Cannot decode path params - path template and URI path do not match.", pathTemplate, path);
+            }
+
+            return pathParams;
+        }
+
         if (!pathParamExtractor.match(pathTemplate, path)) {
             throw new PathParameterMatchingException(
                 "Cannot decode path params - path template and URI path do not match.", pathTemplate, path);
@@ -240,6 +271,24 @@ public class HttpUtils {
         return pathParamExtractor.extractUriTemplateVariables(pathTemplate, path);
     }
 
+    /**
+     * @return The {@link CompiledPathTemplate} for the given path template, or null if it can't be compiled. Results
+     * are cached until {@link #COMPILED_PATH_TEMPLATE_CACHE_MAX_SIZE} different templates have been seen, after which
+     * new templates are compiled on every call.
+     */
+    protected static @Nullable CompiledPathTemplate getCompiledPathTemplate(@NotNull String pathTemplate) {
+        Optional<CompiledPathTemplate> cached = compiledPathTemplateCache.get(pathTemplate);
+        //noinspection OptionalAssignedToNull
+        if (cached == null) {
+            cached = Optional.ofNullable(CompiledPathTemplate.compile(pathTemplate));
+            if (compiledPathTemplateCache.size() < COMPILED_PATH_TEMPLATE_CACHE_MAX_SIZE) {
+                compiledPathTemplateCache.put(pathTemplate, cached);
+            }
+        }
+
+        return cached.orElse(null);
+    }
+
 
     public static @NotNull String replaceUriPathVariables(
         @NotNull RequestInfo<?> request,
@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -25,7 +26,8 @@ import io.netty.handler.codec.http.HttpMethod;
  * <p/>
  * This class supports path parameters. An Ant path matcher is used to determine matches. See {@link
  * RequestInfo#getPathParams()} for a quick description of the easy/common path template structure that results in path
- * parameters.
+ * parameters. Path templates made up of only literal and simple <code>{pathParam}</code> segments are matched with a
+ * {@link CompiledPathTemplate} instead, which gives the same results without the Ant matcher's per-request overhead.
  */
 @SuppressWarnings("WeakerAccess")
 public class MultiMatcher implements Matcher {
@@ -33,6 +35,13 @@ public class MultiMatcher implements Matcher {
     protected static final AntPathMatcher pathParamExtractor = new AntPathMatcher();
 
     protected final @NotNull Collection<String> matchingPathTemplates;
+    protected final @NotNull List<String> orderedPathTemplates;
+    /**
+     * The {@link #orderedPathTemplates} in the same order, as {@link CompiledPathTemplate}s. An entry is null if the
+     * corresponding template uses Ant features that {@link CompiledPathTemplate} doesn't support (in which case the Ant
+     * path matcher is used for that template).
+     */
+    protected final @NotNull List<CompiledPathTemplate> compiledPathTemplates;
     protected final @NotNull Collection<HttpMethod> matchingMethods;
     protected final boolean matchAllMethods;
 
@@ -56,9 +65,13 @@ public class MultiMatcher implements Matcher {
         }
 
         this.matchingMethods = matchingMethods;
-        this.matchingPathTemplates = matchingPathTemplates.stream()
-                                                          .map(MatcherUtil::stripEndSlash)
-                                                          .collect(Collectors.toList());
+        this.orderedPathTemplates = matchingPathTemplates.stream()
+                                                         .map(MatcherUtil::stripEndSlash)
+                                                         .collect(Collectors.toList());
+        this.matchingPathTemplates = orderedPathTemplates;
+        this.compiledPathTemplates = orderedPathTemplates.stream()
+                                                         .map(CompiledPathTemplate::compile)
+                                                         .collect(Collectors.toList());
         this.matchAllMethods = matchAllMethods;
     }
 
@@ -129,14 +142,32 @@ public class MultiMatcher implements Matcher {
         if (request == null || request.getPath() == null)
             return Optional.empty();
 
-        // Ignore trailing slashes on the actual path.
-        String path = MatcherUtil.stripEndSlash(request.getPath());
+        String rawPath = request.getPath();
+        // Ignore trailing slashes on the actual path. Only needed for templates that fall back to the Ant matcher, so
+        //      it's calculated lazily.
+        String strippedPath = null;
+
+        for (int i = 0; i < orderedPathTemplates.size(); i++) {
+            String pathTemplate = orderedPathTemplates.get(i);
+            CompiledPathTemplate compiled = compiledPathTemplates.get(i);
+            boolean matches;
+            if (compiled != null) {
+                // The compiled template ignores a trailing slash on the path itself.
+                matches = compiled.matches(rawPath);
+            }
+            else {
+                if (strippedPath == null) {
+                    strippedPath = MatcherUtil.stripEndSlash(rawPath);
+                }
+                matches = pathParamExtractor.match(pathTemplate, strippedPath);
+            }
+
+            if (matches) {
+                return Optional.of(pathTemplate);
+            }
+        }
 
-        return matchingPathTemplates
-            .stream()
-            // Ignore trailing slashes on the template.
-            .filter(pathTemplate -> pathParamExtractor.match(pathTemplate, path))
-            .findFirst();
+        return Optional.empty();
     }
 
     /**
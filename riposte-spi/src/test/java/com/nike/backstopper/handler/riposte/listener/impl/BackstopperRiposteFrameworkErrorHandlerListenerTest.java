@@ -12,6 +12,7 @@ import com.nike.fastbreak.exception.CircuitBreakerOpenException;
 import com.nike.fastbreak.exception.CircuitBreakerTimeoutException;
 import com.nike.internal.util.Pair;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
+import com.nike.riposte.server.error.exception.DownstreamConnectionPoolExhaustedException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.Forbidden403Exception;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
@@ -44,6 +45,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
 import io.netty.handler.codec.TooLongFrameException;
@@ -271,6 +273,16 @@ public class BackstopperRiposteFrameworkErrorHandlerListenerTest {
         verifyExceptionHandled(new TooManyOpenChannelsException(43, 42), singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
     }
 
+    @Test
+    public void should_handle_DownstreamConnectionPoolExhaustedException() {
+        verifyExceptionHandled(
+            new DownstreamConnectionPoolExhaustedException(
+                "127.0.0.1:8080", 42, 100, new TimeoutException("intentional test exception")
+            ),
+            singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError())
+        );
+    }
+
     @Test
     public void shouldHandleErrorDataDecoderException() {
         verifyExceptionHandled(new ErrorDataDecoderException(), singletonError(testProjectApiErrors.getMalformedRequestApiError()));
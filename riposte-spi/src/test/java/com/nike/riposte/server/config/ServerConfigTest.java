@@ -10,6 +10,10 @@ import java.util.Collection;
 
 import javax.net.ssl.SSLException;
 
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.NetUtil;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -35,15 +39,19 @@ public class ServerConfigTest {
         assertThat(defaultImpl.defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints()).isEqualTo((58L * 1000L));
         assertThat(defaultImpl.defaultRequestContentDeserializer()).isNull();
         assertThat(defaultImpl.defaultResponseContentSerializer()).isNull();
+        assertThat(defaultImpl.defaultObjectMapperModules()).isNull();
         assertThat(defaultImpl.longRunningTaskExecutor()).isNull();
         assertThat(defaultImpl.metricsListener()).isNull();
         assertThat(defaultImpl.accessLogger()).isNull();
         assertThat(defaultImpl.postServerStartupHooks()).isNull();
         assertThat(defaultImpl.preServerStartupHooks()).isNull();
         assertThat(defaultImpl.serverShutdownHooks()).isNull();
+        assertThat(defaultImpl.shutdownDrainTimeoutMillis()).isEqualTo(0L);
         assertThat(defaultImpl.riposteErrorHandler()).isNotNull();
         assertThat(defaultImpl.riposteUnhandledErrorHandler()).isNotNull();
         assertThat(defaultImpl.numBossThreads()).isEqualTo((1));
+        assertThat(defaultImpl.transportType()).isEqualTo(ServerConfig.TransportType.AUTO);
+        assertThat(defaultImpl.numAcceptorChannels()).isEqualTo((1));
         assertThat(defaultImpl.numWorkerThreads()).isEqualTo((0));
         assertThat(defaultImpl.maxRequestSizeInBytes()).isEqualTo((0));
         assertThat(defaultImpl.responseCompressionThresholdBytes()).isEqualTo((500));
@@ -64,6 +72,119 @@ public class ServerConfigTest {
         assertThat(defaultImpl.customChannelInitializer()).isNull();
         assertThat(defaultImpl.requestSecurityValidator()).isNull();
         assertThat(defaultImpl.distributedTracingConfig()).isNull();
+        assertThat(defaultImpl.endpointRoutingConfig()).isNull();
+        assertThat(defaultImpl.channelOptionsConfig()).isNull();
+        assertThat(defaultImpl.http2Config()).isNull();
+        assertThat(defaultImpl.http1PipeliningConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterDnsConfig()).isNull();
+        assertThat(defaultImpl.proxyRouterConnectionPoolConfig()).isNull();
+    }
+
+    @Test
+    public void EndpointRoutingConfig_default_method_implementations_return_expected_values() {
+        // expect
+        assertThat(ServerConfig.EndpointRoutingConfig.DEFAULT_IMPL.isCompiledRouterEnabled()).isFalse();
+        assertThat(ServerConfig.EndpointRoutingConfig.DEFAULT_IMPL.routeCacheMaxSize()).isEqualTo(0);
+        assertThat(ServerConfig.EndpointRoutingConfig.DEFAULT_IMPL.ambiguousEndpointsPolicy())
+            .isEqualTo(ServerConfig.EndpointRoutingConfig.AmbiguousEndpointsPolicy.LOG_WARNING);
+    }
+
+    @Test
+    public void ChannelOptionsConfig_default_method_implementations_match_netty_defaults() {
+        // given
+        ServerConfig.ChannelOptionsConfig defaultImpl = ServerConfig.ChannelOptionsConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.tcpNoDelay()).isTrue();
+        assertThat(defaultImpl.soBacklog()).isEqualTo(NetUtil.SOMAXCONN);
+        assertThat(defaultImpl.soRcvBuf()).isEqualTo(0);
+        assertThat(defaultImpl.soSndBuf()).isEqualTo(0);
+        assertThat(defaultImpl.writeBufferWaterMark()).isSameAs(WriteBufferWaterMark.DEFAULT);
+        assertThat(defaultImpl.allocator()).isSameAs(ByteBufAllocator.DEFAULT);
+        assertThat(defaultImpl.recvByteBufAllocator()).isNull();
+    }
+
+    @Test
+    public void Http2Config_default_method_implementations_return_expected_values() {
+        // expect
+        assertThat(ServerConfig.Http2Config.DEFAULT_IMPL.isEnabled()).isFalse();
+        assertThat(ServerConfig.Http2Config.DEFAULT_IMPL.maxConcurrentStreams()).isEqualTo(100L);
+        assertThat(ServerConfig.Http2Config.DEFAULT_IMPL.initialWindowSize()).isEqualTo(65535);
+    }
+
+    @Test
+    public void Http1PipeliningConfig_default_method_implementations_return_expected_values() {
+        // expect
+        assertThat(ServerConfig.Http1PipeliningConfig.DEFAULT_IMPL.isEnabled()).isFalse();
+        assertThat(ServerConfig.Http1PipeliningConfig.DEFAULT_IMPL.maxInFlightRequestsPerConnection()).isEqualTo(16);
+    }
+
+    @Test
+    public void ProxyRouterDnsConfig_default_method_implementations_return_expected_values() {
+        // given
+        ServerConfig.ProxyRouterDnsConfig defaultImpl = ServerConfig.ProxyRouterDnsConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.isEnabled()).isFalse();
+        assertThat(defaultImpl.minTtlSeconds()).isEqualTo(0);
+        assertThat(defaultImpl.maxTtlSeconds()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(defaultImpl.negativeTtlSeconds()).isEqualTo(5);
+        assertThat(defaultImpl.queryTimeoutMillis()).isEqualTo(5000L);
+        assertThat(defaultImpl.nameServers()).isNull();
+        assertThat(defaultImpl.addressSelectionStrategy())
+            .isEqualTo(ServerConfig.ProxyRouterDnsConfig.AddressSelectionStrategy.RANDOM);
+        assertThat(defaultImpl.customAddressResolverGroup()).isNull();
+    }
+
+    @Test
+    public void ProxyRouterConnectionPoolConfig_default_method_implementations_return_expected_values() {
+        // given
+        ServerConfig.ProxyRouterConnectionPoolConfig defaultImpl =
+            ServerConfig.ProxyRouterConnectionPoolConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.maxConnectionsPerHost()).isEqualTo(-1);
+        assertThat(defaultImpl.maxPendingAcquiresPerHost()).isEqualTo(1000);
+        assertThat(defaultImpl.acquireTimeoutMillis()).isEqualTo(5000L);
+        assertThat(defaultImpl.isPoolPerLogicalHostEnabled()).isFalse();
+        assertThat(defaultImpl.addressRefreshIntervalMillis()).isEqualTo(30_000L);
+        assertThat(defaultImpl.prewarmTargets()).isNull();
+        assertThat(defaultImpl.prewarmConnectionsPerTarget()).isEqualTo(1);
+        assertThat(defaultImpl.outlierDetectionConfig()).isNull();
+        assertThat(defaultImpl.http2Config()).isNull();
+        assertThat(defaultImpl.isSplicePassthroughEnabled()).isFalse();
+        assertThat(defaultImpl.isEventLoopAffinityEnabled()).isFalse();
+    }
+
+    @Test
+    public void ProxyRouterOutlierDetectionConfig_default_method_implementations_return_expected_values() {
+        // given
+        ServerConfig.ProxyRouterOutlierDetectionConfig defaultImpl =
+            ServerConfig.ProxyRouterOutlierDetectionConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.isEnabled()).isFalse();
+        assertThat(defaultImpl.consecutiveFailuresToEject()).isEqualTo(5);
+        assertThat(defaultImpl.latencyOutlierMultiplier()).isEqualTo(3.0);
+        assertThat(defaultImpl.minResponsesForLatencyOutlierDetection()).isEqualTo(20);
+        assertThat(defaultImpl.baseEjectionTimeMillis()).isEqualTo(30_000L);
+        assertThat(defaultImpl.maxEjectionTimeMillis()).isEqualTo(300_000L);
+        assertThat(defaultImpl.reinstatementRampUpMillis()).isEqualTo(30_000L);
+        assertThat(defaultImpl.maxEjectionPercent()).isEqualTo(50);
+    }
+
+    @Test
+    public void ProxyRouterHttp2Config_default_method_implementations_return_expected_values() {
+        // given
+        ServerConfig.ProxyRouterHttp2Config defaultImpl = ServerConfig.ProxyRouterHttp2Config.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.isEnabled()).isFalse();
+        assertThat(defaultImpl.isAlpnNegotiationEnabled()).isTrue();
+        assertThat(defaultImpl.priorKnowledgeTargets()).isNull();
+        assertThat(defaultImpl.maxConnectionsPerHost()).isEqualTo(2);
+        assertThat(defaultImpl.maxConcurrentStreamsPerConnection()).isEqualTo(100);
+        assertThat(defaultImpl.initialWindowSize()).isEqualTo(65535);
     }
 
 }
\ No newline at end of file
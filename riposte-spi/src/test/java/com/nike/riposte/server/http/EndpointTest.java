@@ -43,6 +43,7 @@ public class EndpointTest {
         assertThat(defaultImpl.requestContentType()).isNull();
         assertThat(defaultImpl.completableFutureTimeoutOverrideMillis()).isNull();
         assertThat(defaultImpl.shouldValidateAsynchronously(reqMock)).isEqualTo(shouldValidateAsync);
+        assertThat(defaultImpl.isIncrementalRequestContentDeserializationEnabled(reqMock)).isFalse();
     }
 
     @DataProvider(value = {
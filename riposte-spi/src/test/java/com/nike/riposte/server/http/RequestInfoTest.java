@@ -2,11 +2,16 @@ package com.nike.riposte.server.http;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.ByteStreams;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collections;
@@ -16,6 +21,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -140,6 +147,82 @@ public class RequestInfoTest {
         verify(pathParamsMock).get(key);
     }
 
+    @Test
+    public void setupContentDeserializer_with_content_reader_delegates_to_setupContentDeserializer_by_default() {
+        // given
+        RequestInfo<String> requestInfoSpy = getSpy();
+        ObjectMapper deserializerMock = mock(ObjectMapper.class);
+        TypeReference<String> typeRef = new TypeReference<String>() {};
+        ObjectReader contentReaderMock = mock(ObjectReader.class);
+
+        // when
+        RequestInfo<String> result = requestInfoSpy.setupContentDeserializer(deserializerMock, typeRef, contentReaderMock);
+
+        // then
+        assertThat(result, is(requestInfoSpy));
+        verify(requestInfoSpy).setupContentDeserializer(deserializerMock, typeRef);
+    }
+
+    @Test
+    public void getRawContentLengthInBytesAsLong_delegates_to_getRawContentLengthInBytes_by_default() {
+        // given
+        RequestInfo<?> requestInfoSpy = getSpy();
+        doReturn(42).when(requestInfoSpy).getRawContentLengthInBytes();
+
+        // when
+        long result = requestInfoSpy.getRawContentLengthInBytesAsLong();
+
+        // then
+        assertThat(result, is(42L));
+    }
+
+    @Test
+    public void setupIncrementalContentDeserializer_returns_false_by_default() {
+        // given
+        RequestInfo<String> requestInfoSpy = getSpy();
+
+        // when
+        boolean result = requestInfoSpy.setupIncrementalContentDeserializer(
+            mock(ObjectMapper.class), new TypeReference<String>() {}, mock(ObjectReader.class)
+        );
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void getRawContentByteBuf_and_friends_wrap_getRawContentBytes_by_default() throws IOException {
+        // given
+        RequestInfo<?> requestInfoSpy = getSpy();
+        byte[] rawContentBytes = UUID.randomUUID().toString().getBytes();
+        doReturn(rawContentBytes).when(requestInfoSpy).getRawContentBytes();
+
+        // when
+        ByteBuf result = requestInfoSpy.getRawContentByteBuf();
+        ByteBuffer[] nioBuffers = requestInfoSpy.getRawContentNioBuffers();
+        InputStream inputStream = requestInfoSpy.getRawContentInputStream();
+
+        // then
+        assertThat(result.isReadOnly(), is(true));
+        assertThat(ByteBufUtil.getBytes(result), is(rawContentBytes));
+        assertThat(nioBuffers.length, is(1));
+        assertThat(nioBuffers[0].isReadOnly(), is(true));
+        assertThat(nioBuffers[0], is(ByteBuffer.wrap(rawContentBytes)));
+        assertThat(ByteStreams.toByteArray(inputStream), is(rawContentBytes));
+    }
+
+    @Test
+    public void getRawContentByteBuf_and_friends_return_null_by_default_if_getRawContentBytes_is_null() {
+        // given
+        RequestInfo<?> requestInfoSpy = getSpy();
+        doReturn(null).when(requestInfoSpy).getRawContentBytes();
+
+        // expect
+        assertThat(requestInfoSpy.getRawContentByteBuf(), nullValue());
+        assertThat(requestInfoSpy.getRawContentNioBuffers(), nullValue());
+        assertThat(requestInfoSpy.getRawContentInputStream(), nullValue());
+    }
+
     private static class RequestInfoForTesting<T> implements RequestInfo<T> {
 
         @Override
@@ -6,8 +6,11 @@ import com.nike.riposte.server.error.exception.RequestContentDeserializationExce
 import com.nike.riposte.server.http.RequestInfo;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
@@ -19,6 +22,7 @@ import com.nike.riposte.testutils.Whitebox;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,6 +35,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -231,6 +236,33 @@ public class RequestInfoImplTest {
         assertThat(result, is(42));
     }
 
+    @Test
+    public void getRawContentLengthInBytes_caps_at_max_int_but_getRawContentLengthInBytesAsLong_does_not() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = true;
+        long overTwoGiB = Integer.MAX_VALUE + 42L;
+        requestInfo.rawContentLengthInBytes = overTwoGiB;
+
+        // expect
+        assertThat(requestInfo.getRawContentLengthInBytes(), is(Integer.MAX_VALUE));
+        assertThat(requestInfo.getRawContentLengthInBytesAsLong(), is(overTwoGiB));
+    }
+
+    @Test
+    public void getRawContentLengthInBytesAsLong_returns_zero_if_request_not_complete() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.rawContentLengthInBytes = 42;
+
+        // when
+        long result = requestInfo.getRawContentLengthInBytesAsLong();
+
+        // then
+        assertThat(result, is(0L));
+    }
+
     @Test
     @DataProvider(value = {
             "UTF-8",
@@ -385,6 +417,221 @@ public class RequestInfoImplTest {
         verify(objectMapperSpy).readValue(rawBytes, typeRef);
     }
 
+    @Test
+    public void getContent_uses_content_reader_instead_of_deserializer_if_one_was_passed_to_setupContentDeserializer() throws IOException {
+        // given
+        RequestInfo<TestContentObject> requestInfoSpy = spy((RequestInfo<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests());
+        ObjectMapper objectMapperSpy = spy(new ObjectMapper());
+        TestContentObject expectedTco = new TestContentObject(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        byte[] rawBytes = objectMapperSpy.writeValueAsString(expectedTco).getBytes(CharsetUtil.UTF_8);
+        doReturn(rawBytes).when(requestInfoSpy).getRawContentBytes();
+        TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
+        ObjectReader contentReaderSpy = spy(objectMapperSpy.readerFor(typeRef));
+
+        // when
+        requestInfoSpy.setupContentDeserializer(objectMapperSpy, typeRef, contentReaderSpy);
+        TestContentObject result = requestInfoSpy.getContent();
+
+        // then
+        assertThat(requestInfoSpy.isContentDeserializerSetup(), is(true));
+        assertThat(result, notNullValue());
+        assertThat(result.foo, is(expectedTco.foo));
+        assertThat(result.bar, is(expectedTco.bar));
+        verify(contentReaderSpy).readValue(rawBytes);
+        verify(objectMapperSpy, never()).readValue(any(byte[].class), any(TypeReference.class));
+    }
+
+    @DataProvider(value = {
+        "false  |   false",
+        "false  |   true",
+        "true   |   false",
+        "true   |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void setupIncrementalContentDeserializer_deserializes_content_as_chunks_arrive_without_keeping_them(
+        boolean useDirectBuffers, boolean useContentReader
+    ) throws IOException {
+        // given
+        RequestInfoImpl<TestContentObject> requestInfo = (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
+        ObjectReader contentReader = (useContentReader) ? objectMapper.readerFor(typeRef) : null;
+        TestContentObject expectedTco = new TestContentObject(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        byte[] contentBytes = objectMapper.writeValueAsBytes(expectedTco);
+        // Split the content in the middle of a token to make sure the parser picks up where it left off.
+        int splitIndex = contentBytes.length / 2;
+        HttpContent chunk1 = new DefaultHttpContent(buffer(contentBytes, 0, splitIndex, useDirectBuffers));
+        HttpContent lastChunk = new DefaultLastHttpContent(
+            buffer(contentBytes, splitIndex, contentBytes.length - splitIndex, useDirectBuffers)
+        );
+
+        // when
+        boolean result = requestInfo.setupIncrementalContentDeserializer(objectMapper, typeRef, contentReader);
+        requestInfo.addContentChunk(chunk1);
+        requestInfo.addContentChunk(lastChunk);
+
+        // then
+        assertThat(result, is(true));
+        assertThat(requestInfo.isContentDeserializerSetup(), is(true));
+        assertThat(requestInfo.isCompleteRequestWithAllChunks(), is(true));
+        assertThat(requestInfo.getRawContentLengthInBytes(), is(contentBytes.length));
+        assertThat(requestInfo.contentChunks.isEmpty(), is(true));
+        assertThat(chunk1.refCnt(), is(1));
+        assertThat(lastChunk.refCnt(), is(1));
+        // The content was deserialized as soon as the last chunk arrived.
+        assertThat(requestInfo.content, notNullValue());
+        assertThat(requestInfo.incrementalContentTokens, nullValue());
+        TestContentObject content = requestInfo.getContent();
+        assertThat(content.foo, is(expectedTco.foo));
+        assertThat(content.bar, is(expectedTco.bar));
+        assertThat(requestInfo.getRawContentBytes(), nullValue());
+        assertThat(requestInfo.getRawContent(), nullValue());
+        chunk1.release();
+        lastChunk.release();
+    }
+
+    @Test
+    public void getContent_throws_RequestContentDeserializationException_if_incremental_deserialization_failed() throws IOException {
+        // given
+        RequestInfoImpl<TestContentObject> requestInfo = (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
+        requestInfo.setupIncrementalContentDeserializer(new ObjectMapper(), typeRef, null);
+
+        // when
+        requestInfo.addContentChunk(new DefaultHttpContent(Unpooled.copiedBuffer("{\"foo\": ]", CharsetUtil.UTF_8)));
+        requestInfo.addContentChunk(new DefaultLastHttpContent(Unpooled.copiedBuffer("\"bar\"}", CharsetUtil.UTF_8)));
+        Throwable actualEx = catchThrowable(requestInfo::getContent);
+
+        // then
+        assertThat(actualEx, instanceOf(RequestContentDeserializationException.class));
+        assertThat(((RequestContentDeserializationException) actualEx).desiredObjectType, sameInstance(typeRef));
+        assertThat(actualEx.getCause(), instanceOf(IOException.class));
+    }
+
+    @Test
+    public void getContent_returns_null_if_incrementally_deserialized_content_was_empty() {
+        // given
+        RequestInfoImpl<TestContentObject> requestInfo = (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.setupIncrementalContentDeserializer(
+            new ObjectMapper(), new TypeReference<TestContentObject>() {}, null
+        );
+
+        // when
+        requestInfo.addContentChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(requestInfo.isCompleteRequestWithAllChunks(), is(true));
+        assertThat(requestInfo.getContent(), nullValue());
+    }
+
+    @DataProvider(value = {
+        "{\"foo\":\"a\"}{\"foo\":\"b\"}  |   false",
+        "{\"foo\":\"a\"} x             |   false",
+        "{\"foo\":\"a\"} ]             |   false",
+        "{\"foo\":\"a\"}{\"foo\":\"b\"}  |   true",
+        "{\"foo\":\"a\"} x             |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void incremental_deserialization_handles_content_after_the_root_value_the_same_as_deserializing_all_at_once(
+        String body, boolean failOnTrailingTokens
+    ) {
+        // given
+        ObjectMapper objectMapper = new ObjectMapper().configure(
+            DeserializationFeature.FAIL_ON_TRAILING_TOKENS, failOnTrailingTokens
+        );
+        TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
+        // Split the content right after the root value so the trailing content arrives in a later chunk.
+        int splitIndex = body.indexOf('}') + 1;
+
+        RequestInfoImpl<TestContentObject> incrementalRequestInfo =
+            (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        incrementalRequestInfo.isCompleteRequestWithAllChunks = false;
+        incrementalRequestInfo.setupIncrementalContentDeserializer(objectMapper, typeRef, null);
+
+        RequestInfoImpl<TestContentObject> allAtOnceRequestInfo =
+            (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        allAtOnceRequestInfo.isCompleteRequestWithAllChunks = false;
+        allAtOnceRequestInfo.setupContentDeserializer(objectMapper, typeRef);
+
+        // when
+        incrementalRequestInfo.addContentChunk(
+            new DefaultHttpContent(Unpooled.copiedBuffer(body.substring(0, splitIndex), CharsetUtil.UTF_8))
+        );
+        incrementalRequestInfo.addContentChunk(
+            new DefaultLastHttpContent(Unpooled.copiedBuffer(body.substring(splitIndex), CharsetUtil.UTF_8))
+        );
+        allAtOnceRequestInfo.addContentChunk(
+            new DefaultLastHttpContent(Unpooled.copiedBuffer(body, CharsetUtil.UTF_8))
+        );
+        Throwable incrementalEx = catchThrowable(incrementalRequestInfo::getContent);
+        Throwable allAtOnceEx = catchThrowable(allAtOnceRequestInfo::getContent);
+
+        // then
+        assertThat(incrementalRequestInfo.isIncrementalContentDeserialization, is(true));
+        if (failOnTrailingTokens) {
+            assertThat(allAtOnceEx, instanceOf(RequestContentDeserializationException.class));
+            assertThat(incrementalEx, instanceOf(RequestContentDeserializationException.class));
+        }
+        else {
+            assertThat(allAtOnceEx, nullValue());
+            assertThat(incrementalEx, nullValue());
+            assertThat(allAtOnceRequestInfo.getContent().foo, is("a"));
+            assertThat(incrementalRequestInfo.getContent().foo, is("a"));
+        }
+        allAtOnceRequestInfo.releaseAllResources();
+    }
+
+    @DataProvider(value = {
+        "CHUNK_ALREADY_ADDED",
+        "RAW_CONTENT_TYPE",
+        "NON_UTF_8_CHARSET",
+        "CHUNKS_RELEASED_EXTERNALLY"
+    })
+    @Test
+    public void setupIncrementalContentDeserializer_returns_false_and_changes_nothing_if_content_cannot_be_deserialized_incrementally(
+        String scenario
+    ) {
+        // given
+        RequestInfoImpl<Object> requestInfo = (RequestInfoImpl<Object>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        TypeReference<?> typeRef = new TypeReference<Map<String, String>>() {};
+        switch (scenario) {
+            case "CHUNK_ALREADY_ADDED":
+                requestInfo.addContentChunk(new DefaultHttpContent(Unpooled.copiedBuffer("{", CharsetUtil.UTF_8)));
+                break;
+            case "RAW_CONTENT_TYPE":
+                typeRef = new TypeReference<String>() {};
+                break;
+            case "NON_UTF_8_CHARSET":
+                Whitebox.setInternalState(requestInfo, "contentCharset", CharsetUtil.UTF_16);
+                break;
+            case "CHUNKS_RELEASED_EXTERNALLY":
+                requestInfo.contentChunksWillBeReleasedExternally();
+                break;
+            default:
+                throw new IllegalArgumentException("Unhandled scenario: " + scenario);
+        }
+
+        // when
+        boolean result = requestInfo.setupIncrementalContentDeserializer(
+            new ObjectMapper(), (TypeReference<Object>) typeRef, null
+        );
+
+        // then
+        assertThat(result, is(false));
+        assertThat(requestInfo.isIncrementalContentDeserialization, is(false));
+        assertThat(requestInfo.isContentDeserializerSetup(), is(false));
+        requestInfo.releaseAllResources();
+    }
+
+    private static ByteBuf buffer(byte[] bytes, int offset, int length, boolean direct) {
+        ByteBuf result = (direct) ? Unpooled.directBuffer(length) : Unpooled.buffer(length);
+        return result.writeBytes(bytes, offset, length);
+    }
+
     @Test
     public void getContent_throws_RequestContentDeserializationException_if_an_error_occurs_during_deserialization() throws IOException {
         // given
@@ -589,6 +836,91 @@ public class RequestInfoImplTest {
         assertThat(lastChunk.refCnt(), is(1));
     }
 
+    @Test
+    public void getRawContentByteBuf_and_friends_return_read_only_views_over_the_chunks_that_outlive_getRawContentBytes() throws IOException {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        byte[] chunk1Bytes = UUID.randomUUID().toString().getBytes();
+        byte[] lastChunkBytes = UUID.randomUUID().toString().getBytes();
+        HttpContent chunk1 = new DefaultHttpContent(Unpooled.copiedBuffer(chunk1Bytes));
+        HttpContent lastChunk = new DefaultLastHttpContent(Unpooled.copiedBuffer(lastChunkBytes));
+        requestInfo.addContentChunk(chunk1);
+        requestInfo.addContentChunk(lastChunk);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(chunk1Bytes);
+        baos.write(lastChunkBytes);
+        byte[] expectedBytes = baos.toByteArray();
+
+        // when
+        ByteBuf result = requestInfo.getRawContentByteBuf();
+        ByteBuf secondResult = requestInfo.getRawContentByteBuf();
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.isReadOnly(), is(true));
+        assertThat(ByteBufUtil.getBytes(result), is(expectedBytes));
+        // The views hold their own references, so they keep working after getRawContentBytes() releases the chunks.
+        assertThat(chunk1.refCnt(), is(3));
+        assertThat(lastChunk.refCnt(), is(3));
+        assertThat(requestInfo.getRawContentBytes(), is(expectedBytes));
+        assertThat(chunk1.refCnt(), is(2));
+        assertThat(lastChunk.refCnt(), is(2));
+        // Each view has its own indexes, so reading one doesn't affect the others.
+        result.skipBytes(result.readableBytes());
+        assertThat(ByteBufUtil.getBytes(secondResult), is(expectedBytes));
+        ByteBuffer[] nioBuffers = requestInfo.getRawContentNioBuffers();
+        assertThat(nioBuffers.length, is(2));
+        assertThat(nioBuffers[0].isReadOnly(), is(true));
+        assertThat(nioBuffers[0].remaining() + nioBuffers[1].remaining(), is(expectedBytes.length));
+        assertThat(ByteStreams.toByteArray(requestInfo.getRawContentInputStream()), is(expectedBytes));
+
+        // and when
+        requestInfo.releaseAllResources();
+
+        // then
+        assertThat(chunk1.refCnt(), is(1));
+        assertThat(lastChunk.refCnt(), is(1));
+        assertThat(requestInfo.rawContentByteBuf, nullValue());
+    }
+
+    @Test
+    public void getRawContentByteBuf_wraps_rawContentBytes_if_the_chunks_are_already_gone() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        byte[] rawContentBytes = UUID.randomUUID().toString().getBytes();
+        requestInfo.rawContentBytes = rawContentBytes;
+
+        // when
+        ByteBuf result = requestInfo.getRawContentByteBuf();
+
+        // then
+        assertThat(result.isReadOnly(), is(true));
+        assertThat(ByteBufUtil.getBytes(result), is(rawContentBytes));
+    }
+
+    @DataProvider(value = {
+        "false  |   false",
+        "true   |   false",
+        "true   |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void getRawContentByteBuf_and_friends_return_null_if_request_is_not_complete_or_has_no_content(
+        boolean isComplete, boolean hasEmptyChunk
+    ) {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = isComplete;
+        if (hasEmptyChunk) {
+            requestInfo.contentChunks.add(new DefaultLastHttpContent());
+        }
+
+        // expect
+        assertThat(requestInfo.getRawContentByteBuf(), nullValue());
+        assertThat(requestInfo.getRawContentNioBuffers(), nullValue());
+        assertThat(requestInfo.getRawContentInputStream(), nullValue());
+    }
+
     @Test
     public void addContentChunk_adds_last_chunk_trailing_headers() {
         // given
@@ -629,6 +961,24 @@ public class RequestInfoImplTest {
         assertThat(requestInfo.getRawContentLengthInBytes(), is(chunk1Bytes.length + lastChunkBytes.length));
     }
 
+    @Test
+    public void addContentChunk_does_not_overflow_when_content_length_passes_max_int() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.contentChunksWillBeReleasedExternally();
+        requestInfo.rawContentLengthInBytes = Integer.MAX_VALUE - 10;
+        HttpContent chunk = new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[20]));
+
+        // when
+        int result = requestInfo.addContentChunk(chunk);
+
+        // then
+        assertThat(result, is(Integer.MAX_VALUE));
+        assertThat(requestInfo.rawContentLengthInBytes, is(Integer.MAX_VALUE + 10L));
+        chunk.release(2);
+    }
+
     @Test(expected = IllegalStateException.class)
     public void addContentChunk_throws_IllegalStateException_if_requestInfo_trailingHeaders_is_already_populated_when_last_chunk_arrives() {
         // given
@@ -907,6 +1257,7 @@ public class RequestInfoImplTest {
         // then
         verify(requestInfoSpy).releaseContentChunks();
         verify(requestInfoSpy).releaseMultipartData();
+        verify(requestInfoSpy).releaseRawContentByteBuf();
     }
 
     @Test
@@ -0,0 +1,214 @@
+package com.nike.riposte.util;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+import com.tngtech.java.junit.dataprovider.UseDataProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link CompiledPathTemplate}.
+ */
+@RunWith(DataProviderRunner.class)
+public class CompiledPathTemplateTest {
+
+    private static final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @DataProvider(value = {
+        "/",
+        "/foo",
+        "/foo/",
+        "/foo/bar",
+        "/foo/{id}",
+        "/foo/{id}/bar/{otherId}",
+        "/{a}/{b}/",
+        "/foo//bar",
+        "/foo/ bar",
+        "/foo/{id}/{id}"
+    })
+    @Test
+    public void compile_returns_non_null_for_literal_and_simple_path_param_templates(String pathTemplate) {
+        // when
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile(pathTemplate);
+
+        // then
+        assertThat(compiled).isNotNull();
+        assertThat(compiled.getPathTemplate()).isEqualTo(pathTemplate);
+    }
+
+    @DataProvider(value = {
+        "",
+        "foo",
+        "foo/{id}",
+        "/foo/*",
+        "/foo/**",
+        "/foo/**/bar",
+        "/foo/ba?",
+        "/foo/*.json",
+        "/foo/{id:[0-9]+}",
+        "/foo/file-{name}.json",
+        "/foo/{id}.json",
+        "/foo/{}",
+        "/foo/{a}{b}",
+        "/foo/{a{b}}"
+    })
+    @Test
+    public void compile_returns_null_for_templates_that_need_the_ant_matcher(String pathTemplate) {
+        // expect
+        assertThat(CompiledPathTemplate.compile(pathTemplate)).isNull();
+    }
+
+    @DataProvider(value = {
+        "/                          |   /",
+        "/                          |   //",
+        "/                          |   /foo",
+        "/foo                       |   /foo",
+        "/foo                       |   /foo/",
+        "/foo                       |   /foo//",
+        "/foo                       |   /bar",
+        "/foo                       |   /foo/bar",
+        "/foo                       |   foo",
+        "/foo                       |   /Foo",
+        "/foo                       |   //foo",
+        "/foo                       |   /foo ",
+        "/foo/                      |   /foo",
+        "/foo/                      |   /foo/",
+        "/foo/                      |   /foo//",
+        "/foo/bar                   |   /foo/bar",
+        "/foo/bar                   |   /foo//bar",
+        "/foo/bar                   |   /foo/ bar",
+        "/foo/bar                   |   /foo/bar/baz",
+        "/foo/bar                   |   /foo",
+        "/foo/{id}                  |   /foo/42",
+        "/foo/{id}                  |   /foo/42/",
+        "/foo/{id}                  |   /foo/ 42 ",
+        "/foo/{id}                  |   /foo",
+        "/foo/{id}                  |   /foo/",
+        "/foo/{id}                  |   /foo/42/bar",
+        "/foo/{id}                  |   /foo/{id}",
+        "/foo/{id}                  |   /foo/a.b.c",
+        "/foo/{id}/bar/{otherId}    |   /foo/1/bar/2",
+        "/foo/{id}/bar/{otherId}    |   /foo/1/baz/2",
+        "/{a}/{b}                   |   /x/y",
+        "/{a}/{b}                   |   /x//y",
+        "/{a}/{b}/                  |   /x/y",
+        "/{a}/{b}/                  |   /x/y/",
+        "/foo/{id}/{id}             |   /foo/first/second",
+        "/{a}/{b}/{a}               |   /1/2/3",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void matches_and_matchAndExtractPathParams_behave_exactly_like_the_matchers_ant_logic(
+        String pathTemplate, String path
+    ) {
+        // given
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile(MatcherUtil.stripEndSlash(pathTemplate));
+        String antTemplate = MatcherUtil.stripEndSlash(pathTemplate);
+        String antPath = MatcherUtil.stripEndSlash(path);
+        boolean antMatches = antPathMatcher.match(antTemplate, antPath);
+
+        // when
+        boolean matches = compiled.matches(path);
+        Map<String, String> pathParams = compiled.matchAndExtractPathParams(path);
+
+        // then
+        assertThat(matches).isEqualTo(antMatches);
+        if (antMatches) {
+            Map<String, String> antPathParams = antPathMatcher.extractUriTemplateVariables(antTemplate, antPath);
+            assertThat(pathParams).isEqualTo(antPathParams);
+            assertThat(pathParams.keySet()).containsExactlyElementsOf(antPathParams.keySet());
+        }
+        else {
+            assertThat(pathParams).isNull();
+        }
+    }
+
+    @DataProvider
+    public static Object[][] lineTerminatorDataProvider() {
+        return new Object[][] {
+            { "\n" },
+            { "\r" },
+            { "\u0085" },
+            { "\u2028" },
+            { "\u2029" }
+        };
+    }
+
+    @Test
+    @UseDataProvider("lineTerminatorDataProvider")
+    public void path_params_do_not_match_line_terminators_just_like_the_ant_matcher(String lineTerminator) {
+        // given
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile("/foo/{id}");
+        String path = "/foo/bar" + lineTerminator + "baz";
+
+        // when
+        boolean matches = compiled.matches(path);
+
+        // then
+        assertThat(matches).isFalse();
+        assertThat(antPathMatcher.match("/foo/{id}", path)).isFalse();
+    }
+
+    @Test
+    public void matches_works_with_any_CharSequence() {
+        // given
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile("/foo/{id}");
+
+        // expect
+        assertThat(compiled.matches(new StringBuilder("/foo/42"))).isTrue();
+        assertThat(compiled.matches(new StringBuilder("/bar/42"))).isFalse();
+    }
+
+    @Test
+    public void getPathParamNames_returns_unique_names_in_template_order() {
+        // given
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile("/{b}/foo/{a}/{b}");
+
+        // expect
+        assertThat(compiled.getPathParamNames()).containsExactly("b", "a");
+    }
+
+    @Test
+    public void extracted_path_params_map_acts_like_a_normal_read_only_map() {
+        // given
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile("/foo/{id}/bar/{otherId}");
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("id", "42");
+        expected.put("otherId", "abc");
+
+        // when
+        Map<String, String> pathParams = compiled.matchAndExtractPathParams("/foo/42/bar/abc");
+
+        // then
+        assertThat(pathParams).isEqualTo(expected);
+        assertThat(pathParams.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(pathParams.size()).isEqualTo(2);
+        assertThat(pathParams.get("id")).isEqualTo("42");
+        assertThat(pathParams.get("otherId")).isEqualTo("abc");
+        assertThat(pathParams.get("nope")).isNull();
+        assertThat(pathParams.containsKey("id")).isTrue();
+        assertThat(pathParams.containsKey("nope")).isFalse();
+        assertThat(pathParams.containsValue("abc")).isTrue();
+        assertThat(pathParams.keySet()).containsExactly("id", "otherId");
+        assertThat(pathParams.values()).containsExactly("42", "abc");
+        assertThat(catchThrowable(() -> pathParams.put("foo", "bar")))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(catchThrowable(() -> pathParams.remove("id")))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void matchAndExtractPathParams_returns_empty_map_for_template_without_path_params() {
+        // given
+        CompiledPathTemplate compiled = CompiledPathTemplate.compile("/foo/bar");
+
+        // expect
+        assertThat(compiled.matchAndExtractPathParams("/foo/bar")).isEmpty();
+    }
+}
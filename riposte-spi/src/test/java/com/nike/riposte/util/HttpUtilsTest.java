@@ -1,6 +1,7 @@
 package com.nike.riposte.util;
 
 import com.nike.riposte.server.error.exception.InvalidCharsetInContentTypeHeaderException;
+import com.nike.riposte.server.error.exception.PathParameterMatchingException;
 import com.nike.riposte.server.http.RequestInfo;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
@@ -414,4 +415,61 @@ public class HttpUtilsTest {
         Assertions.assertThat(result).isEqualTo(expectedResult);
     }
 
-}
\ No newline at end of file
+    @DataProvider(value = {
+        "/foo/{id}      |   /foo/42     |   id=42",
+        "/foo/{id}/     |   /foo/42/    |   id=42",
+        "/foo/{id}      |   /foo/42/    |   id=42",
+        "/foo/*/{id}    |   /foo/x/42   |   id=42",
+        "/foo           |   /foo        |   ",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void decodePathParams_works_for_compiled_and_ant_path_templates(
+        String pathTemplate, String path, String expectedParam
+    ) {
+        // given
+        Map<String, String> expectedResult = (expectedParam == null || expectedParam.isEmpty())
+                                             ? Collections.emptyMap()
+                                             : Collections.singletonMap(expectedParam.split("=")[0],
+                                                                        expectedParam.split("=")[1]);
+
+        // when
+        Map<String, String> result = HttpUtils.decodePathParams(pathTemplate, path);
+
+        // then
+        Assertions.assertThat(result).isEqualTo(expectedResult);
+    }
+
+    @DataProvider(value = {
+        "/foo/{id}      |   /bar/42",
+        "/foo/{id}      |   /",
+        "/foo/          |   /foo//",
+        "/foo/*/{id}    |   /bar/x/42",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void decodePathParams_throws_PathParameterMatchingException_if_path_does_not_match_template(
+        String pathTemplate, String path
+    ) {
+        // when
+        Throwable ex = Assertions.catchThrowable(() -> HttpUtils.decodePathParams(pathTemplate, path));
+
+        // then
+        Assertions.assertThat(ex).isInstanceOf(PathParameterMatchingException.class);
+    }
+
+    @Test
+    public void getCompiledPathTemplate_caches_compiled_and_non_compilable_templates() {
+        // given
+        String compilableTemplate = "/foo/{id}/" + UUID.randomUUID().toString();
+        String antTemplate = "/foo/**/" + UUID.randomUUID().toString();
+
+        // when
+        CompiledPathTemplate compiled = HttpUtils.getCompiledPathTemplate(compilableTemplate);
+        CompiledPathTemplate notCompiled = HttpUtils.getCompiledPathTemplate(antTemplate);
+
+        // then
+        Assertions.assertThat(compiled).isNotNull();
+        Assertions.assertThat(HttpUtils.getCompiledPathTemplate(compilableTemplate)).isSameAs(compiled);
+        Assertions.assertThat(notCompiled).isNull();
+        Assertions.assertThat(HttpUtils.compiledPathTemplateCache).containsKeys(compilableTemplate, antTemplate);
+    }
+}
@@ -24,6 +24,7 @@ import io.netty.handler.codec.http.HttpMethod;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -256,4 +257,37 @@ public class MultiMatcherTest {
         // expect
         assertThat(matcher.matchesMethod(requestInfo), is(expectedMatchValue));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void constructor_compiles_each_path_template_that_has_no_ant_wildcards_in_order() {
+        // when
+        MultiMatcher matcher = MultiMatcher.match(Arrays.asList("/foo/{id}", "/bar/*.json", "/baz/"));
+
+        // then
+        assertThat(matcher.compiledPathTemplates.size(), is(3));
+        assertThat(matcher.compiledPathTemplates.get(0).getPathTemplate(), is("/foo/{id}"));
+        assertThat(matcher.compiledPathTemplates.get(1), nullValue());
+        assertThat(matcher.compiledPathTemplates.get(2).getPathTemplate(), is("/baz"));
+    }
+
+    @DataProvider(value = {
+        "/bar/42.json   |   /bar/*.json",
+        "/bar/42        |   /bar/{id}",
+        "/foo/42        |   /foo/*",
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void matchesPath_returns_first_matching_template_when_mixing_compiled_and_ant_templates(
+        String path, String expectedTemplate
+    ) {
+        // given
+        MultiMatcher matcher = MultiMatcher.match(Arrays.asList("/bar/*.json", "/bar/{id}", "/foo/*", "/foo/{id}"));
+        RequestInfo<?> request = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        Whitebox.setInternalState(request, "path", path);
+
+        // when
+        Optional<String> result = matcher.matchesPath(request);
+
+        // then
+        assertThat(result, is(Optional.of(expectedTemplate)));
+    }
+}
@@ -23,6 +23,7 @@ import io.netty.handler.codec.http.HttpMethod;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -231,4 +232,12 @@ public class SingleMatcherTest {
         // expect
         assertThat(matcher.matchesMethod(requestInfo), is(expectedMatchValue));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void constructor_compiles_path_template_when_it_has_no_ant_wildcards() {
+        // expect
+        assertThat(SingleMatcher.match("/foo/{id}/").compiledPathTemplate.getPathTemplate(), is("/foo/{id}"));
+        assertThat(SingleMatcher.match("/foo/**").compiledPathTemplate, nullValue());
+        assertThat(SingleMatcher.match("/foo/{id:[0-9]+}").compiledPathTemplate, nullValue());
+    }
+}